@@ -38,6 +38,8 @@ public final class PrestoHeaders
     public static final String PRESTO_PAGE_TOKEN = "X-Presto-Page-Sequence-Id";
     public static final String PRESTO_PAGE_NEXT_TOKEN = "X-Presto-Page-End-Sequence-Id";
     public static final String PRESTO_BUFFER_COMPLETE = "X-Presto-Buffer-Complete";
+    public static final String PRESTO_PAGE_COMPRESSION = "X-Presto-Page-Compression";
+    public static final String PRESTO_PAGE_CHECKSUM = "X-Presto-Page-Checksum";
 
     private PrestoHeaders() {}
 }
@@ -230,6 +230,7 @@ public class BackgroundHiveSplitLoader
                     HiveFileIterator fileIterator = new HiveFileIterator(
                             file.getPath(),
                             files.getFileSystem(),
+                            files.getTable(),
                             files.getDirectoryLister(),
                             files.getNamenodeStats(),
                             files.getPartitionName(),
@@ -321,7 +322,7 @@ public class BackgroundHiveSplitLoader
         }
 
         // If only one bucket could match: load that one file
-        HiveFileIterator iterator = new HiveFileIterator(path, fs, directoryLister, namenodeStats, partitionName, inputFormat, schema, partitionKeys, effectivePredicate);
+        HiveFileIterator iterator = new HiveFileIterator(path, fs, table, directoryLister, namenodeStats, partitionName, inputFormat, schema, partitionKeys, effectivePredicate);
         if (bucket.isPresent()) {
             List<LocatedFileStatus> locatedFileStatuses = listAndSortBucketFiles(iterator, bucket.get().getBucketCount());
             FileStatus file = locatedFileStatuses.get(bucket.get().getBucketNumber());
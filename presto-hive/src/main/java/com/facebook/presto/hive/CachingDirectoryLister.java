@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.spi.SchemaTableName;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches the listings of the partition directories of the configured tables, so
+ * repeated queries over tables with many partitions do not list all directories
+ * again. Listings are keyed by path and expire after a fixed time; changes made
+ * to the files in the meantime are not visible, so tables are opted in explicitly.
+ */
+public class CachingDirectoryLister
+        implements DirectoryLister
+{
+    private static final String ALL_TABLES = "*";
+
+    private final DirectoryLister delegate;
+    private final Cache<Path, List<LocatedFileStatus>> cache;
+    private final boolean cacheAllTables;
+    private final Set<SchemaTableName> cachedTableNames;
+
+    @Inject
+    public CachingDirectoryLister(HiveClientConfig config)
+    {
+        this(
+                new HadoopDirectoryLister(),
+                requireNonNull(config, "config is null").getFileStatusCacheExpireAfterWrite(),
+                config.getFileStatusCacheMaxSize(),
+                config.getFileStatusCacheTables());
+    }
+
+    public CachingDirectoryLister(DirectoryLister delegate, Duration expireAfterWrite, long maxFileStatuses, List<String> tableNames)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        requireNonNull(expireAfterWrite, "expireAfterWrite is null");
+        requireNonNull(tableNames, "tableNames is null");
+
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxFileStatuses)
+                .weigher((Weigher<Path, List<LocatedFileStatus>>) (path, files) -> files.size())
+                .expireAfterWrite(expireAfterWrite.toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+        this.cacheAllTables = tableNames.contains(ALL_TABLES);
+        ImmutableSet.Builder<SchemaTableName> cachedTableNames = ImmutableSet.builder();
+        for (String tableName : tableNames) {
+            if (!tableName.equals(ALL_TABLES)) {
+                cachedTableNames.add(SchemaTableName.valueOf(tableName));
+            }
+        }
+        this.cachedTableNames = cachedTableNames.build();
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Table table, Path path)
+            throws IOException
+    {
+        if (!isCached(table)) {
+            return delegate.list(fs, table, path);
+        }
+
+        List<LocatedFileStatus> files = cache.getIfPresent(path);
+        if (files != null) {
+            return new FileStatusIterator(files.iterator());
+        }
+        return new CachingRemoteIterator(delegate.list(fs, table, path), path);
+    }
+
+    private boolean isCached(Table table)
+    {
+        return cacheAllTables || cachedTableNames.contains(new SchemaTableName(table.getDatabaseName(), table.getTableName()));
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getFileStatusCount()
+    {
+        return cache.asMap().values().stream()
+                .mapToLong(List::size)
+                .sum();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    private static class FileStatusIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final Iterator<LocatedFileStatus> iterator;
+
+        public FileStatusIterator(Iterator<LocatedFileStatus> iterator)
+        {
+            this.iterator = requireNonNull(iterator, "iterator is null");
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public LocatedFileStatus next()
+        {
+            return iterator.next();
+        }
+    }
+
+    // returns the files while they are listed, and caches the listing once it is complete
+    private class CachingRemoteIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final RemoteIterator<LocatedFileStatus> iterator;
+        private final Path path;
+        private final List<LocatedFileStatus> files = new ArrayList<>();
+
+        public CachingRemoteIterator(RemoteIterator<LocatedFileStatus> iterator, Path path)
+        {
+            this.iterator = requireNonNull(iterator, "iterator is null");
+            this.path = requireNonNull(path, "path is null");
+        }
+
+        @Override
+        public boolean hasNext()
+                throws IOException
+        {
+            boolean hasNext = iterator.hasNext();
+            if (!hasNext) {
+                cache.put(path, ImmutableList.copyOf(files));
+            }
+            return hasNext;
+        }
+
+        @Override
+        public LocatedFileStatus next()
+                throws IOException
+        {
+            LocatedFileStatus file = iterator.next();
+            files.add(file);
+            return file;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FileStatus;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.ToIntFunction;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.propagateIfInstanceOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Worker local cache of decoded file footers (e.g. the ORC file tail or the Parquet
+ * footer), shared by all queries. Entries are keyed by the path, length and modification
+ * time of the file, so a rewritten file is never served stale metadata. The cache is
+ * bounded by the estimated memory retained by the decoded footers.
+ */
+public class FileMetadataCache
+{
+    private final Cache<CacheKey, CacheEntry> cache;
+
+    @Inject
+    public FileMetadataCache(HiveClientConfig config)
+    {
+        this(requireNonNull(config, "config is null").getFileMetadataCacheMaxSize());
+    }
+
+    public FileMetadataCache(DataSize maxSize)
+    {
+        requireNonNull(maxSize, "maxSize is null");
+        if (maxSize.toBytes() == 0) {
+            cache = null;
+        }
+        else {
+            cache = CacheBuilder.newBuilder()
+                    .maximumWeight(maxSize.toBytes())
+                    .weigher((CacheKey key, CacheEntry entry) -> entry.getWeight())
+                    .recordStats()
+                    .build();
+        }
+    }
+
+    public static FileMetadataCache disabled()
+    {
+        return new FileMetadataCache(new DataSize(0, DataSize.Unit.BYTE));
+    }
+
+    /**
+     * Returns the cached metadata of the specified format for the file, or loads it.
+     *
+     * @param weigher the estimated memory retained by the decoded metadata
+     */
+    public <T> T get(String format, FileStatus fileStatus, Class<T> type, Callable<T> loader, ToIntFunction<? super T> weigher)
+            throws IOException
+    {
+        requireNonNull(type, "type is null");
+        requireNonNull(loader, "loader is null");
+        requireNonNull(weigher, "weigher is null");
+
+        if (cache == null) {
+            return load(loader);
+        }
+
+        CacheKey key = new CacheKey(format, fileStatus.getPath().toString(), fileStatus.getLen(), fileStatus.getModificationTime());
+        try {
+            CacheEntry entry = cache.get(key, () -> {
+                T value = loader.call();
+                return new CacheEntry(value, weigher.applyAsInt(value));
+            });
+            return type.cast(entry.getValue());
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private static <T> T load(Callable<T> loader)
+            throws IOException
+    {
+        try {
+            return loader.call();
+        }
+        catch (Exception e) {
+            propagateIfInstanceOf(e, IOException.class);
+            throw Throwables.propagate(e);
+        }
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache == null ? 0 : cache.size();
+    }
+
+    @Managed
+    public long getWeight()
+    {
+        if (cache == null) {
+            return 0;
+        }
+        return cache.asMap().values().stream()
+                .mapToLong(CacheEntry::getWeight)
+                .sum();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache == null ? 0 : cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache == null ? 0 : cache.stats().missCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache == null ? 0 : cache.stats().hitRate();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache == null ? 0 : cache.stats().evictionCount();
+    }
+
+    @Managed
+    public long getLoadExceptionCount()
+    {
+        return cache == null ? 0 : cache.stats().loadExceptionCount();
+    }
+
+    private static final class CacheKey
+    {
+        private final String format;
+        private final String path;
+        private final long length;
+        private final long modificationTime;
+
+        public CacheKey(String format, String path, long length, long modificationTime)
+        {
+            this.format = requireNonNull(format, "format is null");
+            this.path = requireNonNull(path, "path is null");
+            this.length = length;
+            this.modificationTime = modificationTime;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return length == other.length &&
+                    modificationTime == other.modificationTime &&
+                    Objects.equals(format, other.format) &&
+                    Objects.equals(path, other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(format, path, length, modificationTime);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("format", format)
+                    .add("path", path)
+                    .add("length", length)
+                    .add("modificationTime", modificationTime)
+                    .toString();
+        }
+    }
+
+    private static final class CacheEntry
+    {
+        private final Object value;
+        private final int weight;
+
+        public CacheEntry(Object value, int weight)
+        {
+            this.value = requireNonNull(value, "value is null");
+            this.weight = weight;
+        }
+
+        public Object getValue()
+        {
+            return value;
+        }
+
+        public int getWeight()
+        {
+            return weight;
+        }
+    }
+}
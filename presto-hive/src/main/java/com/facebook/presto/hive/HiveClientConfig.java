@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 @DefunctConfig({
@@ -104,6 +105,8 @@ public class HiveClientConfig
     private boolean respectTableFormat = true;
     private boolean immutablePartitions;
     private int maxPartitionsPerWriter = 100;
+    private DataSize targetMaxFileSize = new DataSize(1, GIGABYTE);
+    private DataSize maxWriterMemory = new DataSize(256, MEGABYTE);
 
     private List<String> resourceConfigFiles;
 
@@ -114,10 +117,26 @@ public class HiveClientConfig
     private boolean assumeCanonicalPartitionKeys;
 
     private boolean useOrcColumnNames;
+    private boolean orcBloomFiltersEnabled;
+    private boolean orcSelectiveReaderEnabled;
+    private boolean orcOptimizedWriterEnabled;
+    private boolean rcfileOptimizedReaderEnabled;
+    private boolean textOptimizedReaderEnabled;
     private DataSize orcMaxMergeDistance = new DataSize(1, MEGABYTE);
     private DataSize orcMaxBufferSize = new DataSize(8, MEGABYTE);
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
 
+    private DataSize fileMetadataCacheMaxSize = new DataSize(64, MEGABYTE);
+
+    private List<String> fileStatusCacheTables = ImmutableList.of();
+    private long fileStatusCacheMaxSize = 1_000_000;
+    private Duration fileStatusCacheExpireAfterWrite = new Duration(1, TimeUnit.MINUTES);
+
+    private boolean dataCacheEnabled;
+    private String dataCacheDirectory;
+    private DataSize dataCacheMaxSize = new DataSize(10, GIGABYTE);
+    private DataSize dataCacheBlockSize = new DataSize(1, MEGABYTE);
+
     private HiveMetastoreAuthenticationType hiveMetastoreAuthenticationType = HiveMetastoreAuthenticationType.NONE;
     private String hiveMetastoreServicePrincipal;
     private String hiveMetastoreClientPrincipal;
@@ -561,6 +580,36 @@ public class HiveClientConfig
         return this;
     }
 
+    @NotNull
+    @MinDataSize("1MB")
+    public DataSize getTargetMaxFileSize()
+    {
+        return targetMaxFileSize;
+    }
+
+    @Config("hive.target-max-file-size")
+    @ConfigDescription("Target maximum size of written files; larger files are split, except for bucketed tables")
+    public HiveClientConfig setTargetMaxFileSize(DataSize targetMaxFileSize)
+    {
+        this.targetMaxFileSize = targetMaxFileSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1MB")
+    public DataSize getMaxWriterMemory()
+    {
+        return maxWriterMemory;
+    }
+
+    @Config("hive.max-writer-memory")
+    @ConfigDescription("Maximum memory used by the open files of a writer before the least recently used files are flushed")
+    public HiveClientConfig setMaxWriterMemory(DataSize maxWriterMemory)
+    {
+        this.maxWriterMemory = maxWriterMemory;
+        return this;
+    }
+
     public String getDomainSocketPath()
     {
         return domainSocketPath;
@@ -879,6 +928,181 @@ public class HiveClientConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getFileMetadataCacheMaxSize()
+    {
+        return fileMetadataCacheMaxSize;
+    }
+
+    @Config("hive.file-metadata-cache.max-size")
+    @ConfigDescription("Maximum memory retained by the decoded ORC and Parquet file footers cached on each worker")
+    public HiveClientConfig setFileMetadataCacheMaxSize(DataSize fileMetadataCacheMaxSize)
+    {
+        this.fileMetadataCacheMaxSize = fileMetadataCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public List<String> getFileStatusCacheTables()
+    {
+        return fileStatusCacheTables;
+    }
+
+    @Config("hive.file-status-cache-tables")
+    @ConfigDescription("Tables (schema.table, or * for all) whose partition directory listings are cached")
+    public HiveClientConfig setFileStatusCacheTables(String fileStatusCacheTables)
+    {
+        this.fileStatusCacheTables = SPLITTER.splitToList(fileStatusCacheTables);
+        return this;
+    }
+
+    @Min(0)
+    public long getFileStatusCacheMaxSize()
+    {
+        return fileStatusCacheMaxSize;
+    }
+
+    @Config("hive.file-status-cache-size")
+    @ConfigDescription("Maximum number of file statuses in the directory listing cache")
+    public HiveClientConfig setFileStatusCacheMaxSize(long fileStatusCacheMaxSize)
+    {
+        this.fileStatusCacheMaxSize = fileStatusCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public Duration getFileStatusCacheExpireAfterWrite()
+    {
+        return fileStatusCacheExpireAfterWrite;
+    }
+
+    @Config("hive.file-status-cache-expire-time")
+    @ConfigDescription("Time a cached directory listing is used before the directory is listed again")
+    public HiveClientConfig setFileStatusCacheExpireAfterWrite(Duration fileStatusCacheExpireAfterWrite)
+    {
+        this.fileStatusCacheExpireAfterWrite = fileStatusCacheExpireAfterWrite;
+        return this;
+    }
+
+    public boolean isDataCacheEnabled()
+    {
+        return dataCacheEnabled;
+    }
+
+    @Config("hive.data-cache.enabled")
+    @ConfigDescription("Cache the data of ORC and Parquet files on local disk of the workers")
+    public HiveClientConfig setDataCacheEnabled(boolean dataCacheEnabled)
+    {
+        this.dataCacheEnabled = dataCacheEnabled;
+        return this;
+    }
+
+    public String getDataCacheDirectory()
+    {
+        return dataCacheDirectory;
+    }
+
+    @Config("hive.data-cache.directory")
+    @ConfigDescription("Local directory of the data cache, preferably on SSD; each catalog writes to its own subdirectory")
+    public HiveClientConfig setDataCacheDirectory(String dataCacheDirectory)
+    {
+        this.dataCacheDirectory = dataCacheDirectory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getDataCacheMaxSize()
+    {
+        return dataCacheMaxSize;
+    }
+
+    @Config("hive.data-cache.max-size")
+    public HiveClientConfig setDataCacheMaxSize(DataSize dataCacheMaxSize)
+    {
+        this.dataCacheMaxSize = dataCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1kB")
+    public DataSize getDataCacheBlockSize()
+    {
+        return dataCacheBlockSize;
+    }
+
+    @Config("hive.data-cache.block-size")
+    @ConfigDescription("Size of the aligned ranges cached; a miss reads the whole range from the remote file")
+    public HiveClientConfig setDataCacheBlockSize(DataSize dataCacheBlockSize)
+    {
+        this.dataCacheBlockSize = dataCacheBlockSize;
+        return this;
+    }
+
+    public boolean isOrcBloomFiltersEnabled()
+    {
+        return orcBloomFiltersEnabled;
+    }
+
+    @Config("hive.orc.bloom-filters.enabled")
+    @ConfigDescription("Use the ORC bloom filter indexes to skip row groups for equality and IN predicates")
+    public HiveClientConfig setOrcBloomFiltersEnabled(boolean orcBloomFiltersEnabled)
+    {
+        this.orcBloomFiltersEnabled = orcBloomFiltersEnabled;
+        return this;
+    }
+
+    public boolean isOrcSelectiveReaderEnabled()
+    {
+        return orcSelectiveReaderEnabled;
+    }
+
+    @Config("hive.orc.selective-reader.enabled")
+    @ConfigDescription("Experimental: Evaluate pushed down ORC filters first and only decode the other columns for the selected rows")
+    public HiveClientConfig setOrcSelectiveReaderEnabled(boolean orcSelectiveReaderEnabled)
+    {
+        this.orcSelectiveReaderEnabled = orcSelectiveReaderEnabled;
+        return this;
+    }
+
+    public boolean isOrcOptimizedWriterEnabled()
+    {
+        return orcOptimizedWriterEnabled;
+    }
+
+    @Config("hive.orc.optimized-writer.enabled")
+    @ConfigDescription("Experimental: Write ORC files with the native writer")
+    public HiveClientConfig setOrcOptimizedWriterEnabled(boolean orcOptimizedWriterEnabled)
+    {
+        this.orcOptimizedWriterEnabled = orcOptimizedWriterEnabled;
+        return this;
+    }
+
+    public boolean isRcfileOptimizedReaderEnabled()
+    {
+        return rcfileOptimizedReaderEnabled;
+    }
+
+    @Config("hive.rcfile-optimized-reader.enabled")
+    @ConfigDescription("Experimental: Read RCFile files into blocks with the native reader")
+    public HiveClientConfig setRcfileOptimizedReaderEnabled(boolean rcfileOptimizedReaderEnabled)
+    {
+        this.rcfileOptimizedReaderEnabled = rcfileOptimizedReaderEnabled;
+        return this;
+    }
+
+    public boolean isTextOptimizedReaderEnabled()
+    {
+        return textOptimizedReaderEnabled;
+    }
+
+    @Config("hive.text-optimized-reader.enabled")
+    @ConfigDescription("Experimental: Read text files into blocks with the native reader")
+    public HiveClientConfig setTextOptimizedReaderEnabled(boolean textOptimizedReaderEnabled)
+    {
+        this.textOptimizedReaderEnabled = textOptimizedReaderEnabled;
+        return this;
+    }
+
     public boolean isAssumeCanonicalPartitionKeys()
     {
         return assumeCanonicalPartitionKeys;
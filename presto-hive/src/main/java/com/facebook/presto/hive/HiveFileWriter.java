@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.Page;
+
+/**
+ * Writes the rows of a single file of a table or partition.
+ */
+public interface HiveFileWriter
+{
+    /**
+     * Appends all rows of the page. The page contains the data columns of the
+     * file, which may be followed by the sample weight column.
+     */
+    void appendRows(Page dataPage);
+
+    /**
+     * Returns the size of the file so far, including the data that is still
+     * buffered by the writer.
+     */
+    long getWrittenBytes();
+
+    /**
+     * Returns the memory used by the buffers of this writer.
+     */
+    long getSystemMemoryUsage();
+
+    /**
+     * Returns the size of the data buffered by this writer, which is written
+     * out by a flush.
+     */
+    long getBufferedBytes();
+
+    /**
+     * Writes out the buffered data to release the memory it holds. The file
+     * remains open for more rows.
+     */
+    void flush();
+
+    void commit();
+
+    void rollback();
+
+    PartitionUpdate getPartitionUpdate();
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The open file writers of a page sink, identified by partition and bucket and
+ * kept in least recently used order.
+ */
+class HiveFileWriters
+{
+    // once over the limit, memory is released until the writers use at most this fraction of the limit
+    private static final double LOW_WATER_MARK = 0.5;
+
+    private final long maxMemory;
+    private final boolean closeToReleaseMemory;
+
+    // the iteration order is from the least to the most recently used writer
+    private final Long2ObjectLinkedOpenHashMap<HiveFileWriter> writers = new Long2ObjectLinkedOpenHashMap<>();
+    private long flushCount;
+
+    /**
+     * @param closeToReleaseMemory whether writers may be closed when flushing
+     * them does not release enough memory
+     */
+    public HiveFileWriters(long maxMemory, boolean closeToReleaseMemory)
+    {
+        checkArgument(maxMemory >= 0, "maxMemory is negative");
+        this.maxMemory = maxMemory;
+        this.closeToReleaseMemory = closeToReleaseMemory;
+    }
+
+    /**
+     * Returns the writer of the partition and bucket, or null if there is none,
+     * and marks it as the most recently used writer.
+     */
+    public HiveFileWriter get(int partition, int bucket)
+    {
+        return writers.getAndMoveToLast(key(partition, bucket));
+    }
+
+    public void put(int partition, int bucket, HiveFileWriter writer)
+    {
+        writers.putAndMoveToLast(key(partition, bucket), writer);
+    }
+
+    public void remove(int partition, int bucket)
+    {
+        writers.remove(key(partition, bucket));
+    }
+
+    public int size()
+    {
+        return writers.size();
+    }
+
+    /**
+     * Returns the writers from the least to the most recently used.
+     */
+    public Collection<HiveFileWriter> values()
+    {
+        return writers.values();
+    }
+
+    public long getSystemMemoryUsage()
+    {
+        long memoryUsage = 0;
+        for (HiveFileWriter writer : writers.values()) {
+            memoryUsage += writer.getSystemMemoryUsage();
+        }
+        return memoryUsage;
+    }
+
+    public long getMaxWriterMemoryUsage()
+    {
+        long maxWriterMemoryUsage = 0;
+        for (HiveFileWriter writer : writers.values()) {
+            maxWriterMemoryUsage = Math.max(maxWriterMemoryUsage, writer.getSystemMemoryUsage());
+        }
+        return maxWriterMemoryUsage;
+    }
+
+    /**
+     * Returns the number of times a writer was flushed to release memory.
+     */
+    public long getFlushCount()
+    {
+        return flushCount;
+    }
+
+    /**
+     * If the writers use more memory than the limit, flushes the least recently used
+     * writers with buffered data until the writers are below the low water mark. This
+     * keeps the next pages from releasing memory again as soon as they are appended.
+     * If flushing is not enough, the least recently used writers are removed and passed
+     * to the closer, if allowed.
+     */
+    public void releaseMemory(Consumer<HiveFileWriter> closer)
+    {
+        long memoryUsage = getSystemMemoryUsage();
+        if (memoryUsage <= maxMemory) {
+            return;
+        }
+        long lowWaterMark = (long) (maxMemory * LOW_WATER_MARK);
+
+        for (HiveFileWriter writer : writers.values()) {
+            if (memoryUsage <= lowWaterMark) {
+                return;
+            }
+            if (writer.getBufferedBytes() == 0) {
+                continue;
+            }
+            long writerMemoryUsage = writer.getSystemMemoryUsage();
+            writer.flush();
+            flushCount++;
+            memoryUsage -= writerMemoryUsage - writer.getSystemMemoryUsage();
+        }
+
+        if (!closeToReleaseMemory) {
+            return;
+        }
+        Iterator<HiveFileWriter> iterator = writers.values().iterator();
+        while (memoryUsage > lowWaterMark && iterator.hasNext()) {
+            HiveFileWriter writer = iterator.next();
+            memoryUsage -= writer.getSystemMemoryUsage();
+            closer.accept(writer);
+            iterator.remove();
+        }
+    }
+
+    private static long key(int partition, int bucket)
+    {
+        return (((long) partition) << 32) | bucket;
+    }
+}
@@ -44,6 +44,9 @@ import com.facebook.presto.spi.connector.ConnectorMetadata;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.security.Privilege;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Verify;
@@ -73,6 +76,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -151,6 +155,10 @@ public class HiveMetadata
     private static final Logger log = Logger.get(HiveMetadata.class);
     private static final int PARTITION_COMMIT_BATCH_SIZE = 8;
 
+    // basic statistics parameters written by the metastore, see org.apache.hadoop.hive.common.StatsSetupConst
+    private static final String NUM_ROWS = "numRows";
+    private static final String TOTAL_SIZE = "totalSize";
+
     private final String connectorId;
     private final boolean allowCorruptWritesForTesting;
     private final ExtendedHiveMetastore metastore;
@@ -244,6 +252,72 @@ public class HiveMetadata
         return getTableMetadata(tableName);
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, Constraint<ColumnHandle> constraint)
+    {
+        SchemaTableName tableName = schemaTableName(tableHandle);
+        List<HivePartition> partitions = partitionManager.getPartitions(session, metastore, tableHandle, constraint.getSummary()).getPartitions();
+        if (partitions.isEmpty()) {
+            return new TableStatistics(Estimate.zeroValue(), ImmutableMap.of());
+        }
+
+        // basic statistics are kept by the metastore in the parameters of the table or of each partition
+        List<Map<String, String>> statistics = new ArrayList<>();
+        if (partitions.size() == 1 && partitions.get(0).getPartitionId().equals(HivePartition.UNPARTITIONED_ID)) {
+            Table table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName())
+                    .orElseThrow(() -> new TableNotFoundException(tableName));
+            statistics.add(table.getParameters());
+        }
+        else {
+            List<String> partitionNames = partitions.stream()
+                    .map(HivePartition::getPartitionId)
+                    .collect(toList());
+            for (List<String> partitionNameBatch : Iterables.partition(partitionNames, 100)) {
+                for (Optional<Partition> partition : metastore.getPartitionsByNames(tableName.getSchemaName(), tableName.getTableName(), partitionNameBatch).values()) {
+                    if (!partition.isPresent()) {
+                        return TableStatistics.EMPTY_STATISTICS;
+                    }
+                    statistics.add(partition.get().getParameters());
+                }
+            }
+        }
+
+        long rowCount = 0;
+        for (Map<String, String> parameters : statistics) {
+            OptionalLong partitionRowCount = getRowCount(parameters);
+            if (!partitionRowCount.isPresent()) {
+                return TableStatistics.EMPTY_STATISTICS;
+            }
+            rowCount += partitionRowCount.getAsLong();
+        }
+
+        // the distinct values of the partition keys are known from the partitions themselves
+        Map<ColumnHandle, Set<NullableValue>> partitionValues = new HashMap<>();
+        for (HivePartition partition : partitions) {
+            partition.getKeys().forEach((column, value) -> partitionValues.computeIfAbsent(column, key -> new HashSet<>()).add(value));
+        }
+        ImmutableMap.Builder<ColumnHandle, ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        partitionValues.forEach((column, values) -> columnStatistics.put(column, new ColumnStatistics(Estimate.unknownValue(), Estimate.of(values.size()))));
+
+        return new TableStatistics(Estimate.of(rowCount), columnStatistics.build());
+    }
+
+    private static OptionalLong getRowCount(Map<String, String> parameters)
+    {
+        try {
+            long rowCount = Long.parseLong(parameters.getOrDefault(NUM_ROWS, "-1"));
+            long totalSize = Long.parseLong(parameters.getOrDefault(TOTAL_SIZE, "-1"));
+            // a row count of zero for a non empty location means the statistics were never computed
+            if (rowCount < 0 || (rowCount == 0 && totalSize > 0)) {
+                return OptionalLong.empty();
+            }
+            return OptionalLong.of(rowCount);
+        }
+        catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
     private ConnectorTableMetadata getTableMetadata(SchemaTableName tableName)
     {
         Optional<Table> table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
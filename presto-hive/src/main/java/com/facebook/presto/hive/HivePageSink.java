@@ -18,6 +18,7 @@ import com.facebook.presto.hive.metastore.ExtendedHiveMetastore;
 import com.facebook.presto.hive.metastore.Partition;
 import com.facebook.presto.hive.metastore.StorageFormat;
 import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.orc.metadata.CompressionKind;
 import com.facebook.presto.spi.ConnectorPageSink;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.Page;
@@ -36,8 +37,9 @@ import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 import io.airlift.json.JsonCodec;
 import io.airlift.slice.Slice;
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.apache.hadoop.conf.Configuration;
@@ -56,6 +58,7 @@ import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.DefaultCodec;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hive.common.util.ReflectionUtil;
+import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -82,17 +85,23 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_CLOSE_ERROR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_DATA_ERROR;
 import static com.facebook.presto.hive.HivePartitionKey.HIVE_DEFAULT_DYNAMIC_PARTITION;
+import static com.facebook.presto.hive.HiveSessionProperties.getMaxWriterMemory;
+import static com.facebook.presto.hive.HiveSessionProperties.getTargetMaxFileSize;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcOptimizedWriterEnabled;
 import static com.facebook.presto.hive.HiveType.isForceBigintWritableType;
 import static com.facebook.presto.hive.HiveType.toHiveTypes;
 import static com.facebook.presto.hive.HiveWriteUtils.createFieldSetter;
 import static com.facebook.presto.hive.HiveWriteUtils.getField;
 import static com.facebook.presto.hive.HiveWriteUtils.getRowColumnInspectors;
+import static com.facebook.presto.hive.PartitionUpdate.mergePartitionUpdates;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.getHiveSchema;
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_FOUND;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Verify.verify;
 import static io.airlift.slice.Slices.wrappedBuffer;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -102,6 +111,7 @@ import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.apache.hadoop.hive.conf.HiveConf.ConfVars.COMPRESSRESULT;
+import static org.apache.hadoop.hive.conf.HiveConf.ConfVars.HIVE_ORC_DEFAULT_COMPRESS;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMN_TYPES;
 import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
@@ -146,11 +156,17 @@ public class HivePageSink
     private final Table table;
     private final boolean immutablePartitions;
     private final boolean compress;
+    private final CompressionKind orcCompression;
+    private final DateTimeZone hiveStorageTimeZone;
     private final boolean forceIntegralToBigint;
 
-    private HiveRecordWriter[] writers;
-    private final List<Int2ObjectMap<HiveRecordWriter>> bucketWriters;
-    private int bucketWriterCount = 0;
+    private final long targetMaxFileSize;
+
+    private final HiveFileWriters writers;
+
+    // files that were closed before the sink finished
+    private final List<PartitionUpdate> closedWriterPartitionUpdates = new ArrayList<>();
+    private long closedWriterBytes;
 
     private final ConnectorSession session;
 
@@ -173,6 +189,7 @@ public class HivePageSink
             boolean immutablePartitions,
             boolean forceIntegralToBigint,
             boolean compress,
+            DateTimeZone hiveStorageTimeZone,
             JsonCodec<PartitionUpdate> partitionUpdateCodec,
             ConnectorSession session)
     {
@@ -197,6 +214,7 @@ public class HivePageSink
         this.maxOpenPartitions = maxOpenPartitions;
         this.immutablePartitions = immutablePartitions;
         this.compress = compress;
+        this.hiveStorageTimeZone = requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
         this.forceIntegralToBigint = forceIntegralToBigint;
         this.partitionUpdateCodec = requireNonNull(partitionUpdateCodec, "partitionUpdateCodec is null");
 
@@ -258,14 +276,11 @@ public class HivePageSink
                     .map(dataColumnNameToTypeMap::get)
                     .map(HiveType::getTypeInfo)
                     .collect(Collectors.toList());
-            bucketWriters = new ArrayList<>();
         }
         else {
             this.bucketCount = OptionalInt.empty();
             this.bucketColumns = null;
             this.bucketColumnTypes = null;
-            bucketWriters = null;
-            writers = new HiveRecordWriter[0];
         }
 
         this.pageIndexer = pageIndexerFactory.createPageIndexer(this.partitionColumnTypes);
@@ -289,7 +304,27 @@ public class HivePageSink
             conf = new JobConf(hdfsEnvironment.getConfiguration(hdfsEnvironmentPath));
         }
 
+        this.orcCompression = compress ? toOrcCompression(HiveConf.getVar(conf, HIVE_ORC_DEFAULT_COMPRESS)) : UNCOMPRESSED;
+
         this.session = requireNonNull(session, "session is null");
+        this.targetMaxFileSize = getTargetMaxFileSize(session).toBytes();
+
+        // each bucket must be a single file, so bucket writers are never closed before the sink finishes
+        this.writers = new HiveFileWriters(getMaxWriterMemory(session).toBytes(), !bucketProperty.isPresent());
+    }
+
+    private static CompressionKind toOrcCompression(String hiveCompressionKind)
+    {
+        switch (hiveCompressionKind) {
+            case "NONE":
+                return UNCOMPRESSED;
+            case "ZLIB":
+                return ZLIB;
+            case "SNAPPY":
+                return SNAPPY;
+            default:
+                throw new PrestoException(HIVE_UNSUPPORTED_FORMAT, "Unsupported ORC compression: " + hiveCompressionKind);
+        }
     }
 
     @Override
@@ -302,46 +337,18 @@ public class HivePageSink
 
     private ImmutableList<Slice> doFinish()
     {
-        ImmutableList.Builder<Slice> partitionUpdates = ImmutableList.builder();
-        if (!bucketCount.isPresent()) {
-            for (HiveRecordWriter writer : writers) {
-                if (writer != null) {
-                    writer.commit();
-                    PartitionUpdate partitionUpdate = writer.getPartitionUpdate();
-                    partitionUpdates.add(wrappedBuffer(partitionUpdateCodec.toJsonBytes(partitionUpdate)));
-                }
-            }
+        List<PartitionUpdate> partitionUpdates = new ArrayList<>(closedWriterPartitionUpdates);
+        for (HiveFileWriter writer : writers.values()) {
+            writer.commit();
+            partitionUpdates.add(writer.getPartitionUpdate());
         }
-        else {
-            for (Int2ObjectMap<HiveRecordWriter> writers : bucketWriters) {
-                PartitionUpdate firstPartitionUpdate = null;
-                ImmutableList.Builder<String> fileNamesBuilder = ImmutableList.builder();
-                for (HiveRecordWriter writer : writers.values()) {
-                    writer.commit();
-                    PartitionUpdate partitionUpdate = writer.getPartitionUpdate();
-                    if (firstPartitionUpdate == null) {
-                        firstPartitionUpdate = partitionUpdate;
-                    }
-                    else {
-                        verify(firstPartitionUpdate.getName().equals(partitionUpdate.getName()));
-                        verify(firstPartitionUpdate.isNew() == partitionUpdate.isNew());
-                        verify(firstPartitionUpdate.getTargetPath().equals(partitionUpdate.getTargetPath()));
-                        verify(firstPartitionUpdate.getWritePath().equals(partitionUpdate.getWritePath()));
-                    }
-                    fileNamesBuilder.addAll(partitionUpdate.getFileNames());
-                }
-                if (firstPartitionUpdate == null) {
-                    continue;
-                }
-                partitionUpdates.add(wrappedBuffer(partitionUpdateCodec.toJsonBytes(new PartitionUpdate(
-                        firstPartitionUpdate.getName(),
-                        firstPartitionUpdate.isNew(),
-                        firstPartitionUpdate.getWritePath(),
-                        firstPartitionUpdate.getTargetPath(),
-                        fileNamesBuilder.build()))));
-            }
+
+        // a partition may have been written to several files
+        ImmutableList.Builder<Slice> serializedPartitionUpdates = ImmutableList.builder();
+        for (PartitionUpdate partitionUpdate : mergePartitionUpdates(partitionUpdates)) {
+            serializedPartitionUpdates.add(wrappedBuffer(partitionUpdateCodec.toJsonBytes(partitionUpdate)));
         }
-        return partitionUpdates.build();
+        return serializedPartitionUpdates.build();
     }
 
     @Override
@@ -354,20 +361,44 @@ public class HivePageSink
 
     private void doAbort()
     {
-        if (!bucketCount.isPresent()) {
-            for (HiveRecordWriter writer : writers) {
-                if (writer != null) {
-                    writer.rollback();
-                }
-            }
+        // files that were already closed start with the file prefix, so they are removed by the rollback of the metadata
+        for (HiveFileWriter writer : writers.values()) {
+            writer.rollback();
         }
-        else {
-            for (Int2ObjectMap<HiveRecordWriter> writers : bucketWriters) {
-                for (HiveRecordWriter writer : writers.values()) {
-                    writer.rollback();
-                }
-            }
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        long completedBytes = closedWriterBytes;
+        for (HiveFileWriter writer : writers.values()) {
+            completedBytes += writer.getWrittenBytes();
         }
+        return completedBytes;
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return writers.getSystemMemoryUsage();
+    }
+
+    @Override
+    public int getOpenWriterCount()
+    {
+        return writers.size();
+    }
+
+    @Override
+    public long getMaxWriterMemoryUsage()
+    {
+        return writers.getMaxWriterMemoryUsage();
+    }
+
+    @Override
+    public long getWriterFlushCount()
+    {
+        return writers.getFlushCount();
     }
 
     @Override
@@ -386,29 +417,36 @@ public class HivePageSink
         }
 
         // Must be wrapped in doAs entirely
-        // Implicit FileSystem initializations are possible in HiveRecordWriter#addRow or #createWriter
+        // Implicit FileSystem initializations are possible in HiveRecordWriter#appendRows or #createWriter
         return hdfsEnvironment.doAs(session.getUser(), () -> doAppend(page, dataBlocks, partitionBlocks, indexes));
     }
 
     private CompletableFuture<?> doAppend(Page page, Block[] dataBlocks, Block[] partitionBlocks, int[] indexes)
     {
+        int positionCount = page.getPositionCount();
+        int partitionCount = pageIndexer.getMaxIndex() + 1;
+
+        Page dataPage = new Page(positionCount, dataBlocks);
         if (!bucketCount.isPresent()) {
-            if (pageIndexer.getMaxIndex() >= writers.length) {
-                writers = Arrays.copyOf(writers, pageIndexer.getMaxIndex() + 1);
-            }
-            for (int position = 0; position < page.getPositionCount(); position++) {
-                int writerIndex = indexes[position];
-                HiveRecordWriter writer = writers[writerIndex];
+            int[][] partitionPositions = groupPositions(indexes, positionCount, partitionCount);
+            for (int partition = 0; partition < partitionCount; partition++) {
+                int[] positions = partitionPositions[partition];
+                if (positions == null) {
+                    continue;
+                }
+
+                HiveFileWriter writer = writers.get(partition, 0);
                 if (writer == null) {
-                    for (int field = 0; field < partitionBlocks.length; field++) {
-                        Object value = getField(partitionColumnTypes.get(field), partitionBlocks[field], position);
-                        partitionRow.set(field, value);
-                    }
-                    writer = createWriter(partitionRow, filePrefix + "_" + randomUUID());
-                    writers[writerIndex] = writer;
+                    writer = createWriter(getPartitionRow(partitionBlocks, positions[0]), filePrefix + "_" + randomUUID());
+                    writers.put(partition, 0, writer);
                 }
+                writer.appendRows(getPositions(dataPage, positions));
 
-                writer.addRow(dataBlocks, position);
+                if (writer.getWrittenBytes() >= targetMaxFileSize) {
+                    // the next rows of the partition are written to a new file
+                    closeWriter(writer);
+                    writers.remove(partition, 0);
+                }
             }
         }
         else {
@@ -417,41 +455,110 @@ public class HivePageSink
             for (int i = 0; i < bucketColumns.length; i++) {
                 bucketBlocks[i] = page.getBlock(bucketColumns[i]);
             }
-            Page bucketColumnsPage = new Page(page.getPositionCount(), bucketBlocks);
+            Page bucketColumnsPage = new Page(positionCount, bucketBlocks);
 
-            for (int i = bucketWriters.size(); i <= pageIndexer.getMaxIndex(); i++) {
-                bucketWriters.add(new Int2ObjectOpenHashMap<>());
-            }
-            for (int position = 0; position < page.getPositionCount(); position++) {
-                int writerIndex = indexes[position];
-                Int2ObjectMap<HiveRecordWriter> writers = bucketWriters.get(writerIndex);
+            // number the partition and bucket pairs of the page, so the rows can be grouped by writer
+            Long2IntMap writerIds = new Long2IntOpenHashMap();
+            writerIds.defaultReturnValue(-1);
+            IntArrayList writerPartitions = new IntArrayList();
+            IntArrayList writerBuckets = new IntArrayList();
+            int[] positionWriterIds = new int[positionCount];
+            for (int position = 0; position < positionCount; position++) {
+                int partition = indexes[position];
                 int bucket = HiveBucketing.getHiveBucket(bucketColumnTypes, bucketColumnsPage, position, bucketCount, forceIntegralToBigint);
-                HiveRecordWriter writer = writers.get(bucket);
+                long key = (((long) partition) << 32) | bucket;
+                int writerId = writerIds.get(key);
+                if (writerId < 0) {
+                    writerId = writerIds.size();
+                    writerIds.put(key, writerId);
+                    writerPartitions.add(partition);
+                    writerBuckets.add(bucket);
+                }
+                positionWriterIds[position] = writerId;
+            }
+
+            int[][] writerPositions = groupPositions(positionWriterIds, positionCount, writerIds.size());
+            for (int writerId = 0; writerId < writerPositions.length; writerId++) {
+                int partition = writerPartitions.getInt(writerId);
+                int bucket = writerBuckets.getInt(writerId);
+                int[] positions = writerPositions[writerId];
+
+                HiveFileWriter writer = writers.get(partition, bucket);
                 if (writer == null) {
-                    if (bucketWriterCount >= maxOpenPartitions) {
+                    if (writers.size() >= maxOpenPartitions) {
                         throw new PrestoException(HIVE_TOO_MANY_OPEN_PARTITIONS, "Too many open writers for partitions and buckets");
                     }
-                    bucketWriterCount++;
-                    for (int field = 0; field < partitionBlocks.length; field++) {
-                        Object value = getField(partitionColumnTypes.get(field), partitionBlocks[field], position);
-                        partitionRow.set(field, value);
-                    }
-                    writer = createWriter(partitionRow, computeBucketedFileName(filePrefix, bucket));
-                    writers.put(bucket, writer);
+                    writer = createWriter(getPartitionRow(partitionBlocks, positions[0]), computeBucketedFileName(filePrefix, bucket));
+                    writers.put(partition, bucket, writer);
                 }
-
-                writer.addRow(dataBlocks, position);
+                writer.appendRows(getPositions(dataPage, positions));
             }
         }
+
+        writers.releaseMemory(this::closeWriter);
         return NOT_BLOCKED;
     }
 
+    private void closeWriter(HiveFileWriter writer)
+    {
+        writer.commit();
+        closedWriterBytes += writer.getWrittenBytes();
+        closedWriterPartitionUpdates.add(writer.getPartitionUpdate());
+    }
+
+    private List<Object> getPartitionRow(Block[] partitionBlocks, int position)
+    {
+        for (int field = 0; field < partitionBlocks.length; field++) {
+            Object value = getField(partitionColumnTypes.get(field), partitionBlocks[field], position);
+            partitionRow.set(field, value);
+        }
+        return partitionRow;
+    }
+
+    /**
+     * Returns the positions of each key, or null for the keys that do not occur.
+     */
+    private static int[][] groupPositions(int[] keys, int positionCount, int keyCount)
+    {
+        int[] keyPositionCounts = new int[keyCount];
+        for (int position = 0; position < positionCount; position++) {
+            keyPositionCounts[keys[position]]++;
+        }
+
+        int[][] keyPositions = new int[keyCount][];
+        for (int key = 0; key < keyCount; key++) {
+            if (keyPositionCounts[key] > 0) {
+                keyPositions[key] = new int[keyPositionCounts[key]];
+                keyPositionCounts[key] = 0;
+            }
+        }
+        for (int position = 0; position < positionCount; position++) {
+            int key = keys[position];
+            keyPositions[key][keyPositionCounts[key]++] = position;
+        }
+        return keyPositions;
+    }
+
+    private static Page getPositions(Page page, int[] positions)
+    {
+        if (positions.length == page.getPositionCount()) {
+            // all rows of the page go to the same writer
+            return page;
+        }
+        List<Integer> positionList = Ints.asList(positions);
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = page.getBlock(channel).copyPositions(positionList);
+        }
+        return new Page(positions.length, blocks);
+    }
+
     public static String computeBucketedFileName(String filePrefix, int bucket)
     {
         return filePrefix + "_bucket-" + Strings.padStart(Integer.toString(bucket), BUCKET_NUMBER_PADDING, '0');
     }
 
-    private HiveRecordWriter createWriter(List<Object> partitionRow, String fileName)
+    private HiveFileWriter createWriter(List<Object> partitionRow, String fileName)
     {
         checkArgument(partitionRow.size() == partitionColumnNames.size(), "size of partitionRow is different from partitionColumnNames");
 
@@ -559,6 +666,18 @@ public class HivePageSink
             target = locationService.targetPath(locationHandle, partition.get(), partitionName.get());
             write = locationService.writePath(locationHandle, partitionName).orElse(target);
         }
+        if (isOrcOptimizedWriterEnabled(session) && OrcFileWriter.isSupported(outputFormat, serDe, dataColumns, schema)) {
+            return new OrcFileWriter(
+                    partitionName.orElse(""),
+                    isNew,
+                    dataColumns,
+                    orcCompression,
+                    fileName,
+                    write.toString(),
+                    target.toString(),
+                    hiveStorageTimeZone,
+                    conf);
+        }
         return new HiveRecordWriter(
                 schemaName,
                 tableName,
@@ -626,6 +745,7 @@ public class HivePageSink
 
     @VisibleForTesting
     public static class HiveRecordWriter
+            implements HiveFileWriter
     {
         private final String partitionName;
         private final boolean isNew;
@@ -640,6 +760,7 @@ public class HivePageSink
         private final List<StructField> structFields;
         private final Object row;
         private final FieldSetter[] setters;
+        private long writtenBytes;
 
         public HiveRecordWriter(
                 String schemaName,
@@ -732,7 +853,21 @@ public class HivePageSink
             }
         }
 
-        public void addRow(Block[] columns, int position)
+        @Override
+        public void appendRows(Page dataPage)
+        {
+            Block[] columns = new Block[fieldCount];
+            for (int field = 0; field < fieldCount; field++) {
+                columns[field] = dataPage.getBlock(field);
+                // the size of the serialized rows is not known, so the input size is used as an estimate
+                writtenBytes += columns[field].getSizeInBytes();
+            }
+            for (int position = 0; position < dataPage.getPositionCount(); position++) {
+                appendRow(columns, position);
+            }
+        }
+
+        private void appendRow(Block[] columns, int position)
         {
             for (int field = 0; field < fieldCount; field++) {
                 if (columns[field].isNull(position)) {
@@ -751,6 +886,32 @@ public class HivePageSink
             }
         }
 
+        @Override
+        public long getWrittenBytes()
+        {
+            return writtenBytes;
+        }
+
+        @Override
+        public long getSystemMemoryUsage()
+        {
+            // the buffers of the Hive record writers are not accounted for
+            return 0;
+        }
+
+        @Override
+        public long getBufferedBytes()
+        {
+            return 0;
+        }
+
+        @Override
+        public void flush()
+        {
+            // the Hive record writers manage their own buffers
+        }
+
+        @Override
         public void commit()
         {
             try {
@@ -761,6 +922,7 @@ public class HivePageSink
             }
         }
 
+        @Override
         public void rollback()
         {
             try {
@@ -771,6 +933,7 @@ public class HivePageSink
             }
         }
 
+        @Override
         public PartitionUpdate getPartitionUpdate()
         {
             return new PartitionUpdate(
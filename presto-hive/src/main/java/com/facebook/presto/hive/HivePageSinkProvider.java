@@ -23,6 +23,7 @@ import com.facebook.presto.spi.connector.ConnectorPageSinkProvider;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
 import com.facebook.presto.spi.type.TypeManager;
 import io.airlift.json.JsonCodec;
+import org.joda.time.DateTimeZone;
 
 import javax.inject.Inject;
 
@@ -40,6 +41,7 @@ public class HivePageSinkProvider
     private final boolean immutablePartitions;
     private final boolean forceIntegralToBigint;
     private final boolean compressed;
+    private final DateTimeZone hiveStorageTimeZone;
     private final LocationService locationService;
     private final JsonCodec<PartitionUpdate> partitionUpdateCodec;
 
@@ -61,6 +63,7 @@ public class HivePageSinkProvider
         this.immutablePartitions = config.isImmutablePartitions();
         this.forceIntegralToBigint = config.isForceIntegralToBigint();
         this.compressed = config.getHiveCompressionCodec() != HiveCompressionCodec.NONE;
+        this.hiveStorageTimeZone = config.getDateTimeZone();
         this.locationService = requireNonNull(locationService, "locationService is null");
         this.partitionUpdateCodec = requireNonNull(partitionUpdateCodec, "partitionUpdateCodec is null");
     }
@@ -100,6 +103,7 @@ public class HivePageSinkProvider
                 immutablePartitions,
                 forceIntegralToBigint,
                 compressed,
+                hiveStorageTimeZone,
                 partitionUpdateCodec,
                 session);
     }
@@ -17,6 +17,7 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.RecordPageSource;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
@@ -68,9 +69,34 @@ public class HivePageSourceProvider
 
     @Override
     public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns)
+    {
+        HiveSplit hiveSplit = checkType(split, HiveSplit.class, "split");
+        return createPageSource(session, hiveSplit, columns, hiveSplit.getEffectivePredicate());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            ConnectorSplit split,
+            List<ColumnHandle> columns,
+            TupleDomain<ColumnHandle> dynamicFilter)
     {
         HiveSplit hiveSplit = checkType(split, HiveSplit.class, "split");
 
+        // the dynamic filter is pushed into the readers along with the effective predicate, so
+        // file formats with statistics can skip stripes and row groups without matching keys
+        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getEffectivePredicate()
+                .intersect(dynamicFilter.transform(HiveColumnHandle::toHiveColumnHandle));
+        if (effectivePredicate.isNone()) {
+            return new FixedPageSource(ImmutableList.of());
+        }
+        return createPageSource(session, hiveSplit, columns, effectivePredicate);
+    }
+
+    private ConnectorPageSource createPageSource(ConnectorSession session, HiveSplit hiveSplit, List<ColumnHandle> columns, TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
+
         String clientId = hiveSplit.getClientId();
 
         Path path = new Path(hiveSplit.getPath());
@@ -79,8 +105,6 @@ public class HivePageSourceProvider
 
         Configuration configuration = hdfsEnvironment.getConfiguration(path);
 
-        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getEffectivePredicate();
-
         Properties schema = hiveSplit.getSchema();
 
         List<HivePartitionKey> partitionKeys = hiveSplit.getPartitionKeys();
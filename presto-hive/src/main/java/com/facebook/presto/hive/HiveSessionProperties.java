@@ -31,10 +31,17 @@ public final class HiveSessionProperties
     private static final String ORC_MAX_MERGE_DISTANCE = "orc_max_merge_distance";
     private static final String ORC_MAX_BUFFER_SIZE = "orc_max_buffer_size";
     private static final String ORC_STREAM_BUFFER_SIZE = "orc_stream_buffer_size";
+    private static final String ORC_BLOOM_FILTERS_ENABLED = "orc_bloom_filters_enabled";
+    private static final String ORC_SELECTIVE_READER_ENABLED = "orc_selective_reader_enabled";
+    private static final String ORC_OPTIMIZED_WRITER_ENABLED = "orc_optimized_writer_enabled";
+    private static final String RCFILE_OPTIMIZED_READER_ENABLED = "rcfile_optimized_reader_enabled";
+    private static final String TEXT_OPTIMIZED_READER_ENABLED = "text_optimized_reader_enabled";
     private static final String PARQUET_PREDICATE_PUSHDOWN_ENABLED = "parquet_predicate_pushdown_enabled";
     private static final String PARQUET_OPTIMIZED_READER_ENABLED = "parquet_optimized_reader_enabled";
     private static final String MAX_SPLIT_SIZE = "max_split_size";
     private static final String MAX_INITIAL_SPLIT_SIZE = "max_initial_split_size";
+    private static final String TARGET_MAX_FILE_SIZE = "target_max_file_size";
+    private static final String MAX_WRITER_MEMORY = "max_writer_memory";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -62,6 +69,31 @@ public final class HiveSessionProperties
                         "ORC: Size of buffer for streaming reads",
                         config.getOrcStreamBufferSize(),
                         false),
+                booleanSessionProperty(
+                        ORC_BLOOM_FILTERS_ENABLED,
+                        "ORC: Enable bloom filters for predicate pushdown",
+                        config.isOrcBloomFiltersEnabled(),
+                        false),
+                booleanSessionProperty(
+                        ORC_SELECTIVE_READER_ENABLED,
+                        "Experimental: ORC: Evaluate pushed down filters before reading the other columns",
+                        config.isOrcSelectiveReaderEnabled(),
+                        false),
+                booleanSessionProperty(
+                        ORC_OPTIMIZED_WRITER_ENABLED,
+                        "Experimental: ORC: Enable optimized writer",
+                        config.isOrcOptimizedWriterEnabled(),
+                        false),
+                booleanSessionProperty(
+                        RCFILE_OPTIMIZED_READER_ENABLED,
+                        "Experimental: RCFile: Enable optimized reader",
+                        config.isRcfileOptimizedReaderEnabled(),
+                        false),
+                booleanSessionProperty(
+                        TEXT_OPTIMIZED_READER_ENABLED,
+                        "Experimental: Text: Enable optimized reader",
+                        config.isTextOptimizedReaderEnabled(),
+                        false),
                 booleanSessionProperty(
                         PARQUET_OPTIMIZED_READER_ENABLED,
                         "Experimental: Parquet: Enable optimized reader",
@@ -81,7 +113,17 @@ public final class HiveSessionProperties
                         MAX_INITIAL_SPLIT_SIZE,
                         "Max initial split size",
                         config.getMaxInitialSplitSize(),
-                        true));
+                        true),
+                dataSizeSessionProperty(
+                        TARGET_MAX_FILE_SIZE,
+                        "Target maximum size of written files",
+                        config.getTargetMaxFileSize(),
+                        false),
+                dataSizeSessionProperty(
+                        MAX_WRITER_MEMORY,
+                        "Maximum memory used by the open files of a writer",
+                        config.getMaxWriterMemory(),
+                        false));
     }
 
     public List<PropertyMetadata<?>> getSessionProperties()
@@ -114,6 +156,31 @@ public final class HiveSessionProperties
         return session.getProperty(ORC_STREAM_BUFFER_SIZE, DataSize.class);
     }
 
+    public static boolean isOrcBloomFiltersEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORC_BLOOM_FILTERS_ENABLED, Boolean.class);
+    }
+
+    public static boolean isOrcSelectiveReaderEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORC_SELECTIVE_READER_ENABLED, Boolean.class);
+    }
+
+    public static boolean isOrcOptimizedWriterEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORC_OPTIMIZED_WRITER_ENABLED, Boolean.class);
+    }
+
+    public static boolean isRcfileOptimizedReaderEnabled(ConnectorSession session)
+    {
+        return session.getProperty(RCFILE_OPTIMIZED_READER_ENABLED, Boolean.class);
+    }
+
+    public static boolean isTextOptimizedReaderEnabled(ConnectorSession session)
+    {
+        return session.getProperty(TEXT_OPTIMIZED_READER_ENABLED, Boolean.class);
+    }
+
     public static boolean isParquetPredicatePushdownEnabled(ConnectorSession session)
     {
         return session.getProperty(PARQUET_PREDICATE_PUSHDOWN_ENABLED, Boolean.class);
@@ -129,6 +196,16 @@ public final class HiveSessionProperties
         return session.getProperty(MAX_INITIAL_SPLIT_SIZE, DataSize.class);
     }
 
+    public static DataSize getTargetMaxFileSize(ConnectorSession session)
+    {
+        return session.getProperty(TARGET_MAX_FILE_SIZE, DataSize.class);
+    }
+
+    public static DataSize getMaxWriterMemory(ConnectorSession session)
+    {
+        return session.getProperty(MAX_WRITER_MEMORY, DataSize.class);
+    }
+
     public static PropertyMetadata<DataSize> dataSizeSessionProperty(String name, String description, DataSize defaultValue, boolean hidden)
     {
         return new PropertyMetadata<>(
@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Properties;
 
@@ -175,6 +176,13 @@ public class HiveSplit
         return !forceLocalScheduling;
     }
 
+    @Override
+    public Optional<String> getAffinityKey()
+    {
+        // the cache holds blocks of the split range only, so the splits of a large file can be spread over the nodes
+        return Optional.of(path + "#" + start);
+    }
+
     @Override
     public Object getInfo()
     {
@@ -26,6 +26,7 @@ import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.connector.ConnectorSplitManager;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.google.common.base.Throwables;
 import com.google.common.base.Verify;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
@@ -42,9 +43,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_METADATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_METASTORE_ERROR;
@@ -59,7 +63,6 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.getOnlyElement;
-import static com.google.common.collect.Iterables.transform;
 import static java.lang.Math.min;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -192,7 +195,8 @@ public class HiveSplitManager
         }
 
         Iterable<List<HivePartition>> partitionNameBatches = partitionExponentially(hivePartitions, minPartitionBatchSize, maxPartitionBatchSize);
-        Iterable<List<HivePartitionMetadata>> partitionBatches = transform(partitionNameBatches, partitionBatch -> {
+        // the next batch is fetched in the background while splits are generated for the current one
+        Iterable<List<HivePartitionMetadata>> partitionBatches = loadAhead(partitionNameBatches, partitionBatch -> {
             Map<String, Optional<Partition>> batch = metastore.getPartitionsByNames(
                     tableName.getSchemaName(),
                     tableName.getTableName(),
@@ -269,10 +273,59 @@ public class HiveSplitManager
             }
 
             return results.build();
-        });
+        }, executor);
         return concat(partitionBatches);
     }
 
+    /**
+     * Apply the loader to each element, starting the load of the next element on the executor as soon as the current one is returned.
+     * If the executor has not started a load by the time it is needed, it runs in the calling thread.
+     */
+    private static <T, R> Iterable<R> loadAhead(Iterable<T> values, Function<T, R> loader, Executor executor)
+    {
+        return () -> new AbstractIterator<R>()
+        {
+            private final Iterator<T> iterator = values.iterator();
+            private FutureTask<R> next;
+
+            @Override
+            protected R computeNext()
+            {
+                FutureTask<R> current = next;
+                if (current == null) {
+                    if (!iterator.hasNext()) {
+                        return endOfData();
+                    }
+                    current = createTask(iterator.next());
+                }
+
+                next = null;
+                if (iterator.hasNext()) {
+                    next = createTask(iterator.next());
+                    executor.execute(next);
+                }
+
+                // no-op if the executor already started the task
+                current.run();
+                try {
+                    return current.get();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PrestoException(GENERIC_INTERNAL_ERROR, "Interrupted while loading partitions", e);
+                }
+                catch (ExecutionException e) {
+                    throw Throwables.propagate(e.getCause());
+                }
+            }
+
+            private FutureTask<R> createTask(T value)
+            {
+                return new FutureTask<>(() -> loader.apply(value));
+            }
+        };
+    }
+
     /**
      * Partition the given list in exponentially (power of 2) increasing batch sizes starting at 1 up to maxBatchSize
      */
@@ -19,9 +19,13 @@ import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ErrorCodeSupplier;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.type.DecimalType;
 import com.facebook.presto.spi.type.Decimals;
+import com.facebook.presto.spi.type.FixedWidthType;
 import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.VarcharType;
@@ -90,11 +94,14 @@ import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.DateType.DATE;
 import static com.facebook.presto.spi.type.DecimalType.createDecimalType;
+import static com.facebook.presto.spi.type.Decimals.isLongDecimal;
+import static com.facebook.presto.spi.type.Decimals.isShortDecimal;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.IntegerType.INTEGER;
 import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
 import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
 import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.Varchars.isVarcharType;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Lists.transform;
@@ -108,6 +115,7 @@ import static java.math.BigDecimal.ROUND_UNNECESSARY;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.hadoop.hive.common.FileUtils.unescapePathName;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.FILE_INPUT_FORMAT;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_NAME;
 import static org.apache.hadoop.hive.serde.serdeConstants.DECIMAL_TYPE_NAME;
 import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_LIB;
 import static org.apache.hadoop.hive.serde2.ColumnProjectionUtils.READ_ALL_COLUMNS;
@@ -221,7 +229,7 @@ public final class HiveUtil
         return (Class<? extends InputFormat<?, ?>>) (Object) clazz.asSubclass(InputFormat.class);
     }
 
-    static String getInputFormatName(Properties schema)
+    public static String getInputFormatName(Properties schema)
     {
         String name = schema.getProperty(FILE_INPUT_FORMAT);
         checkCondition(name != null, HIVE_INVALID_METADATA, "Table or partition is missing Hive input format property: %s", FILE_INPUT_FORMAT);
@@ -296,6 +304,11 @@ public final class HiveUtil
         return getDeserializerClassName(schema).equals(deserializerClass.getName());
     }
 
+    public static String getTableName(Properties schema)
+    {
+        return schema.getProperty(META_TABLE_NAME, "unknown");
+    }
+
     public static String getDeserializerClassName(Properties schema)
     {
         String name = schema.getProperty(SERIALIZATION_LIB);
@@ -763,4 +776,82 @@ public final class HiveUtil
         }
         throw new PrestoException(NOT_SUPPORTED, "unsupported hidden column: " + columnHandle);
     }
+
+    /**
+     * Creates a block with the value of a partition key or hidden column in every position.
+     */
+    public static Block createPrefilledBlock(Type type, String name, String columnValue, int positionCount, DateTimeZone hiveStorageTimeZone)
+    {
+        byte[] bytes = columnValue.getBytes(UTF_8);
+
+        BlockBuilder blockBuilder;
+        if (type instanceof FixedWidthType) {
+            blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), positionCount);
+        }
+        else {
+            blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), positionCount, bytes.length);
+        }
+
+        if (isHiveNull(bytes)) {
+            for (int i = 0; i < positionCount; i++) {
+                blockBuilder.appendNull();
+            }
+        }
+        else if (type.equals(BOOLEAN)) {
+            boolean value = booleanPartitionKey(columnValue, name);
+            for (int i = 0; i < positionCount; i++) {
+                BOOLEAN.writeBoolean(blockBuilder, value);
+            }
+        }
+        else if (type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) || type.equals(DATE) || type.equals(TIMESTAMP) || isShortDecimal(type)) {
+            long value;
+            if (type.equals(BIGINT)) {
+                value = bigintPartitionKey(columnValue, name);
+            }
+            else if (type.equals(INTEGER)) {
+                value = integerPartitionKey(columnValue, name);
+            }
+            else if (type.equals(SMALLINT)) {
+                value = smallintPartitionKey(columnValue, name);
+            }
+            else if (type.equals(TINYINT)) {
+                value = tinyintPartitionKey(columnValue, name);
+            }
+            else if (type.equals(DATE)) {
+                value = datePartitionKey(columnValue, name);
+            }
+            else if (type.equals(TIMESTAMP)) {
+                value = timestampPartitionKey(columnValue, hiveStorageTimeZone, name);
+            }
+            else {
+                value = shortDecimalPartitionKey(columnValue, (DecimalType) type, name);
+            }
+            for (int i = 0; i < positionCount; i++) {
+                type.writeLong(blockBuilder, value);
+            }
+        }
+        else if (type.equals(DOUBLE)) {
+            double value = doublePartitionKey(columnValue, name);
+            for (int i = 0; i < positionCount; i++) {
+                DOUBLE.writeDouble(blockBuilder, value);
+            }
+        }
+        else if (isVarcharType(type) || isLongDecimal(type)) {
+            Slice value;
+            if (isVarcharType(type)) {
+                value = varcharPartitionKey(columnValue, name, type);
+            }
+            else {
+                value = longDecimalPartitionKey(columnValue, (DecimalType) type, name);
+            }
+            for (int i = 0; i < positionCount; i++) {
+                type.writeSlice(blockBuilder, value);
+            }
+        }
+        else {
+            throw new PrestoException(NOT_SUPPORTED, format("Unsupported column type %s for prefilled column: %s", type.getDisplayName(), name));
+        }
+
+        return blockBuilder.build();
+    }
 }
@@ -0,0 +1,611 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+import static java.util.UUID.randomUUID;
+
+/**
+ * Worker local read-through cache of remote file data. Files are cached in aligned
+ * blocks, each stored in its own file and read back with positional reads of a file
+ * channel that is only open during the read. Blocks are evicted in approximately least
+ * recently used order once the total size exceeds the configured maximum, and the file
+ * of an evicted block is deleted once the reads in progress are done.
+ * <p>
+ * The index is kept in memory, so each cache instance writes to a new subdirectory of
+ * the cache directory, named after the connector and a random id. Catalogs and processes
+ * that share the cache directory never touch each other's files.
+ */
+public class LocalDataCache
+{
+    private static final Logger log = Logger.get(LocalDataCache.class);
+    private static final String BLOCK_FILE_SUFFIX = ".block";
+
+    private final Path directory;
+    private final int blockSize;
+    private final Cache<BlockKey, CachedBlock> cache;
+    // blocks are only written by this instance, so the ids are unique within its directory
+    private final AtomicLong nextBlockId = new AtomicLong();
+
+    private final CacheStats stats = new CacheStats();
+    private final ConcurrentMap<String, CacheStats> tableStats = new ConcurrentHashMap<>();
+
+    @Inject
+    public LocalDataCache(HiveConnectorId connectorId, HiveClientConfig config)
+    {
+        this(
+                requireNonNull(config, "config is null").isDataCacheEnabled(),
+                config.getDataCacheDirectory(),
+                requireNonNull(connectorId, "connectorId is null").toString(),
+                config.getDataCacheMaxSize(),
+                config.getDataCacheBlockSize());
+    }
+
+    public LocalDataCache(boolean enabled, String directory, String connectorId, DataSize maxSize, DataSize blockSize)
+    {
+        requireNonNull(maxSize, "maxSize is null");
+        requireNonNull(blockSize, "blockSize is null");
+        if (!enabled) {
+            this.directory = null;
+            this.blockSize = 0;
+            this.cache = null;
+            return;
+        }
+
+        checkArgument(directory != null, "data cache directory is not set");
+        checkArgument(blockSize.toBytes() > 0 && blockSize.toBytes() <= Integer.MAX_VALUE, "invalid data cache block size: %s", blockSize);
+        checkArgument(maxSize.toBytes() >= blockSize.toBytes(), "data cache max size must be at least the block size");
+
+        requireNonNull(connectorId, "connectorId is null");
+        this.directory = Paths.get(directory).resolve(connectorId + "-" + randomUUID());
+        this.blockSize = toIntExact(blockSize.toBytes());
+        try {
+            Files.createDirectories(this.directory.getParent());
+            Files.createDirectory(this.directory);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Cannot initialize data cache directory: " + directory, e);
+        }
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((BlockKey key, CachedBlock block) -> block.getLength())
+                .removalListener(LocalDataCache::blockRemoved)
+                .recordStats()
+                .build();
+    }
+
+    public static LocalDataCache disabled()
+    {
+        return new LocalDataCache(false, null, null, new DataSize(0, DataSize.Unit.BYTE), new DataSize(0, DataSize.Unit.BYTE));
+    }
+
+    public boolean isEnabled()
+    {
+        return cache != null;
+    }
+
+    /**
+     * Returns a stream whose positioned reads are served from the cache. Sequential reads
+     * and seeks are passed through to the original stream.
+     */
+    public FSDataInputStream wrap(FSDataInputStream inputStream, FileStatus fileStatus, String tableName)
+            throws IOException
+    {
+        if (cache == null) {
+            return inputStream;
+        }
+        FileKey fileKey = new FileKey(fileStatus.getPath().toString(), fileStatus.getLen(), fileStatus.getModificationTime());
+        CacheStats tableCacheStats = tableStats.computeIfAbsent(requireNonNull(tableName, "tableName is null"), table -> new CacheStats());
+        return new FSDataInputStream(new CachingInputStream(inputStream, fileKey, tableCacheStats));
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        if (cache != null) {
+            cache.invalidateAll();
+            // this fails if a read is still in progress, in which case the last block files are left behind
+            try {
+                Files.deleteIfExists(directory);
+            }
+            catch (IOException e) {
+                log.warn(e, "Failed to delete data cache directory %s", directory);
+            }
+        }
+    }
+
+    private void readFully(FSDataInputStream input, FileKey fileKey, CacheStats tableStats, long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        if (position < 0 || position + length > fileKey.getLength()) {
+            throw new EOFException("Read beyond the end of " + fileKey.getPath());
+        }
+
+        while (length > 0) {
+            long blockIndex = position / blockSize;
+            int blockOffset = toIntExact(position - blockIndex * blockSize);
+            int chunkLength = min(length, blockSize - blockOffset);
+
+            BlockKey key = new BlockKey(fileKey, blockIndex);
+            if (readCachedBlock(key, blockOffset, buffer, offset, chunkLength)) {
+                stats.recordHit(chunkLength);
+                tableStats.recordHit(chunkLength);
+            }
+            else {
+                long blockStart = blockIndex * blockSize;
+                byte[] data = new byte[toIntExact(min(blockSize, fileKey.getLength() - blockStart))];
+                input.readFully(blockStart, data, 0, data.length);
+                System.arraycopy(data, blockOffset, buffer, offset, chunkLength);
+                stats.recordMiss(data.length);
+                tableStats.recordMiss(data.length);
+                storeBlock(key, data);
+            }
+
+            position += chunkLength;
+            offset += chunkLength;
+            length -= chunkLength;
+        }
+    }
+
+    /**
+     * @return false if the block is not cached or can not be read, in which case it has to be read from the remote file
+     */
+    private boolean readCachedBlock(BlockKey key, int blockOffset, byte[] buffer, int offset, int length)
+    {
+        CachedBlock block = cache.getIfPresent(key);
+        // the block may be evicted between the lookup and the read
+        if (block == null || !block.retain()) {
+            return false;
+        }
+        try {
+            block.read(blockOffset, buffer, offset, length);
+            return true;
+        }
+        catch (IOException e) {
+            // e.g. the read was interrupted, or the file was removed from the disk
+            log.debug(e, "Failed to read data cache block %s", block.getFile());
+            cache.asMap().remove(key, block);
+            return false;
+        }
+        finally {
+            block.release();
+        }
+    }
+
+    private void storeBlock(BlockKey key, byte[] data)
+    {
+        Path file = directory.resolve(nextBlockId.getAndIncrement() + BLOCK_FILE_SUFFIX);
+        boolean created = false;
+        try (FileChannel channel = FileChannel.open(file, CREATE_NEW, WRITE)) {
+            created = true;
+            ByteBuffer source = ByteBuffer.wrap(data);
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+        catch (IOException e) {
+            // the data was already read from the remote file, so a local failure only costs a cache miss
+            log.warn(e, "Failed to write data cache block %s", file);
+            if (created) {
+                deleteBlockFile(file);
+            }
+            return;
+        }
+        cache.put(key, new CachedBlock(file, data.length));
+    }
+
+    private static void blockRemoved(RemovalNotification<BlockKey, CachedBlock> notification)
+    {
+        // release the reference of the cache, the file is deleted after the last read of the block
+        notification.getValue().release();
+    }
+
+    private static void deleteBlockFile(Path file)
+    {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to delete data cache block %s", file);
+        }
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    @Managed
+    public long getBlockCount()
+    {
+        return cache == null ? 0 : cache.size();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache == null ? 0 : cache.stats().evictionCount();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return stats.getHitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return stats.getMissCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return stats.getHitRate();
+    }
+
+    @Managed(description = "Bytes served from the local cache instead of the remote file system")
+    public long getBytesSaved()
+    {
+        return stats.getBytesSaved();
+    }
+
+    @Managed(description = "Bytes read from the remote file system to fill the cache")
+    public long getBytesLoaded()
+    {
+        return stats.getBytesLoaded();
+    }
+
+    @Managed(description = "Hit rate of the reads of a table, given as schema.table")
+    public double getTableHitRate(String tableName)
+    {
+        CacheStats table = tableStats.get(tableName);
+        return table == null ? 0 : table.getHitRate();
+    }
+
+    @Managed(description = "Bytes of a table, given as schema.table, served from the local cache")
+    public long getTableBytesSaved(String tableName)
+    {
+        CacheStats table = tableStats.get(tableName);
+        return table == null ? 0 : table.getBytesSaved();
+    }
+
+    private class CachingInputStream
+            extends FSInputStream
+    {
+        private final FSDataInputStream input;
+        private final FileKey fileKey;
+        private final CacheStats tableStats;
+
+        public CachingInputStream(FSDataInputStream input, FileKey fileKey, CacheStats tableStats)
+        {
+            this.input = requireNonNull(input, "input is null");
+            this.fileKey = requireNonNull(fileKey, "fileKey is null");
+            this.tableStats = requireNonNull(tableStats, "tableStats is null");
+        }
+
+        @Override
+        public int read(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            if (position >= fileKey.getLength()) {
+                return -1;
+            }
+            length = toIntExact(min(length, fileKey.getLength() - position));
+            readFully(position, buffer, offset, length);
+            return length;
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            LocalDataCache.this.readFully(input, fileKey, tableStats, position, buffer, offset, length);
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer)
+                throws IOException
+        {
+            readFully(position, buffer, 0, buffer.length);
+        }
+
+        @Override
+        public void seek(long position)
+                throws IOException
+        {
+            input.seek(position);
+        }
+
+        @Override
+        public long getPos()
+                throws IOException
+        {
+            return input.getPos();
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPosition)
+                throws IOException
+        {
+            return input.seekToNewSource(targetPosition);
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            return input.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            return input.read(buffer, offset, length);
+        }
+
+        @Override
+        public int available()
+                throws IOException
+        {
+            return input.available();
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            input.close();
+        }
+    }
+
+    private static class CacheStats
+    {
+        private final AtomicLong hitCount = new AtomicLong();
+        private final AtomicLong missCount = new AtomicLong();
+        private final AtomicLong bytesSaved = new AtomicLong();
+        private final AtomicLong bytesLoaded = new AtomicLong();
+
+        public void recordHit(long bytes)
+        {
+            hitCount.incrementAndGet();
+            bytesSaved.addAndGet(bytes);
+        }
+
+        public void recordMiss(long bytes)
+        {
+            missCount.incrementAndGet();
+            bytesLoaded.addAndGet(bytes);
+        }
+
+        public long getHitCount()
+        {
+            return hitCount.get();
+        }
+
+        public long getMissCount()
+        {
+            return missCount.get();
+        }
+
+        public double getHitRate()
+        {
+            long hits = hitCount.get();
+            long requests = hits + missCount.get();
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        public long getBytesSaved()
+        {
+            return bytesSaved.get();
+        }
+
+        public long getBytesLoaded()
+        {
+            return bytesLoaded.get();
+        }
+    }
+
+    private static final class FileKey
+    {
+        private final String path;
+        private final long length;
+        private final long modificationTime;
+
+        public FileKey(String path, long length, long modificationTime)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.length = length;
+            this.modificationTime = modificationTime;
+        }
+
+        public String getPath()
+        {
+            return path;
+        }
+
+        public long getLength()
+        {
+            return length;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileKey other = (FileKey) o;
+            return length == other.length &&
+                    modificationTime == other.modificationTime &&
+                    Objects.equals(path, other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, length, modificationTime);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("length", length)
+                    .add("modificationTime", modificationTime)
+                    .toString();
+        }
+    }
+
+    private static final class BlockKey
+    {
+        private final FileKey fileKey;
+        private final long blockIndex;
+
+        public BlockKey(FileKey fileKey, long blockIndex)
+        {
+            this.fileKey = requireNonNull(fileKey, "fileKey is null");
+            this.blockIndex = blockIndex;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BlockKey other = (BlockKey) o;
+            return blockIndex == other.blockIndex &&
+                    Objects.equals(fileKey, other.fileKey);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(fileKey, blockIndex);
+        }
+    }
+
+    private static final class CachedBlock
+    {
+        private final Path file;
+        private final int length;
+        // one reference is held by the cache, and one by each read in progress
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        public CachedBlock(Path file, int length)
+        {
+            this.file = requireNonNull(file, "file is null");
+            this.length = length;
+        }
+
+        public Path getFile()
+        {
+            return file;
+        }
+
+        public int getLength()
+        {
+            return length;
+        }
+
+        /**
+         * @return false if the block was already released by all of its references, so it can not be read anymore
+         */
+        public boolean retain()
+        {
+            while (true) {
+                int count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        public void release()
+        {
+            int count = references.decrementAndGet();
+            checkState(count >= 0, "block %s released too many times", file);
+            if (count == 0) {
+                deleteBlockFile(file);
+            }
+        }
+
+        public void read(int position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            // the channel is only open during the read, so the number of open files does not grow with the cache size
+            try (FileChannel channel = FileChannel.open(file, READ)) {
+                ByteBuffer target = ByteBuffer.wrap(buffer, offset, length);
+                long filePosition = position;
+                while (target.hasRemaining()) {
+                    int bytes = channel.read(target, filePosition);
+                    if (bytes < 0) {
+                        throw new EOFException("Data cache block is truncated: " + file);
+                    }
+                    filePosition += bytes;
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,17 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
 
 public final class NumberParser
 {
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final int MAX_EXACT_POWER_OF_TEN = 22;
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER_OF_TEN + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
     private NumberParser() {}
 
     public static long parseLong(byte[] bytes, int start, int length)
@@ -43,6 +54,11 @@ public final class NumberParser
 
     public static double parseDouble(byte[] bytes, int start, int length)
     {
+        double value = tryParseSimpleDouble(bytes, start, length);
+        if (!Double.isNaN(value)) {
+            return value;
+        }
+
         char[] chars = new char[length];
         for (int pos = 0; pos < length; pos++) {
             chars[pos] = (char) bytes[start + pos];
@@ -55,4 +71,100 @@ public final class NumberParser
             throw new PrestoException(HIVE_BAD_DATA, e);
         }
     }
+
+    /**
+     * Parses plain decimal numbers with at most 15 significant digits and a small
+     * exponent without allocating. Both the digits and the power of ten are exact
+     * doubles in this range, so a single multiplication or division produces the
+     * correctly rounded result. Returns NaN for any other input.
+     */
+    private static double tryParseSimpleDouble(byte[] bytes, int start, int length)
+    {
+        int limit = start + length;
+        int position = start;
+        if (position == limit) {
+            return Double.NaN;
+        }
+
+        boolean negative = bytes[position] == '-';
+        if (negative || bytes[position] == '+') {
+            position++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; position < limit; position++) {
+            byte current = bytes[position];
+            if (current >= '0' && current <= '9') {
+                seenDigit = true;
+                if (mantissa == 0 && current == '0') {
+                    // leading zeros are not significant
+                    if (seenPoint) {
+                        exponent--;
+                    }
+                    continue;
+                }
+                if (digits == MAX_EXACT_DIGITS) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (current - '0');
+                digits++;
+                if (seenPoint) {
+                    exponent--;
+                }
+            }
+            else if (current == '.' && !seenPoint) {
+                seenPoint = true;
+            }
+            else {
+                break;
+            }
+        }
+        if (!seenDigit) {
+            return Double.NaN;
+        }
+
+        if (position < limit) {
+            if (bytes[position] != 'e' && bytes[position] != 'E') {
+                return Double.NaN;
+            }
+            position++;
+            if (position == limit) {
+                return Double.NaN;
+            }
+            boolean negativeExponent = bytes[position] == '-';
+            if (negativeExponent || bytes[position] == '+') {
+                position++;
+            }
+            if (position == limit || limit - position > 3) {
+                return Double.NaN;
+            }
+            int explicitExponent = 0;
+            for (; position < limit; position++) {
+                byte current = bytes[position];
+                if (current < '0' || current > '9') {
+                    return Double.NaN;
+                }
+                explicitExponent = explicitExponent * 10 + (current - '0');
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        double value = mantissa;
+        if (mantissa != 0) {
+            if (exponent < -MAX_EXACT_POWER_OF_TEN || exponent > MAX_EXACT_POWER_OF_TEN) {
+                return Double.NaN;
+            }
+            if (exponent < 0) {
+                value /= POWERS_OF_TEN[-exponent];
+            }
+            else {
+                value *= POWERS_OF_TEN[exponent];
+            }
+        }
+        return negative ? -value : value;
+    }
 }
@@ -0,0 +1,291 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.HivePageSink.DataColumn;
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.apache.hadoop.hive.serde2.typeinfo.DecimalTypeInfo;
+import org.apache.hadoop.mapred.JobConf;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_CLOSE_ERROR;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_DATA_ERROR;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_OPEN_ERROR;
+import static com.facebook.presto.hive.HiveType.HIVE_BINARY;
+import static com.facebook.presto.hive.HiveType.HIVE_BOOLEAN;
+import static com.facebook.presto.hive.HiveType.HIVE_BYTE;
+import static com.facebook.presto.hive.HiveType.HIVE_DATE;
+import static com.facebook.presto.hive.HiveType.HIVE_DOUBLE;
+import static com.facebook.presto.hive.HiveType.HIVE_FLOAT;
+import static com.facebook.presto.hive.HiveType.HIVE_INT;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_SHORT;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.hive.HiveType.HIVE_TIMESTAMP;
+import static com.facebook.presto.hive.HiveType.toHiveTypes;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_DICTIONARY_MAX_MEMORY;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_ROW_GROUP_MAX_ROW_COUNT;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_STRIPE_MAX_ROW_COUNT;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_STRIPE_MAX_SIZE;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMN_TYPES;
+
+/**
+ * Writes ORC files with the native ORC writer. Pages are encoded column by
+ * column, without the Hive serializer.
+ */
+public class OrcFileWriter
+        implements HiveFileWriter
+{
+    private final String partitionName;
+    private final boolean isNew;
+    private final String fileName;
+    private final String writePath;
+    private final String targetPath;
+    private final Path path;
+    private final FileSystem fileSystem;
+
+    private final List<Type> types;
+    private final OrcWriter orcWriter;
+
+    public OrcFileWriter(
+            String partitionName,
+            boolean isNew,
+            List<DataColumn> inputColumns,
+            CompressionKind compression,
+            String fileName,
+            String writePath,
+            String targetPath,
+            DateTimeZone hiveStorageTimeZone,
+            JobConf conf)
+    {
+        this.partitionName = requireNonNull(partitionName, "partitionName is null");
+        this.isNew = isNew;
+        this.fileName = requireNonNull(fileName, "fileName is null");
+        this.writePath = requireNonNull(writePath, "writePath is null");
+        this.targetPath = requireNonNull(targetPath, "targetPath is null");
+        this.path = new Path(writePath, fileName);
+
+        this.types = inputColumns.stream()
+                .map(DataColumn::getType)
+                .collect(toList());
+        List<String> columnNames = inputColumns.stream()
+                .map(DataColumn::getName)
+                .collect(toList());
+        List<OrcTypeKind> columnKinds = inputColumns.stream()
+                .map(column -> getOrcTypeKind(column.getHiveType()).get())
+                .collect(toList());
+
+        try {
+            this.fileSystem = path.getFileSystem(conf);
+            this.orcWriter = new OrcWriter(
+                    fileSystem.create(path, false),
+                    columnNames,
+                    types,
+                    columnKinds,
+                    compression,
+                    DEFAULT_STRIPE_MAX_SIZE,
+                    DEFAULT_STRIPE_MAX_ROW_COUNT,
+                    DEFAULT_ROW_GROUP_MAX_ROW_COUNT,
+                    DEFAULT_DICTIONARY_MAX_MEMORY,
+                    ImmutableMap.of(),
+                    hiveStorageTimeZone);
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_OPEN_ERROR, "Error creating ORC file", e);
+        }
+    }
+
+    /**
+     * The native writer is used when the file columns are exactly the input columns, in the same order,
+     * and all of them have primitive types that can be written without a type conversion.
+     */
+    public static boolean isSupported(String outputFormat, String serDe, List<DataColumn> inputColumns, Properties schema)
+    {
+        if (!outputFormat.equals(OrcOutputFormat.class.getName()) || !serDe.equals(OrcSerde.class.getName())) {
+            return false;
+        }
+
+        List<String> fileColumnNames = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(schema.getProperty(META_TABLE_COLUMNS, ""));
+        List<HiveType> fileColumnHiveTypes = toHiveTypes(schema.getProperty(META_TABLE_COLUMN_TYPES, ""));
+        List<String> inputColumnNames = inputColumns.stream()
+                .map(DataColumn::getName)
+                .collect(toList());
+        List<HiveType> inputColumnHiveTypes = inputColumns.stream()
+                .map(DataColumn::getHiveType)
+                .collect(toList());
+        if (!fileColumnNames.equals(inputColumnNames) || !fileColumnHiveTypes.equals(inputColumnHiveTypes)) {
+            return false;
+        }
+
+        return inputColumnHiveTypes.stream().allMatch(hiveType -> getOrcTypeKind(hiveType).isPresent());
+    }
+
+    @Override
+    public void appendRows(Page dataPage)
+    {
+        // drop the sample weight column
+        Block[] blocks = new Block[types.size()];
+        for (int field = 0; field < blocks.length; field++) {
+            blocks[field] = dataPage.getBlock(field);
+        }
+
+        try {
+            orcWriter.write(new Page(dataPage.getPositionCount(), blocks));
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_DATA_ERROR, e);
+        }
+    }
+
+    @Override
+    public long getWrittenBytes()
+    {
+        return orcWriter.getWrittenBytes() + orcWriter.getBufferedBytes();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return orcWriter.getRetainedBytes();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return orcWriter.getBufferedBytes();
+    }
+
+    @Override
+    public void flush()
+    {
+        try {
+            orcWriter.flush();
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_DATA_ERROR, e);
+        }
+    }
+
+    @Override
+    public void commit()
+    {
+        try {
+            orcWriter.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_CLOSE_ERROR, "Error committing write to Hive", e);
+        }
+    }
+
+    @Override
+    public void rollback()
+    {
+        try {
+            try {
+                orcWriter.close();
+            }
+            finally {
+                fileSystem.delete(path, false);
+            }
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_CLOSE_ERROR, "Error rolling back write to Hive", e);
+        }
+    }
+
+    @Override
+    public PartitionUpdate getPartitionUpdate()
+    {
+        return new PartitionUpdate(
+                partitionName,
+                isNew,
+                writePath,
+                targetPath,
+                ImmutableList.of(fileName));
+    }
+
+    private static Optional<OrcTypeKind> getOrcTypeKind(HiveType hiveType)
+    {
+        if (hiveType.equals(HIVE_BOOLEAN)) {
+            return Optional.of(OrcTypeKind.BOOLEAN);
+        }
+        if (hiveType.equals(HIVE_BYTE)) {
+            return Optional.of(OrcTypeKind.BYTE);
+        }
+        if (hiveType.equals(HIVE_SHORT)) {
+            return Optional.of(OrcTypeKind.SHORT);
+        }
+        if (hiveType.equals(HIVE_INT)) {
+            return Optional.of(OrcTypeKind.INT);
+        }
+        if (hiveType.equals(HIVE_LONG)) {
+            return Optional.of(OrcTypeKind.LONG);
+        }
+        if (hiveType.equals(HIVE_FLOAT)) {
+            return Optional.of(OrcTypeKind.FLOAT);
+        }
+        if (hiveType.equals(HIVE_DOUBLE)) {
+            return Optional.of(OrcTypeKind.DOUBLE);
+        }
+        if (hiveType.equals(HIVE_STRING)) {
+            return Optional.of(OrcTypeKind.STRING);
+        }
+        if (hiveType.equals(HIVE_BINARY)) {
+            return Optional.of(OrcTypeKind.BINARY);
+        }
+        if (hiveType.equals(HIVE_DATE)) {
+            return Optional.of(OrcTypeKind.DATE);
+        }
+        if (hiveType.equals(HIVE_TIMESTAMP)) {
+            return Optional.of(OrcTypeKind.TIMESTAMP);
+        }
+        if (hiveType.getTypeInfo() instanceof DecimalTypeInfo) {
+            return Optional.of(OrcTypeKind.DECIMAL);
+        }
+        // bounded varchar and char need a length in the ORC type, which is not supported
+        return Optional.empty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("partitionName", partitionName)
+                .add("writePath", writePath)
+                .add("fileName", fileName)
+                .toString();
+    }
+}
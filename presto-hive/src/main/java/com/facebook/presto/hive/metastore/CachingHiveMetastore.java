@@ -24,6 +24,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.airlift.units.Duration;
 import org.apache.hadoop.hive.metastore.api.Database;
@@ -31,10 +33,12 @@ import org.apache.hadoop.hive.metastore.api.PrincipalPrivilegeSet;
 import org.apache.hadoop.hive.metastore.api.PrivilegeGrantInfo;
 import org.weakref.jmx.Managed;
 
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -42,12 +46,15 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.facebook.presto.hive.HiveUtil.toPartitionValues;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.cache.CacheLoader.asyncReloading;
+import static com.google.common.collect.Iterables.partition;
 import static com.google.common.collect.Iterables.transform;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -59,6 +66,8 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 public class CachingHiveMetastore
         implements ExtendedHiveMetastore
 {
+    private static final int DEFAULT_MAX_PARTITION_REFRESH_BATCH_SIZE = 100;
+
     protected final ExtendedHiveMetastore delegate;
     private final LoadingCache<String, Optional<Database>> databaseCache;
     private final LoadingCache<String, List<String>> databaseNamesCache;
@@ -71,18 +80,32 @@ public class CachingHiveMetastore
     private final LoadingCache<String, Set<String>> userRolesCache;
     private final LoadingCache<UserTableKey, Set<HivePrivilegeInfo>> userTablePrivileges;
 
+    private final Executor executor;
+    private final int maxPartitionRefreshBatchSize;
+    @GuardedBy("this")
+    private final Map<HivePartitionName, SettableFuture<Optional<Partition>>> pendingPartitionRefreshes = new HashMap<>();
+
     @Inject
     public CachingHiveMetastore(@ForCachingHiveMetastore ExtendedHiveMetastore delegate, @ForCachingHiveMetastore ExecutorService executor, HiveClientConfig hiveClientConfig)
     {
         this(requireNonNull(delegate, "delegate is null"),
                 requireNonNull(executor, "executor is null"),
                 requireNonNull(hiveClientConfig, "hiveClientConfig is null").getMetastoreCacheTtl(),
-                hiveClientConfig.getMetastoreRefreshInterval());
+                hiveClientConfig.getMetastoreRefreshInterval(),
+                hiveClientConfig.getMaxPartitionBatchSize());
     }
 
     public CachingHiveMetastore(ExtendedHiveMetastore delegate, ExecutorService executor, Duration cacheTtl, Duration refreshInterval)
+    {
+        this(delegate, executor, cacheTtl, refreshInterval, DEFAULT_MAX_PARTITION_REFRESH_BATCH_SIZE);
+    }
+
+    public CachingHiveMetastore(ExtendedHiveMetastore delegate, ExecutorService executor, Duration cacheTtl, Duration refreshInterval, int maxPartitionRefreshBatchSize)
     {
         this.delegate = requireNonNull(delegate, "delegate is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        checkArgument(maxPartitionRefreshBatchSize >= 1, "maxPartitionRefreshBatchSize must be at least 1");
+        this.maxPartitionRefreshBatchSize = maxPartitionRefreshBatchSize;
 
         long expiresAfterWriteMillis = requireNonNull(cacheTtl, "cacheTtl is null").toMillis();
         long refreshMills = requireNonNull(refreshInterval, "refreshInterval is null").toMillis();
@@ -178,10 +201,12 @@ public class CachingHiveMetastore
                     }
                 }, executor));
 
+        // stale partitions are refreshed in the background, and refreshes
+        // requested close together are coalesced into batched metastore calls
         partitionCache = CacheBuilder.newBuilder()
                 .expireAfterWrite(expiresAfterWriteMillis, MILLISECONDS)
                 .refreshAfterWrite(refreshMills, MILLISECONDS)
-                .build(asyncReloading(new CacheLoader<HivePartitionName, Optional<Partition>>()
+                .build(new CacheLoader<HivePartitionName, Optional<Partition>>()
                 {
                     @Override
                     public Optional<Partition> load(HivePartitionName partitionName)
@@ -196,7 +221,13 @@ public class CachingHiveMetastore
                     {
                         return loadPartitionsByNames(partitionNames);
                     }
-                }, executor));
+
+                    @Override
+                    public ListenableFuture<Optional<Partition>> reload(HivePartitionName partitionName, Optional<Partition> oldValue)
+                    {
+                        return reloadPartition(partitionName);
+                    }
+                });
 
         userRolesCache = CacheBuilder.newBuilder()
                 .expireAfterWrite(expiresAfterWriteMillis, MILLISECONDS)
@@ -478,6 +509,81 @@ public class CachingHiveMetastore
         return partitions.build();
     }
 
+    private ListenableFuture<Optional<Partition>> reloadPartition(HivePartitionName partitionName)
+    {
+        SettableFuture<Optional<Partition>> future;
+        boolean refreshScheduled;
+        synchronized (this) {
+            future = pendingPartitionRefreshes.get(partitionName);
+            if (future != null) {
+                return future;
+            }
+            future = SettableFuture.create();
+            refreshScheduled = !pendingPartitionRefreshes.isEmpty();
+            pendingPartitionRefreshes.put(partitionName, future);
+        }
+        if (!refreshScheduled) {
+            try {
+                executor.execute(this::refreshPendingPartitions);
+            }
+            catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    pendingPartitionRefreshes.values().forEach(pending -> pending.setException(e));
+                    pendingPartitionRefreshes.clear();
+                }
+            }
+        }
+        return future;
+    }
+
+    private void refreshPendingPartitions()
+    {
+        Map<HiveTableName, List<HivePartitionName>> partitionsByTable = new HashMap<>();
+        Map<HivePartitionName, SettableFuture<Optional<Partition>>> refreshes;
+        synchronized (this) {
+            refreshes = ImmutableMap.copyOf(pendingPartitionRefreshes);
+            pendingPartitionRefreshes.clear();
+        }
+
+        for (HivePartitionName partitionName : refreshes.keySet()) {
+            if (!partitionName.hasPartitionName()) {
+                // partitions cached by value can only be fetched one at a time
+                refreshPartitions(ImmutableList.of(partitionName), refreshes);
+            }
+            else {
+                partitionsByTable.computeIfAbsent(partitionName.getHiveTableName(), table -> new ArrayList<>()).add(partitionName);
+            }
+        }
+        for (List<HivePartitionName> partitionNames : partitionsByTable.values()) {
+            for (List<HivePartitionName> batch : partition(partitionNames, maxPartitionRefreshBatchSize)) {
+                refreshPartitions(batch, refreshes);
+            }
+        }
+    }
+
+    private void refreshPartitions(List<HivePartitionName> partitionNames, Map<HivePartitionName, SettableFuture<Optional<Partition>>> refreshes)
+    {
+        try {
+            Map<HivePartitionName, Optional<Partition>> partitions;
+            if (partitionNames.size() == 1 && !partitionNames.get(0).hasPartitionName()) {
+                HivePartitionName partitionName = partitionNames.get(0);
+                partitions = ImmutableMap.of(partitionName, loadPartitionByName(partitionName));
+            }
+            else {
+                partitions = loadPartitionsByNames(partitionNames);
+            }
+            for (HivePartitionName partitionName : partitionNames) {
+                refreshes.get(partitionName).set(partitions.getOrDefault(partitionName, Optional.empty()));
+            }
+        }
+        catch (Throwable t) {
+            // a failed refresh keeps the previously cached value
+            for (HivePartitionName partitionName : partitionNames) {
+                refreshes.get(partitionName).setException(t);
+            }
+        }
+    }
+
     @Override
     public void addPartitions(String databaseName, String tableName, List<Partition> partitions)
     {
@@ -659,6 +765,11 @@ public class CachingHiveMetastore
             return partitionValues;
         }
 
+        public boolean hasPartitionName()
+        {
+            return partitionName != null;
+        }
+
         public String getPartitionName()
         {
             return requireNonNull(partitionName, "partitionName is null");
@@ -14,10 +14,12 @@
 package com.facebook.presto.hive.orc;
 
 import com.facebook.hive.orc.OrcSerde;
+import com.facebook.presto.hive.FileMetadataCache;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
 import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.LocalDataCache;
 import com.facebook.presto.orc.metadata.DwrfMetadataReader;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
@@ -36,6 +38,8 @@ import java.util.Properties;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDistance;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcSelectiveReaderEnabled;
+import static com.facebook.presto.hive.HiveUtil.getTableName;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactory.createOrcPageSource;
 import static java.util.Objects.requireNonNull;
@@ -45,12 +49,21 @@ public class DwrfPageSourceFactory
 {
     private final TypeManager typeManager;
     private final HdfsEnvironment hdfsEnvironment;
+    private final FileMetadataCache fileMetadataCache;
+    private final LocalDataCache localDataCache;
 
-    @Inject
     public DwrfPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment)
+    {
+        this(typeManager, hdfsEnvironment, FileMetadataCache.disabled(), LocalDataCache.disabled());
+    }
+
+    @Inject
+    public DwrfPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment, FileMetadataCache fileMetadataCache, LocalDataCache localDataCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.fileMetadataCache = requireNonNull(fileMetadataCache, "fileMetadataCache is null");
+        this.localDataCache = requireNonNull(localDataCache, "localDataCache is null");
     }
 
     @Override
@@ -72,6 +85,9 @@ public class DwrfPageSourceFactory
         return Optional.of(createOrcPageSource(
                 new DwrfMetadataReader(),
                 hdfsEnvironment,
+                fileMetadataCache,
+                localDataCache,
+                getTableName(schema),
                 session.getUser(),
                 configuration,
                 path,
@@ -85,6 +101,8 @@ public class DwrfPageSourceFactory
                 typeManager,
                 getOrcMaxMergeDistance(session),
                 getOrcMaxBufferSize(session),
-                getOrcStreamBufferSize(session)));
+                getOrcStreamBufferSize(session),
+                false,
+                isOrcSelectiveReaderEnabled(session)));
     }
 }
@@ -15,7 +15,6 @@ package com.facebook.presto.hive.orc;
 
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePartitionKey;
-import com.facebook.presto.hive.HiveUtil;
 import com.facebook.presto.orc.OrcCorruptionException;
 import com.facebook.presto.orc.OrcDataSource;
 import com.facebook.presto.orc.OrcRecordReader;
@@ -28,52 +27,30 @@ import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.LazyBlock;
 import com.facebook.presto.spi.block.LazyBlockLoader;
-import com.facebook.presto.spi.type.DecimalType;
-import com.facebook.presto.spi.type.FixedWidthType;
+import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
-import io.airlift.slice.Slice;
+import com.google.common.primitives.Ints;
 import org.apache.hadoop.fs.Path;
 import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
-import static com.facebook.presto.hive.HiveUtil.bigintPartitionKey;
-import static com.facebook.presto.hive.HiveUtil.booleanPartitionKey;
-import static com.facebook.presto.hive.HiveUtil.datePartitionKey;
-import static com.facebook.presto.hive.HiveUtil.doublePartitionKey;
+import static com.facebook.presto.hive.HiveUtil.createPrefilledBlock;
 import static com.facebook.presto.hive.HiveUtil.getPrefilledColumnValue;
-import static com.facebook.presto.hive.HiveUtil.integerPartitionKey;
-import static com.facebook.presto.hive.HiveUtil.longDecimalPartitionKey;
-import static com.facebook.presto.hive.HiveUtil.shortDecimalPartitionKey;
-import static com.facebook.presto.hive.HiveUtil.smallintPartitionKey;
-import static com.facebook.presto.hive.HiveUtil.timestampPartitionKey;
-import static com.facebook.presto.hive.HiveUtil.tinyintPartitionKey;
-import static com.facebook.presto.hive.HiveUtil.varcharPartitionKey;
 import static com.facebook.presto.orc.OrcReader.MAX_BATCH_SIZE;
-import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
-import static com.facebook.presto.spi.type.BigintType.BIGINT;
-import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
-import static com.facebook.presto.spi.type.DateType.DATE;
-import static com.facebook.presto.spi.type.Decimals.isLongDecimal;
-import static com.facebook.presto.spi.type.Decimals.isShortDecimal;
-import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
-import static com.facebook.presto.spi.type.IntegerType.INTEGER;
-import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
-import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
-import static com.facebook.presto.spi.type.TinyintType.TINYINT;
-import static com.facebook.presto.spi.type.Varchars.isVarcharType;
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Maps.uniqueIndex;
-import static java.lang.String.format;
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 public class OrcPageSource
@@ -89,6 +66,11 @@ public class OrcPageSource
     private final Block[] constantBlocks;
     private final int[] hiveColumnIndexes;
 
+    // fields with a pushed down filter, which are read before the other fields
+    private final int[] filterFields;
+    private final Domain[] filterDomains;
+    private int[] selectedPositions = new int[0];
+
     private int batchId;
     private boolean closed;
 
@@ -99,6 +81,7 @@ public class OrcPageSource
             OrcDataSource orcDataSource,
             List<HivePartitionKey> partitionKeys,
             List<HiveColumnHandle> columns,
+            Map<Integer, Domain> filterDomains,
             DateTimeZone hiveStorageTimeZone,
             TypeManager typeManager,
             AggregatedMemoryContext systemMemoryContext,
@@ -130,94 +113,8 @@ public class OrcPageSource
 
             if (column.isPartitionKey() || column.isHidden()) {
                 HivePartitionKey partitionKey = partitionKeysByName.get(name);
-
                 String columnValue = getPrefilledColumnValue(column, partitionKey, path);
-                byte[] bytes = columnValue.getBytes(UTF_8);
-
-                BlockBuilder blockBuilder;
-                if (type instanceof FixedWidthType) {
-                    blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_BATCH_SIZE);
-                }
-                else {
-                    blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_BATCH_SIZE, bytes.length);
-                }
-
-                if (HiveUtil.isHiveNull(bytes)) {
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        blockBuilder.appendNull();
-                    }
-                }
-                else if (type.equals(BOOLEAN)) {
-                    boolean value = booleanPartitionKey(columnValue, name);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        BOOLEAN.writeBoolean(blockBuilder, value);
-                    }
-                }
-                else if (type.equals(BIGINT)) {
-                    long value = bigintPartitionKey(columnValue, name);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        BIGINT.writeLong(blockBuilder, value);
-                    }
-                }
-                else if (type.equals(INTEGER)) {
-                    long value = integerPartitionKey(columnValue, name);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        INTEGER.writeLong(blockBuilder, value);
-                    }
-                }
-                else if (type.equals(SMALLINT)) {
-                    long value = smallintPartitionKey(columnValue, name);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        SMALLINT.writeLong(blockBuilder, value);
-                    }
-                }
-                else if (type.equals(TINYINT)) {
-                    long value = tinyintPartitionKey(columnValue, name);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        TINYINT.writeLong(blockBuilder, value);
-                    }
-                }
-                else if (type.equals(DOUBLE)) {
-                    double value = doublePartitionKey(columnValue, name);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        DOUBLE.writeDouble(blockBuilder, value);
-                    }
-                }
-                else if (isVarcharType(type)) {
-                    Slice value = varcharPartitionKey(columnValue, name, type);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        type.writeSlice(blockBuilder, value);
-                    }
-                }
-                else if (type.equals(DATE)) {
-                    long value = datePartitionKey(columnValue, name);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        DATE.writeLong(blockBuilder, value);
-                    }
-                }
-                else if (type.equals(TIMESTAMP)) {
-                    long value = timestampPartitionKey(columnValue, hiveStorageTimeZone, name);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        TIMESTAMP.writeLong(blockBuilder, value);
-                    }
-                }
-                else if (isShortDecimal(type)) {
-                    long value = shortDecimalPartitionKey(columnValue, (DecimalType) type, name);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        type.writeLong(blockBuilder, value);
-                    }
-                }
-                else if (isLongDecimal(type)) {
-                    Slice value = longDecimalPartitionKey(columnValue, (DecimalType) type, name);
-                    for (int i = 0; i < MAX_BATCH_SIZE; i++) {
-                        type.writeSlice(blockBuilder, value);
-                    }
-                }
-                else {
-                    throw new PrestoException(NOT_SUPPORTED, format("Unsupported column type %s for prefilled column: %s", type.getDisplayName(), name));
-                }
-
-                constantBlocks[columnIndex] = blockBuilder.build();
+                constantBlocks[columnIndex] = createPrefilledBlock(type, name, columnValue, MAX_BATCH_SIZE, hiveStorageTimeZone);
             }
             else if (!recordReader.isColumnPresent(column.getHiveColumnIndex())) {
                 BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_BATCH_SIZE, NULL_ENTRY_SIZE);
@@ -230,6 +127,19 @@ public class OrcPageSource
         types = typesBuilder.build();
         columnNames = namesBuilder.build();
 
+        requireNonNull(filterDomains, "filterDomains is null");
+        List<Integer> filterFields = new ArrayList<>();
+        this.filterDomains = new Domain[size];
+        for (Map.Entry<Integer, Domain> entry : filterDomains.entrySet()) {
+            int fieldId = entry.getKey();
+            // constant columns are already handled by the partition pruning
+            if (constantBlocks[fieldId] == null) {
+                filterFields.add(fieldId);
+                this.filterDomains[fieldId] = entry.getValue();
+            }
+        }
+        this.filterFields = filterFields.stream().mapToInt(Integer::intValue).sorted().toArray();
+
         this.systemMemoryContext = requireNonNull(systemMemoryContext, "systemMemoryContext is null");
     }
 
@@ -268,6 +178,10 @@ public class OrcPageSource
                 return null;
             }
 
+            if (filterFields.length > 0) {
+                return getNextFilteredPage(batchSize);
+            }
+
             Block[] blocks = new Block[hiveColumnIndexes.length];
             for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
                 Type type = types.get(fieldId);
@@ -290,6 +204,78 @@ public class OrcPageSource
         }
     }
 
+    /**
+     * Reads the filter columns first and evaluates their domains to select the positions
+     * of the batch that can match. The remaining columns are loaded lazily for only the
+     * selected positions, so the stream readers skip the values of the filtered rows.
+     */
+    private Page getNextFilteredPage(int batchSize)
+            throws IOException
+    {
+        if (selectedPositions.length < batchSize) {
+            selectedPositions = new int[batchSize];
+        }
+        int positionCount = batchSize;
+        for (int position = 0; position < batchSize; position++) {
+            selectedPositions[position] = position;
+        }
+
+        Block[] blocks = new Block[hiveColumnIndexes.length];
+        for (int fieldId : filterFields) {
+            Block block = recordReader.readBlock(types.get(fieldId), hiveColumnIndexes[fieldId]);
+            blocks[fieldId] = block;
+            positionCount = filterPositions(types.get(fieldId), filterDomains[fieldId], block, selectedPositions, positionCount);
+            if (positionCount == 0) {
+                // no row of this batch can match, so none of the other columns are decoded
+                return null;
+            }
+        }
+
+        // when every position is selected the batch is read as usual
+        int[] positions = null;
+        List<Integer> positionList = null;
+        if (positionCount != batchSize) {
+            positions = Arrays.copyOf(selectedPositions, positionCount);
+            positionList = Ints.asList(positions);
+        }
+
+        for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
+            Type type = types.get(fieldId);
+            if (constantBlocks[fieldId] != null) {
+                blocks[fieldId] = constantBlocks[fieldId].getRegion(0, positionCount);
+            }
+            else if (blocks[fieldId] != null) {
+                if (positionList != null) {
+                    blocks[fieldId] = blocks[fieldId].copyPositions(positionList);
+                }
+            }
+            else {
+                blocks[fieldId] = new LazyBlock(positionCount, new OrcBlockLoader(hiveColumnIndexes[fieldId], type, positions));
+            }
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    private static int filterPositions(Type type, Domain domain, Block block, int[] positions, int positionCount)
+    {
+        int selectedCount = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            boolean matches;
+            if (block.isNull(position)) {
+                matches = domain.isNullAllowed();
+            }
+            else {
+                matches = domain.includesNullableValue(readNativeValue(type, block, position));
+            }
+            if (matches) {
+                positions[selectedCount] = position;
+                selectedCount++;
+            }
+        }
+        return selectedCount;
+    }
+
     @Override
     public void close()
     {
@@ -342,12 +328,19 @@ public class OrcPageSource
         private final int expectedBatchId = batchId;
         private final int columnIndex;
         private final Type type;
+        private final int[] positions;
         private boolean loaded;
 
         public OrcBlockLoader(int columnIndex, Type type)
+        {
+            this(columnIndex, type, null);
+        }
+
+        public OrcBlockLoader(int columnIndex, Type type, int[] positions)
         {
             this.columnIndex = columnIndex;
             this.type = requireNonNull(type, "type is null");
+            this.positions = positions;
         }
 
         @Override
@@ -360,7 +353,13 @@ public class OrcPageSource
             checkState(batchId == expectedBatchId);
 
             try {
-                Block block = recordReader.readBlock(type, columnIndex);
+                Block block;
+                if (positions == null) {
+                    block = recordReader.readBlock(type, columnIndex);
+                }
+                else {
+                    block = recordReader.readBlock(type, columnIndex, positions, positions.length);
+                }
                 lazyBlock.setBlock(block);
             }
             catch (IOException e) {
@@ -13,31 +13,39 @@
  */
 package com.facebook.presto.hive.orc;
 
+import com.facebook.presto.hive.FileMetadataCache;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
 import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.LocalDataCache;
 import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcFileTail;
 import com.facebook.presto.orc.OrcPredicate;
 import com.facebook.presto.orc.OrcReader;
 import com.facebook.presto.orc.OrcRecordReader;
 import com.facebook.presto.orc.TupleDomainOrcPredicate;
 import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
 import com.facebook.presto.orc.memory.AggregatedMemoryContext;
+import com.facebook.presto.orc.metadata.Footer;
 import com.facebook.presto.orc.metadata.MetadataReader;
 import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.orc.metadata.StripeStatistics;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
@@ -60,6 +68,9 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDistance;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcBloomFiltersEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcSelectiveReaderEnabled;
+import static com.facebook.presto.hive.HiveUtil.getTableName;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
 import static com.google.common.base.Strings.nullToEmpty;
 import static java.lang.String.format;
@@ -69,21 +80,40 @@ public class OrcPageSourceFactory
         implements HivePageSourceFactory
 {
     private static final Pattern DEFAULT_HIVE_COLUMN_NAME_PATTERN = Pattern.compile("_col\\d+");
+    private static final int ESTIMATED_FILE_TAIL_SIZE = 1024;
+    private static final int ESTIMATED_STRIPE_INFORMATION_SIZE = 64;
+    private static final int ESTIMATED_TYPE_SIZE = 128;
+    private static final int ESTIMATED_COLUMN_STATISTICS_SIZE = 160;
+
     private final TypeManager typeManager;
     private final boolean useOrcColumnNames;
     private final HdfsEnvironment hdfsEnvironment;
+    private final FileMetadataCache fileMetadataCache;
+    private final LocalDataCache localDataCache;
 
-    @Inject
     public OrcPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment)
     {
-        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment);
+        this(typeManager, config, hdfsEnvironment, FileMetadataCache.disabled(), LocalDataCache.disabled());
+    }
+
+    @Inject
+    public OrcPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment, FileMetadataCache fileMetadataCache, LocalDataCache localDataCache)
+    {
+        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment, fileMetadataCache, localDataCache);
     }
 
     public OrcPageSourceFactory(TypeManager typeManager, boolean useOrcColumnNames, HdfsEnvironment hdfsEnvironment)
+    {
+        this(typeManager, useOrcColumnNames, hdfsEnvironment, FileMetadataCache.disabled(), LocalDataCache.disabled());
+    }
+
+    public OrcPageSourceFactory(TypeManager typeManager, boolean useOrcColumnNames, HdfsEnvironment hdfsEnvironment, FileMetadataCache fileMetadataCache, LocalDataCache localDataCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useOrcColumnNames = useOrcColumnNames;
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.fileMetadataCache = requireNonNull(fileMetadataCache, "fileMetadataCache is null");
+        this.localDataCache = requireNonNull(localDataCache, "localDataCache is null");
     }
 
     @Override
@@ -106,6 +136,9 @@ public class OrcPageSourceFactory
         return Optional.of(createOrcPageSource(
                 new OrcMetadataReader(),
                 hdfsEnvironment,
+                fileMetadataCache,
+                localDataCache,
+                getTableName(schema),
                 session.getUser(),
                 configuration,
                 path,
@@ -119,12 +152,17 @@ public class OrcPageSourceFactory
                 typeManager,
                 getOrcMaxMergeDistance(session),
                 getOrcMaxBufferSize(session),
-                getOrcStreamBufferSize(session)));
+                getOrcStreamBufferSize(session),
+                isOrcBloomFiltersEnabled(session),
+                isOrcSelectiveReaderEnabled(session)));
     }
 
     public static OrcPageSource createOrcPageSource(
             MetadataReader metadataReader,
             HdfsEnvironment hdfsEnvironment,
+            FileMetadataCache fileMetadataCache,
+            LocalDataCache localDataCache,
+            String tableName,
             String sessionUser,
             Configuration configuration,
             Path path,
@@ -138,14 +176,17 @@ public class OrcPageSourceFactory
             TypeManager typeManager,
             DataSize maxMergeDistance,
             DataSize maxBufferSize,
-            DataSize streamBufferSize)
+            DataSize streamBufferSize,
+            boolean orcBloomFiltersEnabled,
+            boolean selectiveReaderEnabled)
     {
         OrcDataSource orcDataSource;
+        FileStatus fileStatus;
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(sessionUser, path, configuration);
-            long size = fileSystem.getFileStatus(path).getLen();
-            FSDataInputStream inputStream = fileSystem.open(path);
-            orcDataSource = new HdfsOrcDataSource(path.toString(), size, maxMergeDistance, maxBufferSize, streamBufferSize, inputStream);
+            fileStatus = fileSystem.getFileStatus(path);
+            FSDataInputStream inputStream = localDataCache.wrap(fileSystem.open(path), fileStatus, tableName);
+            orcDataSource = new HdfsOrcDataSource(path.toString(), fileStatus.getLen(), maxMergeDistance, maxBufferSize, streamBufferSize, inputStream);
         }
         catch (Exception e) {
             if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
@@ -157,7 +198,17 @@ public class OrcPageSourceFactory
 
         AggregatedMemoryContext systemMemoryUsage = new AggregatedMemoryContext();
         try {
-            OrcReader reader = new OrcReader(orcDataSource, metadataReader, maxMergeDistance, maxBufferSize);
+            OrcReader reader = new OrcReader(
+                    orcDataSource,
+                    metadataReader,
+                    maxMergeDistance,
+                    maxBufferSize,
+                    (tailDataSource, tailMetadataReader) -> fileMetadataCache.get(
+                            tailMetadataReader.getClass().getName(),
+                            fileStatus,
+                            OrcFileTail.class,
+                            () -> OrcReader.readFileTail(tailDataSource, tailMetadataReader),
+                            OrcPageSourceFactory::getEstimatedFileTailSize));
 
             List<HiveColumnHandle> physicalColumns = getPhysicalHiveColumnHandles(columns, useOrcColumnNames, reader, path);
             ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
@@ -170,7 +221,12 @@ public class OrcPageSourceFactory
                 }
             }
 
-            OrcPredicate predicate = new TupleDomainOrcPredicate<>(effectivePredicate, columnReferences.build());
+            OrcPredicate predicate = new TupleDomainOrcPredicate<>(effectivePredicate, columnReferences.build(), orcBloomFiltersEnabled);
+
+            Map<Integer, Domain> filterDomains = ImmutableMap.of();
+            if (selectiveReaderEnabled) {
+                filterDomains = getFilterDomains(columns, effectivePredicate);
+            }
 
             OrcRecordReader recordReader = reader.createRecordReader(
                     includedColumns.build(),
@@ -185,6 +241,7 @@ public class OrcPageSourceFactory
                     orcDataSource,
                     partitionKeys,
                     physicalColumns,
+                    filterDomains,
                     hiveStorageTimeZone,
                     typeManager,
                     systemMemoryUsage,
@@ -212,6 +269,45 @@ public class OrcPageSourceFactory
         return format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, t.getMessage());
     }
 
+    private static int getEstimatedFileTailSize(OrcFileTail fileTail)
+    {
+        // the decoded statistics are several times larger than their compressed form in the file,
+        // and there is one set for the file plus one for each stripe
+        Footer footer = fileTail.getFooter();
+        long columnStatistics = footer.getFileStats().size();
+        for (StripeStatistics stripeStatistics : fileTail.getMetadata().getStripeStatsList()) {
+            columnStatistics += stripeStatistics.getColumnStatistics().size();
+        }
+        long userMetadataSize = 0;
+        for (Map.Entry<String, Slice> entry : footer.getUserMetadata().entrySet()) {
+            userMetadataSize += entry.getKey().length() * 2 + entry.getValue().length();
+        }
+        long size = ESTIMATED_FILE_TAIL_SIZE +
+                footer.getStripes().size() * ESTIMATED_STRIPE_INFORMATION_SIZE +
+                footer.getTypes().size() * ESTIMATED_TYPE_SIZE +
+                columnStatistics * ESTIMATED_COLUMN_STATISTICS_SIZE +
+                userMetadataSize;
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    private static Map<Integer, Domain> getFilterDomains(List<HiveColumnHandle> columns, TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
+        if (!effectivePredicate.getDomains().isPresent()) {
+            return ImmutableMap.of();
+        }
+        Map<HiveColumnHandle, Domain> domains = effectivePredicate.getDomains().get();
+
+        ImmutableMap.Builder<Integer, Domain> filterDomains = ImmutableMap.builder();
+        for (int fieldId = 0; fieldId < columns.size(); fieldId++) {
+            HiveColumnHandle column = columns.get(fieldId);
+            Domain domain = domains.get(column);
+            if (column.getColumnType() == REGULAR && domain != null && !domain.isAll()) {
+                filterDomains.put(fieldId, domain);
+            }
+        }
+        return filterDomains.build();
+    }
+
     private static List<HiveColumnHandle> getPhysicalHiveColumnHandles(List<HiveColumnHandle> columns, boolean useOrcColumnNames, OrcReader reader, Path path)
     {
         if (!useOrcColumnNames) {
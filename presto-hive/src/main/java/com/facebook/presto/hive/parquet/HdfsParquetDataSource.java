@@ -13,8 +13,10 @@
  */
 package com.facebook.presto.hive.parquet;
 
+import com.facebook.presto.hive.LocalDataCache;
 import com.facebook.presto.spi.PrestoException;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
@@ -92,17 +94,34 @@ public class HdfsParquetDataSource
 
     public static HdfsParquetDataSource buildHdfsParquetDataSource(FileSystem fileSystem, Path path, long start, long length)
     {
+        FileStatus fileStatus;
         try {
-            long size = fileSystem.getFileStatus(path).getLen();
-            FSDataInputStream inputStream = fileSystem.open(path);
-            return new HdfsParquetDataSource(path, size, inputStream);
+            fileStatus = fileSystem.getFileStatus(path);
         }
         catch (Exception e) {
-            if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
-                    e instanceof FileNotFoundException) {
-                throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, e);
-            }
-            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, e.getMessage()), e);
+            throw openError(e, path, start, length);
         }
+        return buildHdfsParquetDataSource(fileSystem, fileStatus, start, length, LocalDataCache.disabled(), "unknown");
+    }
+
+    public static HdfsParquetDataSource buildHdfsParquetDataSource(FileSystem fileSystem, FileStatus fileStatus, long start, long length, LocalDataCache localDataCache, String tableName)
+    {
+        Path path = fileStatus.getPath();
+        try {
+            FSDataInputStream inputStream = localDataCache.wrap(fileSystem.open(path), fileStatus, tableName);
+            return new HdfsParquetDataSource(path, fileStatus.getLen(), inputStream);
+        }
+        catch (Exception e) {
+            throw openError(e, path, start, length);
+        }
+    }
+
+    private static PrestoException openError(Exception e, Path path, long start, long length)
+    {
+        if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
+                e instanceof FileNotFoundException) {
+            return new PrestoException(HIVE_CANNOT_OPEN_SPLIT, e);
+        }
+        return new PrestoException(HIVE_CANNOT_OPEN_SPLIT, format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, e.getMessage()), e);
     }
 }
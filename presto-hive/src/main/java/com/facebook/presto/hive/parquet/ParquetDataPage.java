@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.hive.parquet;
 
+import parquet.column.statistics.Statistics;
+
 public abstract class ParquetDataPage
         extends ParquetPage
 {
@@ -28,4 +30,6 @@ public abstract class ParquetDataPage
     {
         return valueCount;
     }
+
+    public abstract Statistics<?> getStatistics();
 }
@@ -84,6 +84,7 @@ public class ParquetDataPageV2
         return slice;
     }
 
+    @Override
     public Statistics<?> getStatistics()
     {
         return statistics;
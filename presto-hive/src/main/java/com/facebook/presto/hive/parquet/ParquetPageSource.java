@@ -36,12 +36,12 @@ import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.fs.Path;
 import org.joda.time.DateTimeZone;
-import parquet.column.ColumnDescriptor;
 import parquet.schema.MessageType;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
@@ -57,6 +57,7 @@ import static com.facebook.presto.hive.HiveUtil.smallintPartitionKey;
 import static com.facebook.presto.hive.HiveUtil.timestampPartitionKey;
 import static com.facebook.presto.hive.HiveUtil.tinyintPartitionKey;
 import static com.facebook.presto.hive.HiveUtil.varcharPartitionKey;
+import static com.facebook.presto.hive.parquet.ParquetTypeUtils.constructField;
 import static com.facebook.presto.hive.parquet.ParquetTypeUtils.getParquetType;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -91,6 +92,7 @@ class ParquetPageSource
     private final List<Type> types;
 
     private final Block[] constantBlocks;
+    private final ParquetField[] fields;
     private final int[] hiveColumnIndexes;
 
     private final long totalBytes;
@@ -129,6 +131,7 @@ class ParquetPageSource
         int size = requireNonNull(columns, "columns is null").size();
 
         this.constantBlocks = new Block[size];
+        this.fields = new ParquetField[size];
         this.hiveColumnIndexes = new int[size];
 
         ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
@@ -235,12 +238,23 @@ class ParquetPageSource
 
                 constantBlocks[columnIndex] = blockBuilder.build();
             }
-            else if (getParquetType(column, fileSchema, useParquetColumnNames) == null) {
-                BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_VECTOR_LENGTH);
-                for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
-                    blockBuilder.appendNull();
+            else {
+                Optional<ParquetField> field = Optional.empty();
+                parquet.schema.Type parquetType = getParquetType(column, fileSchema, useParquetColumnNames);
+                if (parquetType != null) {
+                    field = constructField(type, requestedSchema.getType(parquetType.getName()), requestedSchema);
+                }
+
+                if (field.isPresent()) {
+                    fields[columnIndex] = field.get();
+                }
+                else {
+                    BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_VECTOR_LENGTH);
+                    for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
+                        blockBuilder.appendNull();
+                    }
+                    constantBlocks[columnIndex] = blockBuilder.build();
                 }
-                constantBlocks[columnIndex] = blockBuilder.build();
             }
         }
         types = typesBuilder.build();
@@ -300,9 +314,7 @@ class ParquetPageSource
                     blocks[fieldId] = constantBlocks[fieldId].getRegion(0, batchSize);
                 }
                 else {
-                    int fieldIndex = requestedSchema.getFieldIndex(columnNames.get(fieldId));
-                    ColumnDescriptor columnDescriptor = requestedSchema.getColumns().get(fieldIndex);
-                    blocks[fieldId] = new LazyBlock(batchSize, new ParquetBlockLoader(columnDescriptor, type));
+                    blocks[fieldId] = new LazyBlock(batchSize, new ParquetBlockLoader(fields[fieldId], type));
                 }
             }
             return new Page(batchSize, blocks);
@@ -354,13 +366,13 @@ class ParquetPageSource
             implements LazyBlockLoader<LazyBlock>
     {
         private final int expectedBatchId = batchId;
-        private final ColumnDescriptor columnDescriptor;
+        private final ParquetField field;
         private final Type type;
         private boolean loaded;
 
-        public ParquetBlockLoader(ColumnDescriptor columnDescriptor, Type type)
+        public ParquetBlockLoader(ParquetField field, Type type)
         {
-            this.columnDescriptor = columnDescriptor;
+            this.field = requireNonNull(field, "field is null");
             this.type = requireNonNull(type, "type is null");
         }
 
@@ -374,7 +386,13 @@ class ParquetPageSource
             checkState(batchId == expectedBatchId);
 
             try {
-                Block block = parquetReader.readBlock(columnDescriptor, type);
+                Block block;
+                if (field instanceof ParquetPrimitiveField) {
+                    block = parquetReader.readBlock(((ParquetPrimitiveField) field).getDescriptor(), type);
+                }
+                else {
+                    block = parquetReader.readBlock(field);
+                }
                 lazyBlock.setBlock(block);
             }
             catch (IOException e) {
@@ -13,11 +13,13 @@
  */
 package com.facebook.presto.hive.parquet;
 
+import com.facebook.presto.hive.FileMetadataCache;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
 import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.LocalDataCache;
 import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
 import com.facebook.presto.hive.parquet.reader.ParquetMetadataReader;
 import com.facebook.presto.hive.parquet.reader.ParquetReader;
@@ -27,8 +29,10 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
+import com.facebook.presto.spi.type.TypeSignatureParameter;
 import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.joda.time.DateTimeZone;
@@ -53,16 +57,20 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetOptimizedReaderEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetPredicatePushdownEnabled;
 import static com.facebook.presto.hive.HiveUtil.getDeserializerClassName;
+import static com.facebook.presto.hive.HiveUtil.getTableName;
 import static com.facebook.presto.hive.parquet.HdfsParquetDataSource.buildHdfsParquetDataSource;
 import static com.facebook.presto.hive.parquet.ParquetTypeUtils.getParquetType;
 import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.buildParquetPredicate;
 import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.predicateMatches;
+import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
 import static com.facebook.presto.spi.type.StandardTypes.BIGINT;
 import static com.facebook.presto.spi.type.StandardTypes.BOOLEAN;
 import static com.facebook.presto.spi.type.StandardTypes.DATE;
 import static com.facebook.presto.spi.type.StandardTypes.DECIMAL;
 import static com.facebook.presto.spi.type.StandardTypes.DOUBLE;
 import static com.facebook.presto.spi.type.StandardTypes.INTEGER;
+import static com.facebook.presto.spi.type.StandardTypes.MAP;
+import static com.facebook.presto.spi.type.StandardTypes.ROW;
 import static com.facebook.presto.spi.type.StandardTypes.SMALLINT;
 import static com.facebook.presto.spi.type.StandardTypes.TIMESTAMP;
 import static com.facebook.presto.spi.type.StandardTypes.TINYINT;
@@ -80,23 +88,41 @@ public class ParquetPageSourceFactory
             .add("parquet.hive.serde.ParquetHiveSerDe")
             .build();
     private static final Set<String> SUPPORTED_COLUMN_TYPES = ImmutableSet.of(INTEGER, BIGINT, BOOLEAN, DOUBLE, TIMESTAMP, VARCHAR, VARBINARY, DATE, DECIMAL);
+    private static final Set<String> SUPPORTED_NESTED_COLUMN_TYPES = ImmutableSet.of(ARRAY, MAP, ROW);
     private static final Set<String> SUPPORTED_PARTITION_TYPES = ImmutableSet.of(TINYINT, SMALLINT, INTEGER, BIGINT, BOOLEAN, DOUBLE, TIMESTAMP, VARCHAR, DATE, DECIMAL);
 
+    private static final int ESTIMATED_FILE_METADATA_SIZE = 1024;
+    private static final int ESTIMATED_COLUMN_CHUNK_METADATA_SIZE = 256;
+
     private final TypeManager typeManager;
     private final boolean useParquetColumnNames;
     private final HdfsEnvironment hdfsEnvironment;
+    private final FileMetadataCache fileMetadataCache;
+    private final LocalDataCache localDataCache;
 
-    @Inject
     public ParquetPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment)
     {
-        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseParquetColumnNames(), hdfsEnvironment);
+        this(typeManager, config, hdfsEnvironment, FileMetadataCache.disabled(), LocalDataCache.disabled());
+    }
+
+    @Inject
+    public ParquetPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment, FileMetadataCache fileMetadataCache, LocalDataCache localDataCache)
+    {
+        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseParquetColumnNames(), hdfsEnvironment, fileMetadataCache, localDataCache);
     }
 
     public ParquetPageSourceFactory(TypeManager typeManager, boolean useParquetColumnNames, HdfsEnvironment hdfsEnvironment)
+    {
+        this(typeManager, useParquetColumnNames, hdfsEnvironment, FileMetadataCache.disabled(), LocalDataCache.disabled());
+    }
+
+    public ParquetPageSourceFactory(TypeManager typeManager, boolean useParquetColumnNames, HdfsEnvironment hdfsEnvironment, FileMetadataCache fileMetadataCache, LocalDataCache localDataCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useParquetColumnNames = useParquetColumnNames;
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.fileMetadataCache = requireNonNull(fileMetadataCache, "fileMetadataCache is null");
+        this.localDataCache = requireNonNull(localDataCache, "localDataCache is null");
     }
 
     @Override
@@ -126,6 +152,8 @@ public class ParquetPageSourceFactory
 
         return Optional.of(createParquetPageSource(
                 hdfsEnvironment,
+                fileMetadataCache,
+                localDataCache,
                 session.getUser(),
                 configuration,
                 path,
@@ -143,6 +171,8 @@ public class ParquetPageSourceFactory
 
     public static ParquetPageSource createParquetPageSource(
             HdfsEnvironment hdfsEnvironment,
+            FileMetadataCache fileMetadataCache,
+            LocalDataCache localDataCache,
             String user,
             Configuration configuration,
             Path path,
@@ -160,8 +190,14 @@ public class ParquetPageSourceFactory
         ParquetDataSource dataSource = null;
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(user, path, configuration);
-            dataSource = buildHdfsParquetDataSource(fileSystem, path, start, length);
-            ParquetMetadata parquetMetadata = ParquetMetadataReader.readFooter(fileSystem, path);
+            FileStatus fileStatus = fileSystem.getFileStatus(path);
+            dataSource = buildHdfsParquetDataSource(fileSystem, fileStatus, start, length, localDataCache, getTableName(schema));
+            ParquetMetadata parquetMetadata = fileMetadataCache.get(
+                    "parquet",
+                    fileStatus,
+                    ParquetMetadata.class,
+                    () -> ParquetMetadataReader.readFooter(fileSystem, path, fileStatus),
+                    ParquetPageSourceFactory::getEstimatedFooterSize);
             FileMetaData fileMetaData = parquetMetadata.getFileMetaData();
             MessageType fileSchema = fileMetaData.getSchema();
 
@@ -181,11 +217,13 @@ public class ParquetPageSourceFactory
                 }
             }
 
+            ParquetPredicate parquetPredicate = ParquetPredicate.TRUE;
             if (predicatePushdownEnabled) {
-                ParquetPredicate parquetPredicate = buildParquetPredicate(columns, effectivePredicate, fileMetaData.getSchema(), typeManager);
+                parquetPredicate = buildParquetPredicate(columns, effectivePredicate, fileMetaData.getSchema(), typeManager);
+                final ParquetPredicate finalParquetPredicate = parquetPredicate;
                 final ParquetDataSource finalDataSource = dataSource;
                 blocks = blocks.stream()
-                        .filter(block -> predicateMatches(parquetPredicate, block, finalDataSource, requestedSchema, effectivePredicate))
+                        .filter(block -> predicateMatches(finalParquetPredicate, block, finalDataSource, requestedSchema, effectivePredicate))
                         .collect(toList());
             }
 
@@ -195,7 +233,8 @@ public class ParquetPageSourceFactory
                     requestedSchema,
                     blocks,
                     configuration,
-                    dataSource);
+                    dataSource,
+                    parquetPredicate);
 
             return new ParquetPageSource(
                     parquetReader,
@@ -231,14 +270,23 @@ public class ParquetPageSourceFactory
         }
     }
 
+    private static int getEstimatedFooterSize(ParquetMetadata parquetMetadata)
+    {
+        // the decoded footer does not retain its serialized length, so estimate it from the number of column chunks
+        long columnChunks = 0;
+        for (BlockMetaData block : parquetMetadata.getBlocks()) {
+            columnChunks += block.getColumns().size();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, ESTIMATED_FILE_METADATA_SIZE + columnChunks * ESTIMATED_COLUMN_CHUNK_METADATA_SIZE);
+    }
+
     // TODO: support complex types
     private static boolean columnTypeSupported(List<HiveColumnHandle> columns)
     {
         boolean regularColumnsSupported = columns.stream()
                 .filter(column -> column.getColumnType() == REGULAR)
                 .map(HiveColumnHandle::getTypeSignature)
-                .map(TypeSignature::getBase)
-                .allMatch(SUPPORTED_COLUMN_TYPES::contains);
+                .allMatch(ParquetPageSourceFactory::columnTypeSupported);
 
         boolean partitionColumnsSupported = columns.stream()
                 .filter(HiveColumnHandle::isPartitionKey)
@@ -248,4 +296,14 @@ public class ParquetPageSourceFactory
 
         return regularColumnsSupported && partitionColumnsSupported;
     }
+
+    private static boolean columnTypeSupported(TypeSignature typeSignature)
+    {
+        if (SUPPORTED_NESTED_COLUMN_TYPES.contains(typeSignature.getBase())) {
+            return typeSignature.getParameters().stream()
+                    .map(TypeSignatureParameter::getTypeSignatureOrNamedTypeSignature)
+                    .allMatch(parameter -> parameter.isPresent() && columnTypeSupported(parameter.get()));
+        }
+        return SUPPORTED_COLUMN_TYPES.contains(typeSignature.getBase());
+    }
 }
@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.spi.type.Type;
+
+import static java.util.Objects.requireNonNull;
+
+public class ParquetPrimitiveField
+        extends ParquetField
+{
+    private final RichColumnDescriptor descriptor;
+
+    public ParquetPrimitiveField(Type type, int repetitionLevel, int definitionLevel, boolean required, RichColumnDescriptor descriptor)
+    {
+        super(type, repetitionLevel, definitionLevel, required);
+        this.descriptor = requireNonNull(descriptor, "descriptor is null");
+    }
+
+    public RichColumnDescriptor getDescriptor()
+    {
+        return descriptor;
+    }
+}
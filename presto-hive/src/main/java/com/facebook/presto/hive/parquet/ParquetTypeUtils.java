@@ -14,11 +14,24 @@
 package com.facebook.presto.hive.parquet;
 
 import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.collect.ImmutableList;
 import parquet.column.Encoding;
 import parquet.io.ParquetDecodingException;
+import parquet.schema.GroupType;
 import parquet.schema.MessageType;
 import parquet.schema.Type;
 
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_SCHEMA_MISMATCH;
+import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
+import static com.facebook.presto.spi.type.StandardTypes.MAP;
+import static com.facebook.presto.spi.type.StandardTypes.ROW;
+import static java.lang.String.format;
+import static parquet.schema.Type.Repetition.OPTIONAL;
+
 public final class ParquetTypeUtils
 {
     private ParquetTypeUtils()
@@ -37,6 +50,102 @@ public final class ParquetTypeUtils
         return null;
     }
 
+    /**
+     * Builds the field of a top level column of the requested schema. Returns empty if
+     * none of the leaves of a row column are present in the file.
+     */
+    public static Optional<ParquetField> constructField(com.facebook.presto.spi.type.Type type, Type parquetType, MessageType requestedSchema)
+    {
+        return constructField(type, parquetType, requestedSchema, ImmutableList.of());
+    }
+
+    private static Optional<ParquetField> constructField(com.facebook.presto.spi.type.Type type, Type parquetType, MessageType schema, List<String> parentPath)
+    {
+        List<String> path = ImmutableList.<String>builder().addAll(parentPath).add(parquetType.getName()).build();
+        String[] pathArray = path.toArray(new String[path.size()]);
+        int repetitionLevel = schema.getMaxRepetitionLevel(pathArray);
+        int definitionLevel = schema.getMaxDefinitionLevel(pathArray);
+        boolean required = parquetType.getRepetition() != OPTIONAL;
+        String base = type.getTypeSignature().getBase();
+
+        if (parquetType.isPrimitive()) {
+            if (base.equals(ARRAY) || base.equals(MAP) || base.equals(ROW)) {
+                throw schemaMismatch(type, parquetType, path);
+            }
+            RichColumnDescriptor descriptor = new RichColumnDescriptor(pathArray, parquetType.asPrimitiveType(), repetitionLevel, definitionLevel);
+            return Optional.of(new ParquetPrimitiveField(type, repetitionLevel, definitionLevel, required, descriptor));
+        }
+
+        GroupType groupType = parquetType.asGroupType();
+        List<com.facebook.presto.spi.type.Type> parameters = type.getTypeParameters();
+        switch (base) {
+            case ROW: {
+                ImmutableList.Builder<Optional<ParquetField>> children = ImmutableList.builder();
+                boolean present = false;
+                // fields are matched by position, like the Parquet record cursor does
+                for (int i = 0; i < parameters.size(); i++) {
+                    Optional<ParquetField> child = Optional.empty();
+                    if (i < groupType.getFieldCount()) {
+                        child = constructField(parameters.get(i), groupType.getType(i), schema, path);
+                    }
+                    present |= child.isPresent();
+                    children.add(child);
+                }
+                if (!present) {
+                    return Optional.empty();
+                }
+                return Optional.of(new ParquetGroupField(type, repetitionLevel, definitionLevel, required, children.build()));
+            }
+            case ARRAY: {
+                if (groupType.getFieldCount() != 1) {
+                    throw schemaMismatch(type, parquetType, path);
+                }
+                Type repeatedType = groupType.getType(0);
+                Optional<ParquetField> element;
+                if (isListElementType(repeatedType, groupType.getName())) {
+                    element = constructField(parameters.get(0), repeatedType, schema, path);
+                }
+                else {
+                    List<String> repeatedPath = ImmutableList.<String>builder().addAll(path).add(repeatedType.getName()).build();
+                    element = constructField(parameters.get(0), repeatedType.asGroupType().getType(0), schema, repeatedPath);
+                }
+                if (!element.isPresent()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new ParquetGroupField(type, repetitionLevel, definitionLevel, required, ImmutableList.of(element)));
+            }
+            case MAP: {
+                if (groupType.getFieldCount() != 1 || groupType.getType(0).isPrimitive() || groupType.getType(0).asGroupType().getFieldCount() != 2) {
+                    throw schemaMismatch(type, parquetType, path);
+                }
+                GroupType keyValueType = groupType.getType(0).asGroupType();
+                List<String> keyValuePath = ImmutableList.<String>builder().addAll(path).add(keyValueType.getName()).build();
+                Optional<ParquetField> key = constructField(parameters.get(0), keyValueType.getType(0), schema, keyValuePath);
+                Optional<ParquetField> value = constructField(parameters.get(1), keyValueType.getType(1), schema, keyValuePath);
+                if (!key.isPresent() || !value.isPresent()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new ParquetGroupField(type, repetitionLevel, definitionLevel, required, ImmutableList.of(key, value)));
+            }
+            default:
+                throw schemaMismatch(type, parquetType, path);
+        }
+    }
+
+    // compatibility rules for lists written by older writers, as in Apache Hive
+    private static boolean isListElementType(Type repeatedType, String parentName)
+    {
+        return repeatedType.isPrimitive() ||
+                repeatedType.asGroupType().getFieldCount() > 1 ||
+                repeatedType.getName().equals("array") ||
+                repeatedType.getName().equals(parentName + "_tuple");
+    }
+
+    private static PrestoException schemaMismatch(com.facebook.presto.spi.type.Type type, Type parquetType, List<String> path)
+    {
+        return new PrestoException(HIVE_PARTITION_SCHEMA_MISMATCH, format("Parquet column %s of type %s does not match type %s", String.join(".", path), parquetType, type));
+    }
+
     public static ParquetEncoding getParquetEncoding(Encoding encoding)
     {
         switch (encoding) {
@@ -13,14 +13,22 @@
  */
 package com.facebook.presto.hive.parquet.predicate;
 
+import com.google.common.collect.ImmutableSet;
 import parquet.column.statistics.Statistics;
 
 import java.util.Map;
+import java.util.Set;
 
 public interface ParquetPredicate
 {
     ParquetPredicate TRUE = new ParquetPredicate()
     {
+        @Override
+        public Set<Integer> getColumnIndexes()
+        {
+            return ImmutableSet.of();
+        }
+
         @Override
         public boolean matches(long numberOfRows, Map<Integer, Statistics<?>> statisticsByColumnIndex)
         {
@@ -34,6 +42,12 @@ public interface ParquetPredicate
         }
     };
 
+    /**
+     * Ordinal positions in the file of the columns constrained by this predicate; the
+     * statistics of any other column can not exclude a file section.
+     */
+    Set<Integer> getColumnIndexes();
+
     /**
      * Should the Parquet Reader process a file section with the specified statistics.
      *
@@ -24,6 +24,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import parquet.column.ColumnDescriptor;
@@ -40,6 +41,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -61,6 +63,22 @@ public class TupleDomainParquetPredicate<C>
         this.columnReferences = ImmutableList.copyOf(requireNonNull(columnReferences, "columnReferences is null"));
     }
 
+    @Override
+    public Set<Integer> getColumnIndexes()
+    {
+        Optional<Map<C, Domain>> domains = effectivePredicate.getDomains();
+        if (!domains.isPresent()) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<Integer> columnIndexes = ImmutableSet.builder();
+        for (ColumnReference<C> columnReference : columnReferences) {
+            if (domains.get().containsKey(columnReference.getColumn())) {
+                columnIndexes.add(columnReference.getOrdinal());
+            }
+        }
+        return columnIndexes.build();
+    }
+
     @Override
     public boolean matches(long numberOfRows, Map<Integer, Statistics<?>> statisticsByColumnIndex)
     {
@@ -38,36 +38,25 @@ public class ParquetBinaryColumnReader
     }
 
     @Override
-    public void readValues(BlockBuilder blockBuilder, int valueNumber, Type type)
+    protected void readValue(BlockBuilder blockBuilder, Type type)
     {
-        for (int i = 0; i < valueNumber; i++) {
-            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
-                Binary binary = valuesReader.readBytes();
-                Slice value;
-                if (binary.length() == 0) {
-                    value = Slices.EMPTY_SLICE;
-                }
-                else {
-                    value = Slices.wrappedBuffer(binary.getBytes());
-                }
-                if (isVarcharType(type)) {
-                    value = truncateToLength(value, type);
-                }
-                type.writeSlice(blockBuilder, value);
-            }
-            else {
-                blockBuilder.appendNull();
-            }
+        Binary binary = valuesReader.readBytes();
+        Slice value;
+        if (binary.length() == 0) {
+            value = Slices.EMPTY_SLICE;
         }
+        else {
+            value = Slices.wrappedBuffer(binary.getBytes());
+        }
+        if (isVarcharType(type)) {
+            value = truncateToLength(value, type);
+        }
+        type.writeSlice(blockBuilder, value);
     }
 
     @Override
-    public void skipValues(int offsetNumber)
+    protected void skipValue()
     {
-        for (int i = 0; i < offsetNumber; i++) {
-            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
-                valuesReader.readBytes();
-            }
-        }
+        valuesReader.readBytes();
     }
 }
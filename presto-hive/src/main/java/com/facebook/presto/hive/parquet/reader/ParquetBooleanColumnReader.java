@@ -32,25 +32,14 @@ public class ParquetBooleanColumnReader
     }
 
     @Override
-    public void readValues(BlockBuilder blockBuilder, int valueNumber, Type type)
+    protected void readValue(BlockBuilder blockBuilder, Type type)
     {
-        for (int i = 0; i < valueNumber; i++) {
-            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
-                type.writeBoolean(blockBuilder, valuesReader.readBoolean());
-            }
-            else {
-                blockBuilder.appendNull();
-            }
-        }
+        type.writeBoolean(blockBuilder, valuesReader.readBoolean());
     }
 
     @Override
-    public void skipValues(int offsetNumber)
+    protected void skipValue()
     {
-        for (int i = 0; i < offsetNumber; i++) {
-            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
-                valuesReader.readBoolean();
-            }
-        }
+        valuesReader.readBoolean();
     }
 }
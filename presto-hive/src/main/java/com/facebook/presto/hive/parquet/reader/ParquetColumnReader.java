@@ -25,6 +25,7 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import parquet.bytes.BytesUtils;
 import parquet.column.ColumnDescriptor;
 import parquet.column.values.ValuesReader;
@@ -63,12 +64,36 @@ public abstract class ParquetColumnReader
     private ParquetDataPage page;
     private int remainingValueCountInPage;
     private int readOffset;
+    // repetition level of the next entry, read ahead to find where the next row starts
+    private boolean hasPendingEntry;
+    private int pendingRepetitionLevel;
 
     public abstract BlockBuilder createBlockBuilder(Type type);
 
-    public abstract void readValues(BlockBuilder blockBuilder, int valueNumber, Type type);
+    protected abstract void readValue(BlockBuilder blockBuilder, Type type);
 
-    public abstract void skipValues(int offsetNumber);
+    protected abstract void skipValue();
+
+    protected void readValues(BlockBuilder blockBuilder, int valueNumber, Type type)
+    {
+        for (int i = 0; i < valueNumber; i++) {
+            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
+                readValue(blockBuilder, type);
+            }
+            else {
+                blockBuilder.appendNull();
+            }
+        }
+    }
+
+    protected void skipValues(int offsetNumber)
+    {
+        for (int i = 0; i < offsetNumber; i++) {
+            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
+                skipValue();
+            }
+        }
+    }
 
     public static ParquetColumnReader createReader(RichColumnDescriptor descriptor)
     {
@@ -137,6 +162,12 @@ public abstract class ParquetColumnReader
         nextBatchSize = batchSize;
     }
 
+    public void skipRows(int rowCount)
+    {
+        readOffset = readOffset + nextBatchSize + rowCount;
+        nextBatchSize = 0;
+    }
+
     public int getCurrentRepetitionLevel()
     {
         return repetitionLevel;
@@ -167,6 +198,10 @@ public abstract class ParquetColumnReader
             int valuePosition = 0;
             while (valuePosition < readOffset) {
                 if (page == null) {
+                    valuePosition += skipPages(readOffset - valuePosition);
+                    if (valuePosition == readOffset) {
+                        break;
+                    }
                     readNextPage();
                 }
                 int offsetNumber = Math.min(remainingValueCountInPage, readOffset - valuePosition);
@@ -195,6 +230,96 @@ public abstract class ParquetColumnReader
         return blockBuilder.build();
     }
 
+    /**
+     * Reads the values of the next batch of rows of a column nested in a repeated or group
+     * field, together with their levels. A row may span several entries and pages. Only
+     * defined values, and nulls of an optional leaf, get a position in the returned block;
+     * the levels are used by the caller to rebuild the enclosing arrays, maps and rows.
+     */
+    public ParquetNestedBlock readNestedBlock(Type type, boolean required)
+            throws IOException
+    {
+        if (readOffset != 0) {
+            readRows(readOffset, null, type, required, null, null);
+        }
+
+        BlockBuilder blockBuilder = createBlockBuilder(type);
+        IntArrayList definitionLevels = new IntArrayList(nextBatchSize);
+        IntArrayList repetitionLevels = new IntArrayList(nextBatchSize);
+        readRows(nextBatchSize, blockBuilder, type, required, definitionLevels, repetitionLevels);
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return new ParquetNestedBlock(blockBuilder.build(), definitionLevels.toIntArray(), repetitionLevels.toIntArray());
+    }
+
+    private void readRows(int rowCount, BlockBuilder blockBuilder, Type type, boolean required, IntArrayList definitionLevels, IntArrayList repetitionLevels)
+            throws IOException
+    {
+        int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        int rows = 0;
+        while (true) {
+            if (!hasPendingEntry) {
+                if (blockBuilder == null && page == null) {
+                    rows += skipPages(rowCount - rows);
+                }
+                if (currentValueCount == totalValueCount) {
+                    break;
+                }
+                if (page == null) {
+                    readNextPage();
+                }
+                pendingRepetitionLevel = repetitionReader.readLevel();
+                hasPendingEntry = true;
+            }
+            if (pendingRepetitionLevel == 0) {
+                if (rows == rowCount) {
+                    break;
+                }
+                rows++;
+            }
+            hasPendingEntry = false;
+
+            int definitionLevel = definitionReader.readLevel();
+            if (blockBuilder == null) {
+                if (definitionLevel == maxDefinitionLevel) {
+                    skipValue();
+                }
+            }
+            else {
+                if (definitionLevel == maxDefinitionLevel) {
+                    readValue(blockBuilder, type);
+                }
+                else if (!required && definitionLevel == maxDefinitionLevel - 1) {
+                    blockBuilder.appendNull();
+                }
+                definitionLevels.add(definitionLevel);
+                repetitionLevels.add(pendingRepetitionLevel);
+            }
+            updatePosition(1);
+        }
+        validateParquet(rows == rowCount, "Not enough rows to read in column chunk");
+    }
+
+    /**
+     * Drops whole pages that only contain rows to skip without decompressing them. This is
+     * only possible when the column is not repeated, as then every value is one row.
+     */
+    private int skipPages(int rowCount)
+    {
+        int skippedRows = 0;
+        while (columnDescriptor.getMaxRepetitionLevel() == 0) {
+            int pageValueCount = pageReader.getNextPageValueCount();
+            if (pageValueCount == 0 || pageValueCount > rowCount - skippedRows) {
+                break;
+            }
+            pageReader.skipPage();
+            currentValueCount += pageValueCount;
+            skippedRows += pageValueCount;
+        }
+        return skippedRows;
+    }
+
     private void readNextPage()
             throws IOException
     {
@@ -32,25 +32,14 @@ public class ParquetFloatColumnReader
     }
 
     @Override
-    public void readValues(BlockBuilder blockBuilder, int valueNumber, Type type)
+    protected void readValue(BlockBuilder blockBuilder, Type type)
     {
-        for (int i = 0; i < valueNumber; i++) {
-            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
-                type.writeDouble(blockBuilder, valuesReader.readFloat());
-            }
-            else {
-                blockBuilder.appendNull();
-            }
-        }
+        type.writeDouble(blockBuilder, valuesReader.readFloat());
     }
 
     @Override
-    public void skipValues(int offsetNumber)
+    protected void skipValue()
     {
-        for (int i = 0; i < offsetNumber; i++) {
-            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
-                valuesReader.readFloat();
-            }
-        }
+        valuesReader.readFloat();
     }
 }
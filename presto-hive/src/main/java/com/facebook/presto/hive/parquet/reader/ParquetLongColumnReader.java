@@ -32,25 +32,14 @@ public class ParquetLongColumnReader
     }
 
     @Override
-    public void readValues(BlockBuilder blockBuilder, int valueNumber, Type type)
+    protected void readValue(BlockBuilder blockBuilder, Type type)
     {
-        for (int i = 0; i < valueNumber; i++) {
-            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
-                type.writeLong(blockBuilder, valuesReader.readLong());
-            }
-            else {
-                blockBuilder.appendNull();
-            }
-        }
+        type.writeLong(blockBuilder, valuesReader.readLong());
     }
 
     @Override
-    public void skipValues(int offsetNumber)
+    protected void skipValue()
     {
-        for (int i = 0; i < offsetNumber; i++) {
-            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
-                valuesReader.readLong();
-            }
-        }
+        valuesReader.readLong();
     }
 }
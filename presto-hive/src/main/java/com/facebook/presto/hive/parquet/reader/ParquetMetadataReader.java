@@ -65,7 +65,12 @@ public final class ParquetMetadataReader
     public static ParquetMetadata readFooter(FileSystem fileSystem, Path file)
             throws IOException
     {
-        FileStatus fileStatus = fileSystem.getFileStatus(file);
+        return readFooter(fileSystem, file, fileSystem.getFileStatus(file));
+    }
+
+    public static ParquetMetadata readFooter(FileSystem fileSystem, Path file, FileStatus fileStatus)
+            throws IOException
+    {
         try (FSDataInputStream inputStream = fileSystem.open(file)) {
             // Parquet File Layout:
             //
@@ -20,6 +20,7 @@ import com.facebook.presto.hive.parquet.ParquetDictionaryPage;
 import parquet.hadoop.metadata.CompressionCodecName;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -51,6 +52,30 @@ class ParquetPageReader
         return valueCount;
     }
 
+    /**
+     * Returns the pages not read yet, still compressed, e.g. to look at their statistics.
+     */
+    public List<ParquetDataPage> getCompressedPages()
+    {
+        return Collections.unmodifiableList(compressedPages);
+    }
+
+    public int getNextPageValueCount()
+    {
+        if (compressedPages.isEmpty()) {
+            return 0;
+        }
+        return compressedPages.get(0).getValueCount();
+    }
+
+    /**
+     * Drops the next page without decompressing it.
+     */
+    public void skipPage()
+    {
+        compressedPages.remove(0);
+    }
+
     public ParquetDataPage readPage()
     {
         if (compressedPages.isEmpty()) {
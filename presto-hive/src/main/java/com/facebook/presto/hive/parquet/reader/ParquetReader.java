@@ -14,11 +14,24 @@
 package com.facebook.presto.hive.parquet.reader;
 
 import com.facebook.presto.hive.parquet.ParquetCorruptionException;
+import com.facebook.presto.hive.parquet.ParquetDataPage;
 import com.facebook.presto.hive.parquet.ParquetDataSource;
+import com.facebook.presto.hive.parquet.ParquetField;
+import com.facebook.presto.hive.parquet.ParquetGroupField;
+import com.facebook.presto.hive.parquet.ParquetPrimitiveField;
 import com.facebook.presto.hive.parquet.RichColumnDescriptor;
+import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
+import com.facebook.presto.spi.block.ArrayBlock;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.InterleavedBlock;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.primitives.Ints;
+import io.airlift.slice.Slices;
+import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.apache.hadoop.conf.Configuration;
 import parquet.column.ColumnDescriptor;
 import parquet.hadoop.metadata.BlockMetaData;
@@ -30,11 +43,18 @@ import parquet.schema.PrimitiveType;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static com.facebook.presto.hive.parquet.ParquetValidationUtils.validateParquet;
+import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
+import static com.facebook.presto.spi.type.StandardTypes.MAP;
+import static com.facebook.presto.spi.type.StandardTypes.ROW;
+import static java.util.Objects.requireNonNull;
 
 public class ParquetReader
         implements Closeable
@@ -46,6 +66,7 @@ public class ParquetReader
     private final MessageType requestedSchema;
     private final List<BlockMetaData> blocks;
     private final ParquetDataSource dataSource;
+    private final ParquetPredicate predicate;
 
     private int currentBlock;
     private BlockMetaData currentBlockMetadata;
@@ -54,6 +75,8 @@ public class ParquetReader
     private long currentGroupRowCount;
     private long nextRowInGroup;
     private Map<ColumnDescriptor, ParquetColumnReader> columnReadersMap = new HashMap<>();
+    // rows of the current row group in data pages that may match the predicate, null if all rows may match
+    private BitSet selectedRows;
 
     public ParquetReader(MessageType fileSchema,
             Map<String, String> extraMetadata,
@@ -62,12 +85,25 @@ public class ParquetReader
             Configuration configuration,
             ParquetDataSource dataSource)
             throws IOException
+    {
+        this(fileSchema, extraMetadata, requestedSchema, blocks, configuration, dataSource, ParquetPredicate.TRUE);
+    }
+
+    public ParquetReader(MessageType fileSchema,
+            Map<String, String> extraMetadata,
+            MessageType requestedSchema,
+            List<BlockMetaData> blocks,
+            Configuration configuration,
+            ParquetDataSource dataSource,
+            ParquetPredicate predicate)
+            throws IOException
     {
         this.fileSchema = fileSchema;
         this.extraMetadata = extraMetadata;
         this.requestedSchema = requestedSchema;
         this.blocks = blocks;
         this.dataSource = dataSource;
+        this.predicate = requireNonNull(predicate, "predicate is null");
         for (BlockMetaData block : blocks) {
             fileRowCount += block.getRowCount();
         }
@@ -103,13 +139,32 @@ public class ParquetReader
     public int nextBatch()
             throws IOException, InterruptedException
     {
-        if (nextRowInGroup >= currentGroupRowCount) {
-            if (!advanceToNextRowGroup()) {
-                return -1;
+        long batchEnd;
+        while (true) {
+            if (nextRowInGroup >= currentGroupRowCount) {
+                if (!advanceToNextRowGroup()) {
+                    return -1;
+                }
+            }
+            if (selectedRows == null) {
+                batchEnd = currentGroupRowCount;
+                break;
             }
+
+            // batches never span rows of pruned pages
+            int firstSelectedRow = selectedRows.nextSetBit(Ints.checkedCast(nextRowInGroup));
+            if (firstSelectedRow < 0) {
+                skipRows(currentGroupRowCount - nextRowInGroup);
+                continue;
+            }
+            if (firstSelectedRow > nextRowInGroup) {
+                skipRows(firstSelectedRow - nextRowInGroup);
+            }
+            batchEnd = selectedRows.nextClearBit(firstSelectedRow);
+            break;
         }
 
-        int batchSize = Ints.checkedCast(Math.min(MAX_VECTOR_LENGTH, currentGroupRowCount - nextRowInGroup));
+        int batchSize = Ints.checkedCast(Math.min(MAX_VECTOR_LENGTH, batchEnd - nextRowInGroup));
 
         nextRowInGroup += batchSize;
         currentPosition += batchSize;
@@ -120,8 +175,17 @@ public class ParquetReader
         return batchSize;
     }
 
+    private void skipRows(long rowCount)
+    {
+        nextRowInGroup += rowCount;
+        currentPosition += rowCount;
+        for (ColumnDescriptor column : getColumns(requestedSchema)) {
+            columnReadersMap.get(column).skipRows(Ints.checkedCast(rowCount));
+        }
+    }
+
     private boolean advanceToNextRowGroup()
-            throws InterruptedException
+            throws IOException, InterruptedException
     {
         if (currentBlock == blocks.size()) {
             return false;
@@ -134,13 +198,226 @@ public class ParquetReader
         currentGroupRowCount = rowCount;
         columnReadersMap.clear();
         initializeColumnReaders();
+        selectedRows = getSelectedRows();
         return true;
     }
 
+    /**
+     * Uses the statistics in the data page headers of the predicate columns to find the rows
+     * of the current row group that may match. Only the page headers are looked at; pruned
+     * pages are later dropped by the column readers without being decompressed.
+     */
+    private BitSet getSelectedRows()
+            throws IOException
+    {
+        Set<Integer> predicateColumnIndexes = predicate.getColumnIndexes();
+        if (predicateColumnIndexes.isEmpty()) {
+            return null;
+        }
+
+        int rowCount = Ints.checkedCast(currentGroupRowCount);
+        BitSet selectedRows = null;
+        for (RichColumnDescriptor column : getColumns(requestedSchema)) {
+            // the pages of a repeated column do not tell which rows they contain
+            if (column.getMaxRepetitionLevel() != 0) {
+                continue;
+            }
+            int columnIndex = getColumnIndex(column);
+            if (!predicateColumnIndexes.contains(columnIndex)) {
+                continue;
+            }
+
+            ParquetColumnReader columnReader = columnReadersMap.get(column);
+            loadColumnChunk(columnReader, column);
+            int pageStart = 0;
+            for (ParquetDataPage page : columnReader.getPageReader().getCompressedPages()) {
+                int pageEnd = pageStart + page.getValueCount();
+                if (!predicate.matches(page.getValueCount(), ImmutableMap.of(columnIndex, page.getStatistics()))) {
+                    if (selectedRows == null) {
+                        selectedRows = new BitSet(rowCount);
+                        selectedRows.set(0, rowCount);
+                    }
+                    selectedRows.clear(pageStart, pageEnd);
+                }
+                pageStart = pageEnd;
+            }
+        }
+        return selectedRows;
+    }
+
     public Block readBlock(ColumnDescriptor columnDescriptor, Type type)
             throws IOException
     {
         ParquetColumnReader columnReader = columnReadersMap.get(columnDescriptor);
+        loadColumnChunk(columnReader, columnDescriptor);
+        return columnReader.readBlock(type);
+    }
+
+    /**
+     * Reads an array, map or row column. Only the column chunks of the leaves of the
+     * field are read, and each of them at most once per row group.
+     */
+    public Block readBlock(ParquetField field)
+            throws IOException
+    {
+        return readNestedBlock(field).getBlock();
+    }
+
+    private ParquetNestedBlock readNestedBlock(ParquetField field)
+            throws IOException
+    {
+        if (field instanceof ParquetPrimitiveField) {
+            ColumnDescriptor columnDescriptor = ((ParquetPrimitiveField) field).getDescriptor();
+            ParquetColumnReader columnReader = columnReadersMap.get(columnDescriptor);
+            loadColumnChunk(columnReader, columnDescriptor);
+            return columnReader.readNestedBlock(field.getType(), field.isRequired());
+        }
+
+        ParquetGroupField groupField = (ParquetGroupField) field;
+        List<Optional<ParquetField>> children = groupField.getChildren();
+        switch (field.getType().getTypeSignature().getBase()) {
+            case ARRAY: {
+                ParquetNestedBlock elements = readNestedBlock(children.get(0).get());
+                IntArrayList offsets = new IntArrayList();
+                BooleanArrayList nulls = new BooleanArrayList();
+                calculateCollectionOffsets(field, elements.getDefinitionLevels(), elements.getRepetitionLevels(), offsets, nulls);
+                Block block = new ArrayBlock(elements.getBlock(), Slices.wrappedIntArray(offsets.toIntArray()), 0, Slices.wrappedBooleanArray(nulls.toBooleanArray()));
+                return new ParquetNestedBlock(block, elements.getDefinitionLevels(), elements.getRepetitionLevels());
+            }
+            case MAP: {
+                ParquetNestedBlock keys = readNestedBlock(children.get(0).get());
+                ParquetNestedBlock values = readNestedBlock(children.get(1).get());
+                validateParquet(keys.getBlock().getPositionCount() == values.getBlock().getPositionCount(), "Map of column %s has %s keys and %s values", field, keys.getBlock().getPositionCount(), values.getBlock().getPositionCount());
+                IntArrayList offsets = new IntArrayList();
+                BooleanArrayList nulls = new BooleanArrayList();
+                calculateCollectionOffsets(field, keys.getDefinitionLevels(), keys.getRepetitionLevels(), offsets, nulls);
+                // two positions in the interleaved block per entry
+                int[] keyValueOffsets = offsets.toIntArray();
+                for (int i = 0; i < keyValueOffsets.length; i++) {
+                    keyValueOffsets[i] *= 2;
+                }
+                InterleavedBlock keyValueBlock = new InterleavedBlock(new Block[] {keys.getBlock(), values.getBlock()});
+                Block block = new ArrayBlock(keyValueBlock, Slices.wrappedIntArray(keyValueOffsets), 0, Slices.wrappedBooleanArray(nulls.toBooleanArray()));
+                return new ParquetNestedBlock(block, keys.getDefinitionLevels(), keys.getRepetitionLevels());
+            }
+            case ROW: {
+                ParquetNestedBlock[] fieldBlocks = new ParquetNestedBlock[children.size()];
+                ParquetNestedBlock levels = null;
+                for (int i = 0; i < children.size(); i++) {
+                    if (children.get(i).isPresent()) {
+                        fieldBlocks[i] = readNestedBlock(children.get(i).get());
+                        if (levels == null) {
+                            levels = fieldBlocks[i];
+                        }
+                    }
+                }
+                validateParquet(levels != null, "Row column %s has no fields in the file", field);
+
+                BooleanArrayList nulls = new BooleanArrayList();
+                int nonNullCount = calculateRowNulls(field, levels.getDefinitionLevels(), levels.getRepetitionLevels(), nulls);
+
+                // fields missing from the file are null in every non null row
+                Block[] blocks = new Block[children.size()];
+                List<Type> fieldTypes = field.getType().getTypeParameters();
+                for (int i = 0; i < blocks.length; i++) {
+                    if (fieldBlocks[i] != null) {
+                        blocks[i] = fieldBlocks[i].getBlock();
+                    }
+                    else {
+                        BlockBuilder blockBuilder = fieldTypes.get(i).createBlockBuilder(new BlockBuilderStatus(), nonNullCount);
+                        for (int position = 0; position < nonNullCount; position++) {
+                            blockBuilder.appendNull();
+                        }
+                        blocks[i] = blockBuilder.build();
+                    }
+                }
+
+                // null rows have no positions in the interleaved block
+                boolean[] rowIsNull = nulls.toBooleanArray();
+                int[] offsets = new int[rowIsNull.length];
+                int offset = 0;
+                for (int i = 0; i < rowIsNull.length; i++) {
+                    if (!rowIsNull[i]) {
+                        offset += blocks.length;
+                    }
+                    offsets[i] = offset;
+                }
+                Block block = new ArrayBlock(new InterleavedBlock(blocks), Slices.wrappedIntArray(offsets), 0, Slices.wrappedBooleanArray(rowIsNull));
+                return new ParquetNestedBlock(block, levels.getDefinitionLevels(), levels.getRepetitionLevels());
+            }
+            default:
+                throw new ParquetCorruptionException("Unsupported nested column %s", field);
+        }
+    }
+
+    /**
+     * Computes the end offsets and nulls of an array or map field from the levels of one of
+     * its leaves. A collection starts at every entry with a repetition level of at most the
+     * level of the field; following entries with the repetition level of the repeated group
+     * start new elements. Entries whose definition level is below the field belong to a null
+     * or empty ancestor and do not produce a position.
+     */
+    static void calculateCollectionOffsets(ParquetField field, int[] definitionLevels, int[] repetitionLevels, IntArrayList offsets, BooleanArrayList nulls)
+    {
+        int maxDefinitionLevel = field.getDefinitionLevel();
+        int maxElementRepetitionLevel = field.getRepetitionLevel() + 1;
+        int offset = 0;
+        int next;
+        for (int i = 0; i < definitionLevels.length; i = next) {
+            next = i + 1;
+            int elementCount = 1;
+            while (next < definitionLevels.length && repetitionLevels[next] >= maxElementRepetitionLevel) {
+                if (repetitionLevels[next] == maxElementRepetitionLevel) {
+                    elementCount++;
+                }
+                next++;
+            }
+            if (repetitionLevels[i] >= maxElementRepetitionLevel) {
+                continue;
+            }
+
+            if (!field.isRequired() && definitionLevels[i] == maxDefinitionLevel - 1) {
+                offsets.add(offset);
+                nulls.add(true);
+            }
+            else if (definitionLevels[i] == maxDefinitionLevel) {
+                offsets.add(offset);
+                nulls.add(false);
+            }
+            else if (definitionLevels[i] > maxDefinitionLevel) {
+                offset += elementCount;
+                offsets.add(offset);
+                nulls.add(false);
+            }
+        }
+    }
+
+    /**
+     * Computes the nulls of a row field from the levels of one of its fields, and returns
+     * the number of non null rows.
+     */
+    static int calculateRowNulls(ParquetField field, int[] definitionLevels, int[] repetitionLevels, BooleanArrayList nulls)
+    {
+        int maxDefinitionLevel = field.getDefinitionLevel();
+        int nonNullCount = 0;
+        for (int i = 0; i < definitionLevels.length; i++) {
+            if (repetitionLevels[i] > field.getRepetitionLevel()) {
+                continue;
+            }
+            if (!field.isRequired() && definitionLevels[i] == maxDefinitionLevel - 1) {
+                nulls.add(true);
+            }
+            else if (definitionLevels[i] >= maxDefinitionLevel) {
+                nulls.add(false);
+                nonNullCount++;
+            }
+        }
+        return nonNullCount;
+    }
+
+    private void loadColumnChunk(ParquetColumnReader columnReader, ColumnDescriptor columnDescriptor)
+            throws IOException
+    {
         if (columnReader.getPageReader() == null) {
             validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group having 0 rows");
             ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
@@ -152,7 +429,17 @@ public class ParquetReader
             ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0);
             columnReader.setPageReader(columnChunk.readAllPages());
         }
-        return columnReader.readBlock(type);
+    }
+
+    private int getColumnIndex(ColumnDescriptor columnDescriptor)
+    {
+        List<ColumnChunkMetaData> columns = currentBlockMetadata.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getPath().equals(ColumnPath.get(columnDescriptor.getPath()))) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     private ColumnChunkMetaData getColumnChunkMetaData(ColumnDescriptor columnDescriptor)
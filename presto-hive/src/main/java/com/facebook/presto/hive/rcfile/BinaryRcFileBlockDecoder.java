@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.ByteArrays;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefWritable;
+import org.apache.hadoop.hive.serde2.io.HiveDecimalWritable;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.IOException;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static com.facebook.presto.hive.util.DecimalUtils.getLongDecimalValue;
+import static com.facebook.presto.hive.util.DecimalUtils.getShortDecimalValue;
+import static com.facebook.presto.spi.type.Varchars.isVarcharType;
+import static com.facebook.presto.spi.type.Varchars.truncateToLength;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decodes columns written by {@code LazyBinaryColumnarSerDe}. An empty value is a null.
+ */
+public class BinaryRcFileBlockDecoder
+        implements RcFileBlockDecoder
+{
+    private static final byte HIVE_EMPTY_STRING_BYTE = (byte) 0xbf;
+
+    private static final int SIZE_OF_SHORT = 2;
+    private static final int SIZE_OF_INT = 4;
+    private static final int SIZE_OF_LONG = 8;
+
+    private final Type type;
+    private final HiveType hiveType;
+    private final PrimitiveCategory category;
+    private final HiveDecimalWritable decimalWritable = new HiveDecimalWritable();
+
+    public BinaryRcFileBlockDecoder(Type type, HiveType hiveType)
+    {
+        this.type = requireNonNull(type, "type is null");
+        this.hiveType = requireNonNull(hiveType, "hiveType is null");
+        this.category = ((PrimitiveTypeInfo) hiveType.getTypeInfo()).getPrimitiveCategory();
+    }
+
+    @Override
+    public Block decode(BytesRefArrayWritable values, int position, int length)
+            throws IOException
+    {
+        BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), length);
+        for (int i = position; i < position + length; i++) {
+            BytesRefWritable value = values.unCheckedGet(i);
+            int valueLength = value.getLength();
+            if (valueLength == 0) {
+                blockBuilder.appendNull();
+                continue;
+            }
+            byte[] bytes = value.getData();
+            int offset = value.getStart();
+
+            switch (category) {
+                case BOOLEAN:
+                    type.writeBoolean(blockBuilder, bytes[offset] != 0);
+                    break;
+                case BYTE:
+                    checkLength(valueLength == 1, valueLength);
+                    type.writeLong(blockBuilder, bytes[offset]);
+                    break;
+                case SHORT:
+                    // the file format uses big endian
+                    checkLength(valueLength == SIZE_OF_SHORT, valueLength);
+                    type.writeLong(blockBuilder, Short.reverseBytes(ByteArrays.getShort(bytes, offset)));
+                    break;
+                case INT:
+                case LONG:
+                case DATE:
+                    type.writeLong(blockBuilder, readVLong(bytes, offset, valueLength));
+                    break;
+                case TIMESTAMP:
+                    long seconds = TimestampWritable.getSeconds(bytes, offset);
+                    long nanos = (bytes[offset] >> 7) != 0 ? TimestampWritable.getNanos(bytes, offset + SIZE_OF_INT) : 0;
+                    type.writeLong(blockBuilder, (seconds * 1000) + (nanos / 1_000_000));
+                    break;
+                case FLOAT:
+                    // the file format uses big endian
+                    checkLength(valueLength == SIZE_OF_INT, valueLength);
+                    type.writeDouble(blockBuilder, Float.intBitsToFloat(Integer.reverseBytes(ByteArrays.getInt(bytes, offset))));
+                    break;
+                case DOUBLE:
+                    // the file format uses big endian
+                    checkLength(valueLength == SIZE_OF_LONG, valueLength);
+                    type.writeDouble(blockBuilder, Double.longBitsToDouble(Long.reverseBytes(ByteArrays.getLong(bytes, offset))));
+                    break;
+                case STRING:
+                case VARCHAR:
+                case BINARY:
+                    writeSlice(blockBuilder, bytes, offset, valueLength);
+                    break;
+                case DECIMAL:
+                    decimalWritable.setFromBytes(bytes, offset, valueLength);
+                    DecimalType decimalType = (DecimalType) type;
+                    if (decimalType.isShort()) {
+                        type.writeLong(blockBuilder, getShortDecimalValue(decimalWritable, decimalType.getScale()));
+                    }
+                    else {
+                        type.writeSlice(blockBuilder, getLongDecimalValue(decimalWritable, decimalType.getScale()));
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported Hive type: " + hiveType);
+            }
+        }
+        return blockBuilder.build();
+    }
+
+    private void writeSlice(BlockBuilder blockBuilder, byte[] bytes, int offset, int length)
+    {
+        // TODO: zero length BINARY is not supported. See https://issues.apache.org/jira/browse/HIVE-2483
+        if (category == PrimitiveCategory.STRING && length == 1 && bytes[offset] == HIVE_EMPTY_STRING_BYTE) {
+            type.writeSlice(blockBuilder, Slices.EMPTY_SLICE);
+            return;
+        }
+
+        Slice value = Slices.wrappedBuffer(bytes, offset, length);
+        if (isVarcharType(type)) {
+            value = truncateToLength(value, type);
+        }
+        type.writeSlice(blockBuilder, value);
+    }
+
+    private static long readVLong(byte[] bytes, int offset, int length)
+    {
+        if (length == 1) {
+            return bytes[offset];
+        }
+
+        long value = 0;
+        for (int i = 1; i < length; i++) {
+            value <<= 8;
+            value |= (bytes[offset + i] & 0xFF);
+        }
+        return WritableUtils.isNegativeVInt(bytes[offset]) ? ~value : value;
+    }
+
+    private void checkLength(boolean valid, int length)
+    {
+        if (!valid) {
+            throw new PrestoException(HIVE_BAD_DATA, format("Invalid length %s for %s value", length, hiveType));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.spi.type.Type;
+import org.joda.time.DateTimeZone;
+
+public enum RcFileEncoding
+{
+    /**
+     * Values written by {@code LazyBinaryColumnarSerDe}
+     */
+    BINARY {
+        @Override
+        public RcFileBlockDecoder createBlockDecoder(Type type, HiveType hiveType, DateTimeZone hiveStorageTimeZone)
+        {
+            return new BinaryRcFileBlockDecoder(type, hiveType);
+        }
+    },
+
+    /**
+     * Values written by {@code ColumnarSerDe}
+     */
+    TEXT {
+        @Override
+        public RcFileBlockDecoder createBlockDecoder(Type type, HiveType hiveType, DateTimeZone hiveStorageTimeZone)
+        {
+            return new TextRcFileBlockDecoder(type, hiveType, hiveStorageTimeZone);
+        }
+    };
+
+    public abstract RcFileBlockDecoder createBlockDecoder(Type type, HiveType hiveType, DateTimeZone hiveStorageTimeZone);
+}
@@ -0,0 +1,360 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.block.LazyBlockLoader;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeManager;
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.RCFile;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
+import org.apache.hadoop.io.Text;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
+import static com.facebook.presto.hive.HiveUtil.createPrefilledBlock;
+import static com.facebook.presto.hive.HiveUtil.getPrefilledColumnValue;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Maps.uniqueIndex;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads RCFile row groups directly into blocks. Each row group is returned as one or more
+ * pages, and the values of a column are only fetched (and decompressed) from the row group
+ * when the corresponding lazy block is loaded.
+ */
+public class RcFilePageSource
+        implements ConnectorPageSource
+{
+    public static final int MAX_BATCH_SIZE = 1024;
+
+    private static final int NULL_ENTRY_SIZE = 0;
+
+    private final RCFile.Reader reader;
+    private final long start;
+    private final long end;
+
+    private final List<String> columnNames;
+    private final List<Type> types;
+
+    private final Block[] constantBlocks;
+    private final int[] hiveColumnIndexes;
+    private final RcFileBlockDecoder[] decoders;
+
+    // values of the current row group, fetched on first use of each column
+    private final BytesRefArrayWritable[] columnValues;
+    private final boolean[] columnValuesLoaded;
+
+    private int rowGroupPositionCount;
+    private int rowGroupPosition;
+
+    private int batchId;
+    private boolean closed;
+    private long completedBytes;
+
+    public RcFilePageSource(
+            RCFile.Reader reader,
+            RcFileEncoding encoding,
+            long start,
+            long length,
+            List<HivePartitionKey> partitionKeys,
+            List<HiveColumnHandle> columns,
+            DateTimeZone hiveStorageTimeZone,
+            TypeManager typeManager,
+            Path path)
+            throws IOException
+    {
+        requireNonNull(path, "path is null");
+        this.reader = requireNonNull(reader, "reader is null");
+        requireNonNull(encoding, "encoding is null");
+        checkArgument(start >= 0, "start is negative");
+        checkArgument(length >= 0, "length is negative");
+        this.start = start;
+        this.end = start + length;
+
+        // position the reader at the first sync marker of the split
+        if (start > reader.getPosition()) {
+            reader.sync(start);
+        }
+
+        int fileColumnCount = getFileColumnCount(reader);
+
+        Map<String, HivePartitionKey> partitionKeysByName = uniqueIndex(requireNonNull(partitionKeys, "partitionKeys is null"), HivePartitionKey::getName);
+
+        int size = requireNonNull(columns, "columns is null").size();
+
+        this.constantBlocks = new Block[size];
+        this.hiveColumnIndexes = new int[size];
+        this.decoders = new RcFileBlockDecoder[size];
+        this.columnValues = new BytesRefArrayWritable[size];
+        this.columnValuesLoaded = new boolean[size];
+
+        ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
+        ImmutableList.Builder<Type> typesBuilder = ImmutableList.builder();
+        for (int columnIndex = 0; columnIndex < columns.size(); columnIndex++) {
+            HiveColumnHandle column = columns.get(columnIndex);
+
+            String name = column.getName();
+            Type type = typeManager.getType(column.getTypeSignature());
+
+            namesBuilder.add(name);
+            typesBuilder.add(type);
+
+            hiveColumnIndexes[columnIndex] = column.getHiveColumnIndex();
+
+            if (column.isPartitionKey() || column.isHidden()) {
+                HivePartitionKey partitionKey = partitionKeysByName.get(name);
+                String columnValue = getPrefilledColumnValue(column, partitionKey, path);
+                constantBlocks[columnIndex] = createPrefilledBlock(type, name, columnValue, MAX_BATCH_SIZE, hiveStorageTimeZone);
+            }
+            else if (column.getHiveColumnIndex() >= fileColumnCount) {
+                // this partition may contain fewer fields than what's declared in the schema
+                // this happens when additional columns are added to the hive table after a partition has been created
+                BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_BATCH_SIZE, NULL_ENTRY_SIZE);
+                for (int i = 0; i < MAX_BATCH_SIZE; i++) {
+                    blockBuilder.appendNull();
+                }
+                constantBlocks[columnIndex] = blockBuilder.build();
+            }
+            else {
+                decoders[columnIndex] = encoding.createBlockDecoder(type, column.getHiveType(), hiveStorageTimeZone);
+                columnValues[columnIndex] = new BytesRefArrayWritable();
+            }
+        }
+        types = typesBuilder.build();
+        columnNames = namesBuilder.build();
+
+        // the split does not contain the start of any row group
+        if (reader.getPosition() >= end) {
+            close();
+        }
+    }
+
+    private static int getFileColumnCount(RCFile.Reader reader)
+    {
+        Text columnCount = reader.getMetadata().get(new Text(RCFile.COLUMN_NUMBER_METADATA_STR));
+        if (columnCount == null) {
+            throw new PrestoException(HIVE_BAD_DATA, "RCFile is missing the column count metadata");
+        }
+        try {
+            return Integer.parseInt(columnCount.toString());
+        }
+        catch (NumberFormatException e) {
+            throw new PrestoException(HIVE_BAD_DATA, "Invalid RCFile column count: " + columnCount, e);
+        }
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return end - start;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        if (!closed) {
+            updateCompletedBytes();
+        }
+        return completedBytes;
+    }
+
+    private void updateCompletedBytes()
+    {
+        try {
+            long newCompletedBytes = reader.getPosition() - start;
+            completedBytes = min(end - start, max(completedBytes, newCompletedBytes));
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return 0;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        try {
+            batchId++;
+            if (closed) {
+                return null;
+            }
+            if (rowGroupPosition >= rowGroupPositionCount && !advanceRowGroup()) {
+                close();
+                return null;
+            }
+
+            int batchSize = min(MAX_BATCH_SIZE, rowGroupPositionCount - rowGroupPosition);
+            Block[] blocks = new Block[hiveColumnIndexes.length];
+            for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
+                if (constantBlocks[fieldId] != null) {
+                    blocks[fieldId] = constantBlocks[fieldId].getRegion(0, batchSize);
+                }
+                else {
+                    blocks[fieldId] = new LazyBlock(batchSize, new RcFileBlockLoader(fieldId, rowGroupPosition, batchSize));
+                }
+            }
+            rowGroupPosition += batchSize;
+            return new Page(batchSize, blocks);
+        }
+        catch (PrestoException e) {
+            closeWithSuppression(e);
+            throw e;
+        }
+        catch (IOException | RuntimeException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_CURSOR_ERROR, e);
+        }
+    }
+
+    private boolean advanceRowGroup()
+            throws IOException
+    {
+        // skip empty row groups
+        do {
+            if (!reader.nextBlock()) {
+                return false;
+            }
+            // the row group belongs to the next split
+            if (reader.lastSeenSyncPos() >= end) {
+                return false;
+            }
+            rowGroupPositionCount = reader.getCurrentKeyBufferObj().getNumberRows();
+        }
+        while (rowGroupPositionCount == 0);
+
+        rowGroupPosition = 0;
+        Arrays.fill(columnValuesLoaded, false);
+        return true;
+    }
+
+    private BytesRefArrayWritable getColumnValues(int fieldId)
+            throws IOException
+    {
+        if (!columnValuesLoaded[fieldId]) {
+            BytesRefArrayWritable values = reader.getColumn(hiveColumnIndexes[fieldId], columnValues[fieldId]);
+            checkState(values != null, "Column %s was not selected for reading", hiveColumnIndexes[fieldId]);
+            columnValuesLoaded[fieldId] = true;
+        }
+        return columnValues[fieldId];
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        updateCompletedBytes();
+        reader.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("columnNames", columnNames)
+                .add("types", types)
+                .toString();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return 0;
+    }
+
+    protected void closeWithSuppression(Throwable throwable)
+    {
+        requireNonNull(throwable, "throwable is null");
+        try {
+            close();
+        }
+        catch (RuntimeException e) {
+            // Self-suppression not permitted
+            if (throwable != e) {
+                throwable.addSuppressed(e);
+            }
+        }
+    }
+
+    private final class RcFileBlockLoader
+            implements LazyBlockLoader<LazyBlock>
+    {
+        private final int expectedBatchId = batchId;
+        private final int fieldId;
+        private final int position;
+        private final int positionCount;
+        private boolean loaded;
+
+        public RcFileBlockLoader(int fieldId, int position, int positionCount)
+        {
+            this.fieldId = fieldId;
+            this.position = position;
+            this.positionCount = positionCount;
+        }
+
+        @Override
+        public final void load(LazyBlock lazyBlock)
+        {
+            if (loaded) {
+                return;
+            }
+
+            checkState(batchId == expectedBatchId);
+
+            try {
+                BytesRefArrayWritable values = getColumnValues(fieldId);
+                lazyBlock.setBlock(decoders[fieldId].decode(values, position, positionCount));
+            }
+            catch (IOException e) {
+                throw new PrestoException(HIVE_CURSOR_ERROR, e);
+            }
+
+            loaded = true;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.TypeManager;
+import com.facebook.presto.spi.type.TypeSignature;
+import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.RCFile;
+import org.apache.hadoop.hive.serde2.columnar.ColumnarSerDe;
+import org.apache.hadoop.hive.serde2.columnar.LazyBinaryColumnarSerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.joda.time.DateTimeZone;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
+import static com.facebook.presto.hive.HiveSessionProperties.isRcfileOptimizedReaderEnabled;
+import static com.facebook.presto.hive.HiveUtil.getDeserializerClassName;
+import static com.facebook.presto.hive.HiveUtil.setReadColumns;
+import static com.facebook.presto.spi.type.StandardTypes.BIGINT;
+import static com.facebook.presto.spi.type.StandardTypes.BOOLEAN;
+import static com.facebook.presto.spi.type.StandardTypes.DATE;
+import static com.facebook.presto.spi.type.StandardTypes.DECIMAL;
+import static com.facebook.presto.spi.type.StandardTypes.DOUBLE;
+import static com.facebook.presto.spi.type.StandardTypes.INTEGER;
+import static com.facebook.presto.spi.type.StandardTypes.SMALLINT;
+import static com.facebook.presto.spi.type.StandardTypes.TIMESTAMP;
+import static com.facebook.presto.spi.type.StandardTypes.TINYINT;
+import static com.facebook.presto.spi.type.StandardTypes.VARCHAR;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category.PRIMITIVE;
+
+public class RcFilePageSourceFactory
+        implements HivePageSourceFactory
+{
+    private static final Set<PrimitiveCategory> SUPPORTED_COLUMN_TYPES = ImmutableSet.of(
+            PrimitiveCategory.BOOLEAN,
+            PrimitiveCategory.BYTE,
+            PrimitiveCategory.SHORT,
+            PrimitiveCategory.INT,
+            PrimitiveCategory.LONG,
+            PrimitiveCategory.FLOAT,
+            PrimitiveCategory.DOUBLE,
+            PrimitiveCategory.STRING,
+            PrimitiveCategory.VARCHAR,
+            PrimitiveCategory.BINARY,
+            PrimitiveCategory.DATE,
+            PrimitiveCategory.TIMESTAMP,
+            PrimitiveCategory.DECIMAL);
+    private static final Set<String> SUPPORTED_PARTITION_TYPES = ImmutableSet.of(TINYINT, SMALLINT, INTEGER, BIGINT, BOOLEAN, DOUBLE, TIMESTAMP, VARCHAR, DATE, DECIMAL);
+
+    private final TypeManager typeManager;
+    private final HdfsEnvironment hdfsEnvironment;
+
+    @Inject
+    public RcFilePageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment)
+    {
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+    }
+
+    @Override
+    public Optional<? extends ConnectorPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            Properties schema,
+            List<HiveColumnHandle> columns,
+            List<HivePartitionKey> partitionKeys,
+            TupleDomain<HiveColumnHandle> effectivePredicate,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        if (!isRcfileOptimizedReaderEnabled(session)) {
+            return Optional.empty();
+        }
+
+        RcFileEncoding encoding;
+        String deserializerClassName = getDeserializerClassName(schema);
+        if (deserializerClassName.equals(LazyBinaryColumnarSerDe.class.getName())) {
+            encoding = RcFileEncoding.BINARY;
+        }
+        else if (deserializerClassName.equals(ColumnarSerDe.class.getName())) {
+            encoding = RcFileEncoding.TEXT;
+        }
+        else {
+            return Optional.empty();
+        }
+
+        // TODO: support complex types
+        if (!columnTypeSupported(columns)) {
+            return Optional.empty();
+        }
+
+        // only the projected columns are read from the row groups, and only the ones used are decompressed
+        List<Integer> readHiveColumnIndexes = columns.stream()
+                .filter(column -> column.getColumnType() == REGULAR)
+                .map(HiveColumnHandle::getHiveColumnIndex)
+                .collect(toList());
+        setReadColumns(configuration, readHiveColumnIndexes);
+
+        RCFile.Reader reader;
+        try {
+            reader = hdfsEnvironment.doAs(session.getUser(), () -> {
+                FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration);
+                return new RCFile.Reader(fileSystem, path, configuration);
+            });
+        }
+        catch (Exception e) {
+            if (e instanceof PrestoException) {
+                throw (PrestoException) e;
+            }
+            String message = format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, e.getMessage());
+            if (e.getClass().getSimpleName().equals("BlockMissingException")) {
+                throw new PrestoException(HIVE_MISSING_DATA, message, e);
+            }
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, message, e);
+        }
+
+        try {
+            return Optional.of(new RcFilePageSource(
+                    reader,
+                    encoding,
+                    start,
+                    length,
+                    partitionKeys,
+                    columns,
+                    hiveStorageTimeZone,
+                    typeManager,
+                    path));
+        }
+        catch (IOException | RuntimeException e) {
+            try {
+                reader.close();
+            }
+            catch (RuntimeException ignored) {
+            }
+            if (e instanceof PrestoException) {
+                throw (PrestoException) e;
+            }
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, e.getMessage()), e);
+        }
+    }
+
+    private static boolean columnTypeSupported(List<HiveColumnHandle> columns)
+    {
+        boolean regularColumnsSupported = columns.stream()
+                .filter(column -> column.getColumnType() == REGULAR)
+                .map(HiveColumnHandle::getHiveType)
+                .allMatch(RcFilePageSourceFactory::columnTypeSupported);
+
+        boolean partitionColumnsSupported = columns.stream()
+                .filter(HiveColumnHandle::isPartitionKey)
+                .map(HiveColumnHandle::getTypeSignature)
+                .map(TypeSignature::getBase)
+                .allMatch(SUPPORTED_PARTITION_TYPES::contains);
+
+        return regularColumnsSupported && partitionColumnsSupported;
+    }
+
+    private static boolean columnTypeSupported(HiveType hiveType)
+    {
+        return hiveType.getCategory() == PRIMITIVE &&
+                SUPPORTED_COLUMN_TYPES.contains(((PrimitiveTypeInfo) hiveType.getTypeInfo()).getPrimitiveCategory());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Decimals;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static com.facebook.presto.hive.HiveBooleanParser.isFalse;
+import static com.facebook.presto.hive.HiveBooleanParser.isTrue;
+import static com.facebook.presto.hive.HiveUtil.base64Decode;
+import static com.facebook.presto.hive.HiveUtil.parseHiveDate;
+import static com.facebook.presto.hive.HiveUtil.parseHiveTimestamp;
+import static com.facebook.presto.hive.NumberParser.parseDouble;
+import static com.facebook.presto.hive.NumberParser.parseLong;
+import static com.facebook.presto.spi.type.Decimals.rescale;
+import static com.facebook.presto.spi.type.Varchars.isVarcharType;
+import static com.facebook.presto.spi.type.Varchars.truncateToLength;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decodes columns written by {@code ColumnarSerDe}. Nulls are written as {@code \N},
+ * and an empty value is also a null for all types except strings.
+ */
+public class TextRcFileBlockDecoder
+        implements RcFileBlockDecoder
+{
+    private final Type type;
+    private final HiveType hiveType;
+    private final PrimitiveCategory category;
+    private final DateTimeZone hiveStorageTimeZone;
+
+    public TextRcFileBlockDecoder(Type type, HiveType hiveType, DateTimeZone hiveStorageTimeZone)
+    {
+        this.type = requireNonNull(type, "type is null");
+        this.hiveType = requireNonNull(hiveType, "hiveType is null");
+        this.category = ((PrimitiveTypeInfo) hiveType.getTypeInfo()).getPrimitiveCategory();
+        this.hiveStorageTimeZone = requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+    }
+
+    @Override
+    public Block decode(BytesRefArrayWritable values, int position, int length)
+            throws IOException
+    {
+        boolean emptyIsNull = category != PrimitiveCategory.STRING && category != PrimitiveCategory.VARCHAR && category != PrimitiveCategory.BINARY;
+
+        BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), length);
+        for (int i = position; i < position + length; i++) {
+            BytesRefWritable value = values.unCheckedGet(i);
+            int valueLength = value.getLength();
+            if (valueLength == 0 && emptyIsNull) {
+                blockBuilder.appendNull();
+                continue;
+            }
+            byte[] bytes = value.getData();
+            int offset = value.getStart();
+            if (valueLength == "\\N".length() && bytes[offset] == '\\' && bytes[offset + 1] == 'N') {
+                blockBuilder.appendNull();
+                continue;
+            }
+
+            switch (category) {
+                case BOOLEAN:
+                    if (isTrue(bytes, offset, valueLength)) {
+                        type.writeBoolean(blockBuilder, true);
+                    }
+                    else if (isFalse(bytes, offset, valueLength)) {
+                        type.writeBoolean(blockBuilder, false);
+                    }
+                    else {
+                        blockBuilder.appendNull();
+                    }
+                    break;
+                case BYTE:
+                case SHORT:
+                case INT:
+                case LONG:
+                    type.writeLong(blockBuilder, parseLong(bytes, offset, valueLength));
+                    break;
+                case DATE:
+                    type.writeLong(blockBuilder, parseHiveDate(new String(bytes, offset, valueLength, UTF_8)));
+                    break;
+                case TIMESTAMP:
+                    type.writeLong(blockBuilder, parseHiveTimestamp(new String(bytes, offset, valueLength, UTF_8), hiveStorageTimeZone));
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                    type.writeDouble(blockBuilder, parseDouble(bytes, offset, valueLength));
+                    break;
+                case STRING:
+                case VARCHAR:
+                    Slice slice = Slices.wrappedBuffer(bytes, offset, valueLength);
+                    if (isVarcharType(type)) {
+                        slice = truncateToLength(slice, type);
+                    }
+                    type.writeSlice(blockBuilder, slice);
+                    break;
+                case BINARY:
+                    // Hive base64 encodes binary data in the text encoding
+                    type.writeSlice(blockBuilder, base64Decode(Arrays.copyOfRange(bytes, offset, offset + valueLength)));
+                    break;
+                case DECIMAL:
+                    DecimalType decimalType = (DecimalType) type;
+                    BigDecimal decimal = rescale(new BigDecimal(new String(bytes, offset, valueLength, UTF_8)), decimalType);
+                    if (decimalType.isShort()) {
+                        type.writeLong(blockBuilder, decimal.unscaledValue().longValue());
+                    }
+                    else {
+                        type.writeSlice(blockBuilder, Decimals.encodeUnscaledValue(decimal.unscaledValue()));
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported Hive type: " + hiveType);
+            }
+        }
+        return blockBuilder.build();
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.text;
+
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Decimals;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.joda.time.DateTimeZone;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static com.facebook.presto.hive.HiveBooleanParser.isFalse;
+import static com.facebook.presto.hive.HiveBooleanParser.isTrue;
+import static com.facebook.presto.hive.HiveUtil.base64Decode;
+import static com.facebook.presto.hive.HiveUtil.parseHiveDate;
+import static com.facebook.presto.hive.HiveUtil.parseHiveTimestamp;
+import static com.facebook.presto.hive.NumberParser.parseDouble;
+import static com.facebook.presto.spi.type.Varchars.isVarcharType;
+import static com.facebook.presto.spi.type.Varchars.truncateToLength;
+import static java.math.RoundingMode.HALF_UP;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decodes the fields of one column of a {@code LazySimpleSerDe} text file. A field equal to the
+ * null sequence is null, as is a missing field (negative length) and an empty field of any type
+ * other than strings. When an escape character is configured, string values are unescaped.
+ * Like the lazy objects of Hive, a field that can not be parsed as the column type is null.
+ */
+public class TextBlockDecoder
+{
+    private final Type type;
+    private final HiveType hiveType;
+    private final PrimitiveCategory category;
+    private final byte[] nullSequence;
+    private final boolean escaped;
+    private final byte escapeByte;
+    private final DateTimeZone hiveStorageTimeZone;
+
+    private byte[] unescapeBuffer = new byte[0];
+
+    public TextBlockDecoder(Type type, HiveType hiveType, byte[] nullSequence, boolean escaped, byte escapeByte, DateTimeZone hiveStorageTimeZone)
+    {
+        this.type = requireNonNull(type, "type is null");
+        this.hiveType = requireNonNull(hiveType, "hiveType is null");
+        this.category = ((PrimitiveTypeInfo) hiveType.getTypeInfo()).getPrimitiveCategory();
+        this.nullSequence = requireNonNull(nullSequence, "nullSequence is null").clone();
+        this.escaped = escaped;
+        this.escapeByte = escapeByte;
+        this.hiveStorageTimeZone = requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+    }
+
+    public Block decode(byte[] data, int[] offsets, int[] lengths, int positionCount)
+    {
+        boolean emptyIsNull = category != PrimitiveCategory.STRING && category != PrimitiveCategory.VARCHAR && category != PrimitiveCategory.BINARY;
+
+        BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), positionCount);
+        for (int position = 0; position < positionCount; position++) {
+            int offset = offsets[position];
+            int length = lengths[position];
+            if (length < 0 || (length == 0 && emptyIsNull) || isNullSequence(data, offset, length)) {
+                blockBuilder.appendNull();
+                continue;
+            }
+
+            switch (category) {
+                case BOOLEAN:
+                    if (isTrue(data, offset, length)) {
+                        type.writeBoolean(blockBuilder, true);
+                    }
+                    else if (isFalse(data, offset, length)) {
+                        type.writeBoolean(blockBuilder, false);
+                    }
+                    else {
+                        blockBuilder.appendNull();
+                    }
+                    break;
+                case BYTE:
+                    writeLong(blockBuilder, data, offset, length, Byte.MIN_VALUE, Byte.MAX_VALUE);
+                    break;
+                case SHORT:
+                    writeLong(blockBuilder, data, offset, length, Short.MIN_VALUE, Short.MAX_VALUE);
+                    break;
+                case INT:
+                    writeLong(blockBuilder, data, offset, length, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                    break;
+                case LONG:
+                    writeLong(blockBuilder, data, offset, length, Long.MIN_VALUE, Long.MAX_VALUE);
+                    break;
+                case DATE:
+                    try {
+                        type.writeLong(blockBuilder, parseHiveDate(new String(data, offset, length, UTF_8)));
+                    }
+                    catch (IllegalArgumentException e) {
+                        blockBuilder.appendNull();
+                    }
+                    break;
+                case TIMESTAMP:
+                    try {
+                        type.writeLong(blockBuilder, parseHiveTimestamp(new String(data, offset, length, UTF_8), hiveStorageTimeZone));
+                    }
+                    catch (IllegalArgumentException e) {
+                        blockBuilder.appendNull();
+                    }
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                    try {
+                        type.writeDouble(blockBuilder, parseDouble(data, offset, length));
+                    }
+                    catch (PrestoException e) {
+                        // the parser only fails for malformed numbers
+                        blockBuilder.appendNull();
+                    }
+                    break;
+                case STRING:
+                case VARCHAR:
+                    Slice slice;
+                    if (escaped) {
+                        int unescapedLength = unescape(data, offset, length);
+                        slice = Slices.wrappedBuffer(unescapeBuffer, 0, unescapedLength);
+                    }
+                    else {
+                        slice = Slices.wrappedBuffer(data, offset, length);
+                    }
+                    if (isVarcharType(type)) {
+                        slice = truncateToLength(slice, type);
+                    }
+                    type.writeSlice(blockBuilder, slice);
+                    break;
+                case BINARY:
+                    // Hive base64 encodes binary data in the text encoding
+                    type.writeSlice(blockBuilder, base64Decode(Arrays.copyOfRange(data, offset, offset + length)));
+                    break;
+                case DECIMAL:
+                    DecimalType decimalType = (DecimalType) type;
+                    BigDecimal decimal = parseDecimal(data, offset, length, decimalType);
+                    if (decimal == null) {
+                        blockBuilder.appendNull();
+                    }
+                    else if (decimalType.isShort()) {
+                        type.writeLong(blockBuilder, decimal.unscaledValue().longValue());
+                    }
+                    else {
+                        type.writeSlice(blockBuilder, Decimals.encodeUnscaledValue(decimal.unscaledValue()));
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported Hive type: " + hiveType);
+            }
+        }
+        return blockBuilder.build();
+    }
+
+    /**
+     * Writes the field if it is an integer within the range of the column type, otherwise writes null, like
+     * {@code LazyByte}, {@code LazyShort}, {@code LazyInteger} and {@code LazyLong}. As in Hive, a fractional
+     * part is truncated.
+     */
+    private void writeLong(BlockBuilder blockBuilder, byte[] data, int offset, int length, long minValue, long maxValue)
+    {
+        int limit = offset + length;
+        int position = offset;
+        boolean negative = data[position] == '-';
+        if (negative || data[position] == '+') {
+            position++;
+        }
+
+        // accumulate negatively, so the minimum value does not overflow
+        long limitValue = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limitValue / 10;
+        long value = 0;
+        int digits = 0;
+        for (; position < limit && data[position] != '.'; position++) {
+            int digit = data[position] - '0';
+            if (digit < 0 || digit > 9 || value < multiplyLimit) {
+                blockBuilder.appendNull();
+                return;
+            }
+            value *= 10;
+            if (value < limitValue + digit) {
+                blockBuilder.appendNull();
+                return;
+            }
+            value -= digit;
+            digits++;
+        }
+        if (digits == 0) {
+            blockBuilder.appendNull();
+            return;
+        }
+
+        // skip the fractional part, which must only contain digits
+        for (position++; position < limit; position++) {
+            if (data[position] < '0' || data[position] > '9') {
+                blockBuilder.appendNull();
+                return;
+            }
+        }
+
+        value = negative ? value : -value;
+        if (value < minValue || value > maxValue) {
+            blockBuilder.appendNull();
+            return;
+        }
+        type.writeLong(blockBuilder, value);
+    }
+
+    /**
+     * Parses the field and rounds it to the scale of the column like {@code LazyHiveDecimal}.
+     *
+     * @return the value, or null if the field is not a number or does not fit into the column precision
+     */
+    private static BigDecimal parseDecimal(byte[] data, int offset, int length, DecimalType decimalType)
+    {
+        BigDecimal decimal;
+        try {
+            decimal = new BigDecimal(new String(data, offset, length, UTF_8)).setScale(decimalType.getScale(), HALF_UP);
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+        if (decimal.precision() > decimalType.getPrecision()) {
+            return null;
+        }
+        return decimal;
+    }
+
+    private boolean isNullSequence(byte[] data, int offset, int length)
+    {
+        if (length != nullSequence.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[offset + i] != nullSequence[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the value into the unescape buffer, replacing each escape character and the
+     * byte following it with that byte, like {@code LazyUtils.copyAndEscapeStringDataToText}.
+     */
+    private int unescape(byte[] data, int offset, int length)
+    {
+        if (unescapeBuffer.length < length) {
+            unescapeBuffer = new byte[length];
+        }
+
+        int unescapedLength = 0;
+        int limit = offset + length;
+        for (int i = offset; i < limit; i++) {
+            byte value = data[i];
+            if (value == escapeByte && i < limit - 1) {
+                i++;
+                value = data[i];
+            }
+            unescapeBuffer[unescapedLength] = value;
+            unescapedLength++;
+        }
+        return unescapedLength;
+    }
+}
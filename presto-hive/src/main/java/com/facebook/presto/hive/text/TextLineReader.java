@@ -0,0 +1,230 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.text;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.Decompressor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the lines of a text file split in batches. Lines end with {@code \n}, {@code \r} or
+ * {@code \r\n}, like in Hadoop's {@code LineReader}. A split that does not start at the beginning
+ * of the file skips its first line, and reads every line that starts at or before its end, so
+ * each line is read by exactly one split, as with {@code LineRecordReader}.
+ */
+class TextLineReader
+        implements Closeable
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FSDataInputStream fileInput;
+    private final InputStream input;
+    private final Optional<Decompressor> decompressor;
+    private final long start;
+    private final long end;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPosition;
+    private int bufferLength;
+
+    // position in the (decompressed) stream of the next unread byte
+    private long position;
+    private boolean finished;
+    private boolean skipByteOrderMark;
+
+    private byte[] lineData = new byte[BUFFER_SIZE];
+    private int lineDataSize;
+    private int[] lineOffsets = new int[0];
+    private int[] lineLengths = new int[0];
+
+    /**
+     * @param fileInput the file being read, positioned at {@code start}
+     * @param input the stream lines are read from, which is either the file itself or a decompressor stream on top of it
+     * @param end the last position in the stream a line may start at
+     */
+    public TextLineReader(FSDataInputStream fileInput, InputStream input, Optional<Decompressor> decompressor, long start, long end)
+            throws IOException
+    {
+        this.fileInput = requireNonNull(fileInput, "fileInput is null");
+        this.input = requireNonNull(input, "input is null");
+        this.decompressor = requireNonNull(decompressor, "decompressor is null");
+        checkArgument(start >= 0, "start is negative");
+        checkArgument(end >= start, "end is before start");
+        this.start = start;
+        this.end = end;
+        this.position = start;
+
+        if (start == 0) {
+            skipByteOrderMark = true;
+        }
+        else {
+            // the partial first line belongs to the previous split
+            if (!readLine(false)) {
+                finished = true;
+            }
+        }
+    }
+
+    /**
+     * Reads up to {@code maxLines} lines, replacing the previously read batch.
+     *
+     * @return the number of lines read, or zero if the split is finished
+     */
+    public int readLines(int maxLines)
+            throws IOException
+    {
+        if (lineOffsets.length < maxLines) {
+            lineOffsets = new int[maxLines];
+            lineLengths = new int[maxLines];
+        }
+
+        lineDataSize = 0;
+        int lineCount = 0;
+        while (lineCount < maxLines && !finished) {
+            if (position > end) {
+                finished = true;
+                break;
+            }
+
+            int lineStart = lineDataSize;
+            if (!readLine(true)) {
+                finished = true;
+                break;
+            }
+            lineOffsets[lineCount] = lineStart;
+            lineLengths[lineCount] = lineDataSize - lineStart;
+
+            if (skipByteOrderMark) {
+                skipByteOrderMark = false;
+                if (lineLengths[lineCount] >= 3 &&
+                        lineData[lineStart] == (byte) 0xEF &&
+                        lineData[lineStart + 1] == (byte) 0xBB &&
+                        lineData[lineStart + 2] == (byte) 0xBF) {
+                    lineOffsets[lineCount] += 3;
+                    lineLengths[lineCount] -= 3;
+                }
+            }
+            lineCount++;
+        }
+        return lineCount;
+    }
+
+    public byte[] getLineData()
+    {
+        return lineData;
+    }
+
+    public int getLineOffset(int line)
+    {
+        return lineOffsets[line];
+    }
+
+    public int getLineLength(int line)
+    {
+        return lineLengths[line];
+    }
+
+    /**
+     * Returns the number of bytes of the file read so far, which differs from the
+     * position in the stream when the file is compressed.
+     */
+    public long getCompletedBytes()
+            throws IOException
+    {
+        return fileInput.getPos() - start;
+    }
+
+    /**
+     * Reads the next line and its terminator, appending the line to the line data when {@code keep} is set.
+     *
+     * @return false if the stream ended before the line
+     */
+    private boolean readLine(boolean keep)
+            throws IOException
+    {
+        boolean consumed = false;
+        while (true) {
+            if (bufferPosition == bufferLength && !fillBuffer()) {
+                return consumed;
+            }
+            consumed = true;
+
+            int lineStart = bufferPosition;
+            int index = lineStart;
+            while (index < bufferLength && buffer[index] != '\n' && buffer[index] != '\r') {
+                index++;
+            }
+
+            if (keep) {
+                appendLineData(lineStart, index - lineStart);
+            }
+            position += index - lineStart;
+            bufferPosition = index;
+
+            if (index < bufferLength) {
+                byte terminator = buffer[index];
+                bufferPosition++;
+                position++;
+
+                // the line feed of a \r\n pair may be in the next buffer
+                if (terminator == '\r' && (bufferPosition < bufferLength || fillBuffer()) && buffer[bufferPosition] == '\n') {
+                    bufferPosition++;
+                    position++;
+                }
+                return true;
+            }
+        }
+    }
+
+    private boolean fillBuffer()
+            throws IOException
+    {
+        bufferPosition = 0;
+        bufferLength = max(input.read(buffer, 0, buffer.length), 0);
+        return bufferLength > 0;
+    }
+
+    private void appendLineData(int offset, int length)
+    {
+        int requiredSize = lineDataSize + length;
+        if (requiredSize > lineData.length) {
+            lineData = Arrays.copyOf(lineData, max(requiredSize, (int) min(lineData.length * 2L, Integer.MAX_VALUE)));
+        }
+        System.arraycopy(buffer, offset, lineData, lineDataSize, length);
+        lineDataSize = requiredSize;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        try {
+            input.close();
+        }
+        finally {
+            decompressor.ifPresent(CodecPool::returnDecompressor);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.text;
+
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.block.LazyBlockLoader;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeManager;
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
+import static com.facebook.presto.hive.HiveUtil.createPrefilledBlock;
+import static com.facebook.presto.hive.HiveUtil.getPrefilledColumnValue;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Maps.uniqueIndex;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads delimited text files written by {@code LazySimpleSerDe} directly into blocks. Each page
+ * is a batch of lines: the lines are split into fields in a single pass that stops after the
+ * last projected field, and the fields of a column are only decoded when its lazy block is loaded.
+ */
+public class TextPageSource
+        implements ConnectorPageSource
+{
+    public static final int MAX_BATCH_SIZE = 1024;
+
+    private final TextLineReader lineReader;
+    private final long totalBytes;
+    private final byte fieldSeparator;
+    private final boolean escaped;
+    private final byte escapeByte;
+
+    private final List<String> columnNames;
+    private final List<Type> types;
+
+    private final Block[] constantBlocks;
+    private final TextBlockDecoder[] decoders;
+
+    // channel reading each field of the line, or -1 if the field is not projected
+    private final int[] fieldChannels;
+    private final int[][] fieldOffsets;
+    private final int[][] fieldLengths;
+
+    private int batchId;
+    private boolean closed;
+    private long completedBytes;
+
+    public TextPageSource(
+            TextLineReader lineReader,
+            long length,
+            byte fieldSeparator,
+            byte[] nullSequence,
+            boolean escaped,
+            byte escapeByte,
+            List<HivePartitionKey> partitionKeys,
+            List<HiveColumnHandle> columns,
+            DateTimeZone hiveStorageTimeZone,
+            TypeManager typeManager,
+            Path path)
+    {
+        requireNonNull(path, "path is null");
+        this.lineReader = requireNonNull(lineReader, "lineReader is null");
+        checkArgument(length >= 0, "length is negative");
+        this.totalBytes = length;
+        this.fieldSeparator = fieldSeparator;
+        requireNonNull(nullSequence, "nullSequence is null");
+        this.escaped = escaped;
+        this.escapeByte = escapeByte;
+
+        Map<String, HivePartitionKey> partitionKeysByName = uniqueIndex(requireNonNull(partitionKeys, "partitionKeys is null"), HivePartitionKey::getName);
+
+        int size = requireNonNull(columns, "columns is null").size();
+
+        this.constantBlocks = new Block[size];
+        this.decoders = new TextBlockDecoder[size];
+        this.fieldOffsets = new int[size][];
+        this.fieldLengths = new int[size][];
+
+        int maxFieldIndex = columns.stream()
+                .filter(column -> !column.isPartitionKey() && !column.isHidden())
+                .mapToInt(HiveColumnHandle::getHiveColumnIndex)
+                .max()
+                .orElse(-1);
+        this.fieldChannels = new int[maxFieldIndex + 1];
+        Arrays.fill(fieldChannels, -1);
+
+        ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
+        ImmutableList.Builder<Type> typesBuilder = ImmutableList.builder();
+        for (int columnIndex = 0; columnIndex < columns.size(); columnIndex++) {
+            HiveColumnHandle column = columns.get(columnIndex);
+
+            String name = column.getName();
+            Type type = typeManager.getType(column.getTypeSignature());
+
+            namesBuilder.add(name);
+            typesBuilder.add(type);
+
+            if (column.isPartitionKey() || column.isHidden()) {
+                HivePartitionKey partitionKey = partitionKeysByName.get(name);
+                String columnValue = getPrefilledColumnValue(column, partitionKey, path);
+                constantBlocks[columnIndex] = createPrefilledBlock(type, name, columnValue, MAX_BATCH_SIZE, hiveStorageTimeZone);
+            }
+            else {
+                int fieldIndex = column.getHiveColumnIndex();
+                checkArgument(fieldChannels[fieldIndex] == -1, "Column %s is projected more than once", name);
+                fieldChannels[fieldIndex] = columnIndex;
+                fieldOffsets[columnIndex] = new int[MAX_BATCH_SIZE];
+                fieldLengths[columnIndex] = new int[MAX_BATCH_SIZE];
+                decoders[columnIndex] = new TextBlockDecoder(type, column.getHiveType(), nullSequence, escaped, escapeByte, hiveStorageTimeZone);
+            }
+        }
+        types = typesBuilder.build();
+        columnNames = namesBuilder.build();
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        if (!closed) {
+            updateCompletedBytes();
+        }
+        return completedBytes;
+    }
+
+    private void updateCompletedBytes()
+    {
+        try {
+            completedBytes = min(totalBytes, max(completedBytes, lineReader.getCompletedBytes()));
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return 0;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        try {
+            batchId++;
+            if (closed) {
+                return null;
+            }
+
+            int batchSize = lineReader.readLines(MAX_BATCH_SIZE);
+            if (batchSize == 0) {
+                close();
+                return null;
+            }
+
+            byte[] lineData = lineReader.getLineData();
+            for (int position = 0; position < batchSize; position++) {
+                splitFields(lineData, lineReader.getLineOffset(position), lineReader.getLineLength(position), position);
+            }
+
+            Block[] blocks = new Block[constantBlocks.length];
+            for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
+                if (constantBlocks[fieldId] != null) {
+                    blocks[fieldId] = constantBlocks[fieldId].getRegion(0, batchSize);
+                }
+                else {
+                    blocks[fieldId] = new LazyBlock(batchSize, new TextBlockLoader(fieldId, batchSize));
+                }
+            }
+            return new Page(batchSize, blocks);
+        }
+        catch (PrestoException e) {
+            closeWithSuppression(e);
+            throw e;
+        }
+        catch (IOException | RuntimeException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_CURSOR_ERROR, e);
+        }
+    }
+
+    /**
+     * Records the offset and length of each projected field of the line. Fields missing
+     * from the line, which happens when columns were added to the table after the file
+     * was written, get a negative length.
+     */
+    private void splitFields(byte[] data, int lineOffset, int lineLength, int position)
+    {
+        int lineEnd = lineOffset + lineLength;
+        int fieldStart = lineOffset;
+        int fieldIndex = 0;
+        while (fieldIndex < fieldChannels.length) {
+            int fieldEnd = fieldStart;
+            if (escaped) {
+                while (fieldEnd < lineEnd && data[fieldEnd] != fieldSeparator) {
+                    // an escaped separator is part of the value
+                    if (data[fieldEnd] == escapeByte && fieldEnd + 1 < lineEnd) {
+                        fieldEnd++;
+                    }
+                    fieldEnd++;
+                }
+            }
+            else {
+                while (fieldEnd < lineEnd && data[fieldEnd] != fieldSeparator) {
+                    fieldEnd++;
+                }
+            }
+
+            int channel = fieldChannels[fieldIndex];
+            if (channel >= 0) {
+                fieldOffsets[channel][position] = fieldStart;
+                fieldLengths[channel][position] = fieldEnd - fieldStart;
+            }
+            fieldIndex++;
+
+            if (fieldEnd == lineEnd) {
+                break;
+            }
+            fieldStart = fieldEnd + 1;
+        }
+
+        for (; fieldIndex < fieldChannels.length; fieldIndex++) {
+            int channel = fieldChannels[fieldIndex];
+            if (channel >= 0) {
+                fieldLengths[channel][position] = -1;
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        updateCompletedBytes();
+        try {
+            lineReader.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_CURSOR_ERROR, e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("columnNames", columnNames)
+                .add("types", types)
+                .toString();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return 0;
+    }
+
+    protected void closeWithSuppression(Throwable throwable)
+    {
+        requireNonNull(throwable, "throwable is null");
+        try {
+            close();
+        }
+        catch (RuntimeException e) {
+            // Self-suppression not permitted
+            if (throwable != e) {
+                throwable.addSuppressed(e);
+            }
+        }
+    }
+
+    private final class TextBlockLoader
+            implements LazyBlockLoader<LazyBlock>
+    {
+        private final int expectedBatchId = batchId;
+        private final int fieldId;
+        private final int positionCount;
+        private boolean loaded;
+
+        public TextBlockLoader(int fieldId, int positionCount)
+        {
+            this.fieldId = fieldId;
+            this.positionCount = positionCount;
+        }
+
+        @Override
+        public final void load(LazyBlock lazyBlock)
+        {
+            if (loaded) {
+                return;
+            }
+
+            checkState(batchId == expectedBatchId);
+
+            lazyBlock.setBlock(decoders[fieldId].decode(lineReader.getLineData(), fieldOffsets[fieldId], fieldLengths[fieldId], positionCount));
+
+            loaded = true;
+        }
+    }
+}
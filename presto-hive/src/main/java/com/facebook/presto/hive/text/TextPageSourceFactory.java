@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.text;
+
+import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.TypeManager;
+import com.facebook.presto.spi.type.TypeSignature;
+import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.io.compress.SplittableCompressionCodec;
+import org.apache.hadoop.mapred.TextInputFormat;
+import org.joda.time.DateTimeZone;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
+import static com.facebook.presto.hive.HiveSessionProperties.isTextOptimizedReaderEnabled;
+import static com.facebook.presto.hive.HiveUtil.getDeserializerClassName;
+import static com.facebook.presto.hive.HiveUtil.getInputFormatName;
+import static com.facebook.presto.spi.type.StandardTypes.BIGINT;
+import static com.facebook.presto.spi.type.StandardTypes.BOOLEAN;
+import static com.facebook.presto.spi.type.StandardTypes.DATE;
+import static com.facebook.presto.spi.type.StandardTypes.DECIMAL;
+import static com.facebook.presto.spi.type.StandardTypes.DOUBLE;
+import static com.facebook.presto.spi.type.StandardTypes.INTEGER;
+import static com.facebook.presto.spi.type.StandardTypes.SMALLINT;
+import static com.facebook.presto.spi.type.StandardTypes.TIMESTAMP;
+import static com.facebook.presto.spi.type.StandardTypes.TINYINT;
+import static com.facebook.presto.spi.type.StandardTypes.VARCHAR;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static org.apache.hadoop.hive.serde.serdeConstants.ESCAPE_CHAR;
+import static org.apache.hadoop.hive.serde.serdeConstants.FIELD_DELIM;
+import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_ENCODING;
+import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_FORMAT;
+import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_LAST_COLUMN_TAKES_REST;
+import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_NULL_FORMAT;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category.PRIMITIVE;
+
+public class TextPageSourceFactory
+        implements HivePageSourceFactory
+{
+    private static final Set<PrimitiveCategory> SUPPORTED_COLUMN_TYPES = ImmutableSet.of(
+            PrimitiveCategory.BOOLEAN,
+            PrimitiveCategory.BYTE,
+            PrimitiveCategory.SHORT,
+            PrimitiveCategory.INT,
+            PrimitiveCategory.LONG,
+            PrimitiveCategory.FLOAT,
+            PrimitiveCategory.DOUBLE,
+            PrimitiveCategory.STRING,
+            PrimitiveCategory.VARCHAR,
+            PrimitiveCategory.BINARY,
+            PrimitiveCategory.DATE,
+            PrimitiveCategory.TIMESTAMP,
+            PrimitiveCategory.DECIMAL);
+    private static final Set<String> SUPPORTED_PARTITION_TYPES = ImmutableSet.of(TINYINT, SMALLINT, INTEGER, BIGINT, BOOLEAN, DOUBLE, TIMESTAMP, VARCHAR, DATE, DECIMAL);
+
+    private static final byte DEFAULT_FIELD_SEPARATOR = 1;
+    private static final byte DEFAULT_ESCAPE_BYTE = '\\';
+    private static final String DEFAULT_NULL_SEQUENCE = "\\N";
+
+    private final TypeManager typeManager;
+    private final HdfsEnvironment hdfsEnvironment;
+
+    @Inject
+    public TextPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment)
+    {
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+    }
+
+    @Override
+    public Optional<? extends ConnectorPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            Properties schema,
+            List<HiveColumnHandle> columns,
+            List<HivePartitionKey> partitionKeys,
+            TupleDomain<HiveColumnHandle> effectivePredicate,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        if (!isTextOptimizedReaderEnabled(session)) {
+            return Optional.empty();
+        }
+
+        if (!getDeserializerClassName(schema).equals(LazySimpleSerDe.class.getName()) ||
+                !getInputFormatName(schema).equals(TextInputFormat.class.getName())) {
+            return Optional.empty();
+        }
+
+        // TODO: support complex types
+        if (!columnTypeSupported(columns) || !serdePropertiesSupported(schema)) {
+            return Optional.empty();
+        }
+
+        // splittable codecs locate their own block boundaries, and files
+        // compressed with any other codec are always read as a single split
+        CompressionCodec codec = new CompressionCodecFactory(configuration).getCodec(path);
+        if (codec != null && (codec instanceof SplittableCompressionCodec || start != 0)) {
+            return Optional.empty();
+        }
+
+        byte fieldSeparator = getByte(schema.getProperty(FIELD_DELIM, schema.getProperty(SERIALIZATION_FORMAT)), DEFAULT_FIELD_SEPARATOR);
+        String escapeProperty = schema.getProperty(ESCAPE_CHAR);
+        boolean escaped = escapeProperty != null;
+        byte escapeByte = getByte(escapeProperty, DEFAULT_ESCAPE_BYTE);
+        byte[] nullSequence = schema.getProperty(SERIALIZATION_NULL_FORMAT, DEFAULT_NULL_SEQUENCE).getBytes(UTF_8);
+
+        FSDataInputStream fileInput;
+        try {
+            fileInput = hdfsEnvironment.doAs(session.getUser(), () -> {
+                FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration);
+                return fileSystem.open(path);
+            });
+        }
+        catch (Exception e) {
+            if (e instanceof PrestoException) {
+                throw (PrestoException) e;
+            }
+            String message = format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, e.getMessage());
+            if (e.getClass().getSimpleName().equals("BlockMissingException")) {
+                throw new PrestoException(HIVE_MISSING_DATA, message, e);
+            }
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, message, e);
+        }
+
+        try {
+            TextLineReader lineReader;
+            if (codec == null) {
+                fileInput.seek(start);
+                lineReader = new TextLineReader(fileInput, fileInput, Optional.empty(), start, start + length);
+            }
+            else {
+                Decompressor decompressor = CodecPool.getDecompressor(codec);
+                InputStream input = codec.createInputStream(fileInput, decompressor);
+                lineReader = new TextLineReader(fileInput, input, Optional.ofNullable(decompressor), start, Long.MAX_VALUE);
+            }
+
+            return Optional.of(new TextPageSource(
+                    lineReader,
+                    length,
+                    fieldSeparator,
+                    nullSequence,
+                    escaped,
+                    escapeByte,
+                    partitionKeys,
+                    columns,
+                    hiveStorageTimeZone,
+                    typeManager,
+                    path));
+        }
+        catch (IOException | RuntimeException e) {
+            try {
+                fileInput.close();
+            }
+            catch (IOException ignored) {
+            }
+            if (e instanceof PrestoException) {
+                throw (PrestoException) e;
+            }
+            String message = format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, e.getMessage());
+            if (e.getClass().getSimpleName().equals("BlockMissingException")) {
+                throw new PrestoException(HIVE_MISSING_DATA, message, e);
+            }
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, message, e);
+        }
+    }
+
+    /**
+     * Parses a separator the way {@code LazySerDeParameters} does: a number is the
+     * value of the byte, and anything else is the first character of the property.
+     */
+    private static byte getByte(String value, byte defaultValue)
+    {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Byte.parseByte(value);
+        }
+        catch (NumberFormatException e) {
+            return (byte) value.charAt(0);
+        }
+    }
+
+    private static boolean serdePropertiesSupported(Properties schema)
+    {
+        if (Boolean.parseBoolean(schema.getProperty(SERIALIZATION_LAST_COLUMN_TAKES_REST))) {
+            return false;
+        }
+        String encoding = schema.getProperty(SERIALIZATION_ENCODING);
+        return encoding == null || encoding.equalsIgnoreCase("UTF-8") || encoding.equalsIgnoreCase("UTF8");
+    }
+
+    private static boolean columnTypeSupported(List<HiveColumnHandle> columns)
+    {
+        boolean regularColumnsSupported = columns.stream()
+                .filter(column -> column.getColumnType() == REGULAR)
+                .map(HiveColumnHandle::getHiveType)
+                .allMatch(TextPageSourceFactory::columnTypeSupported);
+
+        boolean partitionColumnsSupported = columns.stream()
+                .filter(HiveColumnHandle::isPartitionKey)
+                .map(HiveColumnHandle::getTypeSignature)
+                .map(TypeSignature::getBase)
+                .allMatch(SUPPORTED_PARTITION_TYPES::contains);
+
+        return regularColumnsSupported && partitionColumnsSupported;
+    }
+
+    private static boolean columnTypeSupported(HiveType hiveType)
+    {
+        return hiveType.getCategory() == PRIMITIVE &&
+                SUPPORTED_COLUMN_TYPES.contains(((PrimitiveTypeInfo) hiveType.getTypeInfo()).getPrimitiveCategory());
+    }
+}
@@ -17,6 +17,7 @@ import com.facebook.presto.hive.DirectoryLister;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePartitionKey;
 import com.facebook.presto.hive.NamenodeStats;
+import com.facebook.presto.hive.metastore.Table;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.google.common.collect.AbstractIterator;
@@ -40,6 +41,7 @@ public class HiveFileIterator
         extends AbstractIterator<LocatedFileStatus>
 {
     private final FileSystem fileSystem;
+    private final Table table;
     private final DirectoryLister directoryLister;
     private final NamenodeStats namenodeStats;
     private final Path path;
@@ -54,6 +56,7 @@ public class HiveFileIterator
     public HiveFileIterator(
             Path path,
             FileSystem fileSystem,
+            Table table,
             DirectoryLister directoryLister,
             NamenodeStats namenodeStats,
             String partitionName,
@@ -69,6 +72,7 @@ public class HiveFileIterator
         this.effectivePredicate = requireNonNull(effectivePredicate, "effectivePredicate is null");
         this.path = requireNonNull(path, "path is null");
         this.fileSystem = requireNonNull(fileSystem, "fileSystem is null");
+        this.table = requireNonNull(table, "table is null");
         this.directoryLister = requireNonNull(directoryLister, "directoryLister is null");
         this.namenodeStats = requireNonNull(namenodeStats, "namenodeStats is null");
     }
@@ -105,7 +109,7 @@ public class HiveFileIterator
             throws IOException
     {
         try (TimeStat.BlockTimer ignored = namenodeStats.getListLocatedStatus().time()) {
-            return directoryLister.list(fileSystem, path);
+            return directoryLister.list(fileSystem, table, path);
         }
         catch (IOException | RuntimeException e) {
             namenodeStats.getListLocatedStatus().recordException(e);
@@ -130,6 +134,11 @@ public class HiveFileIterator
         return fileSystem;
     }
 
+    public Table getTable()
+    {
+        return table;
+    }
+
     public DirectoryLister getDirectoryLister()
     {
         return directoryLister;
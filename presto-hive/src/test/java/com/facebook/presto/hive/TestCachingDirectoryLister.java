@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.hive.metastore.Table;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.hive.HiveStorageFormat.ORC;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.apache.hadoop.hive.metastore.TableType.MANAGED_TABLE;
+import static org.testng.Assert.assertEquals;
+
+public class TestCachingDirectoryLister
+{
+    private static final Path PATH = new Path("/tmp/table/ds=2016-01-01");
+
+    @Test
+    public void testCachedTable()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, MINUTES), 1000, ImmutableList.of("default.cached"));
+        Table table = table("cached");
+
+        // an incomplete listing is not cached
+        lister.list(null, table, PATH).next();
+        assertEquals(lister.getSize(), 0);
+
+        assertEquals(listFiles(lister, table), 2);
+        assertEquals(listFiles(lister, table), 2);
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getSize(), 1);
+        assertEquals(lister.getFileStatusCount(), 2);
+        assertEquals(lister.getHitCount(), 1);
+
+        lister.flushCache();
+        assertEquals(listFiles(lister, table), 2);
+        assertEquals(delegate.getListCount(), 3);
+    }
+
+    @Test
+    public void testNotCachedTable()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, MINUTES), 1000, ImmutableList.of("default.cached"));
+        Table table = table("other");
+
+        assertEquals(listFiles(lister, table), 2);
+        assertEquals(listFiles(lister, table), 2);
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getSize(), 0);
+    }
+
+    @Test
+    public void testAllTables()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, MINUTES), 1000, ImmutableList.of("*"));
+        Table table = table("other");
+
+        assertEquals(listFiles(lister, table), 2);
+        assertEquals(listFiles(lister, table), 2);
+        assertEquals(delegate.getListCount(), 1);
+    }
+
+    private static int listFiles(DirectoryLister lister, Table table)
+            throws IOException
+    {
+        RemoteIterator<LocatedFileStatus> iterator = lister.list(null, table, PATH);
+        int files = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            files++;
+        }
+        return files;
+    }
+
+    private static Table table(String tableName)
+    {
+        Table.Builder tableBuilder = Table.builder()
+                .setDatabaseName("default")
+                .setTableName(tableName)
+                .setOwner("owner")
+                .setTableType(MANAGED_TABLE.name())
+                .setDataColumns(ImmutableList.of())
+                .setPartitionColumns(ImmutableList.of())
+                .setParameters(ImmutableMap.of());
+        tableBuilder.getStorageBuilder()
+                .setLocation("/tmp/table")
+                .setStorageFormat(StorageFormat.create(ORC.getSerDe(), ORC.getInputFormat(), ORC.getOutputFormat()));
+        return tableBuilder.build();
+    }
+
+    private static class CountingDirectoryLister
+            implements DirectoryLister
+    {
+        private final AtomicInteger listCount = new AtomicInteger();
+
+        @Override
+        public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Table table, Path path)
+        {
+            listCount.incrementAndGet();
+            List<LocatedFileStatus> files = ImmutableList.of(file(path, "a"), file(path, "b"));
+            return new RemoteIterator<LocatedFileStatus>()
+            {
+                private int position;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return position < files.size();
+                }
+
+                @Override
+                public LocatedFileStatus next()
+                {
+                    return files.get(position++);
+                }
+            };
+        }
+
+        public int getListCount()
+        {
+            return listCount.get();
+        }
+
+        private static LocatedFileStatus file(Path directory, String name)
+        {
+            return new LocatedFileStatus(new FileStatus(10, false, 1, 64, 0, new Path(directory, name)), new BlockLocation[0]);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static org.testng.Assert.assertEquals;
+
+public class TestFileMetadataCache
+{
+    @Test
+    public void testCacheKey()
+            throws Exception
+    {
+        FileMetadataCache cache = new FileMetadataCache(new DataSize(1, KILOBYTE));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(get(cache, "orc", fileStatus("/a", 10, 1), loads), "/a");
+        assertEquals(get(cache, "orc", fileStatus("/a", 10, 1), loads), "/a");
+        assertEquals(loads.get(), 1);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+
+        // a rewritten file or a different format must not reuse the entry
+        get(cache, "orc", fileStatus("/a", 11, 1), loads);
+        get(cache, "orc", fileStatus("/a", 10, 2), loads);
+        get(cache, "parquet", fileStatus("/a", 10, 1), loads);
+        get(cache, "orc", fileStatus("/b", 10, 1), loads);
+        assertEquals(loads.get(), 5);
+        assertEquals(cache.getSize(), 5);
+        assertEquals(cache.getWeight(), 500);
+
+        cache.flushCache();
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testEviction()
+            throws Exception
+    {
+        FileMetadataCache cache = new FileMetadataCache(new DataSize(1, KILOBYTE));
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            get(cache, "orc", fileStatus("/" + i, 10, 1), loads);
+        }
+        assertEquals(loads.get(), 100);
+        assertEquals(cache.getEvictionCount() > 0, true);
+        assertEquals(cache.getWeight() <= 1024, true);
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        FileMetadataCache cache = FileMetadataCache.disabled();
+        AtomicInteger loads = new AtomicInteger();
+        get(cache, "orc", fileStatus("/a", 10, 1), loads);
+        get(cache, "orc", fileStatus("/a", 10, 1), loads);
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "test failure")
+    public void testLoadFailure()
+            throws Exception
+    {
+        FileMetadataCache cache = new FileMetadataCache(new DataSize(1, KILOBYTE));
+        cache.get("orc", fileStatus("/a", 10, 1), String.class, () -> {
+            throw new IOException("test failure");
+        }, value -> 100);
+    }
+
+    private static String get(FileMetadataCache cache, String format, FileStatus fileStatus, AtomicInteger loads)
+            throws IOException
+    {
+        return cache.get(format, fileStatus, String.class, () -> {
+            loads.incrementAndGet();
+            return fileStatus.getPath().toString();
+        }, value -> 100);
+    }
+
+    private static FileStatus fileStatus(String path, long length, long modificationTime)
+    {
+        return new FileStatus(length, false, 1, 64, modificationTime, new Path(path));
+    }
+}
@@ -70,6 +70,8 @@ public class TestHiveClientConfig
                 .setRespectTableFormat(true)
                 .setImmutablePartitions(false)
                 .setMaxPartitionsPerWriter(100)
+                .setTargetMaxFileSize(new DataSize(1, Unit.GIGABYTE))
+                .setMaxWriterMemory(new DataSize(256, Unit.MEGABYTE))
                 .setUseParquetColumnNames(false)
                 .setUseOrcColumnNames(false)
                 .setS3AwsAccessKey(null)
@@ -94,6 +96,19 @@ public class TestHiveClientConfig
                 .setOrcMaxMergeDistance(new DataSize(1, Unit.MEGABYTE))
                 .setOrcMaxBufferSize(new DataSize(8, Unit.MEGABYTE))
                 .setOrcStreamBufferSize(new DataSize(8, Unit.MEGABYTE))
+                .setFileMetadataCacheMaxSize(new DataSize(64, Unit.MEGABYTE))
+                .setFileStatusCacheTables("")
+                .setFileStatusCacheMaxSize(1_000_000)
+                .setFileStatusCacheExpireAfterWrite(new Duration(1, TimeUnit.MINUTES))
+                .setDataCacheEnabled(false)
+                .setDataCacheDirectory(null)
+                .setDataCacheMaxSize(new DataSize(10, Unit.GIGABYTE))
+                .setDataCacheBlockSize(new DataSize(1, Unit.MEGABYTE))
+                .setOrcBloomFiltersEnabled(false)
+                .setOrcSelectiveReaderEnabled(false)
+                .setOrcOptimizedWriterEnabled(false)
+                .setRcfileOptimizedReaderEnabled(false)
+                .setTextOptimizedReaderEnabled(false)
                 .setHiveMetastoreAuthenticationType(HiveClientConfig.HiveMetastoreAuthenticationType.NONE)
                 .setHiveMetastoreServicePrincipal(null)
                 .setHiveMetastoreClientPrincipal(null)
@@ -143,6 +158,8 @@ public class TestHiveClientConfig
                 .put("hive.respect-table-format", "false")
                 .put("hive.immutable-partitions", "true")
                 .put("hive.max-partitions-per-writers", "222")
+                .put("hive.target-max-file-size", "512MB")
+                .put("hive.max-writer-memory", "64MB")
                 .put("hive.force-local-scheduling", "true")
                 .put("hive.max-concurrent-file-renames", "100")
                 .put("hive.assume-canonical-partition-keys", "true")
@@ -169,6 +186,19 @@ public class TestHiveClientConfig
                 .put("hive.orc.max-merge-distance", "22kB")
                 .put("hive.orc.max-buffer-size", "44kB")
                 .put("hive.orc.stream-buffer-size", "55kB")
+                .put("hive.file-metadata-cache.max-size", "12MB")
+                .put("hive.file-status-cache-tables", "foo.bar1, foo.bar2")
+                .put("hive.file-status-cache-size", "1000")
+                .put("hive.file-status-cache-expire-time", "30m")
+                .put("hive.data-cache.enabled", "true")
+                .put("hive.data-cache.directory", "/mnt/ssd/presto-cache")
+                .put("hive.data-cache.max-size", "100GB")
+                .put("hive.data-cache.block-size", "4MB")
+                .put("hive.orc.bloom-filters.enabled", "true")
+                .put("hive.orc.selective-reader.enabled", "true")
+                .put("hive.orc.optimized-writer.enabled", "true")
+                .put("hive.rcfile-optimized-reader.enabled", "true")
+                .put("hive.text-optimized-reader.enabled", "true")
                 .put("hive.metastore.authentication.type", "KERBEROS")
                 .put("hive.metastore.service.principal", "hive/_HOST@EXAMPLE.COM")
                 .put("hive.metastore.client.principal", "metastore@EXAMPLE.COM")
@@ -216,6 +246,8 @@ public class TestHiveClientConfig
                 .setRespectTableFormat(false)
                 .setImmutablePartitions(true)
                 .setMaxPartitionsPerWriter(222)
+                .setTargetMaxFileSize(new DataSize(512, Unit.MEGABYTE))
+                .setMaxWriterMemory(new DataSize(64, Unit.MEGABYTE))
                 .setDomainSocketPath("/foo")
                 .setUseParquetColumnNames(true)
                 .setUseOrcColumnNames(true)
@@ -241,6 +273,19 @@ public class TestHiveClientConfig
                 .setOrcMaxMergeDistance(new DataSize(22, Unit.KILOBYTE))
                 .setOrcMaxBufferSize(new DataSize(44, Unit.KILOBYTE))
                 .setOrcStreamBufferSize(new DataSize(55, Unit.KILOBYTE))
+                .setFileMetadataCacheMaxSize(new DataSize(12, Unit.MEGABYTE))
+                .setFileStatusCacheTables("foo.bar1,foo.bar2")
+                .setFileStatusCacheMaxSize(1000)
+                .setFileStatusCacheExpireAfterWrite(new Duration(30, TimeUnit.MINUTES))
+                .setDataCacheEnabled(true)
+                .setDataCacheDirectory("/mnt/ssd/presto-cache")
+                .setDataCacheMaxSize(new DataSize(100, Unit.GIGABYTE))
+                .setDataCacheBlockSize(new DataSize(4, Unit.MEGABYTE))
+                .setOrcBloomFiltersEnabled(true)
+                .setOrcSelectiveReaderEnabled(true)
+                .setOrcOptimizedWriterEnabled(true)
+                .setRcfileOptimizedReaderEnabled(true)
+                .setTextOptimizedReaderEnabled(true)
                 .setHiveMetastoreAuthenticationType(HiveClientConfig.HiveMetastoreAuthenticationType.KERBEROS)
                 .setHiveMetastoreServicePrincipal("hive/_HOST@EXAMPLE.COM")
                 .setHiveMetastoreClientPrincipal("metastore@EXAMPLE.COM")
@@ -17,10 +17,15 @@ import com.facebook.presto.hive.orc.DwrfPageSourceFactory;
 import com.facebook.presto.hive.orc.OrcPageSourceFactory;
 import com.facebook.presto.hive.parquet.ParquetPageSourceFactory;
 import com.facebook.presto.hive.parquet.ParquetRecordCursorProvider;
+import com.facebook.presto.hive.rcfile.RcFilePageSourceFactory;
+import com.facebook.presto.hive.text.TextPageSourceFactory;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.RecordPageSource;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.testing.MaterializedRow;
 import com.facebook.presto.testing.TestingConnectorSession;
 import com.facebook.presto.type.ArrayType;
 import com.facebook.presto.type.RowType;
@@ -28,6 +33,7 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.type.HiveVarchar;
@@ -35,6 +41,7 @@ import org.apache.hadoop.hive.ql.io.HiveOutputFormat;
 import org.apache.hadoop.hive.ql.io.parquet.MapredParquetInputFormat;
 import org.apache.hadoop.hive.ql.io.parquet.serde.ParquetHiveSerDe;
 import org.apache.hadoop.hive.serde2.SerDe;
+import org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe;
 import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.MapObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
@@ -43,9 +50,12 @@ import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.JavaHiveDecimalObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.DecimalTypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.VarcharTypeInfo;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.TextInputFormat;
 import org.joda.time.DateTimeZone;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
@@ -53,6 +63,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
@@ -76,19 +87,30 @@ import static com.facebook.presto.tests.StructuralTestUtil.arrayBlockOf;
 import static com.facebook.presto.tests.StructuralTestUtil.rowBlockOf;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.Iterables.filter;
+import static com.facebook.presto.testing.MaterializedResult.materializeSourceDataStream;
 import static com.google.common.collect.Iterables.transform;
 import static io.airlift.slice.Slices.utf8Slice;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.FILE_INPUT_FORMAT;
+import static org.apache.hadoop.hive.serde.serdeConstants.ESCAPE_CHAR;
+import static org.apache.hadoop.hive.serde.serdeConstants.FIELD_DELIM;
 import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_LIB;
+import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_NULL_FORMAT;
 import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardListObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.getPrimitiveJavaObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaByteObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaDateObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaIntObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -145,6 +167,172 @@ public class TestHiveFileFormats
                 .isReadableByRecordCursor(new GenericHiveRecordCursorProvider(HDFS_ENVIRONMENT));
     }
 
+    @Test(dataProvider = "rowCount")
+    public void testRCTextPageSource(int rowCount)
+            throws Exception
+    {
+        List<TestColumn> testColumns = TEST_COLUMNS.stream()
+                .filter(column -> column.getObjectInspector().getCategory() == Category.PRIMITIVE)
+                .collect(toList());
+        TestingConnectorSession session = new TestingConnectorSession(
+                new HiveSessionProperties(new HiveClientConfig().setRcfileOptimizedReaderEnabled(true)).getSessionProperties());
+        assertThatFileFormat(RCTEXT)
+                .withColumns(testColumns)
+                .withSession(session)
+                .withRowsCount(rowCount)
+                .isReadableByPageSource(new RcFilePageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT));
+    }
+
+    @Test(dataProvider = "rowCount")
+    public void testRCBinaryPageSource(int rowCount)
+            throws Exception
+    {
+        // RC file interprets empty VARCHAR as nulls
+        List<TestColumn> testColumns = TEST_COLUMNS.stream()
+                .filter(column -> column.getObjectInspector().getCategory() == Category.PRIMITIVE)
+                .filter(column -> !column.getName().equals("t_empty_varchar"))
+                .collect(toList());
+        TestingConnectorSession session = new TestingConnectorSession(
+                new HiveSessionProperties(new HiveClientConfig().setRcfileOptimizedReaderEnabled(true)).getSessionProperties());
+        assertThatFileFormat(RCBINARY)
+                .withColumns(testColumns)
+                .withSession(session)
+                .withRowsCount(rowCount)
+                .isReadableByPageSource(new RcFilePageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT));
+    }
+
+    @Test(dataProvider = "rowCount")
+    public void testTextFilePageSource(int rowCount)
+            throws Exception
+    {
+        List<TestColumn> testColumns = TEST_COLUMNS.stream()
+                .filter(column -> column.getObjectInspector().getCategory() == Category.PRIMITIVE)
+                .collect(toList());
+        TestingConnectorSession session = new TestingConnectorSession(
+                new HiveSessionProperties(new HiveClientConfig().setTextOptimizedReaderEnabled(true)).getSessionProperties());
+        assertThatFileFormat(TEXTFILE)
+                .withColumns(testColumns)
+                .withSession(session)
+                .withRowsCount(rowCount)
+                .isReadableByPageSource(new TextPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT));
+    }
+
+    @Test
+    public void testTextFilePageSourceMalformedFields()
+            throws Exception
+    {
+        List<TestColumn> columns = ImmutableList.of(
+                new TestColumn("t_tinyint", javaByteObjectInspector, null, null),
+                new TestColumn("t_int", javaIntObjectInspector, null, null),
+                new TestColumn("t_bigint", javaLongObjectInspector, null, null),
+                new TestColumn("t_double", javaDoubleObjectInspector, null, null),
+                new TestColumn("t_decimal", new JavaHiveDecimalObjectInspector(new DecimalTypeInfo(10, 2)), null, null),
+                new TestColumn("t_date", javaDateObjectInspector, null, null),
+                new TestColumn("t_string", javaStringObjectInspector, null, null));
+        String content = Joiner.on('\n').join(
+                Joiner.on('\u0001').join("1", "2", "3", "4.5", "1.25", "2016-01-02", "valid"),
+                Joiner.on('\u0001').join("abc", "12x", "1-2", "4.5.6", "x1", "2016-13-45", "malformed"),
+                Joiner.on('\u0001').join("200", "3000000000", "99999999999999999999", "1e", "123456789012", "2016", "out of range"),
+                Joiner.on('\u0001').join("-128", "+7", "12.75", "-0.5", "-1.255", "2016-02-29", "edge cases"));
+
+        List<MaterializedRow> rows = assertTextFileReadable(content, new Properties(), columns);
+        assertEquals(rows.size(), 4);
+
+        // like the lazy Hive objects, values that can not be parsed are null
+        for (int row = 1; row <= 2; row++) {
+            for (int field = 0; field < 6; field++) {
+                assertNull(rows.get(row).getField(field), format("row %s, field %s", row, field));
+            }
+        }
+        assertEquals(rows.get(3).getField(0), (byte) -128);
+        assertEquals(rows.get(3).getField(1), 7);
+        assertEquals(rows.get(3).getField(2), 12L);
+    }
+
+    @Test
+    public void testTextFilePageSourceSerdeProperties()
+            throws Exception
+    {
+        List<TestColumn> columns = ImmutableList.of(
+                new TestColumn("t_string", javaStringObjectInspector, null, null),
+                new TestColumn("t_bigint", javaLongObjectInspector, null, null));
+        Properties serdeProperties = new Properties();
+        serdeProperties.setProperty(FIELD_DELIM, "|");
+        serdeProperties.setProperty(ESCAPE_CHAR, "\\");
+        serdeProperties.setProperty(SERIALIZATION_NULL_FORMAT, "NULL");
+        String content = "a\\|b|1\nNULL|NULL\n\\N|2\nplain|3\n|4\n";
+
+        List<MaterializedRow> rows = assertTextFileReadable(content, serdeProperties, columns);
+        assertEquals(rows.size(), 5);
+
+        // the escaped separator stays in the field
+        assertEquals(rows.get(0).getField(0), "a|b");
+        assertEquals(rows.get(0).getField(1), 1L);
+        assertNull(rows.get(1).getField(0));
+        assertNull(rows.get(1).getField(1));
+        // the default null sequence is a regular value when another one is configured
+        assertNotNull(rows.get(2).getField(0));
+        assertEquals(rows.get(4).getField(0), "");
+    }
+
+    @Test
+    public void testTextFilePageSourceLineTerminators()
+            throws Exception
+    {
+        List<TestColumn> columns = ImmutableList.of(
+                new TestColumn("t_int", javaIntObjectInspector, null, null),
+                new TestColumn("t_string", javaStringObjectInspector, null, null));
+        Properties serdeProperties = new Properties();
+        serdeProperties.setProperty(FIELD_DELIM, ",");
+
+        List<MaterializedRow> rows = assertTextFileReadable("1,a\r\n2,b\r\n3,c\r4,d\n5,e", serdeProperties, columns);
+        assertEquals(rows.size(), 5);
+        for (int row = 0; row < rows.size(); row++) {
+            assertEquals(rows.get(row).getField(0), row + 1);
+            assertEquals(rows.get(row).getField(1), String.valueOf((char) ('a' + row)));
+        }
+    }
+
+    @Test
+    public void testTextFilePageSourceSplits()
+            throws Exception
+    {
+        List<TestColumn> columns = ImmutableList.of(
+                new TestColumn("t_int", javaIntObjectInspector, null, null),
+                new TestColumn("t_string", javaStringObjectInspector, null, null));
+        Properties serdeProperties = new Properties();
+        serdeProperties.setProperty(FIELD_DELIM, ",");
+
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append(i).append(",value ").append(i).append("\r\n");
+        }
+
+        File file = File.createTempFile("presto_test", "text");
+        try {
+            Files.write(content.toString(), file, UTF_8);
+            long fileSize = file.length();
+
+            // the splits start in the middle of lines, and each line is read by exactly one split
+            List<MaterializedRow> rows = new ArrayList<>();
+            for (long start = 0; start < fileSize; start += 997) {
+                long length = Math.min(997, fileSize - start);
+                List<MaterializedRow> splitRows = readTextFile(file, serdeProperties, columns, start, length, true);
+                assertEquals(splitRows, readTextFile(file, serdeProperties, columns, start, length, false));
+                rows.addAll(splitRows);
+            }
+
+            assertEquals(rows.size(), 1000);
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(rows.get(i).getField(0), i);
+                assertEquals(rows.get(i).getField(1), "value " + i);
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
     @Test(dataProvider = "rowCount")
     public void testOrc(int rowCount)
             throws Exception
@@ -348,6 +536,12 @@ public class TestHiveFileFormats
                 .withWriteColumns(ImmutableList.of(writeColumn))
                 .withReadColumns(ImmutableList.of(readColumn))
                 .isReadableByRecordCursor(new GenericHiveRecordCursorProvider(HDFS_ENVIRONMENT));
+
+        assertThatFileFormat(TEXTFILE)
+                .withWriteColumns(ImmutableList.of(writeColumn))
+                .withReadColumns(ImmutableList.of(readColumn))
+                .withSession(new TestingConnectorSession(new HiveSessionProperties(new HiveClientConfig().setTextOptimizedReaderEnabled(true)).getSessionProperties()))
+                .isReadableByPageSource(new TextPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT));
     }
 
     @Test
@@ -503,6 +697,61 @@ public class TestHiveFileFormats
         throw new IllegalArgumentException("Unknown object inspector type " + objectInspector);
     }
 
+    /**
+     * Reads the text file with the optimized page source and with the Hive record reader, and verifies both return the same rows.
+     */
+    private List<MaterializedRow> assertTextFileReadable(String content, Properties serdeProperties, List<TestColumn> columns)
+            throws Exception
+    {
+        File file = File.createTempFile("presto_test", "text");
+        try {
+            Files.write(content, file, UTF_8);
+            List<MaterializedRow> rows = readTextFile(file, serdeProperties, columns, 0, file.length(), true);
+            assertEquals(rows, readTextFile(file, serdeProperties, columns, 0, file.length(), false));
+            return rows;
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    private List<MaterializedRow> readTextFile(File file, Properties serdeProperties, List<TestColumn> columns, long start, long length, boolean optimizedReader)
+            throws IOException
+    {
+        Properties schema = new Properties();
+        schema.putAll(serdeProperties);
+        schema.setProperty(FILE_INPUT_FORMAT, TextInputFormat.class.getName());
+        schema.setProperty(SERIALIZATION_LIB, LazySimpleSerDe.class.getName());
+        schema.setProperty("columns", Joiner.on(',').join(transform(columns, TestColumn::getName)));
+        schema.setProperty("columns.types", Joiner.on(',').join(transform(columns, TestColumn::getType)));
+
+        List<HiveColumnHandle> columnHandles = getColumnHandles(columns);
+        List<Type> types = getTypes(columnHandles);
+        Path path = new Path(file.toURI());
+
+        ConnectorPageSource pageSource;
+        if (optimizedReader) {
+            TestingConnectorSession session = new TestingConnectorSession(
+                    new HiveSessionProperties(new HiveClientConfig().setTextOptimizedReaderEnabled(true)).getSessionProperties());
+            pageSource = new TextPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT)
+                    .createPageSource(new Configuration(), session, path, start, length, schema, columnHandles, ImmutableList.of(), TupleDomain.all(), DateTimeZone.getDefault())
+                    .get();
+        }
+        else {
+            HiveRecordCursor cursor = new GenericHiveRecordCursorProvider(HDFS_ENVIRONMENT)
+                    .createHiveRecordCursor("test", new Configuration(), SESSION, path, start, length, schema, columnHandles, ImmutableList.of(), TupleDomain.all(), DateTimeZone.getDefault(), TYPE_MANAGER)
+                    .get();
+            pageSource = new RecordPageSource(types, cursor);
+        }
+
+        try {
+            return materializeSourceDataStream(SESSION, pageSource, types).getMaterializedRows();
+        }
+        finally {
+            pageSource.close();
+        }
+    }
+
     private FileFormatAssertion assertThatFileFormat(HiveStorageFormat hiveStorageFormat)
             throws Exception
     {
@@ -0,0 +1,214 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.Page;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestHiveFileWriters
+{
+    @Test
+    public void testNoReleaseWithinLimit()
+    {
+        HiveFileWriters writers = new HiveFileWriters(100, true);
+        TestingFileWriter first = new TestingFileWriter(20, 30);
+        TestingFileWriter second = new TestingFileWriter(20, 30);
+        writers.put(0, 0, first);
+        writers.put(1, 0, second);
+
+        List<HiveFileWriter> closed = new ArrayList<>();
+        writers.releaseMemory(closed::add);
+        assertEquals(writers.getSystemMemoryUsage(), 100);
+        assertEquals(writers.getFlushCount(), 0);
+        assertEquals(first.getFlushCount(), 0);
+        assertEquals(second.getFlushCount(), 0);
+        assertTrue(closed.isEmpty());
+    }
+
+    @Test
+    public void testFlushLeastRecentlyUsedPartitions()
+    {
+        HiveFileWriters writers = new HiveFileWriters(100, true);
+        TestingFileWriter first = new TestingFileWriter(0, 40);
+        TestingFileWriter second = new TestingFileWriter(0, 40);
+        TestingFileWriter third = new TestingFileWriter(0, 40);
+        writers.put(0, 0, first);
+        writers.put(1, 0, second);
+        writers.put(2, 0, third);
+
+        // appending to the first partition again makes the second the least recently used
+        assertSame(writers.get(0, 0), first);
+        assertEquals(ImmutableList.copyOf(writers.values()), ImmutableList.of(second, third, first));
+
+        // memory is released down to half of the limit, not just to the limit
+        List<HiveFileWriter> closed = new ArrayList<>();
+        writers.releaseMemory(closed::add);
+        assertEquals(second.getFlushCount(), 1);
+        assertEquals(third.getFlushCount(), 1);
+        assertEquals(first.getFlushCount(), 0);
+        assertEquals(writers.getFlushCount(), 2);
+        assertEquals(writers.getSystemMemoryUsage(), 40);
+        assertEquals(writers.getMaxWriterMemoryUsage(), 40);
+        assertTrue(closed.isEmpty());
+        assertEquals(writers.size(), 3);
+    }
+
+    @Test
+    public void testSkipWritersWithoutBufferedData()
+    {
+        HiveFileWriters writers = new HiveFileWriters(100, false);
+        TestingFileWriter empty = new TestingFileWriter(60, 0);
+        TestingFileWriter buffered = new TestingFileWriter(10, 50);
+        writers.put(0, 0, empty);
+        writers.put(1, 0, buffered);
+
+        writers.releaseMemory(writer -> {
+            throw new AssertionError("writer closed");
+        });
+        assertEquals(empty.getFlushCount(), 0);
+        assertEquals(buffered.getFlushCount(), 1);
+        assertEquals(writers.getFlushCount(), 1);
+        assertEquals(writers.getSystemMemoryUsage(), 70);
+    }
+
+    @Test
+    public void testCloseLeastRecentlyUsed()
+    {
+        HiveFileWriters writers = new HiveFileWriters(100, true);
+        TestingFileWriter first = new TestingFileWriter(40, 10);
+        TestingFileWriter second = new TestingFileWriter(40, 10);
+        TestingFileWriter third = new TestingFileWriter(40, 10);
+        writers.put(0, 0, first);
+        writers.put(1, 0, second);
+        writers.put(2, 0, third);
+        writers.get(0, 0);
+
+        // flushing leaves 120 bytes, so the least recently used writers are closed until at most 50 remain
+        List<HiveFileWriter> closed = new ArrayList<>();
+        writers.releaseMemory(closed::add);
+        assertEquals(writers.getFlushCount(), 3);
+        assertEquals(closed, ImmutableList.of(second, third));
+        assertEquals(ImmutableList.copyOf(writers.values()), ImmutableList.of(first));
+        assertNull(writers.get(1, 0));
+        assertNull(writers.get(2, 0));
+        assertEquals(writers.getSystemMemoryUsage(), 40);
+    }
+
+    @Test
+    public void testBucketWritersAreNotClosed()
+    {
+        HiveFileWriters writers = new HiveFileWriters(100, false);
+        TestingFileWriter firstBucket = new TestingFileWriter(40, 10);
+        TestingFileWriter secondBucket = new TestingFileWriter(40, 10);
+        TestingFileWriter otherPartition = new TestingFileWriter(40, 10);
+        writers.put(0, 1, firstBucket);
+        writers.put(1, 1, otherPartition);
+        writers.put(0, 2, secondBucket);
+
+        // the buckets of a partition are separate writers in the usage order
+        assertSame(writers.get(0, 1), firstBucket);
+        assertSame(writers.get(0, 2), secondBucket);
+        assertEquals(ImmutableList.copyOf(writers.values()), ImmutableList.of(otherPartition, firstBucket, secondBucket));
+
+        writers.releaseMemory(writer -> {
+            throw new AssertionError("bucket writer closed");
+        });
+        assertEquals(otherPartition.getFlushCount(), 1);
+        assertEquals(firstBucket.getFlushCount(), 1);
+        assertEquals(secondBucket.getFlushCount(), 1);
+        assertEquals(writers.size(), 3);
+        assertEquals(writers.getSystemMemoryUsage(), 120);
+
+        // nothing is left to flush, so releasing memory again does not flush any writer
+        writers.releaseMemory(writer -> {
+            throw new AssertionError("bucket writer closed");
+        });
+        assertEquals(writers.getFlushCount(), 3);
+    }
+
+    private static class TestingFileWriter
+            implements HiveFileWriter
+    {
+        private final long retainedBytes;
+        private long bufferedBytes;
+        private int flushCount;
+
+        public TestingFileWriter(long retainedBytes, long bufferedBytes)
+        {
+            this.retainedBytes = retainedBytes;
+            this.bufferedBytes = bufferedBytes;
+        }
+
+        public int getFlushCount()
+        {
+            return flushCount;
+        }
+
+        @Override
+        public void appendRows(Page dataPage)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getWrittenBytes()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getSystemMemoryUsage()
+        {
+            return retainedBytes + bufferedBytes;
+        }
+
+        @Override
+        public long getBufferedBytes()
+        {
+            return bufferedBytes;
+        }
+
+        @Override
+        public void flush()
+        {
+            bufferedBytes = 0;
+            flushCount++;
+        }
+
+        @Override
+        public void commit()
+        {
+        }
+
+        @Override
+        public void rollback()
+        {
+        }
+
+        @Override
+        public PartitionUpdate getPartitionUpdate()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
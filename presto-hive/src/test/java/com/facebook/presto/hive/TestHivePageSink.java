@@ -39,6 +39,7 @@ import io.airlift.tpch.LineItemColumn;
 import io.airlift.tpch.LineItemGenerator;
 import io.airlift.tpch.TpchColumnType;
 import io.airlift.tpch.TpchColumnTypes;
+import io.airlift.units.DataSize;
 import org.apache.hadoop.fs.Path;
 import org.testng.annotations.Test;
 
@@ -67,6 +68,7 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.IntegerType.INTEGER;
 import static com.facebook.presto.spi.type.VarcharType.createUnboundedVarcharType;
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.testing.Assertions.assertGreaterThan;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
@@ -111,6 +113,60 @@ public class TestHivePageSink
         }
     }
 
+    @Test
+    public void testTargetMaxFileSize()
+            throws Exception
+    {
+        HiveClientConfig config = new HiveClientConfig()
+                .setHiveStorageFormat(HiveStorageFormat.ORC)
+                .setHiveCompressionCodec(NONE)
+                .setOrcOptimizedWriterEnabled(true)
+                .setTargetMaxFileSize(new DataSize(1, KILOBYTE));
+        assertFilesPerPage(config);
+    }
+
+    @Test
+    public void testMaxWriterMemory()
+            throws Exception
+    {
+        HiveClientConfig config = new HiveClientConfig()
+                .setHiveStorageFormat(HiveStorageFormat.ORC)
+                .setHiveCompressionCodec(NONE)
+                .setOrcOptimizedWriterEnabled(true)
+                .setMaxWriterMemory(new DataSize(1, KILOBYTE));
+        assertFilesPerPage(config);
+    }
+
+    private static void assertFilesPerPage(HiveClientConfig config)
+            throws Exception
+    {
+        File tempDir = Files.createTempDir();
+        try {
+            ExtendedHiveMetastore metastore = new BridgingHiveMetastore(new InMemoryHiveMetastore(new File(tempDir, "metastore")));
+            File outputDir = new File(tempDir, "output");
+            ConnectorPageSink pageSink = createPageSink(new HiveTransactionHandle(), config, metastore, new Path("file:///" + outputDir.getAbsolutePath()));
+
+            // each page exceeds the limit, so the file is closed after each page
+            Page page = createTestPage();
+            pageSink.appendPage(page, null);
+            assertEquals(pageSink.getSystemMemoryUsage(), 0);
+            long completedBytes = pageSink.getCompletedBytes();
+            assertGreaterThan(completedBytes, 0L);
+
+            pageSink.appendPage(page, null);
+            assertEquals(pageSink.getSystemMemoryUsage(), 0);
+            assertGreaterThan(pageSink.getCompletedBytes(), completedBytes);
+
+            JsonCodec<PartitionUpdate> partitionUpdateCodec = JsonCodec.jsonCodec(PartitionUpdate.class);
+            PartitionUpdate partitionUpdate = partitionUpdateCodec.fromJson(getOnlyElement(pageSink.finish()).getBytes());
+            assertEquals(partitionUpdate.getFileNames().size(), 2);
+            assertEquals(outputDir.listFiles((dir, name) -> !name.endsWith(".crc")).length, 2);
+        }
+        finally {
+            FileUtils.deleteRecursively(tempDir);
+        }
+    }
+
     private static String makeFileName(File tempDir, HiveClientConfig config)
     {
         return tempDir.getAbsolutePath() + "/" + config.getHiveStorageFormat().name() + "." + config.getHiveCompressionCodec().name();
@@ -120,14 +176,37 @@ public class TestHivePageSink
     {
         HiveTransactionHandle transaction = new HiveTransactionHandle();
         ConnectorPageSink pageSink = createPageSink(transaction, config, metastore, new Path("file:///" + outputPath));
-        List<LineItemColumn> columns = getTestColumns();
-        List<Type> columnTypes = columns.stream()
-                .map(LineItemColumn::getType)
-                .map(TestHivePageSink::getHiveType)
-                .map(hiveType -> hiveType.getType(TYPE_MANAGER, false))
-                .collect(toList());
+        List<Type> columnTypes = getTestColumnTypes();
+
+        Page page = createTestPage();
+        pageSink.appendPage(page, null);
+        pageSink.finish();
+
+        File outputDir = new File(outputPath);
+        List<File> files = ImmutableList.copyOf(outputDir.listFiles((dir, name) -> !name.endsWith(".crc")));
+        File outputFile = getOnlyElement(files);
+        long length = outputFile.length();
+
+        ConnectorPageSource pageSource = createPageSource(transaction, config, outputFile);
+
+        List<Page> pages = new ArrayList<>();
+        while (!pageSource.isFinished()) {
+            Page nextPage = pageSource.getNextPage();
+            if (nextPage != null) {
+                nextPage.assureLoaded();
+                pages.add(nextPage);
+            }
+        }
+        MaterializedResult expectedResults = toMaterializedResult(getSession(config), columnTypes, ImmutableList.of(page));
+        MaterializedResult results = toMaterializedResult(getSession(config), columnTypes, pages);
+        assertEquals(results, expectedResults);
+        return length;
+    }
 
-        PageBuilder pageBuilder = new PageBuilder(columnTypes);
+    private static Page createTestPage()
+    {
+        List<LineItemColumn> columns = getTestColumns();
+        PageBuilder pageBuilder = new PageBuilder(getTestColumnTypes());
         int rows = 0;
         for (LineItem lineItem :  new LineItemGenerator(0.01, 1, 1)) {
             rows++;
@@ -159,29 +238,16 @@ public class TestHivePageSink
                 }
             }
         }
-        Page page = pageBuilder.build();
-        pageSink.appendPage(page, null);
-        pageSink.finish();
-
-        File outputDir = new File(outputPath);
-        List<File> files = ImmutableList.copyOf(outputDir.listFiles((dir, name) -> !name.endsWith(".crc")));
-        File outputFile = getOnlyElement(files);
-        long length = outputFile.length();
-
-        ConnectorPageSource pageSource = createPageSource(transaction, config, outputFile);
+        return pageBuilder.build();
+    }
 
-        List<Page> pages = new ArrayList<>();
-        while (!pageSource.isFinished()) {
-            Page nextPage = pageSource.getNextPage();
-            if (nextPage != null) {
-                nextPage.assureLoaded();
-                pages.add(nextPage);
-            }
-        }
-        MaterializedResult expectedResults = toMaterializedResult(getSession(config), columnTypes, ImmutableList.of(page));
-        MaterializedResult results = toMaterializedResult(getSession(config), columnTypes, pages);
-        assertEquals(results, expectedResults);
-        return length;
+    private static List<Type> getTestColumnTypes()
+    {
+        return getTestColumns().stream()
+                .map(LineItemColumn::getType)
+                .map(TestHivePageSink::getHiveType)
+                .map(hiveType -> hiveType.getType(TYPE_MANAGER, false))
+                .collect(toList());
     }
 
     public static MaterializedResult toMaterializedResult(ConnectorSession session, List<Type> types, List<Page> pages)
@@ -0,0 +1,216 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.io.Files;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestLocalDataCache
+{
+    private static final int FILE_SIZE = 10_500;
+
+    private File tempDir;
+    private byte[] data;
+    private FileSystem fileSystem;
+    private FileStatus fileStatus;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        tempDir = Files.createTempDir();
+        data = new byte[FILE_SIZE];
+        new Random(42).nextBytes(data);
+        File file = new File(tempDir, "data");
+        Files.write(data, file);
+
+        fileSystem = FileSystem.getLocal(new Configuration());
+        fileStatus = fileSystem.getFileStatus(new Path(file.toURI()));
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        deleteRecursively(tempDir);
+    }
+
+    @Test
+    public void testReadThrough()
+            throws Exception
+    {
+        LocalDataCache cache = createCache(100);
+        assertRead(cache, 0, 100);
+        assertEquals(cache.getMissCount(), 1);
+        assertEquals(cache.getBytesLoaded(), 1024);
+
+        // same block
+        assertRead(cache, 200, 300);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getBytesSaved(), 300);
+
+        // spans the first two blocks
+        assertRead(cache, 1000, 100);
+        assertEquals(cache.getHitCount(), 2);
+        assertEquals(cache.getMissCount(), 2);
+
+        // last partial block
+        assertRead(cache, 10_300, 200);
+        assertEquals(cache.getBlockCount(), 3);
+
+        // whole file
+        assertRead(cache, 0, FILE_SIZE);
+        assertEquals(cache.getBlockCount(), 11);
+        assertEquals(cache.getTableHitRate("test.table"), cache.getHitRate());
+        assertEquals(cache.getTableBytesSaved("test.table"), cache.getBytesSaved());
+        assertEquals(cache.getTableBytesSaved("other.table"), 0);
+    }
+
+    @Test
+    public void testEviction()
+            throws Exception
+    {
+        LocalDataCache cache = createCache(4);
+        assertRead(cache, 0, FILE_SIZE);
+        assertTrue(cache.getBlockCount() <= 4);
+        assertTrue(cache.getEvictionCount() >= 7);
+        assertTrue(getBlockFileCount() <= 4);
+
+        assertRead(cache, 0, FILE_SIZE);
+
+        cache.flushCache();
+        assertEquals(cache.getBlockCount(), 0);
+        assertEquals(getBlockFileCount(), 0);
+    }
+
+    @Test
+    public void testConcurrentReadsWithEviction()
+            throws Exception
+    {
+        // blocks are evicted while other threads are reading them
+        LocalDataCache cache = createCache(4);
+        ExecutorService executor = newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                Random random = new Random(thread);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        int position = random.nextInt(FILE_SIZE);
+                        int length = random.nextInt(FILE_SIZE - position) + 1;
+                        assertRead(cache, position, length);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        assertTrue(cache.getEvictionCount() > 0);
+
+        // the files of the evicted blocks are deleted once no thread reads them
+        assertTrue(getBlockFileCount() <= 4);
+        cache.flushCache();
+        assertEquals(getBlockFileCount(), 0);
+    }
+
+    @Test
+    public void testSharedDirectory()
+            throws Exception
+    {
+        // a block file of another process that uses the same directory
+        File cacheDirectory = new File(tempDir, "cache");
+        File otherFile = new File(new File(cacheDirectory, "other"), "0.block");
+        assertTrue(otherFile.getParentFile().mkdirs());
+        Files.write(new byte[10], otherFile);
+
+        LocalDataCache first = createCache(100);
+        LocalDataCache second = createCache(100);
+        assertRead(first, 0, FILE_SIZE);
+        assertRead(second, 0, FILE_SIZE);
+        assertEquals(getBlockFileCount(), 23);
+
+        // each cache only removes its own files
+        first.flushCache();
+        assertEquals(getBlockFileCount(), 12);
+        assertRead(second, 0, FILE_SIZE);
+        assertEquals(second.getMissCount(), 11);
+
+        first.destroy();
+        second.destroy();
+        assertEquals(cacheDirectory.list(), new String[] {"other"});
+        assertTrue(otherFile.exists());
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        LocalDataCache cache = LocalDataCache.disabled();
+        FSDataInputStream inputStream = fileSystem.open(fileStatus.getPath());
+        try (FSDataInputStream wrapped = cache.wrap(inputStream, fileStatus, "test.table")) {
+            assertTrue(wrapped == inputStream);
+        }
+    }
+
+    private LocalDataCache createCache(int maxBlocks)
+    {
+        return new LocalDataCache(true, new File(tempDir, "cache").getPath(), "test", new DataSize(maxBlocks, KILOBYTE), new DataSize(1, KILOBYTE));
+    }
+
+    private int getBlockFileCount()
+    {
+        int count = 0;
+        for (File directory : new File(tempDir, "cache").listFiles()) {
+            count += directory.list().length;
+        }
+        return count;
+    }
+
+    private void assertRead(LocalDataCache cache, int position, int length)
+            throws Exception
+    {
+        try (FSDataInputStream inputStream = cache.wrap(fileSystem.open(fileStatus.getPath()), fileStatus, "test.table")) {
+            byte[] buffer = new byte[length + 2];
+            inputStream.readFully(position, buffer, 1, length);
+            assertEquals(Arrays.copyOfRange(buffer, 1, length + 1), Arrays.copyOfRange(data, position, position + length));
+        }
+    }
+}
@@ -87,6 +87,27 @@ public class TestNumberParser
         assertParseDouble(Double.toString(-Double.MIN_VALUE));
     }
 
+    @Test
+    public void testDoubleDigitAndExponentLimits()
+            throws Exception
+    {
+        assertParseDouble("123456789012345");
+        assertParseDouble("1234567890123456");
+        assertParseDouble("0.123456789012345");
+        assertParseDouble("0.1234567890123456");
+        assertParseDouble("0000123.25");
+        assertParseDouble("0.000000000000000000001");
+        assertParseDouble("1e22");
+        assertParseDouble("1e23");
+        assertParseDouble("1e-22");
+        assertParseDouble("1e-23");
+        assertParseDouble("9.99999999999999e22");
+        assertParseDouble("1E10");
+        assertParseDouble("1.");
+        assertParseDouble(".5");
+        assertParseDouble("1e0005");
+    }
+
     private static void assertParseLong(String string)
     {
         assertEquals(parseLong(string.getBytes(US_ASCII), 0, string.length()), Long.parseLong(string));
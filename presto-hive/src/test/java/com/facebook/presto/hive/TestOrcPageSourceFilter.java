@@ -0,0 +1,247 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.orc.OrcPageSourceFactory;
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.testing.TestingConnectorSession;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.airlift.testing.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
+import static com.facebook.presto.hive.HiveTestUtils.TYPE_MANAGER;
+import static com.facebook.presto.hive.HiveType.HIVE_DOUBLE;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.stream.Collectors.toList;
+import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_LIB;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcPageSourceFilter
+{
+    private static final int ROW_COUNT = 30_000;
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, DOUBLE);
+
+    private static final HiveColumnHandle ID_COLUMN = new HiveColumnHandle("test", "id", HIVE_LONG, BIGINT.getTypeSignature(), 0, REGULAR);
+    private static final HiveColumnHandle NAME_COLUMN = new HiveColumnHandle("test", "name", HIVE_STRING, VARCHAR.getTypeSignature(), 1, REGULAR);
+    private static final HiveColumnHandle VALUE_COLUMN = new HiveColumnHandle("test", "value", HIVE_DOUBLE, DOUBLE.getTypeSignature(), 2, REGULAR);
+    private static final List<HiveColumnHandle> COLUMNS = ImmutableList.of(ID_COLUMN, NAME_COLUMN, VALUE_COLUMN);
+
+    private File tempDir;
+    private File file;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        tempDir = Files.createTempDir();
+        file = new File(tempDir, "data.orc");
+        writeTestFile(file);
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        FileUtils.deleteRecursively(tempDir);
+    }
+
+    @Test
+    public void testFilterOnBigint()
+    {
+        // the first batch is selected entirely, the others only in part
+        Domain domain = Domain.create(ValueSet.ofRanges(
+                Range.lessThan(BIGINT, 1024L),
+                Range.range(BIGINT, 5000L, true, 5099L, true),
+                Range.equal(BIGINT, 20_000L)),
+                false);
+        List<Long> expectedIds = LongStream.concat(LongStream.concat(LongStream.range(0, 1024), LongStream.range(5000, 5100)), LongStream.of(20_000))
+                .boxed()
+                .collect(toList());
+        assertFilteredRows(ID_COLUMN, domain, expectedIds);
+    }
+
+    @Test
+    public void testFilterOnVarchar()
+    {
+        Domain domain = Domain.create(ValueSet.of(VARCHAR, utf8Slice("name 17"), utf8Slice("name 29999")), false);
+        assertFilteredRows(NAME_COLUMN, domain, ImmutableList.of(17L, 29_999L));
+    }
+
+    @Test
+    public void testFilterOnNull()
+    {
+        List<Long> expectedIds = LongStream.range(0, ROW_COUNT)
+                .filter(id -> id % 7 == 0)
+                .boxed()
+                .collect(toList());
+        assertFilteredRows(NAME_COLUMN, Domain.onlyNull(VARCHAR), expectedIds);
+    }
+
+    @Test
+    public void testFilterOnDoubleWithNull()
+    {
+        Domain domain = Domain.create(ValueSet.ofRanges(Range.greaterThanOrEqual(DOUBLE, 14_000.0)), true);
+        List<Long> expectedIds = LongStream.range(0, ROW_COUNT)
+                .filter(id -> id % 11 == 0 || id >= 28_000)
+                .boxed()
+                .collect(toList());
+        assertFilteredRows(VALUE_COLUMN, domain, expectedIds);
+    }
+
+    @Test
+    public void testNoMatchingRows()
+    {
+        assertFilteredRows(ID_COLUMN, Domain.singleValue(BIGINT, -1L), ImmutableList.of());
+    }
+
+    private void assertFilteredRows(HiveColumnHandle filterColumn, Domain domain, List<Long> expectedIds)
+    {
+        ConnectorPageSource pageSource = createPageSource(TupleDomain.withColumnDomains(ImmutableMap.of(filterColumn, domain)));
+
+        List<Long> ids = new ArrayList<>();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page == null) {
+                continue;
+            }
+            assertTrue(page.getPositionCount() > 0);
+
+            // the filter column is decoded to select the rows, the other columns are only loaded when used
+            for (int channel = 0; channel < COLUMNS.size(); channel++) {
+                Block block = page.getBlock(channel);
+                assertEquals(block instanceof LazyBlock, channel != filterColumn.getHiveColumnIndex());
+                assertEquals(block.getPositionCount(), page.getPositionCount());
+            }
+
+            Block idBlock = page.getBlock(0);
+            Block nameBlock = page.getBlock(1);
+            Block valueBlock = page.getBlock(2);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                long id = BIGINT.getLong(idBlock, position);
+                ids.add(id);
+
+                // the lazily loaded values must belong to the same rows as the filter column
+                if (id % 7 == 0) {
+                    assertTrue(nameBlock.isNull(position));
+                }
+                else {
+                    assertEquals(VARCHAR.getSlice(nameBlock, position).toStringUtf8(), "name " + id);
+                }
+                if (id % 11 == 0) {
+                    assertTrue(valueBlock.isNull(position));
+                }
+                else {
+                    assertEquals(DOUBLE.getDouble(valueBlock, position), id * 0.5);
+                }
+            }
+        }
+        pageSource.close();
+
+        assertEquals(ids, expectedIds);
+    }
+
+    private ConnectorPageSource createPageSource(TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
+        HiveClientConfig config = new HiveClientConfig().setOrcSelectiveReaderEnabled(true);
+        ConnectorSession session = new TestingConnectorSession(new HiveSessionProperties(config).getSessionProperties());
+
+        Properties schema = new Properties();
+        schema.setProperty(SERIALIZATION_LIB, OrcSerde.class.getName());
+
+        OrcPageSourceFactory pageSourceFactory = new OrcPageSourceFactory(TYPE_MANAGER, config, HDFS_ENVIRONMENT);
+        return pageSourceFactory.createPageSource(
+                new Configuration(),
+                session,
+                new Path(file.toURI()),
+                0,
+                file.length(),
+                schema,
+                COLUMNS,
+                ImmutableList.of(),
+                effectivePredicate,
+                DateTimeZone.UTC)
+                .get();
+    }
+
+    private static void writeTestFile(File file)
+            throws IOException
+    {
+        OrcWriter writer = new OrcWriter(
+                new FileOutputStream(file),
+                ImmutableList.of("id", "name", "value"),
+                TYPES,
+                UNCOMPRESSED,
+                ImmutableMap.of(),
+                DateTimeZone.UTC);
+
+        for (int start = 0; start < ROW_COUNT; start += 1000) {
+            BlockBuilder idBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 1000);
+            BlockBuilder nameBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), 1000);
+            BlockBuilder valueBuilder = DOUBLE.createBlockBuilder(new BlockBuilderStatus(), 1000);
+            for (long id = start; id < start + 1000; id++) {
+                BIGINT.writeLong(idBuilder, id);
+                if (id % 7 == 0) {
+                    nameBuilder.appendNull();
+                }
+                else {
+                    VARCHAR.writeSlice(nameBuilder, utf8Slice("name " + id));
+                }
+                if (id % 11 == 0) {
+                    valueBuilder.appendNull();
+                }
+                else {
+                    DOUBLE.writeDouble(valueBuilder, id * 0.5);
+                }
+            }
+            writer.write(new Page(idBuilder.build(), nameBuilder.build(), valueBuilder.build()));
+        }
+        writer.close();
+    }
+}
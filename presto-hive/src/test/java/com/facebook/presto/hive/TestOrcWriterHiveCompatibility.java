@@ -0,0 +1,395 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.airlift.testing.FileUtils;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DecimalType.createDecimalType;
+import static com.facebook.presto.spi.type.Decimals.encodeUnscaledValue;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Float.floatToRawIntBits;
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Checks that the files of the Presto ORC writer can be read by Hive.
+ */
+public class TestOrcWriterHiveCompatibility
+{
+    private static final DecimalType SHORT_DECIMAL = createDecimalType(10, 2);
+    private static final DecimalType LONG_DECIMAL = createDecimalType(30, 5);
+
+    private static final List<String> COLUMN_NAMES = ImmutableList.of(
+            "boolean", "tinyint", "smallint", "integer", "bigint", "real", "double",
+            "low_cardinality", "high_cardinality", "binary", "date", "timestamp", "short_decimal", "long_decimal");
+    private static final List<Type> TYPES = ImmutableList.of(
+            BOOLEAN, TINYINT, SMALLINT, INTEGER, BIGINT, REAL, DOUBLE,
+            VARCHAR, VARCHAR, VARBINARY, DATE, TIMESTAMP, SHORT_DECIMAL, LONG_DECIMAL);
+
+    private static final int ROW_COUNT = 25_000;
+    private static final int PAGE_SIZE = 1_234;
+    private static final int ROW_GROUP_ROW_COUNT = 1_000;
+    private static final int STRIPE_ROW_COUNT = 7_000;
+
+    // Hive reads timestamps in the time zone of the JVM
+    private static final DateTimeZone HIVE_STORAGE_TIME_ZONE = DateTimeZone.getDefault();
+
+    @Test
+    public void testUncompressed()
+            throws Exception
+    {
+        assertReadableByHive(UNCOMPRESSED);
+    }
+
+    @Test
+    public void testZlib()
+            throws Exception
+    {
+        assertReadableByHive(ZLIB);
+    }
+
+    @Test
+    public void testSnappy()
+            throws Exception
+    {
+        assertReadableByHive(SNAPPY);
+    }
+
+    private static void assertReadableByHive(CompressionKind compression)
+            throws Exception
+    {
+        File tempDir = Files.createTempDir();
+        try {
+            File file = new File(tempDir, "data.orc");
+            writeFile(file, compression);
+
+            Reader reader = OrcFile.createReader(new Path(file.toURI()), OrcFile.readerOptions(new Configuration()));
+            assertEquals(reader.getNumberOfRows(), ROW_COUNT);
+            assertEquals(reader.getStripes().size(), (ROW_COUNT + STRIPE_ROW_COUNT - 1) / STRIPE_ROW_COUNT);
+
+            StructObjectInspector rowInspector = (StructObjectInspector) reader.getObjectInspector();
+            List<? extends StructField> fields = rowInspector.getAllStructFieldRefs();
+            assertEquals(fields.size(), COLUMN_NAMES.size());
+            for (int column = 0; column < fields.size(); column++) {
+                assertEquals(fields.get(column).getFieldName(), COLUMN_NAMES.get(column));
+            }
+
+            RecordReader rows = reader.rows();
+            Object row = null;
+            for (int rowNumber = 0; rowNumber < ROW_COUNT; rowNumber++) {
+                assertEquals(rows.hasNext(), true);
+                row = rows.next(row);
+                for (int column = 0; column < fields.size(); column++) {
+                    StructField field = fields.get(column);
+                    Object data = rowInspector.getStructFieldData(row, field);
+                    Object expected = getExpectedValue(column, rowNumber);
+                    if (expected == null) {
+                        assertNull(data, format(column, rowNumber));
+                        continue;
+                    }
+                    Object actual = ((PrimitiveObjectInspector) field.getFieldObjectInspector()).getPrimitiveJavaObject(data);
+                    assertEquals(normalize(column, actual), expected, format(column, rowNumber));
+                }
+            }
+            assertEquals(rows.hasNext(), false);
+            rows.close();
+        }
+        finally {
+            FileUtils.deleteRecursively(tempDir);
+        }
+    }
+
+    private static String format(int column, int row)
+    {
+        return String.format("column %s, row %s", COLUMN_NAMES.get(column), row);
+    }
+
+    private static void writeFile(File file, CompressionKind compression)
+            throws Exception
+    {
+        OrcWriter writer = new OrcWriter(
+                new FileOutputStream(file),
+                COLUMN_NAMES,
+                TYPES,
+                TYPES.stream()
+                        .map(OrcWriter::getDefaultOrcTypeKind)
+                        .collect(toList()),
+                compression,
+                new DataSize(64, MEGABYTE),
+                STRIPE_ROW_COUNT,
+                ROW_GROUP_ROW_COUNT,
+                new DataSize(1, MEGABYTE),
+                ImmutableMap.of(),
+                HIVE_STORAGE_TIME_ZONE);
+        for (Page page : createPages()) {
+            writer.write(page);
+        }
+        writer.close();
+    }
+
+    private static List<Page> createPages()
+    {
+        List<Page> pages = new ArrayList<>();
+        for (int start = 0; start < ROW_COUNT; start += PAGE_SIZE) {
+            int end = Math.min(start + PAGE_SIZE, ROW_COUNT);
+            Block[] blocks = new Block[TYPES.size()];
+            for (int column = 0; column < TYPES.size(); column++) {
+                Type type = TYPES.get(column);
+                BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), end - start);
+                for (int row = start; row < end; row++) {
+                    if (isNull(column, row)) {
+                        blockBuilder.appendNull();
+                    }
+                    else {
+                        writeValue(column, type, row, blockBuilder);
+                    }
+                }
+                blocks[column] = blockBuilder.build();
+            }
+            pages.add(new Page(blocks));
+        }
+        return pages;
+    }
+
+    private static boolean isNull(int column, int row)
+    {
+        // every column has a null in some row groups, but not in all of them
+        return row % 4_000 < 1_000 && row % (column + 3) == 0;
+    }
+
+    private static void writeValue(int column, Type type, int row, BlockBuilder blockBuilder)
+    {
+        switch (COLUMN_NAMES.get(column)) {
+            case "boolean":
+                type.writeBoolean(blockBuilder, getBoolean(row));
+                break;
+            case "tinyint":
+            case "smallint":
+            case "integer":
+            case "bigint":
+            case "date":
+                type.writeLong(blockBuilder, getLong(column, row));
+                break;
+            case "real":
+                type.writeLong(blockBuilder, floatToRawIntBits(getFloat(row)));
+                break;
+            case "double":
+                type.writeDouble(blockBuilder, getDouble(row));
+                break;
+            case "low_cardinality":
+            case "high_cardinality":
+                type.writeSlice(blockBuilder, utf8Slice(getString(column, row)));
+                break;
+            case "binary":
+                type.writeSlice(blockBuilder, wrappedBuffer(getBinary(row)));
+                break;
+            case "timestamp":
+                type.writeLong(blockBuilder, getTimestamp(row));
+                break;
+            case "short_decimal":
+                type.writeLong(blockBuilder, getDecimal(column, row).unscaledValue().longValueExact());
+                break;
+            case "long_decimal":
+                type.writeSlice(blockBuilder, encodeUnscaledValue(getDecimal(column, row).unscaledValue()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected column " + column);
+        }
+    }
+
+    private static Object getExpectedValue(int column, int row)
+    {
+        if (isNull(column, row)) {
+            return null;
+        }
+        switch (COLUMN_NAMES.get(column)) {
+            case "boolean":
+                return getBoolean(row);
+            case "tinyint":
+                return (byte) getLong(column, row);
+            case "smallint":
+                return (short) getLong(column, row);
+            case "integer":
+                return (int) getLong(column, row);
+            case "bigint":
+            case "date":
+                return getLong(column, row);
+            case "timestamp":
+                return getTimestamp(row);
+            case "real":
+                return getFloat(row);
+            case "double":
+                return getDouble(row);
+            case "low_cardinality":
+            case "high_cardinality":
+                return getString(column, row);
+            case "binary":
+                return wrappedBuffer(getBinary(row));
+            case "short_decimal":
+            case "long_decimal":
+                return getDecimal(column, row);
+            default:
+                throw new IllegalArgumentException("Unexpected column " + column);
+        }
+    }
+
+    private static Object normalize(int column, Object value)
+    {
+        Type type = TYPES.get(column);
+        if (type.equals(DATE)) {
+            return (long) DateWritable.dateToDays((Date) value);
+        }
+        if (type.equals(TIMESTAMP)) {
+            return ((Timestamp) value).getTime();
+        }
+        if (type.equals(VARBINARY)) {
+            return wrappedBuffer((byte[]) value);
+        }
+        if (type instanceof DecimalType) {
+            // Hive drops trailing zeros of decimals
+            return ((HiveDecimal) value).bigDecimalValue().setScale(((DecimalType) type).getScale());
+        }
+        return value;
+    }
+
+    private static boolean getBoolean(int row)
+    {
+        return row % 3 == 0;
+    }
+
+    /**
+     * The integer values are shaped so the writer uses each of the RLEv2 encodings it produces:
+     * short repeats, deltas and direct values. The writer never uses patched base, so the
+     * values with rare outliers are written as direct values.
+     */
+    private static long getLong(int column, int row)
+    {
+        switch (COLUMN_NAMES.get(column)) {
+            case "tinyint":
+                return (byte) row;
+            case "smallint":
+                // a sequence with a fixed delta
+                return (short) (row * 7);
+            case "integer":
+                if (row < 5_000) {
+                    // runs of up to ten repeated values
+                    return row / 5;
+                }
+                if (row < 10_000) {
+                    // long runs of repeated values
+                    return row / 100;
+                }
+                return row % 2 == 0 ? row : -row * 31;
+            case "bigint":
+                // small values with rare large outliers
+                if (row % 500 == 0) {
+                    return row * 1_000_000_007L;
+                }
+                return row < 15_000 ? row % 97 : (row * 0x9E3779B97F4A7C15L) >> 7;
+            case "date":
+                return row - 10_000;
+            default:
+                throw new IllegalArgumentException("Unexpected column " + column);
+        }
+    }
+
+    private static float getFloat(int row)
+    {
+        return (float) (row * 0.25);
+    }
+
+    private static double getDouble(int row)
+    {
+        return row * 1.1 - 1000;
+    }
+
+    private static String getString(int column, int row)
+    {
+        if (COLUMN_NAMES.get(column).equals("low_cardinality")) {
+            // dictionary encoded
+            return "value " + (row % 17);
+        }
+        // directly encoded
+        return "unique value " + row;
+    }
+
+    private static byte[] getBinary(int row)
+    {
+        return new byte[] {(byte) row, (byte) (row >> 8), 0, 1};
+    }
+
+    private static long getTimestamp(int row)
+    {
+        return 1_234_567_890_000L + row * 123_456_789L + row % 1_000;
+    }
+
+    private static BigDecimal getDecimal(int column, int row)
+    {
+        if (TYPES.get(column).equals(SHORT_DECIMAL)) {
+            return new BigDecimal(BigInteger.valueOf((row - 12_000) * 12_345L), SHORT_DECIMAL.getScale());
+        }
+        BigInteger unscaled = BigInteger.valueOf(row - 12_000).multiply(BigInteger.TEN.pow(24)).add(BigInteger.valueOf(row));
+        return new BigDecimal(unscaled, LONG_DECIMAL.getScale());
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.rcfile.RcFilePageSourceFactory;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.testing.TestingConnectorSession;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import io.airlift.testing.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.RCFile;
+import org.apache.hadoop.hive.ql.io.RCFileOutputFormat;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefWritable;
+import org.apache.hadoop.hive.serde2.columnar.ColumnarSerDe;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.PARTITION_KEY;
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
+import static com.facebook.presto.hive.HiveTestUtils.TYPE_MANAGER;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.hive.rcfile.RcFilePageSource.MAX_BATCH_SIZE;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static java.lang.Math.min;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_LIB;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestRcFilePageSourceSplits
+{
+    private static final int ROW_COUNT = 20_000;
+    // more rows than fit in one page, so each row group is returned as several pages
+    private static final int ROWS_PER_ROW_GROUP = 3_000;
+
+    private static final HiveColumnHandle ID_COLUMN = new HiveColumnHandle("test", "id", HIVE_LONG, BIGINT.getTypeSignature(), 0, REGULAR);
+    private static final HiveColumnHandle NAME_COLUMN = new HiveColumnHandle("test", "name", HIVE_STRING, VARCHAR.getTypeSignature(), 1, REGULAR);
+    private static final HiveColumnHandle PARTITION_COLUMN = new HiveColumnHandle("test", "part", HIVE_LONG, BIGINT.getTypeSignature(), -1, PARTITION_KEY);
+    private static final List<HiveColumnHandle> COLUMNS = ImmutableList.of(ID_COLUMN, NAME_COLUMN, PARTITION_COLUMN);
+    private static final List<HivePartitionKey> PARTITION_KEYS = ImmutableList.of(new HivePartitionKey("part", HIVE_LONG, "42"));
+
+    private File tempDir;
+    private File file;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        assertTrue(ROWS_PER_ROW_GROUP > MAX_BATCH_SIZE);
+        tempDir = Files.createTempDir();
+        file = new File(tempDir, "data.rc");
+        writeTestFile(file);
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        FileUtils.deleteRecursively(tempDir);
+    }
+
+    @DataProvider(name = "splitCount")
+    public Object[][] splitCount()
+    {
+        return new Object[][] {{1}, {2}, {3}, {7}, {13}, {100}};
+    }
+
+    @Test(dataProvider = "splitCount")
+    public void testReadSplits(int splitCount)
+            throws Exception
+    {
+        long fileSize = file.length();
+        long splitSize = (fileSize + splitCount - 1) / splitCount;
+
+        int[] readCounts = new int[ROW_COUNT];
+        for (long start = 0; start < fileSize; start += splitSize) {
+            long length = min(splitSize, fileSize - start);
+            readSplit(start, length, readCounts);
+        }
+
+        for (int id = 0; id < ROW_COUNT; id++) {
+            assertEquals(readCounts[id], 1, "read count of row " + id);
+        }
+    }
+
+    private void readSplit(long start, long length, int[] readCounts)
+    {
+        ConnectorPageSource pageSource = createPageSource(start, length);
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page == null) {
+                continue;
+            }
+            assertTrue(page.getPositionCount() <= MAX_BATCH_SIZE);
+
+            Block idBlock = page.getBlock(0);
+            Block nameBlock = page.getBlock(1);
+            Block partitionBlock = page.getBlock(2);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                long id = BIGINT.getLong(idBlock, position);
+                readCounts[(int) id]++;
+                assertEquals(VARCHAR.getSlice(nameBlock, position).toStringUtf8(), "name " + id);
+                assertEquals(BIGINT.getLong(partitionBlock, position), 42L);
+            }
+        }
+        pageSource.close();
+    }
+
+    private ConnectorPageSource createPageSource(long start, long length)
+    {
+        HiveClientConfig config = new HiveClientConfig().setRcfileOptimizedReaderEnabled(true);
+        ConnectorSession session = new TestingConnectorSession(new HiveSessionProperties(config).getSessionProperties());
+
+        Properties schema = new Properties();
+        schema.setProperty(SERIALIZATION_LIB, ColumnarSerDe.class.getName());
+
+        RcFilePageSourceFactory pageSourceFactory = new RcFilePageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT);
+        return pageSourceFactory.createPageSource(
+                new Configuration(),
+                session,
+                new Path(file.toURI()),
+                start,
+                length,
+                schema,
+                COLUMNS,
+                PARTITION_KEYS,
+                TupleDomain.all(),
+                DateTimeZone.UTC)
+                .get();
+    }
+
+    private static void writeTestFile(File file)
+            throws IOException
+    {
+        Configuration configuration = new Configuration();
+        RCFileOutputFormat.setColumnNumber(configuration, 2);
+        configuration.setInt(RCFile.RECORD_INTERVAL_CONF_STR, ROWS_PER_ROW_GROUP);
+
+        FileSystem fileSystem = FileSystem.getLocal(configuration);
+        RCFile.Writer writer = new RCFile.Writer(fileSystem, configuration, new Path(file.toURI()), null, null);
+        for (long id = 0; id < ROW_COUNT; id++) {
+            BytesRefArrayWritable row = new BytesRefArrayWritable(2);
+            row.set(0, new BytesRefWritable(String.valueOf(id).getBytes(UTF_8)));
+            row.set(1, new BytesRefWritable(("name " + id).getBytes(UTF_8)));
+            writer.append(row);
+        }
+        writer.close();
+    }
+}
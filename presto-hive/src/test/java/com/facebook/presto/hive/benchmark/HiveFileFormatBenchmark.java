@@ -80,7 +80,8 @@ public class HiveFileFormatBenchmark
 
     @SuppressWarnings("deprecation")
     public static final HiveClientConfig CONFIG = new HiveClientConfig()
-            .setParquetOptimizedReaderEnabled(true);
+            .setParquetOptimizedReaderEnabled(true)
+            .setRcfileOptimizedReaderEnabled(true);
 
     public static final ConnectorSession SESSION = new TestingConnectorSession(new HiveSessionProperties(CONFIG)
             .getSessionProperties());
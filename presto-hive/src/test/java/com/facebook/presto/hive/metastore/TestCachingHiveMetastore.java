@@ -23,6 +23,8 @@ import org.testng.annotations.Test;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.hive.metastore.MockHiveMetastoreClient.BAD_DATABASE;
@@ -33,9 +35,11 @@ import static com.facebook.presto.hive.metastore.MockHiveMetastoreClient.TEST_TA
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestCachingHiveMetastore
@@ -203,6 +207,44 @@ public class TestCachingHiveMetastore
         assertEquals(mockClient.getAccessCount(), 4);
     }
 
+    @Test
+    public void testBatchedPartitionRefresh()
+            throws Exception
+    {
+        ExecutorService refreshExecutor = newSingleThreadExecutor(daemonThreadsNamed("test-refresh-%s"));
+        ExtendedHiveMetastore refreshingMetastore = new CachingHiveMetastore(
+                new BridgingHiveMetastore(new ThriftHiveMetastore(new MockHiveCluster(mockClient))),
+                refreshExecutor,
+                new Duration(5, TimeUnit.MINUTES),
+                new Duration(1, TimeUnit.MILLISECONDS));
+
+        assertEquals(refreshingMetastore.getPartitionsByNames(TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION1, TEST_PARTITION2)).size(), 2);
+        assertEquals(mockClient.getAccessCount(), 1);
+        Thread.sleep(10);
+
+        // hold the refresh executor so both stale partitions are queued before the refresh runs
+        CountDownLatch latch = new CountDownLatch(1);
+        refreshExecutor.execute(() -> {
+            try {
+                latch.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // stale values are returned immediately
+        assertEquals(refreshingMetastore.getPartitionsByNames(TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION1, TEST_PARTITION2)).size(), 2);
+        assertEquals(mockClient.getAccessCount(), 1);
+
+        latch.countDown();
+        refreshExecutor.shutdown();
+        assertTrue(refreshExecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // both partitions are refreshed with a single batched access
+        assertEquals(mockClient.getAccessCount(), 2);
+    }
+
     public void testInvalidGetPartitionsByNames()
             throws Exception
     {
@@ -16,11 +16,15 @@ package com.facebook.presto.hive.parquet;
 import com.facebook.presto.spi.type.SqlDate;
 import com.facebook.presto.spi.type.SqlTimestamp;
 import com.facebook.presto.spi.type.SqlVarbinary;
+import com.facebook.presto.type.ArrayType;
+import com.facebook.presto.type.MapType;
+import com.facebook.presto.type.RowType;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.AbstractSequentialIterator;
 import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Range;
 import com.google.common.primitives.Shorts;
 import org.joda.time.DateTimeZone;
@@ -32,9 +36,12 @@ import parquet.hadoop.codec.CodecConfig;
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -56,6 +63,9 @@ import static com.google.common.collect.Iterables.cycle;
 import static com.google.common.collect.Iterables.limit;
 import static com.google.common.collect.Iterables.transform;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardListObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardMapObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaBooleanObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaByteArrayObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaByteObjectInspector;
@@ -264,6 +274,59 @@ public abstract class AbstractTestParquetReader
         tester.testRoundTrip(javaByteArrayObjectInspector, limit(cycle(new byte[0]), 30_000), AbstractTestParquetReader::byteArrayToVarbinary, VARBINARY);
     }
 
+    @Test
+    public void testArray()
+            throws Exception
+    {
+        Iterable<List<Integer>> values = transform(intsBetween(0, 31_234), AbstractTestParquetReader::intToList);
+        tester.testRoundTrip(getStandardListObjectInspector(javaIntObjectInspector), values, values, new ArrayType(INTEGER));
+    }
+
+    @Test
+    public void testArrayOfArrays()
+            throws Exception
+    {
+        Iterable<List<List<Integer>>> values = transform(intsBetween(0, 10_000), AbstractTestParquetReader::intToNestedList);
+        tester.testRoundTrip(getStandardListObjectInspector(getStandardListObjectInspector(javaIntObjectInspector)), values, values, new ArrayType(new ArrayType(INTEGER)));
+    }
+
+    @Test
+    public void testMap()
+            throws Exception
+    {
+        Iterable<Map<String, Integer>> values = transform(intsBetween(0, 31_234), AbstractTestParquetReader::intToMap);
+        tester.testRoundTrip(
+                getStandardMapObjectInspector(javaStringObjectInspector, javaIntObjectInspector),
+                values,
+                values,
+                new MapType(createUnboundedVarcharType(), INTEGER));
+    }
+
+    @Test
+    public void testStruct()
+            throws Exception
+    {
+        Iterable<List<Object>> values = transform(intsBetween(0, 31_234), AbstractTestParquetReader::intToStruct);
+        tester.testRoundTrip(
+                getStandardStructObjectInspector(ImmutableList.of("a", "b"), ImmutableList.of(javaIntObjectInspector, javaStringObjectInspector)),
+                values,
+                values,
+                new RowType(ImmutableList.of(INTEGER, createUnboundedVarcharType()), Optional.of(ImmutableList.of("a", "b"))));
+    }
+
+    @Test
+    public void testArrayOfStructs()
+            throws Exception
+    {
+        Iterable<List<List<Object>>> values = transform(intsBetween(0, 10_000), AbstractTestParquetReader::intToStructList);
+        RowType rowType = new RowType(ImmutableList.of(INTEGER, createUnboundedVarcharType()), Optional.of(ImmutableList.of("a", "b")));
+        tester.testRoundTrip(
+                getStandardListObjectInspector(getStandardStructObjectInspector(ImmutableList.of("a", "b"), ImmutableList.of(javaIntObjectInspector, javaStringObjectInspector))),
+                values,
+                values,
+                new ArrayType(rowType));
+    }
+
     private static <T> Iterable<T> skipEvery(int n, Iterable<T> iterable)
     {
         return () -> new AbstractIterator<T>()
@@ -478,4 +541,42 @@ public abstract class AbstractTestParquetReader
         }
         return new SqlDate(input);
     }
+
+    // every seventh list is empty, and every other list has a null element
+    private static List<Integer> intToList(Integer input)
+    {
+        if (input % 7 == 0) {
+            return ImmutableList.of();
+        }
+        if (input % 2 == 0) {
+            return Arrays.asList(input, null, input + 1);
+        }
+        return Arrays.asList(input, input + 1);
+    }
+
+    private static List<List<Integer>> intToNestedList(Integer input)
+    {
+        return Arrays.asList(intToList(input), null, intToList(input + 1));
+    }
+
+    private static Map<String, Integer> intToMap(Integer input)
+    {
+        if (input % 7 == 0) {
+            return ImmutableMap.of();
+        }
+        return ImmutableMap.of(input.toString(), input, "x" + input, input + 1);
+    }
+
+    private static List<Object> intToStruct(Integer input)
+    {
+        return Arrays.asList(input, input % 3 == 0 ? null : input.toString());
+    }
+
+    private static List<List<Object>> intToStructList(Integer input)
+    {
+        if (input % 5 == 0) {
+            return ImmutableList.of();
+        }
+        return Arrays.asList(intToStruct(input), null, intToStruct(input + 1));
+    }
 }
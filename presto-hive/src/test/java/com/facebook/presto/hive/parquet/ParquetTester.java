@@ -38,7 +38,6 @@ import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapred.JobConf;
 import org.joda.time.DateTimeZone;
-import parquet.column.ColumnDescriptor;
 import parquet.column.ParquetProperties.WriterVersion;
 import parquet.hadoop.ParquetOutputFormat;
 import parquet.hadoop.metadata.CompressionCodecName;
@@ -51,9 +50,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 
+import static com.facebook.presto.hive.parquet.ParquetTypeUtils.constructField;
 import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
 import static com.google.common.base.Functions.constant;
 import static com.google.common.collect.Iterables.transform;
@@ -179,11 +180,19 @@ public class ParquetTester
                                                         dataSource);
         assertEquals(parquetReader.getPosition(), 0);
 
+        Optional<ParquetField> field = constructField(type, fileSchema.getType(0), fileSchema);
+        assertTrue(field.isPresent());
+
         int rowsProcessed = 0;
         Iterator<?> iterator = expectedValues.iterator();
         for (int batchSize = parquetReader.nextBatch(); batchSize >= 0; batchSize = parquetReader.nextBatch()) {
-            ColumnDescriptor columnDescriptor = fileSchema.getColumns().get(0);
-            Block block = parquetReader.readBlock(columnDescriptor, type);
+            Block block;
+            if (field.get() instanceof ParquetPrimitiveField) {
+                block = parquetReader.readBlock(((ParquetPrimitiveField) field.get()).getDescriptor(), type);
+            }
+            else {
+                block = parquetReader.readBlock(field.get());
+            }
             for (int i = 0; i < batchSize; i++) {
                 assertTrue(iterator.hasNext());
                 Object expected = iterator.next();
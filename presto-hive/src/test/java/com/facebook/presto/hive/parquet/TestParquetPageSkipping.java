@@ -0,0 +1,187 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.hive.parquet.ParquetTester.TempFile;
+import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
+import com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredicate;
+import com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredicate.ColumnReference;
+import com.facebook.presto.hive.parquet.reader.ParquetMetadataReader;
+import com.facebook.presto.hive.parquet.reader.ParquetReader;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
+import org.apache.hadoop.hive.ql.io.parquet.MapredParquetOutputFormat;
+import org.apache.hadoop.hive.ql.io.parquet.serde.ParquetHiveSerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.testng.annotations.Test;
+import parquet.hadoop.ParquetOutputFormat;
+import parquet.hadoop.metadata.FileMetaData;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.schema.MessageType;
+
+import java.io.File;
+import java.util.List;
+import java.util.Properties;
+
+import static com.facebook.presto.hive.parquet.ParquetTypeUtils.constructField;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+
+public class TestParquetPageSkipping
+{
+    private static final int ROW_COUNT = 20_000;
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("id", "name", "value");
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, BIGINT);
+
+    @Test
+    public void testSkipPagesOfSortedColumn()
+            throws Exception
+    {
+        Domain domain = Domain.create(ValueSet.ofRanges(
+                Range.range(BIGINT, 5_000L, true, 5_999L, true),
+                Range.equal(BIGINT, 15_000L)),
+                false);
+        ParquetPredicate predicate = new TupleDomainParquetPredicate<>(
+                TupleDomain.withColumnDomains(ImmutableMap.of("id", domain)),
+                ImmutableList.of(new ColumnReference<>("id", 0, BIGINT)));
+
+        try (TempFile tempFile = new TempFile("test", "parquet")) {
+            JobConf jobConf = new JobConf();
+            jobConf.setEnum(ParquetOutputFormat.COMPRESSION, UNCOMPRESSED);
+            jobConf.setBoolean(ParquetOutputFormat.ENABLE_DICTIONARY, false);
+            // small pages, so each column is split in many pages, and the longer names into more pages than the ids
+            jobConf.setInt(ParquetOutputFormat.PAGE_SIZE, 4096);
+            writeTestFile(jobConf, tempFile.getFile());
+
+            Path path = new Path(tempFile.getFile().toURI());
+            FileSystem fileSystem = path.getFileSystem(jobConf);
+            ParquetMetadata parquetMetadata = ParquetMetadataReader.readFooter(fileSystem, path);
+            FileMetaData fileMetaData = parquetMetadata.getFileMetaData();
+            MessageType fileSchema = fileMetaData.getSchema();
+            ParquetDataSource dataSource = new HdfsParquetDataSource(path, fileSystem.getFileStatus(path).getLen(), fileSystem.open(path));
+
+            ParquetReader parquetReader = new ParquetReader(
+                    fileSchema,
+                    fileMetaData.getKeyValueMetaData(),
+                    fileSchema,
+                    parquetMetadata.getBlocks(),
+                    jobConf,
+                    dataSource,
+                    predicate);
+
+            ParquetPrimitiveField[] fields = new ParquetPrimitiveField[TYPES.size()];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = (ParquetPrimitiveField) constructField(TYPES.get(i), fileSchema.getType(i), fileSchema).get();
+            }
+
+            int rowsRead = 0;
+            long previousId = -1;
+            boolean[] matchingRowsRead = new boolean[ROW_COUNT];
+            for (int batchSize = parquetReader.nextBatch(); batchSize >= 0; batchSize = parquetReader.nextBatch()) {
+                Block idBlock = parquetReader.readBlock(fields[0].getDescriptor(), BIGINT);
+                Block nameBlock = parquetReader.readBlock(fields[1].getDescriptor(), VARCHAR);
+                Block valueBlock = parquetReader.readBlock(fields[2].getDescriptor(), BIGINT);
+                assertEquals(idBlock.getPositionCount(), batchSize);
+                assertEquals(nameBlock.getPositionCount(), batchSize);
+                assertEquals(valueBlock.getPositionCount(), batchSize);
+
+                for (int position = 0; position < batchSize; position++) {
+                    long id = BIGINT.getLong(idBlock, position);
+                    // rows are read in order, each at most once
+                    assertTrue(id > previousId);
+                    previousId = id;
+
+                    // the columns that were not filtered must have skipped the same rows
+                    assertEquals(VARCHAR.getSlice(nameBlock, position).toStringUtf8(), getName(id));
+                    assertEquals(BIGINT.getLong(valueBlock, position), getValue(id));
+
+                    if (domain.includesNullableValue(id)) {
+                        matchingRowsRead[(int) id] = true;
+                    }
+                }
+                rowsRead += batchSize;
+            }
+            assertEquals(parquetReader.getPosition(), ROW_COUNT);
+            parquetReader.close();
+
+            // the pages of the id column that can not match are skipped, but no matching row is lost
+            assertTrue(rowsRead < ROW_COUNT / 2, "rows read: " + rowsRead);
+            for (int id = 0; id < ROW_COUNT; id++) {
+                assertEquals(matchingRowsRead[id], domain.includesNullableValue((long) id), "row " + id);
+            }
+        }
+    }
+
+    private static void writeTestFile(JobConf jobConf, File file)
+            throws Exception
+    {
+        Properties tableProperties = new Properties();
+        tableProperties.setProperty("columns", "id,name,value");
+        tableProperties.setProperty("columns.types", "bigint,string,bigint");
+
+        RecordWriter recordWriter = new MapredParquetOutputFormat().getHiveRecordWriter(
+                jobConf,
+                new Path(file.toURI()),
+                Text.class,
+                false,
+                tableProperties,
+                () -> { });
+        SettableStructObjectInspector objectInspector = getStandardStructObjectInspector(
+                COLUMN_NAMES,
+                ImmutableList.of(javaLongObjectInspector, javaStringObjectInspector, javaLongObjectInspector));
+        List<StructField> fields = ImmutableList.copyOf(objectInspector.getAllStructFieldRefs());
+
+        ParquetHiveSerDe serde = new ParquetHiveSerDe();
+        serde.initialize(jobConf, tableProperties, null);
+
+        Object row = objectInspector.create();
+        for (long id = 0; id < ROW_COUNT; id++) {
+            objectInspector.setStructFieldData(row, fields.get(0), id);
+            objectInspector.setStructFieldData(row, fields.get(1), getName(id));
+            objectInspector.setStructFieldData(row, fields.get(2), getValue(id));
+            recordWriter.write(serde.serialize(row, objectInspector));
+        }
+        recordWriter.close(false);
+    }
+
+    private static String getName(long id)
+    {
+        return "name " + id + Strings.repeat("x", (int) (id % 37));
+    }
+
+    private static long getValue(long id)
+    {
+        // not sorted, so page statistics of this column could not exclude anything
+        return (id * 7919) % ROW_COUNT;
+    }
+}
@@ -13,7 +13,14 @@
  */
 package com.facebook.presto.hive.parquet;
 
+import com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredicate;
+import com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredicate.ColumnReference;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.predicate.ValueSet;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.testng.annotations.Test;
 import parquet.column.statistics.BinaryStatistics;
 import parquet.column.statistics.BooleanStatistics;
@@ -25,6 +32,7 @@ import static com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredi
 import static com.facebook.presto.spi.predicate.Domain.all;
 import static com.facebook.presto.spi.predicate.Domain.create;
 import static com.facebook.presto.spi.predicate.Domain.singleValue;
+import static com.facebook.presto.spi.predicate.Range.greaterThan;
 import static com.facebook.presto.spi.predicate.Range.range;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
@@ -32,6 +40,8 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.VarcharType.createUnboundedVarcharType;
 import static io.airlift.slice.Slices.utf8Slice;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestTupleDomainParquetPredicate
 {
@@ -72,6 +82,25 @@ public class TestTupleDomainParquetPredicate
         return statistics;
     }
 
+    @Test
+    public void testColumnIndexes()
+            throws Exception
+    {
+        TupleDomain<String> effectivePredicate = TupleDomain.withColumnDomains(ImmutableMap.of("a", Domain.create(ValueSet.ofRanges(greaterThan(BIGINT, 50L)), false)));
+        TupleDomainParquetPredicate<String> predicate = new TupleDomainParquetPredicate<>(
+                effectivePredicate,
+                ImmutableList.of(new ColumnReference<>("a", 0, BIGINT), new ColumnReference<>("b", 1, BIGINT)));
+
+        assertEquals(predicate.getColumnIndexes(), ImmutableSet.of(0));
+
+        // statistics of a single data page
+        assertFalse(predicate.matches(10, ImmutableMap.of(0, longColumnStats(0L, 10L))));
+        assertTrue(predicate.matches(10, ImmutableMap.of(0, longColumnStats(40L, 60L))));
+        assertTrue(predicate.matches(10, ImmutableMap.of(1, longColumnStats(0L, 10L))));
+
+        assertEquals(new TupleDomainParquetPredicate<>(TupleDomain.<String>none(), ImmutableList.of(new ColumnReference<>("a", 0, BIGINT))).getColumnIndexes(), ImmutableSet.of());
+    }
+
     @Test
     public void testDouble()
             throws Exception
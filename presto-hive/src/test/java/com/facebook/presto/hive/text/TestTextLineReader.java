@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.text;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+
+public class TestTextLineReader
+{
+    @Test
+    public void testLineTerminators()
+            throws Exception
+    {
+        assertLines("a\nbb\r\nccc\rdddd", ImmutableList.of("a", "bb", "ccc", "dddd"));
+        assertLines("a\n\n\r\n\rb\n", ImmutableList.of("a", "", "", "", "b"));
+        assertLines("\uFEFFa\nb\n", ImmutableList.of("a", "b"));
+        assertLines("", ImmutableList.of());
+    }
+
+    private static void assertLines(String data, List<String> expectedLines)
+            throws IOException
+    {
+        File file = File.createTempFile("presto_test", "text");
+        try {
+            byte[] bytes = data.getBytes(UTF_8);
+            Files.write(bytes, file);
+            FileSystem fileSystem = FileSystem.getLocal(new Configuration());
+            Path path = new Path(file.getAbsolutePath());
+
+            // every line is read exactly once wherever the file is split
+            for (int splitPoint = 1; splitPoint <= bytes.length; splitPoint++) {
+                ImmutableList.Builder<String> lines = ImmutableList.builder();
+                lines.addAll(readLines(fileSystem, path, 0, splitPoint));
+                lines.addAll(readLines(fileSystem, path, splitPoint, bytes.length - splitPoint));
+                assertEquals(lines.build(), expectedLines, "split at " + splitPoint);
+            }
+            assertEquals(readLines(fileSystem, path, 0, bytes.length), expectedLines);
+        }
+        finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private static List<String> readLines(FileSystem fileSystem, Path path, long start, long length)
+            throws IOException
+    {
+        FSDataInputStream input = fileSystem.open(path);
+        input.seek(start);
+        ImmutableList.Builder<String> lines = ImmutableList.builder();
+        try (TextLineReader reader = new TextLineReader(input, input, Optional.empty(), start, start + length)) {
+            int lineCount;
+            while ((lineCount = reader.readLines(2)) > 0) {
+                for (int line = 0; line < lineCount; line++) {
+                    lines.add(new String(reader.getLineData(), reader.getLineOffset(line), reader.getLineLength(line), UTF_8));
+                }
+            }
+        }
+        return lines.build();
+    }
+}
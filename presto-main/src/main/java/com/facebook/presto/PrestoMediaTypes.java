@@ -19,6 +19,8 @@ public final class PrestoMediaTypes
 {
     public static final String PRESTO_PAGES = "application/X-presto-pages";
     public static final MediaType PRESTO_PAGES_TYPE = MediaType.create("application", "X-presto-pages");
+    public static final String PRESTO_SERIALIZED_PAGES = "application/X-presto-serialized-pages";
+    public static final MediaType PRESTO_SERIALIZED_PAGES_TYPE = MediaType.create("application", "X-presto-serialized-pages");
 
     private PrestoMediaTypes()
     {
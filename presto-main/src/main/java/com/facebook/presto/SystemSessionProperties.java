@@ -29,6 +29,7 @@ import javax.inject.Inject;
 import java.util.List;
 
 import static com.facebook.presto.spi.session.PropertyMetadata.booleanSessionProperty;
+import static com.facebook.presto.spi.session.PropertyMetadata.doubleSessionProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.integerSessionProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.stringSessionProperty;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -51,6 +52,7 @@ public final class SystemSessionProperties
     public static final String RESOURCE_OVERCOMMIT = "resource_overcommit";
     public static final String QUERY_MAX_CPU_TIME = "query_max_cpu_time";
     public static final String REDISTRIBUTE_WRITES = "redistribute_writes";
+    public static final String DISTRIBUTED_SORT = "distributed_sort";
     public static final String PUSH_TABLE_WRITE_THROUGH_UNION = "push_table_write_through_union";
     public static final String EXECUTION_POLICY = "execution_policy";
     public static final String PROCESSING_OPTIMIZATION = "processing_optimization";
@@ -61,6 +63,13 @@ public final class SystemSessionProperties
     public static final String SPLIT_CONCURRENCY_ADJUSTMENT_INTERVAL = "split_concurrency_adjustment_interval";
     public static final String OPTIMIZE_METADATA_QUERIES = "optimize_metadata_queries";
     public static final String QUERY_PRIORITY = "query_priority";
+    public static final String SPILL_ENABLED = "spill_enabled";
+    public static final String OPERATOR_MEMORY_LIMIT_BEFORE_SPILL = "operator_memory_limit_before_spill";
+    public static final String DYNAMIC_FILTERING_ENABLED = "dynamic_filtering_enabled";
+    public static final String REORDER_JOINS = "reorder_joins";
+    public static final String JOIN_MAX_BROADCAST_TABLE_SIZE = "join_max_broadcast_table_size";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION = "adaptive_partial_aggregation";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO = "adaptive_partial_aggregation_unique_rows_ratio";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -117,6 +126,11 @@ public final class SystemSessionProperties
                         "Force parallel distributed writes",
                         featuresConfig.isRedistributeWrites(),
                         false),
+                booleanSessionProperty(
+                        DISTRIBUTED_SORT,
+                        "Sort each partition of the data in parallel and merge the sorted partitions",
+                        featuresConfig.isDistributedSort(),
+                        false),
                 booleanSessionProperty(
                         PUSH_TABLE_WRITE_THROUGH_UNION,
                         "Parallelize writes when using UNION ALL in queries that write data",
@@ -219,6 +233,49 @@ public final class SystemSessionProperties
                         COLOCATED_JOIN,
                         "Experimental: Use a colocated join when possible",
                         featuresConfig.isColocatedJoinsEnabled(),
+                        false),
+                booleanSessionProperty(
+                        SPILL_ENABLED,
+                        "Experimental: Enable spilling",
+                        featuresConfig.isSpillEnabled(),
+                        false),
+                new PropertyMetadata<>(
+                        OPERATOR_MEMORY_LIMIT_BEFORE_SPILL,
+                        "Experimental: Operator memory limit before spill",
+                        VARCHAR,
+                        DataSize.class,
+                        featuresConfig.getOperatorMemoryLimitBeforeSpill(),
+                        false,
+                        value -> DataSize.valueOf((String) value),
+                        DataSize::toString),
+                booleanSessionProperty(
+                        DYNAMIC_FILTERING_ENABLED,
+                        "Experimental: Filter probe side table scans in the same stage using the build side of a join",
+                        featuresConfig.isDynamicFilteringEnabled(),
+                        false),
+                booleanSessionProperty(
+                        REORDER_JOINS,
+                        "Experimental: Reorder joins and pick their distribution based on table statistics",
+                        featuresConfig.isJoinReorderingEnabled(),
+                        false),
+                new PropertyMetadata<>(
+                        JOIN_MAX_BROADCAST_TABLE_SIZE,
+                        "Maximum estimated size of the build side of a join that is broadcast when joins are reordered",
+                        VARCHAR,
+                        DataSize.class,
+                        featuresConfig.getJoinMaxBroadcastTableSize(),
+                        false,
+                        value -> DataSize.valueOf((String) value),
+                        DataSize::toString),
+                booleanSessionProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION,
+                        "Experimental: Stop hashing in partial aggregations that do not reduce their input",
+                        featuresConfig.isAdaptivePartialAggregationEnabled(),
+                        false),
+                doubleSessionProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO,
+                        "Ratio of distinct groups to input rows above which a partial aggregation passes its rows through",
+                        featuresConfig.getAdaptivePartialAggregationUniqueRowsRatio(),
                         false));
     }
 
@@ -267,6 +324,11 @@ public final class SystemSessionProperties
         return session.getProperty(REDISTRIBUTE_WRITES, Boolean.class);
     }
 
+    public static boolean isDistributedSortEnabled(Session session)
+    {
+        return session.getProperty(DISTRIBUTED_SORT, Boolean.class);
+    }
+
     public static boolean isPushTableWriteThroughUnion(Session session)
     {
         return session.getProperty(PUSH_TABLE_WRITE_THROUGH_UNION, Boolean.class);
@@ -343,4 +405,39 @@ public final class SystemSessionProperties
     {
         return session.getProperty(QUERY_MAX_CPU_TIME, Duration.class);
     }
+
+    public static boolean isSpillEnabled(Session session)
+    {
+        return session.getProperty(SPILL_ENABLED, Boolean.class);
+    }
+
+    public static DataSize getOperatorMemoryLimitBeforeSpill(Session session)
+    {
+        return session.getProperty(OPERATOR_MEMORY_LIMIT_BEFORE_SPILL, DataSize.class);
+    }
+
+    public static boolean isDynamicFilteringEnabled(Session session)
+    {
+        return session.getProperty(DYNAMIC_FILTERING_ENABLED, Boolean.class);
+    }
+
+    public static boolean isJoinReorderingEnabled(Session session)
+    {
+        return session.getProperty(REORDER_JOINS, Boolean.class);
+    }
+
+    public static DataSize getJoinMaxBroadcastTableSize(Session session)
+    {
+        return session.getProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, DataSize.class);
+    }
+
+    public static boolean isAdaptivePartialAggregationEnabled(Session session)
+    {
+        return session.getProperty(ADAPTIVE_PARTIAL_AGGREGATION, Boolean.class);
+    }
+
+    public static double getAdaptivePartialAggregationUniqueRowsRatio(Session session)
+    {
+        return session.getProperty(ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO, Double.class);
+    }
 }
@@ -14,18 +14,29 @@
 package com.facebook.presto.block;
 
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.google.common.collect.AbstractIterator;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.XxHash64;
 
 import java.util.Iterator;
 
 import static com.facebook.presto.block.BlockSerdeUtil.readBlock;
 import static com.facebook.presto.block.BlockSerdeUtil.writeBlock;
+import static com.facebook.presto.spi.StandardErrorCode.PAGE_TRANSPORT_ERROR;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
 import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 
 // layout is:
 //   - position count (int)
@@ -33,8 +44,22 @@ import static java.util.Objects.requireNonNull;
 //   - sequence of:
 //       - block encoding
 //       - block
+//
+// serialized layout is a sequence of:
+//   - position count (int)
+//   - markers (byte): COMPRESSED_MARKER if the page data is compressed, CHECKSUMMED_MARKER if a checksum is present
+//   - uncompressed size of the page data (int)
+//   - size of the page data (int)
+//   - XxHash64 checksum of the page data (long), only if the page is checksummed
+//   - page data: number of blocks (int) followed by the sequence of block encoding and block, optionally LZ4 compressed
 public final class PagesSerde
 {
+    private static final byte COMPRESSED_MARKER = 0b01;
+    private static final byte CHECKSUMMED_MARKER = 0b10;
+
+    // only send the compressed data if it saves at least this fraction of the page data
+    private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+
     private PagesSerde() {}
 
     public static void writePages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, Page... pages)
@@ -60,6 +85,19 @@ public final class PagesSerde
         return new PagesReader(blockEncodingSerde, sliceInput);
     }
 
+    public static void writeSerializedPages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, boolean compress, boolean checksum, Iterable<Page> pages)
+    {
+        SerializedPagesWriter pagesWriter = new SerializedPagesWriter(blockEncodingSerde, sliceOutput, compress, checksum);
+        for (Page page : pages) {
+            pagesWriter.append(page);
+        }
+    }
+
+    public static SerializedPagesReader readSerializedPages(BlockEncodingSerde blockEncodingSerde, SliceInput sliceInput)
+    {
+        return new SerializedPagesReader(blockEncodingSerde, sliceInput);
+    }
+
     private static class PagesWriter
     {
         private final BlockEncodingSerde serde;
@@ -118,4 +156,156 @@ public final class PagesSerde
             return page;
         }
     }
+
+    private static class SerializedPagesWriter
+    {
+        private final BlockEncodingSerde serde;
+        private final SliceOutput output;
+        private final Lz4Compressor compressor;
+        private final boolean checksum;
+
+        private SerializedPagesWriter(BlockEncodingSerde serde, SliceOutput output, boolean compress, boolean checksum)
+        {
+            this.serde = requireNonNull(serde, "serde is null");
+            this.output = requireNonNull(output, "output is null");
+            this.compressor = compress ? new Lz4Compressor() : null;
+            this.checksum = checksum;
+        }
+
+        public SerializedPagesWriter append(Page page)
+        {
+            requireNonNull(page, "page is null");
+
+            Block[] blocks = page.getBlocks();
+            DynamicSliceOutput pageOutput = new DynamicSliceOutput(toIntExact(page.getSizeInBytes()));
+            pageOutput.writeInt(blocks.length);
+            for (int i = 0; i < blocks.length; i++) {
+                writeBlock(serde, pageOutput, blocks[i]);
+            }
+            Slice uncompressed = pageOutput.slice();
+
+            byte markers = 0;
+            Slice data = uncompressed;
+            if (compressor != null) {
+                Slice compressed = compress(uncompressed);
+                if (compressed.length() <= uncompressed.length() * MINIMUM_COMPRESSION_RATIO) {
+                    data = compressed;
+                    markers |= COMPRESSED_MARKER;
+                }
+            }
+            if (checksum) {
+                markers |= CHECKSUMMED_MARKER;
+            }
+
+            output.writeInt(page.getPositionCount());
+            output.writeByte(markers);
+            output.writeInt(uncompressed.length());
+            output.writeInt(data.length());
+            if (checksum) {
+                output.writeLong(XxHash64.hash(data));
+            }
+            output.writeBytes(data);
+
+            return this;
+        }
+
+        private Slice compress(Slice uncompressed)
+        {
+            byte[] input = (byte[]) uncompressed.getBase();
+            int inputOffset = (int) (uncompressed.getAddress() - ARRAY_BYTE_BASE_OFFSET);
+
+            int maxCompressedLength = compressor.maxCompressedLength(uncompressed.length());
+            byte[] compressed = new byte[maxCompressedLength];
+            int compressedLength = compressor.compress(input, inputOffset, uncompressed.length(), compressed, 0, maxCompressedLength);
+            return wrappedBuffer(compressed, 0, compressedLength);
+        }
+    }
+
+    public static class SerializedPagesReader
+            extends AbstractIterator<Page>
+    {
+        private final BlockEncodingSerde serde;
+        private final SliceInput input;
+        private final Lz4Decompressor decompressor = new Lz4Decompressor();
+
+        private long compressedSizeInBytes;
+        private long uncompressedSizeInBytes;
+
+        private SerializedPagesReader(BlockEncodingSerde serde, SliceInput input)
+        {
+            this.serde = requireNonNull(serde, "serde is null");
+            this.input = requireNonNull(input, "input is null");
+        }
+
+        /**
+         * Size of the page data read so far, as it was sent.
+         */
+        public long getCompressedSizeInBytes()
+        {
+            return compressedSizeInBytes;
+        }
+
+        /**
+         * Size of the page data read so far, after decompression.
+         */
+        public long getUncompressedSizeInBytes()
+        {
+            return uncompressedSizeInBytes;
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            if (!input.isReadable()) {
+                return endOfData();
+            }
+
+            int positions = input.readInt();
+            byte markers = input.readByte();
+            int uncompressedSize = input.readInt();
+            int size = input.readInt();
+            long expectedChecksum = 0;
+            if ((markers & CHECKSUMMED_MARKER) != 0) {
+                expectedChecksum = input.readLong();
+            }
+            Slice data = input.readSlice(size);
+
+            if ((markers & CHECKSUMMED_MARKER) != 0) {
+                long actualChecksum = XxHash64.hash(data);
+                if (actualChecksum != expectedChecksum) {
+                    throw new PrestoException(PAGE_TRANSPORT_ERROR, format("Checksum mismatch for serialized page: expected %s, but was %s", expectedChecksum, actualChecksum));
+                }
+            }
+            if ((markers & COMPRESSED_MARKER) != 0) {
+                data = decompress(data, uncompressedSize);
+            }
+
+            compressedSizeInBytes += size;
+            uncompressedSizeInBytes += uncompressedSize;
+
+            SliceInput pageInput = data.getInput();
+            int numberOfBlocks = pageInput.readInt();
+            Block[] blocks = new Block[numberOfBlocks];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = readBlock(serde, pageInput);
+            }
+
+            @SuppressWarnings("UnnecessaryLocalVariable")
+            Page page = new Page(positions, blocks);
+            return page;
+        }
+
+        private Slice decompress(Slice compressed, int uncompressedSize)
+        {
+            byte[] input = (byte[]) compressed.getBase();
+            int inputOffset = (int) (compressed.getAddress() - ARRAY_BYTE_BASE_OFFSET);
+
+            byte[] output = new byte[uncompressedSize];
+            int outputLength = decompressor.decompress(input, inputOffset, compressed.length(), output, 0, uncompressedSize);
+            if (outputLength != uncompressedSize) {
+                throw new PrestoException(PAGE_TRANSPORT_ERROR, format("Serialized page decompressed to %s bytes, but expected %s bytes", outputLength, uncompressedSize));
+            }
+            return wrappedBuffer(output);
+        }
+    }
 }
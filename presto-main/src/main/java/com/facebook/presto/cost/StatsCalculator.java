@@ -0,0 +1,302 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cost;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.statistics.TableStatistics;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.OutputNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanVisitor;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.SortNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.ComparisonExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.Literal;
+import com.facebook.presto.sql.tree.SymbolReference;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.facebook.presto.sql.ExpressionUtils.extractConjuncts;
+import static com.facebook.presto.sql.tree.ComparisonExpression.Type.EQUAL;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimates the output of plan nodes from the table statistics provided by the connectors.
+ * <p>
+ * The estimates assume that values are uniformly distributed and that columns are independent.
+ * A node whose estimate can not be derived has an unknown row count.
+ */
+public class StatsCalculator
+{
+    // selectivity of predicates that can not be estimated any better
+    private static final double UNKNOWN_FILTER_COEFFICIENT = 0.9;
+    private static final double COMPARISON_FILTER_COEFFICIENT = 0.5;
+
+    private final Metadata metadata;
+
+    public StatsCalculator(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    public PlanNodeStatsEstimate calculateStats(PlanNode node, Session session)
+    {
+        return node.accept(new Visitor(session), null);
+    }
+
+    private class Visitor
+            extends PlanVisitor<Void, PlanNodeStatsEstimate>
+    {
+        private final Session session;
+
+        public Visitor(Session session)
+        {
+            this.session = requireNonNull(session, "session is null");
+        }
+
+        @Override
+        protected PlanNodeStatsEstimate visitPlan(PlanNode node, Void context)
+        {
+            return PlanNodeStatsEstimate.UNKNOWN_STATS;
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitTableScan(TableScanNode node, Void context)
+        {
+            Constraint<ColumnHandle> constraint = new Constraint<>(node.getCurrentConstraint(), bindings -> true);
+            TableStatistics statistics = metadata.getTableStatistics(session, node.getTable(), constraint);
+
+            Map<Symbol, Estimate> distinctValues = new HashMap<>();
+            for (Map.Entry<Symbol, ColumnHandle> entry : node.getAssignments().entrySet()) {
+                ColumnStatistics columnStatistics = statistics.getColumnStatistics(entry.getValue());
+                if (!columnStatistics.getDistinctValuesCount().isValueUnknown()) {
+                    distinctValues.put(entry.getKey(), columnStatistics.getDistinctValuesCount());
+                }
+            }
+            return new PlanNodeStatsEstimate(statistics.getRowCount(), distinctValues);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitValues(ValuesNode node, Void context)
+        {
+            return new PlanNodeStatsEstimate(Estimate.of(node.getRows().size()), new HashMap<>());
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitFilter(FilterNode node, Void context)
+        {
+            PlanNodeStatsEstimate sourceStats = node.getSource().accept(this, context);
+
+            Map<Symbol, Estimate> distinctValues = new HashMap<>(sourceStats.getDistinctValuesCounts());
+            double selectivity = 1.0;
+            for (Expression conjunct : extractConjuncts(node.getPredicate())) {
+                if (!(conjunct instanceof ComparisonExpression)) {
+                    selectivity *= UNKNOWN_FILTER_COEFFICIENT;
+                    continue;
+                }
+                ComparisonExpression comparison = (ComparisonExpression) conjunct;
+                if (comparison.getType() == EQUAL && comparison.getLeft() instanceof SymbolReference && comparison.getRight() instanceof Literal) {
+                    // an equality with a constant keeps a single value of the column
+                    Symbol symbol = Symbol.from(comparison.getLeft());
+                    Estimate symbolDistinctValues = sourceStats.getDistinctValuesCount(symbol);
+                    if (!symbolDistinctValues.isValueUnknown() && symbolDistinctValues.getValue() > 0) {
+                        selectivity /= symbolDistinctValues.getValue();
+                    }
+                    else {
+                        selectivity *= UNKNOWN_FILTER_COEFFICIENT;
+                    }
+                    distinctValues.put(symbol, Estimate.of(1));
+                }
+                else {
+                    selectivity *= COMPARISON_FILTER_COEFFICIENT;
+                }
+            }
+            return new PlanNodeStatsEstimate(multiply(sourceStats.getOutputRowCount(), selectivity), distinctValues);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitProject(ProjectNode node, Void context)
+        {
+            PlanNodeStatsEstimate sourceStats = node.getSource().accept(this, context);
+
+            Map<Symbol, Estimate> distinctValues = new HashMap<>();
+            for (Map.Entry<Symbol, Expression> entry : node.getAssignments().entrySet()) {
+                if (entry.getValue() instanceof SymbolReference) {
+                    distinctValues.put(entry.getKey(), sourceStats.getDistinctValuesCount(Symbol.from(entry.getValue())));
+                }
+            }
+            return new PlanNodeStatsEstimate(sourceStats.getOutputRowCount(), distinctValues);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitAggregation(AggregationNode node, Void context)
+        {
+            PlanNodeStatsEstimate sourceStats = node.getSource().accept(this, context);
+            if (node.getGroupBy().isEmpty()) {
+                return new PlanNodeStatsEstimate(Estimate.of(1), new HashMap<>());
+            }
+
+            // the number of groups is bounded by the product of the distinct values of the keys
+            Map<Symbol, Estimate> distinctValues = new HashMap<>();
+            double groups = 1;
+            for (Symbol symbol : node.getGroupBy()) {
+                Estimate symbolDistinctValues = sourceStats.getDistinctValuesCount(symbol);
+                distinctValues.put(symbol, symbolDistinctValues);
+                groups *= symbolDistinctValues.getValue();
+            }
+            Estimate rowCount = sourceStats.getOutputRowCount();
+            if (!Double.isNaN(groups) && (rowCount.isValueUnknown() || groups < rowCount.getValue())) {
+                rowCount = Estimate.of(groups);
+            }
+            return new PlanNodeStatsEstimate(rowCount, distinctValues);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitJoin(JoinNode node, Void context)
+        {
+            PlanNodeStatsEstimate leftStats = node.getLeft().accept(this, context);
+            PlanNodeStatsEstimate rightStats = node.getRight().accept(this, context);
+            return estimateJoin(node.getType(), node.getCriteria(), leftStats, rightStats);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitSemiJoin(SemiJoinNode node, Void context)
+        {
+            // the semi join does not remove rows, it only adds the match symbol
+            return node.getSource().accept(this, context);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitExchange(ExchangeNode node, Void context)
+        {
+            if (node.getSources().size() != 1) {
+                return PlanNodeStatsEstimate.UNKNOWN_STATS;
+            }
+            PlanNodeStatsEstimate sourceStats = node.getSources().get(0).accept(this, context);
+
+            // the exchange renames the symbols of its source
+            Map<Symbol, Estimate> distinctValues = new HashMap<>();
+            for (int i = 0; i < node.getOutputSymbols().size(); i++) {
+                distinctValues.put(node.getOutputSymbols().get(i), sourceStats.getDistinctValuesCount(node.getInputs().get(0).get(i)));
+            }
+            return new PlanNodeStatsEstimate(sourceStats.getOutputRowCount(), distinctValues);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitLimit(LimitNode node, Void context)
+        {
+            return limit(node.getSource().accept(this, context), node.getCount());
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitTopN(TopNNode node, Void context)
+        {
+            return limit(node.getSource().accept(this, context), node.getCount());
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitSort(SortNode node, Void context)
+        {
+            return node.getSource().accept(this, context);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitOutput(OutputNode node, Void context)
+        {
+            return node.getSource().accept(this, context);
+        }
+
+        private PlanNodeStatsEstimate limit(PlanNodeStatsEstimate sourceStats, long count)
+        {
+            Estimate rowCount = sourceStats.getOutputRowCount();
+            if (rowCount.isValueUnknown() || count < rowCount.getValue()) {
+                return sourceStats.withOutputRowCount(Estimate.of(count));
+            }
+            return sourceStats;
+        }
+    }
+
+    /**
+     * Estimates the output of a join from the estimates of its sources. Every equi join clause
+     * reduces the cross product by the larger of the distinct value counts of its two keys.
+     * When they are unknown, the join is assumed to match each row of the larger side once.
+     */
+    public static PlanNodeStatsEstimate estimateJoin(JoinNode.Type type, Iterable<JoinNode.EquiJoinClause> criteria, PlanNodeStatsEstimate leftStats, PlanNodeStatsEstimate rightStats)
+    {
+        Map<Symbol, Estimate> distinctValues = new HashMap<>();
+        distinctValues.putAll(leftStats.getDistinctValuesCounts());
+        distinctValues.putAll(rightStats.getDistinctValuesCounts());
+
+        Estimate leftRows = leftStats.getOutputRowCount();
+        Estimate rightRows = rightStats.getOutputRowCount();
+        if (leftRows.isValueUnknown() || rightRows.isValueUnknown()) {
+            return new PlanNodeStatsEstimate(Estimate.unknownValue(), distinctValues);
+        }
+
+        double rowCount = leftRows.getValue() * rightRows.getValue();
+        boolean containmentAssumed = false;
+        for (JoinNode.EquiJoinClause clause : criteria) {
+            Estimate leftDistinctValues = leftStats.getDistinctValuesCount(clause.getLeft());
+            Estimate rightDistinctValues = rightStats.getDistinctValuesCount(clause.getRight());
+            if (!leftDistinctValues.isValueUnknown() && !rightDistinctValues.isValueUnknown()) {
+                rowCount /= Math.max(1, Math.max(leftDistinctValues.getValue(), rightDistinctValues.getValue()));
+            }
+            else if (!containmentAssumed) {
+                rowCount /= Math.max(1, Math.min(leftRows.getValue(), rightRows.getValue()));
+                containmentAssumed = true;
+            }
+        }
+
+        switch (type) {
+            case INNER:
+                break;
+            case LEFT:
+                rowCount = Math.max(rowCount, leftRows.getValue());
+                break;
+            case RIGHT:
+                rowCount = Math.max(rowCount, rightRows.getValue());
+                break;
+            case FULL:
+                rowCount = Math.max(rowCount, Math.max(leftRows.getValue(), rightRows.getValue()));
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported join type: " + type);
+        }
+        return new PlanNodeStatsEstimate(Estimate.of(rowCount), distinctValues);
+    }
+
+    private static Estimate multiply(Estimate estimate, double factor)
+    {
+        if (estimate.isValueUnknown()) {
+            return estimate;
+        }
+        return Estimate.of(estimate.getValue() * factor);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.memory.LocalMemoryManager;
+import com.facebook.presto.memory.MemoryPool;
+import com.facebook.presto.memory.MemoryPoolListener;
+import com.facebook.presto.memory.QueryContext;
+import com.facebook.presto.operator.DriverContext;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.PipelineContext;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.units.Duration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
+import static com.facebook.presto.memory.LocalMemoryManager.RESERVED_POOL;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Asks operators holding revocable memory to release it (typically by spilling) when
+ * a memory pool is filled over {@code experimental.memory-revoking-threshold}. The
+ * largest revocable consumers are asked first, until enough memory is being revoked
+ * to bring the pool below {@code experimental.memory-revoking-target}.
+ */
+public class MemoryRevokingScheduler
+{
+    private static final Logger log = Logger.get(MemoryRevokingScheduler.class);
+
+    private static final Duration CHECK_INTERVAL = new Duration(1, SECONDS);
+
+    private final List<MemoryPool> memoryPools;
+    private final Supplier<List<QueryContext>> queryContextSupplier;
+    private final ScheduledExecutorService executor;
+    private final double memoryRevokingThreshold;
+    private final double memoryRevokingTarget;
+
+    private final MemoryPoolListener memoryPoolListener = this::onMemoryReserved;
+    private final AtomicBoolean checkPending = new AtomicBoolean();
+
+    @Inject
+    public MemoryRevokingScheduler(LocalMemoryManager localMemoryManager, SqlTaskManager sqlTaskManager, FeaturesConfig config)
+    {
+        this(
+                ImmutableList.of(localMemoryManager.getPool(GENERAL_POOL), localMemoryManager.getPool(RESERVED_POOL)),
+                requireNonNull(sqlTaskManager, "sqlTaskManager is null")::getQueryContexts,
+                newSingleThreadScheduledExecutor(daemonThreadsNamed("memory-revoking-scheduler-%s")),
+                config.getMemoryRevokingThreshold(),
+                config.getMemoryRevokingTarget());
+    }
+
+    @VisibleForTesting
+    MemoryRevokingScheduler(
+            List<MemoryPool> memoryPools,
+            Supplier<List<QueryContext>> queryContextSupplier,
+            ScheduledExecutorService executor,
+            double memoryRevokingThreshold,
+            double memoryRevokingTarget)
+    {
+        this.memoryPools = ImmutableList.copyOf(requireNonNull(memoryPools, "memoryPools is null"));
+        this.queryContextSupplier = requireNonNull(queryContextSupplier, "queryContextSupplier is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        checkArgument(memoryRevokingThreshold >= 0 && memoryRevokingThreshold <= 1, "memoryRevokingThreshold should be within [0, 1]");
+        checkArgument(memoryRevokingTarget >= 0 && memoryRevokingTarget <= 1, "memoryRevokingTarget should be within [0, 1]");
+        checkArgument(memoryRevokingTarget <= memoryRevokingThreshold, "memoryRevokingTarget should be less than or equal to memoryRevokingThreshold");
+        this.memoryRevokingThreshold = memoryRevokingThreshold;
+        this.memoryRevokingTarget = memoryRevokingTarget;
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        memoryPools.forEach(pool -> pool.addListener(memoryPoolListener));
+        // reservations trigger a check right away, the periodic check picks up anything that was missed
+        executor.scheduleWithFixedDelay(this::requestMemoryRevokingIfNeeded, CHECK_INTERVAL.toMillis(), CHECK_INTERVAL.toMillis(), MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        memoryPools.forEach(pool -> pool.removeListener(memoryPoolListener));
+        executor.shutdownNow();
+    }
+
+    private void onMemoryReserved(MemoryPool memoryPool)
+    {
+        if (memoryRevokingNeeded(memoryPool) && checkPending.compareAndSet(false, true)) {
+            executor.execute(this::requestMemoryRevokingIfNeeded);
+        }
+    }
+
+    @VisibleForTesting
+    void requestMemoryRevokingIfNeeded()
+    {
+        checkPending.set(false);
+        try {
+            for (MemoryPool memoryPool : memoryPools) {
+                if (memoryRevokingNeeded(memoryPool)) {
+                    requestMemoryRevoking(memoryPool);
+                }
+            }
+        }
+        catch (RuntimeException e) {
+            log.error(e, "Error requesting memory revoking");
+        }
+    }
+
+    private boolean memoryRevokingNeeded(MemoryPool memoryPool)
+    {
+        return memoryPool.getReservedRevocableBytes() > 0
+                && memoryPool.getFreeBytes() <= memoryPool.getMaxBytes() * (1.0 - memoryRevokingThreshold);
+    }
+
+    private void requestMemoryRevoking(MemoryPool memoryPool)
+    {
+        long remainingBytesToRevoke = (long) (-memoryPool.getFreeBytes() + memoryPool.getMaxBytes() * (1.0 - memoryRevokingTarget));
+
+        List<OperatorContext> candidates = new ArrayList<>();
+        for (QueryContext queryContext : queryContextSupplier.get()) {
+            if (queryContext.getMemoryPool() != memoryPool) {
+                continue;
+            }
+            for (TaskContext taskContext : queryContext.getTaskContexts()) {
+                for (PipelineContext pipelineContext : taskContext.getPipelineContexts()) {
+                    for (DriverContext driverContext : pipelineContext.getDriverContexts()) {
+                        for (OperatorContext operatorContext : driverContext.getOperatorContexts()) {
+                            if (operatorContext.getReservedRevocableBytes() == 0) {
+                                continue;
+                            }
+                            if (operatorContext.isMemoryRevokingRequested()) {
+                                // memory that is already being revoked counts towards the target
+                                remainingBytesToRevoke -= operatorContext.getReservedRevocableBytes();
+                            }
+                            else {
+                                candidates.add(operatorContext);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        candidates.sort(Comparator.comparingLong(OperatorContext::getReservedRevocableBytes).reversed());
+        for (OperatorContext operatorContext : candidates) {
+            if (remainingBytesToRevoke <= 0) {
+                break;
+            }
+            long revocableBytes = operatorContext.getReservedRevocableBytes();
+            if (operatorContext.requestMemoryRevoking()) {
+                remainingBytesToRevoke -= revocableBytes;
+                log.debug("Requested revoking of %s bytes from operator %s in pool %s", revocableBytes, operatorContext.getOperatorType(), memoryPool.getId());
+            }
+        }
+    }
+}
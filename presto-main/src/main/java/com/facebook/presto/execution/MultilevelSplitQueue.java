@@ -0,0 +1,309 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.execution.TaskExecutor.PrioritizedSplitRunner;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Multi-level feedback queue for splits waiting on a runner thread.
+ * <p>
+ * Splits are assigned a level based on the total thread time used by their
+ * task, so long running tasks sink to the lower levels. Each level is given
+ * a budget of scheduled time: level {@code n} should receive
+ * {@code levelTimeMultiplier} times as much thread time as level {@code n + 1}.
+ * When a runner thread asks for work, the non-empty level that is furthest
+ * behind its budget is selected, and within that level the split with the
+ * lowest priority value runs first.
+ * <p>
+ * Each level has its own lock, and the level is selected from the level sizes
+ * and scheduled times without locking, so runner threads only contend when
+ * they poll the same level. The queue wide lock is only taken by runner
+ * threads that wait for the queue to become non-empty, and by the threads
+ * that wake them.
+ */
+@ThreadSafe
+final class MultilevelSplitQueue
+{
+    static final int[] LEVEL_THRESHOLD_SECONDS = {0, 1, 10, 60, 300};
+
+    private final double[] levelWeights = new double[LEVEL_THRESHOLD_SECONDS.length];
+
+    private final List<LevelQueue> levelWaitingSplits;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final ReentrantLock notEmptyLock = new ReentrantLock();
+    private final Condition notEmpty = notEmptyLock.newCondition();
+
+    private final AtomicLong[] levelScheduledTime = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
+    private final CounterStat[] levelScheduledTimeStats = new CounterStat[LEVEL_THRESHOLD_SECONDS.length];
+    private final TimeStat[] levelWaitTime = new TimeStat[LEVEL_THRESHOLD_SECONDS.length];
+
+    public MultilevelSplitQueue(double levelTimeMultiplier)
+    {
+        checkArgument(levelTimeMultiplier >= 1, "levelTimeMultiplier must be at least 1");
+
+        ImmutableList.Builder<LevelQueue> levelWaitingSplits = ImmutableList.builder();
+        for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+            levelWaitingSplits.add(new LevelQueue());
+            levelScheduledTime[level] = new AtomicLong();
+            levelScheduledTimeStats[level] = new CounterStat();
+            levelWaitTime[level] = new TimeStat(NANOSECONDS);
+            levelWeights[level] = Math.pow(levelTimeMultiplier, level);
+        }
+        this.levelWaitingSplits = levelWaitingSplits.build();
+    }
+
+    public static int computeLevel(long threadUsageNanos)
+    {
+        long seconds = NANOSECONDS.toSeconds(threadUsageNanos);
+        for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length - 1; level++) {
+            if (seconds < LEVEL_THRESHOLD_SECONDS[level + 1]) {
+                return level;
+            }
+        }
+        return LEVEL_THRESHOLD_SECONDS.length - 1;
+    }
+
+    public void offer(PrioritizedSplitRunner split)
+    {
+        split.updatePriorityLevel();
+        split.setReadyNanos(System.nanoTime());
+        offerInternal(split);
+    }
+
+    public PrioritizedSplitRunner take()
+            throws InterruptedException
+    {
+        while (true) {
+            PrioritizedSplitRunner split = pollSplit();
+            if (split == null) {
+                awaitNotEmpty();
+                continue;
+            }
+
+            if (split.updatePriorityLevel()) {
+                // other splits of the task moved it to a different level while it was waiting
+                offerInternal(split);
+                continue;
+            }
+
+            levelWaitTime[split.getPriorityLevel()].add(Duration.nanosSince(split.getReadyNanos()));
+            return split;
+        }
+    }
+
+    public void removeAll(Collection<PrioritizedSplitRunner> splits)
+    {
+        for (LevelQueue waitingSplits : levelWaitingSplits) {
+            size.addAndGet(-waitingSplits.removeAll(splits));
+        }
+    }
+
+    /**
+     * Charges scheduled thread time to a level. This is called without holding
+     * any lock after each quanta a split runs.
+     */
+    public void addLevelTime(int level, long nanos)
+    {
+        levelScheduledTime[level].addAndGet(nanos);
+        levelScheduledTimeStats[level].update(nanos);
+    }
+
+    public int size()
+    {
+        return size.get();
+    }
+
+    public int getLevelSize(int level)
+    {
+        return levelWaitingSplits.get(level).size();
+    }
+
+    @VisibleForTesting
+    long getLevelScheduledTime(int level)
+    {
+        return levelScheduledTime[level].get();
+    }
+
+    public CounterStat getLevelScheduledTimeStat(int level)
+    {
+        return levelScheduledTimeStats[level];
+    }
+
+    public TimeStat getLevelWaitTime(int level)
+    {
+        return levelWaitTime[level];
+    }
+
+    private void offerInternal(PrioritizedSplitRunner split)
+    {
+        int level = split.getPriorityLevel();
+        if (levelWaitingSplits.get(level).size() == 0) {
+            // A level that was idle must not bank the time it did not use, otherwise
+            // it would starve every other level once it has work again. Bring it up
+            // to the lowest normalized scheduled time of the levels with waiting
+            // splits, which is the level that would run next.
+            double competingTime = getMinimumNormalizedScheduledTime();
+            if (competingTime != Double.MAX_VALUE) {
+                long minimumScheduledTime = (long) (competingTime / levelWeights[level]);
+                levelScheduledTime[level].accumulateAndGet(minimumScheduledTime, Math::max);
+            }
+        }
+        levelWaitingSplits.get(level).offer(split);
+
+        // like LinkedBlockingQueue, only the transition from empty wakes a waiting
+        // thread, and each thread that takes a split wakes the next one if more remain
+        if (size.getAndIncrement() == 0) {
+            signalNotEmpty();
+        }
+    }
+
+    private PrioritizedSplitRunner pollSplit()
+    {
+        while (true) {
+            int selectedLevel = -1;
+            double selectedTime = Double.MAX_VALUE;
+            for (int level = 0; level < levelWaitingSplits.size(); level++) {
+                if (levelWaitingSplits.get(level).size() == 0) {
+                    continue;
+                }
+                double normalizedTime = getNormalizedScheduledTime(level);
+                if (normalizedTime < selectedTime) {
+                    selectedLevel = level;
+                    selectedTime = normalizedTime;
+                }
+            }
+
+            if (selectedLevel == -1) {
+                return null;
+            }
+
+            // another thread may have emptied the level since it was selected
+            PrioritizedSplitRunner split = levelWaitingSplits.get(selectedLevel).poll();
+            if (split != null) {
+                if (size.getAndDecrement() > 1) {
+                    signalNotEmpty();
+                }
+                return split;
+            }
+        }
+    }
+
+    private void awaitNotEmpty()
+            throws InterruptedException
+    {
+        notEmptyLock.lockInterruptibly();
+        try {
+            // the size is briefly negative when a split is taken before its offer counted it
+            while (size.get() <= 0) {
+                notEmpty.await();
+            }
+        }
+        finally {
+            notEmptyLock.unlock();
+        }
+    }
+
+    private void signalNotEmpty()
+    {
+        notEmptyLock.lock();
+        try {
+            notEmpty.signal();
+        }
+        finally {
+            notEmptyLock.unlock();
+        }
+    }
+
+    private double getMinimumNormalizedScheduledTime()
+    {
+        double minimum = Double.MAX_VALUE;
+        for (int level = 0; level < levelWaitingSplits.size(); level++) {
+            if (levelWaitingSplits.get(level).size() != 0) {
+                minimum = Math.min(minimum, getNormalizedScheduledTime(level));
+            }
+        }
+        return minimum;
+    }
+
+    private double getNormalizedScheduledTime(int level)
+    {
+        // level n is entitled to levelTimeMultiplier^n less time than level 0
+        return levelScheduledTime[level].get() * levelWeights[level];
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("size", size())
+                .toString();
+    }
+
+    @ThreadSafe
+    private static final class LevelQueue
+    {
+        @GuardedBy("this")
+        private final PriorityQueue<PrioritizedSplitRunner> splits = new PriorityQueue<>();
+
+        // read without the lock to select a level
+        private volatile int size;
+
+        public synchronized void offer(PrioritizedSplitRunner split)
+        {
+            splits.offer(split);
+            size = splits.size();
+        }
+
+        public synchronized PrioritizedSplitRunner poll()
+        {
+            PrioritizedSplitRunner split = splits.poll();
+            size = splits.size();
+            return split;
+        }
+
+        public synchronized int removeAll(Collection<PrioritizedSplitRunner> splitsToRemove)
+        {
+            int before = splits.size();
+            splits.removeAll(splitsToRemove);
+            size = splits.size();
+            return before - size;
+        }
+
+        public int size()
+        {
+            return size;
+        }
+    }
+}
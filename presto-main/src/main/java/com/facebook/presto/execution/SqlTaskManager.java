@@ -124,6 +124,7 @@ public class SqlTaskManager
 
         this.localMemoryManager = requireNonNull(localMemoryManager, "localMemoryManager is null");
         DataSize maxQueryMemoryPerNode = nodeMemoryConfig.getMaxQueryMemoryPerNode();
+        DataSize maxQuerySpillPerNode = nodeMemoryConfig.getMaxQuerySpillPerNode();
 
         queryContexts = CacheBuilder.newBuilder().weakValues().build(new CacheLoader<QueryId, QueryContext>()
         {
@@ -131,7 +132,7 @@ public class SqlTaskManager
             public QueryContext load(QueryId key)
                     throws Exception
             {
-                return new QueryContext(key, maxQueryMemoryPerNode, localMemoryManager.getPool(LocalMemoryManager.GENERAL_POOL), localMemoryManager.getPool(LocalMemoryManager.SYSTEM_POOL), taskNotificationExecutor);
+                return new QueryContext(key, maxQueryMemoryPerNode, localMemoryManager.getPool(LocalMemoryManager.GENERAL_POOL), localMemoryManager.getPool(LocalMemoryManager.SYSTEM_POOL), taskNotificationExecutor, maxQuerySpillPerNode);
             }
         });
 
@@ -248,6 +249,11 @@ public class SqlTaskManager
         return taskManagementExecutorMBean;
     }
 
+    public List<QueryContext> getQueryContexts()
+    {
+        return ImmutableList.copyOf(queryContexts.asMap().values());
+    }
+
     @Override
     public List<TaskInfo> getAllTaskInfo()
     {
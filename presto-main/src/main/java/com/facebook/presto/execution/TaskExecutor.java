@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.concurrent.SetThreadName;
 import io.airlift.concurrent.ThreadPoolExecutorMBean;
 import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
 import io.airlift.stats.CpuTimer;
 import io.airlift.stats.TimeStat;
 import io.airlift.units.Duration;
@@ -46,7 +47,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -56,6 +56,8 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.DoubleSupplier;
 
+import static com.facebook.presto.execution.MultilevelSplitQueue.LEVEL_THRESHOLD_SECONDS;
+import static com.facebook.presto.execution.MultilevelSplitQueue.computeLevel;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -99,7 +101,7 @@ public class TaskExecutor
     /**
      * Splits waiting for a runner thread.
      */
-    private final PriorityBlockingQueue<PrioritizedSplitRunner> pendingSplits;
+    private final MultilevelSplitQueue pendingSplits;
 
     /**
      * Splits running on a thread.
@@ -111,7 +113,7 @@ public class TaskExecutor
      */
     private final Map<PrioritizedSplitRunner, Future<?>> blockedSplits = new ConcurrentHashMap<>();
 
-    private final AtomicLongArray completedTasksPerLevel = new AtomicLongArray(5);
+    private final AtomicLongArray completedTasksPerLevel = new AtomicLongArray(LEVEL_THRESHOLD_SECONDS.length);
 
     private final TimeStat queuedTime = new TimeStat(NANOSECONDS);
     private final TimeStat wallTime = new TimeStat(NANOSECONDS);
@@ -121,7 +123,7 @@ public class TaskExecutor
     @Inject
     public TaskExecutor(TaskManagerConfig config)
     {
-        this(requireNonNull(config, "config is null").getMaxWorkerThreads(), config.getMinDrivers());
+        this(requireNonNull(config, "config is null").getMaxWorkerThreads(), config.getMinDrivers(), config.getLevelTimeMultiplier(), Ticker.systemTicker());
     }
 
     public TaskExecutor(int runnerThreads, int minDrivers)
@@ -131,6 +133,12 @@ public class TaskExecutor
 
     @VisibleForTesting
     public TaskExecutor(int runnerThreads, int minDrivers, Ticker ticker)
+    {
+        this(runnerThreads, minDrivers, new TaskManagerConfig().getLevelTimeMultiplier(), ticker);
+    }
+
+    @VisibleForTesting
+    public TaskExecutor(int runnerThreads, int minDrivers, double levelTimeMultiplier, Ticker ticker)
     {
         checkArgument(runnerThreads > 0, "runnerThreads must be at least 1");
 
@@ -142,7 +150,7 @@ public class TaskExecutor
         this.ticker = requireNonNull(ticker, "ticker is null");
 
         this.minimumNumberOfDrivers = minDrivers;
-        this.pendingSplits = new PriorityBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 10);
+        this.pendingSplits = new MultilevelSplitQueue(levelTimeMultiplier);
         this.tasks = new LinkedList<>();
     }
 
@@ -212,7 +220,7 @@ public class TaskExecutor
 
         // record completed stats
         long threadUsageNanos = taskHandle.getThreadUsageNanos();
-        int priorityLevel = calculatePriorityLevel(threadUsageNanos);
+        int priorityLevel = computeLevel(threadUsageNanos);
         completedTasksPerLevel.incrementAndGet(priorityLevel);
 
         // replace blocked splits that were terminated
@@ -225,7 +233,7 @@ public class TaskExecutor
         List<ListenableFuture<?>> finishedFutures = new ArrayList<>(taskSplits.size());
         synchronized (this) {
             for (SplitRunner taskSplit : taskSplits) {
-                PrioritizedSplitRunner prioritizedSplitRunner = new PrioritizedSplitRunner(taskHandle, taskSplit, ticker);
+                PrioritizedSplitRunner prioritizedSplitRunner = new PrioritizedSplitRunner(taskHandle, taskSplit, pendingSplits, ticker);
 
                 if (taskHandle.isDestroyed()) {
                     // If the handle is destroyed, we destroy the task splits to complete the future
@@ -305,7 +313,7 @@ public class TaskExecutor
     private synchronized void startSplit(PrioritizedSplitRunner split)
     {
         allSplits.add(split);
-        pendingSplits.put(split);
+        pendingSplits.offer(split);
     }
 
     private synchronized PrioritizedSplitRunner pollNextSplitWorker()
@@ -356,7 +364,8 @@ public class TaskExecutor
             this.concurrencyController = new SplitConcurrencyController(initialSplitConcurrency, splitConcurrencyAdjustFrequency);
         }
 
-        private synchronized long addThreadUsageNanos(long durationNanos)
+        @VisibleForTesting
+        synchronized long addThreadUsageNanos(long durationNanos)
         {
             concurrencyController.update(durationNanos, utilizationSupplier.getAsDouble(), runningSplits.size());
             taskThreadUsageNanos += durationNanos;
@@ -449,7 +458,7 @@ public class TaskExecutor
         }
     }
 
-    private static class PrioritizedSplitRunner
+    static class PrioritizedSplitRunner
             implements Comparable<PrioritizedSplitRunner>
     {
         private final long createdNanos = System.nanoTime();
@@ -458,6 +467,7 @@ public class TaskExecutor
         private final int splitId;
         private final long workerId;
         private final SplitRunner split;
+        private final MultilevelSplitQueue splitQueue;
 
         private final Ticker ticker;
 
@@ -470,15 +480,18 @@ public class TaskExecutor
         private final AtomicLong splitThreadUsageNanos = new AtomicLong();
         private final AtomicLong lastRun = new AtomicLong();
         private final AtomicLong start = new AtomicLong();
+        private final AtomicLong readyNanos = new AtomicLong();
 
         private final AtomicLong cpuTime = new AtomicLong();
         private final AtomicLong processCalls = new AtomicLong();
 
-        private PrioritizedSplitRunner(TaskHandle taskHandle, SplitRunner split, Ticker ticker)
+        @VisibleForTesting
+        PrioritizedSplitRunner(TaskHandle taskHandle, SplitRunner split, MultilevelSplitQueue splitQueue, Ticker ticker)
         {
             this.taskHandle = taskHandle;
             this.splitId = taskHandle.getNextSplitId();
             this.split = split;
+            this.splitQueue = splitQueue;
             this.ticker = ticker;
             this.workerId = NEXT_WORKER_ID.getAndIncrement();
         }
@@ -530,12 +543,14 @@ public class TaskExecutor
 
                 CpuTimer.CpuDuration elapsed = timer.elapsedTime();
 
+                // charge the time to the level the split ran at, then
                 // update priority level base on total thread usage of task
                 long durationNanos = elapsed.getWall().roundTo(NANOSECONDS);
+                splitQueue.addLevelTime(priorityLevel.get(), durationNanos);
                 this.splitThreadUsageNanos.addAndGet(durationNanos);
                 long threadUsageNanos = taskHandle.addThreadUsageNanos(durationNanos);
                 this.threadUsageNanos.set(threadUsageNanos);
-                priorityLevel.set(calculatePriorityLevel(threadUsageNanos));
+                priorityLevel.set(computeLevel(threadUsageNanos));
 
                 // record last run for prioritization within a level
                 lastRun.set(ticker.read());
@@ -551,7 +566,7 @@ public class TaskExecutor
 
         public boolean updatePriorityLevel()
         {
-            int newPriority = calculatePriorityLevel(taskHandle.getThreadUsageNanos());
+            int newPriority = computeLevel(taskHandle.getThreadUsageNanos());
             if (newPriority == priorityLevel.getAndSet(newPriority)) {
                 return false;
             }
@@ -561,6 +576,21 @@ public class TaskExecutor
             return true;
         }
 
+        public int getPriorityLevel()
+        {
+            return priorityLevel.get();
+        }
+
+        public long getReadyNanos()
+        {
+            return readyNanos.get();
+        }
+
+        public void setReadyNanos(long readyNanos)
+        {
+            this.readyNanos.set(readyNanos);
+        }
+
         @Override
         public int compareTo(PrioritizedSplitRunner o)
         {
@@ -571,7 +601,7 @@ public class TaskExecutor
                 return result;
             }
 
-            if (level < 4) {
+            if (level < LEVEL_THRESHOLD_SECONDS.length - 1) {
                 result = Long.compare(threadUsageNanos.get(), o.threadUsageNanos.get());
             }
             else {
@@ -608,29 +638,6 @@ public class TaskExecutor
         }
     }
 
-    private static int calculatePriorityLevel(long threadUsageNanos)
-    {
-        long millis = NANOSECONDS.toMillis(threadUsageNanos);
-
-        int priorityLevel;
-        if (millis < 1000) {
-            priorityLevel = 0;
-        }
-        else if (millis < 10_000) {
-            priorityLevel = 1;
-        }
-        else if (millis < 60_000) {
-            priorityLevel = 2;
-        }
-        else if (millis < 300_000) {
-            priorityLevel = 3;
-        }
-        else {
-            priorityLevel = 4;
-        }
-        return priorityLevel;
-    }
-
     private class Runner
             implements Runnable
     {
@@ -645,11 +652,6 @@ public class TaskExecutor
                     final PrioritizedSplitRunner split;
                     try {
                         split = pendingSplits.take();
-                        if (split.updatePriorityLevel()) {
-                            // priority level changed, return split to queue for re-prioritization
-                            pendingSplits.put(split);
-                            continue;
-                        }
                     }
                     catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
@@ -675,7 +677,7 @@ public class TaskExecutor
                         }
                         else {
                             if (blocked.isDone()) {
-                                pendingSplits.put(split);
+                                pendingSplits.offer(split);
                             }
                             else {
                                 blockedSplits.put(split, blocked);
@@ -685,8 +687,7 @@ public class TaskExecutor
                                     public void run()
                                     {
                                         blockedSplits.remove(split);
-                                        split.updatePriorityLevel();
-                                        pendingSplits.put(split);
+                                        pendingSplits.offer(split);
                                     }
                                 }, executor);
                             }
@@ -819,6 +820,106 @@ public class TaskExecutor
         return calculateRunningTasksForLevel(4);
     }
 
+    @Managed
+    public int getWaitingSplitsLevel0()
+    {
+        return pendingSplits.getLevelSize(0);
+    }
+
+    @Managed
+    public int getWaitingSplitsLevel1()
+    {
+        return pendingSplits.getLevelSize(1);
+    }
+
+    @Managed
+    public int getWaitingSplitsLevel2()
+    {
+        return pendingSplits.getLevelSize(2);
+    }
+
+    @Managed
+    public int getWaitingSplitsLevel3()
+    {
+        return pendingSplits.getLevelSize(3);
+    }
+
+    @Managed
+    public int getWaitingSplitsLevel4()
+    {
+        return pendingSplits.getLevelSize(4);
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getScheduledTimeNanosLevel0()
+    {
+        return pendingSplits.getLevelScheduledTimeStat(0);
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getScheduledTimeNanosLevel1()
+    {
+        return pendingSplits.getLevelScheduledTimeStat(1);
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getScheduledTimeNanosLevel2()
+    {
+        return pendingSplits.getLevelScheduledTimeStat(2);
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getScheduledTimeNanosLevel3()
+    {
+        return pendingSplits.getLevelScheduledTimeStat(3);
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getScheduledTimeNanosLevel4()
+    {
+        return pendingSplits.getLevelScheduledTimeStat(4);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTimeLevel0()
+    {
+        return pendingSplits.getLevelWaitTime(0);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTimeLevel1()
+    {
+        return pendingSplits.getLevelWaitTime(1);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTimeLevel2()
+    {
+        return pendingSplits.getLevelWaitTime(2);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTimeLevel3()
+    {
+        return pendingSplits.getLevelWaitTime(3);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTimeLevel4()
+    {
+        return pendingSplits.getLevelWaitTime(4);
+    }
+
     @Managed
     @Nested
     public TimeStat getQueuedTime()
@@ -837,7 +938,7 @@ public class TaskExecutor
     {
         int count = 0;
         for (TaskHandle task : tasks) {
-            if (calculatePriorityLevel(task.getThreadUsageNanos()) == level) {
+            if (computeLevel(task.getThreadUsageNanos()) == level) {
                 count++;
             }
         }
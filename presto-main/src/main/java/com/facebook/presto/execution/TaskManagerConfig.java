@@ -23,6 +23,7 @@ import io.airlift.units.Duration;
 import io.airlift.units.MaxDuration;
 import io.airlift.units.MinDuration;
 
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -41,6 +42,7 @@ public class TaskManagerConfig
     private Integer minDrivers;
     private Integer initialSplitsPerNode;
     private Duration splitConcurrencyAdjustmentInterval = new Duration(100, TimeUnit.MILLISECONDS);
+    private double levelTimeMultiplier = 2;
 
     private DataSize sinkMaxBufferSize = new DataSize(32, Unit.MEGABYTE);
     private DataSize maxPagePartitioningBufferSize = new DataSize(32, Unit.MEGABYTE);
@@ -225,6 +227,20 @@ public class TaskManagerConfig
         return this;
     }
 
+    @DecimalMin("1.0")
+    public double getLevelTimeMultiplier()
+    {
+        return levelTimeMultiplier;
+    }
+
+    @Config("task.level-time-multiplier")
+    @ConfigDescription("Ratio of scheduled time each split priority level receives relative to the next lower priority level")
+    public TaskManagerConfig setLevelTimeMultiplier(double levelTimeMultiplier)
+    {
+        this.levelTimeMultiplier = levelTimeMultiplier;
+        return this;
+    }
+
     @NotNull
     public DataSize getSinkMaxBufferSize()
     {
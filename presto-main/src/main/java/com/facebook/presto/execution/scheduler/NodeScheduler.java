@@ -36,6 +36,7 @@ import javax.inject.Inject;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -63,6 +64,8 @@ public class NodeScheduler
     private final NodeTaskMap nodeTaskMap;
     private final boolean doubleScheduling;
     private final boolean useNetworkTopology;
+    private final boolean softAffinityEnabled;
+    private final int softAffinityCandidates;
 
     @Inject
     public NodeScheduler(NetworkTopology networkTopology, NodeManager nodeManager, NodeSchedulerConfig config, NodeTaskMap nodeTaskMap)
@@ -87,6 +90,8 @@ public class NodeScheduler
         this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
         checkArgument(maxSplitsPerNode > maxPendingSplitsPerNodePerStageWhenFull, "maxSplitsPerNode must be > maxPendingSplitsPerNodePerStageWhenFull");
         this.useNetworkTopology = !config.getNetworkTopology().equals(NetworkTopologyType.LEGACY);
+        this.softAffinityEnabled = config.isSoftAffinityEnabled();
+        this.softAffinityCandidates = config.getSoftAffinityCandidates();
 
         ImmutableList.Builder<CounterStat> builder = ImmutableList.builder();
         if (useNetworkTopology) {
@@ -173,7 +178,17 @@ public class NodeScheduler
                     networkLocationCache);
         }
         else {
-            return new SimpleNodeSelector(nodeManager, nodeTaskMap, includeCoordinator, doubleScheduling, nodeMap, minCandidates, maxSplitsPerNode, maxPendingSplitsPerNodePerStageWhenFull);
+            return new SimpleNodeSelector(
+                    nodeManager,
+                    nodeTaskMap,
+                    includeCoordinator,
+                    doubleScheduling,
+                    nodeMap,
+                    minCandidates,
+                    maxSplitsPerNode,
+                    maxPendingSplitsPerNodePerStageWhenFull,
+                    softAffinityEnabled,
+                    softAffinityCandidates);
         }
     }
 
@@ -203,10 +218,59 @@ public class NodeScheduler
 
     public static ResettableRandomizedIterator<Node> randomizedNodes(NodeMap nodeMap, boolean includeCoordinator)
     {
-        ImmutableList<Node> nodes = nodeMap.getNodesByHostAndPort().values().stream()
+        return new ResettableRandomizedIterator<>(eligibleNodes(nodeMap, includeCoordinator));
+    }
+
+    public static List<Node> eligibleNodes(NodeMap nodeMap, boolean includeCoordinator)
+    {
+        return nodeMap.getNodesByHostAndPort().values().stream()
                 .filter(node -> includeCoordinator || !nodeMap.getCoordinatorNodeIds().contains(node.getNodeIdentifier()))
                 .collect(toImmutableList());
-        return new ResettableRandomizedIterator<>(nodes);
+    }
+
+    /**
+     * Selects the preferred nodes for the key using rendezvous hashing, so that adding or
+     * removing a node only moves the keys that prefer that node.
+     */
+    public static List<Node> selectAffinityNodes(List<Node> nodes, String key, int limit)
+    {
+        long keyHash = mix(key.hashCode());
+        int count = Math.min(limit, nodes.size());
+        Node[] selected = new Node[count];
+        long[] scores = new long[count];
+        int size = 0;
+        for (Node node : nodes) {
+            long score = mix(keyHash ^ node.getNodeIdentifier().hashCode());
+            if (size < count) {
+                selected[size] = node;
+                scores[size] = score;
+                size++;
+            }
+            else {
+                int lowest = 0;
+                for (int i = 1; i < count; i++) {
+                    if (scores[i] < scores[lowest]) {
+                        lowest = i;
+                    }
+                }
+                if (score > scores[lowest]) {
+                    selected[lowest] = node;
+                    scores[lowest] = score;
+                }
+            }
+        }
+        return Arrays.asList(selected);
+    }
+
+    private static long mix(long value)
+    {
+        // finalizer of MurmurHash3
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
     }
 
     public static List<Node> selectExactNodes(NodeMap nodeMap, List<HostAddress> hosts, boolean includeCoordinator)
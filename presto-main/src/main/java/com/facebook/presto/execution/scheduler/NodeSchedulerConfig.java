@@ -37,6 +37,8 @@ public class NodeSchedulerConfig
     private int maxSplitsPerNode = 100;
     private int maxPendingSplitsPerNodePerStage = 10;
     private String networkTopology = NetworkTopologyType.LEGACY;
+    private boolean softAffinityEnabled;
+    private int softAffinityCandidates = 2;
 
     @NotNull
     public String getNetworkTopology()
@@ -102,6 +104,33 @@ public class NodeSchedulerConfig
         return maxPendingSplitsPerNodePerStage;
     }
 
+    public boolean isSoftAffinityEnabled()
+    {
+        return softAffinityEnabled;
+    }
+
+    @ConfigDescription("Prefer scheduling splits with the same affinity key, such as the same file, on the same nodes")
+    @Config("node-scheduler.soft-affinity-enabled")
+    public NodeSchedulerConfig setSoftAffinityEnabled(boolean softAffinityEnabled)
+    {
+        this.softAffinityEnabled = softAffinityEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getSoftAffinityCandidates()
+    {
+        return softAffinityCandidates;
+    }
+
+    @ConfigDescription("Number of preferred nodes for each affinity key")
+    @Config("node-scheduler.soft-affinity-candidates")
+    public NodeSchedulerConfig setSoftAffinityCandidates(int softAffinityCandidates)
+    {
+        this.softAffinityCandidates = softAffinityCandidates;
+        return this;
+    }
+
     public int getMaxSplitsPerNode()
     {
         return maxSplitsPerNode;
@@ -31,7 +31,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static com.facebook.presto.execution.scheduler.NodeScheduler.eligibleNodes;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.randomizedNodes;
+import static com.facebook.presto.execution.scheduler.NodeScheduler.selectAffinityNodes;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.selectDistributionNodes;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.selectExactNodes;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.selectNodes;
@@ -51,6 +53,8 @@ public class SimpleNodeSelector
     private final int minCandidates;
     private final int maxSplitsPerNode;
     private final int maxPendingSplitsPerNodePerStageWhenFull;
+    private final boolean softAffinityEnabled;
+    private final int softAffinityCandidates;
 
     public SimpleNodeSelector(
             NodeManager nodeManager,
@@ -61,6 +65,21 @@ public class SimpleNodeSelector
             int minCandidates,
             int maxSplitsPerNode,
             int maxPendingSplitsPerNodePerStageWhenFull)
+    {
+        this(nodeManager, nodeTaskMap, includeCoordinator, doubleScheduling, nodeMap, minCandidates, maxSplitsPerNode, maxPendingSplitsPerNodePerStageWhenFull, false, 1);
+    }
+
+    public SimpleNodeSelector(
+            NodeManager nodeManager,
+            NodeTaskMap nodeTaskMap,
+            boolean includeCoordinator,
+            boolean doubleScheduling,
+            Supplier<NodeMap> nodeMap,
+            int minCandidates,
+            int maxSplitsPerNode,
+            int maxPendingSplitsPerNodePerStageWhenFull,
+            boolean softAffinityEnabled,
+            int softAffinityCandidates)
     {
         this.nodeManager = requireNonNull(nodeManager, "nodeManager is null");
         this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
@@ -70,6 +89,8 @@ public class SimpleNodeSelector
         this.minCandidates = minCandidates;
         this.maxSplitsPerNode = maxSplitsPerNode;
         this.maxPendingSplitsPerNodePerStageWhenFull = maxPendingSplitsPerNodePerStageWhenFull;
+        this.softAffinityEnabled = softAffinityEnabled;
+        this.softAffinityCandidates = softAffinityCandidates;
     }
 
     @Override
@@ -105,38 +126,41 @@ public class SimpleNodeSelector
         NodeAssignmentStats assignmentStats = new NodeAssignmentStats(nodeTaskMap, nodeMap, existingTasks);
 
         ResettableRandomizedIterator<Node> randomCandidates = randomizedNodes(nodeMap, includeCoordinator);
+        List<Node> affinityNodes = null;
         for (Split split : splits) {
             randomCandidates.reset();
 
-            List<Node> candidateNodes;
-            if (!split.isRemotelyAccessible()) {
-                candidateNodes = selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator);
-            }
-            else {
-                candidateNodes = selectNodes(minCandidates, randomCandidates, doubleScheduling);
-            }
-            if (candidateNodes.isEmpty()) {
-                log.debug("No nodes available to schedule %s. Available nodes %s", split, nodeMap.getNodesByHost().keys());
-                throw new PrestoException(NO_NODES_AVAILABLE, "No nodes available to run query");
-            }
-
             Node chosenNode = null;
-            int min = Integer.MAX_VALUE;
-
-            for (Node node : candidateNodes) {
-                int totalSplitCount = assignmentStats.getTotalSplitCount(node);
-                if (totalSplitCount < min && totalSplitCount < maxSplitsPerNode) {
-                    chosenNode = node;
-                    min = totalSplitCount;
+            if (softAffinityEnabled && split.isRemotelyAccessible() && split.getAffinityKey().isPresent()) {
+                if (affinityNodes == null) {
+                    affinityNodes = eligibleNodes(nodeMap, includeCoordinator);
                 }
+                // the preferred nodes are only used while they have room, so hot keys do not overload a node
+                chosenNode = selectLeastBusyNode(selectAffinityNodes(affinityNodes, split.getAffinityKey().get(), softAffinityCandidates), assignmentStats);
             }
+
             if (chosenNode == null) {
-                // min is guaranteed to be MAX_VALUE at this line
-                for (Node node : candidateNodes) {
-                    int totalSplitCount = assignmentStats.getQueuedSplitCountForStage(node);
-                    if (totalSplitCount < min && totalSplitCount < maxPendingSplitsPerNodePerStageWhenFull) {
-                        chosenNode = node;
-                        min = totalSplitCount;
+                List<Node> candidateNodes;
+                if (!split.isRemotelyAccessible()) {
+                    candidateNodes = selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator);
+                }
+                else {
+                    candidateNodes = selectNodes(minCandidates, randomCandidates, doubleScheduling);
+                }
+                if (candidateNodes.isEmpty()) {
+                    log.debug("No nodes available to schedule %s. Available nodes %s", split, nodeMap.getNodesByHost().keys());
+                    throw new PrestoException(NO_NODES_AVAILABLE, "No nodes available to run query");
+                }
+
+                chosenNode = selectLeastBusyNode(candidateNodes, assignmentStats);
+                if (chosenNode == null) {
+                    int min = Integer.MAX_VALUE;
+                    for (Node node : candidateNodes) {
+                        int totalSplitCount = assignmentStats.getQueuedSplitCountForStage(node);
+                        if (totalSplitCount < min && totalSplitCount < maxPendingSplitsPerNodePerStageWhenFull) {
+                            chosenNode = node;
+                            min = totalSplitCount;
+                        }
                     }
                 }
             }
@@ -148,6 +172,20 @@ public class SimpleNodeSelector
         return assignment;
     }
 
+    private Node selectLeastBusyNode(List<Node> candidateNodes, NodeAssignmentStats assignmentStats)
+    {
+        Node chosenNode = null;
+        int min = Integer.MAX_VALUE;
+        for (Node node : candidateNodes) {
+            int totalSplitCount = assignmentStats.getTotalSplitCount(node);
+            if (totalSplitCount < min && totalSplitCount < maxSplitsPerNode) {
+                chosenNode = node;
+                min = totalSplitCount;
+            }
+        }
+        return chosenNode;
+    }
+
     @Override
     public Multimap<Node, Split> computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks, NodePartitionMap partitioning)
     {
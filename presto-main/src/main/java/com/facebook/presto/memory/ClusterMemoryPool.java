@@ -39,6 +39,9 @@ public class ClusterMemoryPool
     @GuardedBy("this")
     private long freeDistributedBytes;
 
+    @GuardedBy("this")
+    private long reservedDistributedRevocableBytes;
+
     @GuardedBy("this")
     private int nodes;
 
@@ -52,6 +55,10 @@ public class ClusterMemoryPool
     @GuardedBy("this")
     private final Map<QueryId, Long> queryMemoryReservations = new HashMap<>();
 
+    // Does not include queries with zero revocable memory usage
+    @GuardedBy("this")
+    private final Map<QueryId, Long> queryMemoryRevocableReservations = new HashMap<>();
+
     public ClusterMemoryPool(MemoryPoolId id)
     {
         this.id = requireNonNull(id, "id is null");
@@ -59,7 +66,12 @@ public class ClusterMemoryPool
 
     public synchronized MemoryPoolInfo getInfo()
     {
-        return new MemoryPoolInfo(totalDistributedBytes, freeDistributedBytes, ImmutableMap.copyOf(queryMemoryReservations));
+        return new MemoryPoolInfo(
+                totalDistributedBytes,
+                freeDistributedBytes,
+                reservedDistributedRevocableBytes,
+                ImmutableMap.copyOf(queryMemoryReservations),
+                ImmutableMap.copyOf(queryMemoryRevocableReservations));
     }
 
     public MemoryPoolId getId()
@@ -79,6 +91,12 @@ public class ClusterMemoryPool
         return freeDistributedBytes;
     }
 
+    @Managed
+    public synchronized long getReservedDistributedRevocableBytes()
+    {
+        return reservedDistributedRevocableBytes;
+    }
+
     @Managed
     public synchronized int getNodes()
     {
@@ -108,21 +126,28 @@ public class ClusterMemoryPool
         blockedNodes = 0;
         totalDistributedBytes = 0;
         freeDistributedBytes = 0;
+        reservedDistributedRevocableBytes = 0;
         this.assignedQueries = assignedQueries;
         this.queryMemoryReservations.clear();
+        this.queryMemoryRevocableReservations.clear();
 
         for (MemoryInfo info : memoryInfos) {
             MemoryPoolInfo poolInfo = info.getPools().get(id);
             if (poolInfo != null) {
                 nodes++;
-                if (poolInfo.getFreeBytes() <= 0) {
+                // a node is only blocked if revoking memory on it cannot free up space
+                if (poolInfo.getFreeBytes() + poolInfo.getReservedRevocableBytes() <= 0) {
                     blockedNodes++;
                 }
                 totalDistributedBytes += poolInfo.getMaxBytes();
                 freeDistributedBytes += poolInfo.getFreeBytes();
+                reservedDistributedRevocableBytes += poolInfo.getReservedRevocableBytes();
                 for (Map.Entry<QueryId, Long> entry : poolInfo.getQueryMemoryReservations().entrySet()) {
                     queryMemoryReservations.merge(entry.getKey(), entry.getValue(), Long::sum);
                 }
+                for (Map.Entry<QueryId, Long> entry : poolInfo.getQueryMemoryRevocableReservations().entrySet()) {
+                    queryMemoryRevocableReservations.merge(entry.getKey(), entry.getValue(), Long::sum);
+                }
             }
         }
     }
@@ -153,6 +178,7 @@ public class ClusterMemoryPool
                 .add("id", id)
                 .add("totalDistributedBytes", totalDistributedBytes)
                 .add("freeDistributedBytes", freeDistributedBytes)
+                .add("reservedDistributedRevocableBytes", reservedDistributedRevocableBytes)
                 .add("nodes", nodes)
                 .add("blockedNodes", blockedNodes)
                 .add("assignedQueries", assignedQueries)
@@ -24,7 +24,9 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.facebook.presto.operator.Operator.NOT_BLOCKED;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -47,6 +49,14 @@ public class MemoryPool
     // TODO: It would be better if we just tracked QueryContexts, but their lifecycle is managed by a weak reference, so we can't do that
     private final Map<QueryId, Long> queryMemoryReservations = new HashMap<>();
 
+    @GuardedBy("this")
+    private final Map<QueryId, Long> queryMemoryRevocableReservations = new HashMap<>();
+
+    @GuardedBy("this")
+    private long reservedRevocableBytes;
+
+    private final List<MemoryPoolListener> listeners = new CopyOnWriteArrayList<>();
+
     public MemoryPool(MemoryPoolId id, DataSize size)
     {
         this.id = requireNonNull(id, "name is null");
@@ -62,19 +72,61 @@ public class MemoryPool
 
     public synchronized MemoryPoolInfo getInfo()
     {
-        return new MemoryPoolInfo(maxBytes, freeBytes, queryMemoryReservations);
+        return new MemoryPoolInfo(maxBytes, freeBytes, reservedRevocableBytes, queryMemoryReservations, queryMemoryRevocableReservations);
+    }
+
+    public void addListener(MemoryPoolListener listener)
+    {
+        listeners.add(requireNonNull(listener, "listener is null"));
+    }
+
+    public void removeListener(MemoryPoolListener listener)
+    {
+        listeners.remove(requireNonNull(listener, "listener is null"));
     }
 
     /**
      * Reserves the given number of bytes. Caller should wait on the returned future, before allocating more memory.
      */
-    public synchronized ListenableFuture<?> reserve(QueryId queryId, long bytes)
+    public ListenableFuture<?> reserve(QueryId queryId, long bytes)
     {
-        checkArgument(bytes >= 0, "bytes is negative");
-        if (bytes != 0) {
-            queryMemoryReservations.merge(queryId, bytes, Long::sum);
+        ListenableFuture<?> result;
+        synchronized (this) {
+            checkArgument(bytes >= 0, "bytes is negative");
+            if (bytes != 0) {
+                queryMemoryReservations.merge(queryId, bytes, Long::sum);
+            }
+            freeBytes -= bytes;
+            result = getBlockedFuture();
         }
-        freeBytes -= bytes;
+        onMemoryReserved(bytes);
+        return result;
+    }
+
+    /**
+     * Reserves the given number of bytes of revocable memory. Revocable memory counts against
+     * the pool like any other reservation, but the owner can be asked to release it
+     * (e.g. by spilling) when the pool is running out of memory.
+     */
+    public ListenableFuture<?> reserveRevocable(QueryId queryId, long bytes)
+    {
+        ListenableFuture<?> result;
+        synchronized (this) {
+            checkArgument(bytes >= 0, "bytes is negative");
+            if (bytes != 0) {
+                queryMemoryRevocableReservations.merge(queryId, bytes, Long::sum);
+            }
+            reservedRevocableBytes += bytes;
+            freeBytes -= bytes;
+            result = getBlockedFuture();
+        }
+        onMemoryReserved(bytes);
+        return result;
+    }
+
+    @GuardedBy("this")
+    private ListenableFuture<?> getBlockedFuture()
+    {
         if (freeBytes <= 0) {
             if (future == null) {
                 future = SettableFuture.create();
@@ -85,6 +137,13 @@ public class MemoryPool
         return NOT_BLOCKED;
     }
 
+    private void onMemoryReserved(long bytes)
+    {
+        if (bytes != 0) {
+            listeners.forEach(listener -> listener.onMemoryReserved(this));
+        }
+    }
+
     /**
      * Try to reserve the given number of bytes. Return value indicates whether the caller may use the requested memory.
      */
@@ -121,6 +180,36 @@ public class MemoryPool
             queryMemoryReservations.put(queryId, queryReservation);
         }
         freeBytes += bytes;
+        unblockIfNecessary();
+    }
+
+    public synchronized void freeRevocable(QueryId queryId, long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(freeBytes + bytes <= maxBytes, "tried to free more memory than is reserved");
+        if (bytes == 0) {
+            // Freeing zero bytes is a no-op
+            return;
+        }
+
+        Long queryReservation = queryMemoryRevocableReservations.get(queryId);
+        requireNonNull(queryReservation, "queryReservation is null");
+        checkArgument(queryReservation - bytes >= 0, "tried to free more revocable memory than is reserved by query");
+        queryReservation -= bytes;
+        if (queryReservation == 0) {
+            queryMemoryRevocableReservations.remove(queryId);
+        }
+        else {
+            queryMemoryRevocableReservations.put(queryId, queryReservation);
+        }
+        reservedRevocableBytes -= bytes;
+        freeBytes += bytes;
+        unblockIfNecessary();
+    }
+
+    @GuardedBy("this")
+    private void unblockIfNecessary()
+    {
         if (freeBytes > 0 && future != null) {
             future.set(null);
             future = null;
@@ -142,6 +231,15 @@ public class MemoryPool
         return maxBytes;
     }
 
+    /**
+     * Returns the number of bytes reserved as revocable memory. These bytes are included in the used bytes of the pool.
+     */
+    @Managed
+    public synchronized long getReservedRevocableBytes()
+    {
+        return reservedRevocableBytes;
+    }
+
     @Override
     public synchronized String toString()
     {
@@ -149,6 +247,7 @@ public class MemoryPool
                 .add("id", id)
                 .add("maxBytes", maxBytes)
                 .add("freeBytes", freeBytes)
+                .add("reservedRevocableBytes", reservedRevocableBytes)
                 .add("future", future)
                 .toString();
     }
@@ -25,14 +25,23 @@ public class MemoryPoolInfo
 {
     private final long maxBytes;
     private final long freeBytes;
+    private final long reservedRevocableBytes;
     private final Map<QueryId, Long> queryMemoryReservations;
+    private final Map<QueryId, Long> queryMemoryRevocableReservations;
 
     @JsonCreator
-    public MemoryPoolInfo(@JsonProperty("maxBytes") long maxBytes, @JsonProperty("freeBytes") long freeBytes, @JsonProperty("queryMemoryReservations") Map<QueryId, Long> queryMemoryReservations)
+    public MemoryPoolInfo(
+            @JsonProperty("maxBytes") long maxBytes,
+            @JsonProperty("freeBytes") long freeBytes,
+            @JsonProperty("reservedRevocableBytes") long reservedRevocableBytes,
+            @JsonProperty("queryMemoryReservations") Map<QueryId, Long> queryMemoryReservations,
+            @JsonProperty("queryMemoryRevocableReservations") Map<QueryId, Long> queryMemoryRevocableReservations)
     {
         this.maxBytes = maxBytes;
         this.freeBytes = freeBytes;
+        this.reservedRevocableBytes = reservedRevocableBytes;
         this.queryMemoryReservations = ImmutableMap.copyOf(queryMemoryReservations);
+        this.queryMemoryRevocableReservations = ImmutableMap.copyOf(queryMemoryRevocableReservations);
     }
 
     @JsonProperty
@@ -47,18 +56,42 @@ public class MemoryPoolInfo
         return freeBytes;
     }
 
+    /**
+     * Returns the number of bytes reserved as revocable memory, which is part of the used bytes of the pool.
+     */
+    @JsonProperty
+    public long getReservedRevocableBytes()
+    {
+        return reservedRevocableBytes;
+    }
+
+    /**
+     * Returns the number of bytes reserved as regular (non-revocable) memory.
+     */
+    public long getReservedUserBytes()
+    {
+        return maxBytes - freeBytes - reservedRevocableBytes;
+    }
+
     @JsonProperty
     public Map<QueryId, Long> getQueryMemoryReservations()
     {
         return queryMemoryReservations;
     }
 
+    @JsonProperty
+    public Map<QueryId, Long> getQueryMemoryRevocableReservations()
+    {
+        return queryMemoryRevocableReservations;
+    }
+
     @Override
     public String toString()
     {
         return MoreObjects.toStringHelper(this)
                 .add("maxBytes", maxBytes)
                 .add("freeBytes", freeBytes)
+                .add("reservedRevocableBytes", reservedRevocableBytes)
                 .toString();
     }
 }
@@ -19,13 +19,16 @@ import io.airlift.units.DataSize;
 import javax.validation.constraints.NotNull;
 
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 
 // This is separate from MemoryManagerConfig because it's difficult to test the default value of maxQueryMemoryPerNode
 public class NodeMemoryConfig
 {
     public static final String QUERY_MAX_MEMORY_PER_NODE_CONFIG = "query.max-memory-per-node";
+    public static final String QUERY_MAX_SPILL_PER_NODE_CONFIG = "query.max-spill-per-node";
 
     private DataSize maxQueryMemoryPerNode = new DataSize(Runtime.getRuntime().maxMemory() * 0.1, BYTE);
+    private DataSize maxQuerySpillPerNode = new DataSize(100, GIGABYTE);
 
     @NotNull
     public DataSize getMaxQueryMemoryPerNode()
@@ -39,4 +42,17 @@ public class NodeMemoryConfig
         this.maxQueryMemoryPerNode = maxQueryMemoryPerNode;
         return this;
     }
+
+    @NotNull
+    public DataSize getMaxQuerySpillPerNode()
+    {
+        return maxQuerySpillPerNode;
+    }
+
+    @Config(QUERY_MAX_SPILL_PER_NODE_CONFIG)
+    public NodeMemoryConfig setMaxQuerySpillPerNode(DataSize maxQuerySpillPerNode)
+    {
+        this.maxQuerySpillPerNode = maxQuerySpillPerNode;
+        return this;
+    }
 }
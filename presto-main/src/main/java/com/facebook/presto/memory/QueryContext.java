@@ -17,6 +17,7 @@ import com.facebook.presto.Session;
 import com.facebook.presto.execution.QueryId;
 import com.facebook.presto.execution.TaskStateMachine;
 import com.facebook.presto.operator.TaskContext;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -30,6 +31,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 
 import static com.facebook.presto.ExceededMemoryLimitException.exceededLocalLimit;
+import static com.facebook.presto.ExceededSpillLimitException.exceededPerQueryLocalLimit;
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.units.DataSize.succinctBytes;
 import static java.util.Objects.requireNonNull;
@@ -41,6 +43,7 @@ public class QueryContext
     private final Executor executor;
     private final List<TaskContext> taskContexts = new CopyOnWriteArrayList<>();
     private final MemoryPool systemMemoryPool;
+    private final long maxSpill;
 
     // TODO: This field should be final. However, due to the way QueryContext is constructed the memory limit is not known in advance
     @GuardedBy("this")
@@ -52,16 +55,23 @@ public class QueryContext
     @GuardedBy("this")
     private MemoryPool memoryPool;
 
+    @GuardedBy("this")
+    private long revocableReserved;
+
     @GuardedBy("this")
     private long systemReserved;
 
-    public QueryContext(QueryId queryId, DataSize maxMemory, MemoryPool memoryPool, MemoryPool systemMemoryPool, Executor executor)
+    @GuardedBy("this")
+    private long spillUsed;
+
+    public QueryContext(QueryId queryId, DataSize maxMemory, MemoryPool memoryPool, MemoryPool systemMemoryPool, Executor executor, DataSize maxSpill)
     {
         this.queryId = requireNonNull(queryId, "queryId is null");
         this.maxMemory = requireNonNull(maxMemory, "maxMemory is null").toBytes();
         this.memoryPool = requireNonNull(memoryPool, "memoryPool is null");
         this.systemMemoryPool = requireNonNull(systemMemoryPool, "systemMemoryPool is null");
         this.executor = requireNonNull(executor, "executor is null");
+        this.maxSpill = requireNonNull(maxSpill, "maxSpill is null").toBytes();
     }
 
     // TODO: This method should be removed, and the correct limit set in the constructor. However, due to the way QueryContext is constructed the memory limit is not known in advance
@@ -84,6 +94,19 @@ public class QueryContext
         return future;
     }
 
+    /**
+     * Revocable memory is not subject to the per query memory limit, since the
+     * owner can be asked to give it back when the memory pool runs low.
+     */
+    public synchronized ListenableFuture<?> reserveRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+
+        ListenableFuture<?> future = memoryPool.reserveRevocable(queryId, bytes);
+        revocableReserved += bytes;
+        return future;
+    }
+
     public synchronized ListenableFuture<?> reserveSystemMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -114,6 +137,14 @@ public class QueryContext
         memoryPool.free(queryId, bytes);
     }
 
+    public synchronized void freeRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(revocableReserved - bytes >= 0, "tried to free more revocable memory than is reserved");
+        revocableReserved -= bytes;
+        memoryPool.freeRevocable(queryId, bytes);
+    }
+
     public synchronized void freeSystemMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -122,6 +153,22 @@ public class QueryContext
         systemMemoryPool.free(queryId, bytes);
     }
 
+    public synchronized void reserveSpill(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        if (spillUsed + bytes > maxSpill) {
+            throw exceededPerQueryLocalLimit(succinctBytes(maxSpill));
+        }
+        spillUsed += bytes;
+    }
+
+    public synchronized void freeSpill(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(spillUsed - bytes >= 0, "tried to free more spill space than is used");
+        spillUsed -= bytes;
+    }
+
     public synchronized void setMemoryPool(MemoryPool pool)
     {
         requireNonNull(pool, "pool is null");
@@ -131,13 +178,16 @@ public class QueryContext
         }
         MemoryPool originalPool = memoryPool;
         long originalReserved = reserved;
+        long originalRevocableReserved = revocableReserved;
         memoryPool = pool;
+        pool.reserveRevocable(queryId, revocableReserved);
         ListenableFuture<?> future = pool.reserve(queryId, reserved);
         Futures.addCallback(future, new FutureCallback<Object>() {
             @Override
             public void onSuccess(Object result)
             {
                 originalPool.free(queryId, originalReserved);
+                originalPool.freeRevocable(queryId, originalRevocableReserved);
                 // Unblock all the tasks, if they were waiting for memory, since we're in a new pool.
                 taskContexts.stream().forEach(TaskContext::moreMemoryAvailable);
             }
@@ -146,12 +196,23 @@ public class QueryContext
             public void onFailure(Throwable t)
             {
                 originalPool.free(queryId, originalReserved);
+                originalPool.freeRevocable(queryId, originalRevocableReserved);
                 // Unblock all the tasks, if they were waiting for memory, since we're in a new pool.
                 taskContexts.stream().forEach(TaskContext::moreMemoryAvailable);
             }
         });
     }
 
+    public synchronized MemoryPool getMemoryPool()
+    {
+        return memoryPool;
+    }
+
+    public List<TaskContext> getTaskContexts()
+    {
+        return ImmutableList.copyOf(taskContexts);
+    }
+
     public TaskContext addTaskContext(TaskStateMachine taskStateMachine, Session session, DataSize operatorPreAllocatedMemory, boolean verboseStats, boolean cpuTimerEnabled)
     {
         TaskContext taskContext = new TaskContext(this, taskStateMachine, executor, session, operatorPreAllocatedMemory, verboseStats, cpuTimerEnabled);
@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Join probe returning join positions which were looked up for the whole
+ * probe page at once with {@link LookupSource#getJoinPositions}.
+ */
+public class BatchJoinProbe
+        implements JoinProbe
+{
+    private final JoinProbe delegate;
+    private final long[] joinPositions;
+    private int position = -1;
+
+    public BatchJoinProbe(JoinProbe delegate, Page page, long[] joinPositions)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.joinPositions = requireNonNull(joinPositions, "joinPositions is null");
+        checkArgument(joinPositions.length == page.getPositionCount(), "joinPositions does not match the page position count");
+    }
+
+    @Override
+    public int getChannelCount()
+    {
+        return delegate.getChannelCount();
+    }
+
+    @Override
+    public boolean advanceNextPosition()
+    {
+        position++;
+        return delegate.advanceNextPosition();
+    }
+
+    @Override
+    public long getCurrentJoinPosition()
+    {
+        return joinPositions[position];
+    }
+
+    @Override
+    public void appendTo(PageBuilder pageBuilder)
+    {
+        delegate.appendTo(pageBuilder);
+    }
+
+    @Override
+    public int getPosition()
+    {
+        return delegate.getPosition();
+    }
+
+    @Override
+    public Page getPage()
+    {
+        return delegate.getPage();
+    }
+}
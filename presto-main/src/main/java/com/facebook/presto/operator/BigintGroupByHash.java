@@ -20,6 +20,7 @@ import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.LongArrayBlock;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.type.BigintOperators;
 import com.google.common.collect.ImmutableList;
@@ -124,36 +125,28 @@ public class BigintGroupByHash
     }
 
     @Override
-    public void addPage(Page page)
+    public long getRawHash(int groupId)
     {
-        int positionCount = page.getPositionCount();
-
-        // get the group id for each position
-        Block block = page.getBlock(hashChannel);
-        for (int position = 0; position < positionCount; position++) {
-            // get the group for the current row
-            putIfAbsent(position, block);
+        checkArgument(groupId >= 0, "groupId is negative");
+        if (groupId == nullGroupId) {
+            return NULL_HASH_CODE;
         }
+        return BigintOperators.hashCode(valuesByGroupId.get(groupId));
+    }
+
+    @Override
+    public void addPage(Page page)
+    {
+        putAllIfAbsent(page.getBlock(hashChannel), new long[page.getPositionCount()]);
     }
 
     @Override
     public GroupByIdBlock getGroupIds(Page page)
     {
         int positionCount = page.getPositionCount();
-
-        // we know the exact size required for the block
-        BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(positionCount);
-
-        // get the group id for each position
-        Block block = page.getBlock(hashChannel);
-        for (int position = 0; position < positionCount; position++) {
-            // get the group for the current row
-            int groupId = putIfAbsent(position, block);
-
-            // output the group id for this row
-            BIGINT.writeLong(blockBuilder, groupId);
-        }
-        return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+        long[] groupIds = new long[positionCount];
+        putAllIfAbsent(page.getBlock(hashChannel), groupIds);
+        return new GroupByIdBlock(nextGroupId, new LongArrayBlock(positionCount, new boolean[positionCount], groupIds));
     }
 
     @Override
@@ -189,6 +182,41 @@ public class BigintGroupByHash
         return putIfAbsent(position, block);
     }
 
+    private void putAllIfAbsent(Block block, long[] groupIdsByPosition)
+    {
+        int positionCount = groupIdsByPosition.length;
+
+        // read the values and their hashes one column at a time, before touching the hash table
+        boolean[] nulls = new boolean[positionCount];
+        long[] values = new long[positionCount];
+        long[] hashes = new long[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            nulls[position] = block.isNull(position);
+        }
+        for (int position = 0; position < positionCount; position++) {
+            if (!nulls[position]) {
+                values[position] = BIGINT.getLong(block, position);
+            }
+        }
+        for (int position = 0; position < positionCount; position++) {
+            hashes[position] = murmurHash3(values[position]);
+        }
+
+        // resolve the group ids, the mask is applied here since adding groups may rehash
+        for (int position = 0; position < positionCount; position++) {
+            if (nulls[position]) {
+                if (nullGroupId < 0) {
+                    // set null group id
+                    nullGroupId = nextGroupId++;
+                }
+                groupIdsByPosition[position] = nullGroupId;
+            }
+            else {
+                groupIdsByPosition[position] = putValueIfAbsent(values[position], hashes[position] & mask);
+            }
+        }
+    }
+
     private int putIfAbsent(int position, Block block)
     {
         if (block.isNull(position)) {
@@ -201,8 +229,11 @@ public class BigintGroupByHash
         }
 
         long value = BIGINT.getLong(block, position);
-        long hashPosition = getHashPosition(value, mask);
+        return putValueIfAbsent(value, getHashPosition(value, mask));
+    }
 
+    private int putValueIfAbsent(long value, long hashPosition)
+    {
         // look for an empty slot or a slot containing this key
         while (true) {
             int groupId = groupIds.get(hashPosition);
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Join probe for pages where the single join key is dictionary encoded. The
+ * lookup source is probed once per dictionary entry, and the resulting join
+ * position is reused for all rows referencing the same entry.
+ */
+public class DictionaryJoinProbe
+        implements JoinProbe
+{
+    public static final long UNKNOWN_JOIN_POSITION = -2;
+
+    private final JoinProbe delegate;
+    private final LookupSource lookupSource;
+    private final DictionaryBlock probeBlock;
+    private final Block dictionary;
+    private final Page dictionaryPage;
+    private final long[] joinPositions;
+    private int position = -1;
+
+    public DictionaryJoinProbe(JoinProbe delegate, LookupSource lookupSource, DictionaryBlock probeBlock, long[] joinPositions)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.lookupSource = requireNonNull(lookupSource, "lookupSource is null");
+        this.probeBlock = requireNonNull(probeBlock, "probeBlock is null");
+        this.dictionary = probeBlock.getDictionary();
+        this.dictionaryPage = new Page(dictionary);
+        this.joinPositions = requireNonNull(joinPositions, "joinPositions is null");
+        checkArgument(joinPositions.length >= dictionary.getPositionCount(), "joinPositions is smaller than the dictionary");
+    }
+
+    @Override
+    public int getChannelCount()
+    {
+        return delegate.getChannelCount();
+    }
+
+    @Override
+    public boolean advanceNextPosition()
+    {
+        position++;
+        return delegate.advanceNextPosition();
+    }
+
+    @Override
+    public long getCurrentJoinPosition()
+    {
+        int id = probeBlock.getId(position);
+        long joinPosition = joinPositions[id];
+        if (joinPosition == UNKNOWN_JOIN_POSITION) {
+            joinPosition = dictionary.isNull(id) ? -1 : lookupSource.getJoinPosition(id, dictionaryPage, dictionaryPage);
+            joinPositions[id] = joinPosition;
+        }
+        return joinPosition;
+    }
+
+    @Override
+    public void appendTo(PageBuilder pageBuilder)
+    {
+        delegate.appendTo(pageBuilder);
+    }
+
+    @Override
+    public int getPosition()
+    {
+        return delegate.getPosition();
+    }
+
+    @Override
+    public Page getPage()
+    {
+        return delegate.getPage();
+    }
+}
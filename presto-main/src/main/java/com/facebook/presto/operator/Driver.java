@@ -78,6 +78,12 @@ public class Driver
     @GuardedBy("exclusiveLock")
     private final Map<PlanNodeId, TaskSource> currentSources = new ConcurrentHashMap<>();
 
+    @GuardedBy("exclusiveLock")
+    private final Map<Operator, ListenableFuture<?>> revokingOperators = new HashMap<>();
+
+    // completed to wake up a blocked driver, e.g. when one of its operators is asked to revoke memory
+    private final AtomicReference<SettableFuture<?>> driverBlockedFuture = new AtomicReference<>(SettableFuture.create());
+
     private enum State
     {
         ALIVE, NEED_DESTRUCTION, DESTROYED
@@ -112,6 +118,10 @@ public class Driver
         }
         this.sourceOperator = sourceOperator;
         this.deleteOperator = deleteOperator;
+
+        for (Operator operator : operators) {
+            operator.getOperatorContext().setMemoryRevocationRequestListener(() -> driverBlockedFuture.get().set(null));
+        }
     }
 
     public DriverContext getDriverContext()
@@ -337,6 +347,11 @@ public class Driver
                 processNewSources();
             }
 
+            if (driverBlockedFuture.get().isDone()) {
+                driverBlockedFuture.set(SettableFuture.create());
+            }
+            handleMemoryRevoke();
+
             // special handling for drivers with a single operator
             if (operators.size() == 1) {
                 if (driverContext.isDone()) {
@@ -347,6 +362,7 @@ public class Driver
                 Operator current = operators.get(0);
                 ListenableFuture<?> blocked = isBlocked(current);
                 if (!blocked.isDone()) {
+                    blocked = firstFinishedFuture(ImmutableList.of(blocked, driverBlockedFuture.get()));
                     current.getOperatorContext().recordBlocked(blocked);
                     return blocked;
                 }
@@ -409,7 +425,8 @@ public class Driver
                 }
 
                 if (!blockedFutures.isEmpty()) {
-                    // unblock when the first future is complete
+                    // unblock when the first future is complete, or when the driver is woken up
+                    blockedFutures.add(driverBlockedFuture.get());
                     ListenableFuture<?> blocked = firstFinishedFuture(blockedFutures);
                     // driver records serial blocked time
                     driverContext.recordBlocked(blocked);
@@ -506,8 +523,31 @@ public class Driver
         }
     }
 
-    private static ListenableFuture<?> isBlocked(Operator operator)
+    private void handleMemoryRevoke()
     {
+        checkLockHeld("Lock must be held to call handleMemoryRevoke");
+
+        for (Operator operator : operators) {
+            OperatorContext operatorContext = operator.getOperatorContext();
+            ListenableFuture<?> revoking = revokingOperators.get(operator);
+            if (revoking == null && operatorContext.isMemoryRevokingRequested()) {
+                revoking = operator.startMemoryRevoke();
+                revokingOperators.put(operator, revoking);
+            }
+            if (revoking != null && revoking.isDone()) {
+                operator.finishMemoryRevoke();
+                operatorContext.resetMemoryRevokingRequested();
+                revokingOperators.remove(operator);
+            }
+        }
+    }
+
+    private ListenableFuture<?> isBlocked(Operator operator)
+    {
+        ListenableFuture<?> revoking = revokingOperators.get(operator);
+        if (revoking != null && !revoking.isDone()) {
+            return revoking;
+        }
         ListenableFuture<?> blocked = operator.isBlocked();
         if (blocked.isDone()) {
             blocked = operator.getOperatorContext().isWaitingForMemory();
@@ -78,6 +78,7 @@ public class DriverContext
     private final AtomicReference<DateTime> executionEndTime = new AtomicReference<>();
 
     private final AtomicLong memoryReservation = new AtomicLong();
+    private final AtomicLong revocableMemoryReservation = new AtomicLong();
     private final AtomicLong systemMemoryReservation = new AtomicLong();
 
     private final List<OperatorContext> operatorContexts = new CopyOnWriteArrayList<>();
@@ -172,6 +173,7 @@ public class DriverContext
         endNanos.set(System.nanoTime());
 
         freeMemory(memoryReservation.get());
+        freeRevocableMemory(revocableMemoryReservation.get());
 
         pipelineContext.driverFinished(this);
     }
@@ -182,6 +184,7 @@ public class DriverContext
         finished.set(true);
 
         freeMemory(memoryReservation.get());
+        freeRevocableMemory(revocableMemoryReservation.get());
     }
 
     public boolean isDone()
@@ -207,6 +210,14 @@ public class DriverContext
         return future;
     }
 
+    public ListenableFuture<?> reserveRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        ListenableFuture<?> future = pipelineContext.reserveRevocableMemory(bytes);
+        revocableMemoryReservation.getAndAdd(bytes);
+        return future;
+    }
+
     public ListenableFuture<?> reserveSystemMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -235,6 +246,17 @@ public class DriverContext
         memoryReservation.getAndAdd(-bytes);
     }
 
+    public void freeRevocableMemory(long bytes)
+    {
+        if (bytes == 0) {
+            return;
+        }
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(bytes <= revocableMemoryReservation.get(), "tried to free more revocable memory than is reserved");
+        pipelineContext.freeRevocableMemory(bytes);
+        revocableMemoryReservation.getAndAdd(-bytes);
+    }
+
     public void freeSystemMemory(long bytes)
     {
         if (bytes == 0) {
@@ -257,6 +279,11 @@ public class DriverContext
         operatorContexts.stream().forEach(OperatorContext::moreMemoryAvailable);
     }
 
+    public long getRevocableMemoryReservation()
+    {
+        return revocableMemoryReservation.get();
+    }
+
     public boolean isVerboseStats()
     {
         return pipelineContext.isVerboseStats();
@@ -61,6 +61,8 @@ public class ExchangeClient
     private final DataSize maxResponseSize;
     private final int concurrentRequestMultiplier;
     private final Duration minErrorDuration;
+    private final boolean compressionEnabled;
+    private final boolean checksumEnabled;
     private final HttpClient httpClient;
     private final ScheduledExecutorService executor;
 
@@ -99,6 +101,8 @@ public class ExchangeClient
             DataSize maxResponseSize,
             int concurrentRequestMultiplier,
             Duration minErrorDuration,
+            boolean compressionEnabled,
+            boolean checksumEnabled,
             HttpClient httpClient,
             ScheduledExecutorService executor,
             SystemMemoryUsageListener systemMemoryUsageListener)
@@ -108,6 +112,8 @@ public class ExchangeClient
         this.maxResponseSize = maxResponseSize;
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
         this.minErrorDuration = minErrorDuration;
+        this.compressionEnabled = compressionEnabled;
+        this.checksumEnabled = checksumEnabled;
         this.httpClient = httpClient;
         this.executor = executor;
         this.systemMemoryUsageListener = systemMemoryUsageListener;
@@ -120,11 +126,15 @@ public class ExchangeClient
             bufferedPages--;
         }
 
+        long compressedBytes = 0;
+        long uncompressedBytes = 0;
         ImmutableList.Builder<PageBufferClientStatus> exchangeStatus = ImmutableList.builder();
         for (HttpPageBufferClient client : allClients.values()) {
             exchangeStatus.add(client.getStatus());
+            compressedBytes += client.getCompressedBytesReceived();
+            uncompressedBytes += client.getUncompressedBytesReceived();
         }
-        return new ExchangeClientStatus(bufferBytes, averageBytesPerRequest, bufferedPages, noMoreLocations, exchangeStatus.build());
+        return new ExchangeClientStatus(bufferBytes, averageBytesPerRequest, bufferedPages, compressedBytes, uncompressedBytes, noMoreLocations, exchangeStatus.build());
     }
 
     public synchronized void addLocation(URI location)
@@ -265,6 +275,8 @@ public class ExchangeClient
                         httpClient,
                         maxResponseSize,
                         minErrorDuration,
+                        compressionEnabled,
+                        checksumEnabled,
                         location,
                         new ExchangeClientCallback(),
                         blockEncodingSerde,
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.http.client.HttpClientConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
@@ -33,6 +34,8 @@ public class ExchangeClientConfig
     private Duration minErrorDuration = new Duration(1, TimeUnit.MINUTES);
     private DataSize maxResponseSize = new HttpClientConfig().getMaxContentLength();
     private int clientThreads = 25;
+    private boolean compressionEnabled;
+    private boolean checksumEnabled;
 
     @NotNull
     public DataSize getMaxBufferSize()
@@ -100,4 +103,30 @@ public class ExchangeClientConfig
         this.clientThreads = clientThreads;
         return this;
     }
+
+    public boolean isCompressionEnabled()
+    {
+        return compressionEnabled;
+    }
+
+    @Config("exchange.compression-enabled")
+    @ConfigDescription("Request pages from remote tasks LZ4 compressed")
+    public ExchangeClientConfig setCompressionEnabled(boolean compressionEnabled)
+    {
+        this.compressionEnabled = compressionEnabled;
+        return this;
+    }
+
+    public boolean isChecksumEnabled()
+    {
+        return checksumEnabled;
+    }
+
+    @Config("exchange.checksum-enabled")
+    @ConfigDescription("Request pages from remote tasks with a checksum, which is verified when the pages are received")
+    public ExchangeClientConfig setChecksumEnabled(boolean checksumEnabled)
+    {
+        this.checksumEnabled = checksumEnabled;
+        return this;
+    }
 }
@@ -34,6 +34,8 @@ public class ExchangeClientFactory
     private final DataSize maxBufferedBytes;
     private final int concurrentRequestMultiplier;
     private final Duration minErrorDuration;
+    private final boolean compressionEnabled;
+    private final boolean checksumEnabled;
     private final HttpClient httpClient;
     private final DataSize maxResponseSize;
     private final ScheduledExecutorService executor;
@@ -49,6 +51,8 @@ public class ExchangeClientFactory
                 config.getMaxResponseSize(),
                 config.getConcurrentRequestMultiplier(),
                 config.getMinErrorDuration(),
+                config.isCompressionEnabled(),
+                config.isChecksumEnabled(),
                 httpClient,
                 executor);
     }
@@ -59,6 +63,8 @@ public class ExchangeClientFactory
             DataSize maxResponseSize,
             int concurrentRequestMultiplier,
             Duration minErrorDuration,
+            boolean compressionEnabled,
+            boolean checksumEnabled,
             HttpClient httpClient,
             ScheduledExecutorService executor)
     {
@@ -66,6 +72,8 @@ public class ExchangeClientFactory
         this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
         this.minErrorDuration = requireNonNull(minErrorDuration, "minErrorDuration is null");
+        this.compressionEnabled = compressionEnabled;
+        this.checksumEnabled = checksumEnabled;
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
 
         // Use only 0.75 of the maxResponseSize to leave room for additional bytes from the encoding
@@ -90,6 +98,8 @@ public class ExchangeClientFactory
                 maxResponseSize,
                 concurrentRequestMultiplier,
                 minErrorDuration,
+                compressionEnabled,
+                checksumEnabled,
                 httpClient,
                 executor,
                 systemMemoryUsageListener);
@@ -27,6 +27,8 @@ public class ExchangeClientStatus
     private final long bufferedBytes;
     private final long averageBytesPerRequest;
     private final int bufferedPages;
+    private final long compressedBytesReceived;
+    private final long uncompressedBytesReceived;
     private final boolean noMoreLocations;
     private final List<PageBufferClientStatus> pageBufferClientStatuses;
 
@@ -35,12 +37,16 @@ public class ExchangeClientStatus
             @JsonProperty("bufferedBytes") long bufferedBytes,
             @JsonProperty("averageBytesPerRequest") long averageBytesPerRequest,
             @JsonProperty("bufferedPages") int bufferedPages,
+            @JsonProperty("compressedBytesReceived") long compressedBytesReceived,
+            @JsonProperty("uncompressedBytesReceived") long uncompressedBytesReceived,
             @JsonProperty("noMoreLocations") boolean noMoreLocations,
             @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses)
     {
         this.bufferedBytes = bufferedBytes;
         this.averageBytesPerRequest = averageBytesPerRequest;
         this.bufferedPages = bufferedPages;
+        this.compressedBytesReceived = compressedBytesReceived;
+        this.uncompressedBytesReceived = uncompressedBytesReceived;
         this.noMoreLocations = noMoreLocations;
         this.pageBufferClientStatuses = ImmutableList.copyOf(requireNonNull(pageBufferClientStatuses, "pageBufferClientStatuses is null"));
     }
@@ -63,6 +69,24 @@ public class ExchangeClientStatus
         return bufferedPages;
     }
 
+    /**
+     * Bytes of page data received from the remote tasks, as sent over the network.
+     */
+    @JsonProperty
+    public long getCompressedBytesReceived()
+    {
+        return compressedBytesReceived;
+    }
+
+    /**
+     * Bytes of page data received from the remote tasks, after decompression.
+     */
+    @JsonProperty
+    public long getUncompressedBytesReceived()
+    {
+        return uncompressedBytesReceived;
+    }
+
     @JsonProperty
     public boolean isNoMoreLocations()
     {
@@ -83,6 +107,8 @@ public class ExchangeClientStatus
                 .add("bufferBytes", bufferedBytes)
                 .add("averageBytesPerRequest", averageBytesPerRequest)
                 .add("bufferedPages", bufferedPages)
+                .add("compressedBytesReceived", compressedBytesReceived)
+                .add("uncompressedBytesReceived", uncompressedBytesReceived)
                 .add("noMoreLocations", noMoreLocations)
                 .add("pageBufferClientStatuses", pageBufferClientStatuses)
                 .toString();
@@ -64,4 +64,6 @@ public interface GroupByHash
     boolean contains(int position, Page page, int[] hashChannels);
 
     int putIfAbsent(int position, Page page);
+
+    long getRawHash(int groupId);
 }
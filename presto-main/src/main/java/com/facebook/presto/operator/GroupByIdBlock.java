@@ -50,6 +50,11 @@ public class GroupByIdBlock
         return BIGINT.getLong(block, position);
     }
 
+    public Block getIds()
+    {
+        return block;
+    }
+
     @Override
     public Block getRegion(int positionOffset, int length)
     {
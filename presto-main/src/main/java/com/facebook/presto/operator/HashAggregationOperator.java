@@ -15,25 +15,33 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.GroupedAccumulator;
+import com.facebook.presto.operator.aggregation.builder.HashAggregationBuilder;
+import com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder;
+import com.facebook.presto.operator.aggregation.builder.SpillableHashAggregationBuilder;
 import com.facebook.presto.spi.Page;
-import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.LongArrayBlock;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
-import com.google.common.collect.AbstractIterator;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
-import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
-import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder.toTypes;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
@@ -56,6 +64,11 @@ public class HashAggregationOperator
         private final List<Type> types;
         private boolean closed;
         private final long maxPartialMemory;
+        private final boolean spillEnabled;
+        private final DataSize memoryLimitBeforeSpill;
+        private final Optional<SpillerFactory> spillerFactory;
+        private final boolean adaptivePartialAggregationEnabled;
+        private final double adaptivePartialAggregationUniqueRowsRatio;
 
         public HashAggregationOperatorFactory(
                 int operatorId,
@@ -67,6 +80,66 @@ public class HashAggregationOperator
                 Optional<Integer> hashChannel,
                 int expectedGroups,
                 DataSize maxPartialMemory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    step,
+                    accumulatorFactories,
+                    hashChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    false,
+                    new DataSize(0, Unit.MEGABYTE),
+                    Optional.empty());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                int expectedGroups,
+                DataSize maxPartialMemory,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                Optional<SpillerFactory> spillerFactory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    step,
+                    accumulatorFactories,
+                    hashChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    false,
+                    1.0);
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                int expectedGroups,
+                DataSize maxPartialMemory,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                Optional<SpillerFactory> spillerFactory,
+                boolean adaptivePartialAggregationEnabled,
+                double adaptivePartialAggregationUniqueRowsRatio)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -77,6 +150,12 @@ public class HashAggregationOperator
             this.accumulatorFactories = ImmutableList.copyOf(accumulatorFactories);
             this.expectedGroups = expectedGroups;
             this.maxPartialMemory = requireNonNull(maxPartialMemory, "maxPartialMemory is null").toBytes();
+            this.spillEnabled = spillEnabled;
+            this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            checkArgument(!spillEnabled || spillerFactory.isPresent(), "spillerFactory must be present when spill is enabled");
+            this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled;
+            this.adaptivePartialAggregationUniqueRowsRatio = adaptivePartialAggregationUniqueRowsRatio;
 
             this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
         }
@@ -106,7 +185,12 @@ public class HashAggregationOperator
                     step,
                     accumulatorFactories,
                     hashChannel,
-                    expectedGroups);
+                    expectedGroups,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    adaptivePartialAggregationEnabled,
+                    adaptivePartialAggregationUniqueRowsRatio);
             return hashAggregationOperator;
         }
 
@@ -128,10 +212,24 @@ public class HashAggregationOperator
                     accumulatorFactories,
                     hashChannel,
                     expectedGroups,
-                    new DataSize(maxPartialMemory, Unit.BYTE));
+                    new DataSize(maxPartialMemory, Unit.BYTE),
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    adaptivePartialAggregationEnabled,
+                    adaptivePartialAggregationUniqueRowsRatio);
         }
     }
 
+    /**
+     * Minimum number of rows a partial aggregation has to see before it
+     * decides whether hashing its input is worth the cost. The rows of all
+     * hash tables it flushed so far are counted, so an aggregation that
+     * flushes often because of its memory limit still decides.
+     */
+    @VisibleForTesting
+    static final int ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS = 100_000;
+
     private final OperatorContext operatorContext;
     private final List<Type> groupByTypes;
     private final List<Integer> groupByChannels;
@@ -139,13 +237,51 @@ public class HashAggregationOperator
     private final List<AccumulatorFactory> accumulatorFactories;
     private final Optional<Integer> hashChannel;
     private final int expectedGroups;
+    private final boolean spillEnabled;
+    private final DataSize memoryLimitBeforeSpill;
+    private final Optional<SpillerFactory> spillerFactory;
+    private final boolean adaptivePartialAggregation;
+    private final double adaptivePartialAggregationUniqueRowsRatio;
 
     private final List<Type> types;
 
-    private GroupByHashAggregationBuilder aggregationBuilder;
+    private HashAggregationBuilder aggregationBuilder;
+    private long aggregationBuilderInputRows;
     private Iterator<Page> outputIterator;
+    private Page passThroughOutput;
+    private boolean passThrough;
     private boolean finishing;
 
+    private final AtomicLong aggregatedRows = new AtomicLong();
+    private final AtomicLong aggregatedGroups = new AtomicLong();
+    private final AtomicLong passThroughRows = new AtomicLong();
+
+    public HashAggregationOperator(
+            OperatorContext operatorContext,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Step step,
+            List<AccumulatorFactory> accumulatorFactories,
+            Optional<Integer> hashChannel,
+            int expectedGroups,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            Optional<SpillerFactory> spillerFactory)
+    {
+        this(operatorContext,
+                groupByTypes,
+                groupByChannels,
+                step,
+                accumulatorFactories,
+                hashChannel,
+                expectedGroups,
+                spillEnabled,
+                memoryLimitBeforeSpill,
+                spillerFactory,
+                false,
+                1.0);
+    }
+
     public HashAggregationOperator(
             OperatorContext operatorContext,
             List<Type> groupByTypes,
@@ -153,7 +289,12 @@ public class HashAggregationOperator
             Step step,
             List<AccumulatorFactory> accumulatorFactories,
             Optional<Integer> hashChannel,
-            int expectedGroups)
+            int expectedGroups,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            Optional<SpillerFactory> spillerFactory,
+            boolean adaptivePartialAggregationEnabled,
+            double adaptivePartialAggregationUniqueRowsRatio)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(step, "step is null");
@@ -166,7 +307,18 @@ public class HashAggregationOperator
         this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
         this.step = step;
         this.expectedGroups = expectedGroups;
+        this.spillEnabled = spillEnabled;
+        this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
+
+        // only a partial aggregation over raw input can hand its rows over to the next step unreduced
+        this.adaptivePartialAggregation = adaptivePartialAggregationEnabled && step.isInputRaw() && step.isOutputPartial() && !groupByChannels.isEmpty();
+        checkArgument(adaptivePartialAggregationUniqueRowsRatio >= 0 && adaptivePartialAggregationUniqueRowsRatio <= 1, "adaptivePartialAggregationUniqueRowsRatio must be between 0 and 1");
+        this.adaptivePartialAggregationUniqueRowsRatio = adaptivePartialAggregationUniqueRowsRatio;
+        if (adaptivePartialAggregation) {
+            operatorContext.setInfoSupplier(this::getInfo);
+        }
     }
 
     @Override
@@ -190,13 +342,46 @@ public class HashAggregationOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && aggregationBuilder == null && (outputIterator == null || !outputIterator.hasNext());
+        return finishing && aggregationBuilder == null && passThroughOutput == null && (outputIterator == null || !outputIterator.hasNext());
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (aggregationBuilder == null) {
+            return NOT_BLOCKED;
+        }
+        return aggregationBuilder.isBlocked();
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (aggregationBuilder == null) {
+            return NOT_BLOCKED;
+        }
+        return aggregationBuilder.startMemoryRevoke();
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (aggregationBuilder != null) {
+            aggregationBuilder.finishMemoryRevoke();
+        }
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && outputIterator == null && (aggregationBuilder == null || !aggregationBuilder.isFull());
+        if (finishing || outputIterator != null || passThroughOutput != null) {
+            return false;
+        }
+        if (passThrough) {
+            // the rows hashed before the switch have to be flushed first
+            return aggregationBuilder == null;
+        }
+        return aggregationBuilder == null || !aggregationBuilder.isFull();
     }
 
     @Override
@@ -204,15 +389,35 @@ public class HashAggregationOperator
     {
         checkState(!finishing, "Operator is already finishing");
         requireNonNull(page, "page is null");
+        if (passThrough) {
+            checkState(aggregationBuilder == null && passThroughOutput == null, "Operator is still producing output");
+            passThroughOutput = buildPassThroughPage(page);
+            passThroughRows.addAndGet(page.getPositionCount());
+            return;
+        }
         if (aggregationBuilder == null) {
-            aggregationBuilder = new GroupByHashAggregationBuilder(
-                    accumulatorFactories,
-                    step,
-                    expectedGroups,
-                    groupByTypes,
-                    groupByChannels,
-                    hashChannel,
-                    operatorContext);
+            if (step.isOutputPartial() || !spillEnabled) {
+                aggregationBuilder = new InMemoryHashAggregationBuilder(
+                        accumulatorFactories,
+                        step,
+                        expectedGroups,
+                        groupByTypes,
+                        groupByChannels,
+                        hashChannel,
+                        operatorContext);
+            }
+            else {
+                aggregationBuilder = new SpillableHashAggregationBuilder(
+                        accumulatorFactories,
+                        step,
+                        expectedGroups,
+                        groupByTypes,
+                        groupByChannels,
+                        hashChannel,
+                        operatorContext,
+                        memoryLimitBeforeSpill,
+                        spillerFactory.get());
+            }
 
             // assume initial aggregationBuilder is not full
         }
@@ -220,209 +425,190 @@ public class HashAggregationOperator
             checkState(!aggregationBuilder.isFull(), "Aggregation buffer is full");
         }
         aggregationBuilder.processPage(page);
+        aggregationBuilderInputRows += page.getPositionCount();
+
+        if (adaptivePartialAggregation) {
+            updatePassThrough();
+        }
     }
 
     @Override
     public Page getOutput()
     {
-        if (outputIterator == null || !outputIterator.hasNext()) {
+        if (outputIterator != null && outputIterator.hasNext()) {
+            return outputIterator.next();
+        }
+
+        if (passThroughOutput != null) {
+            Page page = passThroughOutput;
+            passThroughOutput = null;
+            return page;
+        }
+
+        if (outputIterator != null) {
             // current output iterator is done
             outputIterator = null;
+            closeAggregationBuilder();
+        }
 
-            // no data
-            if (aggregationBuilder == null) {
-                return null;
-            }
+        // no data
+        if (aggregationBuilder == null) {
+            return null;
+        }
 
-            // only flush if we are finishing or the aggregation builder is full
-            if (!finishing && !aggregationBuilder.isFull()) {
-                return null;
-            }
+        // only flush if we are finishing, switching to pass through or the aggregation builder is full
+        if (!finishing && !passThrough && !aggregationBuilder.isFull()) {
+            return null;
+        }
 
-            outputIterator = aggregationBuilder.build();
-            aggregationBuilder = null;
+        if (adaptivePartialAggregation) {
+            updatePassThrough();
+            aggregatedRows.addAndGet(aggregationBuilderInputRows);
+            aggregatedGroups.addAndGet(((InMemoryHashAggregationBuilder) aggregationBuilder).getGroupCount());
+        }
 
-            if (!outputIterator.hasNext()) {
-                // current output iterator is done
-                outputIterator = null;
-                return null;
-            }
+        outputIterator = aggregationBuilder.buildResult();
+
+        if (!outputIterator.hasNext()) {
+            // current output iterator is done
+            outputIterator = null;
+            closeAggregationBuilder();
+            return null;
         }
 
         return outputIterator.next();
     }
 
-    private static List<Type> toTypes(List<? extends Type> groupByType, Step step, List<AccumulatorFactory> factories, Optional<Integer> hashChannel)
+    @Override
+    public void close()
     {
-        ImmutableList.Builder<Type> types = ImmutableList.builder();
-        types.addAll(groupByType);
-        if (hashChannel.isPresent()) {
-            types.add(BIGINT);
-        }
-        for (AccumulatorFactory factory : factories) {
-            types.add(new Aggregator(factory, step).getType());
-        }
-        return types.build();
+        outputIterator = null;
+        closeAggregationBuilder();
     }
 
-    private static class GroupByHashAggregationBuilder
+    public PartialAggregationInfo getInfo()
     {
-        private final GroupByHash groupByHash;
-        private final List<Aggregator> aggregators;
-        private final OperatorContext operatorContext;
-        private final boolean partial;
+        return new PartialAggregationInfo(aggregatedRows.get(), aggregatedGroups.get(), passThroughRows.get());
+    }
 
-        private GroupByHashAggregationBuilder(
-                List<AccumulatorFactory> accumulatorFactories,
-                Step step,
-                int expectedGroups,
-                List<Type> groupByTypes,
-                List<Integer> groupByChannels,
-                Optional<Integer> hashChannel,
-                OperatorContext operatorContext)
-        {
-            this.groupByHash = createGroupByHash(operatorContext.getSession(), groupByTypes, Ints.toArray(groupByChannels), hashChannel, expectedGroups);
-            this.operatorContext = operatorContext;
-            this.partial = step.isOutputPartial();
-
-            // wrapper each function with an aggregator
-            ImmutableList.Builder<Aggregator> builder = ImmutableList.builder();
-            requireNonNull(accumulatorFactories, "accumulatorFactories is null");
-            for (int i = 0; i < accumulatorFactories.size(); i++) {
-                AccumulatorFactory accumulatorFactory = accumulatorFactories.get(i);
-                builder.add(new Aggregator(accumulatorFactory, step));
-            }
-            aggregators = builder.build();
+    private void updatePassThrough()
+    {
+        if (passThrough) {
+            return;
         }
+        checkState(aggregationBuilder instanceof InMemoryHashAggregationBuilder, "partial aggregation must be in memory");
 
-        private void processPage(Page page)
-        {
-            if (aggregators.isEmpty()) {
-                groupByHash.addPage(page);
-                return;
-            }
-
-            GroupByIdBlock groupIds = groupByHash.getGroupIds(page);
+        // include the hash tables that were already flushed
+        long inputRows = aggregatedRows.get() + aggregationBuilderInputRows;
+        if (inputRows < ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS) {
+            return;
+        }
+        long groupCount = aggregatedGroups.get() + ((InMemoryHashAggregationBuilder) aggregationBuilder).getGroupCount();
+        if (groupCount >= inputRows * adaptivePartialAggregationUniqueRowsRatio) {
+            // the hash table barely reduces the input, so stop building one
+            passThrough = true;
+        }
+    }
 
-            for (Aggregator aggregator : aggregators) {
-                aggregator.processPage(groupIds, page);
-            }
+    /**
+     * Converts every input row into a single row partial state. Each row is
+     * assigned its own group, so no hash table has to be built or probed.
+     */
+    private Page buildPassThroughPage(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        long[] groupIds = new long[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            groupIds[position] = position;
         }
+        GroupByIdBlock groupIdsBlock = new GroupByIdBlock(positionCount, new LongArrayBlock(positionCount, new boolean[positionCount], groupIds));
 
-        public boolean isFull()
-        {
-            long memorySize = groupByHash.getEstimatedSize();
-            for (Aggregator aggregator : aggregators) {
-                memorySize += aggregator.getEstimatedSize();
-            }
-            memorySize -= operatorContext.getOperatorPreAllocatedMemory().toBytes();
-            if (memorySize < 0) {
-                memorySize = 0;
-            }
-            if (partial) {
-                return !operatorContext.trySetMemoryReservation(memorySize);
-            }
-            else {
-                operatorContext.setMemoryReservation(memorySize);
-                return false;
+        Block[] blocks = new Block[types.size()];
+        int channel = 0;
+        for (int groupByChannel : groupByChannels) {
+            blocks[channel++] = page.getBlock(groupByChannel);
+        }
+        if (hashChannel.isPresent()) {
+            blocks[channel++] = page.getBlock(hashChannel.get());
+        }
+        for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+            GroupedAccumulator accumulator = accumulatorFactory.createGroupedAccumulator();
+            accumulator.addInput(groupIdsBlock, page);
+            BlockBuilder output = accumulator.getIntermediateType().createBlockBuilder(new BlockBuilderStatus(), positionCount);
+            for (int groupId = 0; groupId < positionCount; groupId++) {
+                accumulator.evaluateIntermediate(groupId, output);
             }
+            blocks[channel++] = output.build();
         }
+        return new Page(positionCount, blocks);
+    }
 
-        public Iterator<Page> build()
-        {
-            List<Type> types = new ArrayList<>(groupByHash.getTypes());
-            for (Aggregator aggregator : aggregators) {
-                types.add(aggregator.getType());
+    private void closeAggregationBuilder()
+    {
+        if (aggregationBuilder != null) {
+            aggregationBuilder.close();
+            aggregationBuilder = null;
+            aggregationBuilderInputRows = 0;
+            if (passThrough) {
+                // pass through pages are not accounted for, so release the memory held by the hash table
+                operatorContext.setMemoryReservation(0);
             }
-
-            final PageBuilder pageBuilder = new PageBuilder(types);
-            return new AbstractIterator<Page>()
-            {
-                private final int groupCount = groupByHash.getGroupCount();
-                private int groupId;
-
-                @Override
-                protected Page computeNext()
-                {
-                    if (groupId >= groupCount) {
-                        return endOfData();
-                    }
-
-                    pageBuilder.reset();
-
-                    List<Type> types = groupByHash.getTypes();
-                    while (!pageBuilder.isFull() && groupId < groupCount) {
-                        groupByHash.appendValuesTo(groupId, pageBuilder, 0);
-
-                        pageBuilder.declarePosition();
-                        for (int i = 0; i < aggregators.size(); i++) {
-                            Aggregator aggregator = aggregators.get(i);
-                            BlockBuilder output = pageBuilder.getBlockBuilder(types.size() + i);
-                            aggregator.evaluate(groupId, output);
-                        }
-
-                        groupId++;
-                    }
-
-                    return pageBuilder.build();
-                }
-            };
         }
     }
 
-    private static class Aggregator
+    public static class PartialAggregationInfo
+            implements Mergeable<PartialAggregationInfo>
     {
-        private final GroupedAccumulator aggregation;
-        private final Step step;
-        private final int intermediateChannel;
+        private final long aggregatedRows;
+        private final long aggregatedGroups;
+        private final long passThroughRows;
+
+        @JsonCreator
+        public PartialAggregationInfo(
+                @JsonProperty("aggregatedRows") long aggregatedRows,
+                @JsonProperty("aggregatedGroups") long aggregatedGroups,
+                @JsonProperty("passThroughRows") long passThroughRows)
+        {
+            this.aggregatedRows = aggregatedRows;
+            this.aggregatedGroups = aggregatedGroups;
+            this.passThroughRows = passThroughRows;
+        }
 
-        private Aggregator(AccumulatorFactory accumulatorFactory, Step step)
+        @JsonProperty
+        public long getAggregatedRows()
         {
-            if (step.isInputRaw()) {
-                intermediateChannel = -1;
-                aggregation = accumulatorFactory.createGroupedAccumulator();
-            }
-            else {
-                checkArgument(accumulatorFactory.getInputChannels().size() == 1, "expected 1 input channel for intermediate aggregation");
-                intermediateChannel = accumulatorFactory.getInputChannels().get(0);
-                aggregation = accumulatorFactory.createGroupedIntermediateAccumulator();
-            }
-            this.step = step;
+            return aggregatedRows;
         }
 
-        public long getEstimatedSize()
+        @JsonProperty
+        public long getAggregatedGroups()
         {
-            return aggregation.getEstimatedSize();
+            return aggregatedGroups;
         }
 
-        public Type getType()
+        @JsonProperty
+        public long getPassThroughRows()
         {
-            if (step.isOutputPartial()) {
-                return aggregation.getIntermediateType();
-            }
-            else {
-                return aggregation.getFinalType();
-            }
+            return passThroughRows;
         }
 
-        public void processPage(GroupByIdBlock groupIds, Page page)
+        @Override
+        public PartialAggregationInfo mergeWith(PartialAggregationInfo other)
         {
-            if (step.isInputRaw()) {
-                aggregation.addInput(groupIds, page);
-            }
-            else {
-                aggregation.addIntermediate(groupIds, page.getBlock(intermediateChannel));
-            }
+            return new PartialAggregationInfo(
+                    aggregatedRows + other.aggregatedRows,
+                    aggregatedGroups + other.aggregatedGroups,
+                    passThroughRows + other.passThroughRows);
         }
 
-        public void evaluate(int groupId, BlockBuilder output)
+        @Override
+        public String toString()
         {
-            if (step.isOutputPartial()) {
-                aggregation.evaluateIntermediate(groupId, output);
-            }
-            else {
-                aggregation.evaluateFinal(groupId, output);
-            }
+            return MoreObjects.toStringHelper(this)
+                    .add("aggregatedRows", aggregatedRows)
+                    .add("aggregatedGroups", aggregatedGroups)
+                    .add("passThroughRows", passThroughRows)
+                    .toString();
         }
     }
 }
@@ -45,6 +45,7 @@ public class HashBuilderOperator
         private final List<Integer> hashChannels;
         private final Optional<Integer> hashChannel;
         private final Optional<JoinFilterFunction> filterFunction;
+        private final Optional<LocalDynamicFilter> dynamicFilter;
 
         private final int expectedPositions;
         private State state = State.NOT_CREATED;
@@ -59,6 +60,21 @@ public class HashBuilderOperator
                 boolean outer,
                 Optional<JoinFilterFunction> filterFunction,
                 int expectedPositions)
+        {
+            this(operatorId, planNodeId, types, layout, hashChannels, hashChannel, outer, filterFunction, expectedPositions, Optional.empty());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<Type> types,
+                Map<Symbol, Integer> layout,
+                List<Integer> hashChannels,
+                Optional<Integer> hashChannel,
+                boolean outer,
+                Optional<JoinFilterFunction> filterFunction,
+                int expectedPositions,
+                Optional<LocalDynamicFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -70,6 +86,9 @@ public class HashBuilderOperator
             this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.filterFunction = requireNonNull(filterFunction, "filterFunction is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+            // only one hash build operator is created
+            dynamicFilter.ifPresent(filter -> filter.setPartitionCount(1));
 
             this.expectedPositions = expectedPositions;
         }
@@ -98,7 +117,8 @@ public class HashBuilderOperator
                     hashChannels,
                     hashChannel,
                     filterFunction,
-                    expectedPositions);
+                    expectedPositions,
+                    dynamicFilter.map(filter -> filter.createCollector(lookupSourceSupplier.getTypes(), hashChannels)));
         }
 
         @Override
@@ -119,6 +139,7 @@ public class HashBuilderOperator
     private final List<Integer> hashChannels;
     private final Optional<Integer> hashChannel;
     private final Optional<JoinFilterFunction> filterFunction;
+    private final Optional<LocalDynamicFilter.Collector> dynamicFilterCollector;
 
     private final PagesIndex pagesIndex;
 
@@ -131,6 +152,18 @@ public class HashBuilderOperator
             Optional<Integer> hashChannel,
             Optional<JoinFilterFunction> filterFunction,
             int expectedPositions)
+    {
+        this(operatorContext, lookupSourceSupplier, hashChannels, hashChannel, filterFunction, expectedPositions, Optional.empty());
+    }
+
+    public HashBuilderOperator(
+            OperatorContext operatorContext,
+            SettableLookupSourceSupplier lookupSourceSupplier,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            Optional<JoinFilterFunction> filterFunction,
+            int expectedPositions,
+            Optional<LocalDynamicFilter.Collector> dynamicFilterCollector)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
 
@@ -139,6 +172,7 @@ public class HashBuilderOperator
         this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
         this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
         this.filterFunction = requireNonNull(filterFunction, "filterFunction is null");
+        this.dynamicFilterCollector = requireNonNull(dynamicFilterCollector, "dynamicFilterCollector is null");
 
         this.pagesIndex = new PagesIndex(lookupSourceSupplier.getTypes(), expectedPositions);
     }
@@ -162,6 +196,9 @@ public class HashBuilderOperator
             return;
         }
 
+        // publish the dynamic filter before the lookup source, so probe side scans are unblocked no later than the join
+        dynamicFilterCollector.ifPresent(LocalDynamicFilter.Collector::finish);
+
         // After this point the LookupSource will take over our memory reservation, and ours will be zero
         LookupSource lookupSource = pagesIndex.createLookupSource(hashChannels, hashChannel, filterFunction);
         lookupSourceSupplier.setLookupSource(lookupSource, operatorContext);
@@ -187,6 +224,7 @@ public class HashBuilderOperator
         checkState(!isFinished(), "Operator is already finished");
 
         pagesIndex.addPage(page);
+        dynamicFilterCollector.ifPresent(collector -> collector.addPage(page));
         if (!operatorContext.trySetMemoryReservation(pagesIndex.getEstimatedSize().toBytes())) {
             pagesIndex.compact();
         }
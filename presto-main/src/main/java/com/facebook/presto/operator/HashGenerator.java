@@ -21,6 +21,15 @@ public interface HashGenerator
 {
     long hashPosition(int position, Page page);
 
+    default long[] hashPositions(Page page)
+    {
+        long[] rawHashes = new long[page.getPositionCount()];
+        for (int position = 0; position < rawHashes.length; position++) {
+            rawHashes[position] = hashPosition(position, page);
+        }
+        return rawHashes;
+    }
+
     default int getPartition(int partitionCount, int position, Page page)
     {
         long rawHash = hashPosition(position, page);
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PagesSerde.SerializedPagesReader;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -56,9 +57,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES_TYPE;
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_SERIALIZED_PAGES_TYPE;
 import static com.facebook.presto.block.PagesSerde.readPages;
+import static com.facebook.presto.block.PagesSerde.readSerializedPages;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_CHECKSUM;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
@@ -111,6 +116,8 @@ public final class HttpPageBufferClient
     private final HttpClient httpClient;
     private final DataSize maxResponseSize;
     private final Duration minErrorDuration;
+    private final boolean compressionEnabled;
+    private final boolean checksumEnabled;
     private final URI location;
     private final ClientCallback clientCallback;
     private final BlockEncodingSerde blockEncodingSerde;
@@ -138,6 +145,8 @@ public final class HttpPageBufferClient
 
     private final AtomicLong rowsReceived = new AtomicLong();
     private final AtomicInteger pagesReceived = new AtomicInteger();
+    private final AtomicLong compressedBytesReceived = new AtomicLong();
+    private final AtomicLong uncompressedBytesReceived = new AtomicLong();
 
     private final AtomicLong rowsRejected = new AtomicLong();
     private final AtomicInteger pagesRejected = new AtomicInteger();
@@ -150,12 +159,14 @@ public final class HttpPageBufferClient
             HttpClient httpClient,
             DataSize maxResponseSize,
             Duration minErrorDuration,
+            boolean compressionEnabled,
+            boolean checksumEnabled,
             URI location,
             ClientCallback clientCallback,
             BlockEncodingSerde blockEncodingSerde,
             ScheduledExecutorService executor)
     {
-        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, executor, Stopwatch.createUnstarted());
+        this(httpClient, maxResponseSize, minErrorDuration, compressionEnabled, checksumEnabled, location, clientCallback, blockEncodingSerde, executor, Stopwatch.createUnstarted());
     }
 
     public HttpPageBufferClient(
@@ -167,10 +178,27 @@ public final class HttpPageBufferClient
             BlockEncodingSerde blockEncodingSerde,
             ScheduledExecutorService executor,
             Stopwatch errorStopwatch)
+    {
+        this(httpClient, maxResponseSize, minErrorDuration, false, false, location, clientCallback, blockEncodingSerde, executor, errorStopwatch);
+    }
+
+    public HttpPageBufferClient(
+            HttpClient httpClient,
+            DataSize maxResponseSize,
+            Duration minErrorDuration,
+            boolean compressionEnabled,
+            boolean checksumEnabled,
+            URI location,
+            ClientCallback clientCallback,
+            BlockEncodingSerde blockEncodingSerde,
+            ScheduledExecutorService executor,
+            Stopwatch errorStopwatch)
     {
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
         this.maxResponseSize = requireNonNull(maxResponseSize, "maxResponseSize is null");
         this.minErrorDuration = requireNonNull(minErrorDuration, "minErrorDuration is null");
+        this.compressionEnabled = compressionEnabled;
+        this.checksumEnabled = checksumEnabled;
         this.location = requireNonNull(location, "location is null");
         this.clientCallback = requireNonNull(clientCallback, "clientCallback is null");
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingManager is null");
@@ -218,6 +246,16 @@ public final class HttpPageBufferClient
                 httpRequestState);
     }
 
+    public long getCompressedBytesReceived()
+    {
+        return compressedBytesReceived.get();
+    }
+
+    public long getUncompressedBytesReceived()
+    {
+        return uncompressedBytesReceived.get();
+    }
+
     public synchronized boolean isRunning()
     {
         return future != null;
@@ -297,6 +335,8 @@ public final class HttpPageBufferClient
         HttpResponseFuture<PagesResponse> resultFuture = httpClient.executeAsync(
                 prepareGet()
                         .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
+                        .setHeader(PRESTO_PAGE_COMPRESSION, String.valueOf(compressionEnabled))
+                        .setHeader(PRESTO_PAGE_CHECKSUM, String.valueOf(checksumEnabled))
                         .setUri(uri).build(),
                 new PageResponseHandler(blockEncodingSerde));
 
@@ -340,6 +380,8 @@ public final class HttpPageBufferClient
                 if (clientCallback.addPages(HttpPageBufferClient.this, pages)) {
                     pagesReceived.addAndGet(pages.size());
                     rowsReceived.addAndGet(pages.stream().mapToLong(Page::getPositionCount).sum());
+                    compressedBytesReceived.addAndGet(result.getCompressedSizeInBytes());
+                    uncompressedBytesReceived.addAndGet(result.getUncompressedSizeInBytes());
                 }
                 else {
                     pagesRejected.addAndGet(pages.size());
@@ -575,8 +617,9 @@ public final class HttpPageBufferClient
                 if (contentType == null) {
                     throw new PageTransportErrorException(format("%s header is not set: %s", CONTENT_TYPE, response));
                 }
-                if (!mediaTypeMatches(contentType, PRESTO_PAGES_TYPE)) {
-                    throw new PageTransportErrorException(format("Expected %s response from server but got %s", PRESTO_PAGES_TYPE, contentType));
+                boolean serializedPages = mediaTypeMatches(contentType, PRESTO_SERIALIZED_PAGES_TYPE);
+                if (!serializedPages && !mediaTypeMatches(contentType, PRESTO_PAGES_TYPE)) {
+                    throw new PageTransportErrorException(format("Expected %s or %s response from server but got %s", PRESTO_PAGES_TYPE, PRESTO_SERIALIZED_PAGES_TYPE, contentType));
                 }
 
                 String taskInstanceId = getTaskInstanceId(response);
@@ -585,8 +628,13 @@ public final class HttpPageBufferClient
                 boolean complete = getComplete(response);
 
                 try (SliceInput input = new InputStreamSliceInput(response.getInputStream())) {
+                    if (serializedPages) {
+                        SerializedPagesReader reader = readSerializedPages(blockEncodingSerde, input);
+                        List<Page> pages = ImmutableList.copyOf(reader);
+                        return createPagesResponse(taskInstanceId, token, nextToken, pages, reader.getCompressedSizeInBytes(), reader.getUncompressedSizeInBytes(), complete);
+                    }
                     List<Page> pages = ImmutableList.copyOf(readPages(blockEncodingSerde, input));
-                    return createPagesResponse(taskInstanceId, token, nextToken, pages, complete);
+                    return createPagesResponse(taskInstanceId, token, nextToken, pages, input.position(), input.position(), complete);
                 }
                 catch (IOException e) {
                     throw Throwables.propagate(e);
@@ -646,31 +694,52 @@ public final class HttpPageBufferClient
 
     public static class PagesResponse
     {
-        public static PagesResponse createPagesResponse(String taskInstanceId, long token, long nextToken, Iterable<Page> pages, boolean complete)
+        public static PagesResponse createPagesResponse(
+                String taskInstanceId,
+                long token,
+                long nextToken,
+                Iterable<Page> pages,
+                long compressedSizeInBytes,
+                long uncompressedSizeInBytes,
+                boolean complete)
         {
-            return new PagesResponse(taskInstanceId, token, nextToken, pages, complete);
+            return new PagesResponse(taskInstanceId, token, nextToken, pages, compressedSizeInBytes, uncompressedSizeInBytes, complete);
         }
 
         public static PagesResponse createEmptyPagesResponse(String taskInstanceId, long token, long nextToken, boolean complete)
         {
-            return new PagesResponse(taskInstanceId, token, nextToken, ImmutableList.<Page>of(), complete);
+            return new PagesResponse(taskInstanceId, token, nextToken, ImmutableList.<Page>of(), 0, 0, complete);
         }
 
         private final String taskInstanceId;
         private final long token;
         private final long nextToken;
         private final List<Page> pages;
+        private final long compressedSizeInBytes;
+        private final long uncompressedSizeInBytes;
         private final boolean clientComplete;
 
-        private PagesResponse(String taskInstanceId, long token, long nextToken, Iterable<Page> pages, boolean clientComplete)
+        private PagesResponse(String taskInstanceId, long token, long nextToken, Iterable<Page> pages, long compressedSizeInBytes, long uncompressedSizeInBytes, boolean clientComplete)
         {
             this.taskInstanceId = taskInstanceId;
             this.token = token;
             this.nextToken = nextToken;
             this.pages = ImmutableList.copyOf(pages);
+            this.compressedSizeInBytes = compressedSizeInBytes;
+            this.uncompressedSizeInBytes = uncompressedSizeInBytes;
             this.clientComplete = clientComplete;
         }
 
+        public long getCompressedSizeInBytes()
+        {
+            return compressedSizeInBytes;
+        }
+
+        public long getUncompressedSizeInBytes()
+        {
+            return uncompressedSizeInBytes;
+        }
+
         public long getToken()
         {
             return token;
@@ -22,9 +22,12 @@ import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 
 import java.util.Arrays;
+import java.util.Optional;
 
+import static com.facebook.presto.operator.LookupSource.rowsContainingNull;
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
 import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static io.airlift.slice.SizeOf.sizeOf;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.util.Objects.requireNonNull;
@@ -159,6 +162,85 @@ public final class InMemoryJoinHash
         return -1;
     }
 
+    @Override
+    public boolean isBatchLookupSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public long[] getJoinPositions(Page hashChannelsPage, Page allChannelsPage, Optional<Block> hashBlock)
+    {
+        int positionCount = hashChannelsPage.getPositionCount();
+
+        // extract the hashes of all probe rows first, one column at a time
+        long[] rawHashes = new long[positionCount];
+        if (hashBlock.isPresent()) {
+            for (int position = 0; position < positionCount; position++) {
+                rawHashes[position] = BIGINT.getLong(hashBlock.get(), position);
+            }
+        }
+        else {
+            for (int position = 0; position < positionCount; position++) {
+                rawHashes[position] = pagesHashStrategy.hashRow(position, hashChannelsPage);
+            }
+        }
+
+        // rows with a null in any key column never match
+        boolean[] nullRows = rowsContainingNull(hashChannelsPage);
+        int[] positions = new int[positionCount];
+        int nonNullCount = 0;
+        for (int position = 0; position < positionCount; position++) {
+            if (!nullRows[position]) {
+                positions[nonNullCount] = position;
+                nonNullCount++;
+            }
+        }
+
+        long[] joinPositions = new long[positionCount];
+        Arrays.fill(joinPositions, -1);
+        getJoinPositions(positions, 0, nonNullCount, rawHashes, hashChannelsPage, allChannelsPage, joinPositions);
+        return joinPositions;
+    }
+
+    @Override
+    public void getJoinPositions(int[] positions, int offset, int length, long[] rawHashes, Page hashChannelsPage, Page allChannelsPage, long[] joinPositions)
+    {
+        // find the first candidate of every row, so the slot loads of the rows are independent of each other
+        int[] hashPositions = new int[length];
+        int[] candidates = new int[length];
+        for (int i = 0; i < length; i++) {
+            int pos = getHashPosition(rawHashes[positions[offset + i]], mask);
+            hashPositions[i] = pos;
+            candidates[i] = key[pos];
+        }
+
+        for (int i = 0; i < length; i++) {
+            int position = positions[offset + i];
+            joinPositions[position] = -1;
+
+            byte rawHash = (byte) rawHashes[position];
+            int pos = hashPositions[i];
+            int candidate = candidates[i];
+            while (candidate != -1) {
+                if (positionEqualsCurrentRowIgnoreNulls(candidate, rawHash, position, hashChannelsPage)) {
+                    joinPositions[position] = getNextJoinPositionFrom(candidate, position, allChannelsPage);
+                    break;
+                }
+                // increment position and mask to handler wrap around
+                pos = (pos + 1) & mask;
+                candidate = key[pos];
+            }
+        }
+    }
+
+    @Override
+    public boolean isJoinPositionReusable()
+    {
+        // the filter function looks at the other columns of the probe row
+        return !filterFunctionPresent;
+    }
+
     @Override
     public final long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage)
     {
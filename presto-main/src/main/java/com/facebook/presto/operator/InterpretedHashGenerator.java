@@ -15,12 +15,14 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.scalar.CombineHashFunction;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer;
 import com.facebook.presto.type.TypeUtils;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -50,6 +52,22 @@ public class InterpretedHashGenerator
         return result;
     }
 
+    @Override
+    public long[] hashPositions(Page page)
+    {
+        // hash one column at a time, so each loop only calls into a single type and block
+        long[] rawHashes = new long[page.getPositionCount()];
+        Arrays.fill(rawHashes, HashGenerationOptimizer.INITIAL_HASH_VALUE);
+        for (int i = 0; i < hashChannels.length; i++) {
+            Type type = hashChannelTypes.get(i);
+            Block block = page.getBlock(hashChannels[i]);
+            for (int position = 0; position < rawHashes.length; position++) {
+                rawHashes[position] = CombineHashFunction.getHash(rawHashes[position], TypeUtils.hashPosition(type, block, position));
+            }
+        }
+        return rawHashes;
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillContext;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spills the probe rows of a {@link LookupJoinOperator} that belong to build partitions
+ * which were spilled to disk, so they can be joined after the in-memory partitions.
+ */
+@NotThreadSafe
+public class JoinProbeSpiller
+        implements Closeable
+{
+    private final List<Type> probeTypes;
+    private final HashGenerator probeHashGenerator;
+    private final PartitionedLookupSource lookupSource;
+    private final SpillerFactory spillerFactory;
+    private final SpillContext spillContext;
+
+    private final Map<Integer, PageBuilder> pageBuilders = new TreeMap<>();
+    private final Map<Integer, Spiller> spillers = new TreeMap<>();
+
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+
+    public JoinProbeSpiller(
+            List<Type> probeTypes,
+            HashGenerator probeHashGenerator,
+            PartitionedLookupSource lookupSource,
+            SpillerFactory spillerFactory,
+            SpillContext spillContext)
+    {
+        this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+        this.probeHashGenerator = requireNonNull(probeHashGenerator, "probeHashGenerator is null");
+        this.lookupSource = requireNonNull(lookupSource, "lookupSource is null");
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.spillContext = requireNonNull(spillContext, "spillContext is null");
+    }
+
+    /**
+     * Buffers the rows of the page that belong to spilled partitions, spilling the buffers as they fill up.
+     *
+     * @return the rows of the page that belong to in-memory partitions, or null if there are none
+     */
+    public Page partitionPage(Page page)
+    {
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+
+        List<Integer> inMemoryPositions = new ArrayList<>(page.getPositionCount());
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int partition = lookupSource.getPartition(probeHashGenerator.hashPosition(position, page));
+            if (!lookupSource.isSpilled(partition)) {
+                inMemoryPositions.add(position);
+                continue;
+            }
+
+            PageBuilder pageBuilder = pageBuilders.computeIfAbsent(partition, ignored -> new PageBuilder(probeTypes));
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < probeTypes.size(); channel++) {
+                probeTypes.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+        }
+
+        spillPageBuilders(false);
+
+        if (inMemoryPositions.size() == page.getPositionCount()) {
+            return page;
+        }
+        if (inMemoryPositions.isEmpty()) {
+            return null;
+        }
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = page.getBlock(channel).copyPositions(inMemoryPositions);
+        }
+        return new Page(inMemoryPositions.size(), blocks);
+    }
+
+    /**
+     * Spills the remaining buffered rows. Must be called after the last page was partitioned.
+     */
+    public ListenableFuture<?> finishSpill()
+    {
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        spillPageBuilders(true);
+        return spillInProgress;
+    }
+
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
+    }
+
+    /**
+     * Hands the spilled probe rows over to the caller, which becomes responsible for closing the spillers.
+     *
+     * @return the spillers of the partitions for which this probe has rows
+     */
+    public Map<Integer, Spiller> removeSpillers()
+    {
+        checkState(spillInProgress.isDone(), "Spill hasn't yet finished");
+        Map<Integer, Spiller> result = ImmutableMap.copyOf(spillers);
+        spillers.clear();
+        return result;
+    }
+
+    public LookupSource loadSpilledPartition(int partition)
+    {
+        return lookupSource.loadSpilledPartition(partition);
+    }
+
+    @Override
+    public void close()
+    {
+        pageBuilders.clear();
+        for (Spiller spiller : spillers.values()) {
+            spiller.close();
+        }
+        spillers.clear();
+    }
+
+    private void spillPageBuilders(boolean spillPartial)
+    {
+        List<ListenableFuture<?>> spills = new ArrayList<>();
+        for (Map.Entry<Integer, PageBuilder> entry : pageBuilders.entrySet()) {
+            PageBuilder pageBuilder = entry.getValue();
+            if (pageBuilder.isEmpty() || (!spillPartial && !pageBuilder.isFull())) {
+                continue;
+            }
+
+            Page page = pageBuilder.build();
+            pageBuilder.reset();
+            Spiller spiller = spillers.computeIfAbsent(entry.getKey(), ignored -> spillerFactory.create(probeTypes, spillContext));
+            spills.add(spiller.spill(Iterators.singletonIterator(page)));
+        }
+
+        if (!spills.isEmpty()) {
+            spillInProgress = Futures.allAsList(spills);
+        }
+    }
+}
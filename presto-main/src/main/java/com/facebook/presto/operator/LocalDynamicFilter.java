@@ -0,0 +1,228 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Summary of the join keys of a hash build, which is used to skip rows of the probe side
+ * table scan that can not match any build row. The summary of a key is the set of its distinct
+ * values, or the range between its min and max value when there are too many distinct values.
+ * <p>
+ * The result is only available after every partition of the build has been collected.
+ */
+@ThreadSafe
+public class LocalDynamicFilter
+{
+    // probe side column of each join key, by the index of the key in the join criteria
+    private final Map<Integer, ColumnHandle> probeColumns;
+    private final int maxDistinctValues;
+    private final SettableFuture<TupleDomain<ColumnHandle>> result = SettableFuture.create();
+
+    @GuardedBy("this")
+    private int partitionCount = -1;
+    @GuardedBy("this")
+    private int collectedPartitions;
+    @GuardedBy("this")
+    private final Map<ColumnHandle, Domain> domains = new HashMap<>();
+
+    public LocalDynamicFilter(Map<Integer, ColumnHandle> probeColumns, int maxDistinctValues)
+    {
+        this.probeColumns = ImmutableMap.copyOf(requireNonNull(probeColumns, "probeColumns is null"));
+        checkArgument(maxDistinctValues >= 0, "maxDistinctValues is negative");
+        this.maxDistinctValues = maxDistinctValues;
+    }
+
+    /**
+     * Combines the result of all the filters into a single predicate on the probe side columns.
+     */
+    public static ListenableFuture<TupleDomain<ColumnHandle>> combine(List<LocalDynamicFilter> filters)
+    {
+        if (filters.isEmpty()) {
+            return Futures.immediateFuture(TupleDomain.all());
+        }
+        List<ListenableFuture<TupleDomain<ColumnHandle>>> results = filters.stream()
+                .map(LocalDynamicFilter::getResult)
+                .collect(toImmutableList());
+        return Futures.transform(Futures.allAsList(results), (List<TupleDomain<ColumnHandle>> tupleDomains) -> tupleDomains.stream()
+                .reduce(TupleDomain.all(), TupleDomain::intersect));
+    }
+
+    public ListenableFuture<TupleDomain<ColumnHandle>> getResult()
+    {
+        return result;
+    }
+
+    public synchronized void setPartitionCount(int partitionCount)
+    {
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        checkState(this.partitionCount == -1, "partitionCount is already set");
+        this.partitionCount = partitionCount;
+    }
+
+    /**
+     * Creates a collector for a single partition of the build.
+     *
+     * @param hashChannels channels of the join keys in the build pages, in the order of the join criteria
+     */
+    public Collector createCollector(List<Type> types, List<Integer> hashChannels)
+    {
+        return new Collector(types, hashChannels);
+    }
+
+    private synchronized void addPartition(Map<ColumnHandle, Domain> partitionDomains)
+    {
+        checkState(partitionCount != -1, "partitionCount is not set");
+        checkState(collectedPartitions < partitionCount, "All partitions are already collected");
+
+        partitionDomains.forEach((column, domain) -> domains.merge(column, domain, Domain::union));
+        collectedPartitions++;
+
+        if (collectedPartitions == partitionCount) {
+            result.set(TupleDomain.withColumnDomains(ImmutableMap.copyOf(domains)));
+        }
+    }
+
+    public class Collector
+    {
+        private final Map<ColumnHandle, KeySummary> summaries;
+        private boolean finished;
+
+        private Collector(List<Type> types, List<Integer> hashChannels)
+        {
+            requireNonNull(types, "types is null");
+            requireNonNull(hashChannels, "hashChannels is null");
+
+            ImmutableMap.Builder<ColumnHandle, KeySummary> summaries = ImmutableMap.builder();
+            probeColumns.forEach((index, column) -> {
+                int channel = hashChannels.get(index);
+                summaries.put(column, new KeySummary(types.get(channel), channel));
+            });
+            this.summaries = summaries.build();
+        }
+
+        public void addPage(Page page)
+        {
+            checkState(!finished, "Collector is already finished");
+            for (KeySummary summary : summaries.values()) {
+                summary.add(page.getBlock(summary.getChannel()));
+            }
+        }
+
+        public void finish()
+        {
+            checkState(!finished, "Collector is already finished");
+            finished = true;
+
+            ImmutableMap.Builder<ColumnHandle, Domain> partitionDomains = ImmutableMap.builder();
+            summaries.forEach((column, summary) -> partitionDomains.put(column, summary.getDomain()));
+            addPartition(partitionDomains.build());
+        }
+    }
+
+    private class KeySummary
+    {
+        private final Type type;
+        private final int channel;
+        // values of structural types are blocks, which can not be collected into a set
+        private final boolean supported;
+
+        // null once there are more than maxDistinctValues values
+        private Set<Object> distinctValues = new HashSet<>();
+        private Block min;
+        private Block max;
+
+        private KeySummary(Type type, int channel)
+        {
+            this.type = requireNonNull(type, "type is null");
+            this.channel = channel;
+            this.supported = type.isComparable() && type.getJavaType() != Block.class;
+        }
+
+        public int getChannel()
+        {
+            return channel;
+        }
+
+        public void add(Block block)
+        {
+            if (!supported) {
+                return;
+            }
+
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                // null keys never match, so they are left out of the summary
+                if (block.isNull(position)) {
+                    continue;
+                }
+
+                if (distinctValues != null) {
+                    distinctValues.add(readNativeValue(type, block, position));
+                    if (distinctValues.size() > maxDistinctValues) {
+                        distinctValues = null;
+                    }
+                }
+
+                if (type.isOrderable()) {
+                    if (min == null || type.compareTo(block, position, min, 0) < 0) {
+                        min = block.getSingleValueBlock(position);
+                    }
+                    if (max == null || type.compareTo(block, position, max, 0) > 0) {
+                        max = block.getSingleValueBlock(position);
+                    }
+                }
+            }
+        }
+
+        public Domain getDomain()
+        {
+            if (!supported) {
+                return Domain.all(type);
+            }
+            if (distinctValues != null) {
+                return Domain.create(ValueSet.copyOf(type, distinctValues), false);
+            }
+            if (min != null) {
+                return Domain.create(ValueSet.ofRanges(Range.range(type, readNativeValue(type, min, 0), true, readNativeValue(type, max, 0), true)), false);
+            }
+            return Domain.all(type);
+        }
+    }
+}
@@ -16,17 +16,29 @@ package com.facebook.presto.operator;
 import com.facebook.presto.operator.LookupJoinOperators.JoinType;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.DictionaryId;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import static com.facebook.presto.operator.DictionaryJoinProbe.UNKNOWN_JOIN_POSITION;
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.FULL_OUTER;
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.PROBE_OUTER;
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class LookupJoinOperator
@@ -34,8 +46,13 @@ public class LookupJoinOperator
 {
     private final OperatorContext operatorContext;
     private final List<Type> types;
+    private final List<Type> probeTypes;
+    private final HashGenerator probeHashGenerator;
     private final ListenableFuture<? extends LookupSource> lookupSourceFuture;
     private final JoinProbeFactory joinProbeFactory;
+    private final List<Integer> probeJoinChannels;
+    private final Optional<Integer> probeHashChannel;
+    private final SpilledJoinCoordinator spilledJoinCoordinator;
     private final Runnable onClose;
 
     private final PageBuilder pageBuilder;
@@ -45,20 +62,40 @@ public class LookupJoinOperator
     private LookupSource lookupSource;
     private JoinProbe probe;
 
+    private Optional<JoinProbeSpiller> probeSpiller = Optional.empty();
+    private boolean probeSpillFinished;
+    private boolean probeFinished;
+    private ListenableFuture<?> spilledJoinBlocked = NOT_BLOCKED;
+    private boolean spilledPartitionLoaded;
+    private List<Spiller> spilledProbeSpillers = ImmutableList.of();
+    private Iterator<Page> spilledProbePages = emptyIterator();
+
     private boolean closed;
     private boolean finishing;
     private long joinPosition = -1;
 
+    // join positions of the last seen probe dictionary, reused while the following pages share that dictionary
+    private DictionaryId dictionaryId;
+    private LookupSource dictionaryLookupSource;
+    private long[] dictionaryJoinPositions;
+
     public LookupJoinOperator(
             OperatorContext operatorContext,
             List<Type> types,
+            List<Type> probeTypes,
+            HashGenerator probeHashGenerator,
             JoinType joinType,
             ListenableFuture<LookupSource> lookupSourceFuture,
             JoinProbeFactory joinProbeFactory,
+            List<Integer> probeJoinChannels,
+            Optional<Integer> probeHashChannel,
+            SpilledJoinCoordinator spilledJoinCoordinator,
             Runnable onClose)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+        this.probeHashGenerator = requireNonNull(probeHashGenerator, "probeHashGenerator is null");
 
         requireNonNull(joinType, "joinType is null");
         // Cannot use switch case here, because javac will synthesize an inner class and cause IllegalAccessError
@@ -66,6 +103,9 @@ public class LookupJoinOperator
 
         this.lookupSourceFuture = requireNonNull(lookupSourceFuture, "lookupSourceFuture is null");
         this.joinProbeFactory = requireNonNull(joinProbeFactory, "joinProbeFactory is null");
+        this.probeJoinChannels = ImmutableList.copyOf(requireNonNull(probeJoinChannels, "probeJoinChannels is null"));
+        this.probeHashChannel = requireNonNull(probeHashChannel, "probeHashChannel is null");
+        this.spilledJoinCoordinator = requireNonNull(spilledJoinCoordinator, "spilledJoinCoordinator is null");
         this.onClose = requireNonNull(onClose, "onClose is null");
 
         this.pageBuilder = new PageBuilder(types);
@@ -92,7 +132,7 @@ public class LookupJoinOperator
     @Override
     public boolean isFinished()
     {
-        boolean finished = finishing && probe == null && pageBuilder.isEmpty();
+        boolean finished = finishing && probe == null && !probeSpiller.isPresent() && pageBuilder.isEmpty();
 
         // if finished drop references so memory is freed early
         if (finished) {
@@ -104,6 +144,13 @@ public class LookupJoinOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
+        if (probeSpiller.isPresent()) {
+            ListenableFuture<?> spillInProgress = probeSpiller.get().isBlocked();
+            if (!spillInProgress.isDone()) {
+                return spillInProgress;
+            }
+            return spilledJoinBlocked;
+        }
         return lookupSourceFuture;
     }
 
@@ -116,8 +163,11 @@ public class LookupJoinOperator
 
         if (lookupSource == null) {
             lookupSource = tryGetFutureValue(lookupSourceFuture).orElse(null);
+            if (lookupSource != null) {
+                probeSpiller = lookupSource.createProbeSpiller(probeTypes, probeHashGenerator, operatorContext.getSpillContext());
+            }
         }
-        return lookupSource != null && probe == null;
+        return lookupSource != null && probe == null && isBlocked().isDone();
     }
 
     @Override
@@ -128,8 +178,16 @@ public class LookupJoinOperator
         checkState(lookupSource != null, "Lookup source has not been built yet");
         checkState(probe == null, "Current page has not been completely processed yet");
 
+        if (probeSpiller.isPresent()) {
+            // rows of spilled partitions are joined after the in-memory partitions
+            page = probeSpiller.get().partitionPage(page);
+            if (page == null) {
+                return;
+            }
+        }
+
         // create probe
-        probe = joinProbeFactory.createJoinProbe(lookupSource, page);
+        probe = createJoinProbe(page);
 
         // initialize to invalid join position to force output code to advance the cursors
         joinPosition = -1;
@@ -142,6 +200,10 @@ public class LookupJoinOperator
             return null;
         }
 
+        if (probe == null && finishing && probeSpiller.isPresent()) {
+            advanceSpilledProbe();
+        }
+
         // join probe page with the lookup source
         if (probe != null) {
             while (joinCurrentPosition()) {
@@ -173,14 +235,133 @@ public class LookupJoinOperator
         }
         closed = true;
         probe = null;
+        dictionaryLookupSource = null;
+        dictionaryJoinPositions = null;
         pageBuilder.reset();
+        // a loaded spilled partition is closed here, otherwise the lookup source is closed below
+        boolean lookupSourceClosed = spilledPartitionLoaded;
+        closeSpilledPartition();
+        if (probeSpiller.isPresent()) {
+            probeSpiller.get().close();
+            probeSpiller = Optional.empty();
+        }
+        if (!probeFinished) {
+            probeFinished = true;
+            spilledJoinCoordinator.finishProbe(ImmutableMap.of());
+        }
         onClose.run();
         // closing lookup source is only here for index join
-        if (lookupSource != null) {
+        if (lookupSource != null && !lookupSourceClosed) {
             lookupSource.close();
         }
     }
 
+    private void advanceSpilledProbe()
+    {
+        JoinProbeSpiller spiller = probeSpiller.get();
+        if (!spiller.isBlocked().isDone()) {
+            return;
+        }
+
+        if (!probeSpillFinished) {
+            probeSpillFinished = true;
+            spiller.finishSpill();
+            return;
+        }
+
+        if (!probeFinished) {
+            probeFinished = true;
+            spilledJoinCoordinator.finishProbe(spiller.removeSpillers());
+        }
+
+        // spilled partitions are joined once the spilled probe rows of all operators are available
+        if (!spilledJoinCoordinator.isAllProbesFinished()) {
+            Optional<ListenableFuture<?>> allProbesFinished = spilledJoinCoordinator.waitForAllProbes();
+            if (!allProbesFinished.isPresent()) {
+                finishSpilledJoin();
+                return;
+            }
+            spilledJoinBlocked = allProbesFinished.get();
+            return;
+        }
+
+        // join the spilled probe rows with the spilled build partitions, one partition at a time
+        while (!spilledProbePages.hasNext()) {
+            // release the previous partition before loading the next one
+            closeSpilledPartition();
+
+            Map.Entry<Integer, List<Spiller>> partition = spilledJoinCoordinator.claimPartition();
+            if (partition == null) {
+                finishSpilledJoin();
+                return;
+            }
+
+            spilledProbeSpillers = partition.getValue();
+            lookupSource = spiller.loadSpilledPartition(partition.getKey());
+            spilledPartitionLoaded = true;
+            operatorContext.setMemoryReservation(lookupSource.getInMemorySizeInBytes());
+            spilledProbePages = Iterators.concat(spilledProbeSpillers.stream()
+                    .flatMap(spilledProbe -> spilledProbe.getSpills().stream())
+                    .iterator());
+        }
+
+        probe = createJoinProbe(spilledProbePages.next());
+        joinPosition = -1;
+    }
+
+    private void finishSpilledJoin()
+    {
+        probeSpiller.get().close();
+        probeSpiller = Optional.empty();
+    }
+
+    private void closeSpilledPartition()
+    {
+        spilledProbePages = emptyIterator();
+        spilledProbeSpillers.forEach(Spiller::close);
+        spilledProbeSpillers = ImmutableList.of();
+        if (spilledPartitionLoaded) {
+            spilledPartitionLoaded = false;
+            lookupSource.close();
+            dictionaryLookupSource = null;
+            dictionaryJoinPositions = null;
+            operatorContext.setMemoryReservation(0);
+        }
+    }
+
+    private JoinProbe createJoinProbe(Page page)
+    {
+        JoinProbe joinProbe = joinProbeFactory.createJoinProbe(lookupSource, page);
+
+        // join positions can be cached per dictionary entry only when the whole join key is in one block
+        if (probeJoinChannels.size() == 1 && lookupSource.isJoinPositionReusable() && page.getBlock(probeJoinChannels.get(0)) instanceof DictionaryBlock) {
+            return createDictionaryJoinProbe(joinProbe, (DictionaryBlock) page.getBlock(probeJoinChannels.get(0)));
+        }
+
+        if (lookupSource.isBatchLookupSupported()) {
+            Block[] probeBlocks = new Block[probeJoinChannels.size()];
+            for (int i = 0; i < probeBlocks.length; i++) {
+                probeBlocks[i] = page.getBlock(probeJoinChannels.get(i));
+            }
+            Page probePage = new Page(page.getPositionCount(), probeBlocks);
+            long[] joinPositions = lookupSource.getJoinPositions(probePage, page, probeHashChannel.map(page::getBlock));
+            return new BatchJoinProbe(joinProbe, page, joinPositions);
+        }
+        return joinProbe;
+    }
+
+    private JoinProbe createDictionaryJoinProbe(JoinProbe joinProbe, DictionaryBlock dictionaryBlock)
+    {
+        int dictionarySize = dictionaryBlock.getDictionary().getPositionCount();
+        if (!dictionaryBlock.getDictionarySourceId().equals(dictionaryId) || lookupSource != dictionaryLookupSource || dictionaryJoinPositions.length < dictionarySize) {
+            dictionaryId = dictionaryBlock.getDictionarySourceId();
+            dictionaryLookupSource = lookupSource;
+            dictionaryJoinPositions = new long[dictionarySize];
+            Arrays.fill(dictionaryJoinPositions, UNKNOWN_JOIN_POSITION);
+        }
+        return new DictionaryJoinProbe(joinProbe, lookupSource, dictionaryBlock, dictionaryJoinPositions);
+    }
+
     private boolean joinCurrentPosition()
     {
         // while we have a position to join against...
@@ -19,6 +19,7 @@ import com.facebook.presto.operator.LookupSource.OuterPositionIterator;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
@@ -29,6 +30,7 @@ import java.util.function.Consumer;
 
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.INNER;
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.PROBE_OUTER;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Objects.requireNonNull;
@@ -39,18 +41,25 @@ public class LookupJoinOperatorFactory
     private final int operatorId;
     private final PlanNodeId planNodeId;
     private final List<Type> probeTypes;
+    private final HashGenerator probeHashGenerator;
     private final List<Type> buildTypes;
     private final JoinType joinType;
     private final LookupSourceSupplier lookupSourceSupplier;
     private final JoinProbeFactory joinProbeFactory;
+    private final List<Integer> probeJoinChannels;
+    private final Optional<Integer> probeHashChannel;
     private final Optional<OperatorFactory> outerOperatorFactory;
     private final ReferenceCount referenceCount;
+    private final ReferenceCount factoryReferenceCount;
+    private final SpilledJoinCoordinator spilledJoinCoordinator;
     private boolean closed;
 
     public LookupJoinOperatorFactory(int operatorId,
             PlanNodeId planNodeId,
             LookupSourceSupplier lookupSourceSupplier,
             List<Type> probeTypes,
+            List<Integer> probeJoinChannels,
+            Optional<Integer> probeHashChannel,
             JoinType joinType,
             JoinProbeFactory joinProbeFactory)
     {
@@ -58,11 +67,31 @@ public class LookupJoinOperatorFactory
         this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
         this.lookupSourceSupplier = requireNonNull(lookupSourceSupplier, "lookupSourceSupplier is null");
         this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+        requireNonNull(probeJoinChannels, "probeJoinChannels is null");
+        requireNonNull(probeHashChannel, "probeHashChannel is null");
+        // used to find the partition of the probe rows when the lookup source spilled some of its partitions
+        if (probeHashChannel.isPresent()) {
+            this.probeHashGenerator = new PrecomputedHashGenerator(probeHashChannel.get());
+        }
+        else {
+            List<Type> probeJoinTypes = probeJoinChannels.stream()
+                    .map(this.probeTypes::get)
+                    .collect(toImmutableList());
+            this.probeHashGenerator = new InterpretedHashGenerator(probeJoinTypes, Ints.toArray(probeJoinChannels));
+        }
         this.buildTypes = ImmutableList.copyOf(lookupSourceSupplier.getTypes());
         this.joinType = requireNonNull(joinType, "joinType is null");
         this.joinProbeFactory = requireNonNull(joinProbeFactory, "joinProbeFactory is null");
+        this.probeJoinChannels = ImmutableList.copyOf(probeJoinChannels);
+        this.probeHashChannel = probeHashChannel;
 
         this.referenceCount = new ReferenceCount();
+        this.factoryReferenceCount = new ReferenceCount();
+
+        // spilled partitions are joined after all operators processed their probe input, so they must know when no more operators will be created
+        this.spilledJoinCoordinator = new SpilledJoinCoordinator();
+        this.factoryReferenceCount.getFreeFuture().addListener(spilledJoinCoordinator::noMoreProbes, directExecutor());
+        this.referenceCount.getFreeFuture().addListener(spilledJoinCoordinator::close, directExecutor());
 
         if (joinType == INNER || joinType == PROBE_OUTER) {
             // when all join operators finish, destroy the lookup source (freeing the memory)
@@ -94,14 +123,20 @@ public class LookupJoinOperatorFactory
         operatorId = other.operatorId;
         planNodeId = other.planNodeId;
         probeTypes = other.probeTypes;
+        probeHashGenerator = other.probeHashGenerator;
         buildTypes = other.buildTypes;
         joinType = other.joinType;
         lookupSourceSupplier = other.lookupSourceSupplier;
         joinProbeFactory = other.joinProbeFactory;
+        probeJoinChannels = other.probeJoinChannels;
+        probeHashChannel = other.probeHashChannel;
         referenceCount = other.referenceCount;
+        factoryReferenceCount = other.factoryReferenceCount;
+        spilledJoinCoordinator = other.spilledJoinCoordinator;
         outerOperatorFactory = other.outerOperatorFactory;
 
         referenceCount.retain();
+        factoryReferenceCount.retain();
     }
 
     public int getOperatorId()
@@ -127,12 +162,18 @@ public class LookupJoinOperatorFactory
         lookupSourceSupplier.setTaskContext(driverContext.getPipelineContext().getTaskContext());
 
         referenceCount.retain();
+        spilledJoinCoordinator.addProbe();
         return new LookupJoinOperator(
                 operatorContext,
                 getTypes(),
+                probeTypes,
+                probeHashGenerator,
                 joinType,
                 lookupSourceSupplier.getLookupSource(),
                 joinProbeFactory,
+                probeJoinChannels,
+                probeHashChannel,
+                spilledJoinCoordinator,
                 referenceCount::release);
     }
 
@@ -143,6 +184,7 @@ public class LookupJoinOperatorFactory
             return;
         }
         closed = true;
+        factoryReferenceCount.release();
         referenceCount.release();
     }
 
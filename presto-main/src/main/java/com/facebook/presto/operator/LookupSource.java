@@ -15,8 +15,15 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillContext;
 
 import java.io.Closeable;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 
 public interface LookupSource
         extends Closeable
@@ -33,17 +40,85 @@ public interface LookupSource
 
     long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage);
 
+    // true when getJoinPositions can look up all rows of a probe page before any of them is joined
+    default boolean isBatchLookupSupported()
+    {
+        return false;
+    }
+
+    // returns the first join position of every row in the probe page, or -1 for rows with a null key or without a match
+    default long[] getJoinPositions(Page hashChannelsPage, Page allChannelsPage, Optional<Block> hashBlock)
+    {
+        long[] joinPositions = new long[hashChannelsPage.getPositionCount()];
+        for (int position = 0; position < joinPositions.length; position++) {
+            if (rowContainsNull(position, hashChannelsPage)) {
+                joinPositions[position] = -1;
+            }
+            else if (hashBlock.isPresent()) {
+                joinPositions[position] = getJoinPosition(position, hashChannelsPage, allChannelsPage, BIGINT.getLong(hashBlock.get(), position));
+            }
+            else {
+                joinPositions[position] = getJoinPosition(position, hashChannelsPage, allChannelsPage);
+            }
+        }
+        return joinPositions;
+    }
+
+    // stores the first join position of the probe rows at positions[offset] to positions[offset + length - 1] in joinPositions,
+    // using the raw hashes of those rows; the rows must not have a null key
+    default void getJoinPositions(int[] positions, int offset, int length, long[] rawHashes, Page hashChannelsPage, Page allChannelsPage, long[] joinPositions)
+    {
+        for (int i = offset; i < offset + length; i++) {
+            int position = positions[i];
+            joinPositions[position] = getJoinPosition(position, hashChannelsPage, allChannelsPage, rawHashes[position]);
+        }
+    }
+
     void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset);
 
+    // true when the join positions of a probe row only depend on its join key, so they can be
+    // reused for other probe rows with the same key (e.g. all rows of a dictionary entry)
+    default boolean isJoinPositionReusable()
+    {
+        return false;
+    }
+
     default OuterPositionIterator getOuterPositionIterator()
     {
         return (pageBuilder, outputChannelOffset) -> false;
     }
 
+    // this is only here for the partitioned lookup source, which may have spilled some partitions to disk
+    default Optional<JoinProbeSpiller> createProbeSpiller(List<Type> probeTypes, HashGenerator probeHashGenerator, SpillContext spillContext)
+    {
+        return Optional.empty();
+    }
+
     // this is only here for index lookup source
     @Override
     void close();
 
+    static boolean rowContainsNull(int position, Page page)
+    {
+        for (Block block : page.getBlocks()) {
+            if (block.isNull(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean[] rowsContainingNull(Page page)
+    {
+        boolean[] nullRows = new boolean[page.getPositionCount()];
+        for (Block block : page.getBlocks()) {
+            for (int position = 0; position < nullRows.length; position++) {
+                nullRows[position] |= block.isNull(position);
+            }
+        }
+        return nullRows;
+    }
+
     interface OuterPositionIterator
     {
         boolean appendToNext(PageBuilder pageBuilder, int outputChannelOffset);
@@ -0,0 +1,364 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.UpdatablePageSource;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.split.RemoteSplit;
+import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Merges the rows of remote sources that are each sorted on the same keys into a single sorted stream.
+ * Every remote location gets its own {@link ExchangeClient}, so the rows of the sources are never interleaved
+ * before they are merged.
+ */
+public class MergeOperator
+        implements SourceOperator, Closeable
+{
+    public static class MergeOperatorFactory
+            implements SourceOperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId sourceId;
+        private final ExchangeClientSupplier exchangeClientSupplier;
+        private final List<Type> types;
+        private final PageWithPositionComparator comparator;
+        private boolean closed;
+
+        public MergeOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                ExchangeClientSupplier exchangeClientSupplier,
+                OrderingCompiler orderingCompiler,
+                List<Type> types,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder)
+        {
+            this.operatorId = operatorId;
+            this.sourceId = requireNonNull(sourceId, "sourceId is null");
+            this.exchangeClientSupplier = requireNonNull(exchangeClientSupplier, "exchangeClientSupplier is null");
+            this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+            requireNonNull(sortChannels, "sortChannels is null");
+            requireNonNull(sortOrder, "sortOrder is null");
+            checkArgument(sortChannels.size() == sortOrder.size(), "Must have same number of sort channels as sort orders");
+
+            List<Type> sortTypes = sortChannels.stream()
+                    .map(types::get)
+                    .collect(toImmutableList());
+            this.comparator = requireNonNull(orderingCompiler, "orderingCompiler is null").compilePageWithPositionComparator(sortTypes, sortChannels, sortOrder);
+        }
+
+        @Override
+        public PlanNodeId getSourceId()
+        {
+            return sourceId;
+        }
+
+        @Override
+        public List<Type> getTypes()
+        {
+            return types;
+        }
+
+        @Override
+        public SourceOperator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, sourceId, MergeOperator.class.getSimpleName());
+            return new MergeOperator(operatorContext, sourceId, exchangeClientSupplier, types, comparator);
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final PlanNodeId sourceId;
+    private final ExchangeClientSupplier exchangeClientSupplier;
+    private final List<Type> types;
+    private final PageWithPositionComparator comparator;
+    private final PageBuilder pageBuilder;
+
+    private final List<SortedSource> sources = new ArrayList<>();
+    // sources which have a current row, ordered by that row
+    private final PriorityQueue<SortedSource> readySources;
+    // sources which need another page before the merge can continue
+    private final List<SortedSource> pendingSources = new ArrayList<>();
+
+    private final SettableFuture<?> noMoreSplitsFuture = SettableFuture.create();
+    private boolean noMoreSplits;
+    private boolean finished;
+
+    public MergeOperator(
+            OperatorContext operatorContext,
+            PlanNodeId sourceId,
+            ExchangeClientSupplier exchangeClientSupplier,
+            List<Type> types,
+            PageWithPositionComparator comparator)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.sourceId = requireNonNull(sourceId, "sourceId is null");
+        this.exchangeClientSupplier = requireNonNull(exchangeClientSupplier, "exchangeClientSupplier is null");
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.comparator = requireNonNull(comparator, "comparator is null");
+        this.pageBuilder = new PageBuilder(types);
+        this.readySources = new PriorityQueue<>((left, right) -> comparator.compareTo(left.getPage(), left.getPosition(), right.getPage(), right.getPosition()));
+    }
+
+    @Override
+    public PlanNodeId getSourceId()
+    {
+        return sourceId;
+    }
+
+    @Override
+    public Supplier<Optional<UpdatablePageSource>> addSplit(Split split)
+    {
+        requireNonNull(split, "split is null");
+        checkArgument(split.getConnectorId().equals("remote"), "split is not a remote split");
+        checkState(!noMoreSplits, "Already received no more splits");
+
+        URI location = ((RemoteSplit) split.getConnectorSplit()).getLocation();
+        ExchangeClient exchangeClient = exchangeClientSupplier.get(new SystemMemoryUsageTracker(operatorContext));
+        exchangeClient.addLocation(location);
+        exchangeClient.noMoreLocations();
+
+        SortedSource source = new SortedSource(exchangeClient);
+        sources.add(source);
+        pendingSources.add(source);
+
+        return Optional::empty;
+    }
+
+    @Override
+    public void noMoreSplits()
+    {
+        noMoreSplits = true;
+        noMoreSplitsFuture.set(null);
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public void finish()
+    {
+        close();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        // no row can be produced until every source is known
+        if (!noMoreSplits) {
+            return noMoreSplitsFuture;
+        }
+
+        // and until every unfinished source has a row to compare
+        for (SortedSource source : pendingSources) {
+            ListenableFuture<?> blocked = source.isBlocked();
+            if (!blocked.isDone()) {
+                return blocked;
+            }
+        }
+        return NOT_BLOCKED;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return false;
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        throw new UnsupportedOperationException(getClass().getName() + " can not take input");
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        if (!noMoreSplits || finished) {
+            return null;
+        }
+
+        while (true) {
+            Iterator<SortedSource> iterator = pendingSources.iterator();
+            while (iterator.hasNext()) {
+                SortedSource source = iterator.next();
+                if (source.advanceToRow()) {
+                    readySources.add(source);
+                    iterator.remove();
+                }
+                else if (source.isFinished()) {
+                    iterator.remove();
+                }
+            }
+
+            // the smallest row is not known while a source is waiting for data
+            if (!pendingSources.isEmpty()) {
+                break;
+            }
+            if (readySources.isEmpty()) {
+                finished = true;
+                break;
+            }
+            if (pageBuilder.isFull()) {
+                break;
+            }
+
+            SortedSource source = readySources.poll();
+            Page page = source.getPage();
+            int position = source.getPosition();
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < types.size(); channel++) {
+                types.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+
+            source.nextPosition();
+            if (source.hasRow()) {
+                readySources.add(source);
+            }
+            else {
+                pendingSources.add(source);
+            }
+        }
+
+        if (pageBuilder.isEmpty()) {
+            return null;
+        }
+        Page page = pageBuilder.build();
+        pageBuilder.reset();
+        return page;
+    }
+
+    @Override
+    public void close()
+    {
+        finished = true;
+        for (SortedSource source : sources) {
+            source.close();
+        }
+    }
+
+    private class SortedSource
+    {
+        private final ExchangeClient exchangeClient;
+        private Page page;
+        private int position;
+
+        private SortedSource(ExchangeClient exchangeClient)
+        {
+            this.exchangeClient = requireNonNull(exchangeClient, "exchangeClient is null");
+        }
+
+        public Page getPage()
+        {
+            return page;
+        }
+
+        public int getPosition()
+        {
+            return position;
+        }
+
+        public boolean hasRow()
+        {
+            return page != null && position < page.getPositionCount();
+        }
+
+        public void nextPosition()
+        {
+            position++;
+        }
+
+        /**
+         * Polls pages from the exchange until there is a current row.
+         *
+         * @return false if the exchange has no buffered page
+         */
+        public boolean advanceToRow()
+        {
+            while (!hasRow()) {
+                page = exchangeClient.pollPage();
+                position = 0;
+                if (page == null) {
+                    return false;
+                }
+                operatorContext.recordGeneratedInput(page.getSizeInBytes(), page.getPositionCount());
+            }
+            return true;
+        }
+
+        public boolean isFinished()
+        {
+            return !hasRow() && exchangeClient.isFinished();
+        }
+
+        public ListenableFuture<?> isBlocked()
+        {
+            if (hasRow()) {
+                return NOT_BLOCKED;
+            }
+            return exchangeClient.isBlocked();
+        }
+
+        public void close()
+        {
+            exchangeClient.close();
+        }
+    }
+}
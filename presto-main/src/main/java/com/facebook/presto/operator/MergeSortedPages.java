@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Streaming k-way merge of page streams that are each sorted according to the same comparator.
+ */
+public final class MergeSortedPages
+{
+    private MergeSortedPages() {}
+
+    public static Iterator<Page> mergeSortedPages(
+            List<Iterator<Page>> sortedStreams,
+            PageWithPositionComparator comparator,
+            List<Type> types)
+    {
+        return mergeSortedPages(sortedStreams, comparator, types, false);
+    }
+
+    /**
+     * When {@code keepEqualRowsTogether} is set, an output page is only ever
+     * broken between two rows that compare as different, so that all rows
+     * equal under the comparator end up in the same output page.
+     */
+    public static Iterator<Page> mergeSortedPages(
+            List<Iterator<Page>> sortedStreams,
+            PageWithPositionComparator comparator,
+            List<Type> types,
+            boolean keepEqualRowsTogether)
+    {
+        requireNonNull(sortedStreams, "sortedStreams is null");
+        requireNonNull(comparator, "comparator is null");
+        List<Type> outputTypes = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+
+        PriorityQueue<PageCursor> queue = new PriorityQueue<>(
+                Math.max(1, sortedStreams.size()),
+                (left, right) -> comparator.compareTo(left.getPage(), left.getPosition(), right.getPage(), right.getPosition()));
+        for (Iterator<Page> stream : sortedStreams) {
+            PageCursor cursor = new PageCursor(stream);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(outputTypes);
+        return new AbstractIterator<Page>()
+        {
+            private Page lastPage;
+            private int lastPosition;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (queue.isEmpty()) {
+                    return endOfData();
+                }
+
+                pageBuilder.reset();
+                while (!queue.isEmpty()) {
+                    PageCursor cursor = queue.peek();
+                    if (pageBuilder.isFull() && (!keepEqualRowsTogether || comparator.compareTo(lastPage, lastPosition, cursor.getPage(), cursor.getPosition()) != 0)) {
+                        break;
+                    }
+                    queue.poll();
+
+                    Page page = cursor.getPage();
+                    int position = cursor.getPosition();
+                    pageBuilder.declarePosition();
+                    for (int channel = 0; channel < outputTypes.size(); channel++) {
+                        outputTypes.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+                    }
+                    lastPage = page;
+                    lastPosition = position;
+
+                    if (cursor.advance()) {
+                        queue.add(cursor);
+                    }
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
+    private static class PageCursor
+    {
+        private final Iterator<Page> pages;
+        private Page page;
+        private int position = -1;
+
+        private PageCursor(Iterator<Page> pages)
+        {
+            this.pages = requireNonNull(pages, "pages is null");
+        }
+
+        public Page getPage()
+        {
+            return page;
+        }
+
+        public int getPosition()
+        {
+            return position;
+        }
+
+        public boolean advance()
+        {
+            position++;
+            while (page == null || position >= page.getPositionCount()) {
+                if (!pages.hasNext()) {
+                    page = null;
+                    return false;
+                }
+                page = pages.next();
+                position = 0;
+            }
+            return true;
+        }
+    }
+}
@@ -18,8 +18,8 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.Block;
-import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.LongArrayBlock;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.collect.ImmutableList;
@@ -165,6 +165,12 @@ public class MultiChannelGroupByHash
         hashStrategy.appendTo(blockIndex, position, pageBuilder, outputChannelOffset);
     }
 
+    @Override
+    public long getRawHash(int groupId)
+    {
+        return hashPosition(groupAddressByGroupId.get(groupId));
+    }
+
     @Override
     public void addPage(Page page)
     {
@@ -173,11 +179,11 @@ public class MultiChannelGroupByHash
             return;
         }
 
-        // get the group id for each position
-        int positionCount = page.getPositionCount();
-        for (int position = 0; position < positionCount; position++) {
+        // hash all rows first, then get the group id for each position
+        long[] rawHashes = hashGenerator.hashPositions(page);
+        for (int position = 0; position < rawHashes.length; position++) {
             // get the group for the current row
-            putIfAbsent(position, page);
+            putIfAbsent(position, page, rawHashes[position]);
         }
     }
 
@@ -186,23 +192,18 @@ public class MultiChannelGroupByHash
     {
         int positionCount = page.getPositionCount();
 
-        // we know the exact size required for the block
-        BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(positionCount);
-
         if (canProcessDictionary(page)) {
             Block groupIds = processDictionary(page);
             return new GroupByIdBlock(nextGroupId, groupIds);
         }
 
-        // get the group id for each position
+        // hash all rows first, then get the group id for each position
+        long[] rawHashes = hashGenerator.hashPositions(page);
+        long[] groupIds = new long[positionCount];
         for (int position = 0; position < positionCount; position++) {
-            // get the group for the current row
-            int groupId = putIfAbsent(position, page);
-
-            // output the group id for this row
-            BIGINT.writeLong(blockBuilder, groupId);
+            groupIds[position] = putIfAbsent(position, page, rawHashes[position]);
         }
-        return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+        return new GroupByIdBlock(nextGroupId, new LongArrayBlock(positionCount, new boolean[positionCount], groupIds));
     }
 
     @Override
@@ -417,15 +418,12 @@ public class MultiChannelGroupByHash
         updateDictionaryLookBack(dictionaryBlock.getDictionary());
         Page dictionaryPage = createPageWithExtractedDictionary(page);
 
-        BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(page.getPositionCount());
+        long[] groupIds = new long[page.getPositionCount()];
         for (int i = 0; i < page.getPositionCount(); i++) {
             int positionInDictionary = dictionaryBlock.getId(i);
-            int groupId = getGroupId(hashGenerator, dictionaryPage, positionInDictionary);
-            BIGINT.writeLong(blockBuilder, groupId);
+            groupIds[i] = getGroupId(hashGenerator, dictionaryPage, positionInDictionary);
         }
-
-        verify(blockBuilder.getPositionCount() == page.getPositionCount(), "invalid position count");
-        return blockBuilder.build();
+        return new LongArrayBlock(groupIds.length, new boolean[groupIds.length], groupIds);
     }
 
     // For a page that contains DictionaryBlocks, create a new page in which
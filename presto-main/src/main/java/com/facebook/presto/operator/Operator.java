@@ -72,6 +72,26 @@ public interface Operator
      */
     Page getOutput();
 
+    /**
+     * Asks the operator to release its revocable memory, for example by spilling
+     * it to disk. The returned future completes when the work is done, and the
+     * driver then calls {@link #finishMemoryRevoke()}. The request is delivered
+     * asynchronously, so the operator may no longer hold any revocable memory
+     * when this is called.
+     */
+    default ListenableFuture<?> startMemoryRevoke()
+    {
+        return NOT_BLOCKED;
+    }
+
+    /**
+     * Releases the revocable memory after the future returned by
+     * {@link #startMemoryRevoke()} completes. This is called by the driver thread.
+     */
+    default void finishMemoryRevoke()
+    {
+    }
+
     /**
      * This method will always be called before releasing the Operator reference.
      */
@@ -17,6 +17,7 @@ import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.Session;
 import com.facebook.presto.memory.AbstractAggregatedMemoryContext;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spiller.SpillContext;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
@@ -32,6 +33,7 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.util.Optional;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -85,9 +87,15 @@ public class OperatorContext
     private final AtomicLong finishUserNanos = new AtomicLong();
 
     private final AtomicLong memoryReservation = new AtomicLong();
+    private final AtomicLong revocableMemoryReservation = new AtomicLong();
+    private final AtomicBoolean memoryRevokingRequested = new AtomicBoolean();
+    private final AtomicReference<Runnable> memoryRevocationRequestListener = new AtomicReference<>();
     private final OperatorSystemMemoryContext systemMemoryContext;
     private final long maxMemoryReservation;
 
+    private final AtomicLong spilledBytes = new AtomicLong();
+    private final SpillContext spillContext = new OperatorSpillContext();
+
     private final AtomicReference<Supplier<?>> infoSupplier = new AtomicReference<>();
     private final boolean collectTimings;
 
@@ -225,6 +233,16 @@ public class OperatorContext
     public void reserveMemory(long bytes)
     {
         ListenableFuture<?> future = driverContext.reserveMemory(bytes);
+        updateMemoryFuture(future);
+        long newReservation = memoryReservation.addAndGet(bytes);
+        if (newReservation > maxMemoryReservation) {
+            memoryReservation.getAndAdd(-bytes);
+            throw exceededLocalLimit(new DataSize(maxMemoryReservation, BYTE));
+        }
+    }
+
+    private void updateMemoryFuture(ListenableFuture<?> future)
+    {
         if (!future.isDone()) {
             SettableFuture<?> currentMemoryFuture = memoryFuture.get();
             while (currentMemoryFuture.isDone()) {
@@ -255,11 +273,6 @@ public class OperatorContext
                 }
             });
         }
-        long newReservation = memoryReservation.addAndGet(bytes);
-        if (newReservation > maxMemoryReservation) {
-            memoryReservation.getAndAdd(-bytes);
-            throw exceededLocalLimit(new DataSize(maxMemoryReservation, BYTE));
-        }
     }
 
     public boolean tryReserveMemory(long bytes)
@@ -285,6 +298,79 @@ public class OperatorContext
         memoryReservation.getAndAdd(-bytes);
     }
 
+    /**
+     * Reserves memory that the operator is able to release on request, see {@link Operator#startMemoryRevoke()}.
+     * Revocable memory does not count towards the memory limit of the operator.
+     */
+    public void reserveRevocableMemory(long bytes)
+    {
+        ListenableFuture<?> future = driverContext.reserveRevocableMemory(bytes);
+        updateMemoryFuture(future);
+        revocableMemoryReservation.addAndGet(bytes);
+    }
+
+    public void freeRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(bytes <= revocableMemoryReservation.get(), "tried to free more revocable memory than is reserved");
+        driverContext.freeRevocableMemory(bytes);
+        revocableMemoryReservation.getAndAdd(-bytes);
+    }
+
+    public void setRevocableMemoryReservation(long newRevocableMemoryReservation)
+    {
+        checkArgument(newRevocableMemoryReservation >= 0, "newRevocableMemoryReservation is negative");
+
+        long delta = newRevocableMemoryReservation - revocableMemoryReservation.get();
+
+        if (delta > 0) {
+            reserveRevocableMemory(delta);
+        }
+        else {
+            freeRevocableMemory(-delta);
+        }
+    }
+
+    public long getReservedRevocableBytes()
+    {
+        return revocableMemoryReservation.get();
+    }
+
+    /**
+     * Asks the operator to release its revocable memory. The request is processed by the driver
+     * the next time it runs. Returns false if the operator does not hold revocable memory or was
+     * already asked to release it.
+     */
+    public boolean requestMemoryRevoking()
+    {
+        if (revocableMemoryReservation.get() == 0) {
+            return false;
+        }
+        if (!memoryRevokingRequested.compareAndSet(false, true)) {
+            return false;
+        }
+        Runnable listener = memoryRevocationRequestListener.get();
+        if (listener != null) {
+            listener.run();
+        }
+        return true;
+    }
+
+    public boolean isMemoryRevokingRequested()
+    {
+        return memoryRevokingRequested.get();
+    }
+
+    public void resetMemoryRevokingRequested()
+    {
+        memoryRevokingRequested.set(false);
+    }
+
+    public void setMemoryRevocationRequestListener(Runnable listener)
+    {
+        memoryRevocationRequestListener.set(requireNonNull(listener, "listener is null"));
+    }
+
     public AbstractAggregatedMemoryContext getSystemMemoryContext()
     {
         return systemMemoryContext;
@@ -295,6 +381,11 @@ public class OperatorContext
         systemMemoryContext.close();
     }
 
+    public SpillContext getSpillContext()
+    {
+        return spillContext;
+    }
+
     public void moreMemoryAvailable()
     {
         memoryFuture.get().set(null);
@@ -411,6 +502,7 @@ public class OperatorContext
 
                 succinctBytes(memoryReservation.get()),
                 succinctBytes(systemMemoryContext.getReservedBytes()),
+                succinctBytes(spilledBytes.get()),
                 memoryFuture.get().isDone() ? Optional.empty() : Optional.of(WAITING_FOR_MEMORY),
                 info);
     }
@@ -459,6 +551,23 @@ public class OperatorContext
         }
     }
 
+    private class OperatorSpillContext
+            implements SpillContext
+    {
+        @Override
+        public void updateBytes(long bytes)
+        {
+            TaskContext taskContext = driverContext.getPipelineContext().getTaskContext();
+            if (bytes >= 0) {
+                taskContext.reserveSpill(bytes);
+                spilledBytes.getAndAdd(bytes);
+            }
+            else {
+                taskContext.freeSpill(-bytes);
+            }
+        }
+    }
+
     private static class OperatorSystemMemoryContext
             extends AbstractAggregatedMemoryContext
     {
@@ -60,6 +60,7 @@ public class OperatorStats
 
     private final DataSize memoryReservation;
     private final DataSize systemMemoryReservation;
+    private final DataSize spilledDataSize;
     private final Optional<BlockedReason> blockedReason;
 
     private final Object info;
@@ -93,6 +94,7 @@ public class OperatorStats
 
             @JsonProperty("memoryReservation") DataSize memoryReservation,
             @JsonProperty("systemMemoryReservation") DataSize systemMemoryReservation,
+            @JsonProperty("spilledDataSize") DataSize spilledDataSize,
             @JsonProperty("blockedReason") Optional<BlockedReason> blockedReason,
 
             @JsonProperty("info") Object info)
@@ -127,6 +129,7 @@ public class OperatorStats
 
         this.memoryReservation = requireNonNull(memoryReservation, "memoryReservation is null");
         this.systemMemoryReservation = requireNonNull(systemMemoryReservation, "systemMemoryReservation is null");
+        this.spilledDataSize = requireNonNull(spilledDataSize, "spilledDataSize is null");
         this.blockedReason = blockedReason;
 
         this.info = info;
@@ -264,6 +267,12 @@ public class OperatorStats
         return systemMemoryReservation;
     }
 
+    @JsonProperty
+    public DataSize getSpilledDataSize()
+    {
+        return spilledDataSize;
+    }
+
     @JsonProperty
     public Optional<BlockedReason> getBlockedReason()
     {
@@ -307,6 +316,7 @@ public class OperatorStats
 
         long memoryReservation = this.memoryReservation.toBytes();
         long systemMemoryReservation = this.systemMemoryReservation.toBytes();
+        long spilledDataSize = this.spilledDataSize.toBytes();
         Optional<BlockedReason> blockedReason = this.blockedReason;
 
         Mergeable<?> base = null;
@@ -339,6 +349,7 @@ public class OperatorStats
 
             memoryReservation += operator.getMemoryReservation().toBytes();
             systemMemoryReservation += operator.getSystemMemoryReservation().toBytes();
+            spilledDataSize += operator.getSpilledDataSize().toBytes();
             if (operator.getBlockedReason().isPresent()) {
                 blockedReason = operator.getBlockedReason();
             }
@@ -377,6 +388,7 @@ public class OperatorStats
 
                 succinctBytes(memoryReservation),
                 succinctBytes(systemMemoryReservation),
+                succinctBytes(spilledDataSize),
                 blockedReason,
 
                 base);
@@ -15,15 +15,26 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
 
 public class OrderByOperator
@@ -40,6 +51,9 @@ public class OrderByOperator
         private final List<Integer> sortChannels;
         private final List<SortOrder> sortOrder;
         private final List<Type> types;
+        private final boolean spillEnabled;
+        private final DataSize memoryLimitBeforeSpill;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public OrderByOperatorFactory(
@@ -50,6 +64,30 @@ public class OrderByOperator
                 int expectedPositions,
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder)
+        {
+            this(operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    expectedPositions,
+                    sortChannels,
+                    sortOrder,
+                    false,
+                    new DataSize(0, BYTE),
+                    Optional.empty());
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -58,6 +96,10 @@ public class OrderByOperator
             this.expectedPositions = expectedPositions;
             this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
             this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+            this.spillEnabled = spillEnabled;
+            this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            checkArgument(!spillEnabled || spillerFactory.isPresent(), "spillerFactory must be present when spill is enabled");
 
             this.types = toTypes(sourceTypes, outputChannels);
         }
@@ -80,7 +122,10 @@ public class OrderByOperator
                     outputChannels,
                     expectedPositions,
                     sortChannels,
-                    sortOrder);
+                    sortOrder,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory);
         }
 
         @Override
@@ -92,7 +137,17 @@ public class OrderByOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new OrderByOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder);
+            return new OrderByOperatorFactory(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    expectedPositions,
+                    sortChannels,
+                    sortOrder,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory);
         }
     }
 
@@ -104,6 +159,7 @@ public class OrderByOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final List<Integer> sortChannels;
     private final List<SortOrder> sortOrder;
     private final int[] outputChannels;
@@ -114,6 +170,14 @@ public class OrderByOperator
     private final PageBuilder pageBuilder;
     private int currentPosition;
 
+    private final boolean spillEnabled;
+    private final long memoryLimitBeforeSpill;
+    private final Optional<SpillerFactory> spillerFactory;
+
+    private Optional<Spiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = NOT_BLOCKED;
+    private Iterator<Page> mergedPages;
+
     private State state = State.NEEDS_INPUT;
 
     public OrderByOperator(
@@ -123,12 +187,39 @@ public class OrderByOperator
             int expectedPositions,
             List<Integer> sortChannels,
             List<SortOrder> sortOrder)
+    {
+        this(operatorContext,
+                sourceTypes,
+                outputChannels,
+                expectedPositions,
+                sortChannels,
+                sortOrder,
+                false,
+                new DataSize(0, BYTE),
+                Optional.empty());
+    }
+
+    public OrderByOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            int expectedPositions,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.outputChannels = Ints.toArray(requireNonNull(outputChannels, "outputChannels is null"));
         this.types = toTypes(sourceTypes, outputChannels);
         this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
         this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
+        this.spillEnabled = spillEnabled;
+        this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null").toBytes();
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        checkArgument(!spillEnabled || spillerFactory.isPresent(), "spillerFactory must be present when spill is enabled");
 
         this.pageIndex = new PagesIndex(sourceTypes, expectedPositions);
 
@@ -147,14 +238,37 @@ public class OrderByOperator
         return types;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
+    }
+
     @Override
     public void finish()
     {
         if (state == State.NEEDS_INPUT) {
+            checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+            checkSpillSucceeded();
             state = State.HAS_OUTPUT;
 
+            if (spillEnabled) {
+                // the index can no longer be spilled, so it is no longer revocable
+                operatorContext.setMemoryReservation(pageIndex.getEstimatedSize().toBytes());
+                operatorContext.setRevocableMemoryReservation(0);
+            }
+
             // sort the index
             pageIndex.sort(sortChannels, sortOrder);
+
+            if (spiller.isPresent()) {
+                // the sorted runs on disk and the sorted rows still in memory are merged into one stream
+                List<Iterator<Page>> sortedRuns = ImmutableList.<Iterator<Page>>builder()
+                        .addAll(spiller.get().getSpills())
+                        .add(pageIndex.getSortedPages())
+                        .build();
+                mergedPages = mergeSortedPages(sortedRuns, pageIndex.createPageWithPositionComparator(sortChannels, sortOrder), sourceTypes);
+            }
         }
     }
 
@@ -176,8 +290,39 @@ public class OrderByOperator
         checkState(state == State.NEEDS_INPUT, "Operator is already finishing");
         requireNonNull(page, "page is null");
 
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        checkSpillSucceeded();
+
         pageIndex.addPage(page);
-        operatorContext.setMemoryReservation(pageIndex.getEstimatedSize().toBytes());
+        if (!spillEnabled) {
+            operatorContext.setMemoryReservation(pageIndex.getEstimatedSize().toBytes());
+            return;
+        }
+
+        if (pageIndex.getEstimatedSize().toBytes() > memoryLimitBeforeSpill) {
+            spillIndex();
+        }
+        // until the operator is finishing, the index can be spilled on request of the memory pool
+        operatorContext.setRevocableMemoryReservation(pageIndex.getEstimatedSize().toBytes());
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (state != State.NEEDS_INPUT || !spillInProgress.isDone() || pageIndex.getPositionCount() == 0) {
+            return spillInProgress;
+        }
+        checkSpillSucceeded();
+        spillIndex();
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (state == State.NEEDS_INPUT) {
+            operatorContext.setRevocableMemoryReservation(pageIndex.getEstimatedSize().toBytes());
+        }
     }
 
     @Override
@@ -187,6 +332,19 @@ public class OrderByOperator
             return null;
         }
 
+        if (mergedPages != null) {
+            if (!mergedPages.hasNext()) {
+                state = State.FINISHED;
+                return null;
+            }
+            Page page = mergedPages.next();
+            Block[] blocks = new Block[outputChannels.length];
+            for (int i = 0; i < outputChannels.length; i++) {
+                blocks[i] = page.getBlock(outputChannels[i]);
+            }
+            return new Page(page.getPositionCount(), blocks);
+        }
+
         if (currentPosition >= pageIndex.getPositionCount()) {
             state = State.FINISHED;
             return null;
@@ -206,6 +364,31 @@ public class OrderByOperator
         return page;
     }
 
+    @Override
+    public void close()
+    {
+        spiller.ifPresent(Spiller::close);
+    }
+
+    private void spillIndex()
+    {
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.get().create(sourceTypes, operatorContext.getSpillContext()));
+        }
+
+        // every spill writes one sorted run
+        pageIndex.sort(sortChannels, sortOrder);
+        List<Page> sortedPages = ImmutableList.copyOf(pageIndex.getSortedPages());
+        pageIndex.clear();
+        spillInProgress = spiller.get().spill(sortedPages.iterator());
+    }
+
+    private void checkSpillSucceeded()
+    {
+        // propagates the failure of the spill, if any
+        getFutureValue(spillInProgress);
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
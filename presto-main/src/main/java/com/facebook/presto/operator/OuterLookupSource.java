@@ -15,10 +15,13 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.google.common.primitives.Ints;
 
 import javax.annotation.concurrent.GuardedBy;
 
+import java.util.Optional;
+
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
@@ -66,6 +69,30 @@ public final class OuterLookupSource
         return lookupSource.getJoinPosition(position, hashChannelsPage, allChannelsPage);
     }
 
+    @Override
+    public boolean isBatchLookupSupported()
+    {
+        return lookupSource.isBatchLookupSupported();
+    }
+
+    @Override
+    public long[] getJoinPositions(Page hashChannelsPage, Page allChannelsPage, Optional<Block> hashBlock)
+    {
+        return lookupSource.getJoinPositions(hashChannelsPage, allChannelsPage, hashBlock);
+    }
+
+    @Override
+    public void getJoinPositions(int[] positions, int offset, int length, long[] rawHashes, Page hashChannelsPage, Page allChannelsPage, long[] joinPositions)
+    {
+        lookupSource.getJoinPositions(positions, offset, length, rawHashes, hashChannelsPage, allChannelsPage, joinPositions);
+    }
+
+    @Override
+    public boolean isJoinPositionReusable()
+    {
+        return lookupSource.isJoinPositionReusable();
+    }
+
     @Override
     public long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage)
     {
@@ -21,6 +21,7 @@ import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
@@ -29,8 +30,10 @@ import it.unimi.dsi.fastutil.Swapper;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
 import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
@@ -115,6 +118,57 @@ public class PagesIndex
         estimatedSize = calculateEstimatedSize();
     }
 
+    /**
+     * Returns the pages of this index in the order they were added, ignoring any sorting of the positions.
+     */
+    public Iterator<Page> getPages()
+    {
+        return new AbstractIterator<Page>()
+        {
+            private int pageCounter;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (channels.length == 0 || pageCounter == channels[0].size()) {
+                    return endOfData();
+                }
+
+                Block[] blocks = new Block[channels.length];
+                for (int i = 0; i < channels.length; i++) {
+                    blocks[i] = channels[i].get(pageCounter);
+                }
+                pageCounter++;
+                return new Page(blocks);
+            }
+        };
+    }
+
+    /**
+     * Returns the rows of this index as pages containing all channels, in the current order of the positions.
+     */
+    public Iterator<Page> getSortedPages()
+    {
+        return new AbstractIterator<Page>()
+        {
+            private final int[] outputChannels = IntStream.range(0, types.size()).toArray();
+            private final PageBuilder pageBuilder = new PageBuilder(types);
+            private int currentPosition;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (currentPosition == positionCount) {
+                    return endOfData();
+                }
+
+                pageBuilder.reset();
+                currentPosition = buildPage(currentPosition, outputChannels, pageBuilder);
+                return pageBuilder.build();
+            }
+        };
+    }
+
     public void addPage(Page page)
     {
         // ignore empty pages
@@ -294,6 +348,14 @@ public class PagesIndex
         return pagesHashStrategy.positionEqualsRow(pageIndex, pagePosition, rightPosition, rightPage);
     }
 
+    public PageWithPositionComparator createPageWithPositionComparator(List<Integer> sortChannels, List<SortOrder> sortOrders)
+    {
+        List<Type> sortTypes = sortChannels.stream()
+                .map(types::get)
+                .collect(toImmutableList());
+        return orderingCompiler.compilePageWithPositionComparator(sortTypes, sortChannels, sortOrders);
+    }
+
     private PagesIndexOrdering createPagesIndexComparator(List<Integer> sortChannels, List<SortOrder> sortOrders)
     {
         List<Type> sortTypes = sortChannels.stream()
@@ -15,9 +15,13 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.Symbol;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -27,6 +31,8 @@ import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -42,9 +48,14 @@ public class ParallelHashBuildOperator
         private final List<Integer> hashChannels;
         private final Optional<Integer> preComputedHashChannel;
         private final Optional<JoinFilterFunction> filterFunction;
+        private final Optional<LocalDynamicFilter> dynamicFilter;
 
         private final int expectedPositions;
 
+        private final boolean spillEnabled;
+        private final DataSize memoryLimitBeforeSpill;
+        private final Optional<SpillerFactory> spillerFactory;
+
         private int partitionIndex;
         private boolean closed;
 
@@ -59,22 +70,94 @@ public class ParallelHashBuildOperator
                 Optional<JoinFilterFunction> filterFunction,
                 int expectedPositions,
                 int partitionCount)
+        {
+            this(operatorId,
+                    planNodeId,
+                    types,
+                    layout,
+                    hashChannels,
+                    preComputedHashChannel,
+                    outer,
+                    filterFunction,
+                    expectedPositions,
+                    partitionCount,
+                    false,
+                    new DataSize(0, MEGABYTE),
+                    Optional.empty());
+        }
+
+        public ParallelHashBuildOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<Type> types,
+                Map<Symbol, Integer> layout,
+                List<Integer> hashChannels,
+                Optional<Integer> preComputedHashChannel,
+                boolean outer,
+                Optional<JoinFilterFunction> filterFunction,
+                int expectedPositions,
+                int partitionCount,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                Optional<SpillerFactory> spillerFactory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    types,
+                    layout,
+                    hashChannels,
+                    preComputedHashChannel,
+                    outer,
+                    filterFunction,
+                    expectedPositions,
+                    partitionCount,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    Optional.empty());
+        }
+
+        public ParallelHashBuildOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<Type> types,
+                Map<Symbol, Integer> layout,
+                List<Integer> hashChannels,
+                Optional<Integer> preComputedHashChannel,
+                boolean outer,
+                Optional<JoinFilterFunction> filterFunction,
+                int expectedPositions,
+                int partitionCount,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                Optional<SpillerFactory> spillerFactory,
+                Optional<LocalDynamicFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
 
             checkArgument(Integer.bitCount(partitionCount) == 1, "partitionCount must be a power of 2");
+            checkArgument(!spillEnabled || spillerFactory.isPresent(), "spillerFactory must be present when spill is enabled");
+
+            // rows of the build side which are not matched can only be tracked in memory, so outer joins are never spilled
+            this.spillEnabled = spillEnabled && !outer;
+            this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+
             lookupSourceSupplier = new PartitionedLookupSourceSupplier(
                     types,
                     hashChannels,
                     partitionCount,
                     requireNonNull(layout, "layout is null"),
-                    outer);
+                    outer,
+                    this.spillEnabled ? spillerFactory : Optional.empty());
 
             checkArgument(!hashChannels.isEmpty(), "hashChannels is empty");
             this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
             this.preComputedHashChannel = requireNonNull(preComputedHashChannel, "preComputedHashChannel is null");
             this.filterFunction = requireNonNull(filterFunction, "filterFunction is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+            dynamicFilter.ifPresent(filter -> filter.setPartitionCount(partitionCount));
 
             this.expectedPositions = expectedPositions;
         }
@@ -102,7 +185,11 @@ public class ParallelHashBuildOperator
                     hashChannels,
                     preComputedHashChannel,
                     filterFunction,
-                    expectedPositions);
+                    expectedPositions,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    dynamicFilter.map(filter -> filter.createCollector(lookupSourceSupplier.getTypes(), hashChannels)));
 
             partitionIndex++;
             return operator;
@@ -128,9 +215,18 @@ public class ParallelHashBuildOperator
     private final List<Integer> hashChannels;
     private final Optional<Integer> preComputedHashChannel;
     private final Optional<JoinFilterFunction> filterFunction;
+    private final int expectedPositions;
+
+    private final boolean spillEnabled;
+    private final long memoryLimitBeforeSpill;
+    private final Optional<SpillerFactory> spillerFactory;
+    private final Optional<LocalDynamicFilter.Collector> dynamicFilterCollector;
 
     private final PagesIndex index;
 
+    private Optional<Spiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = NOT_BLOCKED;
+
     private boolean finished;
 
     public ParallelHashBuildOperator(
@@ -141,16 +237,73 @@ public class ParallelHashBuildOperator
             Optional<Integer> preComputedHashChannel,
             Optional<JoinFilterFunction> filterFunction,
             int expectedPositions)
+    {
+        this(operatorContext,
+                lookupSourceSupplier,
+                partitionIndex,
+                hashChannels,
+                preComputedHashChannel,
+                filterFunction,
+                expectedPositions,
+                false,
+                new DataSize(0, MEGABYTE),
+                Optional.empty());
+    }
+
+    public ParallelHashBuildOperator(
+            OperatorContext operatorContext,
+            PartitionedLookupSourceSupplier lookupSourceSupplier,
+            int partitionIndex,
+            List<Integer> hashChannels,
+            Optional<Integer> preComputedHashChannel,
+            Optional<JoinFilterFunction> filterFunction,
+            int expectedPositions,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            Optional<SpillerFactory> spillerFactory)
+    {
+        this(operatorContext,
+                lookupSourceSupplier,
+                partitionIndex,
+                hashChannels,
+                preComputedHashChannel,
+                filterFunction,
+                expectedPositions,
+                spillEnabled,
+                memoryLimitBeforeSpill,
+                spillerFactory,
+                Optional.empty());
+    }
+
+    public ParallelHashBuildOperator(
+            OperatorContext operatorContext,
+            PartitionedLookupSourceSupplier lookupSourceSupplier,
+            int partitionIndex,
+            List<Integer> hashChannels,
+            Optional<Integer> preComputedHashChannel,
+            Optional<JoinFilterFunction> filterFunction,
+            int expectedPositions,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            Optional<SpillerFactory> spillerFactory,
+            Optional<LocalDynamicFilter.Collector> dynamicFilterCollector)
     {
         this.operatorContext = operatorContext;
         this.partitionIndex = partitionIndex;
         this.filterFunction = filterFunction;
+        this.expectedPositions = expectedPositions;
 
         this.index = new PagesIndex(lookupSourceSupplier.getTypes(), expectedPositions);
         this.lookupSourceSupplier = lookupSourceSupplier;
 
         this.hashChannels = hashChannels;
         this.preComputedHashChannel = preComputedHashChannel;
+
+        this.spillEnabled = spillEnabled;
+        this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null").toBytes();
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        checkArgument(!spillEnabled || spillerFactory.isPresent(), "spillerFactory must be present when spill is enabled");
+        this.dynamicFilterCollector = requireNonNull(dynamicFilterCollector, "dynamicFilterCollector is null");
     }
 
     @Override
@@ -165,17 +318,51 @@ public class ParallelHashBuildOperator
         return lookupSourceSupplier.getTypes();
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
+    }
+
     @Override
     public void finish()
     {
         if (finished) {
             return;
         }
-        finished = true;
 
-        // After this point the SharedLookupSource will take over our memory reservation, and ours will be zero
-        LookupSource lookupSource = index.createLookupSource(hashChannels, preComputedHashChannel, filterFunction);
-        lookupSourceSupplier.setLookupSource(partitionIndex, lookupSource, operatorContext);
+        if (!spiller.isPresent()) {
+            finished = true;
+            dynamicFilterCollector.ifPresent(LocalDynamicFilter.Collector::finish);
+
+            // After this point the SharedLookupSource will take over our memory reservation, and ours will be zero
+            LookupSource lookupSource = index.createLookupSource(hashChannels, preComputedHashChannel, filterFunction);
+            lookupSourceSupplier.setLookupSource(partitionIndex, lookupSource, operatorContext);
+            return;
+        }
+
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        checkSpillSucceeded();
+        if (index.getPositionCount() > 0) {
+            // spill the remaining rows and finish once they are on disk
+            spillIndex();
+            return;
+        }
+
+        finished = true;
+        operatorContext.setMemoryReservation(0);
+        dynamicFilterCollector.ifPresent(LocalDynamicFilter.Collector::finish);
+
+        // the in-memory part of a spilled partition is empty, the join operators load the spilled rows later
+        LookupSource emptyLookupSource = index.createLookupSource(hashChannels, preComputedHashChannel, filterFunction);
+        SpilledLookupSourcePartition spilledPartition = new SpilledLookupSourcePartition(
+                spiller.get(),
+                lookupSourceSupplier.getTypes(),
+                hashChannels,
+                preComputedHashChannel,
+                filterFunction,
+                expectedPositions);
+        lookupSourceSupplier.setLookupSource(partitionIndex, emptyLookupSource, Optional.of(spilledPartition), operatorContext);
     }
 
     @Override
@@ -187,7 +374,7 @@ public class ParallelHashBuildOperator
     @Override
     public boolean needsInput()
     {
-        return !finished;
+        return !finished && spillInProgress.isDone();
     }
 
     @Override
@@ -195,11 +382,20 @@ public class ParallelHashBuildOperator
     {
         requireNonNull(page, "page is null");
         checkState(!isFinished(), "Operator is already finished");
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        checkSpillSucceeded();
 
         index.addPage(page);
-
-        operatorContext.setMemoryReservation(page.getPositionCount());
+        // spilled rows are collected as they arrive, so the filter covers the whole partition
+        dynamicFilterCollector.ifPresent(collector -> collector.addPage(page));
         operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
+
+        if (spillEnabled && index.getEstimatedSize().toBytes() > memoryLimitBeforeSpill) {
+            spillIndex();
+            return;
+        }
+
+        operatorContext.setMemoryReservation(index.getEstimatedSize().toBytes());
     }
 
     @Override
@@ -207,4 +403,32 @@ public class ParallelHashBuildOperator
     {
         return null;
     }
+
+    @Override
+    public void close()
+    {
+        // once the lookup source is set, the spilled partition is owned by the lookup source supplier
+        if (!finished && spiller.isPresent()) {
+            spiller.get().close();
+        }
+    }
+
+    private void spillIndex()
+    {
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.get().create(lookupSourceSupplier.getTypes(), operatorContext.getSpillContext()));
+        }
+
+        List<Page> pages = ImmutableList.copyOf(index.getPages());
+        index.clear();
+        // the spilled pages are only referenced by the spiller until they are written
+        operatorContext.setMemoryReservation(index.getEstimatedSize().toBytes());
+        spillInProgress = spiller.get().spill(pages.iterator());
+    }
+
+    private void checkSpillSucceeded()
+    {
+        // propagates the failure of the spill, if any
+        getFutureValue(spillInProgress);
+    }
 }
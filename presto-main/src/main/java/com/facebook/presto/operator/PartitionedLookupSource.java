@@ -16,16 +16,26 @@ package com.facebook.presto.operator;
 import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillContext;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.primitives.Ints;
 
 import javax.annotation.concurrent.GuardedBy;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import static com.facebook.presto.operator.LookupSource.rowsContainingNull;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.Integer.numberOfTrailingZeros;
+import static java.util.Objects.requireNonNull;
 
 public class PartitionedLookupSource
         implements LookupSource
@@ -38,9 +48,25 @@ public class PartitionedLookupSource
     @GuardedBy("this")
     private final boolean[][] visitedPositions;
 
+    private final Map<Integer, SpilledLookupSourcePartition> spilledPartitions;
+    private final Optional<SpillerFactory> spillerFactory;
+
     public PartitionedLookupSource(List<? extends LookupSource> lookupSources, List<Type> hashChannelTypes, boolean outer)
+    {
+        this(lookupSources, hashChannelTypes, outer, ImmutableMap.of(), Optional.empty());
+    }
+
+    public PartitionedLookupSource(
+            List<? extends LookupSource> lookupSources,
+            List<Type> hashChannelTypes,
+            boolean outer,
+            Map<Integer, SpilledLookupSourcePartition> spilledPartitions,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.lookupSources = lookupSources.toArray(new LookupSource[lookupSources.size()]);
+        this.spilledPartitions = ImmutableMap.copyOf(requireNonNull(spilledPartitions, "spilledPartitions is null"));
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        checkArgument(this.spilledPartitions.isEmpty() || (!outer && spillerFactory.isPresent()), "Spilled partitions require an inner lookup source and a spiller factory");
 
         // this generator is only used for getJoinPosition without a rawHash and in this case
         // the hash channels are always packed in a page without extra columns
@@ -100,6 +126,78 @@ public class PartitionedLookupSource
         return encodePartitionedJoinPosition(partition, Ints.checkedCast(joinPosition));
     }
 
+    @Override
+    public boolean isBatchLookupSupported()
+    {
+        return Arrays.stream(lookupSources).allMatch(LookupSource::isBatchLookupSupported);
+    }
+
+    @Override
+    public long[] getJoinPositions(Page hashChannelsPage, Page allChannelsPage, Optional<Block> hashBlock)
+    {
+        int positionCount = hashChannelsPage.getPositionCount();
+
+        long[] rawHashes = new long[positionCount];
+        if (hashBlock.isPresent()) {
+            for (int position = 0; position < positionCount; position++) {
+                rawHashes[position] = BIGINT.getLong(hashBlock.get(), position);
+            }
+        }
+        else {
+            for (int position = 0; position < positionCount; position++) {
+                rawHashes[position] = partitionGenerator.getRawHash(position, hashChannelsPage);
+            }
+        }
+
+        // group the rows by partition, so each partition looks up all of its rows at once
+        // rows with a null in any key column never match, so they are not looked up
+        boolean[] nullRows = rowsContainingNull(hashChannelsPage);
+        int[] partitions = new int[positionCount];
+        int[] partitionOffsets = new int[lookupSources.length + 1];
+        for (int position = 0; position < positionCount; position++) {
+            if (!nullRows[position]) {
+                partitions[position] = partitionGenerator.getPartition(rawHashes[position]);
+                partitionOffsets[partitions[position] + 1]++;
+            }
+        }
+        for (int partition = 0; partition < lookupSources.length; partition++) {
+            partitionOffsets[partition + 1] += partitionOffsets[partition];
+        }
+
+        int[] positions = new int[partitionOffsets[lookupSources.length]];
+        int[] nextOffsets = Arrays.copyOf(partitionOffsets, lookupSources.length);
+        for (int position = 0; position < positionCount; position++) {
+            if (!nullRows[position]) {
+                positions[nextOffsets[partitions[position]]++] = position;
+            }
+        }
+
+        long[] joinPositions = new long[positionCount];
+        Arrays.fill(joinPositions, -1);
+        for (int partition = 0; partition < lookupSources.length; partition++) {
+            int offset = partitionOffsets[partition];
+            int length = partitionOffsets[partition + 1] - offset;
+            if (length == 0) {
+                continue;
+            }
+
+            lookupSources[partition].getJoinPositions(positions, offset, length, rawHashes, hashChannelsPage, allChannelsPage, joinPositions);
+            for (int i = offset; i < offset + length; i++) {
+                int position = positions[i];
+                if (joinPositions[position] >= 0) {
+                    joinPositions[position] = encodePartitionedJoinPosition(partition, Ints.checkedCast(joinPositions[position]));
+                }
+            }
+        }
+        return joinPositions;
+    }
+
+    @Override
+    public boolean isJoinPositionReusable()
+    {
+        return Arrays.stream(lookupSources).allMatch(LookupSource::isJoinPositionReusable);
+    }
+
     @Override
     public long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage)
     {
@@ -124,6 +222,32 @@ public class PartitionedLookupSource
         }
     }
 
+    @Override
+    public Optional<JoinProbeSpiller> createProbeSpiller(List<Type> probeTypes, HashGenerator probeHashGenerator, SpillContext spillContext)
+    {
+        if (spilledPartitions.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new JoinProbeSpiller(probeTypes, probeHashGenerator, this, spillerFactory.get(), spillContext));
+    }
+
+    public int getPartition(long rawHash)
+    {
+        return partitionGenerator.getPartition(rawHash);
+    }
+
+    public boolean isSpilled(int partition)
+    {
+        return spilledPartitions.containsKey(partition);
+    }
+
+    public LookupSource loadSpilledPartition(int partition)
+    {
+        SpilledLookupSourcePartition spilledPartition = spilledPartitions.get(partition);
+        checkArgument(spilledPartition != null, "Partition %s is not spilled", partition);
+        return spilledPartition.load();
+    }
+
     @Override
     public OuterPositionIterator getOuterPositionIterator()
     {
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.Symbol;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -22,10 +23,13 @@ import com.google.common.util.concurrent.SettableFuture;
 
 import javax.annotation.concurrent.GuardedBy;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
@@ -38,6 +42,10 @@ public final class PartitionedLookupSourceSupplier
     private final SettableFuture<LookupSource> lookupSourceFuture = SettableFuture.create();
     private final LookupSource[] partitions;
     private final boolean outer;
+    private final Optional<SpillerFactory> spillerFactory;
+
+    @GuardedBy("this")
+    private final Map<Integer, SpilledLookupSourcePartition> spilledPartitions = new HashMap<>();
 
     @GuardedBy("this")
     private int partitionsSet;
@@ -52,11 +60,24 @@ public final class PartitionedLookupSourceSupplier
     private boolean destroyed;
 
     public PartitionedLookupSourceSupplier(List<Type> types, List<Integer> hashChannels, int partitionCount, Map<Symbol, Integer> layout, boolean outer)
+    {
+        this(types, hashChannels, partitionCount, layout, outer, Optional.empty());
+    }
+
+    public PartitionedLookupSourceSupplier(
+            List<Type> types,
+            List<Integer> hashChannels,
+            int partitionCount,
+            Map<Symbol, Integer> layout,
+            boolean outer,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.layout = ImmutableMap.copyOf(layout);
         this.partitions = new LookupSource[partitionCount];
         this.outer = outer;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        checkArgument(!outer || !spillerFactory.isPresent(), "Outer lookup source can not be spilled");
 
         hashChannelTypes = hashChannels.stream()
                 .map(types::get)
@@ -82,19 +103,33 @@ public final class PartitionedLookupSourceSupplier
     }
 
     public void setLookupSource(int partitionIndex, LookupSource lookupSource, OperatorContext operatorContext)
+    {
+        setLookupSource(partitionIndex, lookupSource, Optional.empty(), operatorContext);
+    }
+
+    /**
+     * Sets the lookup source of a partition. If the partition was spilled, the lookup source only contains
+     * the rows that were not spilled, and the spilled rows are loaded back by the join operators after the
+     * in-memory partitions are joined.
+     */
+    public void setLookupSource(int partitionIndex, LookupSource lookupSource, Optional<SpilledLookupSourcePartition> spilledPartition, OperatorContext operatorContext)
     {
         PartitionedLookupSource partitionedLookupSource = null;
         synchronized (this) {
             requireNonNull(lookupSource, "lookupSource is null");
+            requireNonNull(spilledPartition, "spilledPartition is null");
             requireNonNull(operatorContext, "operatorContext is null");
 
             if (destroyed) {
+                spilledPartition.ifPresent(SpilledLookupSourcePartition::close);
                 return;
             }
 
             checkState(partitions[partitionIndex] == null, "Partition already set");
+            checkState(!spilledPartition.isPresent() || spillerFactory.isPresent(), "Spilling is not enabled");
             partitions[partitionIndex] = lookupSource;
             partitionsSet++;
+            spilledPartition.ifPresent(partition -> spilledPartitions.put(partitionIndex, partition));
 
             // transfer lookup source memory to task context
             long lookupSourceSizeInBytes = lookupSource.getInMemorySizeInBytes();
@@ -106,7 +141,7 @@ public final class PartitionedLookupSourceSupplier
             }
 
             if (partitionsSet == partitions.length) {
-                partitionedLookupSource = new PartitionedLookupSource(ImmutableList.copyOf(partitions), hashChannelTypes, outer);
+                partitionedLookupSource = new PartitionedLookupSource(ImmutableList.copyOf(partitions), hashChannelTypes, outer, spilledPartitions, spillerFactory);
             }
         }
 
@@ -127,6 +162,10 @@ public final class PartitionedLookupSourceSupplier
             destroyed = true;
             taskContext = this.taskContext;
             reservedMemory = this.reservedMemory;
+
+            // no join operator can read the spilled partitions anymore
+            spilledPartitions.values().forEach(SpilledLookupSourcePartition::close);
+            spilledPartitions.clear();
         }
 
         // all references are released, free the task memory
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.BigintType;
 import com.google.common.base.MoreObjects;
 
@@ -33,6 +34,17 @@ public class PrecomputedHashGenerator
         return BigintType.BIGINT.getLong(page.getBlock(hashChannel), position);
     }
 
+    @Override
+    public long[] hashPositions(Page page)
+    {
+        Block hashBlock = page.getBlock(hashChannel);
+        long[] rawHashes = new long[page.getPositionCount()];
+        for (int position = 0; position < rawHashes.length; position++) {
+            rawHashes[position] = BigintType.BIGINT.getLong(hashBlock, position);
+        }
+        return rawHashes;
+    }
+
     @Override
     public String toString()
     {
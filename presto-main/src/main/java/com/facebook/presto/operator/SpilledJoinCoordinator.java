@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spiller.Spiller;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Coordinates the join of spilled partitions across the {@link LookupJoinOperator}s of a join.
+ * <p>
+ * Every operator hands over the probe rows it spilled once its probe input is exhausted. When all
+ * operators did so, the operators that are still running claim the spilled partitions one at a time,
+ * so each spilled build partition is loaded only once, no matter how many operators have probe rows for it.
+ * <p>
+ * An operator that hands over its rows while other operators are still probing finishes right away,
+ * because one of those operators will join the rows. Only the last running operator waits while more
+ * operators may be created, so waiting operators never hold up the drivers that still have to be started.
+ */
+@ThreadSafe
+public class SpilledJoinCoordinator
+{
+    private final SettableFuture<Void> allProbesFinished = SettableFuture.create();
+
+    @GuardedBy("this")
+    private final TreeMap<Integer, List<Spiller>> probeSpills = new TreeMap<>();
+
+    @GuardedBy("this")
+    private SettableFuture<Void> probesChanged = SettableFuture.create();
+
+    @GuardedBy("this")
+    private int runningProbes;
+
+    @GuardedBy("this")
+    private boolean noMoreProbes;
+
+    @GuardedBy("this")
+    private boolean closed;
+
+    public synchronized void addProbe()
+    {
+        checkState(!noMoreProbes, "No more probes are expected");
+        runningProbes++;
+        fireProbesChanged();
+    }
+
+    public synchronized void noMoreProbes()
+    {
+        if (noMoreProbes) {
+            return;
+        }
+        noMoreProbes = true;
+        fireProbesChanged();
+        checkAllProbesFinished();
+    }
+
+    /**
+     * Takes ownership of the probe rows an operator spilled, by partition. Must be called exactly
+     * once by every operator, even if it did not spill anything.
+     */
+    public synchronized void finishProbe(Map<Integer, Spiller> spills)
+    {
+        checkState(runningProbes > 0, "No probe is running");
+        runningProbes--;
+        for (Map.Entry<Integer, Spiller> entry : spills.entrySet()) {
+            if (closed) {
+                entry.getValue().close();
+            }
+            else {
+                probeSpills.computeIfAbsent(entry.getKey(), ignored -> new ArrayList<>()).add(entry.getValue());
+            }
+        }
+        checkAllProbesFinished();
+    }
+
+    public boolean isAllProbesFinished()
+    {
+        return allProbesFinished.isDone();
+    }
+
+    /**
+     * @return the future to wait for before checking again whether all probes finished, or empty if the calling
+     * operator can finish without joining any spilled partition, because a running operator will join them
+     */
+    public synchronized Optional<ListenableFuture<?>> waitForAllProbes()
+    {
+        if (noMoreProbes) {
+            return Optional.of(allProbesFinished);
+        }
+        if (runningProbes > 0) {
+            return Optional.empty();
+        }
+        // this is the last running operator, but more operators may still be created
+        return Optional.of(probesChanged);
+    }
+
+    /**
+     * Claims the next spilled partition that has probe rows. The caller becomes the owner of the spilled probe rows.
+     *
+     * @return the partition and the spilled probe rows of all operators, or null if all partitions have been claimed
+     */
+    public synchronized Map.Entry<Integer, List<Spiller>> claimPartition()
+    {
+        checkState(allProbesFinished.isDone(), "Not all probes have finished");
+        return probeSpills.pollFirstEntry();
+    }
+
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        probeSpills.values().forEach(spillers -> spillers.forEach(Spiller::close));
+        probeSpills.clear();
+    }
+
+    @GuardedBy("this")
+    private void fireProbesChanged()
+    {
+        SettableFuture<Void> future = probesChanged;
+        probesChanged = SettableFuture.create();
+        future.set(null);
+    }
+
+    @GuardedBy("this")
+    private void checkAllProbesFinished()
+    {
+        if (noMoreProbes && runningProbes == 0) {
+            allProbesFinished.set(null);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A partition of the build side of a hash join which did not fit in memory and was spilled to disk.
+ * The partition is loaded back once, by the join operator that claims it from the {@link SpilledJoinCoordinator}.
+ */
+@ThreadSafe
+public class SpilledLookupSourcePartition
+        implements Closeable
+{
+    private final List<Type> types;
+    private final List<Integer> hashChannels;
+    private final Optional<Integer> preComputedHashChannel;
+    private final Optional<JoinFilterFunction> filterFunction;
+    private final int expectedPositions;
+
+    @GuardedBy("this")
+    private final Spiller spiller;
+
+    @GuardedBy("this")
+    private boolean closed;
+
+    public SpilledLookupSourcePartition(
+            Spiller spiller,
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> preComputedHashChannel,
+            Optional<JoinFilterFunction> filterFunction,
+            int expectedPositions)
+    {
+        this.spiller = requireNonNull(spiller, "spiller is null");
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
+        this.preComputedHashChannel = requireNonNull(preComputedHashChannel, "preComputedHashChannel is null");
+        this.filterFunction = requireNonNull(filterFunction, "filterFunction is null");
+        this.expectedPositions = expectedPositions;
+    }
+
+    /**
+     * Reads the partition back from disk and builds a lookup source for it. The spilled data is
+     * deleted afterwards, so the partition can only be loaded once. The caller is responsible for
+     * accounting the memory of the returned lookup source.
+     */
+    public synchronized LookupSource load()
+    {
+        checkState(!closed, "Spilled partition is already loaded or closed");
+
+        PagesIndex index = new PagesIndex(types, expectedPositions);
+        for (Iterator<Page> spill : spiller.getSpills()) {
+            while (spill.hasNext()) {
+                index.addPage(spill.next());
+            }
+        }
+        closed = true;
+        spiller.close();
+        return index.createLookupSource(hashChannels, preComputedHashChannel, filterFunction);
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        spiller.close();
+    }
+}
@@ -19,11 +19,13 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.UpdatablePageSource;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
@@ -34,6 +36,7 @@ import java.util.Optional;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static java.util.Objects.requireNonNull;
 
 public class TableScanOperator
@@ -47,6 +50,7 @@ public class TableScanOperator
         private final PageSourceProvider pageSourceProvider;
         private final List<Type> types;
         private final List<ColumnHandle> columns;
+        private final ListenableFuture<TupleDomain<ColumnHandle>> dynamicFilter;
         private boolean closed;
 
         public TableScanOperatorFactory(
@@ -55,12 +59,24 @@ public class TableScanOperator
                 PageSourceProvider pageSourceProvider,
                 List<Type> types,
                 Iterable<ColumnHandle> columns)
+        {
+            this(operatorId, sourceId, pageSourceProvider, types, columns, Futures.immediateFuture(TupleDomain.all()));
+        }
+
+        public TableScanOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                List<Type> types,
+                Iterable<ColumnHandle> columns,
+                ListenableFuture<TupleDomain<ColumnHandle>> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.sourceId = requireNonNull(sourceId, "sourceId is null");
             this.types = requireNonNull(types, "types is null");
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -85,7 +101,8 @@ public class TableScanOperator
                     sourceId,
                     pageSourceProvider,
                     types,
-                    columns);
+                    columns,
+                    dynamicFilter);
         }
 
         @Override
@@ -100,6 +117,7 @@ public class TableScanOperator
     private final PageSourceProvider pageSourceProvider;
     private final List<Type> types;
     private final List<ColumnHandle> columns;
+    private final ListenableFuture<TupleDomain<ColumnHandle>> dynamicFilter;
     private final LocalMemoryContext systemMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
 
@@ -117,12 +135,24 @@ public class TableScanOperator
             PageSourceProvider pageSourceProvider,
             List<Type> types,
             Iterable<ColumnHandle> columns)
+    {
+        this(operatorContext, planNodeId, pageSourceProvider, types, columns, Futures.immediateFuture(TupleDomain.all()));
+    }
+
+    public TableScanOperator(
+            OperatorContext operatorContext,
+            PlanNodeId planNodeId,
+            PageSourceProvider pageSourceProvider,
+            List<Type> types,
+            Iterable<ColumnHandle> columns,
+            ListenableFuture<TupleDomain<ColumnHandle>> dynamicFilter)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
         this.types = requireNonNull(types, "types is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
         this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         this.systemMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
     }
 
@@ -220,6 +250,10 @@ public class TableScanOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
+        // the split is not read until the dynamic filter is known
+        if (split != null && !finished && !dynamicFilter.isDone()) {
+            return dynamicFilter;
+        }
         return blocked;
     }
 
@@ -264,8 +298,8 @@ public class TableScanOperator
 
     private void createSourceIfNecessary()
     {
-        if ((split != null) && (source == null)) {
-            source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns);
+        if ((split != null) && (source == null) && dynamicFilter.isDone()) {
+            source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns, getFutureValue(dynamicFilter));
         }
     }
 }
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.Session;
+import com.facebook.presto.memory.LocalMemoryContext;
 import com.facebook.presto.spi.ConnectorPageSink;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
@@ -23,6 +24,9 @@ import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSinkManager;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.plan.TableWriterNode.WriterTarget;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.MoreFutures;
@@ -32,6 +36,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
@@ -123,6 +129,12 @@ public class TableWriterOperator
     private final ConnectorPageSink pageSink;
     private final Optional<Integer> sampleWeightChannel;
     private final List<Integer> inputChannels;
+    private final LocalMemoryContext pageSinkMemoryContext;
+    private final AtomicLong pageSinkPeakMemoryUsage = new AtomicLong();
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final AtomicInteger peakOpenWriterCount = new AtomicInteger();
+    private final AtomicLong peakWriterMemoryUsage = new AtomicLong();
+    private final AtomicLong writerFlushCount = new AtomicLong();
 
     private ListenableFuture<?> blocked = NOT_BLOCKED;
     private State state = State.RUNNING;
@@ -139,6 +151,8 @@ public class TableWriterOperator
         this.pageSink = requireNonNull(pageSink, "pageSink is null");
         this.sampleWeightChannel = requireNonNull(sampleWeightChannel, "sampleWeightChannel is null");
         this.inputChannels = requireNonNull(inputChannels, "inputChannels is null");
+        this.pageSinkMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
+        operatorContext.setInfoSupplier(this::getInfo);
     }
 
     @Override
@@ -209,6 +223,7 @@ public class TableWriterOperator
             this.blocked = MoreFutures.toListenableFuture(future);
         }
         rowCount += page.getPositionCount();
+        updatePageSinkStats();
     }
 
     @Override
@@ -221,6 +236,7 @@ public class TableWriterOperator
 
         Collection<Slice> fragments = pageSink.finish();
         committed = true;
+        updatePageSinkStats();
 
         PageBuilder page = new PageBuilder(TYPES);
         BlockBuilder rowsBuilder = page.getBlockBuilder(0);
@@ -250,6 +266,115 @@ public class TableWriterOperator
             if (!committed) {
                 pageSink.abort();
             }
+            pageSinkMemoryContext.setBytes(0);
+        }
+    }
+
+    public TableWriterInfo getInfo()
+    {
+        return new TableWriterInfo(
+                pageSinkPeakMemoryUsage.get(),
+                writtenBytes.get(),
+                peakOpenWriterCount.get(),
+                peakWriterMemoryUsage.get(),
+                writerFlushCount.get());
+    }
+
+    private void updatePageSinkStats()
+    {
+        long memoryUsage = pageSink.getSystemMemoryUsage();
+        pageSinkMemoryContext.setBytes(memoryUsage);
+        if (memoryUsage > pageSinkPeakMemoryUsage.get()) {
+            pageSinkPeakMemoryUsage.set(memoryUsage);
+        }
+        writtenBytes.set(pageSink.getCompletedBytes());
+
+        int openWriterCount = pageSink.getOpenWriterCount();
+        if (openWriterCount > peakOpenWriterCount.get()) {
+            peakOpenWriterCount.set(openWriterCount);
+        }
+        long writerMemoryUsage = pageSink.getMaxWriterMemoryUsage();
+        if (writerMemoryUsage > peakWriterMemoryUsage.get()) {
+            peakWriterMemoryUsage.set(writerMemoryUsage);
+        }
+        writerFlushCount.set(pageSink.getWriterFlushCount());
+    }
+
+    public static class TableWriterInfo
+            implements Mergeable<TableWriterInfo>
+    {
+        private final long pageSinkPeakMemoryUsage;
+        private final long writtenBytes;
+        private final int peakOpenWriterCount;
+        private final long peakWriterMemoryUsage;
+        private final long writerFlushCount;
+
+        @JsonCreator
+        public TableWriterInfo(
+                @JsonProperty("pageSinkPeakMemoryUsage") long pageSinkPeakMemoryUsage,
+                @JsonProperty("writtenBytes") long writtenBytes,
+                @JsonProperty("peakOpenWriterCount") int peakOpenWriterCount,
+                @JsonProperty("peakWriterMemoryUsage") long peakWriterMemoryUsage,
+                @JsonProperty("writerFlushCount") long writerFlushCount)
+        {
+            this.pageSinkPeakMemoryUsage = pageSinkPeakMemoryUsage;
+            this.writtenBytes = writtenBytes;
+            this.peakOpenWriterCount = peakOpenWriterCount;
+            this.peakWriterMemoryUsage = peakWriterMemoryUsage;
+            this.writerFlushCount = writerFlushCount;
+        }
+
+        @JsonProperty
+        public long getPageSinkPeakMemoryUsage()
+        {
+            return pageSinkPeakMemoryUsage;
+        }
+
+        @JsonProperty
+        public long getWrittenBytes()
+        {
+            return writtenBytes;
+        }
+
+        @JsonProperty
+        public int getPeakOpenWriterCount()
+        {
+            return peakOpenWriterCount;
+        }
+
+        @JsonProperty
+        public long getPeakWriterMemoryUsage()
+        {
+            return peakWriterMemoryUsage;
+        }
+
+        @JsonProperty
+        public long getWriterFlushCount()
+        {
+            return writerFlushCount;
+        }
+
+        @Override
+        public TableWriterInfo mergeWith(TableWriterInfo other)
+        {
+            return new TableWriterInfo(
+                    pageSinkPeakMemoryUsage + other.pageSinkPeakMemoryUsage,
+                    writtenBytes + other.writtenBytes,
+                    peakOpenWriterCount + other.peakOpenWriterCount,
+                    Math.max(peakWriterMemoryUsage, other.peakWriterMemoryUsage),
+                    writerFlushCount + other.writerFlushCount);
+        }
+
+        @Override
+        public String toString()
+        {
+            return MoreObjects.toStringHelper(this)
+                    .add("pageSinkPeakMemoryUsage", pageSinkPeakMemoryUsage)
+                    .add("writtenBytes", writtenBytes)
+                    .add("peakOpenWriterCount", peakOpenWriterCount)
+                    .add("peakWriterMemoryUsage", peakWriterMemoryUsage)
+                    .add("writerFlushCount", writerFlushCount)
+                    .toString();
         }
     }
 }
@@ -55,6 +55,7 @@ public class TaskContext
 
     private final DataSize operatorPreAllocatedMemory;
     private final AtomicLong memoryReservation = new AtomicLong();
+    private final AtomicLong revocableMemoryReservation = new AtomicLong();
     private final AtomicLong systemMemoryReservation = new AtomicLong();
 
     private final long createNanos = System.nanoTime();
@@ -165,6 +166,15 @@ public class TaskContext
         return future;
     }
 
+    public synchronized ListenableFuture<?> reserveRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+
+        ListenableFuture<?> future = queryContext.reserveRevocableMemory(bytes);
+        revocableMemoryReservation.getAndAdd(bytes);
+        return future;
+    }
+
     public synchronized ListenableFuture<?> reserveSystemMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -192,6 +202,14 @@ public class TaskContext
         queryContext.freeMemory(bytes);
     }
 
+    public synchronized void freeRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(bytes <= revocableMemoryReservation.get(), "tried to free more revocable memory than is reserved");
+        revocableMemoryReservation.getAndAdd(-bytes);
+        queryContext.freeRevocableMemory(bytes);
+    }
+
     public synchronized void freeSystemMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -200,11 +218,33 @@ public class TaskContext
         queryContext.freeSystemMemory(bytes);
     }
 
+    public void reserveSpill(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        queryContext.reserveSpill(bytes);
+    }
+
+    public void freeSpill(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        queryContext.freeSpill(bytes);
+    }
+
     public void moreMemoryAvailable()
     {
         pipelineContexts.stream().forEach(PipelineContext::moreMemoryAvailable);
     }
 
+    public long getRevocableMemoryReservation()
+    {
+        return revocableMemoryReservation.get();
+    }
+
+    public List<PipelineContext> getPipelineContexts()
+    {
+        return ImmutableList.copyOf(pipelineContexts);
+    }
+
     public boolean isVerboseStats()
     {
         return verboseStats;
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.window.FrameInfo;
+import com.facebook.presto.operator.window.StreamingWindowPartition;
 import com.facebook.presto.operator.window.WindowPartition;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
@@ -21,22 +22,30 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.function.WindowFunction;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.concat;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 
@@ -59,6 +68,9 @@ public class WindowOperator
         private final FrameInfo frameInfo;
         private final int expectedPositions;
         private final List<Type> types;
+        private final boolean spillEnabled;
+        private final DataSize memoryLimitBeforeSpill;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public WindowOperatorFactory(
@@ -74,6 +86,40 @@ public class WindowOperator
                 int preSortedChannelPrefix,
                 FrameInfo frameInfo,
                 int expectedPositions)
+        {
+            this(operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    windowFunctionDefinitions,
+                    partitionChannels,
+                    preGroupedChannels,
+                    sortChannels,
+                    sortOrder,
+                    preSortedChannelPrefix,
+                    frameInfo,
+                    expectedPositions,
+                    false,
+                    new DataSize(0, BYTE),
+                    Optional.empty());
+        }
+
+        public WindowOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<WindowFunctionDefinition> windowFunctionDefinitions,
+                List<Integer> partitionChannels,
+                List<Integer> preGroupedChannels,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int preSortedChannelPrefix,
+                FrameInfo frameInfo,
+                int expectedPositions,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                Optional<SpillerFactory> spillerFactory)
         {
             requireNonNull(sourceTypes, "sourceTypes is null");
             requireNonNull(planNodeId, "planNodeId is null");
@@ -88,6 +134,9 @@ public class WindowOperator
             checkArgument(preSortedChannelPrefix <= sortChannels.size(), "Cannot have more pre-sorted channels than specified sorted channels");
             checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
             requireNonNull(frameInfo, "frameInfo is null");
+            requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+            requireNonNull(spillerFactory, "spillerFactory is null");
+            checkArgument(!spillEnabled || spillerFactory.isPresent(), "spillerFactory must be present when spill is enabled");
 
             this.operatorId = operatorId;
             this.planNodeId = planNodeId;
@@ -101,6 +150,9 @@ public class WindowOperator
             this.preSortedChannelPrefix = preSortedChannelPrefix;
             this.frameInfo = frameInfo;
             this.expectedPositions = expectedPositions;
+            this.spillEnabled = spillEnabled;
+            this.memoryLimitBeforeSpill = memoryLimitBeforeSpill;
+            this.spillerFactory = spillerFactory;
             this.types = Stream.concat(
                     outputChannels.stream()
                             .map(sourceTypes::get),
@@ -132,7 +184,10 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     frameInfo,
-                    expectedPositions);
+                    expectedPositions,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory);
         }
 
         @Override
@@ -156,7 +211,10 @@ public class WindowOperator
                 sortOrder,
                 preSortedChannelPrefix,
                 frameInfo,
-                expectedPositions);
+                expectedPositions,
+                spillEnabled,
+                memoryLimitBeforeSpill,
+                spillerFactory);
         }
     }
 
@@ -169,6 +227,7 @@ public class WindowOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final int[] outputChannels;
     private final List<WindowFunction> windowFunctions;
     private final List<Integer> orderChannels;
@@ -176,6 +235,8 @@ public class WindowOperator
     private final List<Type> types;
 
     private final int[] preGroupedChannels;
+    private final int[] unGroupedPartitionChannels;
+    private final int[] sortChannels;
 
     private final PagesHashStrategy preGroupedPartitionHashStrategy;
     private final PagesHashStrategy unGroupedPartitionHashStrategy;
@@ -191,9 +252,28 @@ public class WindowOperator
     private State state = State.NEEDS_INPUT;
 
     private WindowPartition partition;
+    private StreamingWindowPartition streamedPartition;
 
     private Page pendingInput;
 
+    private final boolean spillEnabled;
+    private final long memoryLimitBeforeSpill;
+    private final Optional<SpillerFactory> spillerFactory;
+    private final List<Integer> mergeChannels;
+    private final List<SortOrder> mergeOrdering;
+
+    private Optional<Spiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = NOT_BLOCKED;
+    // pre-grouped values of the group being spilled, as the rows of the group are no longer in the pagesIndex
+    private Page spilledGroupKey;
+    // sorted rows of a spilled group, which are loaded back into the pagesIndex one partition at a time
+    private Iterator<Page> mergedPages;
+    private Page pendingMergedPage;
+    // spilled partitions that do not fit in memory are passed through the window functions a few peer groups at a time, if the functions allow it
+    private final boolean partitionsStreamable;
+    // the pagesIndex holds only the leading rows of the spilled partition, and the remaining rows are still in mergedPages
+    private boolean spilledPartitionContinues;
+
     public WindowOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -206,6 +286,38 @@ public class WindowOperator
             int preSortedChannelPrefix,
             FrameInfo frameInfo,
             int expectedPositions)
+    {
+        this(operatorContext,
+                sourceTypes,
+                outputChannels,
+                windowFunctionDefinitions,
+                partitionChannels,
+                preGroupedChannels,
+                sortChannels,
+                sortOrder,
+                preSortedChannelPrefix,
+                frameInfo,
+                expectedPositions,
+                false,
+                new DataSize(0, BYTE),
+                Optional.empty());
+    }
+
+    public WindowOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> windowFunctionDefinitions,
+            List<Integer> partitionChannels,
+            List<Integer> preGroupedChannels,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int preSortedChannelPrefix,
+            FrameInfo frameInfo,
+            int expectedPositions,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            Optional<SpillerFactory> spillerFactory)
     {
         requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(outputChannels, "outputChannels is null");
@@ -219,13 +331,21 @@ public class WindowOperator
         checkArgument(preSortedChannelPrefix <= sortChannels.size(), "Cannot have more pre-sorted channels than specified sorted channels");
         checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
         requireNonNull(frameInfo, "frameInfo is null");
+        requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+        requireNonNull(spillerFactory, "spillerFactory is null");
+        checkArgument(!spillEnabled || spillerFactory.isPresent(), "spillerFactory must be present when spill is enabled");
 
         this.operatorContext = operatorContext;
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
         this.outputChannels = Ints.toArray(outputChannels);
         this.windowFunctions = windowFunctionDefinitions.stream()
                 .map(WindowFunctionDefinition::createWindowFunction)
                 .collect(toImmutableList());
         this.frameInfo = frameInfo;
+        this.partitionsStreamable = StreamingWindowPartition.isStreamable(windowFunctions, frameInfo);
+        this.spillEnabled = spillEnabled;
+        this.memoryLimitBeforeSpill = memoryLimitBeforeSpill.toBytes();
+        this.spillerFactory = spillerFactory;
 
         this.types = Stream.concat(
                 outputChannels.stream()
@@ -240,11 +360,13 @@ public class WindowOperator
         List<Integer> unGroupedPartitionChannels = partitionChannels.stream()
                 .filter(channel -> !preGroupedChannels.contains(channel))
                 .collect(toImmutableList());
+        this.unGroupedPartitionChannels = Ints.toArray(unGroupedPartitionChannels);
         this.unGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(unGroupedPartitionChannels, Optional.empty());
         List<Integer> preSortedChannels = sortChannels.stream()
                 .limit(preSortedChannelPrefix)
                 .collect(toImmutableList());
         this.preSortedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(preSortedChannels, Optional.<Integer>empty());
+        this.sortChannels = Ints.toArray(sortChannels);
         this.peerGroupHashStrategy = pagesIndex.createPagesHashStrategy(sortChannels, Optional.empty());
 
         this.pageBuilder = new PageBuilder(this.types);
@@ -253,11 +375,18 @@ public class WindowOperator
             // This already implies that set(preGroupedChannels) == set(partitionChannels) (enforced with checkArgument)
             this.orderChannels = ImmutableList.copyOf(Iterables.skip(sortChannels, preSortedChannelPrefix));
             this.ordering = ImmutableList.copyOf(Iterables.skip(sortOrder, preSortedChannelPrefix));
+
+            // spilled runs are sorted within each pre-sorted group, and the pre-sorted groups arrive in order
+            this.mergeChannels = ImmutableList.copyOf(sortChannels);
+            this.mergeOrdering = ImmutableList.copyOf(sortOrder);
         }
         else {
             // Otherwise, we need to sort by the unGroupedPartitionChannels and all original sort channels
             this.orderChannels = ImmutableList.copyOf(concat(unGroupedPartitionChannels, sortChannels));
             this.ordering = ImmutableList.copyOf(concat(nCopies(unGroupedPartitionChannels.size(), ASC_NULLS_LAST), sortOrder));
+
+            this.mergeChannels = orderChannels;
+            this.mergeOrdering = ordering;
         }
     }
 
@@ -273,6 +402,12 @@ public class WindowOperator
         return types;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
+    }
+
     @Override
     public void finish()
     {
@@ -281,7 +416,7 @@ public class WindowOperator
         }
         if (state == State.NEEDS_INPUT) {
             // Since was waiting for more input, prepare what we have for output since we will not be getting any more input
-            sortPagesIndexIfNecessary();
+            prepareGroupForOutput();
         }
         state = State.FINISHING;
     }
@@ -304,6 +439,8 @@ public class WindowOperator
         checkState(state == State.NEEDS_INPUT, "Operator can not take input at this time");
         requireNonNull(page, "page is null");
         checkState(pendingInput == null, "Operator already has pending input");
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        checkSpillSucceeded();
 
         if (page.getPositionCount() == 0) {
             return;
@@ -313,6 +450,9 @@ public class WindowOperator
         if (processPendingInput()) {
             state = State.HAS_OUTPUT;
         }
+        else if (spillEnabled && pagesIndex.getEstimatedSize().toBytes() > memoryLimitBeforeSpill) {
+            spillPagesIndex();
+        }
         operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
     }
 
@@ -326,7 +466,7 @@ public class WindowOperator
 
         // If we have unused input or are finishing, then we have buffered a full group
         if (pendingInput != null || state == State.FINISHING) {
-            sortPagesIndexIfNecessary();
+            prepareGroupForOutput();
             return true;
         }
         else {
@@ -344,7 +484,7 @@ public class WindowOperator
 
         // TODO: Fix pagesHashStrategy to allow specifying channels for comparison, it currently requires us to rearrange the right side blocks in consecutive channel order
         Page preGroupedPage = rearrangePage(page, preGroupedChannels);
-        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage)) {
+        if (isCurrentGroup(preGroupedPage)) {
             // Find the position where the pre-grouped columns change
             int groupEnd = findGroupEnd(preGroupedPage, preGroupedPartitionHashStrategy, 0);
 
@@ -366,6 +506,14 @@ public class WindowOperator
         }
     }
 
+    private boolean isCurrentGroup(Page preGroupedPage)
+    {
+        if (spilledGroupKey != null) {
+            return preGroupedPartitionHashStrategy.rowEqualsRow(0, spilledGroupKey, 0, preGroupedPage);
+        }
+        return pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage);
+    }
+
     private static Page rearrangePage(Page page, int[] channels)
     {
         Block[] newBlocks = new Block[channels.length];
@@ -393,6 +541,22 @@ public class WindowOperator
 
         // Iterate through the positions sequentially until we have one full page
         while (!pageBuilder.isFull()) {
+            if (streamedPartition != null) {
+                if (streamedPartition.hasNext()) {
+                    streamedPartition.processNextRow(pageBuilder);
+                    continue;
+                }
+
+                // Replace the processed peer groups with the next rows of the streamed partition
+                pagesIndex.clear();
+                if (spilledPartitionContinues) {
+                    loadNextSpilledPartition();
+                    streamedPartition.nextRowsLoaded();
+                    continue;
+                }
+                streamedPartition = null;
+            }
+
             if (partition == null || !partition.hasNext()) {
                 int partitionStart = partition == null ? 0 : partition.getPartitionEnd();
 
@@ -401,8 +565,11 @@ public class WindowOperator
                     partition = null;
                     pagesIndex.clear();
 
-                    // Try to extract more partitions from the pendingInput
-                    if (pendingInput != null && processPendingInput()) {
+                    // Load the next partition of a spilled group, or extract more partitions from the pendingInput
+                    if (mergedPages != null && loadNextSpilledPartition()) {
+                        partitionStart = 0;
+                    }
+                    else if (pendingInput != null && processPendingInput()) {
                         partitionStart = 0;
                     }
                     else if (state == State.FINISHING) {
@@ -421,6 +588,12 @@ public class WindowOperator
                     }
                 }
 
+                if (spilledPartitionContinues) {
+                    // The spilled partition does not fit in memory
+                    streamedPartition = new StreamingWindowPartition(pagesIndex, outputChannels, windowFunctions, frameInfo, peerGroupHashStrategy);
+                    continue;
+                }
+
                 int partitionEnd = findGroupEnd(pagesIndex, unGroupedPartitionHashStrategy, partitionStart);
                 partition = new WindowPartition(pagesIndex, partitionStart, partitionEnd, outputChannels, windowFunctions, frameInfo, peerGroupHashStrategy);
             }
@@ -433,6 +606,109 @@ public class WindowOperator
         return page;
     }
 
+    @Override
+    public void close()
+    {
+        spiller.ifPresent(Spiller::close);
+    }
+
+    private void prepareGroupForOutput()
+    {
+        sortPagesIndexIfNecessary();
+        if (spiller.isPresent()) {
+            mergeSpilledGroup();
+        }
+    }
+
+    private void spillPagesIndex()
+    {
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.get().create(sourceTypes, operatorContext.getSpillContext()));
+        }
+
+        // every spill writes one sorted run of the current group
+        sortPagesIndexIfNecessary();
+        List<Page> sortedPages = ImmutableList.copyOf(pagesIndex.getSortedPages());
+        if (spilledGroupKey == null) {
+            spilledGroupKey = rearrangePage(sortedPages.get(0), preGroupedChannels).getRegion(0, 1);
+        }
+        pagesIndex.clear();
+        spillInProgress = spiller.get().spill(sortedPages.iterator());
+    }
+
+    private void mergeSpilledGroup()
+    {
+        checkSpillSucceeded();
+
+        List<Page> sortedPages = ImmutableList.copyOf(pagesIndex.getSortedPages());
+        pagesIndex.clear();
+        List<Iterator<Page>> sortedRuns = ImmutableList.<Iterator<Page>>builder()
+                .addAll(spiller.get().getSpills())
+                .add(sortedPages.iterator())
+                .build();
+        mergedPages = mergeSortedPages(sortedRuns, pagesIndex.createPageWithPositionComparator(mergeChannels, mergeOrdering), sourceTypes);
+        spilledGroupKey = null;
+
+        loadNextSpilledPartition();
+    }
+
+    /**
+     * Loads the next partition of the merged spilled group into the empty pagesIndex. If the partition
+     * does not fit in memory and the window functions can be streamed, only the rows up to the end of a
+     * peer group are loaded, and the following calls load the remaining rows of the same partition.
+     * Otherwise, a single partition still has to fit in memory.
+     *
+     * @return true if some rows were loaded, false if the spilled group is exhausted
+     */
+    private boolean loadNextSpilledPartition()
+    {
+        checkState(pagesIndex.getPositionCount() == 0, "pagesIndex is not empty");
+        spilledPartitionContinues = false;
+
+        while (pendingMergedPage != null || mergedPages.hasNext()) {
+            if (pendingMergedPage == null) {
+                pendingMergedPage = mergedPages.next();
+            }
+
+            Page unGroupedPage = rearrangePage(pendingMergedPage, unGroupedPartitionChannels);
+            if (pagesIndex.getPositionCount() > 0 && !pagesIndex.positionEqualsRow(unGroupedPartitionHashStrategy, 0, 0, unGroupedPage)) {
+                return true;
+            }
+
+            int rowsToLoad = findGroupEnd(unGroupedPage, unGroupedPartitionHashStrategy, 0);
+            Page partitionRows = pendingMergedPage.getRegion(0, rowsToLoad);
+            if (partitionsStreamable && pagesIndex.getEstimatedSize().toBytes() + partitionRows.getSizeInBytes() > memoryLimitBeforeSpill) {
+                // The partition does not fit in memory, so only load the rows up to the end of the current peer group
+                Page peerGroupPage = rearrangePage(partitionRows, sortChannels);
+                if (pagesIndex.getPositionCount() > 0 && !pagesIndex.positionEqualsRow(peerGroupHashStrategy, pagesIndex.getPositionCount() - 1, 0, peerGroupPage)) {
+                    spilledPartitionContinues = true;
+                    return true;
+                }
+                rowsToLoad = findGroupEnd(peerGroupPage, peerGroupHashStrategy, 0);
+            }
+
+            pagesIndex.addPage(pendingMergedPage.getRegion(0, rowsToLoad));
+            if (rowsToLoad < pendingMergedPage.getPositionCount()) {
+                pendingMergedPage = pendingMergedPage.getRegion(rowsToLoad, pendingMergedPage.getPositionCount() - rowsToLoad);
+            }
+            else {
+                pendingMergedPage = null;
+            }
+        }
+
+        // the whole spilled group has been loaded, so the spill files are no longer needed
+        mergedPages = null;
+        spiller.get().close();
+        spiller = Optional.empty();
+        return pagesIndex.getPositionCount() > 0;
+    }
+
+    private void checkSpillSucceeded()
+    {
+        // propagates the failure of the spill, if any
+        getFutureValue(spillInProgress);
+    }
+
     private void sortPagesIndexIfNecessary()
     {
         if (pagesIndex.getPositionCount() > 1 && !orderChannels.isEmpty()) {
@@ -47,7 +47,10 @@ import static com.facebook.presto.operator.aggregation.AggregationMetadata.Param
 import static com.facebook.presto.operator.aggregation.AggregationMetadata.ParameterMetadata.ParameterType.STATE;
 import static com.facebook.presto.operator.aggregation.AggregationUtils.generateAggregationName;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.function.OperatorType.GREATER_THAN;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.facebook.presto.util.Reflection.methodHandle;
@@ -164,7 +167,14 @@ public abstract class AbstractMinMaxAggregationFunction
                 type,
                 false);
 
-        GenericAccumulatorFactoryBinder factory = new AccumulatorCompiler().generateAccumulatorFactoryBinder(metadata, classLoader);
+        AccumulatorFactoryBinder factory = new AccumulatorCompiler().generateAccumulatorFactoryBinder(metadata, classLoader);
+        boolean max = operatorType == GREATER_THAN;
+        if (type.equals(BIGINT)) {
+            factory = new BulkAccumulatorFactoryBinder(factory, (inputChannels, maskChannel) -> new LongMinMaxGroupedAccumulator(max, inputChannels, maskChannel));
+        }
+        else if (type.equals(DOUBLE)) {
+            factory = new BulkAccumulatorFactoryBinder(factory, (inputChannels, maskChannel) -> new DoubleMinMaxGroupedAccumulator(max, inputChannels, maskChannel));
+        }
         return new InternalAggregationFunction(getSignature().getName(), inputTypes, intermediateType, type, true, false, factory);
     }
 
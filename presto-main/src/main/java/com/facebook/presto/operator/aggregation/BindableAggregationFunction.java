@@ -127,7 +127,7 @@ public class BindableAggregationFunction
             throw Throwables.propagate(e);
         }
 
-        AccumulatorFactoryBinder factory = new LazyAccumulatorFactoryBinder(metadata, classLoader);
+        AccumulatorFactoryBinder factory = withBulkGroupedAccumulator(definitionClass, new LazyAccumulatorFactoryBinder(metadata, classLoader));
 
         return new InternalAggregationFunction(getSignature().getName(),
                 inputTypes,
@@ -143,6 +143,20 @@ public class BindableAggregationFunction
         return specialize(variables, arity, typeManager, null);
     }
 
+    private static AccumulatorFactoryBinder withBulkGroupedAccumulator(Class<?> definitionClass, AccumulatorFactoryBinder factory)
+    {
+        if (definitionClass == LongSumAggregation.class) {
+            return new BulkAccumulatorFactoryBinder(factory, LongSumGroupedAccumulator::new);
+        }
+        if (definitionClass == DoubleSumAggregation.class) {
+            return new BulkAccumulatorFactoryBinder(factory, DoubleSumGroupedAccumulator::new);
+        }
+        if (definitionClass == CountAggregation.class) {
+            return new BulkAccumulatorFactoryBinder(factory, CountGroupedAccumulator::new);
+        }
+        return factory;
+    }
+
     private static List<TypeSignature> signaturesFromTypes(List<Type> types)
     {
         return types
@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Binds the generated accumulators of an aggregation, but creates the grouped accumulator for
+ * raw input with a hand written implementation that updates its big array state in a single
+ * loop over the page. Sampled and approximate aggregations use the generated accumulators.
+ */
+public class BulkAccumulatorFactoryBinder
+        implements AccumulatorFactoryBinder
+{
+    private final AccumulatorFactoryBinder delegate;
+    private final BiFunction<List<Integer>, Optional<Integer>, GroupedAccumulator> groupedAccumulatorFactory;
+
+    public BulkAccumulatorFactoryBinder(AccumulatorFactoryBinder delegate, BiFunction<List<Integer>, Optional<Integer>, GroupedAccumulator> groupedAccumulatorFactory)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.groupedAccumulatorFactory = requireNonNull(groupedAccumulatorFactory, "groupedAccumulatorFactory is null");
+    }
+
+    @Override
+    public AccumulatorFactory bind(List<Integer> argumentChannels, Optional<Integer> maskChannel, Optional<Integer> sampleWeightChannel, double confidence)
+    {
+        AccumulatorFactory factory = delegate.bind(argumentChannels, maskChannel, sampleWeightChannel, confidence);
+        if (sampleWeightChannel.isPresent() || confidence != 1.0) {
+            return factory;
+        }
+        return new BulkAccumulatorFactory(factory, argumentChannels, maskChannel, groupedAccumulatorFactory);
+    }
+
+    private static class BulkAccumulatorFactory
+            implements AccumulatorFactory
+    {
+        private final AccumulatorFactory delegate;
+        private final List<Integer> inputChannels;
+        private final Optional<Integer> maskChannel;
+        private final BiFunction<List<Integer>, Optional<Integer>, GroupedAccumulator> groupedAccumulatorFactory;
+
+        public BulkAccumulatorFactory(
+                AccumulatorFactory delegate,
+                List<Integer> inputChannels,
+                Optional<Integer> maskChannel,
+                BiFunction<List<Integer>, Optional<Integer>, GroupedAccumulator> groupedAccumulatorFactory)
+        {
+            this.delegate = delegate;
+            this.inputChannels = inputChannels;
+            this.maskChannel = maskChannel;
+            this.groupedAccumulatorFactory = groupedAccumulatorFactory;
+        }
+
+        @Override
+        public List<Integer> getInputChannels()
+        {
+            return delegate.getInputChannels();
+        }
+
+        @Override
+        public Accumulator createAccumulator()
+        {
+            return delegate.createAccumulator();
+        }
+
+        @Override
+        public Accumulator createIntermediateAccumulator()
+        {
+            return delegate.createIntermediateAccumulator();
+        }
+
+        @Override
+        public GroupedAccumulator createGroupedAccumulator()
+        {
+            return groupedAccumulatorFactory.apply(inputChannels, maskChannel);
+        }
+
+        @Override
+        public GroupedAccumulator createGroupedIntermediateAccumulator()
+        {
+            return delegate.createGroupedIntermediateAccumulator();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.operator.GroupByIdBlock;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.block.LongArrayBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+
+import static io.airlift.slice.SizeOf.sizeOf;
+
+/**
+ * Reads the group ids and the values of a block of a type with a long representation
+ * (bigint, or the bits of a double) into primitive arrays, so the grouped accumulators
+ * can loop over the values instead of calling through {@link Block} for every position.
+ * The arrays are reused from page to page.
+ */
+final class BulkInputReader
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BulkInputReader.class).instanceSize();
+
+    private long[] groupIds = new long[0];
+    private long[] values = new long[0];
+    private boolean[] valueIsNull = new boolean[0];
+
+    public long[] getGroupIds()
+    {
+        return groupIds;
+    }
+
+    public long[] getValues()
+    {
+        return values;
+    }
+
+    public boolean[] getValueIsNull()
+    {
+        return valueIsNull;
+    }
+
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE + sizeOf(groupIds) + sizeOf(values) + sizeOf(valueIsNull);
+    }
+
+    /**
+     * Reads the group ids of the positions.
+     */
+    public void readGroupIds(GroupByIdBlock groupIdsBlock)
+    {
+        int positionCount = groupIdsBlock.getPositionCount();
+        if (groupIds.length < positionCount) {
+            groupIds = new long[positionCount];
+        }
+        readLongs(groupIdsBlock.getIds(), groupIds, null);
+    }
+
+    /**
+     * Reads the group ids of the positions and the values of the block.
+     */
+    public void read(GroupByIdBlock groupIdsBlock, Block block)
+    {
+        readGroupIds(groupIdsBlock);
+        int positionCount = block.getPositionCount();
+        if (values.length < positionCount) {
+            values = new long[positionCount];
+            valueIsNull = new boolean[positionCount];
+        }
+        readLongs(block, values, valueIsNull);
+    }
+
+    /**
+     * Returns the length to grow an array of per group state to so it holds {@code groupCount} groups.
+     */
+    public static int getGrownLength(int length, long groupCount)
+    {
+        if (groupCount <= length) {
+            return length;
+        }
+        return (int) Math.min(Math.max(groupCount, length * 2L), Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Copies the values of the block to the start of {@code target}, and their null flags to the
+     * start of {@code targetIsNull} unless it is null.
+     */
+    static void readLongs(Block block, long[] target, boolean[] targetIsNull)
+    {
+        if (block instanceof LazyBlock) {
+            block = ((LazyBlock) block).getBlock();
+        }
+        int positionCount = block.getPositionCount();
+
+        if (block instanceof LongArrayBlock) {
+            ((LongArrayBlock) block).getLongs(target, targetIsNull);
+            return;
+        }
+
+        if (block instanceof RunLengthEncodedBlock) {
+            Block value = ((RunLengthEncodedBlock) block).getValue();
+            boolean isNull = value.isNull(0);
+            Arrays.fill(target, 0, positionCount, isNull ? 0 : value.getLong(0, 0));
+            if (targetIsNull != null) {
+                Arrays.fill(targetIsNull, 0, positionCount, isNull);
+            }
+            return;
+        }
+
+        if (block instanceof DictionaryBlock) {
+            DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+            Block dictionary = dictionaryBlock.getDictionary();
+            int dictionarySize = dictionary.getPositionCount();
+
+            // a dictionary shared by many pages can be much larger than this page, so only read it whole when it is not
+            if (dictionarySize <= positionCount) {
+                long[] dictionaryValues = new long[dictionarySize];
+                boolean[] dictionaryIsNull = new boolean[dictionarySize];
+                readLongs(dictionary, dictionaryValues, dictionaryIsNull);
+                for (int position = 0; position < positionCount; position++) {
+                    int id = dictionaryBlock.getId(position);
+                    target[position] = dictionaryValues[id];
+                    if (targetIsNull != null) {
+                        targetIsNull[position] = dictionaryIsNull[id];
+                    }
+                }
+                return;
+            }
+        }
+
+        for (int position = 0; position < positionCount; position++) {
+            boolean isNull = block.isNull(position);
+            target[position] = isNull ? 0 : block.getLong(position, 0);
+            if (targetIsNull != null) {
+                targetIsNull[position] = isNull;
+            }
+        }
+    }
+}
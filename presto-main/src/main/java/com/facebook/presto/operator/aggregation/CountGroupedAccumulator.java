@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.operator.GroupByIdBlock;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.operator.aggregation.BulkInputReader.getGrownLength;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Grouped count(*) with the same intermediate format as {@link CountAggregation}.
+ */
+public class CountGroupedAccumulator
+        implements GroupedAccumulator
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(CountGroupedAccumulator.class).instanceSize();
+
+    private final Optional<Integer> maskChannel;
+    private final BulkInputReader reader = new BulkInputReader();
+    private long[] counts = new long[0];
+
+    public CountGroupedAccumulator(List<Integer> inputChannels, Optional<Integer> maskChannel)
+    {
+        checkArgument(requireNonNull(inputChannels, "inputChannels is null").isEmpty(), "expected no input channels");
+        this.maskChannel = requireNonNull(maskChannel, "maskChannel is null");
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE + reader.getEstimatedSize() + sizeOf(counts);
+    }
+
+    @Override
+    public Type getFinalType()
+    {
+        return BIGINT;
+    }
+
+    @Override
+    public Type getIntermediateType()
+    {
+        return BIGINT;
+    }
+
+    @Override
+    public void addInput(GroupByIdBlock groupIdsBlock, Page page)
+    {
+        ensureCapacity(groupIdsBlock.getGroupCount());
+        reader.readGroupIds(groupIdsBlock);
+        int positionCount = groupIdsBlock.getPositionCount();
+        long[] groupIds = reader.getGroupIds();
+
+        Block masks = maskChannel.map(page::getBlock).orElse(null);
+        if (masks == null) {
+            for (int position = 0; position < positionCount; position++) {
+                counts[(int) groupIds[position]]++;
+            }
+        }
+        else {
+            for (int position = 0; position < positionCount; position++) {
+                if (BOOLEAN.getBoolean(masks, position)) {
+                    counts[(int) groupIds[position]]++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void addIntermediate(GroupByIdBlock groupIdsBlock, Block block)
+    {
+        ensureCapacity(groupIdsBlock.getGroupCount());
+        reader.read(groupIdsBlock, block);
+        int positionCount = block.getPositionCount();
+        long[] groupIds = reader.getGroupIds();
+        long[] values = reader.getValues();
+        boolean[] valueIsNull = reader.getValueIsNull();
+
+        for (int position = 0; position < positionCount; position++) {
+            if (!valueIsNull[position]) {
+                counts[(int) groupIds[position]] += values[position];
+            }
+        }
+    }
+
+    @Override
+    public void evaluateIntermediate(int groupId, BlockBuilder output)
+    {
+        evaluateFinal(groupId, output);
+    }
+
+    @Override
+    public void evaluateFinal(int groupId, BlockBuilder output)
+    {
+        BIGINT.writeLong(output, counts[groupId]);
+    }
+
+    private void ensureCapacity(long groupCount)
+    {
+        int length = getGrownLength(counts.length, groupCount);
+        if (length > counts.length) {
+            counts = Arrays.copyOf(counts, length);
+        }
+    }
+}
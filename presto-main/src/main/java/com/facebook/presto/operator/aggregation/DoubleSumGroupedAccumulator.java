@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.operator.GroupByIdBlock;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.operator.aggregation.BulkInputReader.getGrownLength;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Grouped sum(double) with the same intermediate format as {@link DoubleSumAggregation}.
+ */
+public class DoubleSumGroupedAccumulator
+        implements GroupedAccumulator
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(DoubleSumGroupedAccumulator.class).instanceSize();
+
+    private final int inputChannel;
+    private final Optional<Integer> maskChannel;
+    private final BulkInputReader reader = new BulkInputReader();
+    private double[] sums = new double[0];
+    private boolean[] nonNull = new boolean[0];
+
+    public DoubleSumGroupedAccumulator(List<Integer> inputChannels, Optional<Integer> maskChannel)
+    {
+        checkArgument(requireNonNull(inputChannels, "inputChannels is null").size() == 1, "expected one input channel");
+        this.inputChannel = inputChannels.get(0);
+        this.maskChannel = requireNonNull(maskChannel, "maskChannel is null");
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE + reader.getEstimatedSize() + sizeOf(sums) + sizeOf(nonNull);
+    }
+
+    @Override
+    public Type getFinalType()
+    {
+        return DOUBLE;
+    }
+
+    @Override
+    public Type getIntermediateType()
+    {
+        return DOUBLE;
+    }
+
+    @Override
+    public void addInput(GroupByIdBlock groupIdsBlock, Page page)
+    {
+        addValues(groupIdsBlock, page.getBlock(inputChannel), maskChannel.map(page::getBlock).orElse(null));
+    }
+
+    @Override
+    public void addIntermediate(GroupByIdBlock groupIdsBlock, Block block)
+    {
+        addValues(groupIdsBlock, block, null);
+    }
+
+    private void addValues(GroupByIdBlock groupIdsBlock, Block block, Block masks)
+    {
+        ensureCapacity(groupIdsBlock.getGroupCount());
+        reader.read(groupIdsBlock, block);
+        int positionCount = block.getPositionCount();
+        long[] groupIds = reader.getGroupIds();
+        long[] values = reader.getValues();
+        boolean[] valueIsNull = reader.getValueIsNull();
+
+        for (int position = 0; position < positionCount; position++) {
+            if (valueIsNull[position] || (masks != null && !BOOLEAN.getBoolean(masks, position))) {
+                continue;
+            }
+            int groupId = (int) groupIds[position];
+            sums[groupId] = sums[groupId] + Double.longBitsToDouble(values[position]);
+            nonNull[groupId] = true;
+        }
+    }
+
+    @Override
+    public void evaluateIntermediate(int groupId, BlockBuilder output)
+    {
+        evaluateFinal(groupId, output);
+    }
+
+    @Override
+    public void evaluateFinal(int groupId, BlockBuilder output)
+    {
+        if (nonNull[groupId]) {
+            DOUBLE.writeDouble(output, sums[groupId]);
+        }
+        else {
+            output.appendNull();
+        }
+    }
+
+    private void ensureCapacity(long groupCount)
+    {
+        int length = getGrownLength(sums.length, groupCount);
+        if (length > sums.length) {
+            sums = Arrays.copyOf(sums, length);
+            nonNull = Arrays.copyOf(nonNull, length);
+        }
+    }
+}
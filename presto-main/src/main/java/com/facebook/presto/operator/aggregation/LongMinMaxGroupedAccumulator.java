@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.operator.GroupByIdBlock;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.operator.aggregation.BulkInputReader.getGrownLength;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Grouped min(bigint) or max(bigint) with the same intermediate format as {@link AbstractMinMaxAggregationFunction}.
+ */
+public class LongMinMaxGroupedAccumulator
+        implements GroupedAccumulator
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(LongMinMaxGroupedAccumulator.class).instanceSize();
+
+    private final boolean max;
+    private final int inputChannel;
+    private final Optional<Integer> maskChannel;
+    private final BulkInputReader reader = new BulkInputReader();
+    private long[] values = new long[0];
+    private boolean[] nonNull = new boolean[0];
+
+    public LongMinMaxGroupedAccumulator(boolean max, List<Integer> inputChannels, Optional<Integer> maskChannel)
+    {
+        checkArgument(requireNonNull(inputChannels, "inputChannels is null").size() == 1, "expected one input channel");
+        this.max = max;
+        this.inputChannel = inputChannels.get(0);
+        this.maskChannel = requireNonNull(maskChannel, "maskChannel is null");
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE + reader.getEstimatedSize() + sizeOf(values) + sizeOf(nonNull);
+    }
+
+    @Override
+    public Type getFinalType()
+    {
+        return BIGINT;
+    }
+
+    @Override
+    public Type getIntermediateType()
+    {
+        return BIGINT;
+    }
+
+    @Override
+    public void addInput(GroupByIdBlock groupIdsBlock, Page page)
+    {
+        addValues(groupIdsBlock, page.getBlock(inputChannel), maskChannel.map(page::getBlock).orElse(null));
+    }
+
+    @Override
+    public void addIntermediate(GroupByIdBlock groupIdsBlock, Block block)
+    {
+        addValues(groupIdsBlock, block, null);
+    }
+
+    private void addValues(GroupByIdBlock groupIdsBlock, Block block, Block masks)
+    {
+        ensureCapacity(groupIdsBlock.getGroupCount());
+        reader.read(groupIdsBlock, block);
+        int positionCount = block.getPositionCount();
+        long[] groupIds = reader.getGroupIds();
+        long[] inputValues = reader.getValues();
+        boolean[] valueIsNull = reader.getValueIsNull();
+
+        // separate loops so the comparison is not re-evaluated for every position
+        if (max) {
+            for (int position = 0; position < positionCount; position++) {
+                if (valueIsNull[position] || (masks != null && !BOOLEAN.getBoolean(masks, position))) {
+                    continue;
+                }
+                int groupId = (int) groupIds[position];
+                long value = inputValues[position];
+                if (!nonNull[groupId] || value > values[groupId]) {
+                    values[groupId] = value;
+                    nonNull[groupId] = true;
+                }
+            }
+        }
+        else {
+            for (int position = 0; position < positionCount; position++) {
+                if (valueIsNull[position] || (masks != null && !BOOLEAN.getBoolean(masks, position))) {
+                    continue;
+                }
+                int groupId = (int) groupIds[position];
+                long value = inputValues[position];
+                if (!nonNull[groupId] || value < values[groupId]) {
+                    values[groupId] = value;
+                    nonNull[groupId] = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void evaluateIntermediate(int groupId, BlockBuilder output)
+    {
+        evaluateFinal(groupId, output);
+    }
+
+    @Override
+    public void evaluateFinal(int groupId, BlockBuilder output)
+    {
+        if (nonNull[groupId]) {
+            BIGINT.writeLong(output, values[groupId]);
+        }
+        else {
+            output.appendNull();
+        }
+    }
+
+    private void ensureCapacity(long groupCount)
+    {
+        int length = getGrownLength(values.length, groupCount);
+        if (length > values.length) {
+            values = Arrays.copyOf(values, length);
+            nonNull = Arrays.copyOf(nonNull, length);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation.builder;
+
+import com.facebook.presto.operator.GroupByHash;
+import com.facebook.presto.operator.GroupByIdBlock;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.operator.aggregation.GroupedAccumulator;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.operator.Operator.NOT_BLOCKED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+public class InMemoryHashAggregationBuilder
+        implements HashAggregationBuilder
+{
+    private final GroupByHash groupByHash;
+    private final List<Aggregator> aggregators;
+    private final OperatorContext operatorContext;
+    private final boolean partial;
+
+    public InMemoryHashAggregationBuilder(
+            List<AccumulatorFactory> accumulatorFactories,
+            Step step,
+            int expectedGroups,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            OperatorContext operatorContext)
+    {
+        this(accumulatorFactories, step, expectedGroups, groupByTypes, groupByChannels, hashChannel, operatorContext, Optional.empty());
+    }
+
+    /**
+     * @param overwriteIntermediateChannelOffset when present, the intermediate state of the i-th
+     * aggregation is read from channel {@code offset + i} instead of the channel the accumulator
+     * factory was bound to. Used to re-aggregate pages produced by {@link #buildHashSortedResult()}.
+     */
+    public InMemoryHashAggregationBuilder(
+            List<AccumulatorFactory> accumulatorFactories,
+            Step step,
+            int expectedGroups,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            OperatorContext operatorContext,
+            Optional<Integer> overwriteIntermediateChannelOffset)
+    {
+        this.groupByHash = createGroupByHash(operatorContext.getSession(), groupByTypes, Ints.toArray(groupByChannels), hashChannel, expectedGroups);
+        this.operatorContext = operatorContext;
+        this.partial = step.isOutputPartial();
+
+        // wrapper each function with an aggregator
+        ImmutableList.Builder<Aggregator> builder = ImmutableList.builder();
+        requireNonNull(accumulatorFactories, "accumulatorFactories is null");
+        for (int i = 0; i < accumulatorFactories.size(); i++) {
+            AccumulatorFactory accumulatorFactory = accumulatorFactories.get(i);
+            Optional<Integer> overwriteIntermediateChannel = Optional.empty();
+            if (overwriteIntermediateChannelOffset.isPresent()) {
+                overwriteIntermediateChannel = Optional.of(overwriteIntermediateChannelOffset.get() + i);
+            }
+            builder.add(new Aggregator(accumulatorFactory, step, overwriteIntermediateChannel));
+        }
+        aggregators = builder.build();
+    }
+
+    @Override
+    public void close()
+    {
+    }
+
+    @Override
+    public void processPage(Page page)
+    {
+        if (aggregators.isEmpty()) {
+            groupByHash.addPage(page);
+            return;
+        }
+
+        GroupByIdBlock groupIds = groupByHash.getGroupIds(page);
+
+        for (Aggregator aggregator : aggregators) {
+            aggregator.processPage(groupIds, page);
+        }
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return NOT_BLOCKED;
+    }
+
+    @Override
+    public boolean isFull()
+    {
+        long memorySize = getSizeInMemory();
+        memorySize -= operatorContext.getOperatorPreAllocatedMemory().toBytes();
+        if (memorySize < 0) {
+            memorySize = 0;
+        }
+        if (partial) {
+            return !operatorContext.trySetMemoryReservation(memorySize);
+        }
+        else {
+            operatorContext.setMemoryReservation(memorySize);
+            return false;
+        }
+    }
+
+    public long getSizeInMemory()
+    {
+        long sizeInMemory = groupByHash.getEstimatedSize();
+        for (Aggregator aggregator : aggregators) {
+            sizeInMemory += aggregator.getEstimatedSize();
+        }
+        return sizeInMemory;
+    }
+
+    public int getGroupCount()
+    {
+        return groupByHash.getGroupCount();
+    }
+
+    @Override
+    public Iterator<Page> buildResult()
+    {
+        List<Type> types = new ArrayList<>(groupByHash.getTypes());
+        for (Aggregator aggregator : aggregators) {
+            types.add(aggregator.getType());
+        }
+        return buildResult(types, consecutiveGroupIds(), false);
+    }
+
+    /**
+     * Produces the intermediate state of every group, ordered by the raw hash of the group.
+     * The layout of the pages is described by {@link #buildHashSortedIntermediateTypes()}; the
+     * raw hash is appended as the last channel so that several such streams can be merged.
+     */
+    public Iterator<Page> buildHashSortedResult()
+    {
+        int groupCount = groupByHash.getGroupCount();
+        long[] rawHashes = new long[groupCount];
+        int[] groupIds = new int[groupCount];
+        for (int groupId = 0; groupId < groupCount; groupId++) {
+            rawHashes[groupId] = groupByHash.getRawHash(groupId);
+            groupIds[groupId] = groupId;
+        }
+        IntArrays.quickSort(groupIds, new AbstractIntComparator()
+        {
+            @Override
+            public int compare(int leftGroupId, int rightGroupId)
+            {
+                return Long.compare(rawHashes[leftGroupId], rawHashes[rightGroupId]);
+            }
+        });
+
+        return buildResult(buildHashSortedIntermediateTypes(), groupIds, true);
+    }
+
+    public List<Type> buildHashSortedIntermediateTypes()
+    {
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        types.addAll(groupByHash.getTypes());
+        for (Aggregator aggregator : aggregators) {
+            types.add(aggregator.getIntermediateType());
+        }
+        types.add(BIGINT);
+        return types.build();
+    }
+
+    private int[] consecutiveGroupIds()
+    {
+        int[] groupIds = new int[groupByHash.getGroupCount()];
+        for (int groupId = 0; groupId < groupIds.length; groupId++) {
+            groupIds[groupId] = groupId;
+        }
+        return groupIds;
+    }
+
+    private Iterator<Page> buildResult(List<Type> types, int[] groupIds, boolean hashSortedIntermediate)
+    {
+        final PageBuilder pageBuilder = new PageBuilder(types);
+        return new AbstractIterator<Page>()
+        {
+            private int index;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (index >= groupIds.length) {
+                    return endOfData();
+                }
+
+                pageBuilder.reset();
+
+                int groupByChannelCount = groupByHash.getTypes().size();
+                while (!pageBuilder.isFull() && index < groupIds.length) {
+                    int groupId = groupIds[index];
+                    groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+
+                    pageBuilder.declarePosition();
+                    for (int i = 0; i < aggregators.size(); i++) {
+                        Aggregator aggregator = aggregators.get(i);
+                        BlockBuilder output = pageBuilder.getBlockBuilder(groupByChannelCount + i);
+                        if (hashSortedIntermediate) {
+                            aggregator.evaluateIntermediate(groupId, output);
+                        }
+                        else {
+                            aggregator.evaluate(groupId, output);
+                        }
+                    }
+                    if (hashSortedIntermediate) {
+                        BIGINT.writeLong(pageBuilder.getBlockBuilder(groupByChannelCount + aggregators.size()), groupByHash.getRawHash(groupId));
+                    }
+
+                    index++;
+                }
+
+                return pageBuilder.build();
+            }
+        };
+    }
+
+    public static List<Type> toTypes(List<? extends Type> groupByType, Step step, List<AccumulatorFactory> factories, Optional<Integer> hashChannel)
+    {
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        types.addAll(groupByType);
+        if (hashChannel.isPresent()) {
+            types.add(BIGINT);
+        }
+        for (AccumulatorFactory factory : factories) {
+            types.add(new Aggregator(factory, step, Optional.empty()).getType());
+        }
+        return types.build();
+    }
+
+    private static class Aggregator
+    {
+        private final GroupedAccumulator aggregation;
+        private final Step step;
+        private final int intermediateChannel;
+
+        private Aggregator(AccumulatorFactory accumulatorFactory, Step step, Optional<Integer> overwriteIntermediateChannel)
+        {
+            if (step.isInputRaw()) {
+                checkArgument(!overwriteIntermediateChannel.isPresent(), "raw input aggregation cannot overwrite intermediate channel");
+                intermediateChannel = -1;
+                aggregation = accumulatorFactory.createGroupedAccumulator();
+            }
+            else if (overwriteIntermediateChannel.isPresent()) {
+                intermediateChannel = overwriteIntermediateChannel.get();
+                aggregation = accumulatorFactory.createGroupedIntermediateAccumulator();
+            }
+            else {
+                checkArgument(accumulatorFactory.getInputChannels().size() == 1, "expected 1 input channel for intermediate aggregation");
+                intermediateChannel = accumulatorFactory.getInputChannels().get(0);
+                aggregation = accumulatorFactory.createGroupedIntermediateAccumulator();
+            }
+            this.step = step;
+        }
+
+        public long getEstimatedSize()
+        {
+            return aggregation.getEstimatedSize();
+        }
+
+        public Type getType()
+        {
+            if (step.isOutputPartial()) {
+                return aggregation.getIntermediateType();
+            }
+            else {
+                return aggregation.getFinalType();
+            }
+        }
+
+        public Type getIntermediateType()
+        {
+            return aggregation.getIntermediateType();
+        }
+
+        public void processPage(GroupByIdBlock groupIds, Page page)
+        {
+            if (step.isInputRaw()) {
+                aggregation.addInput(groupIds, page);
+            }
+            else {
+                aggregation.addIntermediate(groupIds, page.getBlock(intermediateChannel));
+            }
+        }
+
+        public void evaluate(int groupId, BlockBuilder output)
+        {
+            if (step.isOutputPartial()) {
+                aggregation.evaluateIntermediate(groupId, output);
+            }
+            else {
+                aggregation.evaluateFinal(groupId, output);
+            }
+        }
+
+        public void evaluateIntermediate(int groupId, BlockBuilder output)
+        {
+            aggregation.evaluateIntermediate(groupId, output);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation.builder;
+
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.FINAL;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.INTERMEDIATE;
+import static java.util.Collections.emptyIterator;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Re-aggregates a stream of hash sorted intermediate pages (see
+ * {@link InMemoryHashAggregationBuilder#buildHashSortedResult()}). Because all rows of a group
+ * share the same raw hash, the in-memory state can be flushed whenever it grows past
+ * {@code memoryLimitForMerge}, as long as the flush happens between pages that do not split a hash.
+ */
+public class MergingHashAggregationBuilder
+        implements AutoCloseable
+{
+    private final List<AccumulatorFactory> accumulatorFactories;
+    private final Step step;
+    private final int expectedGroups;
+    private final List<Type> groupByTypes;
+    private final List<Integer> groupByPartialChannels;
+    private final Optional<Integer> hashChannel;
+    private final int intermediateChannelOffset;
+    private final OperatorContext operatorContext;
+    private final Iterator<Page> sortedPages;
+    private final long memoryLimitForMerge;
+    private final long baseMemorySize;
+
+    private InMemoryHashAggregationBuilder hashAggregationBuilder;
+
+    public MergingHashAggregationBuilder(
+            List<AccumulatorFactory> accumulatorFactories,
+            Step step,
+            int expectedGroups,
+            List<Type> groupByTypes,
+            Optional<Integer> hashChannel,
+            OperatorContext operatorContext,
+            Iterator<Page> sortedPages,
+            long memoryLimitForMerge,
+            long baseMemorySize)
+    {
+        this.accumulatorFactories = ImmutableList.copyOf(requireNonNull(accumulatorFactories, "accumulatorFactories is null"));
+        // the merged pages always carry intermediate state
+        this.step = requireNonNull(step, "step is null").isOutputPartial() ? INTERMEDIATE : FINAL;
+        this.expectedGroups = expectedGroups;
+        this.groupByTypes = ImmutableList.copyOf(requireNonNull(groupByTypes, "groupByTypes is null"));
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.sortedPages = requireNonNull(sortedPages, "sortedPages is null");
+        this.memoryLimitForMerge = memoryLimitForMerge;
+        this.baseMemorySize = baseMemorySize;
+
+        // the group by columns are the leading channels of the merged pages, followed by the optional hash
+        ImmutableList.Builder<Integer> groupByPartialChannels = ImmutableList.builder();
+        for (int channel = 0; channel < groupByTypes.size(); channel++) {
+            groupByPartialChannels.add(channel);
+        }
+        this.groupByPartialChannels = groupByPartialChannels.build();
+        if (requireNonNull(hashChannel, "hashChannel is null").isPresent()) {
+            this.hashChannel = Optional.of(groupByTypes.size());
+            this.intermediateChannelOffset = groupByTypes.size() + 1;
+        }
+        else {
+            this.hashChannel = Optional.empty();
+            this.intermediateChannelOffset = groupByTypes.size();
+        }
+    }
+
+    public Iterator<Page> buildResult()
+    {
+        return new AbstractIterator<Page>()
+        {
+            private Iterator<Page> resultPages = emptyIterator();
+
+            @Override
+            protected Page computeNext()
+            {
+                while (!resultPages.hasNext()) {
+                    if (!sortedPages.hasNext()) {
+                        if (hashAggregationBuilder == null) {
+                            return endOfData();
+                        }
+                        resultPages = flush();
+                        continue;
+                    }
+
+                    if (hashAggregationBuilder == null) {
+                        rebuildHashAggregationBuilder();
+                    }
+                    hashAggregationBuilder.processPage(sortedPages.next());
+                    long sizeInMemory = hashAggregationBuilder.getSizeInMemory();
+                    updateMemoryReservation(sizeInMemory);
+                    if (sizeInMemory > memoryLimitForMerge) {
+                        resultPages = flush();
+                    }
+                }
+                return resultPages.next();
+            }
+        };
+    }
+
+    @Override
+    public void close()
+    {
+        hashAggregationBuilder = null;
+    }
+
+    private Iterator<Page> flush()
+    {
+        Iterator<Page> result = hashAggregationBuilder.buildResult();
+        hashAggregationBuilder = null;
+        return result;
+    }
+
+    private void rebuildHashAggregationBuilder()
+    {
+        hashAggregationBuilder = new InMemoryHashAggregationBuilder(
+                accumulatorFactories,
+                step,
+                expectedGroups,
+                groupByTypes,
+                groupByPartialChannels,
+                hashChannel,
+                operatorContext,
+                Optional.of(intermediateChannelOffset));
+    }
+
+    private void updateMemoryReservation(long sizeInMemory)
+    {
+        long memorySize = baseMemorySize + sizeInMemory - operatorContext.getOperatorPreAllocatedMemory().toBytes();
+        operatorContext.setMemoryReservation(Math.max(0, memorySize));
+    }
+}
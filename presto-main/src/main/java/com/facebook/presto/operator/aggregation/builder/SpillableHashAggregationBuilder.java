@@ -0,0 +1,239 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation.builder;
+
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Aggregates in memory until the state grows past {@code memoryLimitBeforeSpill}, or until the
+ * memory pool asks for the revocable memory of the operator. The state is then written to disk
+ * sorted by the raw hash of the groups, and at the end all sorted runs are merged together with
+ * the remaining in-memory state by a {@link MergingHashAggregationBuilder}.
+ */
+public class SpillableHashAggregationBuilder
+        implements HashAggregationBuilder
+{
+    private final List<AccumulatorFactory> accumulatorFactories;
+    private final Step step;
+    private final int expectedGroups;
+    private final List<Type> groupByTypes;
+    private final List<Integer> groupByChannels;
+    private final Optional<Integer> hashChannel;
+    private final OperatorContext operatorContext;
+    private final SpillerFactory spillerFactory;
+    private final long memoryLimitBeforeSpill;
+    private final long memoryLimitForMerge;
+
+    private InMemoryHashAggregationBuilder hashAggregationBuilder;
+    private Optional<Spiller> spiller = Optional.empty();
+    private Optional<MergingHashAggregationBuilder> merger = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private boolean producingOutput;
+
+    public SpillableHashAggregationBuilder(
+            List<AccumulatorFactory> accumulatorFactories,
+            Step step,
+            int expectedGroups,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            OperatorContext operatorContext,
+            DataSize memoryLimitBeforeSpill,
+            SpillerFactory spillerFactory)
+    {
+        checkArgument(!requireNonNull(step, "step is null").isOutputPartial(), "partial aggregation does not spill");
+        this.accumulatorFactories = ImmutableList.copyOf(requireNonNull(accumulatorFactories, "accumulatorFactories is null"));
+        this.step = step;
+        this.expectedGroups = expectedGroups;
+        this.groupByTypes = ImmutableList.copyOf(requireNonNull(groupByTypes, "groupByTypes is null"));
+        this.groupByChannels = ImmutableList.copyOf(requireNonNull(groupByChannels, "groupByChannels is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null").toBytes();
+        this.memoryLimitForMerge = this.memoryLimitBeforeSpill;
+
+        rebuildHashAggregationBuilder();
+    }
+
+    @Override
+    public void processPage(Page page)
+    {
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        checkSpillSucceeded();
+
+        hashAggregationBuilder.processPage(page);
+
+        long sizeInMemory = hashAggregationBuilder.getSizeInMemory();
+        if (sizeInMemory > memoryLimitBeforeSpill) {
+            spillToDisk();
+        }
+        else {
+            updateMemoryReservation(sizeInMemory);
+        }
+    }
+
+    @Override
+    public boolean isFull()
+    {
+        // memory pressure is relieved by spilling, so the builder never asks to be flushed
+        return false;
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (producingOutput || !spillInProgress.isDone() || hashAggregationBuilder.getGroupCount() == 0) {
+            return spillInProgress;
+        }
+        checkSpillSucceeded();
+        spillToDisk();
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (!producingOutput) {
+            updateMemoryReservation(hashAggregationBuilder.getSizeInMemory());
+        }
+    }
+
+    @Override
+    public Iterator<Page> buildResult()
+    {
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        checkSpillSucceeded();
+
+        // the state can not be spilled while the result is produced, so it is no longer revocable
+        producingOutput = true;
+        long revocableBytes = operatorContext.getReservedRevocableBytes();
+        operatorContext.setRevocableMemoryReservation(0);
+        operatorContext.setMemoryReservation(revocableBytes);
+
+        if (!spiller.isPresent()) {
+            return hashAggregationBuilder.buildResult();
+        }
+        return mergeFromDiskAndMemory();
+    }
+
+    @Override
+    public void close()
+    {
+        if (merger.isPresent()) {
+            merger.get().close();
+        }
+        if (spiller.isPresent()) {
+            spiller.get().close();
+        }
+    }
+
+    private void spillToDisk()
+    {
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.create(
+                    hashAggregationBuilder.buildHashSortedIntermediateTypes(),
+                    operatorContext.getSpillContext()));
+        }
+
+        // the memory of the spilled state stays reserved until the operator is unblocked and adds the next page
+        spillInProgress = spiller.get().spill(hashAggregationBuilder.buildHashSortedResult());
+        rebuildHashAggregationBuilder();
+    }
+
+    private Iterator<Page> mergeFromDiskAndMemory()
+    {
+        checkState(spiller.isPresent());
+
+        List<Type> hashSortedTypes = hashAggregationBuilder.buildHashSortedIntermediateTypes();
+        int rawHashChannel = hashSortedTypes.size() - 1;
+        List<Iterator<Page>> sortedStreams = ImmutableList.<Iterator<Page>>builder()
+                .addAll(spiller.get().getSpills())
+                .add(hashAggregationBuilder.buildHashSortedResult())
+                .build();
+
+        Iterator<Page> mergedPages = mergeSortedPages(
+                sortedStreams,
+                (left, leftPosition, right, rightPosition) -> Long.compare(
+                        BIGINT.getLong(left.getBlock(rawHashChannel), leftPosition),
+                        BIGINT.getLong(right.getBlock(rawHashChannel), rightPosition)),
+                hashSortedTypes,
+                true);
+
+        merger = Optional.of(new MergingHashAggregationBuilder(
+                accumulatorFactories,
+                step,
+                expectedGroups,
+                groupByTypes,
+                hashChannel,
+                operatorContext,
+                mergedPages,
+                memoryLimitForMerge,
+                hashAggregationBuilder.getSizeInMemory()));
+
+        return merger.get().buildResult();
+    }
+
+    private void checkSpillSucceeded()
+    {
+        // propagates the failure of the spill, if any
+        getFutureValue(spillInProgress);
+    }
+
+    private void rebuildHashAggregationBuilder()
+    {
+        hashAggregationBuilder = new InMemoryHashAggregationBuilder(
+                accumulatorFactories,
+                step,
+                expectedGroups,
+                groupByTypes,
+                groupByChannels,
+                hashChannel,
+                operatorContext);
+    }
+
+    private void updateMemoryReservation(long sizeInMemory)
+    {
+        // until the result is built, the state can be spilled on request of the memory pool
+        long memorySize = sizeInMemory - operatorContext.getOperatorPreAllocatedMemory().toBytes();
+        operatorContext.setRevocableMemoryReservation(Math.max(0, memorySize));
+    }
+}
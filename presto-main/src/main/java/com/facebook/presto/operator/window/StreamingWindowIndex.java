@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.function.WindowIndex;
+import io.airlift.slice.Slice;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Window index over a partition that is loaded into the pages index a few peer groups at a time.
+ * Positions are relative to the start of the partition, but only the rows currently
+ * loaded can be accessed, and the size of the partition is not known.
+ */
+public class StreamingWindowIndex
+        implements WindowIndex
+{
+    private final PagesIndex pagesIndex;
+    private int start;
+
+    public StreamingWindowIndex(PagesIndex pagesIndex)
+    {
+        this.pagesIndex = requireNonNull(pagesIndex, "pagesIndex is null");
+    }
+
+    /**
+     * Moves the index to the next rows of the partition, which have been loaded into the pages index.
+     *
+     * @param start the position in the partition of the first row in the pages index
+     */
+    public void setStart(int start)
+    {
+        this.start = start;
+    }
+
+    @Override
+    public int size()
+    {
+        throw new UnsupportedOperationException("Size of a streamed partition is not known");
+    }
+
+    @Override
+    public boolean isNull(int channel, int position)
+    {
+        return pagesIndex.isNull(channel, position(position));
+    }
+
+    @Override
+    public boolean getBoolean(int channel, int position)
+    {
+        return pagesIndex.getBoolean(channel, position(position));
+    }
+
+    @Override
+    public long getLong(int channel, int position)
+    {
+        return pagesIndex.getLong(channel, position(position));
+    }
+
+    @Override
+    public double getDouble(int channel, int position)
+    {
+        return pagesIndex.getDouble(channel, position(position));
+    }
+
+    @Override
+    public Slice getSlice(int channel, int position)
+    {
+        return pagesIndex.getSlice(channel, position(position));
+    }
+
+    @Override
+    public void appendTo(int channel, int position, BlockBuilder output)
+    {
+        pagesIndex.appendTo(channel, position(position), output);
+    }
+
+    private int position(int position)
+    {
+        checkState(position >= start, "position %s is no longer loaded", position);
+        checkElementIndex(position - start, pagesIndex.getPositionCount(), "position");
+        return position - start;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("start", start)
+                .add("loadedPositions", pagesIndex.getPositionCount())
+                .toString();
+    }
+}
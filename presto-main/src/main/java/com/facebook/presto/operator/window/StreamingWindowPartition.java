@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.operator.PagesHashStrategy;
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.function.WindowFunction;
+
+import java.util.List;
+
+import static com.facebook.presto.sql.tree.FrameBound.Type.CURRENT_ROW;
+import static com.facebook.presto.sql.tree.FrameBound.Type.UNBOUNDED_PRECEDING;
+import static com.facebook.presto.sql.tree.WindowFrame.Type.RANGE;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Window partition that is too large to be loaded into memory at once, so its rows are loaded
+ * into the pages index and passed through the window functions a few peer groups at a time.
+ * This is only possible for the functions accepted by {@link #isStreamable}, as the result
+ * for a row must not depend on rows after its peer group, nor on the size of the partition.
+ */
+public final class StreamingWindowPartition
+{
+    private final PagesIndex pagesIndex;
+    private final int[] outputChannels;
+    private final List<WindowFunction> windowFunctions;
+    private final FrameInfo frameInfo;
+    private final PagesHashStrategy peerGroupHashStrategy;
+    private final StreamingWindowIndex windowIndex;
+
+    // position in the partition of the first row in the pages index
+    private int loadedStart;
+
+    private int peerGroupStart;
+    private int peerGroupEnd;
+
+    private int currentPosition;
+
+    public StreamingWindowPartition(PagesIndex pagesIndex,
+            int[] outputChannels,
+            List<WindowFunction> windowFunctions,
+            FrameInfo frameInfo,
+            PagesHashStrategy peerGroupHashStrategy)
+    {
+        checkArgument(isStreamable(windowFunctions, frameInfo), "window functions can not be streamed");
+        checkArgument(pagesIndex.getPositionCount() > 0, "pagesIndex is empty");
+
+        this.pagesIndex = requireNonNull(pagesIndex, "pagesIndex is null");
+        this.outputChannels = requireNonNull(outputChannels, "outputChannels is null");
+        this.windowFunctions = requireNonNull(windowFunctions, "windowFunctions is null");
+        this.frameInfo = requireNonNull(frameInfo, "frameInfo is null");
+        this.peerGroupHashStrategy = requireNonNull(peerGroupHashStrategy, "peerGroupHashStrategy is null");
+
+        // reset functions for new partition
+        this.windowIndex = new StreamingWindowIndex(pagesIndex);
+        for (WindowFunction windowFunction : windowFunctions) {
+            windowFunction.reset(windowIndex);
+        }
+
+        currentPosition = 0;
+        updatePeerGroup();
+    }
+
+    /**
+     * Ranking functions only look at the current peer group, and aggregations over a frame from
+     * the start of the partition to the current row accumulate the rows in order.
+     */
+    public static boolean isStreamable(List<WindowFunction> windowFunctions, FrameInfo frameInfo)
+    {
+        boolean cumulativeFrame = frameInfo.getStartType() == UNBOUNDED_PRECEDING && frameInfo.getEndType() == CURRENT_ROW;
+        for (WindowFunction function : windowFunctions) {
+            if (function instanceof RowNumberFunction || function instanceof RankFunction || function instanceof DenseRankFunction) {
+                continue;
+            }
+            if (function instanceof AggregateWindowFunction && cumulativeFrame) {
+                continue;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    public boolean hasNext()
+    {
+        return currentPosition < pagesIndex.getPositionCount();
+    }
+
+    /**
+     * Continues the partition with the next rows, which replaced the processed rows in the pages index.
+     * The rows of a peer group must be loaded together.
+     */
+    public void nextRowsLoaded()
+    {
+        checkState(pagesIndex.getPositionCount() > 0, "pagesIndex is empty");
+
+        loadedStart += currentPosition;
+        windowIndex.setStart(loadedStart);
+
+        currentPosition = 0;
+        updatePeerGroup();
+    }
+
+    public void processNextRow(PageBuilder pageBuilder)
+    {
+        checkState(hasNext(), "No more rows loaded");
+
+        // copy output channels
+        pageBuilder.declarePosition();
+        int channel = 0;
+        while (channel < outputChannels.length) {
+            pagesIndex.appendTo(outputChannels[channel], currentPosition, pageBuilder.getBlockBuilder(channel));
+            channel++;
+        }
+
+        // check for new peer group
+        if (currentPosition == peerGroupEnd) {
+            updatePeerGroup();
+        }
+
+        // compute window frame, which is only used by the aggregations
+        int frameStart = -1;
+        int frameEnd = -1;
+        if (frameInfo.getEndType() == CURRENT_ROW) {
+            frameStart = 0;
+            frameEnd = loadedStart + (frameInfo.getType() == RANGE ? peerGroupEnd - 1 : currentPosition);
+        }
+
+        // process window functions
+        for (WindowFunction function : windowFunctions) {
+            function.processRow(
+                    pageBuilder.getBlockBuilder(channel),
+                    loadedStart + peerGroupStart,
+                    loadedStart + peerGroupEnd - 1,
+                    frameStart,
+                    frameEnd);
+            channel++;
+        }
+
+        currentPosition++;
+    }
+
+    private void updatePeerGroup()
+    {
+        peerGroupStart = currentPosition;
+        // find end of peer group, which is always loaded completely
+        peerGroupEnd = peerGroupStart + 1;
+        while ((peerGroupEnd < pagesIndex.getPositionCount()) && pagesIndex.positionEqualsPosition(peerGroupHashStrategy, peerGroupStart, peerGroupEnd)) {
+            peerGroupEnd++;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.facebook.presto.block.PagesSerde;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.reflect.TypeToken;
 import io.airlift.slice.OutputStreamSliceOutput;
 import io.airlift.slice.RuntimeIOException;
@@ -37,13 +38,17 @@ import java.lang.reflect.Type;
 import java.util.List;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_SERIALIZED_PAGES;
 
 @Provider
-@Produces(PRESTO_PAGES)
+@Produces({PRESTO_PAGES, PRESTO_SERIALIZED_PAGES})
 public class PagesResponseWriter
         implements MessageBodyWriter<List<Page>>
 {
     private static final MediaType PRESTO_PAGES_TYPE = MediaType.valueOf(PRESTO_PAGES);
+    private static final MediaType PRESTO_SERIALIZED_PAGES_TYPE = MediaType.valueOf(PRESTO_SERIALIZED_PAGES);
+    private static final String COMPRESSION_PARAMETER = "compression";
+    private static final String CHECKSUM_PARAMETER = "checksum";
     private static final Type LIST_GENERIC_TOKEN;
 
     static {
@@ -63,12 +68,20 @@ public class PagesResponseWriter
         this.blockEncodingSerde = blockEncodingSerde;
     }
 
+    public static MediaType serializedPagesType(boolean compression, boolean checksum)
+    {
+        return new MediaType(
+                PRESTO_SERIALIZED_PAGES_TYPE.getType(),
+                PRESTO_SERIALIZED_PAGES_TYPE.getSubtype(),
+                ImmutableMap.of(COMPRESSION_PARAMETER, String.valueOf(compression), CHECKSUM_PARAMETER, String.valueOf(checksum)));
+    }
+
     @Override
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
     {
         return List.class.isAssignableFrom(type) &&
                 TypeToken.of(genericType).resolveType(LIST_GENERIC_TOKEN).getRawType().equals(Page.class) &&
-                mediaType.isCompatible(PRESTO_PAGES_TYPE);
+                (mediaType.isCompatible(PRESTO_PAGES_TYPE) || mediaType.isCompatible(PRESTO_SERIALIZED_PAGES_TYPE));
     }
 
     @Override
@@ -88,7 +101,14 @@ public class PagesResponseWriter
             throws IOException, WebApplicationException
     {
         try {
-            PagesSerde.writePages(blockEncodingSerde, new OutputStreamSliceOutput(output), pages);
+            if (mediaType.isCompatible(PRESTO_SERIALIZED_PAGES_TYPE)) {
+                boolean compression = Boolean.parseBoolean(mediaType.getParameters().get(COMPRESSION_PARAMETER));
+                boolean checksum = Boolean.parseBoolean(mediaType.getParameters().get(CHECKSUM_PARAMETER));
+                PagesSerde.writeSerializedPages(blockEncodingSerde, new OutputStreamSliceOutput(output), compression, checksum, pages);
+            }
+            else {
+                PagesSerde.writePages(blockEncodingSerde, new OutputStreamSliceOutput(output), pages);
+            }
         }
         catch (RuntimeIOException e) {
             // EOF exception occurs when the client disconnects while writing data
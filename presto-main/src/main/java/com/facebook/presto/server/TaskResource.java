@@ -60,13 +60,17 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_SERIALIZED_PAGES;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_CHECKSUM;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
+import static com.facebook.presto.server.PagesResponseWriter.serializedPagesType;
 import static com.google.common.collect.Iterables.transform;
 import static io.airlift.concurrent.MoreFutures.addTimeout;
 import static io.airlift.http.server.AsyncResponseHandler.bindAsyncResponse;
@@ -219,11 +223,13 @@ public class TaskResource
 
     @GET
     @Path("{taskId}/results/{bufferId}/{token}")
-    @Produces(PRESTO_PAGES)
+    @Produces({PRESTO_PAGES, PRESTO_SERIALIZED_PAGES})
     public void getResults(@PathParam("taskId") TaskId taskId,
             @PathParam("bufferId") OutputBufferId bufferId,
             @PathParam("token") final long token,
             @HeaderParam(PRESTO_MAX_SIZE) DataSize maxSize,
+            @HeaderParam(PRESTO_PAGE_COMPRESSION) boolean compression,
+            @HeaderParam(PRESTO_PAGE_CHECKSUM) boolean checksum,
             @Suspended AsyncResponse asyncResponse)
             throws InterruptedException
     {
@@ -243,17 +249,23 @@ public class TaskResource
             List<Page> pages = result.getPages();
 
             GenericEntity<?> entity = null;
+            MediaType type = null;
             Status status;
             if (pages.isEmpty()) {
                 status = Status.NO_CONTENT;
             }
             else {
                 entity = new GenericEntity<>(pages, new TypeToken<List<Page>>() {}.getType());
+                // clients which ask for compression or checksums can read the serialized page format
+                if (compression || checksum) {
+                    type = serializedPagesType(compression, checksum);
+                }
                 status = Status.OK;
             }
 
             return Response.status(status)
                     .entity(entity)
+                    .type(type)
                     .header(PRESTO_TASK_INSTANCE_ID, result.getTaskInstanceId())
                     .header(PRESTO_PAGE_TOKEN, result.getToken())
                     .header(PRESTO_PAGE_NEXT_TOKEN, result.getNextToken())
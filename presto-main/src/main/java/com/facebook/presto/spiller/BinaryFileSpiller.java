@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.block.PagesSerde;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceOutput;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Objects.requireNonNull;
+
+@NotThreadSafe
+public class BinaryFileSpiller
+        implements Spiller
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final ListeningExecutorService executor;
+    private final SpillContext spillContext;
+    private final Path targetDirectory;
+    private final List<Path> spillFiles = new ArrayList<>();
+    private final AtomicLong spilledBytes = new AtomicLong();
+    private final Closer closer = Closer.create();
+
+    private ListenableFuture<?> previousSpill = immediateFuture(null);
+
+    public BinaryFileSpiller(BlockEncodingSerde blockEncodingSerde, ListeningExecutorService executor, Path spillPath, SpillContext spillContext)
+    {
+        this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.spillContext = requireNonNull(spillContext, "spillContext is null");
+        requireNonNull(spillPath, "spillPath is null");
+        try {
+            Files.createDirectories(spillPath);
+            this.targetDirectory = Files.createTempDirectory(spillPath, "presto-spill");
+        }
+        catch (IOException e) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to create spill directory", e);
+        }
+    }
+
+    @Override
+    public ListenableFuture<?> spill(Iterator<Page> pageIterator)
+    {
+        checkState(previousSpill.isDone(), "Previous spill is still in progress");
+        Path spillFile = targetDirectory.resolve(String.format("spill-%s.bin", spillFiles.size()));
+        spillFiles.add(spillFile);
+        previousSpill = executor.submit(() -> writePages(pageIterator, spillFile));
+        return previousSpill;
+    }
+
+    private void writePages(Iterator<Page> pageIterator, Path spillFile)
+    {
+        try {
+            try (SliceOutput output = new OutputStreamSliceOutput(new BufferedOutputStream(new FileOutputStream(spillFile.toFile()), BUFFER_SIZE))) {
+                PagesSerde.writePages(blockEncodingSerde, output, pageIterator);
+            }
+            long bytes = Files.size(spillFile);
+            spilledBytes.addAndGet(bytes);
+            spillContext.updateBytes(bytes);
+        }
+        catch (IOException e) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to spill pages", e);
+        }
+    }
+
+    @Override
+    public List<Iterator<Page>> getSpills()
+    {
+        checkState(previousSpill.isDone(), "Spill is still in progress");
+        ImmutableList.Builder<Iterator<Page>> spills = ImmutableList.builder();
+        for (Path spillFile : spillFiles) {
+            spills.add(readPages(spillFile));
+        }
+        return spills.build();
+    }
+
+    private Iterator<Page> readPages(Path spillFile)
+    {
+        try {
+            InputStream input = closer.register(new BufferedInputStream(new FileInputStream(spillFile.toFile()), BUFFER_SIZE));
+            return PagesSerde.readPages(blockEncodingSerde, new InputStreamSliceInput(input));
+        }
+        catch (IOException e) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to read spilled pages", e);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        previousSpill.cancel(true);
+        try {
+            closer.close();
+            for (Path spillFile : spillFiles) {
+                Files.deleteIfExists(spillFile);
+            }
+            Files.deleteIfExists(targetDirectory);
+        }
+        catch (IOException e) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to delete spill files", e);
+        }
+        finally {
+            spillContext.updateBytes(-spilledBytes.getAndSet(0));
+        }
+    }
+}
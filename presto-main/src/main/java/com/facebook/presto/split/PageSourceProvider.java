@@ -17,10 +17,20 @@ import com.facebook.presto.Session;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.predicate.TupleDomain;
 
 import java.util.List;
 
 public interface PageSourceProvider
 {
     ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns);
+
+    /**
+     * @param dynamicFilter constraint on the columns which is only known at execution time,
+     * e.g. from the build side of a join; rows outside of it may be skipped, but don't have to be
+     */
+    default ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        return createPageSource(session, split, columns);
+    }
 }
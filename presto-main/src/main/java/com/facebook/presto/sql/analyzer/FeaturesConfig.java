@@ -17,13 +17,18 @@ import com.google.common.collect.ImmutableList;
 import io.airlift.configuration.Config;
 import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.LegacyConfig;
+import io.airlift.units.DataSize;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import java.nio.file.Paths;
 import java.util.List;
 
 import static com.facebook.presto.sql.analyzer.RegexLibrary.JONI;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class FeaturesConfig
 {
@@ -42,6 +47,7 @@ public class FeaturesConfig
     private boolean distributedJoinsEnabled = true;
     private boolean colocatedJoinsEnabled;
     private boolean redistributeWrites = true;
+    private boolean distributedSort;
     private boolean optimizeMetadataQueries;
     private boolean optimizeHashGeneration = true;
     private boolean optimizeSingleDistinct = true;
@@ -58,6 +64,21 @@ public class FeaturesConfig
     private int re2JDfaRetries = 5;
     private RegexLibrary regexLibrary = JONI;
 
+    private boolean spillEnabled;
+    private DataSize operatorMemoryLimitBeforeSpill = new DataSize(4, MEGABYTE);
+    private String spillerSpillPath = Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills").toString();
+    private int spillerThreads = 4;
+    private double memoryRevokingThreshold = 0.9;
+    private double memoryRevokingTarget = 0.5;
+
+    private boolean dynamicFilteringEnabled;
+
+    private boolean joinReorderingEnabled;
+    private DataSize joinMaxBroadcastTableSize = new DataSize(100, MEGABYTE);
+
+    private boolean adaptivePartialAggregationEnabled;
+    private double adaptivePartialAggregationUniqueRowsRatio = 0.8;
+
     @NotNull
     public String getResourceGroupManager()
     {
@@ -157,6 +178,18 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isDistributedSort()
+    {
+        return distributedSort;
+    }
+
+    @Config("distributed-sort")
+    public FeaturesConfig setDistributedSort(boolean distributedSort)
+    {
+        this.distributedSort = distributedSort;
+        return this;
+    }
+
     public boolean isOptimizeMetadataQueries()
     {
         return optimizeMetadataQueries;
@@ -269,4 +302,154 @@ public class FeaturesConfig
         this.regexLibrary = regexLibrary;
         return this;
     }
+
+    public boolean isSpillEnabled()
+    {
+        return spillEnabled;
+    }
+
+    @Config("experimental.spill-enabled")
+    public FeaturesConfig setSpillEnabled(boolean spillEnabled)
+    {
+        this.spillEnabled = spillEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getOperatorMemoryLimitBeforeSpill()
+    {
+        return operatorMemoryLimitBeforeSpill;
+    }
+
+    @Config("experimental.operator-memory-limit-before-spill")
+    @ConfigDescription("Amount of memory an operator may use before it starts spilling to disk")
+    public FeaturesConfig setOperatorMemoryLimitBeforeSpill(DataSize operatorMemoryLimitBeforeSpill)
+    {
+        this.operatorMemoryLimitBeforeSpill = operatorMemoryLimitBeforeSpill;
+        return this;
+    }
+
+    @NotNull
+    public String getSpillerSpillPath()
+    {
+        return spillerSpillPath;
+    }
+
+    @Config("experimental.spiller-spill-path")
+    public FeaturesConfig setSpillerSpillPath(String spillerSpillPath)
+    {
+        this.spillerSpillPath = spillerSpillPath;
+        return this;
+    }
+
+    @Min(1)
+    public int getSpillerThreads()
+    {
+        return spillerThreads;
+    }
+
+    @Config("experimental.spiller-threads")
+    public FeaturesConfig setSpillerThreads(int spillerThreads)
+    {
+        this.spillerThreads = spillerThreads;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getMemoryRevokingThreshold()
+    {
+        return memoryRevokingThreshold;
+    }
+
+    @Config("experimental.memory-revoking-threshold")
+    @ConfigDescription("Revoke memory when memory pool is filled over threshold")
+    public FeaturesConfig setMemoryRevokingThreshold(double memoryRevokingThreshold)
+    {
+        this.memoryRevokingThreshold = memoryRevokingThreshold;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getMemoryRevokingTarget()
+    {
+        return memoryRevokingTarget;
+    }
+
+    @Config("experimental.memory-revoking-target")
+    @ConfigDescription("When revoking memory, try to revoke so much that pool is filled below target at the end")
+    public FeaturesConfig setMemoryRevokingTarget(double memoryRevokingTarget)
+    {
+        this.memoryRevokingTarget = memoryRevokingTarget;
+        return this;
+    }
+
+    public boolean isDynamicFilteringEnabled()
+    {
+        return dynamicFilteringEnabled;
+    }
+
+    @Config("experimental.dynamic-filtering-enabled")
+    @ConfigDescription("Experimental: Filter probe side table scans in the same stage using the keys collected from the build side of a join")
+    public FeaturesConfig setDynamicFilteringEnabled(boolean dynamicFilteringEnabled)
+    {
+        this.dynamicFilteringEnabled = dynamicFilteringEnabled;
+        return this;
+    }
+
+    public boolean isJoinReorderingEnabled()
+    {
+        return joinReorderingEnabled;
+    }
+
+    @Config("optimizer.reorder-joins")
+    @ConfigDescription("Experimental: Reorder joins and pick their distribution based on table statistics")
+    public FeaturesConfig setJoinReorderingEnabled(boolean joinReorderingEnabled)
+    {
+        this.joinReorderingEnabled = joinReorderingEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getJoinMaxBroadcastTableSize()
+    {
+        return joinMaxBroadcastTableSize;
+    }
+
+    @Config("optimizer.join-max-broadcast-table-size")
+    @ConfigDescription("Maximum estimated size of the build side of a join that is broadcast when joins are reordered")
+    public FeaturesConfig setJoinMaxBroadcastTableSize(DataSize joinMaxBroadcastTableSize)
+    {
+        this.joinMaxBroadcastTableSize = joinMaxBroadcastTableSize;
+        return this;
+    }
+
+    public boolean isAdaptivePartialAggregationEnabled()
+    {
+        return adaptivePartialAggregationEnabled;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-enabled")
+    @ConfigDescription("Experimental: Stop hashing in partial aggregations that do not reduce their input")
+    public FeaturesConfig setAdaptivePartialAggregationEnabled(boolean adaptivePartialAggregationEnabled)
+    {
+        this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getAdaptivePartialAggregationUniqueRowsRatio()
+    {
+        return adaptivePartialAggregationUniqueRowsRatio;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-unique-rows-ratio")
+    @ConfigDescription("Ratio of distinct groups to input rows above which a partial aggregation passes its rows through")
+    public FeaturesConfig setAdaptivePartialAggregationUniqueRowsRatio(double adaptivePartialAggregationUniqueRowsRatio)
+    {
+        this.adaptivePartialAggregationUniqueRowsRatio = adaptivePartialAggregationUniqueRowsRatio;
+        return this;
+    }
 }
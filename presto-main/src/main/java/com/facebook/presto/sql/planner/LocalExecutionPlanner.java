@@ -41,10 +41,12 @@ import com.facebook.presto.operator.HashSemiJoinOperator.HashSemiJoinOperatorFac
 import com.facebook.presto.operator.JoinFilterFunction;
 import com.facebook.presto.operator.JoinOperatorFactory;
 import com.facebook.presto.operator.LimitOperator.LimitOperatorFactory;
+import com.facebook.presto.operator.LocalDynamicFilter;
 import com.facebook.presto.operator.LocalPlannerAware;
 import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.LookupSourceSupplier;
 import com.facebook.presto.operator.MarkDistinctOperator.MarkDistinctOperatorFactory;
+import com.facebook.presto.operator.MergeOperator.MergeOperatorFactory;
 import com.facebook.presto.operator.MetadataDeleteOperator.MetadataDeleteOperatorFactory;
 import com.facebook.presto.operator.NestedLoopJoinPagesSupplier;
 import com.facebook.presto.operator.OperatorFactory;
@@ -90,11 +92,14 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.predicate.NullableValue;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.split.MappedRecordSet;
 import com.facebook.presto.split.PageSinkManager;
 import com.facebook.presto.split.PageSourceProvider;
 import com.facebook.presto.sql.gen.ExpressionCompiler;
+import com.facebook.presto.sql.gen.OrderingCompiler;
 import com.facebook.presto.sql.parser.SqlParser;
 import com.facebook.presto.sql.planner.Partitioning.ArgumentBinding;
 import com.facebook.presto.sql.planner.optimizations.IndexJoinOptimizer;
@@ -140,6 +145,7 @@ import com.facebook.presto.sql.tree.Expression;
 import com.facebook.presto.sql.tree.ExpressionTreeRewriter;
 import com.facebook.presto.sql.tree.FunctionCall;
 import com.facebook.presto.sql.tree.SymbolReference;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -147,10 +153,12 @@ import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
@@ -173,8 +181,13 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationUniqueRowsRatio;
+import static com.facebook.presto.SystemSessionProperties.getOperatorMemoryLimitBeforeSpill;
 import static com.facebook.presto.SystemSessionProperties.getTaskConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
+import static com.facebook.presto.SystemSessionProperties.isDynamicFilteringEnabled;
+import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
 import static com.facebook.presto.metadata.FunctionKind.SCALAR;
 import static com.facebook.presto.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
 import static com.facebook.presto.operator.NestedLoopBuildOperator.NestedLoopBuildOperatorFactory;
@@ -226,11 +239,13 @@ public class LocalExecutionPlanner
     private final PageSinkManager pageSinkManager;
     private final ExchangeClientSupplier exchangeClientSupplier;
     private final ExpressionCompiler compiler;
+    private final OrderingCompiler orderingCompiler = new OrderingCompiler();
     private final boolean interpreterEnabled;
     private final DataSize maxIndexMemorySize;
     private final IndexJoinLookupStats indexJoinLookupStats;
     private final DataSize maxPartialAggregationMemorySize;
     private final DataSize maxPagePartitioningBufferSize;
+    private final SpillerFactory spillerFactory;
 
     @Inject
     public LocalExecutionPlanner(
@@ -245,7 +260,8 @@ public class LocalExecutionPlanner
             ExpressionCompiler compiler,
             IndexJoinLookupStats indexJoinLookupStats,
             CompilerConfig compilerConfig,
-            TaskManagerConfig taskManagerConfig)
+            TaskManagerConfig taskManagerConfig,
+            SpillerFactory spillerFactory)
     {
         requireNonNull(compilerConfig, "compilerConfig is null");
         this.queryPerformanceFetcher = requireNonNull(queryPerformanceFetcher, "queryPerformanceFetcher is null");
@@ -261,6 +277,7 @@ public class LocalExecutionPlanner
         this.maxIndexMemorySize = requireNonNull(taskManagerConfig, "taskManagerConfig is null").getMaxIndexMemoryUsage();
         this.maxPartialAggregationMemorySize = taskManagerConfig.getMaxPartialAggregationMemoryUsage();
         this.maxPagePartitioningBufferSize = taskManagerConfig.getMaxPagePartitioningBufferSize();
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
 
         interpreterEnabled = compilerConfig.isInterpreterEnabled();
     }
@@ -404,6 +421,7 @@ public class LocalExecutionPlanner
         private final Map<Symbol, Type> types;
         private final List<DriverFactory> driverFactories;
         private final Optional<IndexSourceContext> indexSourceContext;
+        private final ListMultimap<PlanNodeId, LocalDynamicFilter> dynamicFilters;
 
         private int nextOperatorId;
         private boolean inputDriver = true;
@@ -411,19 +429,21 @@ public class LocalExecutionPlanner
 
         public LocalExecutionPlanContext(Session session, Map<Symbol, Type> types)
         {
-            this(session, types, new ArrayList<>(), Optional.empty());
+            this(session, types, new ArrayList<>(), Optional.empty(), ArrayListMultimap.create());
         }
 
         private LocalExecutionPlanContext(
                 Session session,
                 Map<Symbol, Type> types,
                 List<DriverFactory> driverFactories,
-                Optional<IndexSourceContext> indexSourceContext)
+                Optional<IndexSourceContext> indexSourceContext,
+                ListMultimap<PlanNodeId, LocalDynamicFilter> dynamicFilters)
         {
             this.session = session;
             this.types = types;
             this.driverFactories = driverFactories;
             this.indexSourceContext = indexSourceContext;
+            this.dynamicFilters = dynamicFilters;
         }
 
         public void addDriverFactory(DriverFactory driverFactory)
@@ -469,12 +489,22 @@ public class LocalExecutionPlanner
         public LocalExecutionPlanContext createSubContext()
         {
             checkState(!indexSourceContext.isPresent(), "index build plan can not have sub-contexts");
-            return new LocalExecutionPlanContext(session, types, driverFactories, indexSourceContext);
+            return new LocalExecutionPlanContext(session, types, driverFactories, indexSourceContext, dynamicFilters);
         }
 
         public LocalExecutionPlanContext createIndexSourceSubContext(IndexSourceContext indexSourceContext)
         {
-            return new LocalExecutionPlanContext(session, types, driverFactories, Optional.of(indexSourceContext));
+            return new LocalExecutionPlanContext(session, types, driverFactories, Optional.of(indexSourceContext), dynamicFilters);
+        }
+
+        public void addDynamicFilter(PlanNodeId tableScanId, LocalDynamicFilter dynamicFilter)
+        {
+            dynamicFilters.put(requireNonNull(tableScanId, "tableScanId is null"), requireNonNull(dynamicFilter, "dynamicFilter is null"));
+        }
+
+        public ListenableFuture<TupleDomain<ColumnHandle>> getDynamicFilter(PlanNodeId tableScanId)
+        {
+            return LocalDynamicFilter.combine(dynamicFilters.get(tableScanId));
         }
 
         public OptionalInt getDriverInstanceCount()
@@ -543,6 +573,26 @@ public class LocalExecutionPlanner
 
             List<Type> types = getSourceOperatorTypes(node, context.getTypes());
 
+            if (node.getOrderingScheme().isPresent()) {
+                OrderingScheme orderingScheme = node.getOrderingScheme().get();
+                Map<Symbol, Integer> layout = makeLayout(node);
+                List<Integer> sortChannels = getChannelsForSymbols(orderingScheme.getOrderBy(), layout);
+                List<SortOrder> sortOrder = orderingScheme.getOrderBy().stream()
+                        .map(orderingScheme.getOrderings()::get)
+                        .collect(toImmutableList());
+
+                OperatorFactory operatorFactory = new MergeOperatorFactory(
+                        context.getNextOperatorId(),
+                        node.getId(),
+                        exchangeClientSupplier,
+                        orderingCompiler,
+                        types,
+                        sortChannels,
+                        sortOrder);
+
+                return new PhysicalOperation(operatorFactory, layout);
+            }
+
             OperatorFactory operatorFactory = new ExchangeOperatorFactory(context.getNextOperatorId(), node.getId(), exchangeClientSupplier, types);
 
             return new PhysicalOperation(operatorFactory, makeLayout(node));
@@ -727,7 +777,10 @@ public class LocalExecutionPlanner
                     sortOrder,
                     node.getPreSortedOrderPrefix(),
                     new FrameInfo(frame.getType(), frame.getStartType(), frameStartChannel, frame.getEndType(), frameEndChannel),
-                    10_000);
+                    10_000,
+                    isSpillEnabled(context.getSession()),
+                    getOperatorMemoryLimitBeforeSpill(context.getSession()),
+                    Optional.of(spillerFactory));
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
@@ -784,7 +837,10 @@ public class LocalExecutionPlanner
                     outputChannels.build(),
                     10_000,
                     orderByChannels,
-                    sortOrder.build());
+                    sortOrder.build(),
+                    isSpillEnabled(context.getSession()),
+                    getOperatorMemoryLimitBeforeSpill(context.getSession()),
+                    Optional.of(spillerFactory));
 
             return new PhysicalOperation(operator, source.getLayout(), source);
         }
@@ -867,7 +923,7 @@ public class LocalExecutionPlanner
                 return planGlobalAggregation(context.getNextOperatorId(), node, source);
             }
 
-            return planGroupByAggregation(node, source, context.getNextOperatorId());
+            return planGroupByAggregation(node, source, context);
         }
 
         @Override
@@ -1017,7 +1073,8 @@ public class LocalExecutionPlanner
                             cursorProcessor,
                             pageProcessor,
                             columns,
-                            Lists.transform(rewrittenProjections, forMap(expressionTypes)));
+                            Lists.transform(rewrittenProjections, forMap(expressionTypes)),
+                            context.getDynamicFilter(sourceNode.getId()));
 
                     return new PhysicalOperation(operatorFactory, outputMappings);
                 }
@@ -1081,7 +1138,8 @@ public class LocalExecutionPlanner
                         () -> new GenericCursorProcessor(filterFunction, projectionFunctions),
                         () -> new GenericPageProcessor(filterFunction, projectionFunctions),
                         columns,
-                        toTypes(projectionFunctions));
+                        toTypes(projectionFunctions),
+                        context.getDynamicFilter(sourceNode.getId()));
 
                 return new PhysicalOperation(operatorFactory, outputMappings);
             }
@@ -1119,7 +1177,7 @@ public class LocalExecutionPlanner
             }
 
             List<Type> types = getSourceOperatorTypes(node, context.getTypes());
-            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, types, columns);
+            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, types, columns, context.getDynamicFilter(node.getId()));
             return new PhysicalOperation(operatorFactory, makeLayout(node));
         }
 
@@ -1459,11 +1517,14 @@ public class LocalExecutionPlanner
                 Optional<Symbol> buildHashSymbol,
                 LocalExecutionPlanContext context)
         {
+            // Register the dynamic filter before the probe is planned, so the probe side scan can pick it up
+            Optional<LocalDynamicFilter> dynamicFilter = createDynamicFilter(node, probeNode, probeSymbols, context);
+
             // Plan probe
             PhysicalOperation probeSource = probeNode.accept(this, context);
 
             // Plan build
-            LookupSourceSupplier lookupSourceSupplier = createLookupJoinSource(node, buildNode, buildSymbols, buildHashSymbol, probeSource.getLayout(), context);
+            LookupSourceSupplier lookupSourceSupplier = createLookupJoinSource(node, buildNode, buildSymbols, buildHashSymbol, probeSource.getLayout(), dynamicFilter, context);
 
             OperatorFactory operator = createLookupJoin(node, probeSource, probeSymbols, probeHashSymbol, lookupSourceSupplier, context);
 
@@ -1477,12 +1538,65 @@ public class LocalExecutionPlanner
             return new PhysicalOperation(operator, outputMappings.build(), probeSource);
         }
 
+        private Optional<LocalDynamicFilter> createDynamicFilter(JoinNode node, PlanNode probeNode, List<Symbol> probeSymbols, LocalExecutionPlanContext context)
+        {
+            // only rows without a match on the build side can be dropped, so outer probes can not be filtered
+            if (!isDynamicFilteringEnabled(context.getSession()) || (node.getType() != INNER && node.getType() != RIGHT)) {
+                return Optional.empty();
+            }
+
+            // follow the probe symbols down to a table scan in the same pipeline
+            // TODO: filter probe scans in other stages. The probe of a partitioned join reads from a remote
+            // exchange, so the walk below stops there and no filter is created. Supporting it needs the build
+            // tasks to report their summaries to the coordinator, which would merge the summaries of all
+            // partitions and send the result to the tasks that scan the probe table.
+            List<Symbol> symbols = new ArrayList<>(probeSymbols);
+            PlanNode current = probeNode;
+            while (!(current instanceof TableScanNode)) {
+                if (current instanceof FilterNode) {
+                    current = ((FilterNode) current).getSource();
+                }
+                else if (current instanceof ProjectNode) {
+                    Map<Symbol, Expression> assignments = ((ProjectNode) current).getAssignments();
+                    for (int i = 0; i < symbols.size(); i++) {
+                        Expression expression = symbols.get(i) == null ? null : assignments.get(symbols.get(i));
+                        symbols.set(i, expression instanceof SymbolReference ? Symbol.from(expression) : null);
+                    }
+                    current = ((ProjectNode) current).getSource();
+                }
+                else if (current instanceof JoinNode && ((JoinNode) current).getType() == INNER) {
+                    current = ((JoinNode) current).getLeft();
+                }
+                else {
+                    return Optional.empty();
+                }
+            }
+
+            TableScanNode tableScan = (TableScanNode) current;
+            ImmutableMap.Builder<Integer, ColumnHandle> probeColumns = ImmutableMap.builder();
+            for (int i = 0; i < symbols.size(); i++) {
+                Symbol symbol = symbols.get(i);
+                if (symbol != null && tableScan.getAssignments().containsKey(symbol)) {
+                    probeColumns.put(i, tableScan.getAssignments().get(symbol));
+                }
+            }
+            Map<Integer, ColumnHandle> columns = probeColumns.build();
+            if (columns.isEmpty()) {
+                return Optional.empty();
+            }
+
+            LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(columns, 1_000);
+            context.addDynamicFilter(tableScan.getId(), dynamicFilter);
+            return Optional.of(dynamicFilter);
+        }
+
         private LookupSourceSupplier createLookupJoinSource(
                 JoinNode node,
                 PlanNode buildNode,
                 List<Symbol> buildSymbols,
                 Optional<Symbol> buildHashSymbol,
                 Map<Symbol, Integer> probeLayout,
+                Optional<LocalDynamicFilter> dynamicFilter,
                 LocalExecutionPlanContext context)
         {
             LocalExecutionPlanContext buildContext = context.createSubContext();
@@ -1507,7 +1621,8 @@ public class LocalExecutionPlanner
                         buildHashChannel,
                         node.getType() == RIGHT || node.getType() == FULL,
                         filterFunction,
-                        10_000);
+                        10_000,
+                        dynamicFilter);
                 operatorFactory = hashBuilderOperatorFactory;
                 lookupSourceSupplier = hashBuilderOperatorFactory.getLookupSourceSupplier();
             }
@@ -1522,7 +1637,11 @@ public class LocalExecutionPlanner
                         node.getType() == RIGHT || node.getType() == FULL,
                         filterFunction,
                         10_000,
-                        buildContext.getDriverInstanceCount().getAsInt());
+                        buildContext.getDriverInstanceCount().getAsInt(),
+                        isSpillEnabled(context.getSession()),
+                        getOperatorMemoryLimitBeforeSpill(context.getSession()),
+                        Optional.of(spillerFactory),
+                        dynamicFilter);
                 operatorFactory = hashBuilderOperatorFactory;
                 lookupSourceSupplier = hashBuilderOperatorFactory.getLookupSourceSupplier();
             }
@@ -1828,7 +1947,7 @@ public class LocalExecutionPlanner
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
 
-        private PhysicalOperation planGroupByAggregation(AggregationNode node, PhysicalOperation source, int operatorId)
+        private PhysicalOperation planGroupByAggregation(AggregationNode node, PhysicalOperation source, LocalExecutionPlanContext context)
         {
             List<Symbol> groupBySymbols = node.getGroupBy();
 
@@ -1874,7 +1993,7 @@ public class LocalExecutionPlanner
             Optional<Integer> hashChannel = node.getHashSymbol().map(channelGetter(source));
 
             OperatorFactory operatorFactory = new HashAggregationOperatorFactory(
-                    operatorId,
+                    context.getNextOperatorId(),
                     node.getId(),
                     groupByTypes,
                     groupByChannels,
@@ -1882,7 +2001,12 @@ public class LocalExecutionPlanner
                     accumulatorFactories,
                     hashChannel,
                     10_000,
-                    maxPartialAggregationMemorySize);
+                    maxPartialAggregationMemorySize,
+                    isSpillEnabled(context.getSession()),
+                    getOperatorMemoryLimitBeforeSpill(context.getSession()),
+                    Optional.of(spillerFactory),
+                    isAdaptivePartialAggregationEnabled(context.getSession()),
+                    getAdaptivePartialAggregationUniqueRowsRatio(context.getSession()));
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
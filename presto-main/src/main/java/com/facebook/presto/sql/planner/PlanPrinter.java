@@ -22,6 +22,7 @@ import com.facebook.presto.metadata.OperatorNotFoundException;
 import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.metadata.TableHandle;
 import com.facebook.presto.metadata.TableLayout;
+import com.facebook.presto.operator.HashAggregationOperator.PartialAggregationInfo;
 import com.facebook.presto.operator.OperatorStats;
 import com.facebook.presto.operator.PipelineStats;
 import com.facebook.presto.operator.TaskStats;
@@ -204,6 +205,7 @@ public class PlanPrinter
         Map<PlanNodeId, Long> outputPositions = new HashMap<>();
         Map<PlanNodeId, Long> outputBytes = new HashMap<>();
         Map<PlanNodeId, Long> wallMillis = new HashMap<>();
+        Map<PlanNodeId, PartialAggregationInfo> partialAggregationInfos = new HashMap<>();
 
         for (PipelineStats pipelineStats : taskStats.getPipelines()) {
             Map<PlanNodeId, Long> pipelineOutputPositions = new HashMap<>();
@@ -215,6 +217,8 @@ public class PlanPrinter
                 PlanNodeId planNodeId = operatorStats.getPlanNodeId();
                 long wall = operatorStats.getAddInputWall().toMillis() + operatorStats.getGetOutputWall().toMillis() + operatorStats.getFinishWall().toMillis();
                 wallMillis.merge(planNodeId, wall, Long::sum);
+                getPartialAggregationInfo(operatorStats.getInfo())
+                        .ifPresent(info -> partialAggregationInfos.merge(planNodeId, info, PartialAggregationInfo::mergeWith));
 
                 // An "internal" pipeline like a hash build, links to another pipeline which is the actual output for this plan node
                 if (i == operatorSummaries.size() - 1 && !pipelineStats.isOutputPipeline()) {
@@ -237,19 +241,45 @@ public class PlanPrinter
         List<PlanNodeStats> stats = new ArrayList<>();
         for (Map.Entry<PlanNodeId, Long> entry : wallMillis.entrySet()) {
             if (outputPositions.containsKey(entry.getKey())) {
-                stats.add(new PlanNodeStats(entry.getKey(), new Duration(entry.getValue(), MILLISECONDS), outputPositions.get(entry.getKey()), succinctDataSize(outputBytes.get(entry.getKey()), BYTE)));
+                stats.add(new PlanNodeStats(
+                        entry.getKey(),
+                        new Duration(entry.getValue(), MILLISECONDS),
+                        outputPositions.get(entry.getKey()),
+                        succinctDataSize(outputBytes.get(entry.getKey()), BYTE),
+                        Optional.ofNullable(partialAggregationInfos.get(entry.getKey()))));
             }
             else {
                 // It's possible there will be no output stats because all the pipelines that we observed were non-output.
                 // For example in a query like SELECT * FROM a JOIN b ON c = d LIMIT 1
                 // It's possible to observe stats after the build starts, but before the probe does
                 // and therefore only have wall time, but no output stats
-                stats.add(new PlanNodeStats(entry.getKey(), new Duration(entry.getValue(), MILLISECONDS)));
+                stats.add(new PlanNodeStats(entry.getKey(), new Duration(entry.getValue(), MILLISECONDS), Optional.ofNullable(partialAggregationInfos.get(entry.getKey()))));
             }
         }
         return stats;
     }
 
+    private static Optional<PartialAggregationInfo> getPartialAggregationInfo(Object info)
+    {
+        if (info instanceof PartialAggregationInfo) {
+            return Optional.of((PartialAggregationInfo) info);
+        }
+        // operator info of remote tasks is not typed after it has been deserialized
+        if (info instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) info;
+            Object aggregatedRows = map.get("aggregatedRows");
+            Object aggregatedGroups = map.get("aggregatedGroups");
+            Object passThroughRows = map.get("passThroughRows");
+            if (map.size() == 3 && aggregatedRows instanceof Number && aggregatedGroups instanceof Number && passThroughRows instanceof Number) {
+                return Optional.of(new PartialAggregationInfo(
+                        ((Number) aggregatedRows).longValue(),
+                        ((Number) aggregatedGroups).longValue(),
+                        ((Number) passThroughRows).longValue()));
+            }
+        }
+        return Optional.empty();
+    }
+
     public static String textDistributedPlan(SubPlan plan, Metadata metadata, Session session)
     {
         StringBuilder builder = new StringBuilder();
@@ -381,6 +411,20 @@ public class PlanPrinter
                 .append(format("Cost: %s, Output: %s\n", fractionString, outputString));
     }
 
+    private void printPartialAggregationStats(int indent, PlanNodeId planNodeId)
+    {
+        if (!stats.isPresent() || !stats.get().containsKey(planNodeId)) {
+            return;
+        }
+        Optional<PartialAggregationInfo> info = stats.get().get(planNodeId).getPartialAggregationInfo();
+        if (info.isPresent()) {
+            print(indent, "Partial aggregation: %s rows into %s groups, %s rows passed through",
+                    info.get().getAggregatedRows(),
+                    info.get().getAggregatedGroups(),
+                    info.get().getPassThroughRows());
+        }
+    }
+
     private static String indentString(int indent)
     {
         return Strings.repeat("    ", indent);
@@ -418,7 +462,12 @@ public class PlanPrinter
             }
             node.getFilter().ifPresent(expression -> joinExpressions.add(expression));
 
-            print(indent, "- %s[%s] => [%s]", node.getType().getJoinLabel(), Joiner.on(" AND ").join(joinExpressions), formatOutputs(node.getOutputSymbols()));
+            if (node.getDistributionType().isPresent()) {
+                print(indent, "- %s[%s][distribution = %s] => [%s]", node.getType().getJoinLabel(), Joiner.on(" AND ").join(joinExpressions), node.getDistributionType().get(), formatOutputs(node.getOutputSymbols()));
+            }
+            else {
+                print(indent, "- %s[%s] => [%s]", node.getType().getJoinLabel(), Joiner.on(" AND ").join(joinExpressions), formatOutputs(node.getOutputSymbols()));
+            }
             printStats(indent + 2, node.getId());
             node.getLeft().accept(this, indent + 1);
             node.getRight().accept(this, indent + 1);
@@ -502,6 +551,7 @@ public class PlanPrinter
 
             print(indent, "- Aggregate%s%s%s => [%s]", type, key, sampleWeight, formatOutputs(node.getOutputSymbols()));
             printStats(indent + 2, node.getId());
+            printPartialAggregationStats(indent + 2, node.getId());
 
             for (Map.Entry<Symbol, FunctionCall> entry : node.getAggregations().entrySet()) {
                 if (node.getMasks().containsKey(entry.getKey())) {
@@ -751,7 +801,15 @@ public class PlanPrinter
         @Override
         public Void visitRemoteSource(RemoteSourceNode node, Integer indent)
         {
-            print(indent, "- RemoteSource[%s] => [%s]", Joiner.on(',').join(node.getSourceFragmentIds()), formatOutputs(node.getOutputSymbols()));
+            if (node.getOrderingScheme().isPresent()) {
+                print(indent, "- RemoteMerge[%s] [%s] => [%s]",
+                        Joiner.on(',').join(node.getSourceFragmentIds()),
+                        formatOrderingScheme(node.getOrderingScheme().get()),
+                        formatOutputs(node.getOutputSymbols()));
+            }
+            else {
+                print(indent, "- RemoteSource[%s] => [%s]", Joiner.on(',').join(node.getSourceFragmentIds()), formatOutputs(node.getOutputSymbols()));
+            }
             printStats(indent + 2, node.getId());
 
             return null;
@@ -826,6 +884,11 @@ public class PlanPrinter
                         Joiner.on(", ").join(node.getPartitioningScheme().getPartitioning().getArguments()),
                         formatOutputs(node.getOutputSymbols()));
             }
+            else if (node.getOrderingScheme().isPresent()) {
+                print(indent, "- RemoteMergeExchange[%s] => %s",
+                        formatOrderingScheme(node.getOrderingScheme().get()),
+                        formatOutputs(node.getOutputSymbols()));
+            }
             else {
                 print(indent, "- %sExchange[%s%s] => %s",
                         UPPER_UNDERSCORE.to(CaseFormat.UPPER_CAMEL, node.getScope().toString()),
@@ -885,6 +948,11 @@ public class PlanPrinter
             return Joiner.on(", ").join(Iterables.transform(symbols, input -> input + ":" + types.get(input).getDisplayName()));
         }
 
+        private String formatOrderingScheme(OrderingScheme orderingScheme)
+        {
+            return Joiner.on(", ").join(Iterables.transform(orderingScheme.getOrderBy(), input -> input + " " + orderingScheme.getOrderings().get(input)));
+        }
+
         private void printConstraint(int indent, ColumnHandle column, TupleDomain<ColumnHandle> constraint)
         {
             checkArgument(!constraint.isNone());
@@ -976,23 +1044,30 @@ public class PlanPrinter
         private final Duration wallTime;
         private final Optional<Long> outputPositions;
         private final Optional<DataSize> outputDataSize;
+        private final Optional<PartialAggregationInfo> partialAggregationInfo;
 
-        public PlanNodeStats(PlanNodeId planNodeId, Duration wallTime)
+        public PlanNodeStats(PlanNodeId planNodeId, Duration wallTime, Optional<PartialAggregationInfo> partialAggregationInfo)
         {
-            this(planNodeId, wallTime, Optional.empty(), Optional.empty());
+            this(planNodeId, wallTime, Optional.empty(), Optional.empty(), partialAggregationInfo);
         }
 
-        public PlanNodeStats(PlanNodeId planNodeId, Duration wallTime, long outputPositions, DataSize outputDataSize)
+        public PlanNodeStats(PlanNodeId planNodeId, Duration wallTime, long outputPositions, DataSize outputDataSize, Optional<PartialAggregationInfo> partialAggregationInfo)
         {
-            this(planNodeId, wallTime, Optional.of(outputPositions), Optional.of(outputDataSize));
+            this(planNodeId, wallTime, Optional.of(outputPositions), Optional.of(outputDataSize), partialAggregationInfo);
         }
 
-        private PlanNodeStats(PlanNodeId planNodeId, Duration wallTime, Optional<Long> outputPositions, Optional<DataSize> outputDataSize)
+        private PlanNodeStats(
+                PlanNodeId planNodeId,
+                Duration wallTime,
+                Optional<Long> outputPositions,
+                Optional<DataSize> outputDataSize,
+                Optional<PartialAggregationInfo> partialAggregationInfo)
         {
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
             this.wallTime = requireNonNull(wallTime, "wallTime is null");
             this.outputPositions = outputPositions;
             this.outputDataSize = outputDataSize;
+            this.partialAggregationInfo = requireNonNull(partialAggregationInfo, "partialAggregationInfo is null");
         }
 
         public PlanNodeId getPlanNodeId()
@@ -1015,6 +1090,11 @@ public class PlanPrinter
             return outputDataSize;
         }
 
+        public Optional<PartialAggregationInfo> getPartialAggregationInfo()
+        {
+            return partialAggregationInfo;
+        }
+
         public static PlanNodeStats merge(PlanNodeStats planNodeStats1, PlanNodeStats planNodeStats2)
         {
             checkArgument(planNodeStats1.getPlanNodeId().equals(planNodeStats2.getPlanNodeId()), "planNodeIds do not match. %s != %s", planNodeStats1.getPlanNodeId(), planNodeStats2.getPlanNodeId());
@@ -1038,11 +1118,22 @@ public class PlanPrinter
             else {
                 outputDataSize = planNodeStats2.getOutputDataSize();
             }
+            Optional<PartialAggregationInfo> partialAggregationInfo;
+            if (planNodeStats1.getPartialAggregationInfo().isPresent() && planNodeStats2.getPartialAggregationInfo().isPresent()) {
+                partialAggregationInfo = Optional.of(planNodeStats1.getPartialAggregationInfo().get().mergeWith(planNodeStats2.getPartialAggregationInfo().get()));
+            }
+            else if (planNodeStats1.getPartialAggregationInfo().isPresent()) {
+                partialAggregationInfo = planNodeStats1.getPartialAggregationInfo();
+            }
+            else {
+                partialAggregationInfo = planNodeStats2.getPartialAggregationInfo();
+            }
             return new PlanNodeStats(
                     planNodeStats1.getPlanNodeId(),
                     new Duration(planNodeStats1.getWallTime().toMillis() + planNodeStats2.getWallTime().toMillis(), MILLISECONDS),
                     outputPositions,
-                    outputDataSize);
+                    outputDataSize,
+                    partialAggregationInfo);
         }
     }
 }
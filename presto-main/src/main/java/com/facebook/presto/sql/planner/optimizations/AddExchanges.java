@@ -32,6 +32,7 @@ import com.facebook.presto.sql.parser.SqlParser;
 import com.facebook.presto.sql.planner.DomainTranslator;
 import com.facebook.presto.sql.planner.ExpressionInterpreter;
 import com.facebook.presto.sql.planner.LookupSymbolResolver;
+import com.facebook.presto.sql.planner.OrderingScheme;
 import com.facebook.presto.sql.planner.Partitioning;
 import com.facebook.presto.sql.planner.PartitioningScheme;
 import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
@@ -119,6 +120,7 @@ import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.PARTIAL;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.Scope.REMOTE;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.Type.GATHER;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.gatheringExchange;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.mergingExchange;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.partitionedExchange;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.replicatedExchange;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.FULL;
@@ -195,6 +197,7 @@ public class AddExchanges
         private final boolean distributedJoins;
         private final boolean preferStreamingOperators;
         private final boolean redistributeWrites;
+        private final boolean distributedSort;
 
         public Rewriter(SymbolAllocator allocator, PlanNodeIdAllocator idAllocator, SymbolAllocator symbolAllocator, Session session)
         {
@@ -205,6 +208,7 @@ public class AddExchanges
             this.distributedJoins = SystemSessionProperties.isDistributedJoinEnabled(session);
             this.distributedIndexJoins = SystemSessionProperties.isDistributedIndexJoinEnabled(session);
             this.redistributeWrites = SystemSessionProperties.isRedistributeWrites(session);
+            this.distributedSort = SystemSessionProperties.isDistributedSortEnabled(session);
             this.preferStreamingOperators = SystemSessionProperties.preferStreamingOperators(session);
         }
 
@@ -559,6 +563,23 @@ public class AddExchanges
         @Override
         public PlanWithProperties visitSort(SortNode node, Context context)
         {
+            if (distributedSort) {
+                PlanWithProperties child = planChild(node, context.withPreferredProperties(PreferredProperties.any()));
+
+                if (!child.getProperties().isSingleNode()) {
+                    // sort every partition where it is produced and merge the sorted streams in the exchange
+                    child = withDerivedProperties(
+                            new SortNode(idAllocator.getNextId(), child.getNode(), node.getOrderBy(), node.getOrderings()),
+                            child.getProperties());
+
+                    return withDerivedProperties(
+                            mergingExchange(idAllocator.getNextId(), child.getNode(), new OrderingScheme(node.getOrderBy(), node.getOrderings())),
+                            child.getProperties());
+                }
+
+                return rebaseAndDeriveProperties(node, child);
+            }
+
             PlanWithProperties child = planChild(node, context.withPreferredProperties(PreferredProperties.undistributed()));
 
             if (!child.getProperties().isSingleNode()) {
@@ -834,8 +855,13 @@ public class AddExchanges
             PlanWithProperties left;
             PlanWithProperties right;
 
+            // a distribution picked by the cost based optimizer takes precedence over the session default
+            boolean distributedJoin = node.getDistributionType()
+                    .map(distributionType -> distributionType == JoinNode.DistributionType.PARTITIONED)
+                    .orElse(distributedJoins);
+
             boolean isCrossJoin = type == INNER && leftSymbols.isEmpty();
-            if ((distributedJoins && !isCrossJoin && !isScalar(node.getRight())) || (type == FULL) || (type == RIGHT)) {
+            if ((distributedJoin && !isCrossJoin && !isScalar(node.getRight())) || (type == FULL) || (type == RIGHT)) {
                 // The implementation of full outer join only works if the data is hash partitioned. See LookupJoinOperators#buildSideOuterJoinUnvisitedPositions
 
                 SetMultimap<Symbol, Symbol> rightToLeft = createMapping(rightSymbols, leftSymbols);
@@ -843,7 +869,7 @@ public class AddExchanges
 
                 left = node.getLeft().accept(this, context.withPreferredProperties(PreferredProperties.partitioned(ImmutableSet.copyOf(leftSymbols))));
 
-                if (left.getProperties().isNodePartitionedOn(leftSymbols) && !(left.getProperties().isSingleNode() && distributedJoins)) {
+                if (left.getProperties().isNodePartitionedOn(leftSymbols) && !(left.getProperties().isSingleNode() && distributedJoin)) {
                     Partitioning rightPartitioning = left.getProperties().translate(createTranslator(leftToRight)).getNodePartitioning().get();
                     right = node.getRight().accept(this, context.withPreferredProperties(PreferredProperties.partitioned(rightPartitioning)));
                     if (!right.getProperties().isNodePartitionedWith(left.getProperties(), rightToLeft::get)) {
@@ -855,7 +881,7 @@ public class AddExchanges
                 else {
                     right = node.getRight().accept(this, context.withPreferredProperties(PreferredProperties.partitioned(ImmutableSet.copyOf(rightSymbols))));
 
-                    if (right.getProperties().isNodePartitionedOn(rightSymbols) && !(right.getProperties().isSingleNode() && distributedJoins)) {
+                    if (right.getProperties().isNodePartitionedOn(rightSymbols) && !(right.getProperties().isSingleNode() && distributedJoin)) {
                         Partitioning leftPartitioning = right.getProperties().translate(createTranslator(rightToLeft)).getNodePartitioning().get();
                         left = withDerivedProperties(
                                 partitionedExchange(idAllocator.getNextId(), REMOTE, left.getNode(), new PartitioningScheme(leftPartitioning, left.getNode().getOutputSymbols())),
@@ -909,7 +935,8 @@ public class AddExchanges
                     node.getCriteria(),
                     node.getFilter(),
                     node.getLeftHashSymbol(),
-                    node.getRightHashSymbol());
+                    node.getRightHashSymbol(),
+                    node.getDistributionType());
 
             return new PlanWithProperties(result, deriveProperties(result, ImmutableList.of(left.getProperties(), right.getProperties())));
         }
@@ -290,7 +290,8 @@ public class HashGenerationOptimizer
                                 node.getCriteria(),
                                 node.getFilter(),
                                 Optional.empty(),
-                                Optional.empty()),
+                                Optional.empty(),
+                                node.getDistributionType()),
                         allHashSymbols);
             }
 
@@ -324,7 +325,8 @@ public class HashGenerationOptimizer
                             node.getCriteria(),
                             node.getFilter(),
                             Optional.of(leftHashSymbol),
-                            Optional.of(rightHashSymbol)),
+                            Optional.of(rightHashSymbol),
+                            node.getDistributionType()),
                     allHashSymbols);
         }
 
@@ -498,7 +500,8 @@ public class HashGenerationOptimizer
                             node.getScope(),
                             partitioningScheme,
                             newSources.build(),
-                            newInputs.build()),
+                            newInputs.build(),
+                            node.getOrderingScheme()),
                     newHashSymbols);
         }
 
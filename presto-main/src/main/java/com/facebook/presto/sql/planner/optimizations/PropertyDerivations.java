@@ -442,8 +442,14 @@ class PropertyDerivations
             switch (node.getType()) {
                 case GATHER:
                     boolean coordinatorOnly = node.getPartitioningScheme().getPartitioning().getHandle().isCoordinatorOnly();
+                    List<SortingProperty<Symbol>> sortingProperties = node.getOrderingScheme()
+                            .map(orderingScheme -> orderingScheme.getOrderBy().stream()
+                                    .map(column -> new SortingProperty<>(column, orderingScheme.getOrderings().get(column)))
+                                    .collect(toImmutableList()))
+                            .orElse(ImmutableList.of());
                     return ActualProperties.builder()
                             .global(coordinatorOnly ? coordinatorSingleStreamPartition() : singleStreamPartition())
+                            .local(sortingProperties)
                             .constants(constants)
                             .build();
                 case REPARTITION:
@@ -0,0 +1,331 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.StatsCalculator;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.type.FixedWidthType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.JoinNode.DistributionType;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SimplePlanRewriter;
+import com.facebook.presto.sql.tree.Expression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.SystemSessionProperties.getJoinMaxBroadcastTableSize;
+import static com.facebook.presto.SystemSessionProperties.isJoinReorderingEnabled;
+import static com.facebook.presto.cost.StatsCalculator.estimateJoin;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reorders trees of inner joins using the estimated size of their sources, and picks
+ * a broadcast or partitioned distribution for each join whose build side can be estimated.
+ * <p>
+ * The join order is chosen greedily. The largest source is the probe side of the bottom join,
+ * and the source that yields the smallest join result is joined next. The new order is only
+ * used if its cost, which is the sum of the rows of the build sides and of the join results,
+ * is lower than the cost of the order written in the query.
+ */
+public class ReorderJoins
+        implements PlanOptimizer
+{
+    // assumed size of a value of a variable width type, as the statistics do not include data sizes
+    private static final int VARIABLE_WIDTH_VALUE_SIZE = 32;
+
+    private final StatsCalculator statsCalculator;
+
+    public ReorderJoins(Metadata metadata)
+    {
+        this.statsCalculator = new StatsCalculator(requireNonNull(metadata, "metadata is null"));
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        requireNonNull(plan, "plan is null");
+        requireNonNull(session, "session is null");
+        requireNonNull(types, "types is null");
+        requireNonNull(symbolAllocator, "symbolAllocator is null");
+        requireNonNull(idAllocator, "idAllocator is null");
+
+        if (!isJoinReorderingEnabled(session)) {
+            return plan;
+        }
+        return SimplePlanRewriter.rewriteWith(new Rewriter(session, types, idAllocator), plan);
+    }
+
+    private class Rewriter
+            extends SimplePlanRewriter<Void>
+    {
+        private final Session session;
+        private final Map<Symbol, Type> types;
+        private final PlanNodeIdAllocator idAllocator;
+
+        public Rewriter(Session session, Map<Symbol, Type> types, PlanNodeIdAllocator idAllocator)
+        {
+            this.session = requireNonNull(session, "session is null");
+            this.types = requireNonNull(types, "types is null");
+            this.idAllocator = requireNonNull(idAllocator, "idAllocator is null");
+        }
+
+        @Override
+        public PlanNode visitJoin(JoinNode node, RewriteContext<Void> context)
+        {
+            if (!isReorderable(node)) {
+                JoinNode rewritten = (JoinNode) context.defaultRewrite(node);
+                if ((rewritten.getType() != INNER && rewritten.getType() != LEFT) || rewritten.getCriteria().isEmpty()) {
+                    return rewritten;
+                }
+                return withDistribution(rewritten, statsCalculator.calculateStats(rewritten.getRight(), session));
+            }
+
+            List<PlanNode> sources = new ArrayList<>();
+            List<EquiJoinClause> criteria = new ArrayList<>();
+            flatten(node, sources, criteria);
+
+            Map<PlanNode, JoinTree> leaves = new IdentityHashMap<>();
+            for (PlanNode source : sources) {
+                PlanNode rewritten = context.rewrite(source);
+                PlanNodeStatsEstimate stats = statsCalculator.calculateStats(rewritten, session);
+                if (stats.getOutputRowCount().isValueUnknown()) {
+                    // without an estimate of every source, keep the order of the query
+                    return context.defaultRewrite(node);
+                }
+                leaves.put(source, new JoinTree(rewritten, stats, 0));
+            }
+
+            JoinTree original = rebuild(node, leaves);
+            Optional<JoinTree> reordered = reorder(sources.stream().map(leaves::get).collect(toImmutableList()), criteria);
+            if (!reordered.isPresent() || reordered.get().getCost() >= original.getCost()) {
+                return original.getNode();
+            }
+
+            PlanNode result = reordered.get().getNode();
+            if (result.getOutputSymbols().equals(node.getOutputSymbols())) {
+                return result;
+            }
+
+            // restore the order of the output symbols expected by the parent
+            ImmutableMap.Builder<Symbol, Expression> assignments = ImmutableMap.builder();
+            for (Symbol symbol : node.getOutputSymbols()) {
+                assignments.put(symbol, symbol.toSymbolReference());
+            }
+            return new ProjectNode(idAllocator.getNextId(), result, assignments.build());
+        }
+
+        private JoinTree rebuild(PlanNode node, Map<PlanNode, JoinTree> leaves)
+        {
+            if (leaves.containsKey(node)) {
+                return leaves.get(node);
+            }
+
+            JoinNode join = (JoinNode) node;
+            JoinTree left = rebuild(join.getLeft(), leaves);
+            JoinTree right = rebuild(join.getRight(), leaves);
+            return join(join.getId(), left, right, join.getCriteria());
+        }
+
+        private Optional<JoinTree> reorder(List<JoinTree> sources, List<EquiJoinClause> criteria)
+        {
+            List<JoinTree> remaining = new ArrayList<>(sources);
+            JoinTree current = remaining.get(0);
+            for (JoinTree source : remaining) {
+                if (getRowCount(source) > getRowCount(current)) {
+                    current = source;
+                }
+            }
+            remaining.remove(current);
+
+            while (!remaining.isEmpty()) {
+                JoinTree best = null;
+                List<EquiJoinClause> bestCriteria = null;
+                PlanNodeStatsEstimate bestStats = null;
+                for (JoinTree candidate : remaining) {
+                    List<EquiJoinClause> candidateCriteria = getJoinCriteria(criteria, current.getNode(), candidate.getNode());
+                    if (candidateCriteria.isEmpty()) {
+                        continue;
+                    }
+                    PlanNodeStatsEstimate stats = estimateJoin(INNER, candidateCriteria, current.getStats(), candidate.getStats());
+                    if (best == null ||
+                            stats.getOutputRowCount().getValue() < bestStats.getOutputRowCount().getValue() ||
+                            (stats.getOutputRowCount().getValue() == bestStats.getOutputRowCount().getValue() && getRowCount(candidate) < getRowCount(best))) {
+                        best = candidate;
+                        bestCriteria = candidateCriteria;
+                        bestStats = stats;
+                    }
+                }
+                if (best == null) {
+                    // the remaining sources would be cross joined
+                    return Optional.empty();
+                }
+                current = join(idAllocator.getNextId(), current, best, bestCriteria);
+                remaining.remove(best);
+            }
+            return Optional.of(current);
+        }
+
+        private JoinTree join(PlanNodeId id, JoinTree left, JoinTree right, List<EquiJoinClause> criteria)
+        {
+            PlanNodeStatsEstimate stats = estimateJoin(INNER, criteria, left.getStats(), right.getStats());
+            JoinNode join = new JoinNode(
+                    id,
+                    INNER,
+                    left.getNode(),
+                    right.getNode(),
+                    criteria,
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    getDistributionType(right.getNode(), right.getStats()));
+            double cost = left.getCost() + right.getCost() + getRowCount(right) + stats.getOutputRowCount().getValue();
+            return new JoinTree(join, stats, cost);
+        }
+
+        private JoinNode withDistribution(JoinNode node, PlanNodeStatsEstimate buildStats)
+        {
+            Optional<DistributionType> distributionType = getDistributionType(node.getRight(), buildStats);
+            if (!distributionType.isPresent()) {
+                return node;
+            }
+            return new JoinNode(
+                    node.getId(),
+                    node.getType(),
+                    node.getLeft(),
+                    node.getRight(),
+                    node.getCriteria(),
+                    node.getFilter(),
+                    node.getLeftHashSymbol(),
+                    node.getRightHashSymbol(),
+                    distributionType);
+        }
+
+        private Optional<DistributionType> getDistributionType(PlanNode build, PlanNodeStatsEstimate buildStats)
+        {
+            if (buildStats.getOutputRowCount().isValueUnknown()) {
+                return Optional.empty();
+            }
+
+            long rowSize = 0;
+            for (Symbol symbol : build.getOutputSymbols()) {
+                Type type = types.get(symbol);
+                rowSize += type instanceof FixedWidthType ? ((FixedWidthType) type).getFixedSize() : VARIABLE_WIDTH_VALUE_SIZE;
+            }
+            double buildSize = buildStats.getOutputRowCount().getValue() * rowSize;
+            if (buildSize <= getJoinMaxBroadcastTableSize(session).toBytes()) {
+                return Optional.of(REPLICATED);
+            }
+            return Optional.of(PARTITIONED);
+        }
+    }
+
+    private static boolean isReorderable(JoinNode node)
+    {
+        return node.getType() == INNER &&
+                !node.getCriteria().isEmpty() &&
+                !node.getFilter().isPresent() &&
+                !node.getLeftHashSymbol().isPresent() &&
+                !node.getRightHashSymbol().isPresent();
+    }
+
+    private static void flatten(PlanNode node, List<PlanNode> sources, List<EquiJoinClause> criteria)
+    {
+        if (node instanceof JoinNode && isReorderable((JoinNode) node)) {
+            JoinNode join = (JoinNode) node;
+            flatten(join.getLeft(), sources, criteria);
+            flatten(join.getRight(), sources, criteria);
+            criteria.addAll(join.getCriteria());
+        }
+        else {
+            sources.add(node);
+        }
+    }
+
+    /**
+     * Returns the clauses that join the left node with the right node, with the
+     * symbols of the left node on the left side.
+     */
+    private static List<EquiJoinClause> getJoinCriteria(List<EquiJoinClause> criteria, PlanNode left, PlanNode right)
+    {
+        Set<Symbol> leftSymbols = ImmutableSet.copyOf(left.getOutputSymbols());
+        Set<Symbol> rightSymbols = ImmutableSet.copyOf(right.getOutputSymbols());
+
+        ImmutableList.Builder<EquiJoinClause> builder = ImmutableList.builder();
+        for (EquiJoinClause clause : criteria) {
+            if (leftSymbols.contains(clause.getLeft()) && rightSymbols.contains(clause.getRight())) {
+                builder.add(clause);
+            }
+            else if (leftSymbols.contains(clause.getRight()) && rightSymbols.contains(clause.getLeft())) {
+                builder.add(new EquiJoinClause(clause.getRight(), clause.getLeft()));
+            }
+        }
+        return builder.build();
+    }
+
+    private static double getRowCount(JoinTree tree)
+    {
+        return tree.getStats().getOutputRowCount().getValue();
+    }
+
+    private static class JoinTree
+    {
+        private final PlanNode node;
+        private final PlanNodeStatsEstimate stats;
+        private final double cost;
+
+        public JoinTree(PlanNode node, PlanNodeStatsEstimate stats, double cost)
+        {
+            this.node = requireNonNull(node, "node is null");
+            this.stats = requireNonNull(stats, "stats is null");
+            this.cost = cost;
+        }
+
+        public PlanNode getNode()
+        {
+            return node;
+        }
+
+        public PlanNodeStatsEstimate getStats()
+        {
+            return stats;
+        }
+
+        public double getCost()
+        {
+            return cost;
+        }
+    }
+}
@@ -241,6 +241,9 @@ final class StreamPropertyDerivations
         {
             // remote exchange always produces a single stream
             if (node.getScope() == REMOTE) {
+                if (node.getOrderingScheme().isPresent()) {
+                    return StreamProperties.ordered();
+                }
                 return StreamProperties.singleStream();
             }
 
@@ -18,6 +18,7 @@ import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.DeterminismEvaluator;
+import com.facebook.presto.sql.planner.OrderingScheme;
 import com.facebook.presto.sql.planner.PartitioningScheme;
 import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
 import com.facebook.presto.sql.planner.Symbol;
@@ -284,13 +285,13 @@ public class UnaliasSymbolReferences
                     node.getPartitioningScheme().isReplicateNulls(),
                     node.getPartitioningScheme().getBucketToPartition());
 
-            return new ExchangeNode(node.getId(), node.getType(), node.getScope(), partitioningScheme, sources, inputs);
+            return new ExchangeNode(node.getId(), node.getType(), node.getScope(), partitioningScheme, sources, inputs, node.getOrderingScheme().map(this::canonicalize));
         }
 
         @Override
         public PlanNode visitRemoteSource(RemoteSourceNode node, RewriteContext<Void> context)
         {
-            return new RemoteSourceNode(node.getId(), node.getSourceFragmentIds(), canonicalizeAndDistinct(node.getOutputSymbols()));
+            return new RemoteSourceNode(node.getId(), node.getSourceFragmentIds(), canonicalizeAndDistinct(node.getOutputSymbols()), node.getOrderingScheme().map(this::canonicalize));
         }
 
         @Override
@@ -470,7 +471,7 @@ public class UnaliasSymbolReferences
             PlanNode left = context.rewrite(node.getLeft());
             PlanNode right = context.rewrite(node.getRight());
 
-            return new JoinNode(node.getId(), node.getType(), left, right, canonicalizeJoinCriteria(node.getCriteria()), node.getFilter().map(this::canonicalize), canonicalize(node.getLeftHashSymbol()), canonicalize(node.getRightHashSymbol()));
+            return new JoinNode(node.getId(), node.getType(), left, right, canonicalizeJoinCriteria(node.getCriteria()), node.getFilter().map(this::canonicalize), canonicalize(node.getLeftHashSymbol()), canonicalize(node.getRightHashSymbol()), node.getDistributionType());
         }
 
         @Override
@@ -643,6 +644,16 @@ public class UnaliasSymbolReferences
             return builder.build();
         }
 
+        private OrderingScheme canonicalize(OrderingScheme orderingScheme)
+        {
+            Map<Symbol, SortOrder> orderings = new LinkedHashMap<>();
+            for (Symbol symbol : orderingScheme.getOrderBy()) {
+                // later occurrences of the same canonical symbol do not change the ordering
+                orderings.putIfAbsent(canonicalize(symbol), orderingScheme.getOrderings().get(symbol));
+            }
+            return new OrderingScheme(ImmutableList.copyOf(orderings.keySet()), orderings);
+        }
+
         private PartitioningScheme canonicalizePartitionFunctionBinding(PartitioningScheme scheme)
         {
             return new PartitioningScheme(
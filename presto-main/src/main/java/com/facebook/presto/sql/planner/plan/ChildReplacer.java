@@ -91,7 +91,8 @@ public class ChildReplacer
                 node.getScope(),
                 node.getPartitioningScheme(),
                 newChildren,
-                node.getInputs());
+                node.getInputs(),
+                node.getOrderingScheme());
     }
 
     @Override
@@ -148,7 +149,7 @@ public class ChildReplacer
     public PlanNode visitJoin(JoinNode node, List<PlanNode> newChildren)
     {
         checkArgument(newChildren.size() == 2, "expected newChildren to contain 2 nodes");
-        return new JoinNode(node.getId(), node.getType(), newChildren.get(0), newChildren.get(1), node.getCriteria(), node.getFilter(), node.getLeftHashSymbol(), node.getRightHashSymbol());
+        return new JoinNode(node.getId(), node.getType(), newChildren.get(0), newChildren.get(1), node.getCriteria(), node.getFilter(), node.getLeftHashSymbol(), node.getRightHashSymbol(), node.getDistributionType());
     }
 
     @Override
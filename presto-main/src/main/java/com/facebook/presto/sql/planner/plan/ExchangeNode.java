@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.sql.planner.plan;
 
+import com.facebook.presto.sql.planner.OrderingScheme;
 import com.facebook.presto.sql.planner.Partitioning;
 import com.facebook.presto.sql.planner.Partitioning.ArgumentBinding;
 import com.facebook.presto.sql.planner.PartitioningScheme;
@@ -62,6 +63,20 @@ public class ExchangeNode
     // for each source, the list of inputs corresponding to each output
     private final List<List<Symbol>> inputs;
 
+    // for a merging exchange, the order in which each source produces its rows and in which the sources are merged
+    private final Optional<OrderingScheme> orderingScheme;
+
+    public ExchangeNode(
+            PlanNodeId id,
+            Type type,
+            Scope scope,
+            PartitioningScheme partitioningScheme,
+            List<PlanNode> sources,
+            List<List<Symbol>> inputs)
+    {
+        this(id, type, scope, partitioningScheme, sources, inputs, Optional.empty());
+    }
+
     @JsonCreator
     public ExchangeNode(
             @JsonProperty("id") PlanNodeId id,
@@ -69,7 +84,8 @@ public class ExchangeNode
             @JsonProperty("scope") Scope scope,
             @JsonProperty("partitioningScheme") PartitioningScheme partitioningScheme,
             @JsonProperty("sources") List<PlanNode> sources,
-            @JsonProperty("inputs") List<List<Symbol>> inputs)
+            @JsonProperty("inputs") List<List<Symbol>> inputs,
+            @JsonProperty("orderingScheme") Optional<OrderingScheme> orderingScheme)
     {
         super(id);
 
@@ -78,6 +94,7 @@ public class ExchangeNode
         requireNonNull(sources, "sources is null");
         requireNonNull(partitioningScheme, "partitioningScheme is null");
         requireNonNull(inputs, "inputs is null");
+        requireNonNull(orderingScheme, "orderingScheme is null");
 
         checkArgument(inputs.stream().allMatch(inputSymbols -> inputSymbols.size() == partitioningScheme.getOutputLayout().size()), "Input symbols do not match output symbols");
         checkArgument(inputs.size() == sources.size(), "Must have same number of input lists as sources");
@@ -90,11 +107,17 @@ public class ExchangeNode
 
         checkArgument(scope != REMOTE || type == Type.REPARTITION || !partitioningScheme.isReplicateNulls(), "Only REPARTITION can remotely replicate nulls");
 
+        orderingScheme.ifPresent(ordering -> {
+            checkArgument(type == Type.GATHER && scope == REMOTE, "Only a remote GATHER exchange can merge sorted sources");
+            checkArgument(partitioningScheme.getOutputLayout().containsAll(ordering.getOrderBy()), "Output layout does not contain all ordering symbols");
+        });
+
         this.type = type;
         this.sources = sources;
         this.scope = scope;
         this.partitioningScheme = partitioningScheme;
         this.inputs = ImmutableList.copyOf(inputs);
+        this.orderingScheme = orderingScheme;
     }
 
     public static ExchangeNode partitionedExchange(PlanNodeId id, Scope scope, PlanNode child, List<Symbol> partitioningColumns, Optional<Symbol> hashColumns)
@@ -165,6 +188,18 @@ public class ExchangeNode
                         .collect(toImmutableList()));
     }
 
+    public static ExchangeNode mergingExchange(PlanNodeId id, PlanNode child, OrderingScheme orderingScheme)
+    {
+        return new ExchangeNode(
+                id,
+                ExchangeNode.Type.GATHER,
+                REMOTE,
+                new PartitioningScheme(Partitioning.create(SINGLE_DISTRIBUTION, ImmutableList.of()), child.getOutputSymbols()),
+                ImmutableList.of(child),
+                ImmutableList.of(child.getOutputSymbols()),
+                Optional.of(orderingScheme));
+    }
+
     @JsonProperty
     public Type getType()
     {
@@ -202,6 +237,12 @@ public class ExchangeNode
         return inputs;
     }
 
+    @JsonProperty
+    public Optional<OrderingScheme> getOrderingScheme()
+    {
+        return orderingScheme;
+    }
+
     @Override
     public <C, R> R accept(PlanVisitor<C, R> visitor, C context)
     {
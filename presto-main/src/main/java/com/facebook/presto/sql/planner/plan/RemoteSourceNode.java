@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.sql.planner.plan;
 
+import com.facebook.presto.sql.planner.OrderingScheme;
 import com.facebook.presto.sql.planner.Symbol;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -21,6 +22,7 @@ import com.google.common.collect.ImmutableList;
 import javax.annotation.concurrent.Immutable;
 
 import java.util.List;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
@@ -30,19 +32,28 @@ public class RemoteSourceNode
 {
     private final List<PlanFragmentId> sourceFragmentIds;
     private final List<Symbol> outputs;
+    private final Optional<OrderingScheme> orderingScheme;
 
     @JsonCreator
     public RemoteSourceNode(
             @JsonProperty("id") PlanNodeId id,
             @JsonProperty("sourceFragmentIds") List<PlanFragmentId> sourceFragmentIds,
-            @JsonProperty("outputs") List<Symbol> outputs)
+            @JsonProperty("outputs") List<Symbol> outputs,
+            @JsonProperty("orderingScheme") Optional<OrderingScheme> orderingScheme)
     {
         super(id);
 
         requireNonNull(outputs, "outputs is null");
+        requireNonNull(orderingScheme, "orderingScheme is null");
 
         this.sourceFragmentIds = sourceFragmentIds;
         this.outputs = ImmutableList.copyOf(outputs);
+        this.orderingScheme = orderingScheme;
+    }
+
+    public RemoteSourceNode(PlanNodeId id, List<PlanFragmentId> sourceFragmentIds, List<Symbol> outputs)
+    {
+        this(id, sourceFragmentIds, outputs, Optional.empty());
     }
 
     public RemoteSourceNode(PlanNodeId id, PlanFragmentId sourceFragmentId, List<Symbol> outputs)
@@ -69,6 +80,12 @@ public class RemoteSourceNode
         return sourceFragmentIds;
     }
 
+    @JsonProperty("orderingScheme")
+    public Optional<OrderingScheme> getOrderingScheme()
+    {
+        return orderingScheme;
+    }
+
     @Override
     public <C, R> R accept(PlanVisitor<C, R> visitor, C context)
     {
@@ -454,6 +454,8 @@ public final class ValidateDependenciesChecker
             }
 
             checkDependencies(node.getOutputSymbols(), node.getPartitioningScheme().getOutputLayout(), "EXCHANGE must provide all of the necessary symbols for partition function");
+            node.getOrderingScheme().ifPresent(orderingScheme ->
+                    checkDependencies(node.getOutputSymbols(), orderingScheme.getOrderBy(), "EXCHANGE must provide all of the necessary symbols for ordering"));
 
             verifyUniqueId(node);
 
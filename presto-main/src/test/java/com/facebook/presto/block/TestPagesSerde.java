@@ -13,7 +13,9 @@
  */
 package com.facebook.presto.block;
 
+import com.facebook.presto.block.PagesSerde.SerializedPagesReader;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
@@ -28,12 +30,15 @@ import java.util.Iterator;
 import java.util.List;
 
 import static com.facebook.presto.block.PagesSerde.readPages;
+import static com.facebook.presto.block.PagesSerde.readSerializedPages;
 import static com.facebook.presto.block.PagesSerde.writePages;
+import static com.facebook.presto.block.PagesSerde.writeSerializedPages;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -62,6 +67,72 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testSerializedRoundTrip()
+    {
+        Page expectedPage = createVarcharPage(1000, "alice");
+        List<Type> types = ImmutableList.<Type>of(VARCHAR, VARCHAR, VARCHAR);
+
+        for (boolean compress : new boolean[] {false, true}) {
+            for (boolean checksum : new boolean[] {false, true}) {
+                DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+                writeSerializedPages(blockEncodingManager, sliceOutput, compress, checksum, ImmutableList.of(expectedPage, expectedPage));
+
+                SerializedPagesReader pageIterator = readSerializedPages(blockEncodingManager, sliceOutput.slice().getInput());
+                assertPageEquals(types, pageIterator.next(), expectedPage);
+                assertPageEquals(types, pageIterator.next(), expectedPage);
+                assertFalse(pageIterator.hasNext());
+
+                if (compress) {
+                    assertTrue(pageIterator.getCompressedSizeInBytes() < pageIterator.getUncompressedSizeInBytes());
+                }
+                else {
+                    assertEquals(pageIterator.getCompressedSizeInBytes(), pageIterator.getUncompressedSizeInBytes());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSerializedIncompressiblePage()
+    {
+        // a single short value does not compress, so it is sent as is
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), 1);
+        VARCHAR.writeString(blockBuilder, "alice");
+        Page expectedPage = new Page(blockBuilder.build());
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writeSerializedPages(blockEncodingManager, sliceOutput, true, false, ImmutableList.of(expectedPage));
+
+        SerializedPagesReader pageIterator = readSerializedPages(blockEncodingManager, sliceOutput.slice().getInput());
+        assertPageEquals(ImmutableList.of(VARCHAR), pageIterator.next(), expectedPage);
+        assertFalse(pageIterator.hasNext());
+        assertEquals(pageIterator.getCompressedSizeInBytes(), pageIterator.getUncompressedSizeInBytes());
+    }
+
+    @Test(expectedExceptions = PrestoException.class, expectedExceptionsMessageRegExp = "Checksum mismatch for serialized page.*")
+    public void testSerializedChecksumMismatch()
+    {
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writeSerializedPages(blockEncodingManager, sliceOutput, false, true, ImmutableList.of(createVarcharPage(10, "alice")));
+
+        // corrupt the last byte of the page data
+        Slice slice = sliceOutput.slice();
+        slice.setByte(slice.length() - 1, slice.getByte(slice.length() - 1) + 1);
+
+        readSerializedPages(blockEncodingManager, slice.getInput()).next();
+    }
+
+    private static Page createVarcharPage(int positions, String value)
+    {
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), positions);
+        for (int i = 0; i < positions; i++) {
+            VARCHAR.writeString(blockBuilder, value);
+        }
+        Block block = blockBuilder.build();
+        return new Page(block, block, block);
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
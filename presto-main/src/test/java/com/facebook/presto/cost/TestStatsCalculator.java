@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cost;
+
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.cost.StatsCalculator.estimateJoin;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestStatsCalculator
+{
+    private static final Symbol ORDER_KEY = new Symbol("orderkey");
+    private static final Symbol LINE_ORDER_KEY = new Symbol("l_orderkey");
+    private static final EquiJoinClause ORDER_KEY_CLAUSE = new EquiJoinClause(LINE_ORDER_KEY, ORDER_KEY);
+
+    @Test
+    public void testJoinWithDistinctValues()
+    {
+        PlanNodeStatsEstimate lineitem = new PlanNodeStatsEstimate(Estimate.of(6_000), ImmutableMap.of(LINE_ORDER_KEY, Estimate.of(1_500)));
+        PlanNodeStatsEstimate orders = new PlanNodeStatsEstimate(Estimate.of(1_500), ImmutableMap.of(ORDER_KEY, Estimate.of(1_500)));
+
+        PlanNodeStatsEstimate join = estimateJoin(INNER, ImmutableList.of(ORDER_KEY_CLAUSE), lineitem, orders);
+        assertEquals(join.getOutputRowCount(), Estimate.of(6_000));
+        assertEquals(join.getDistinctValuesCount(ORDER_KEY), Estimate.of(1_500));
+    }
+
+    @Test
+    public void testJoinWithoutDistinctValues()
+    {
+        // every row of the larger side is assumed to have a match
+        PlanNodeStatsEstimate left = new PlanNodeStatsEstimate(Estimate.of(100), ImmutableMap.of());
+        PlanNodeStatsEstimate right = new PlanNodeStatsEstimate(Estimate.of(1_000), ImmutableMap.of());
+
+        assertEquals(estimateJoin(INNER, ImmutableList.of(ORDER_KEY_CLAUSE), left, right).getOutputRowCount(), Estimate.of(1_000));
+    }
+
+    @Test
+    public void testCrossJoin()
+    {
+        PlanNodeStatsEstimate left = new PlanNodeStatsEstimate(Estimate.of(10), ImmutableMap.of());
+        PlanNodeStatsEstimate right = new PlanNodeStatsEstimate(Estimate.of(20), ImmutableMap.of());
+
+        assertEquals(estimateJoin(INNER, ImmutableList.of(), left, right).getOutputRowCount(), Estimate.of(200));
+    }
+
+    @Test
+    public void testLeftJoinKeepsProbeRows()
+    {
+        PlanNodeStatsEstimate left = new PlanNodeStatsEstimate(Estimate.of(1_000), ImmutableMap.of(LINE_ORDER_KEY, Estimate.of(1_000)));
+        PlanNodeStatsEstimate right = new PlanNodeStatsEstimate(Estimate.of(10), ImmutableMap.of(ORDER_KEY, Estimate.of(10)));
+
+        assertEquals(estimateJoin(INNER, ImmutableList.of(ORDER_KEY_CLAUSE), left, right).getOutputRowCount(), Estimate.of(10));
+        assertEquals(estimateJoin(LEFT, ImmutableList.of(ORDER_KEY_CLAUSE), left, right).getOutputRowCount(), Estimate.of(1_000));
+    }
+
+    @Test
+    public void testUnknownSource()
+    {
+        PlanNodeStatsEstimate left = new PlanNodeStatsEstimate(Estimate.of(10), ImmutableMap.of());
+
+        assertTrue(estimateJoin(INNER, ImmutableList.of(ORDER_KEY_CLAUSE), left, PlanNodeStatsEstimate.UNKNOWN_STATS).getOutputRowCount().isValueUnknown());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.memory.MemoryPool;
+import com.facebook.presto.memory.MemoryPoolId;
+import com.facebook.presto.memory.QueryContext;
+import com.facebook.presto.operator.DriverContext;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestMemoryRevokingScheduler
+{
+    private final QueryId queryId = new QueryId("query");
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+    private MemoryPool memoryPool;
+    private QueryContext queryContext;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+        scheduledExecutor = newScheduledThreadPool(1, daemonThreadsNamed("test-scheduled-%s"));
+        memoryPool = new MemoryPool(new MemoryPoolId("test"), new DataSize(10, BYTE));
+        MemoryPool systemMemoryPool = new MemoryPool(new MemoryPoolId("testSystem"), new DataSize(10, BYTE));
+        queryContext = new QueryContext(queryId, new DataSize(10, MEGABYTE), memoryPool, systemMemoryPool, executor, new DataSize(1, MEGABYTE));
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testRevokesLargestConsumersFirst()
+    {
+        DriverContext driverContext = createTaskContext(queryContext, executor, TEST_SESSION, new DataSize(0, BYTE))
+                .addPipelineContext(true, true)
+                .addDriverContext();
+        OperatorContext large = driverContext.addOperatorContext(1, new PlanNodeId("large"), "large");
+        OperatorContext small = driverContext.addOperatorContext(2, new PlanNodeId("small"), "small");
+        OperatorContext regular = driverContext.addOperatorContext(3, new PlanNodeId("regular"), "regular");
+
+        MemoryRevokingScheduler scheduler = new MemoryRevokingScheduler(ImmutableList.of(memoryPool), () -> ImmutableList.of(queryContext), scheduledExecutor, 0.75, 0.5);
+
+        large.reserveRevocableMemory(5);
+        small.reserveRevocableMemory(1);
+        regular.reserveMemory(1);
+
+        // pool is 70% full, below the threshold
+        scheduler.requestMemoryRevokingIfNeeded();
+        assertFalse(large.isMemoryRevokingRequested());
+        assertFalse(small.isMemoryRevokingRequested());
+
+        // pool is 90% full, revoking the large operator brings it below the target
+        regular.reserveMemory(2);
+        scheduler.requestMemoryRevokingIfNeeded();
+        assertTrue(large.isMemoryRevokingRequested());
+        assertFalse(small.isMemoryRevokingRequested());
+        assertFalse(regular.isMemoryRevokingRequested());
+
+        // memory that is being revoked counts towards the target
+        scheduler.requestMemoryRevokingIfNeeded();
+        assertFalse(small.isMemoryRevokingRequested());
+
+        large.freeRevocableMemory(5);
+        large.resetMemoryRevokingRequested();
+        regular.reserveMemory(4);
+        scheduler.requestMemoryRevokingIfNeeded();
+        assertTrue(small.isMemoryRevokingRequested());
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.execution.TaskExecutor.PrioritizedSplitRunner;
+import com.facebook.presto.execution.TaskExecutor.TaskHandle;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.presto.execution.MultilevelSplitQueue.computeLevel;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestMultilevelSplitQueue
+{
+    private TaskExecutor taskExecutor;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        // the executor is never started, it is only used to create task handles
+        taskExecutor = new TaskExecutor(1, 1);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        taskExecutor.stop();
+    }
+
+    @Test
+    public void testComputeLevel()
+    {
+        assertEquals(computeLevel(0), 0);
+        assertEquals(computeLevel(SECONDS.toNanos(1) - 1), 0);
+        assertEquals(computeLevel(SECONDS.toNanos(1)), 1);
+        assertEquals(computeLevel(SECONDS.toNanos(10)), 2);
+        assertEquals(computeLevel(SECONDS.toNanos(60)), 3);
+        assertEquals(computeLevel(SECONDS.toNanos(300)), 4);
+        assertEquals(computeLevel(Long.MAX_VALUE), 4);
+    }
+
+    @Test
+    public void testLevelWeightedSelection()
+            throws Exception
+    {
+        MultilevelSplitQueue queue = new MultilevelSplitQueue(2);
+
+        PrioritizedSplitRunner interactive = createSplit(queue, 0);
+        PrioritizedSplitRunner batch = createSplit(queue, 400);
+        queue.offer(interactive);
+        queue.offer(batch);
+        assertEquals(queue.getLevelSize(0), 1);
+        assertEquals(queue.getLevelSize(4), 1);
+
+        // level 0 is entitled to 16x the time of level 4 with a multiplier of 2
+        queue.addLevelTime(0, SECONDS.toNanos(16));
+        assertSame(queue.take(), batch);
+        queue.offer(batch);
+
+        queue.addLevelTime(4, SECONDS.toNanos(2));
+        assertSame(queue.take(), interactive);
+        assertSame(queue.take(), batch);
+        assertEquals(queue.size(), 0);
+    }
+
+    @Test
+    public void testIdleLevelDoesNotBankTime()
+            throws Exception
+    {
+        MultilevelSplitQueue queue = new MultilevelSplitQueue(2);
+
+        queue.offer(createSplit(queue, 400));
+        queue.addLevelTime(4, SECONDS.toNanos(10));
+
+        // level 0 was idle, so it is brought up to the normalized time of level 4
+        queue.offer(createSplit(queue, 0));
+        assertEquals(queue.getLevelScheduledTime(0), SECONDS.toNanos(160));
+    }
+
+    @Test
+    public void testRemoveAll()
+            throws Exception
+    {
+        MultilevelSplitQueue queue = new MultilevelSplitQueue(2);
+
+        PrioritizedSplitRunner first = createSplit(queue, 0);
+        PrioritizedSplitRunner second = createSplit(queue, 0);
+        queue.offer(first);
+        queue.offer(second);
+
+        queue.removeAll(ImmutableList.of(first));
+        assertEquals(queue.size(), 1);
+        assertSame(queue.take(), second);
+    }
+
+    @Test(timeOut = 30_000)
+    public void testConcurrentTakers()
+            throws Exception
+    {
+        MultilevelSplitQueue queue = new MultilevelSplitQueue(2);
+        int splits = 2_000;
+        int takers = 4;
+
+        ExecutorService executor = newFixedThreadPool(takers);
+        try {
+            CountDownLatch taken = new CountDownLatch(splits);
+            for (int i = 0; i < takers; i++) {
+                executor.execute(() -> {
+                    try {
+                        while (true) {
+                            queue.take();
+                            taken.countDown();
+                        }
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            // splits of different levels, offered while the takers are waiting and running
+            for (int i = 0; i < splits; i++) {
+                queue.offer(createSplit(queue, i % 2 == 0 ? 0 : 400));
+            }
+            assertTrue(taken.await(20, SECONDS));
+            assertEquals(queue.size(), 0);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PrioritizedSplitRunner createSplit(MultilevelSplitQueue queue, long taskThreadUsageSeconds)
+    {
+        TaskHandle taskHandle = taskExecutor.addTask(new TaskId("test", "test", 0), () -> 0, 10, new Duration(1, MILLISECONDS));
+        taskHandle.addThreadUsageNanos(SECONDS.toNanos(taskThreadUsageSeconds));
+        return new PrioritizedSplitRunner(taskHandle, new NoOpSplitRunner(), queue, Ticker.systemTicker());
+    }
+
+    private static class NoOpSplitRunner
+            implements SplitRunner
+    {
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "no-op";
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
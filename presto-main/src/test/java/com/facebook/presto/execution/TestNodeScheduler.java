@@ -48,6 +48,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -120,6 +121,59 @@ public class TestNodeScheduler
         assertEquals(assignment.getValue(), split);
     }
 
+    @Test
+    public void testSoftAffinityScheduling()
+            throws Exception
+    {
+        NodeSchedulerConfig nodeSchedulerConfig = new NodeSchedulerConfig()
+                .setMaxSplitsPerNode(20)
+                .setIncludeCoordinator(false)
+                .setMaxPendingSplitsPerNodePerStage(10)
+                .setSoftAffinityEnabled(true)
+                .setSoftAffinityCandidates(1);
+        NodeScheduler nodeScheduler = new NodeScheduler(new LegacyNetworkTopology(), nodeManager, nodeSchedulerConfig, nodeTaskMap);
+        NodeSelector nodeSelector = nodeScheduler.createNodeSelector("foo");
+
+        Set<Node> chosenNodes = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            Split split = new Split("foo", TestingTransactionHandle.create("test"), new TestSplitAffinity("file1"));
+            Multimap<Node, Split> assignments = nodeSelector.computeAssignments(ImmutableSet.of(split), ImmutableList.of());
+            chosenNodes.add(Iterables.getOnlyElement(assignments.keySet()));
+        }
+        assertEquals(chosenNodes.size(), 1);
+
+        // once the preferred node is full, splits go to other nodes
+        Node preferredNode = Iterables.getOnlyElement(chosenNodes);
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            splits.add(new Split("foo", TestingTransactionHandle.create("test"), new TestSplitAffinity("file1")));
+        }
+        Multimap<Node, Split> assignments = nodeSelector.computeAssignments(splits, ImmutableList.of());
+        assertEquals(assignments.get(preferredNode).size(), 20);
+        assertEquals(assignments.size(), 30);
+    }
+
+    @Test
+    public void testSelectAffinityNodes()
+    {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            nodes.add(new PrestoNode("node" + i, URI.create("http://10.0.0." + i + ":8080"), NodeVersion.UNKNOWN));
+        }
+
+        List<Node> selected = NodeScheduler.selectAffinityNodes(nodes, "file1", 3);
+        assertEquals(selected.size(), 3);
+        assertEquals(ImmutableSet.copyOf(selected).size(), 3);
+        assertEquals(ImmutableSet.copyOf(NodeScheduler.selectAffinityNodes(nodes, "file1", 3)), ImmutableSet.copyOf(selected));
+
+        // removing a node that is not preferred does not change the preferred nodes
+        List<Node> remaining = new ArrayList<>(selected);
+        remaining.add(nodes.stream().filter(node -> !selected.contains(node)).findFirst().get());
+        assertEquals(ImmutableSet.copyOf(NodeScheduler.selectAffinityNodes(remaining, "file1", 3)), ImmutableSet.copyOf(selected));
+
+        assertEquals(NodeScheduler.selectAffinityNodes(nodes.subList(0, 2), "file1", 3).size(), 2);
+    }
+
     @Test(timeOut = 60 * 1000)
     public void testTopologyAwareScheduling()
             throws Exception
@@ -508,6 +562,41 @@ public class TestNodeScheduler
         }
     }
 
+    private static class TestSplitAffinity
+            implements ConnectorSplit
+    {
+        private final String path;
+
+        public TestSplitAffinity(String path)
+        {
+            this.path = requireNonNull(path, "path is null");
+        }
+
+        @Override
+        public boolean isRemotelyAccessible()
+        {
+            return true;
+        }
+
+        @Override
+        public List<HostAddress> getAddresses()
+        {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public Optional<String> getAffinityKey()
+        {
+            return Optional.of(path);
+        }
+
+        @Override
+        public Object getInfo()
+        {
+            return this;
+        }
+    }
+
     private static class TestNetworkTopology
             implements NetworkTopology
     {
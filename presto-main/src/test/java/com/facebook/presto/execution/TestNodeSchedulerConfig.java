@@ -33,7 +33,9 @@ public class TestNodeSchedulerConfig
                 .setMaxSplitsPerNode(100)
                 .setMaxPendingSplitsPerNodePerStage(10)
                 .setIncludeCoordinator(true)
-                .setMultipleTasksPerNodeEnabled(false));
+                .setMultipleTasksPerNodeEnabled(false)
+                .setSoftAffinityEnabled(false)
+                .setSoftAffinityCandidates(2));
     }
 
     @Test
@@ -46,6 +48,8 @@ public class TestNodeSchedulerConfig
                 .put("node-scheduler.max-pending-splits-per-node-per-stage", "11")
                 .put("node-scheduler.max-splits-per-node", "101")
                 .put("node-scheduler.multiple-tasks-per-node-enabled", "true")
+                .put("node-scheduler.soft-affinity-enabled", "true")
+                .put("node-scheduler.soft-affinity-candidates", "3")
                 .build();
 
         NodeSchedulerConfig expected = new NodeSchedulerConfig()
@@ -54,7 +58,9 @@ public class TestNodeSchedulerConfig
                 .setMultipleTasksPerNodeEnabled(true)
                 .setMaxSplitsPerNode(101)
                 .setMaxPendingSplitsPerNodePerStage(11)
-                .setMinCandidates(11);
+                .setMinCandidates(11)
+                .setSoftAffinityEnabled(true)
+                .setSoftAffinityCandidates(3);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
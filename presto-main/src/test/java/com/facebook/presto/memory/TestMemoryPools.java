@@ -35,6 +35,7 @@ import static com.facebook.presto.testing.LocalQueryRunner.queryRunnerWithInitia
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -61,7 +62,7 @@ public class TestMemoryPools
         assertTrue(pool.tryReserve(fakeQueryId, TEN_MEGABYTES));
         MemoryPool systemPool = new MemoryPool(new MemoryPoolId("testSystem"), new DataSize(10, MEGABYTE));
 
-        QueryContext queryContext = new QueryContext(new QueryId("query"), new DataSize(10, MEGABYTE), pool, systemPool, localQueryRunner.getExecutor());
+        QueryContext queryContext = new QueryContext(new QueryId("query"), new DataSize(10, MEGABYTE), pool, systemPool, localQueryRunner.getExecutor(), new DataSize(1, MEGABYTE));
         // discard all output
         OutputFactory outputFactory = new PageConsumerOutputFactory(types -> (page -> { }));
         TaskContext taskContext = createTaskContext(queryContext, localQueryRunner.getExecutor(), session, new DataSize(0, BYTE));
@@ -94,6 +95,31 @@ public class TestMemoryPools
         } while (!drivers.stream().allMatch(Driver::isFinished));
     }
 
+    @Test
+    public void testRevocableMemory()
+    {
+        MemoryPool pool = new MemoryPool(new MemoryPoolId("test"), new DataSize(10, MEGABYTE));
+        QueryId queryId = new QueryId("query");
+
+        assertTrue(pool.reserve(queryId, TEN_MEGABYTES / 2).isDone());
+        ListenableFuture<?> future = pool.reserveRevocable(queryId, TEN_MEGABYTES / 2);
+        // revocable memory counts against the pool
+        assertFalse(future.isDone());
+        assertEquals(pool.getFreeBytes(), 0);
+        assertEquals(pool.getReservedRevocableBytes(), TEN_MEGABYTES / 2);
+
+        MemoryPoolInfo info = pool.getInfo();
+        assertEquals(info.getReservedRevocableBytes(), TEN_MEGABYTES / 2);
+        assertEquals(info.getReservedUserBytes(), TEN_MEGABYTES / 2);
+        assertEquals(info.getQueryMemoryReservations(), ImmutableMap.of(queryId, TEN_MEGABYTES / 2));
+        assertEquals(info.getQueryMemoryRevocableReservations(), ImmutableMap.of(queryId, TEN_MEGABYTES / 2));
+
+        pool.freeRevocable(queryId, TEN_MEGABYTES / 2);
+        assertTrue(future.isDone());
+        assertEquals(pool.getReservedRevocableBytes(), 0);
+        assertEquals(pool.getInfo().getQueryMemoryRevocableReservations(), ImmutableMap.of());
+    }
+
     public static boolean isWaitingForMemory(List<Driver> drivers)
     {
         for (Driver driver : drivers) {
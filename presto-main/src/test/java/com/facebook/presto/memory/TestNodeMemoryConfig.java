@@ -22,6 +22,7 @@ import java.util.Map;
 import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.fail;
 
 public class TestNodeMemoryConfig
@@ -34,6 +35,7 @@ public class TestNodeMemoryConfig
             DataSize expected = new DataSize(Runtime.getRuntime().maxMemory() * 0.1, BYTE);
             NodeMemoryConfig config = new NodeMemoryConfig();
             if (expected.equals(config.getMaxQueryMemoryPerNode())) {
+                assertEquals(config.getMaxQuerySpillPerNode(), new DataSize(100, GIGABYTE));
                 return;
             }
         }
@@ -46,10 +48,12 @@ public class TestNodeMemoryConfig
     {
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("query.max-memory-per-node", "1GB")
+                .put("query.max-spill-per-node", "2GB")
                 .build();
 
         NodeMemoryConfig expected = new NodeMemoryConfig()
-                .setMaxQueryMemoryPerNode(new DataSize(1, GIGABYTE));
+                .setMaxQueryMemoryPerNode(new DataSize(1, GIGABYTE))
+                .setMaxQuerySpillPerNode(new DataSize(2, GIGABYTE));
 
         assertFullMapping(properties, expected);
     }
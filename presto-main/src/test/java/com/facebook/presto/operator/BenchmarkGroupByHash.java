@@ -127,6 +127,21 @@ public class BenchmarkGroupByHash
         return pageBuilder.build();
     }
 
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public Object bigintGroupByHashGroupIds(SingleChannelBenchmarkData data)
+    {
+        GroupByHash groupByHash = new BigintGroupByHash(0, data.getHashEnabled(), EXPECTED_SIZE);
+        long groupIdSum = 0;
+        for (Page page : data.getPages()) {
+            GroupByIdBlock groupIds = groupByHash.getGroupIds(page);
+            for (int position = 0; position < groupIds.getPositionCount(); position++) {
+                groupIdSum += groupIds.getGroupId(position);
+            }
+        }
+        return groupIdSum;
+    }
+
     @Benchmark
     @OperationsPerInvocation(POSITIONS)
     public long baseline(BaselinePagesData data)
@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.TestingTaskContext;
@@ -49,6 +50,7 @@ import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.util.Threads.checkNotSameThreadExecutor;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static java.lang.String.format;
@@ -173,6 +175,7 @@ public class BenchmarkHashBuildAndJoinOperators
         protected double matchRate;
 
         protected List<Page> probePages;
+        protected List<Page> probeHashChannelsPages;
 
         @Setup
         public void setup()
@@ -186,6 +189,16 @@ public class BenchmarkHashBuildAndJoinOperators
             return probePages;
         }
 
+        public List<Page> getProbeHashChannelsPages()
+        {
+            return probeHashChannelsPages;
+        }
+
+        public LookupSource getLookupSource()
+        {
+            return getFutureValue(lookupSourceSupplier.getLookupSource());
+        }
+
         protected void initializeProbePages()
         {
             RowPagesBuilder probePagesBuilder = rowPagesBuilder(buildHashEnabled, hashChannels, ImmutableList.of(VARCHAR, BIGINT, BIGINT));
@@ -231,6 +244,16 @@ public class BenchmarkHashBuildAndJoinOperators
                 }
             }
             probePages = probePagesBuilder.build();
+
+            ImmutableList.Builder<Page> hashChannelsPages = ImmutableList.builder();
+            for (Page page : probePages) {
+                Block[] blocks = new Block[hashChannels.size()];
+                for (int i = 0; i < blocks.length; i++) {
+                    blocks[i] = page.getBlock(hashChannels.get(i));
+                }
+                hashChannelsPages.add(new Page(page.getPositionCount(), blocks));
+            }
+            probeHashChannelsPages = hashChannelsPages.build();
         }
     }
 
@@ -305,6 +328,54 @@ public class BenchmarkHashBuildAndJoinOperators
         return outputPages.build();
     }
 
+    @Benchmark
+    public long benchmarkRowLookup(JoinContext joinContext)
+    {
+        LookupSource lookupSource = joinContext.getLookupSource();
+        List<Page> probePages = joinContext.getProbePages();
+        List<Page> probeHashChannelsPages = joinContext.getProbeHashChannelsPages();
+
+        long matches = 0;
+        for (int i = 0; i < probePages.size(); i++) {
+            Page page = probePages.get(i);
+            Page hashChannelsPage = probeHashChannelsPages.get(i);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                long joinPosition;
+                if (joinContext.getHashChannel().isPresent()) {
+                    long rawHash = BIGINT.getLong(page.getBlock(joinContext.getHashChannel().get()), position);
+                    joinPosition = lookupSource.getJoinPosition(position, hashChannelsPage, page, rawHash);
+                }
+                else {
+                    joinPosition = lookupSource.getJoinPosition(position, hashChannelsPage, page);
+                }
+                if (joinPosition >= 0) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public long benchmarkBatchLookup(JoinContext joinContext)
+    {
+        LookupSource lookupSource = joinContext.getLookupSource();
+        List<Page> probePages = joinContext.getProbePages();
+        List<Page> probeHashChannelsPages = joinContext.getProbeHashChannelsPages();
+
+        long matches = 0;
+        for (int i = 0; i < probePages.size(); i++) {
+            Page page = probePages.get(i);
+            long[] joinPositions = lookupSource.getJoinPositions(probeHashChannelsPages.get(i), page, joinContext.getHashChannel().map(page::getBlock));
+            for (long joinPosition : joinPositions) {
+                if (joinPosition >= 0) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
     public static void main(String[] args)
             throws RunnerException
     {
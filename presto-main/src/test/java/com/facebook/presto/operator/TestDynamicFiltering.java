@@ -0,0 +1,280 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
+import com.facebook.presto.operator.ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory;
+import com.facebook.presto.operator.TableScanOperator.TableScanOperatorFactory;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.split.PageSourceProvider;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.testing.TestingSplit;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.operator.ProjectionFunctions.singleColumn;
+import static com.facebook.presto.operator.TestScanFilterAndProjectOperator.toPages;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestDynamicFiltering
+{
+    private static final ColumnHandle KEY = new TestingColumnHandle("key");
+    private static final ColumnHandle VALUE = new TestingColumnHandle("value");
+    private static final List<ColumnHandle> PROBE_COLUMNS = ImmutableList.of(KEY, VALUE);
+    private static final List<Type> PROBE_TYPES = ImmutableList.of(BIGINT, BIGINT);
+    private static final List<Page> PROBE_PAGES = rowPagesBuilder(PROBE_TYPES)
+            .addSequencePage(50, 0, 100)
+            .addSequencePage(50, 50, 150)
+            .build();
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testTableScanWaitsForBuild()
+    {
+        LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(ImmutableMap.of(0, KEY), 10);
+        Operator buildOperator = createBuildOperator(dynamicFilter);
+
+        FilteringPageSourceProvider pageSourceProvider = new FilteringPageSourceProvider();
+        SourceOperator scanOperator = new TableScanOperatorFactory(0, new PlanNodeId("0"), pageSourceProvider, PROBE_TYPES, PROBE_COLUMNS, dynamicFilter.getResult())
+                .createOperator(newDriverContext());
+        scanOperator.addSplit(createSplit());
+        scanOperator.noMoreSplits();
+
+        // the split is not opened while the build is running
+        buildOperator.addInput(rowPagesBuilder(BIGINT).row(3L).row(5L).row((Object) null).build().get(0));
+        assertFalse(scanOperator.isBlocked().isDone());
+        assertFalse(scanOperator.isFinished());
+        assertNull(scanOperator.getOutput());
+        assertNull(pageSourceProvider.getDynamicFilter());
+
+        buildOperator.addInput(rowPagesBuilder(BIGINT).row(7L).row(5L).build().get(0));
+        buildOperator.finish();
+        assertTrue(scanOperator.isBlocked().isDone());
+
+        assertEquals(getKeys(toPages(scanOperator)), ImmutableList.of(3L, 5L, 7L));
+        assertEquals(pageSourceProvider.getDynamicFilter(), TupleDomain.withColumnDomains(ImmutableMap.of(KEY, Domain.create(ValueSet.of(BIGINT, 3L, 5L, 7L), false))));
+    }
+
+    @Test
+    public void testScanFilterAndProjectWaitsForBuild()
+    {
+        LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(ImmutableMap.of(0, KEY), 10);
+        Operator buildOperator = createBuildOperator(dynamicFilter);
+
+        FilteringPageSourceProvider pageSourceProvider = new FilteringPageSourceProvider();
+        SourceOperator scanOperator = new ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                new PlanNodeId("0"),
+                pageSourceProvider,
+                () -> new GenericCursorProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 0), singleColumn(BIGINT, 1))),
+                () -> new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 0), singleColumn(BIGINT, 1))),
+                PROBE_COLUMNS,
+                PROBE_TYPES,
+                dynamicFilter.getResult())
+                .createOperator(newDriverContext());
+        scanOperator.addSplit(createSplit());
+        scanOperator.noMoreSplits();
+
+        assertFalse(scanOperator.isBlocked().isDone());
+        assertFalse(scanOperator.isFinished());
+        assertNull(scanOperator.getOutput());
+        assertNull(pageSourceProvider.getDynamicFilter());
+
+        buildOperator.addInput(rowPagesBuilder(BIGINT).row(42L).row(99L).row(1_000L).build().get(0));
+        buildOperator.finish();
+        assertTrue(scanOperator.isBlocked().isDone());
+
+        assertEquals(getKeys(toPages(scanOperator)), ImmutableList.of(42L, 99L));
+    }
+
+    @Test
+    public void testEmptyBuild()
+    {
+        LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(ImmutableMap.of(0, KEY), 10);
+        Operator buildOperator = createBuildOperator(dynamicFilter);
+
+        FilteringPageSourceProvider pageSourceProvider = new FilteringPageSourceProvider();
+        SourceOperator scanOperator = new TableScanOperatorFactory(0, new PlanNodeId("0"), pageSourceProvider, PROBE_TYPES, PROBE_COLUMNS, dynamicFilter.getResult())
+                .createOperator(newDriverContext());
+        scanOperator.addSplit(createSplit());
+        scanOperator.noMoreSplits();
+        assertFalse(scanOperator.isBlocked().isDone());
+
+        // no probe row can match an empty build, so the whole split is skipped
+        buildOperator.finish();
+        assertTrue(scanOperator.isBlocked().isDone());
+
+        assertEquals(toPages(scanOperator), ImmutableList.of());
+        assertTrue(scanOperator.isFinished());
+        assertTrue(pageSourceProvider.getDynamicFilter().isNone());
+    }
+
+    @Test
+    public void testBuildOverDistinctValuesLimit()
+    {
+        LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(ImmutableMap.of(0, KEY), 3);
+        Operator buildOperator = createBuildOperator(dynamicFilter);
+
+        FilteringPageSourceProvider pageSourceProvider = new FilteringPageSourceProvider();
+        SourceOperator scanOperator = new TableScanOperatorFactory(0, new PlanNodeId("0"), pageSourceProvider, PROBE_TYPES, PROBE_COLUMNS, dynamicFilter.getResult())
+                .createOperator(newDriverContext());
+        scanOperator.addSplit(createSplit());
+        scanOperator.noMoreSplits();
+        assertFalse(scanOperator.isBlocked().isDone());
+
+        // more distinct keys than the limit, so the scan only gets the range between the min and max key
+        buildOperator.addInput(rowPagesBuilder(BIGINT).row(40L).row(10L).row(20L).row(30L).build().get(0));
+        buildOperator.finish();
+        assertTrue(scanOperator.isBlocked().isDone());
+
+        assertEquals(getKeys(toPages(scanOperator)), LongStream.rangeClosed(10, 40).boxed().collect(toList()));
+        assertEquals(pageSourceProvider.getDynamicFilter(), TupleDomain.withColumnDomains(ImmutableMap.of(KEY, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 10L, true, 40L, true)), false))));
+    }
+
+    private Operator createBuildOperator(LocalDynamicFilter dynamicFilter)
+    {
+        HashBuilderOperatorFactory factory = new HashBuilderOperatorFactory(
+                1,
+                new PlanNodeId("build"),
+                ImmutableList.of(BIGINT),
+                ImmutableMap.of(),
+                ImmutableList.of(0),
+                Optional.empty(),
+                false,
+                Optional.empty(),
+                100,
+                Optional.of(dynamicFilter));
+        return factory.createOperator(newDriverContext());
+    }
+
+    private DriverContext newDriverContext()
+    {
+        return createTaskContext(executor, TEST_SESSION)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+    }
+
+    private static Split createSplit()
+    {
+        return new Split("test", TestingTransactionHandle.create("test"), TestingSplit.createLocalSplit());
+    }
+
+    private static List<Long> getKeys(List<Page> pages)
+    {
+        ImmutableList.Builder<Long> keys = ImmutableList.builder();
+        for (Page page : pages) {
+            Block block = page.getBlock(0);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                keys.add(BIGINT.getLong(block, position));
+            }
+        }
+        return keys.build();
+    }
+
+    /**
+     * Skips the probe rows outside of the dynamic filter, like a connector that prunes
+     * row groups or whole splits with it.
+     */
+    private static class FilteringPageSourceProvider
+            implements PageSourceProvider
+    {
+        private TupleDomain<ColumnHandle> dynamicFilter;
+
+        public TupleDomain<ColumnHandle> getDynamicFilter()
+        {
+            return dynamicFilter;
+        }
+
+        @Override
+        public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns)
+        {
+            return createPageSource(session, split, columns, TupleDomain.all());
+        }
+
+        @Override
+        public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+        {
+            this.dynamicFilter = dynamicFilter;
+            if (dynamicFilter.isNone()) {
+                return new FixedPageSource(ImmutableList.of());
+            }
+
+            Domain domain = dynamicFilter.getDomains().get().getOrDefault(KEY, Domain.all(BIGINT));
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
+            for (Page page : PROBE_PAGES) {
+                PageBuilder pageBuilder = new PageBuilder(PROBE_TYPES);
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    if (!domain.includesNullableValue(BIGINT.getLong(page.getBlock(0), position))) {
+                        continue;
+                    }
+                    pageBuilder.declarePosition();
+                    for (int channel = 0; channel < PROBE_TYPES.size(); channel++) {
+                        PROBE_TYPES.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+                    }
+                }
+                if (!pageBuilder.isEmpty()) {
+                    pages.add(pageBuilder.build());
+                }
+            }
+            return new FixedPageSource(pages.build());
+        }
+    }
+}
@@ -37,7 +37,9 @@ public class TestExchangeClientConfig
                 .setConcurrentRequestMultiplier(3)
                 .setMinErrorDuration(new Duration(1, TimeUnit.MINUTES))
                 .setMaxResponseSize(new HttpClientConfig().getMaxContentLength())
-                .setClientThreads(25));
+                .setClientThreads(25)
+                .setCompressionEnabled(false)
+                .setChecksumEnabled(false));
     }
 
     @Test
@@ -49,6 +51,8 @@ public class TestExchangeClientConfig
                 .put("exchange.min-error-duration", "13s")
                 .put("exchange.max-response-size", "1MB")
                 .put("exchange.client-threads", "2")
+                .put("exchange.compression-enabled", "true")
+                .put("exchange.checksum-enabled", "true")
                 .build();
 
         ExchangeClientConfig expected = new ExchangeClientConfig()
@@ -56,7 +60,9 @@ public class TestExchangeClientConfig
                 .setConcurrentRequestMultiplier(13)
                 .setMinErrorDuration(new Duration(13, TimeUnit.SECONDS))
                 .setMaxResponseSize(new DataSize(1, Unit.MEGABYTE))
-                .setClientThreads(2);
+                .setClientThreads(2)
+                .setCompressionEnabled(true)
+                .setChecksumEnabled(true);
 
         assertFullMapping(properties, expected);
     }
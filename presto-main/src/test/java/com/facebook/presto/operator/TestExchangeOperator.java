@@ -14,7 +14,6 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.block.BlockEncodingManager;
-import com.facebook.presto.block.PagesSerde;
 import com.facebook.presto.metadata.RemoteTransactionHandle;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.ExchangeOperator.ExchangeOperatorFactory;
@@ -23,21 +22,12 @@ import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.RemoteSplit;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.type.TypeRegistry;
-import com.google.common.base.Splitter;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableListMultimap;
-import com.google.common.collect.ImmutableListMultimap.Builder;
-import com.google.common.collect.Iterables;
 import io.airlift.http.client.HttpClient;
-import io.airlift.http.client.HttpStatus;
-import io.airlift.http.client.Request;
-import io.airlift.http.client.Response;
 import io.airlift.http.client.testing.TestingHttpClient;
-import io.airlift.http.client.testing.TestingResponse;
-import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.testng.annotations.AfterClass;
@@ -47,25 +37,19 @@ import org.testng.annotations.Test;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
-import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
 import static com.facebook.presto.SequencePageBuilder.createSequencePage;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
-import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
-import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
-import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
-import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.Collections.nCopies;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
-import static javax.ws.rs.core.HttpHeaders.CONTENT_TYPE;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
@@ -81,13 +65,13 @@ public class TestExchangeOperator
     private static final String TASK_2_ID = "task2";
     private static final String TASK_3_ID = "task3";
 
-    private final LoadingCache<String, TaskBuffer> taskBuffers = CacheBuilder.newBuilder().build(new CacheLoader<String, TaskBuffer>()
+    private final LoadingCache<String, TestingTaskBuffer> taskBuffers = CacheBuilder.newBuilder().build(new CacheLoader<String, TestingTaskBuffer>()
     {
         @Override
-        public TaskBuffer load(String key)
+        public TestingTaskBuffer load(String key)
                 throws Exception
         {
-            return new TaskBuffer();
+            return new TestingTaskBuffer();
         }
     });
 
@@ -102,7 +86,7 @@ public class TestExchangeOperator
     {
         executor = newScheduledThreadPool(4, daemonThreadsNamed("test-%s"));
 
-        httpClient = new TestingHttpClient(new HttpClientHandler(taskBuffers), executor);
+        httpClient = new TestingHttpClient(new TestingExchangeHttpClientHandler(taskBuffers, blockEncodingSerde), executor);
 
         exchangeClientSupplier = (systemMemoryUsageListener) -> new ExchangeClient(
                 blockEncodingSerde,
@@ -110,6 +94,8 @@ public class TestExchangeOperator
                 new DataSize(10, MEGABYTE),
                 3,
                 new Duration(1, TimeUnit.MINUTES),
+                false,
+                false,
                 httpClient,
                 executor,
                 systemMemoryUsageListener);
@@ -144,9 +130,9 @@ public class TestExchangeOperator
         operator.noMoreSplits();
 
         // add pages and close the buffers
-        taskBuffers.getUnchecked(TASK_1_ID).addPages(10, true);
-        taskBuffers.getUnchecked(TASK_2_ID).addPages(10, true);
-        taskBuffers.getUnchecked(TASK_3_ID).addPages(10, true);
+        taskBuffers.getUnchecked(TASK_1_ID).addPages(nCopies(10, PAGE), true);
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(nCopies(10, PAGE), true);
+        taskBuffers.getUnchecked(TASK_3_ID).addPages(nCopies(10, PAGE), true);
 
         // read the pages
         waitForPages(operator, 30);
@@ -172,9 +158,9 @@ public class TestExchangeOperator
         operator.noMoreSplits();
 
         // add pages and leave buffers open
-        taskBuffers.getUnchecked(TASK_1_ID).addPages(1, false);
-        taskBuffers.getUnchecked(TASK_2_ID).addPages(1, false);
-        taskBuffers.getUnchecked(TASK_3_ID).addPages(1, false);
+        taskBuffers.getUnchecked(TASK_1_ID).addPages(nCopies(1, PAGE), false);
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(nCopies(1, PAGE), false);
+        taskBuffers.getUnchecked(TASK_3_ID).addPages(nCopies(1, PAGE), false);
 
         // read 3 pages
         waitForPages(operator, 3);
@@ -185,9 +171,9 @@ public class TestExchangeOperator
         assertEquals(operator.getOutput(), null);
 
         // add more pages and close the buffers
-        taskBuffers.getUnchecked(TASK_1_ID).addPages(2, true);
-        taskBuffers.getUnchecked(TASK_2_ID).addPages(2, true);
-        taskBuffers.getUnchecked(TASK_3_ID).addPages(2, true);
+        taskBuffers.getUnchecked(TASK_1_ID).addPages(nCopies(2, PAGE), true);
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(nCopies(2, PAGE), true);
+        taskBuffers.getUnchecked(TASK_3_ID).addPages(nCopies(2, PAGE), true);
 
         // read all pages
         waitForPages(operator, 6);
@@ -205,7 +191,7 @@ public class TestExchangeOperator
         // add a buffer location containing one page and close the buffer
         operator.addSplit(newRemoteSplit(TASK_1_ID));
         // add pages and leave buffers open
-        taskBuffers.getUnchecked(TASK_1_ID).addPages(1, true);
+        taskBuffers.getUnchecked(TASK_1_ID).addPages(nCopies(1, PAGE), true);
 
         // read page
         waitForPages(operator, 1);
@@ -220,7 +206,7 @@ public class TestExchangeOperator
         // set no more splits (buffer locations)
         operator.noMoreSplits();
         // add two pages and close the last buffer
-        taskBuffers.getUnchecked(TASK_2_ID).addPages(2, true);
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(nCopies(2, PAGE), true);
 
         // read all pages
         waitForPages(operator, 2);
@@ -241,9 +227,9 @@ public class TestExchangeOperator
         operator.noMoreSplits();
 
         // add pages and leave buffers open
-        taskBuffers.getUnchecked(TASK_1_ID).addPages(1, false);
-        taskBuffers.getUnchecked(TASK_2_ID).addPages(1, false);
-        taskBuffers.getUnchecked(TASK_3_ID).addPages(1, false);
+        taskBuffers.getUnchecked(TASK_1_ID).addPages(nCopies(1, PAGE), false);
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(nCopies(1, PAGE), false);
+        taskBuffers.getUnchecked(TASK_3_ID).addPages(nCopies(1, PAGE), false);
 
         // read 3 pages
         waitForPages(operator, 3);
@@ -349,88 +335,4 @@ public class TestExchangeOperator
         assertNull(operator.getOutput());
         assertEquals(operator.getOperatorContext().getOperatorStats().getSystemMemoryReservation().toBytes(), 0);
     }
-
-    private static class HttpClientHandler
-            implements TestingHttpClient.Processor
-    {
-        private final LoadingCache<String, TaskBuffer> taskBuffers;
-
-        public HttpClientHandler(LoadingCache<String, TaskBuffer> taskBuffers)
-        {
-            this.taskBuffers = taskBuffers;
-        }
-
-        @Override
-        public Response handle(Request request)
-        {
-            ImmutableList<String> parts = ImmutableList.copyOf(Splitter.on("/").omitEmptyStrings().split(request.getUri().getPath()));
-            if (request.getMethod().equals("DELETE")) {
-                assertEquals(parts.size(), 1);
-                return new TestingResponse(HttpStatus.OK, ImmutableListMultimap.of(), new byte[0]);
-            }
-
-            assertEquals(parts.size(), 2);
-            String taskId = parts.get(0);
-            int pageToken = Integer.parseInt(parts.get(1));
-
-            Builder<String, String> headers = ImmutableListMultimap.builder();
-            headers.put(PRESTO_TASK_INSTANCE_ID, "task-instance-id");
-            headers.put(PRESTO_PAGE_TOKEN, String.valueOf(pageToken));
-
-            TaskBuffer taskBuffer = taskBuffers.getUnchecked(taskId);
-            Page page = taskBuffer.getPage(pageToken);
-            headers.put(CONTENT_TYPE, PRESTO_PAGES);
-            if (page != null) {
-                headers.put(PRESTO_PAGE_NEXT_TOKEN, String.valueOf(pageToken + 1));
-                headers.put(PRESTO_BUFFER_COMPLETE, String.valueOf(false));
-                DynamicSliceOutput output = new DynamicSliceOutput(256);
-                PagesSerde.writePages(blockEncodingSerde, output, page);
-                return new TestingResponse(HttpStatus.OK, headers.build(), output.slice().getInput());
-            }
-            else if (taskBuffer.isFinished()) {
-                headers.put(PRESTO_PAGE_NEXT_TOKEN, String.valueOf(pageToken));
-                headers.put(PRESTO_BUFFER_COMPLETE, String.valueOf(true));
-                return new TestingResponse(HttpStatus.OK, headers.build(), new byte[0]);
-            }
-            else {
-                headers.put(PRESTO_PAGE_NEXT_TOKEN, String.valueOf(pageToken));
-                headers.put(PRESTO_BUFFER_COMPLETE, String.valueOf(false));
-                return new TestingResponse(HttpStatus.NO_CONTENT, headers.build(), new byte[0]);
-            }
-        }
-    }
-
-    private static class TaskBuffer
-    {
-        private final List<Page> buffer = new ArrayList<>();
-        private int acknowledgedPages;
-        private boolean closed;
-
-        private synchronized void addPages(int pages, boolean close)
-        {
-            addPages(Collections.nCopies(pages, PAGE));
-            if (close) {
-                closed = true;
-            }
-        }
-
-        public synchronized void addPages(Iterable<Page> pages)
-        {
-            Iterables.addAll(buffer, pages);
-        }
-
-        public synchronized Page getPage(int pageSequenceId)
-        {
-            acknowledgedPages = Math.max(acknowledgedPages, pageSequenceId);
-            if (pageSequenceId >= buffer.size()) {
-                return null;
-            }
-            return buffer.get(pageSequenceId);
-        }
-
-        private synchronized boolean isFinished()
-        {
-            return closed && acknowledgedPages == buffer.size();
-        }
-    }
 }
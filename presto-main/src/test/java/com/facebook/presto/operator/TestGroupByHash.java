@@ -29,6 +29,7 @@ import java.util.Optional;
 
 import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
 import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
@@ -116,6 +117,30 @@ public class TestGroupByHash
         }
     }
 
+    @Test
+    public void testGetGroupIdsMultiplePositions()
+            throws Exception
+    {
+        // small expected size forces rehashes while the page is processed
+        GroupByHash bigintGroupByHash = createGroupByHash(TEST_SESSION, ImmutableList.of(BIGINT), new int[] { 0 }, Optional.of(1), 4);
+        Block bigintBlock = createLongsBlock(3L, null, 1L, 3L, 2L, null, 1L, 4L, 5L, 6L, 7L, 3L);
+        assertGroupIds(bigintGroupByHash.getGroupIds(new Page(bigintBlock, getHashBlock(ImmutableList.of(BIGINT), bigintBlock))));
+
+        GroupByHash varcharGroupByHash = createGroupByHash(TEST_SESSION, ImmutableList.of(VARCHAR), new int[] { 0 }, Optional.of(1), 4);
+        Block varcharBlock = createStringsBlock("3", null, "1", "3", "2", null, "1", "4", "5", "6", "7", "3");
+        assertGroupIds(varcharGroupByHash.getGroupIds(new Page(varcharBlock, getHashBlock(ImmutableList.of(VARCHAR), varcharBlock))));
+    }
+
+    private static void assertGroupIds(GroupByIdBlock groupIds)
+    {
+        long[] expected = {0, 1, 2, 0, 3, 1, 2, 4, 5, 6, 7, 0};
+        assertEquals(groupIds.getGroupCount(), 8);
+        assertEquals(groupIds.getPositionCount(), expected.length);
+        for (int position = 0; position < expected.length; position++) {
+            assertEquals(groupIds.getGroupId(position), expected[position]);
+        }
+    }
+
     @Test
     public void testTypes()
             throws Exception
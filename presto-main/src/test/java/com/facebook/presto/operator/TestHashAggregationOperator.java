@@ -18,6 +18,7 @@ import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.HashAggregationOperator.HashAggregationOperatorFactory;
+import com.facebook.presto.operator.HashAggregationOperator.PartialAggregationInfo;
 import com.facebook.presto.operator.aggregation.InternalAggregationFunction;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockBuilder;
@@ -25,9 +26,12 @@ import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.PageBuilderStatus;
 import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.BinarySpillerFactory;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.testing.MaterializedRow;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slices;
@@ -38,6 +42,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -47,6 +53,7 @@ import java.util.concurrent.ExecutorService;
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.metadata.FunctionKind.AGGREGATE;
+import static com.facebook.presto.operator.HashAggregationOperator.ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
 import static com.facebook.presto.operator.OperatorAssertion.dropChannel;
 import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
@@ -60,6 +67,9 @@ import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
 import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
@@ -159,6 +169,62 @@ public class TestHashAggregationOperator
         assertOperatorEqualsIgnoreOrder(operator, input, expected, hashEnabled, Optional.of(hashChannels.size()));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testHashAggregationWithSpill(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(1);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, VARCHAR, VARCHAR, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(10, 100, 0, 0)
+                .addSequencePage(10, 100, 5, 100)
+                .addSequencePage(10, 100, 0, 200)
+                .build();
+
+        Path spillPath = Files.createTempDirectory("presto-spill-test");
+        try {
+            SpillerFactory spillerFactory = new BinarySpillerFactory(
+                    listeningDecorator(sameThreadExecutor()),
+                    metadata.getBlockEncodingSerde(),
+                    spillPath);
+
+            HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                    0,
+                    new PlanNodeId("test"),
+                    ImmutableList.of(VARCHAR),
+                    hashChannels,
+                    Step.SINGLE,
+                    ImmutableList.of(COUNT.bind(ImmutableList.of(0), Optional.empty(), Optional.empty(), 1.0),
+                            LONG_SUM.bind(ImmutableList.of(2), Optional.empty(), Optional.empty(), 1.0)),
+                    rowPagesBuilder.getHashChannel(),
+                    100_000,
+                    new DataSize(16, MEGABYTE),
+                    true,
+                    new DataSize(1, Unit.BYTE),
+                    Optional.of(spillerFactory));
+
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT, BIGINT);
+            for (long i = 0; i < 5; i++) {
+                expected.row(String.valueOf(i), 2L, i + (200 + i));
+            }
+            for (long i = 5; i < 10; i++) {
+                expected.row(String.valueOf(i), 3L, i + (100 + i - 5) + (200 + i));
+            }
+            for (long i = 10; i < 15; i++) {
+                expected.row(String.valueOf(i), 1L, 100 + i - 5);
+            }
+
+            assertOperatorEqualsIgnoreOrder(operator, input, expected.build(), hashEnabled, Optional.of(hashChannels.size()));
+            assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+            operator.close();
+        }
+        finally {
+            Files.delete(spillPath);
+        }
+    }
+
     @Test(dataProvider = "hashEnabledValues", expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded local memory limit of 10B")
     public void testMemoryLimit(boolean hashEnabled)
     {
@@ -374,4 +440,128 @@ public class TestHashAggregationOperator
         assertEquals(actual.getTypes(), expected.getTypes());
         assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
     }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testAdaptivePartialAggregationPassThrough(boolean hashEnabled)
+            throws Exception
+    {
+        int pageSize = ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS / 2;
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(pageSize, 0)
+                .addSequencePage(pageSize, pageSize)
+                .addSequencePage(pageSize, 2 * pageSize)
+                .addSequencePage(pageSize, 3 * pageSize)
+                .build();
+
+        Operator operator = createAdaptivePartialAggregation(rowPagesBuilder, hashChannels);
+        List<Page> outputPages = toPages(operator, input);
+
+        // keys are unique, so the operator switches to pass through once it has seen enough rows
+        assertPartialAggregationInfo(((HashAggregationOperator) operator).getInfo(), 2 * pageSize, 2 * pageSize, 2 * pageSize);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT)
+                .pages(rowPagesBuilder(BIGINT, BIGINT).addSequencePage(4 * pageSize, 0, 0).build())
+                .build();
+        assertEqualsIgnoreOrder(toPartialResult(operator, outputPages, hashEnabled, hashChannels).getMaterializedRows(), expected.getMaterializedRows());
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testAdaptivePartialAggregationKeepsReducingAggregation(boolean hashEnabled)
+            throws Exception
+    {
+        int pageSize = ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS / 2;
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(pageSize, 0)
+                .addSequencePage(pageSize, 0)
+                .addSequencePage(pageSize, 0)
+                .addSequencePage(pageSize, 0)
+                .build();
+
+        Operator operator = createAdaptivePartialAggregation(rowPagesBuilder, hashChannels);
+        List<Page> outputPages = toPages(operator, input);
+
+        // every key is seen four times, so the hash table is worth building
+        assertPartialAggregationInfo(((HashAggregationOperator) operator).getInfo(), 4 * pageSize, pageSize, 0);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT)
+                .pages(rowPagesBuilder(BIGINT, BIGINT).addSequencePage(pageSize, 0, 0).build())
+                .build();
+        List<MaterializedRow> expectedRows = expected.getMaterializedRows().stream()
+                .map(row -> new MaterializedRow(row.getPrecision(), row.getField(0), 4 * (long) row.getField(1)))
+                .collect(toImmutableList());
+        assertEqualsIgnoreOrder(toPartialResult(operator, outputPages, hashEnabled, hashChannels).getMaterializedRows(), expectedRows);
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testAdaptivePartialAggregationCountsRowsAcrossFlushes(boolean hashEnabled)
+            throws Exception
+    {
+        int pageSize = ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS / 10;
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        for (int page = 0; page < 15; page++) {
+            rowPagesBuilder.addSequencePage(pageSize, page * pageSize);
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        // the memory limit makes the operator flush its hash table after every page
+        DriverContext driverContext = createTaskContext(executor, TEST_SESSION, new DataSize(1, Unit.KILOBYTE))
+                .addPipelineContext(true, true)
+                .addDriverContext();
+        Operator operator = createAdaptivePartialAggregation(rowPagesBuilder, hashChannels, driverContext);
+        List<Page> outputPages = toPages(operator, input);
+
+        // no single hash table sees enough rows, but together they do
+        assertPartialAggregationInfo(((HashAggregationOperator) operator).getInfo(), 10 * pageSize, 10 * pageSize, 5 * pageSize);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT)
+                .pages(rowPagesBuilder(BIGINT, BIGINT).addSequencePage(15 * pageSize, 0, 0).build())
+                .build();
+        assertEqualsIgnoreOrder(toPartialResult(operator, outputPages, hashEnabled, hashChannels).getMaterializedRows(), expected.getMaterializedRows());
+    }
+
+    private Operator createAdaptivePartialAggregation(RowPagesBuilder rowPagesBuilder, List<Integer> hashChannels)
+    {
+        return createAdaptivePartialAggregation(rowPagesBuilder, hashChannels, driverContext);
+    }
+
+    private static Operator createAdaptivePartialAggregation(RowPagesBuilder rowPagesBuilder, List<Integer> hashChannels, DriverContext driverContext)
+    {
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                Step.PARTIAL,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(0), Optional.empty(), Optional.empty(), 1.0)),
+                rowPagesBuilder.getHashChannel(),
+                100_000,
+                new DataSize(16, MEGABYTE),
+                false,
+                new DataSize(0, MEGABYTE),
+                Optional.empty(),
+                true,
+                0.9);
+        return operatorFactory.createOperator(driverContext);
+    }
+
+    private static void assertPartialAggregationInfo(PartialAggregationInfo info, long aggregatedRows, long aggregatedGroups, long passThroughRows)
+    {
+        assertEquals(info.getAggregatedRows(), aggregatedRows);
+        assertEquals(info.getAggregatedGroups(), aggregatedGroups);
+        assertEquals(info.getPassThroughRows(), passThroughRows);
+    }
+
+    private static MaterializedResult toPartialResult(Operator operator, List<Page> outputPages, boolean hashEnabled, List<Integer> hashChannels)
+    {
+        if (hashEnabled) {
+            // Drop the hashChannel for all pages
+            return toMaterializedResult(operator.getOperatorContext().getSession(), without(operator.getTypes(), hashChannels), dropChannel(outputPages, hashChannels));
+        }
+        return toMaterializedResult(operator.getOperatorContext().getSession(), operator.getTypes(), outputPages);
+    }
 }
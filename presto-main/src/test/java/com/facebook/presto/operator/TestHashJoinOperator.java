@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
 import com.facebook.presto.operator.ParallelHashBuildOperator.ParallelHashBuildOperatorFactory;
 import com.facebook.presto.operator.ValuesOperator.ValuesOperatorFactory;
@@ -24,7 +25,11 @@ import com.facebook.presto.operator.exchange.LocalExchangeSinkOperator.LocalExch
 import com.facebook.presto.operator.exchange.LocalExchangeSourceOperator.LocalExchangeSourceOperatorFactory;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.DictionaryId;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.BinarySpillerFactory;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.facebook.presto.testing.TestingTaskContext;
@@ -38,6 +43,9 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -45,14 +53,26 @@ import java.util.function.Function;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.operator.OperatorAssertion.toPages;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
 import static com.google.common.collect.Iterables.concat;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.slice.Slices.wrappedIntArray;
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashJoinOperator
@@ -87,6 +107,16 @@ public class TestHashJoinOperator
                 {false, false, false}};
     }
 
+    @DataProvider(name = "spillHashEnabledValues")
+    public static Object[][] spillHashEnabledValuesProvider()
+    {
+        return new Object[][] {
+                {true, true},
+                {true, false},
+                {false, true},
+                {false, false}};
+    }
+
     @Test(dataProvider = "hashEnabledValues")
     public void testInnerJoin(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
             throws Exception
@@ -132,6 +162,253 @@ public class TestHashJoinOperator
         assertOperatorEquals(joinOperator, probeInput, expected, true, getHashChannels(probePages, buildPages));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testInnerJoinWithDictionaryProbe(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+
+        // build
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), ImmutableList.of(VARCHAR, BIGINT, BIGINT))
+                .addSequencePage(10, 20, 30, 40);
+        LookupSourceSupplier lookupSourceSupplier = buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.empty());
+
+        // probe pages share the same dictionary, so join positions are reused across pages
+        Block dictionary = createStringsBlock("18", null, "20", "25", "29", "30");
+        DictionaryId dictionaryId = DictionaryId.randomDictionaryId();
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), ImmutableList.<Type>of(VARCHAR, BIGINT));
+        List<Page> probeInput = probePages
+                .addBlocksPage(
+                        new DictionaryBlock(8, dictionary, wrappedIntArray(0, 1, 2, 3, 2, 0, 4, 5), dictionaryId),
+                        createLongSequenceBlock(0, 8))
+                .addBlocksPage(
+                        new DictionaryBlock(5, dictionary, wrappedIntArray(3, 3, 5, 1, 2), dictionaryId),
+                        createLongSequenceBlock(100, 105))
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                new PlanNodeId("test"),
+                lookupSourceSupplier,
+                probePages.getTypes(),
+                Ints.asList(0),
+                probePages.getHashChannel(),
+                false
+        );
+
+        Operator joinOperator = joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext());
+
+        // expected
+        MaterializedResult expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probePages.getTypes(), buildPages.getTypes()))
+                .row("20", 2L, "20", 30L, 40L)
+                .row("25", 3L, "25", 35L, 45L)
+                .row("20", 4L, "20", 30L, 40L)
+                .row("29", 6L, "29", 39L, 49L)
+                .row("25", 100L, "25", 35L, 45L)
+                .row("25", 101L, "25", 35L, 45L)
+                .row("20", 104L, "20", 30L, 40L)
+                .build();
+
+        assertOperatorEquals(joinOperator, probeInput, expected, true, getHashChannels(probePages, buildPages));
+    }
+
+    @Test(dataProvider = "spillHashEnabledValues")
+    public void testInnerJoinWithSpill(boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+        Path spillPath = Files.createTempDirectory("presto-join-spill-test");
+        try {
+            // build, every partition is spilled since the memory limit is a single byte
+            RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), ImmutableList.of(VARCHAR, BIGINT, BIGINT))
+                    .addSequencePage(10, 20, 30, 40)
+                    .addSequencePage(10, 30, 40, 50);
+            LookupSourceSupplier lookupSourceSupplier = buildHash(true, taskContext, Ints.asList(0), buildPages, Optional.empty(), Optional.of(createSpillerFactory(spillPath)));
+
+            // probe
+            RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT));
+            List<Page> probeInput = probePages
+                    .addSequencePage(1000, 0, 1000, 2000)
+                    .build();
+            OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                    0,
+                    new PlanNodeId("test"),
+                    lookupSourceSupplier,
+                    probePages.getTypes(),
+                    Ints.asList(0),
+                    probePages.getHashChannel(),
+                    false);
+
+            Operator joinOperator = joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext());
+            joinOperatorFactory.close();
+
+            // expected
+            MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probePages.getTypes(), buildPages.getTypes()));
+            for (long i = 20; i < 40; i++) {
+                expected.row(String.valueOf(i), 1000 + i, 2000 + i, String.valueOf(i), 10 + i, 20 + i);
+            }
+
+            assertOperatorEqualsIgnoreOrder(joinOperator, probeInput, expected.build(), true, getHashChannels(probePages, buildPages));
+        }
+        finally {
+            Files.delete(spillPath);
+        }
+    }
+
+    @Test(dataProvider = "spillHashEnabledValues")
+    public void testProbeOuterJoinWithSpill(boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+        Path spillPath = Files.createTempDirectory("presto-join-spill-test");
+        try {
+            // build, every partition is spilled since the memory limit is a single byte
+            List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT);
+            RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), buildTypes)
+                    .addSequencePage(10, 20, 30, 40);
+            LookupSourceSupplier lookupSourceSupplier = buildHash(true, taskContext, Ints.asList(0), buildPages, Optional.empty(), Optional.of(createSpillerFactory(spillPath)));
+
+            // probe
+            List<Type> probeTypes = ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT);
+            RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), probeTypes);
+            List<Page> probeInput = probePages
+                    .addSequencePage(15, 20, 1020, 2020)
+                    .build();
+            OperatorFactory joinOperatorFactory = LookupJoinOperators.probeOuterJoin(
+                    0,
+                    new PlanNodeId("test"),
+                    lookupSourceSupplier,
+                    probePages.getTypes(),
+                    Ints.asList(0),
+                    probePages.getHashChannel(),
+                    false);
+            Operator joinOperator = joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext());
+            joinOperatorFactory.close();
+
+            // expected
+            MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes));
+            for (long i = 20; i < 30; i++) {
+                expected.row(String.valueOf(i), 1000 + i, 2000 + i, String.valueOf(i), 10 + i, 20 + i);
+            }
+            for (long i = 30; i < 35; i++) {
+                expected.row(String.valueOf(i), 1000 + i, 2000 + i, null, null, null);
+            }
+
+            assertOperatorEqualsIgnoreOrder(joinOperator, probeInput, expected.build(), true, getHashChannels(probePages, buildPages));
+        }
+        finally {
+            Files.delete(spillPath);
+        }
+    }
+
+    @Test(dataProvider = "spillHashEnabledValues")
+    public void testInnerJoinWithSpillAcrossOperators(boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+        Path spillPath = Files.createTempDirectory("presto-join-spill-test");
+        try {
+            // build, every partition is spilled since the memory limit is a single byte
+            RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), ImmutableList.of(VARCHAR, BIGINT, BIGINT))
+                    .addSequencePage(10, 20, 30, 40)
+                    .addSequencePage(10, 30, 40, 50);
+            LookupSourceSupplier lookupSourceSupplier = buildHash(true, taskContext, Ints.asList(0), buildPages, Optional.empty(), Optional.of(createSpillerFactory(spillPath)));
+
+            // probe, split across two operators
+            RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT));
+            List<Page> probeInput = probePages
+                    .addSequencePage(30, 0, 1000, 2000)
+                    .addSequencePage(30, 30, 1030, 2030)
+                    .build();
+            OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                    0,
+                    new PlanNodeId("test"),
+                    lookupSourceSupplier,
+                    probePages.getTypes(),
+                    Ints.asList(0),
+                    probePages.getHashChannel(),
+                    false);
+
+            PipelineContext probePipeline = taskContext.addPipelineContext(true, true);
+            Operator firstJoinOperator = joinOperatorFactory.createOperator(probePipeline.addDriverContext());
+            Operator secondJoinOperator = joinOperatorFactory.createOperator(probePipeline.addDriverContext());
+
+            // the first operator hands its spilled rows over to the second one, which is still running
+            assertTrue(toPages(firstJoinOperator, probeInput.subList(0, 1)).isEmpty());
+            joinOperatorFactory.close();
+
+            // expected, the second operator joins the spilled rows of both operators, loading every partition once
+            MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probePages.getTypes(), buildPages.getTypes()));
+            for (long i = 20; i < 40; i++) {
+                expected.row(String.valueOf(i), 1000 + i, 2000 + i, String.valueOf(i), 10 + i, 20 + i);
+            }
+
+            assertOperatorEqualsIgnoreOrder(secondJoinOperator, probeInput.subList(1, 2), expected.build(), true, getHashChannels(probePages, buildPages));
+        }
+        finally {
+            Files.delete(spillPath);
+        }
+    }
+
+    @Test
+    public void testSpilledJoinWaitsForMoreOperators()
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+        Path spillPath = Files.createTempDirectory("presto-join-spill-test");
+        try {
+            // build, every partition is spilled since the memory limit is a single byte
+            RowPagesBuilder buildPages = rowPagesBuilder(false, Ints.asList(0), ImmutableList.of(VARCHAR, BIGINT, BIGINT))
+                    .addSequencePage(10, 20, 30, 40);
+            LookupSourceSupplier lookupSourceSupplier = buildHash(true, taskContext, Ints.asList(0), buildPages, Optional.empty(), Optional.of(createSpillerFactory(spillPath)));
+
+            // probe
+            RowPagesBuilder probePages = rowPagesBuilder(false, Ints.asList(0), ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT));
+            List<Page> probeInput = probePages
+                    .addSequencePage(30, 0, 1000, 2000)
+                    .build();
+            OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                    0,
+                    new PlanNodeId("test"),
+                    lookupSourceSupplier,
+                    probePages.getTypes(),
+                    Ints.asList(0),
+                    probePages.getHashChannel(),
+                    false);
+            Operator joinOperator = joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext());
+
+            assertTrue(joinOperator.needsInput());
+            joinOperator.addInput(probeInput.get(0));
+            joinOperator.finish();
+            for (int i = 0; i < 10; i++) {
+                assertNull(joinOperator.getOutput());
+            }
+
+            // the last running operator waits, since more operators could still add spilled rows
+            assertFalse(joinOperator.isBlocked().isDone());
+            assertFalse(joinOperator.isFinished());
+
+            joinOperatorFactory.close();
+            assertTrue(joinOperator.isBlocked().isDone());
+
+            List<Page> pages = new ArrayList<>();
+            while (!joinOperator.isFinished()) {
+                Page page = joinOperator.getOutput();
+                if (page != null) {
+                    pages.add(page);
+                }
+            }
+
+            MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probePages.getTypes(), buildPages.getTypes()));
+            for (long i = 20; i < 30; i++) {
+                expected.row(String.valueOf(i), 1000 + i, 2000 + i, String.valueOf(i), 10 + i, 20 + i);
+            }
+            assertEqualsIgnoreOrder(toMaterializedResult(taskContext.getSession(), joinOperator.getTypes(), pages).getMaterializedRows(), expected.build().getMaterializedRows());
+        }
+        finally {
+            Files.delete(spillPath);
+        }
+    }
+
     @Test(dataProvider = "hashEnabledValues")
     public void testInnerJoinWithNullProbe(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
             throws Exception
@@ -675,6 +952,11 @@ public class TestHashJoinOperator
         return TestingTaskContext.createTaskContext(executor, TEST_SESSION);
     }
 
+    private static SpillerFactory createSpillerFactory(Path spillPath)
+    {
+        return new BinarySpillerFactory(listeningDecorator(sameThreadExecutor()), MetadataManager.createTestMetadataManager().getBlockEncodingSerde(), spillPath);
+    }
+
     private static List<Integer> getHashChannels(RowPagesBuilder probe, RowPagesBuilder build)
     {
         ImmutableList.Builder<Integer> hashChannels = ImmutableList.builder();
@@ -688,6 +970,17 @@ public class TestHashJoinOperator
     }
 
     private static LookupSourceSupplier buildHash(boolean parallelBuild, TaskContext taskContext, List<Integer> hashChannels, RowPagesBuilder buildPages, Optional<JoinFilterFunction> filterFunction)
+    {
+        return buildHash(parallelBuild, taskContext, hashChannels, buildPages, filterFunction, Optional.empty());
+    }
+
+    private static LookupSourceSupplier buildHash(
+            boolean parallelBuild,
+            TaskContext taskContext,
+            List<Integer> hashChannels,
+            RowPagesBuilder buildPages,
+            Optional<JoinFilterFunction> filterFunction,
+            Optional<SpillerFactory> spillerFactory)
     {
         if (parallelBuild) {
             LocalExchange localExchange = new LocalExchange(FIXED_HASH_DISTRIBUTION, PARTITION_COUNT, buildPages.getTypes(), hashChannels, buildPages.getHashChannel());
@@ -720,7 +1013,10 @@ public class TestHashJoinOperator
                     false,
                     filterFunction,
                     100,
-                    PARTITION_COUNT);
+                    PARTITION_COUNT,
+                    spillerFactory.isPresent(),
+                    new DataSize(1, BYTE),
+                    spillerFactory);
             PipelineContext buildPipeline = taskContext.addPipelineContext(true, true);
             for (int i = 0; i < PARTITION_COUNT; i++) {
                 DriverContext buildDriverContext = buildPipeline.addDriverContext();
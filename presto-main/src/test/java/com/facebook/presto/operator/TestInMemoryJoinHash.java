@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static org.testng.Assert.assertEquals;
+
+public class TestInMemoryJoinHash
+{
+    static final List<Type> TYPES = ImmutableList.of(VARCHAR, BIGINT);
+    static final List<Integer> HASH_CHANNELS = ImmutableList.of(0);
+
+    @DataProvider(name = "hashEnabledValues")
+    public static Object[][] hashEnabledValuesProvider()
+    {
+        return new Object[][] {
+                {true, true},
+                {true, false},
+                {false, true},
+                {false, false}};
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testGetJoinPositions(boolean buildHashEnabled, boolean probeHashEnabled)
+    {
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, HASH_CHANNELS, TYPES)
+                .row("a", 0L)
+                .row("b", 1L)
+                .row(null, 2L)
+                .row("a", 3L)
+                .pageBreak();
+        for (int i = 0; i < 1000; i++) {
+            buildPages.row("key" + i, 100L + i);
+        }
+        LookupSource lookupSource = createLookupSource(buildPages.build(), buildPages.getTypes(), buildPages.getHashChannel());
+
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, HASH_CHANNELS, TYPES)
+                .row("a", 0L)
+                .row(null, 1L)
+                .row("missing", 2L)
+                .row("b", 3L)
+                .row("key17", 4L)
+                .row("key1000", 5L)
+                .row("a", 6L);
+        Page probePage = getOnlyElement(probePages.build());
+        Page hashChannelsPage = new Page(probePage.getBlock(0));
+        Optional<Block> hashBlock = probePages.getHashChannel().map(probePage::getBlock);
+
+        long[] joinPositions = lookupSource.getJoinPositions(hashChannelsPage, probePage, hashBlock);
+        assertEquals(joinPositions.length, probePage.getPositionCount());
+
+        // every match of a key is reachable from its first join position
+        assertEquals(getJoinedValues(lookupSource, buildPages.getTypes(), joinPositions[0], 0, probePage), ImmutableSet.of(0L, 3L));
+        assertEquals(joinPositions[1], -1);
+        assertEquals(joinPositions[2], -1);
+        assertEquals(getJoinedValues(lookupSource, buildPages.getTypes(), joinPositions[3], 3, probePage), ImmutableSet.of(1L));
+        assertEquals(getJoinedValues(lookupSource, buildPages.getTypes(), joinPositions[4], 4, probePage), ImmutableSet.of(117L));
+        assertEquals(joinPositions[5], -1);
+        assertEquals(joinPositions[6], joinPositions[0]);
+
+        assertSameAsRowLookup(lookupSource, joinPositions, hashChannelsPage, probePage);
+    }
+
+    @Test
+    public void testGetJoinPositionsEmptyBuild()
+    {
+        LookupSource lookupSource = createLookupSource(ImmutableList.of(), TYPES, Optional.empty());
+
+        Page probePage = getOnlyElement(rowPagesBuilder(TYPES)
+                .row("a", 0L)
+                .row(null, 1L)
+                .build());
+        long[] joinPositions = lookupSource.getJoinPositions(new Page(probePage.getBlock(0)), probePage, Optional.empty());
+        assertEquals(joinPositions.length, 2);
+        assertEquals(joinPositions[0], -1);
+        assertEquals(joinPositions[1], -1);
+    }
+
+    static LookupSource createLookupSource(List<Page> pages, List<Type> types, Optional<Integer> hashChannel)
+    {
+        ImmutableList.Builder<List<Block>> channels = ImmutableList.builder();
+        for (int channel = 0; channel < types.size(); channel++) {
+            ImmutableList.Builder<Block> blocks = ImmutableList.builder();
+            for (Page page : pages) {
+                blocks.add(page.getBlock(channel));
+            }
+            channels.add(blocks.build());
+        }
+
+        LongArrayList addresses = new LongArrayList();
+        for (int pageIndex = 0; pageIndex < pages.size(); pageIndex++) {
+            for (int position = 0; position < pages.get(pageIndex).getPositionCount(); position++) {
+                addresses.add(encodeSyntheticAddress(pageIndex, position));
+            }
+        }
+
+        return new InMemoryJoinHash(addresses, new SimplePagesHashStrategy(types, channels.build(), HASH_CHANNELS, hashChannel, Optional.empty()));
+    }
+
+    // returns the BIGINT values of the build rows joined with the probe row, starting at the given join position
+    static Set<Long> getJoinedValues(LookupSource lookupSource, List<Type> buildTypes, long joinPosition, int probePosition, Page probePage)
+    {
+        PageBuilder pageBuilder = new PageBuilder(buildTypes);
+        while (joinPosition >= 0) {
+            pageBuilder.declarePosition();
+            lookupSource.appendTo(joinPosition, pageBuilder, 0);
+            joinPosition = lookupSource.getNextJoinPosition(joinPosition, probePosition, probePage);
+        }
+
+        ImmutableSet.Builder<Long> values = ImmutableSet.builder();
+        Page page = pageBuilder.build();
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            values.add(BIGINT.getLong(page.getBlock(1), position));
+        }
+        return values.build();
+    }
+
+    // the batch lookup must return the same first join position as the lookup of a single row
+    static void assertSameAsRowLookup(LookupSource lookupSource, long[] joinPositions, Page hashChannelsPage, Page probePage)
+    {
+        for (int position = 0; position < probePage.getPositionCount(); position++) {
+            if (hashChannelsPage.getBlock(0).isNull(position)) {
+                assertEquals(joinPositions[position], -1);
+            }
+            else {
+                assertEquals(joinPositions[position], lookupSource.getJoinPosition(position, hashChannelsPage, probePage));
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalDynamicFilter
+{
+    private static final ColumnHandle KEY = new TestingColumnHandle("key");
+    private static final ColumnHandle NAME = new TestingColumnHandle("name");
+    private static final List<Type> TYPES = ImmutableList.of(VARCHAR, BIGINT);
+    private static final List<Integer> HASH_CHANNELS = ImmutableList.of(1, 0);
+
+    @Test
+    public void testDistinctValues()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, KEY, 1, NAME), 10);
+        filter.setPartitionCount(1);
+
+        collect(filter, rowPagesBuilder(TYPES)
+                .row("a", 1L)
+                .row("b", 3L)
+                .pageBreak()
+                .row(null, 3L)
+                .row("a", null)
+                .build());
+
+        assertTrue(filter.getResult().isDone());
+        assertEquals(getFutureValue(filter.getResult()), TupleDomain.withColumnDomains(ImmutableMap.of(
+                KEY, Domain.create(ValueSet.of(BIGINT, 1L, 3L), false),
+                NAME, Domain.create(ValueSet.of(VARCHAR, utf8Slice("a"), utf8Slice("b")), false))));
+    }
+
+    @Test
+    public void testRangeWhenTooManyDistinctValues()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, KEY), 2);
+        filter.setPartitionCount(1);
+
+        collect(filter, rowPagesBuilder(TYPES)
+                .row("a", 5L)
+                .row("a", 2L)
+                .row("a", 9L)
+                .build());
+
+        assertEquals(getFutureValue(filter.getResult()), TupleDomain.withColumnDomains(ImmutableMap.of(
+                KEY, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 2L, true, 9L, true)), false))));
+    }
+
+    @Test
+    public void testEmptyBuild()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, KEY), 10);
+        filter.setPartitionCount(1);
+
+        collect(filter, ImmutableList.of());
+
+        assertTrue(getFutureValue(filter.getResult()).isNone());
+    }
+
+    @Test
+    public void testMultiplePartitions()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, KEY), 10);
+        filter.setPartitionCount(2);
+
+        collect(filter, rowPagesBuilder(TYPES).row("a", 1L).build());
+        assertFalse(filter.getResult().isDone());
+
+        collect(filter, rowPagesBuilder(TYPES).row("b", 2L).build());
+        assertEquals(getFutureValue(filter.getResult()), TupleDomain.withColumnDomains(ImmutableMap.of(
+                KEY, Domain.create(ValueSet.of(BIGINT, 1L, 2L), false))));
+    }
+
+    @Test
+    public void testCombine()
+    {
+        LocalDynamicFilter first = new LocalDynamicFilter(ImmutableMap.of(0, KEY), 10);
+        first.setPartitionCount(1);
+        LocalDynamicFilter second = new LocalDynamicFilter(ImmutableMap.of(0, KEY), 10);
+        second.setPartitionCount(1);
+
+        assertTrue(getFutureValue(LocalDynamicFilter.combine(ImmutableList.of())).isAll());
+
+        ListenableFuture<TupleDomain<ColumnHandle>> combined = LocalDynamicFilter.combine(ImmutableList.of(first, second));
+        collect(first, rowPagesBuilder(TYPES).row("a", 1L).row("a", 2L).build());
+        assertFalse(combined.isDone());
+
+        collect(second, rowPagesBuilder(TYPES).row("a", 2L).row("a", 3L).build());
+        assertEquals(getFutureValue(combined), TupleDomain.withColumnDomains(ImmutableMap.of(
+                KEY, Domain.create(ValueSet.of(BIGINT, 2L), false))));
+    }
+
+    private static void collect(LocalDynamicFilter filter, List<Page> pages)
+    {
+        LocalDynamicFilter.Collector collector = filter.createCollector(TYPES, HASH_CHANNELS);
+        pages.forEach(collector::addPage);
+        collector.finish();
+    }
+}
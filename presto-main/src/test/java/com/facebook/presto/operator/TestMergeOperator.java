@@ -0,0 +1,390 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.metadata.RemoteTransactionHandle;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.operator.MergeOperator.MergeOperatorFactory;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.split.RemoteSplit;
+import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.testing.TestingHttpClient;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestMergeOperator
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+    private static final BlockEncodingManager blockEncodingSerde = new BlockEncodingManager(new TypeRegistry());
+
+    private static final String TASK_1_ID = "task1";
+    private static final String TASK_2_ID = "task2";
+    private static final String TASK_3_ID = "task3";
+
+    private final LoadingCache<String, TestingTaskBuffer> taskBuffers = CacheBuilder.newBuilder().build(new CacheLoader<String, TestingTaskBuffer>()
+    {
+        @Override
+        public TestingTaskBuffer load(String key)
+                throws Exception
+        {
+            return new TestingTaskBuffer();
+        }
+    });
+
+    private ScheduledExecutorService executor;
+    private HttpClient httpClient;
+    private ExchangeClientSupplier exchangeClientSupplier;
+
+    @SuppressWarnings("resource")
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        executor = newScheduledThreadPool(4, daemonThreadsNamed("test-%s"));
+
+        httpClient = new TestingHttpClient(new TestingExchangeHttpClientHandler(taskBuffers, blockEncodingSerde), executor);
+
+        exchangeClientSupplier = (systemMemoryUsageListener) -> new ExchangeClient(
+                blockEncodingSerde,
+                new DataSize(32, MEGABYTE),
+                new DataSize(10, MEGABYTE),
+                3,
+                new Duration(1, TimeUnit.MINUTES),
+                false,
+                false,
+                httpClient,
+                executor,
+                systemMemoryUsageListener);
+    }
+
+    @AfterClass
+    public void tearDown()
+            throws Exception
+    {
+        httpClient.close();
+        httpClient = null;
+
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    @BeforeMethod
+    public void setUpMethod()
+    {
+        taskBuffers.invalidateAll();
+    }
+
+    @Test
+    public void testMultipleSources()
+            throws Exception
+    {
+        SourceOperator operator = createMergeOperator();
+
+        operator.addSplit(newRemoteSplit(TASK_1_ID));
+        operator.addSplit(newRemoteSplit(TASK_2_ID));
+        operator.addSplit(newRemoteSplit(TASK_3_ID));
+        operator.noMoreSplits();
+
+        taskBuffers.getUnchecked(TASK_1_ID).addPages(rowPagesBuilder(TYPES)
+                .row(1L, "a")
+                .row(4L, "d")
+                .row(7L, "g")
+                .pageBreak()
+                .row(10L, "j")
+                .build(), true);
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(rowPagesBuilder(TYPES)
+                .row(null, "null")
+                .row(2L, "b")
+                .row(5L, "e")
+                .pageBreak()
+                .row(8L, "h")
+                .row(11L, "k")
+                .build(), true);
+        taskBuffers.getUnchecked(TASK_3_ID).addPages(rowPagesBuilder(TYPES)
+                .row(3L, "c")
+                .row(6L, "f")
+                .row(9L, "i")
+                .build(), true);
+
+        assertResult(pullAvailablePages(operator), resultBuilder(TEST_SESSION, TYPES)
+                .row(null, "null")
+                .row(1L, "a")
+                .row(2L, "b")
+                .row(3L, "c")
+                .row(4L, "d")
+                .row(5L, "e")
+                .row(6L, "f")
+                .row(7L, "g")
+                .row(8L, "h")
+                .row(9L, "i")
+                .row(10L, "j")
+                .row(11L, "k")
+                .build());
+        assertFinished(operator);
+    }
+
+    @Test
+    public void testEmptySources()
+            throws Exception
+    {
+        SourceOperator operator = createMergeOperator();
+
+        operator.addSplit(newRemoteSplit(TASK_1_ID));
+        operator.addSplit(newRemoteSplit(TASK_2_ID));
+        operator.addSplit(newRemoteSplit(TASK_3_ID));
+        operator.noMoreSplits();
+
+        // the first task produces no pages, and the last one only an empty page
+        taskBuffers.getUnchecked(TASK_1_ID).addPages(ImmutableList.of(), true);
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(rowPagesBuilder(TYPES)
+                .row(1L, "a")
+                .row(2L, "b")
+                .build(), true);
+        taskBuffers.getUnchecked(TASK_3_ID).addPages(ImmutableList.of(new PageBuilder(TYPES).build()), true);
+
+        assertResult(pullAvailablePages(operator), resultBuilder(TEST_SESSION, TYPES)
+                .row(1L, "a")
+                .row(2L, "b")
+                .build());
+        assertFinished(operator);
+    }
+
+    @Test
+    public void testNoSources()
+            throws Exception
+    {
+        SourceOperator operator = createMergeOperator();
+
+        assertFalse(operator.isBlocked().isDone());
+        assertNull(operator.getOutput());
+
+        operator.noMoreSplits();
+
+        assertTrue(operator.isBlocked().isDone());
+        assertNull(operator.getOutput());
+        assertFinished(operator);
+    }
+
+    @Test
+    public void testBlockedSource()
+            throws Exception
+    {
+        SourceOperator operator = createMergeOperator();
+
+        operator.addSplit(newRemoteSplit(TASK_1_ID));
+        operator.addSplit(newRemoteSplit(TASK_2_ID));
+
+        taskBuffers.getUnchecked(TASK_1_ID).addPages(rowPagesBuilder(TYPES)
+                .row(1L, "a")
+                .row(3L, "c")
+                .row(5L, "e")
+                .build(), true);
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(rowPagesBuilder(TYPES)
+                .row(2L, "b")
+                .build(), false);
+
+        // nothing is merged until all of the sources are known
+        assertFalse(operator.isBlocked().isDone());
+        assertNull(operator.getOutput());
+        operator.noMoreSplits();
+
+        // the second task may still produce a row smaller than 3
+        assertResult(pullAvailablePages(operator), resultBuilder(TEST_SESSION, TYPES)
+                .row(1L, "a")
+                .row(2L, "b")
+                .build());
+        assertFalse(operator.isBlocked().isDone());
+        assertFalse(operator.isFinished());
+
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(rowPagesBuilder(TYPES)
+                .row(4L, "d")
+                .build(), true);
+
+        assertResult(pullAvailablePages(operator), resultBuilder(TEST_SESSION, TYPES)
+                .row(3L, "c")
+                .row(4L, "d")
+                .row(5L, "e")
+                .build());
+        assertFinished(operator);
+    }
+
+    @Test
+    public void testFinishedSource()
+            throws Exception
+    {
+        SourceOperator operator = createMergeOperator();
+
+        operator.addSplit(newRemoteSplit(TASK_1_ID));
+        operator.addSplit(newRemoteSplit(TASK_2_ID));
+        operator.noMoreSplits();
+
+        taskBuffers.getUnchecked(TASK_1_ID).addPages(rowPagesBuilder(TYPES)
+                .row(1L, "a")
+                .build(), true);
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(rowPagesBuilder(TYPES)
+                .row(2L, "b")
+                .row(3L, "c")
+                .build(), false);
+
+        // the finished task does not hold back the rows of the other one
+        assertResult(pullAvailablePages(operator), resultBuilder(TEST_SESSION, TYPES)
+                .row(1L, "a")
+                .row(2L, "b")
+                .row(3L, "c")
+                .build());
+        assertFalse(operator.isFinished());
+
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(ImmutableList.of(), true);
+
+        assertResult(pullAvailablePages(operator), resultBuilder(TEST_SESSION, TYPES).build());
+        assertFinished(operator);
+    }
+
+    @Test
+    public void testFinishWithLimit()
+            throws Exception
+    {
+        SourceOperator operator = createMergeOperator();
+
+        operator.addSplit(newRemoteSplit(TASK_1_ID));
+        operator.addSplit(newRemoteSplit(TASK_2_ID));
+        operator.noMoreSplits();
+
+        taskBuffers.getUnchecked(TASK_1_ID).addPages(rowPagesBuilder(TYPES)
+                .row(1L, "a")
+                .row(3L, "c")
+                .build(), false);
+        taskBuffers.getUnchecked(TASK_2_ID).addPages(rowPagesBuilder(TYPES)
+                .row(2L, "b")
+                .row(4L, "d")
+                .build(), false);
+
+        assertResult(pullAvailablePages(operator), resultBuilder(TEST_SESSION, TYPES)
+                .row(1L, "a")
+                .row(2L, "b")
+                .row(3L, "c")
+                .build());
+
+        // a LIMIT above the merge has all of its rows, so the driver finishes the merge while the sources are still running
+        operator.finish();
+        assertTrue(operator.isFinished());
+        assertNull(operator.getOutput());
+    }
+
+    private SourceOperator createMergeOperator()
+    {
+        MergeOperatorFactory operatorFactory = new MergeOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                exchangeClientSupplier,
+                new OrderingCompiler(),
+                TYPES,
+                ImmutableList.of(0),
+                ImmutableList.of(ASC_NULLS_FIRST));
+
+        DriverContext driverContext = createTaskContext(executor, TEST_SESSION)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+
+        return operatorFactory.createOperator(driverContext);
+    }
+
+    private static Split newRemoteSplit(String taskId)
+    {
+        return new Split("remote", new RemoteTransactionHandle(), new RemoteSplit(URI.create("http://localhost/" + taskId)));
+    }
+
+    /**
+     * Pulls the output of the operator until it finishes, or until it stays blocked for a while.
+     */
+    private static List<Page> pullAvailablePages(Operator operator)
+            throws Exception
+    {
+        long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        List<Page> outputPages = new ArrayList<>();
+        while (!operator.isFinished() && System.nanoTime() < endTime) {
+            assertFalse(operator.needsInput());
+
+            ListenableFuture<?> blocked = operator.isBlocked();
+            if (!blocked.isDone()) {
+                try {
+                    blocked.get(500, MILLISECONDS);
+                }
+                catch (TimeoutException e) {
+                    break;
+                }
+            }
+
+            Page outputPage = operator.getOutput();
+            if (outputPage != null) {
+                outputPages.add(outputPage);
+            }
+        }
+        return outputPages;
+    }
+
+    private static void assertResult(List<Page> pages, MaterializedResult expected)
+    {
+        MaterializedResult actual = toMaterializedResult(TEST_SESSION, TYPES, pages);
+        assertEquals(actual.getMaterializedRows(), expected.getMaterializedRows());
+    }
+
+    private static void assertFinished(Operator operator)
+    {
+        assertTrue(operator.isFinished());
+        assertFalse(operator.needsInput());
+        assertNull(operator.getOutput());
+    }
+}
@@ -14,8 +14,11 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spiller.BinarySpillerFactory;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
@@ -25,7 +28,10 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
@@ -39,8 +45,11 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestOrderByOperator
@@ -162,6 +171,60 @@ public class TestOrderByOperator
         assertOperatorEquals(operator, input, expected);
     }
 
+    @Test
+    public void testSpill()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(VARCHAR, BIGINT)
+                .row("a", 1L)
+                .row("c", 2L)
+                .pageBreak()
+                .row("b", 3L)
+                .row("a", 4L)
+                .pageBreak()
+                .row("c", 5L)
+                .row("b", 6L)
+                .build();
+
+        Path spillPath = Files.createTempDirectory("presto-spill-test");
+        try {
+            SpillerFactory spillerFactory = new BinarySpillerFactory(
+                    listeningDecorator(sameThreadExecutor()),
+                    MetadataManager.createTestMetadataManager().getBlockEncodingSerde(),
+                    spillPath);
+
+            OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                    0,
+                    new PlanNodeId("test"),
+                    ImmutableList.of(VARCHAR, BIGINT),
+                    ImmutableList.of(1),
+                    10,
+                    ImmutableList.of(0, 1),
+                    ImmutableList.of(ASC_NULLS_LAST, DESC_NULLS_LAST),
+                    true,
+                    new DataSize(1, Unit.BYTE),
+                    Optional.of(spillerFactory));
+
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT)
+                    .row(4L)
+                    .row(1L)
+                    .row(6L)
+                    .row(3L)
+                    .row(5L)
+                    .row(2L)
+                    .build();
+
+            assertOperatorEquals(operator, input, expected);
+            assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+            operator.close();
+        }
+        finally {
+            Files.delete(spillPath);
+        }
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded local memory limit of 10B")
     public void testMemoryLimit()
             throws Exception
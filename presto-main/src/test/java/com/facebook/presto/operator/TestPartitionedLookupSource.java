@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.operator.TestInMemoryJoinHash.HASH_CHANNELS;
+import static com.facebook.presto.operator.TestInMemoryJoinHash.TYPES;
+import static com.facebook.presto.operator.TestInMemoryJoinHash.assertSameAsRowLookup;
+import static com.facebook.presto.operator.TestInMemoryJoinHash.createLookupSource;
+import static com.facebook.presto.operator.TestInMemoryJoinHash.getJoinedValues;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPartitionedLookupSource
+{
+    private static final int PARTITION_COUNT = 4;
+
+    @Test(dataProvider = "hashEnabledValues", dataProviderClass = TestInMemoryJoinHash.class)
+    public void testGetJoinPositions(boolean buildHashEnabled, boolean probeHashEnabled)
+    {
+        // place every build row in the partition of its key, like the parallel hash build does
+        LocalPartitionGenerator partitionGenerator = new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(VARCHAR), new int[] {0}), PARTITION_COUNT);
+        List<RowPagesBuilder> partitionPages = new ArrayList<>();
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            partitionPages.add(rowPagesBuilder(buildHashEnabled, HASH_CHANNELS, TYPES));
+        }
+        for (int i = 0; i < 1000; i++) {
+            String key = "key" + (i % 500);
+            Page keyPage = getOnlyElement(rowPagesBuilder(VARCHAR).row(key).build());
+            partitionPages.get(partitionGenerator.getPartition(0, keyPage)).row(key, (long) i);
+        }
+
+        ImmutableList.Builder<LookupSource> lookupSources = ImmutableList.builder();
+        for (RowPagesBuilder pages : partitionPages) {
+            // every partition has some rows, so the probe rows are spread over all of them
+            List<Page> buildPages = pages.build();
+            assertFalse(buildPages.isEmpty());
+            lookupSources.add(createLookupSource(buildPages, pages.getTypes(), pages.getHashChannel()));
+        }
+        LookupSource lookupSource = new PartitionedLookupSource(lookupSources.build(), ImmutableList.of(VARCHAR), false);
+        assertTrue(lookupSource.isBatchLookupSupported());
+
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, HASH_CHANNELS, TYPES);
+        for (int i = 0; i < 600; i++) {
+            // keys from 500 on have no match, and every tenth row has a null key
+            probePages.row(i % 10 == 0 ? null : "key" + i, (long) i);
+        }
+        Page probePage = getOnlyElement(probePages.build());
+        Page hashChannelsPage = new Page(probePage.getBlock(0));
+        Optional<Block> hashBlock = probePages.getHashChannel().map(probePage::getBlock);
+
+        long[] joinPositions = lookupSource.getJoinPositions(hashChannelsPage, probePage, hashBlock);
+        assertEquals(joinPositions.length, probePage.getPositionCount());
+        for (int position = 0; position < probePage.getPositionCount(); position++) {
+            if (position % 10 == 0 || position >= 500) {
+                assertEquals(joinPositions[position], -1);
+            }
+            else {
+                assertEquals(getJoinedValues(lookupSource, partitionPages.get(0).getTypes(), joinPositions[position], position, probePage), ImmutableSet.of((long) position, position + 500L));
+            }
+        }
+
+        assertSameAsRowLookup(lookupSource, joinPositions, hashChannelsPage, probePage);
+    }
+}
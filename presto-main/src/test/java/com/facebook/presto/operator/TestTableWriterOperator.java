@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.metadata.OutputTableHandle;
+import com.facebook.presto.operator.TableWriterOperator.TableWriterInfo;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
 import com.facebook.presto.spi.ConnectorPageSink;
@@ -131,10 +132,53 @@ public class TestTableWriterOperator
         operator.addInput(rowPagesBuilder(BIGINT).row(42).build().get(0));
     }
 
-    private Operator createTableWriterOperator(BlockingPageSink blockingPageSink)
+    @Test
+    public void testPageSinkMemoryAndInfo()
+            throws Exception
+    {
+        MemoryAccountingPageSink pageSink = new MemoryAccountingPageSink();
+        Operator operator = createTableWriterOperator(pageSink);
+
+        pageSink.setSystemMemoryUsage(1000);
+        pageSink.setCompletedBytes(10);
+        pageSink.setWriterStats(3, 600, 0);
+        operator.addInput(rowPagesBuilder(BIGINT).row(42).build().get(0));
+        assertEquals(operator.getOperatorContext().getOperatorStats().getSystemMemoryReservation().toBytes(), 1000);
+
+        pageSink.setSystemMemoryUsage(500);
+        pageSink.setCompletedBytes(20);
+        pageSink.setWriterStats(2, 300, 2);
+        operator.addInput(rowPagesBuilder(BIGINT).row(43).build().get(0));
+        assertEquals(operator.getOperatorContext().getOperatorStats().getSystemMemoryReservation().toBytes(), 500);
+
+        pageSink.setSystemMemoryUsage(0);
+        pageSink.setCompletedBytes(30);
+        pageSink.setWriterStats(0, 0, 2);
+        operator.finish();
+        operator.getOutput();
+        assertEquals(operator.getOperatorContext().getOperatorStats().getSystemMemoryReservation().toBytes(), 0);
+
+        TableWriterInfo info = (TableWriterInfo) operator.getOperatorContext().getOperatorStats().getInfo();
+        assertEquals(info.getPageSinkPeakMemoryUsage(), 1000);
+        assertEquals(info.getWrittenBytes(), 30);
+        assertEquals(info.getPeakOpenWriterCount(), 3);
+        assertEquals(info.getPeakWriterMemoryUsage(), 600);
+        assertEquals(info.getWriterFlushCount(), 2);
+
+        TableWriterInfo merged = info.mergeWith(new TableWriterInfo(100, 5, 1, 700, 4));
+        assertEquals(merged.getPageSinkPeakMemoryUsage(), 1100);
+        assertEquals(merged.getWrittenBytes(), 35);
+        assertEquals(merged.getPeakOpenWriterCount(), 4);
+        assertEquals(merged.getPeakWriterMemoryUsage(), 700);
+        assertEquals(merged.getWriterFlushCount(), 6);
+
+        operator.close();
+    }
+
+    private Operator createTableWriterOperator(ConnectorPageSink pageSink)
     {
         PageSinkManager pageSinkProvider = new PageSinkManager();
-        pageSinkProvider.addConnectorPageSinkProvider(CONNECTOR_ID, new ConstantPageSinkProvider(blockingPageSink));
+        pageSinkProvider.addConnectorPageSinkProvider(CONNECTOR_ID, new ConstantPageSinkProvider(pageSink));
 
         TableWriterOperator.TableWriterOperatorFactory factory = new TableWriterOperator.TableWriterOperatorFactory(
                 0,
@@ -205,4 +249,78 @@ public class TestTableWriterOperator
             future.complete(null);
         }
     }
+
+    private static class MemoryAccountingPageSink
+            implements ConnectorPageSink
+    {
+        private long systemMemoryUsage;
+        private long completedBytes;
+        private int openWriterCount;
+        private long maxWriterMemoryUsage;
+        private long writerFlushCount;
+
+        @Override
+        public CompletableFuture<?> appendPage(Page page, Block sampleWeightBlock)
+        {
+            return NOT_BLOCKED;
+        }
+
+        @Override
+        public Collection<Slice> finish()
+        {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public void abort()
+        {
+        }
+
+        @Override
+        public long getCompletedBytes()
+        {
+            return completedBytes;
+        }
+
+        @Override
+        public long getSystemMemoryUsage()
+        {
+            return systemMemoryUsage;
+        }
+
+        @Override
+        public int getOpenWriterCount()
+        {
+            return openWriterCount;
+        }
+
+        @Override
+        public long getMaxWriterMemoryUsage()
+        {
+            return maxWriterMemoryUsage;
+        }
+
+        @Override
+        public long getWriterFlushCount()
+        {
+            return writerFlushCount;
+        }
+
+        public void setCompletedBytes(long completedBytes)
+        {
+            this.completedBytes = completedBytes;
+        }
+
+        public void setSystemMemoryUsage(long systemMemoryUsage)
+        {
+            this.systemMemoryUsage = systemMemoryUsage;
+        }
+
+        public void setWriterStats(int openWriterCount, long maxWriterMemoryUsage, long writerFlushCount)
+        {
+            this.openWriterCount = openWriterCount;
+            this.maxWriterMemoryUsage = maxWriterMemoryUsage;
+            this.writerFlushCount = writerFlushCount;
+        }
+    }
 }
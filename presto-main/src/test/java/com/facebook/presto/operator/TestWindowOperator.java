@@ -14,18 +14,24 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.WindowOperator.WindowOperatorFactory;
+import com.facebook.presto.operator.aggregation.InternalAggregationFunction;
 import com.facebook.presto.operator.window.FirstValueFunction;
 import com.facebook.presto.operator.window.FrameInfo;
 import com.facebook.presto.operator.window.LagFunction;
 import com.facebook.presto.operator.window.LastValueFunction;
 import com.facebook.presto.operator.window.LeadFunction;
 import com.facebook.presto.operator.window.NthValueFunction;
+import com.facebook.presto.operator.window.RankFunction;
 import com.facebook.presto.operator.window.ReflectionWindowFunctionSupplier;
 import com.facebook.presto.operator.window.RowNumberFunction;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.BinarySpillerFactory;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
@@ -36,27 +42,35 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.metadata.FunctionKind.AGGREGATE;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
 import static com.facebook.presto.operator.OperatorAssertion.toPages;
 import static com.facebook.presto.operator.WindowFunctionDefinition.window;
+import static com.facebook.presto.operator.window.AggregateWindowFunction.supplier;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.tree.FrameBound.Type.CURRENT_ROW;
 import static com.facebook.presto.sql.tree.FrameBound.Type.UNBOUNDED_FOLLOWING;
 import static com.facebook.presto.sql.tree.FrameBound.Type.UNBOUNDED_PRECEDING;
 import static com.facebook.presto.sql.tree.WindowFrame.Type.RANGE;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestWindowOperator
@@ -85,6 +99,15 @@ public class TestWindowOperator
             window(new ReflectionWindowFunctionSupplier<>("lead", VARCHAR, ImmutableList.of(VARCHAR, BIGINT, VARCHAR), LeadFunction.class), VARCHAR, 1, 3, 4)
     );
 
+    private static final Signature LONG_SUM_SIGNATURE = new Signature("sum", AGGREGATE, BIGINT.getTypeSignature(), BIGINT.getTypeSignature());
+    private static final InternalAggregationFunction LONG_SUM = MetadataManager.createTestMetadataManager().getFunctionRegistry().getAggregateFunctionImplementation(LONG_SUM_SIGNATURE);
+
+    private static final List<WindowFunctionDefinition> ROW_NUMBER_RANK_SUM = ImmutableList.of(
+            window(new ReflectionWindowFunctionSupplier<>("row_number", BIGINT, ImmutableList.<Type>of(), RowNumberFunction.class), BIGINT),
+            window(new ReflectionWindowFunctionSupplier<>("rank", BIGINT, ImmutableList.<Type>of(), RankFunction.class), BIGINT),
+            window(supplier(LONG_SUM_SIGNATURE, LONG_SUM), BIGINT, 1)
+    );
+
     private ExecutorService executor;
     private DriverContext driverContext;
 
@@ -171,6 +194,108 @@ public class TestWindowOperator
         assertOperatorEquals(operator, input, expected);
     }
 
+    @Test
+    public void testRowNumberPartitionWithSpill()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(VARCHAR, BIGINT, DOUBLE, BOOLEAN)
+                .row("b", -1L, -0.1, true)
+                .row("a", 2L, 0.3, false)
+                .row("a", 4L, 0.2, true)
+                .pageBreak()
+                .row("b", 5L, 0.4, false)
+                .row("a", 6L, 0.1, true)
+                .build();
+
+        Path spillPath = Files.createTempDirectory("presto-spill-test");
+        try {
+            WindowOperatorFactory operatorFactory = createFactoryUnbounded(
+                    ImmutableList.of(VARCHAR, BIGINT, DOUBLE, BOOLEAN),
+                    Ints.asList(0, 1, 2, 3),
+                    ROW_NUMBER,
+                    Ints.asList(0),
+                    ImmutableList.of(),
+                    Ints.asList(1),
+                    ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}),
+                    0,
+                    Optional.of(createSpillerFactory(spillPath)));
+
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT, DOUBLE, BOOLEAN, BIGINT)
+                    .row("a", 2L, 0.3, false, 1L)
+                    .row("a", 4L, 0.2, true, 2L)
+                    .row("a", 6L, 0.1, true, 3L)
+                    .row("b", -1L, -0.1, true, 1L)
+                    .row("b", 5L, 0.4, false, 2L)
+                    .build();
+
+            assertOperatorEquals(operator, input, expected);
+            assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+            operator.close();
+        }
+        finally {
+            Files.delete(spillPath);
+        }
+    }
+
+    @Test
+    public void testSingleLargePartitionWithSpill()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(VARCHAR, BIGINT)
+                .row("a", 3L)
+                .row("a", 1L)
+                .row("a", 2L)
+                .pageBreak()
+                .row("a", 2L)
+                .row("a", 5L)
+                .row("a", 1L)
+                .pageBreak()
+                .row("b", 4L)
+                .build();
+
+        Path spillPath = Files.createTempDirectory("presto-spill-test");
+        try {
+            // the partition does not fit in memory, so it is streamed through the functions one peer group at a time
+            WindowOperatorFactory operatorFactory = new WindowOperatorFactory(
+                    0,
+                    new PlanNodeId("test"),
+                    ImmutableList.of(VARCHAR, BIGINT),
+                    Ints.asList(0, 1),
+                    ROW_NUMBER_RANK_SUM,
+                    Ints.asList(0),
+                    ImmutableList.of(),
+                    Ints.asList(1),
+                    ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                    0,
+                    new FrameInfo(RANGE, UNBOUNDED_PRECEDING, Optional.empty(), CURRENT_ROW, Optional.empty()),
+                    10,
+                    true,
+                    new DataSize(1, Unit.BYTE),
+                    Optional.of(createSpillerFactory(spillPath)));
+
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT, BIGINT, BIGINT, BIGINT)
+                    .row("a", 1L, 1L, 1L, 2L)
+                    .row("a", 1L, 2L, 1L, 2L)
+                    .row("a", 2L, 3L, 3L, 6L)
+                    .row("a", 2L, 4L, 3L, 6L)
+                    .row("a", 3L, 5L, 5L, 9L)
+                    .row("a", 5L, 6L, 6L, 14L)
+                    .row("b", 4L, 1L, 1L, 4L)
+                    .build();
+
+            assertOperatorEquals(operator, input, expected);
+            assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+            operator.close();
+        }
+        finally {
+            Files.delete(spillPath);
+        }
+    }
+
     @Test
     public void testRowNumberArbitrary()
             throws Exception
@@ -488,6 +613,56 @@ public class TestWindowOperator
         assertOperatorEqualsIgnoreOrder(operator, input, expected);
     }
 
+    @Test
+    public void testPartiallyPreGroupedPartitionWithSpill()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, VARCHAR, BIGINT, VARCHAR)
+                .pageBreak()
+                .row(1L, "a", 100L, "A")
+                .row(2L, "a", 101L, "B")
+                .pageBreak()
+                .row(3L, "b", 102L, "E")
+                .row(1L, "b", 103L, "D")
+                .pageBreak()
+                .row(3L, "b", 104L, "C")
+                .row(1L, "c", 105L, "F")
+                .pageBreak()
+                .build();
+
+        Path spillPath = Files.createTempDirectory("presto-spill-test");
+        try {
+            WindowOperatorFactory operatorFactory = createFactoryUnbounded(
+                    ImmutableList.of(BIGINT, VARCHAR, BIGINT, VARCHAR),
+                    Ints.asList(0, 1, 2, 3),
+                    ROW_NUMBER,
+                    Ints.asList(0, 1),
+                    Ints.asList(1),
+                    Ints.asList(3),
+                    ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                    0,
+                    Optional.of(createSpillerFactory(spillPath)));
+
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, VARCHAR, BIGINT, VARCHAR, BIGINT)
+                    .row(1L, "a", 100L, "A", 1L)
+                    .row(2L, "a", 101L, "B", 1L)
+                    .row(3L, "b", 104L, "C", 1L)
+                    .row(3L, "b", 102L, "E", 2L)
+                    .row(1L, "b", 103L, "D", 1L)
+                    .row(1L, "c", 105L, "F", 1L)
+                    .build();
+
+            assertOperatorEqualsIgnoreOrder(operator, input, expected);
+            assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+            operator.close();
+        }
+        finally {
+            Files.delete(spillPath);
+        }
+    }
+
     @Test
     public void testFullyPreGroupedPartition()
             throws Exception
@@ -650,6 +825,29 @@ public class TestWindowOperator
             List<Integer> sortChannels,
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix)
+    {
+        return createFactoryUnbounded(
+                sourceTypes,
+                outputChannels,
+                functions,
+                partitionChannels,
+                preGroupedChannels,
+                sortChannels,
+                sortOrder,
+                preSortedChannelPrefix,
+                Optional.empty());
+    }
+
+    private static WindowOperatorFactory createFactoryUnbounded(
+            List<? extends Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> functions,
+            List<Integer> partitionChannels,
+            List<Integer> preGroupedChannels,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int preSortedChannelPrefix,
+            Optional<SpillerFactory> spillerFactory)
     {
         return new WindowOperatorFactory(
                 0,
@@ -663,6 +861,14 @@ public class TestWindowOperator
                 sortOrder,
                 preSortedChannelPrefix,
                 new FrameInfo(RANGE, UNBOUNDED_PRECEDING, Optional.empty(), UNBOUNDED_FOLLOWING, Optional.empty()),
-                10);
+                10,
+                spillerFactory.isPresent(),
+                new DataSize(1, Unit.BYTE),
+                spillerFactory);
+    }
+
+    private static SpillerFactory createSpillerFactory(Path spillPath)
+    {
+        return new BinarySpillerFactory(listeningDecorator(sameThreadExecutor()), MetadataManager.createTestMetadataManager().getBlockEncodingSerde(), spillPath);
     }
 }
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.google.common.collect.Iterables;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output buffer of a remote task, which is served to exchange clients by {@link TestingExchangeHttpClientHandler}.
+ */
+public class TestingTaskBuffer
+{
+    private final List<Page> buffer = new ArrayList<>();
+    private int acknowledgedPages;
+    private boolean closed;
+
+    public synchronized void addPages(Iterable<Page> pages)
+    {
+        Iterables.addAll(buffer, pages);
+    }
+
+    public synchronized void addPages(Iterable<Page> pages, boolean close)
+    {
+        addPages(pages);
+        if (close) {
+            closed = true;
+        }
+    }
+
+    public synchronized Page getPage(int pageSequenceId)
+    {
+        acknowledgedPages = Math.max(acknowledgedPages, pageSequenceId);
+        if (pageSequenceId >= buffer.size()) {
+            return null;
+        }
+        return buffer.get(pageSequenceId);
+    }
+
+    public synchronized boolean isFinished()
+    {
+        return closed && acknowledgedPages == buffer.size();
+    }
+}
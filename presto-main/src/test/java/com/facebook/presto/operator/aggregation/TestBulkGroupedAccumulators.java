@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.metadata.FunctionRegistry;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.GroupByIdBlock;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static io.airlift.slice.Slices.wrappedIntArray;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestBulkGroupedAccumulators
+{
+    private static final int POSITIONS = 1000;
+    private static final int GROUPS = 7;
+
+    private final TypeRegistry typeRegistry = new TypeRegistry();
+    private final FunctionRegistry functionRegistry = new FunctionRegistry(typeRegistry, new BlockEncodingManager(typeRegistry), new FeaturesConfig());
+
+    @Test
+    public void testLongSum()
+    {
+        assertGroupedAggregation("sum", BIGINT, LongSumGroupedAccumulator.class, (a, b) -> (long) a + (long) b);
+    }
+
+    @Test
+    public void testDoubleSum()
+    {
+        assertGroupedAggregation("sum", DOUBLE, DoubleSumGroupedAccumulator.class, (a, b) -> (double) a + (double) b);
+    }
+
+    @Test
+    public void testLongMinMax()
+    {
+        assertGroupedAggregation("min", BIGINT, LongMinMaxGroupedAccumulator.class, (a, b) -> Math.min((long) a, (long) b));
+        assertGroupedAggregation("max", BIGINT, LongMinMaxGroupedAccumulator.class, (a, b) -> Math.max((long) a, (long) b));
+    }
+
+    @Test
+    public void testDoubleMinMax()
+    {
+        assertGroupedAggregation("min", DOUBLE, DoubleMinMaxGroupedAccumulator.class, (a, b) -> Math.min((double) a, (double) b));
+        assertGroupedAggregation("max", DOUBLE, DoubleMinMaxGroupedAccumulator.class, (a, b) -> Math.max((double) a, (double) b));
+    }
+
+    @Test
+    public void testCount()
+    {
+        InternalAggregationFunction function = getFunction("count", ImmutableList.of());
+        Page page = new Page(POSITIONS, createMaskBlock());
+
+        for (Optional<Integer> maskChannel : ImmutableList.of(Optional.<Integer>empty(), Optional.of(0))) {
+            AccumulatorFactory factory = function.bind(ImmutableList.of(), maskChannel, Optional.empty(), 1.0);
+            GroupedAccumulator accumulator = factory.createGroupedAccumulator();
+            assertTrue(accumulator instanceof CountGroupedAccumulator);
+            accumulator.addInput(createGroupIds(), page);
+
+            List<Object> expected = new ArrayList<>();
+            for (int group = 0; group < GROUPS; group++) {
+                expected.add(0L);
+            }
+            for (int position = 0; position < POSITIONS; position++) {
+                if (!maskChannel.isPresent() || isMasked(position)) {
+                    expected.set(groupId(position), (long) expected.get(groupId(position)) + 1);
+                }
+            }
+            assertGroupValues(factory, accumulator, expected);
+        }
+    }
+
+    private void assertGroupedAggregation(String name, Type type, Class<? extends GroupedAccumulator> accumulatorClass, BinaryOperator<Object> combine)
+    {
+        InternalAggregationFunction function = getFunction(name, ImmutableList.of(type));
+        for (Block valueBlock : ImmutableList.of(createValueBlock(type), createDictionaryValueBlock(type), createRunLengthValueBlock(type))) {
+            assertGroupedAggregation(function, valueBlock, accumulatorClass, combine);
+        }
+    }
+
+    private static void assertGroupedAggregation(InternalAggregationFunction function, Block valueBlock, Class<? extends GroupedAccumulator> accumulatorClass, BinaryOperator<Object> combine)
+    {
+        Page page = new Page(POSITIONS, valueBlock, createMaskBlock());
+        Type type = function.getParameterTypes().get(0);
+
+        for (Optional<Integer> maskChannel : ImmutableList.of(Optional.<Integer>empty(), Optional.of(1))) {
+            AccumulatorFactory factory = function.bind(ImmutableList.of(0), maskChannel, Optional.empty(), 1.0);
+            GroupedAccumulator accumulator = factory.createGroupedAccumulator();
+            assertTrue(accumulatorClass.isInstance(accumulator));
+            accumulator.addInput(createGroupIds(), page);
+
+            List<Object> expected = new ArrayList<>();
+            for (int group = 0; group < GROUPS; group++) {
+                expected.add(null);
+            }
+            for (int position = 0; position < POSITIONS; position++) {
+                if (valueBlock.isNull(position) || (maskChannel.isPresent() && !isMasked(position))) {
+                    continue;
+                }
+                Object value = type.getObjectValue(null, page.getBlock(0), position);
+                Object current = expected.get(groupId(position));
+                expected.set(groupId(position), current == null ? value : combine.apply(current, value));
+            }
+            assertGroupValues(factory, accumulator, expected);
+        }
+    }
+
+    private static void assertGroupValues(AccumulatorFactory factory, GroupedAccumulator accumulator, List<Object> expected)
+    {
+        Type finalType = accumulator.getFinalType();
+        BlockBuilder finalBuilder = finalType.createBlockBuilder(new BlockBuilderStatus(), GROUPS);
+        BlockBuilder intermediateBuilder = accumulator.getIntermediateType().createBlockBuilder(new BlockBuilderStatus(), GROUPS);
+        for (int group = 0; group < GROUPS; group++) {
+            accumulator.evaluateFinal(group, finalBuilder);
+            accumulator.evaluateIntermediate(group, intermediateBuilder);
+        }
+        Block finalBlock = finalBuilder.build();
+        for (int group = 0; group < GROUPS; group++) {
+            assertEquals(finalType.getObjectValue(null, finalBlock, group), expected.get(group));
+        }
+
+        // the intermediate results must be readable by the generated accumulator
+        GroupedAccumulator intermediateAccumulator = factory.createGroupedIntermediateAccumulator();
+        Block intermediateBlock = intermediateBuilder.build();
+        intermediateAccumulator.addIntermediate(createSequentialGroupIds(GROUPS), intermediateBlock);
+        intermediateAccumulator.addIntermediate(createSequentialGroupIds(GROUPS), intermediateBlock);
+
+        // and the hand written accumulator must combine them the same way
+        accumulator.addIntermediate(createSequentialGroupIds(GROUPS), intermediateBlock);
+
+        BlockBuilder expectedBuilder = finalType.createBlockBuilder(new BlockBuilderStatus(), GROUPS);
+        BlockBuilder actualBuilder = finalType.createBlockBuilder(new BlockBuilderStatus(), GROUPS);
+        for (int group = 0; group < GROUPS; group++) {
+            intermediateAccumulator.evaluateFinal(group, expectedBuilder);
+            accumulator.evaluateFinal(group, actualBuilder);
+        }
+        Block expectedBlock = expectedBuilder.build();
+        Block actualBlock = actualBuilder.build();
+        for (int group = 0; group < GROUPS; group++) {
+            assertEquals(finalType.getObjectValue(null, actualBlock, group), finalType.getObjectValue(null, expectedBlock, group));
+        }
+    }
+
+    private InternalAggregationFunction getFunction(String name, List<Type> argumentTypes)
+    {
+        Signature signature = functionRegistry.resolveFunction(
+                QualifiedName.of(name),
+                argumentTypes.stream().map(Type::getTypeSignature).collect(toImmutableList()),
+                false);
+        return functionRegistry.getAggregateFunctionImplementation(signature);
+    }
+
+    private static Block createValueBlock(Type type)
+    {
+        BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), POSITIONS);
+        for (int position = 0; position < POSITIONS; position++) {
+            if (isNull(position)) {
+                blockBuilder.appendNull();
+            }
+            else if (type.equals(BIGINT)) {
+                BIGINT.writeLong(blockBuilder, (position * 31L) % 101 - 50);
+            }
+            else {
+                DOUBLE.writeDouble(blockBuilder, ((position * 31L) % 101 - 50) / 4.0);
+            }
+        }
+        return blockBuilder.build();
+    }
+
+    private static Block createDictionaryValueBlock(Type type)
+    {
+        // the positions read their values in reverse order
+        int[] ids = new int[POSITIONS];
+        for (int position = 0; position < POSITIONS; position++) {
+            ids[position] = POSITIONS - 1 - position;
+        }
+        return new DictionaryBlock(POSITIONS, createValueBlock(type), wrappedIntArray(ids));
+    }
+
+    private static Block createRunLengthValueBlock(Type type)
+    {
+        return new RunLengthEncodedBlock(createValueBlock(type).getRegion(1, 1), POSITIONS);
+    }
+
+    private static Block createMaskBlock()
+    {
+        BlockBuilder blockBuilder = BOOLEAN.createBlockBuilder(new BlockBuilderStatus(), POSITIONS);
+        for (int position = 0; position < POSITIONS; position++) {
+            BOOLEAN.writeBoolean(blockBuilder, isMasked(position));
+        }
+        return blockBuilder.build();
+    }
+
+    private static GroupByIdBlock createGroupIds()
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), POSITIONS);
+        for (int position = 0; position < POSITIONS; position++) {
+            BIGINT.writeLong(blockBuilder, groupId(position));
+        }
+        return new GroupByIdBlock(GROUPS, blockBuilder.build());
+    }
+
+    private static GroupByIdBlock createSequentialGroupIds(int groups)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), groups);
+        for (int group = 0; group < groups; group++) {
+            BIGINT.writeLong(blockBuilder, group);
+        }
+        return new GroupByIdBlock(groups, blockBuilder.build());
+    }
+
+    private static int groupId(int position)
+    {
+        return position % GROUPS;
+    }
+
+    private static boolean isNull(int position)
+    {
+        return position % 5 == 0 || groupId(position) == GROUPS - 1;
+    }
+
+    private static boolean isMasked(int position)
+    {
+        return position % 3 != 0;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestBinaryFileSpiller
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+
+    private final BlockEncodingSerde blockEncodingSerde = new BlockEncodingManager(new TypeRegistry());
+    private Path spillPath;
+    private SpillerFactory factory;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        spillPath = Files.createTempDirectory("presto-spiller-test");
+        factory = new BinarySpillerFactory(listeningDecorator(sameThreadExecutor()), blockEncodingSerde, spillPath);
+    }
+
+    @AfterMethod
+    public void tearDown()
+            throws IOException
+    {
+        Files.delete(spillPath);
+    }
+
+    @Test
+    public void testSpill()
+    {
+        AtomicLong spilledBytes = new AtomicLong();
+        try (Spiller spiller = factory.create(TYPES, spilledBytes::addAndGet)) {
+            List<Page> first = rowPagesBuilder(TYPES)
+                    .addSequencePage(10, 0, 100)
+                    .addSequencePage(10, 10, 110)
+                    .build();
+            List<Page> second = rowPagesBuilder(TYPES)
+                    .addSequencePage(5, 20, 120)
+                    .build();
+
+            assertTrue(spiller.spill(first.iterator()).isDone());
+            assertTrue(spiller.spill(second.iterator()).isDone());
+            assertTrue(spilledBytes.get() > 0);
+
+            List<Iterator<Page>> spills = spiller.getSpills();
+            assertEquals(spills.size(), 2);
+            assertSpill(spills.get(0), first);
+            assertSpill(spills.get(1), second);
+        }
+        assertEquals(spilledBytes.get(), 0);
+    }
+
+    @Test
+    public void testEmptySpill()
+    {
+        AtomicLong spilledBytes = new AtomicLong();
+        try (Spiller spiller = factory.create(TYPES, spilledBytes::addAndGet)) {
+            assertTrue(spiller.spill(ImmutableList.<Page>of().iterator()).isDone());
+            List<Iterator<Page>> spills = spiller.getSpills();
+            assertEquals(spills.size(), 1);
+            assertFalse(spills.get(0).hasNext());
+        }
+        assertEquals(spilledBytes.get(), 0);
+    }
+
+    private static void assertSpill(Iterator<Page> actual, List<Page> expected)
+    {
+        for (Page expectedPage : expected) {
+            assertTrue(actual.hasNext());
+            assertPageEquals(TYPES, actual.next(), expectedPage);
+        }
+        assertFalse(actual.hasNext());
+    }
+}
@@ -15,8 +15,10 @@ package com.facebook.presto.sql.analyzer;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
+import java.nio.file.Paths;
 import java.util.Map;
 
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.FILE_BASED_RESOURCE_GROUP_MANAGER;
@@ -27,6 +29,7 @@ import static com.facebook.presto.sql.analyzer.RegexLibrary.RE2J;
 import static io.airlift.configuration.testing.ConfigAssertions.assertDeprecatedEquivalence;
 import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class TestFeaturesConfig
 {
@@ -40,6 +43,7 @@ public class TestFeaturesConfig
                 .setDistributedJoinsEnabled(true)
                 .setColocatedJoinsEnabled(false)
                 .setRedistributeWrites(true)
+                .setDistributedSort(false)
                 .setOptimizeMetadataQueries(false)
                 .setOptimizeHashGeneration(true)
                 .setOptimizeSingleDistinct(true)
@@ -50,7 +54,18 @@ public class TestFeaturesConfig
                 .setRegexLibrary(JONI)
                 .setRe2JDfaStatesLimit(Integer.MAX_VALUE)
                 .setRe2JDfaRetries(5)
-                .setResourceGroupManager(FILE_BASED_RESOURCE_GROUP_MANAGER));
+                .setResourceGroupManager(FILE_BASED_RESOURCE_GROUP_MANAGER)
+                .setSpillEnabled(false)
+                .setOperatorMemoryLimitBeforeSpill(new DataSize(4, MEGABYTE))
+                .setSpillerSpillPath(Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills").toString())
+                .setSpillerThreads(4)
+                .setMemoryRevokingThreshold(0.9)
+                .setMemoryRevokingTarget(0.5)
+                .setDynamicFilteringEnabled(false)
+                .setJoinReorderingEnabled(false)
+                .setJoinMaxBroadcastTableSize(new DataSize(100, MEGABYTE))
+                .setAdaptivePartialAggregationEnabled(false)
+                .setAdaptivePartialAggregationUniqueRowsRatio(0.8));
     }
 
     @Test
@@ -64,6 +79,7 @@ public class TestFeaturesConfig
                 .put("distributed-joins-enabled", "false")
                 .put("colocated-joins-enabled", "true")
                 .put("redistribute-writes", "false")
+                .put("distributed-sort", "true")
                 .put("optimizer.optimize-metadata-queries", "true")
                 .put("optimizer.optimize-hash-generation", "false")
                 .put("optimizer.optimize-single-distinct", "false")
@@ -74,6 +90,17 @@ public class TestFeaturesConfig
                 .put("re2j.dfa-states-limit", "42")
                 .put("re2j.dfa-retries", "42")
                 .put("resource-group-manager", "test")
+                .put("experimental.spill-enabled", "true")
+                .put("experimental.operator-memory-limit-before-spill", "100MB")
+                .put("experimental.spiller-spill-path", "/tmp/custom/spill/path")
+                .put("experimental.spiller-threads", "42")
+                .put("experimental.memory-revoking-threshold", "0.2")
+                .put("experimental.memory-revoking-target", "0.8")
+                .put("experimental.dynamic-filtering-enabled", "true")
+                .put("optimizer.reorder-joins", "true")
+                .put("optimizer.join-max-broadcast-table-size", "42MB")
+                .put("experimental.adaptive-partial-aggregation-enabled", "true")
+                .put("experimental.adaptive-partial-aggregation-unique-rows-ratio", "0.6")
                 .build();
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("experimental-syntax-enabled", "true")
@@ -83,6 +110,7 @@ public class TestFeaturesConfig
                 .put("distributed-joins-enabled", "false")
                 .put("colocated-joins-enabled", "true")
                 .put("redistribute-writes", "false")
+                .put("distributed-sort", "true")
                 .put("optimizer.optimize-metadata-queries", "true")
                 .put("optimizer.optimize-hash-generation", "false")
                 .put("optimizer.optimize-single-distinct", "false")
@@ -93,6 +121,17 @@ public class TestFeaturesConfig
                 .put("re2j.dfa-states-limit", "42")
                 .put("re2j.dfa-retries", "42")
                 .put("resource-group-manager", "test")
+                .put("experimental.spill-enabled", "true")
+                .put("experimental.operator-memory-limit-before-spill", "100MB")
+                .put("experimental.spiller-spill-path", "/tmp/custom/spill/path")
+                .put("experimental.spiller-threads", "42")
+                .put("experimental.memory-revoking-threshold", "0.2")
+                .put("experimental.memory-revoking-target", "0.8")
+                .put("experimental.dynamic-filtering-enabled", "true")
+                .put("optimizer.reorder-joins", "true")
+                .put("optimizer.join-max-broadcast-table-size", "42MB")
+                .put("experimental.adaptive-partial-aggregation-enabled", "true")
+                .put("experimental.adaptive-partial-aggregation-unique-rows-ratio", "0.6")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
@@ -102,6 +141,7 @@ public class TestFeaturesConfig
                 .setDistributedJoinsEnabled(false)
                 .setColocatedJoinsEnabled(true)
                 .setRedistributeWrites(false)
+                .setDistributedSort(true)
                 .setOptimizeMetadataQueries(true)
                 .setOptimizeHashGeneration(false)
                 .setOptimizeSingleDistinct(false)
@@ -112,7 +152,18 @@ public class TestFeaturesConfig
                 .setRegexLibrary(RE2J)
                 .setRe2JDfaStatesLimit(42)
                 .setRe2JDfaRetries(42)
-                .setResourceGroupManager("test");
+                .setResourceGroupManager("test")
+                .setSpillEnabled(true)
+                .setOperatorMemoryLimitBeforeSpill(new DataSize(100, MEGABYTE))
+                .setSpillerSpillPath("/tmp/custom/spill/path")
+                .setSpillerThreads(42)
+                .setMemoryRevokingThreshold(0.2)
+                .setMemoryRevokingTarget(0.8)
+                .setDynamicFilteringEnabled(true)
+                .setJoinReorderingEnabled(true)
+                .setJoinMaxBroadcastTableSize(new DataSize(42, MEGABYTE))
+                .setAdaptivePartialAggregationEnabled(true)
+                .setAdaptivePartialAggregationUniqueRowsRatio(0.6);
 
         assertFullMapping(properties, expected);
         assertDeprecatedEquivalence(FeaturesConfig.class, properties, propertiesLegacy);
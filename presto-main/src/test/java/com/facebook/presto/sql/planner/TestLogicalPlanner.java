@@ -13,7 +13,10 @@
  */
 package com.facebook.presto.sql.planner;
 
+import com.facebook.presto.Session;
 import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.parser.SqlParser;
 import com.facebook.presto.sql.planner.assertions.PlanAssert;
 import com.facebook.presto.sql.planner.assertions.PlanMatchPattern;
 import com.facebook.presto.sql.planner.plan.EnforceSingleRowNode;
@@ -21,6 +24,7 @@ import com.facebook.presto.sql.planner.plan.FilterNode;
 import com.facebook.presto.sql.planner.plan.JoinNode;
 import com.facebook.presto.sql.planner.plan.OutputNode;
 import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.SortNode;
 import com.facebook.presto.sql.planner.plan.TableScanNode;
 import com.facebook.presto.testing.LocalQueryRunner;
 import com.facebook.presto.tpch.TpchConnectorFactory;
@@ -32,17 +36,22 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
 
+import static com.facebook.presto.SystemSessionProperties.DISTRIBUTED_SORT;
 import static com.facebook.presto.spi.predicate.Domain.singleValue;
 import static com.facebook.presto.spi.type.VarcharType.createVarcharType;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.aliasPair;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.any;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.anyTree;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.exchange;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.filter;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.join;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.mergingExchange;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.node;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.project;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.semiJoin;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.tableScan;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Scope.REMOTE;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Type.GATHER;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
 import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
@@ -152,6 +161,28 @@ public class TestLogicalPlanner
         assertEquals(planNodeExtractor.getNodes().size(), 2);
     }
 
+    @Test
+    public void testDistributedSort()
+    {
+        // every partition is sorted where it is produced, and the remote exchange merges the sorted streams
+        assertDistributedPlan(
+                "SELECT orderkey FROM orders ORDER BY orderkey",
+                queryRunner.getDefaultSession().withSystemProperty(DISTRIBUTED_SORT, "true"),
+                anyTree(
+                        mergingExchange(ImmutableList.of("orderkey"),
+                                node(SortNode.class,
+                                        anyTree()))));
+
+        // all rows are gathered on a single node before they are sorted
+        assertDistributedPlan(
+                "SELECT orderkey FROM orders ORDER BY orderkey",
+                queryRunner.getDefaultSession().withSystemProperty(DISTRIBUTED_SORT, "false"),
+                anyTree(
+                        node(SortNode.class,
+                                exchange(REMOTE, GATHER,
+                                        anyTree()))));
+    }
+
     private void assertPlan(String sql, PlanMatchPattern pattern)
     {
         Plan actualPlan = plan(sql);
@@ -166,6 +197,20 @@ public class TestLogicalPlanner
         return queryRunner.inTransaction(transactionSession -> queryRunner.createPlan(transactionSession, sql));
     }
 
+    private void assertDistributedPlan(String sql, Session session, PlanMatchPattern pattern)
+    {
+        queryRunner.inTransaction(session, transactionSession -> {
+            // unlike plan(), this adds the remote exchanges of a distributed plan
+            FeaturesConfig featuresConfig = new FeaturesConfig()
+                    .setExperimentalSyntaxEnabled(true)
+                    .setOptimizeHashGeneration(true);
+            PlanOptimizersFactory optimizers = new PlanOptimizersFactory(queryRunner.getMetadata(), new SqlParser(), featuresConfig, false);
+            Plan actualPlan = queryRunner.createPlan(transactionSession, sql, featuresConfig, optimizers);
+            PlanAssert.assertPlan(transactionSession, queryRunner.getMetadata(), actualPlan, pattern);
+            return null;
+        });
+    }
+
     private static final class PlanNodeExtractor
             extends SimplePlanVisitor<Void>
     {
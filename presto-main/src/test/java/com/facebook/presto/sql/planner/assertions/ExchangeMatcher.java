@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.assertions;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.sql.planner.OrderingScheme;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+final class ExchangeMatcher
+        implements Matcher
+{
+    private final ExchangeNode.Scope scope;
+    private final ExchangeNode.Type type;
+    private final List<String> orderBy;
+
+    /**
+     * @param orderBy names of the symbols the exchange merges the sorted sources on, or empty if it does not merge them
+     */
+    ExchangeMatcher(ExchangeNode.Scope scope, ExchangeNode.Type type, List<String> orderBy)
+    {
+        this.scope = requireNonNull(scope, "scope is null");
+        this.type = requireNonNull(type, "type is null");
+        this.orderBy = ImmutableList.copyOf(requireNonNull(orderBy, "orderBy is null"));
+    }
+
+    @Override
+    public boolean matches(PlanNode node, Session session, Metadata metadata, SymbolAliases symbolAliases)
+    {
+        if (!(node instanceof ExchangeNode)) {
+            return false;
+        }
+
+        ExchangeNode exchangeNode = (ExchangeNode) node;
+        if (exchangeNode.getScope() != scope || exchangeNode.getType() != type) {
+            return false;
+        }
+
+        Optional<OrderingScheme> orderingScheme = exchangeNode.getOrderingScheme();
+        if (!orderingScheme.isPresent()) {
+            return orderBy.isEmpty();
+        }
+        List<String> actualOrderBy = orderingScheme.get().getOrderBy().stream()
+                .map(Symbol::getName)
+                .collect(toImmutableList());
+        return actualOrderBy.equals(orderBy);
+    }
+
+    @Override
+    public String toString()
+    {
+        return MoreObjects.toStringHelper(this)
+                .add("scope", scope)
+                .add("type", type)
+                .add("orderBy", orderBy)
+                .toString();
+    }
+}
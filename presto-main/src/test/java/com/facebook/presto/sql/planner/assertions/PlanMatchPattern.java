@@ -17,6 +17,7 @@ import com.facebook.presto.Session;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.sql.parser.SqlParser;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
 import com.facebook.presto.sql.planner.plan.JoinNode;
 import com.facebook.presto.sql.planner.plan.PlanNode;
 import com.facebook.presto.sql.planner.plan.ProjectNode;
@@ -84,6 +85,16 @@ public final class PlanMatchPattern
         return any(sources).with(new WindowMatcher(functionCalls));
     }
 
+    public static PlanMatchPattern exchange(ExchangeNode.Scope scope, ExchangeNode.Type type, PlanMatchPattern... sources)
+    {
+        return any(sources).with(new ExchangeMatcher(scope, type, ImmutableList.of()));
+    }
+
+    public static PlanMatchPattern mergingExchange(List<String> orderBy, PlanMatchPattern... sources)
+    {
+        return any(sources).with(new ExchangeMatcher(ExchangeNode.Scope.REMOTE, ExchangeNode.Type.GATHER, orderBy));
+    }
+
     public static PlanMatchPattern project(PlanMatchPattern... sources)
     {
         return node(ProjectNode.class, sources);
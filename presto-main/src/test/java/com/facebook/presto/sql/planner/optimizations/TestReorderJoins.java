@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.EnforceSingleRowNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.JoinNode.DistributionType;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.JOIN_MAX_BROADCAST_TABLE_SIZE;
+import static com.facebook.presto.SystemSessionProperties.REORDER_JOINS;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static java.util.Collections.nCopies;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestReorderJoins
+{
+    private static final Symbol FACT = new Symbol("fact");
+    private static final Symbol LARGE = new Symbol("large");
+    private static final Symbol MEDIUM = new Symbol("medium");
+    private static final Symbol SMALL = new Symbol("small");
+
+    // a bigint row is 8 bytes, so only the medium and small sources can be broadcast
+    private static final Session SESSION = testSessionBuilder()
+            .setSystemProperties(ImmutableMap.of(REORDER_JOINS, "true", JOIN_MAX_BROADCAST_TABLE_SIZE, "4kB"))
+            .build();
+
+    private static final Map<Symbol, Type> TYPES = ImmutableMap.of(FACT, BIGINT, LARGE, BIGINT, MEDIUM, BIGINT, SMALL, BIGINT);
+
+    private final PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+    private final PlanNode fact = values(FACT, 10_000);
+    private final PlanNode large = values(LARGE, 1_000);
+    private final PlanNode medium = values(MEDIUM, 100);
+    private final PlanNode small = values(SMALL, 10);
+
+    @Test
+    public void testReorderStarJoin()
+    {
+        // ((large JOIN fact) JOIN medium) JOIN small builds a hash table over the fact table
+        PlanNode plan = join(join(join(large, fact, LARGE, FACT), medium, FACT, MEDIUM), small, FACT, SMALL);
+
+        PlanNode optimized = optimize(plan);
+
+        // the output symbols of the reordered joins are restored for the parent
+        assertTrue(optimized instanceof ProjectNode);
+        assertEquals(optimized.getOutputSymbols(), plan.getOutputSymbols());
+
+        // the fact table is probed, and the sources are joined from the smallest to the largest
+        JoinNode top = assertJoin(((ProjectNode) optimized).getSource(), large, PARTITIONED);
+        JoinNode middle = assertJoin(top.getLeft(), medium, REPLICATED);
+        JoinNode bottom = assertJoin(middle.getLeft(), small, REPLICATED);
+        assertSame(bottom.getLeft(), fact);
+        assertEquals(bottom.getCriteria(), ImmutableList.of(new EquiJoinClause(FACT, SMALL)));
+    }
+
+    @Test
+    public void testKeepCheapestOrder()
+    {
+        // the order of the query is already the cheapest, so only the distribution is chosen
+        PlanNode plan = join(join(join(fact, small, FACT, SMALL), medium, FACT, MEDIUM), large, FACT, LARGE);
+
+        PlanNode optimized = optimize(plan);
+
+        JoinNode top = assertJoin(optimized, large, PARTITIONED);
+        assertEquals(top.getId(), plan.getId());
+        JoinNode middle = assertJoin(top.getLeft(), medium, REPLICATED);
+        JoinNode bottom = assertJoin(middle.getLeft(), small, REPLICATED);
+        assertSame(bottom.getLeft(), fact);
+    }
+
+    @Test
+    public void testThreeWayJoin()
+    {
+        // (medium JOIN fact) JOIN large
+        PlanNode plan = join(join(medium, fact, MEDIUM, FACT), large, FACT, LARGE);
+
+        PlanNode optimized = optimize(plan);
+
+        assertTrue(optimized instanceof ProjectNode);
+        JoinNode top = assertJoin(((ProjectNode) optimized).getSource(), large, PARTITIONED);
+        JoinNode bottom = assertJoin(top.getLeft(), medium, REPLICATED);
+        assertSame(bottom.getLeft(), fact);
+    }
+
+    @Test
+    public void testUnknownStatistics()
+    {
+        // no statistics are derived for the source of the bottom join, so no join can be estimated
+        PlanNode unknown = new EnforceSingleRowNode(idAllocator.getNextId(), large);
+        PlanNode plan = join(join(join(unknown, fact, LARGE, FACT), medium, FACT, MEDIUM), small, FACT, SMALL);
+
+        PlanNode optimized = optimize(plan);
+
+        JoinNode top = assertJoin(optimized, small, Optional.empty());
+        JoinNode middle = assertJoin(top.getLeft(), medium, Optional.empty());
+        JoinNode bottom = assertJoin(middle.getLeft(), fact, Optional.empty());
+        assertSame(bottom.getLeft(), unknown);
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        PlanNode plan = join(join(large, fact, LARGE, FACT), medium, FACT, MEDIUM);
+        Session session = testSessionBuilder()
+                .setSystemProperties(ImmutableMap.of(REORDER_JOINS, "false"))
+                .build();
+
+        assertSame(new ReorderJoins(createTestMetadataManager()).optimize(plan, session, TYPES, new SymbolAllocator(), idAllocator), plan);
+    }
+
+    private PlanNode optimize(PlanNode plan)
+    {
+        return new ReorderJoins(createTestMetadataManager()).optimize(plan, SESSION, TYPES, new SymbolAllocator(), idAllocator);
+    }
+
+    private static JoinNode assertJoin(PlanNode node, PlanNode build, DistributionType distributionType)
+    {
+        return assertJoin(node, build, Optional.of(distributionType));
+    }
+
+    private static JoinNode assertJoin(PlanNode node, PlanNode build, Optional<DistributionType> distributionType)
+    {
+        assertTrue(node instanceof JoinNode, "expected a join, but was " + node);
+        JoinNode join = (JoinNode) node;
+        assertSame(join.getRight(), build);
+        assertEquals(join.getDistributionType(), distributionType);
+        assertFalse(join.getCriteria().isEmpty());
+        return join;
+    }
+
+    private JoinNode join(PlanNode left, PlanNode right, Symbol leftSymbol, Symbol rightSymbol)
+    {
+        return new JoinNode(
+                idAllocator.getNextId(),
+                INNER,
+                left,
+                right,
+                ImmutableList.of(new EquiJoinClause(leftSymbol, rightSymbol)),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty());
+    }
+
+    private ValuesNode values(Symbol symbol, int rows)
+    {
+        return new ValuesNode(idAllocator.getNextId(), ImmutableList.of(symbol), nCopies(rows, ImmutableList.of(new LongLiteral("1"))));
+    }
+}
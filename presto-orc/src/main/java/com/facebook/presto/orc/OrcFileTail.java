@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The decoded tail of an ORC file (post script, footer and metadata). The tail
+ * is immutable, so it can be shared by all readers of the same file.
+ */
+public class OrcFileTail
+{
+    private final CompressionKind compressionKind;
+    private final int bufferSize;
+    private final Footer footer;
+    private final Metadata metadata;
+    private final int serializedSize;
+
+    public OrcFileTail(CompressionKind compressionKind, int bufferSize, Footer footer, Metadata metadata, int serializedSize)
+    {
+        this.compressionKind = requireNonNull(compressionKind, "compressionKind is null");
+        this.bufferSize = bufferSize;
+        this.footer = requireNonNull(footer, "footer is null");
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        checkArgument(serializedSize >= 0, "serializedSize is negative");
+        this.serializedSize = serializedSize;
+    }
+
+    public CompressionKind getCompressionKind()
+    {
+        return compressionKind;
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    public Footer getFooter()
+    {
+        return footer;
+    }
+
+    public Metadata getMetadata()
+    {
+        return metadata;
+    }
+
+    /**
+     * Size of the tail in the file, including the post script.
+     */
+    public int getSerializedSize()
+    {
+        return serializedSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("compressionKind", compressionKind)
+                .add("bufferSize", bufferSize)
+                .add("numberOfRows", footer.getNumberOfRows())
+                .add("serializedSize", serializedSize)
+                .toString();
+    }
+}
@@ -14,8 +14,10 @@
 package com.facebook.presto.orc;
 
 import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.google.common.collect.ImmutableSet;
 
 import java.util.Map;
+import java.util.Set;
 
 public interface OrcPredicate
 {
@@ -37,4 +39,20 @@ public interface OrcPredicate
      * in the file; this will match the field order from the hive metastore
      */
     boolean matches(long numberOfRows, Map<Integer, ColumnStatistics> statisticsByColumnIndex);
+
+    /**
+     * Should the ORC reader attach the bloom filters of the predicate columns to the row group statistics.
+     */
+    default boolean isBloomFiltersEnabled()
+    {
+        return false;
+    }
+
+    /**
+     * Columns the predicate is evaluated on, by ordinal position in the file.
+     */
+    default Set<Integer> getPredicateColumns()
+    {
+        return ImmutableSet.of();
+    }
 }
@@ -59,9 +59,18 @@ public class OrcReader
     private final Footer footer;
     private final Metadata metadata;
 
-    // This is based on the Apache Hive ORC code
     public OrcReader(OrcDataSource orcDataSource, MetadataReader metadataReader, DataSize maxMergeDistance, DataSize maxReadSize)
             throws IOException
+    {
+        this(orcDataSource, metadataReader, maxMergeDistance, maxReadSize, OrcReader::readFileTail);
+    }
+
+    /**
+     * Creates a reader that obtains the file tail from the specified loader, which allows
+     * the decoded tail to be shared between readers of the same file.
+     */
+    public OrcReader(OrcDataSource orcDataSource, MetadataReader metadataReader, DataSize maxMergeDistance, DataSize maxReadSize, OrcFileTailLoader fileTailLoader)
+            throws IOException
     {
         orcDataSource = wrapWithCacheIfTiny(requireNonNull(orcDataSource, "orcDataSource is null"), maxMergeDistance);
         this.orcDataSource = orcDataSource;
@@ -69,6 +78,17 @@ public class OrcReader
         this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
         this.maxReadSize = requireNonNull(maxReadSize, "maxReadSize is null");
 
+        OrcFileTail fileTail = requireNonNull(fileTailLoader, "fileTailLoader is null").load(orcDataSource, metadataReader);
+        this.compressionKind = fileTail.getCompressionKind();
+        this.bufferSize = fileTail.getBufferSize();
+        this.footer = fileTail.getFooter();
+        this.metadata = fileTail.getMetadata();
+    }
+
+    // This is based on the Apache Hive ORC code
+    public static OrcFileTail readFileTail(OrcDataSource orcDataSource, MetadataReader metadataReader)
+            throws IOException
+    {
         //
         // Read the file tail:
         //
@@ -102,9 +122,9 @@ public class OrcReader
         checkOrcVersion(orcDataSource, postScript.getVersion());
 
         // check compression codec is supported
-        this.compressionKind = postScript.getCompression();
+        CompressionKind compressionKind = postScript.getCompression();
 
-        this.bufferSize = Ints.checkedCast(postScript.getCompressionBlockSize());
+        int bufferSize = Ints.checkedCast(postScript.getCompressionBlockSize());
 
         int footerSize = Ints.checkedCast(postScript.getFooterLength());
         int metadataSize = Ints.checkedCast(postScript.getMetadataLength());
@@ -129,16 +149,20 @@ public class OrcReader
         }
 
         // read metadata
+        Metadata metadata;
         Slice metadataSlice = completeFooterSlice.slice(0, metadataSize);
         try (InputStream metadataInputStream = new OrcInputStream(orcDataSource.toString(), metadataSlice.getInput(), compressionKind, bufferSize, new AggregatedMemoryContext())) {
-            this.metadata = metadataReader.readMetadata(metadataInputStream);
+            metadata = metadataReader.readMetadata(metadataInputStream);
         }
 
         // read footer
+        Footer footer;
         Slice footerSlice = completeFooterSlice.slice(metadataSize, footerSize);
         try (InputStream footerInputStream = new OrcInputStream(orcDataSource.toString(), footerSlice.getInput(), compressionKind, bufferSize, new AggregatedMemoryContext())) {
-            this.footer = metadataReader.readFooter(footerInputStream);
+            footer = metadataReader.readFooter(footerInputStream);
         }
+
+        return new OrcFileTail(compressionKind, bufferSize, footer, metadata, completeFooterSize);
     }
 
     public List<String> getColumnNames()
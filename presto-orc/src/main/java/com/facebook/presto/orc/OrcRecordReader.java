@@ -188,6 +188,8 @@ public class OrcRecordReader
                 this.presentColumns,
                 rowsInRowGroup,
                 predicate,
+                predicate.isBloomFiltersEnabled(),
+                predicate.getPredicateColumns(),
                 metadataReader);
 
         streamReaders = createStreamReaders(orcDataSource, types, hiveStorageTimeZone, presentColumnsAndTypes.build());
@@ -320,6 +322,17 @@ public class OrcRecordReader
         return streamReaders[columnIndex].readBlock(type);
     }
 
+    /**
+     * Reads only the selected positions of the current batch for the column. Values
+     * that are not selected are skipped by the stream reader without being materialized.
+     */
+    public Block readBlock(Type type, int columnIndex, int[] positions, int positionCount)
+            throws IOException
+    {
+        checkArgument(positionCount >= 0 && positionCount <= currentBatchSize, "invalid positionCount");
+        return streamReaders[columnIndex].readBlock(type, positions, positionCount);
+    }
+
     public StreamReader getStreamReader(int index)
     {
         checkArgument(index < streamReaders.length, "index does not exist");
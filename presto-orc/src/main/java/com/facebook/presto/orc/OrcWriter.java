@@ -0,0 +1,510 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.OrcMetadataWriter;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.StripeStatistics;
+import com.facebook.presto.orc.stream.OrcOutputBuffer;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.orc.writer.BooleanColumnWriter;
+import com.facebook.presto.orc.writer.ByteColumnWriter;
+import com.facebook.presto.orc.writer.ColumnWriter;
+import com.facebook.presto.orc.writer.DecimalColumnWriter;
+import com.facebook.presto.orc.writer.DoubleColumnWriter;
+import com.facebook.presto.orc.writer.FloatColumnWriter;
+import com.facebook.presto.orc.writer.LongColumnWriter;
+import com.facebook.presto.orc.writer.SliceColumnWriter;
+import com.facebook.presto.orc.writer.TimestampColumnWriter;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarcharType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import org.joda.time.DateTimeZone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.metadata.OrcType.OrcTypeKind.STRUCT;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_INDEX;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Writes Presto pages directly to an ORC file, without going through the Hive
+ * ObjectInspector based writer. All columns are written as top level fields of
+ * the root STRUCT; nested types are not supported.
+ */
+public class OrcWriter
+        implements Closeable
+{
+    public static final DataSize DEFAULT_STRIPE_MAX_SIZE = new DataSize(64, MEGABYTE);
+    public static final int DEFAULT_STRIPE_MAX_ROW_COUNT = 10_000_000;
+    public static final int DEFAULT_ROW_GROUP_MAX_ROW_COUNT = 10_000;
+    public static final DataSize DEFAULT_DICTIONARY_MAX_MEMORY = new DataSize(16, MEGABYTE);
+    public static final DataSize DEFAULT_BUFFER_SIZE = new DataSize(256, KILOBYTE);
+
+    private static final Slice MAGIC = Slices.utf8Slice("ORC");
+
+    private final OutputStreamSliceOutput output;
+    private final CompressionKind compression;
+    private final int bufferSize;
+    private final long stripeMaxBytes;
+    private final int stripeMaxRowCount;
+    private final int rowGroupMaxRowCount;
+    private final Map<String, Slice> userMetadata;
+    private final OrcMetadataWriter metadataWriter = new OrcMetadataWriter();
+
+    private final List<OrcType> orcTypes;
+    private final List<ColumnWriter> columnWriters;
+
+    private final List<StripeInformation> stripes = new ArrayList<>();
+    private final List<StripeStatistics> stripeStatistics = new ArrayList<>();
+    private final List<Integer> rowGroupRowCounts = new ArrayList<>();
+
+    private long fileOffset;
+    private long fileRowCount;
+    private int stripeRowCount;
+    private int rowGroupRowCount;
+    private boolean closed;
+
+    public OrcWriter(
+            OutputStream outputStream,
+            List<String> columnNames,
+            List<Type> types,
+            CompressionKind compression,
+            Map<String, Slice> userMetadata,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        this(
+                outputStream,
+                columnNames,
+                types,
+                types.stream()
+                        .map(OrcWriter::getDefaultOrcTypeKind)
+                        .collect(toList()),
+                compression,
+                DEFAULT_STRIPE_MAX_SIZE,
+                DEFAULT_STRIPE_MAX_ROW_COUNT,
+                DEFAULT_ROW_GROUP_MAX_ROW_COUNT,
+                DEFAULT_DICTIONARY_MAX_MEMORY,
+                userMetadata,
+                hiveStorageTimeZone);
+    }
+
+    public OrcWriter(
+            OutputStream outputStream,
+            List<String> columnNames,
+            List<Type> types,
+            List<OrcTypeKind> columnKinds,
+            CompressionKind compression,
+            DataSize stripeMaxSize,
+            int stripeMaxRowCount,
+            int rowGroupMaxRowCount,
+            DataSize dictionaryMaxMemory,
+            Map<String, Slice> userMetadata,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        requireNonNull(outputStream, "outputStream is null");
+        requireNonNull(columnNames, "columnNames is null");
+        requireNonNull(types, "types is null");
+        requireNonNull(columnKinds, "columnKinds is null");
+        requireNonNull(stripeMaxSize, "stripeMaxSize is null");
+        requireNonNull(dictionaryMaxMemory, "dictionaryMaxMemory is null");
+        requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+        checkArgument(columnNames.size() == types.size(), "columnNames and types have different sizes");
+        checkArgument(columnKinds.size() == types.size(), "columnKinds and types have different sizes");
+        checkArgument(stripeMaxRowCount > 0, "stripeMaxRowCount must be positive");
+        checkArgument(rowGroupMaxRowCount > 0, "rowGroupMaxRowCount must be positive");
+
+        this.output = new OutputStreamSliceOutput(outputStream);
+        this.compression = requireNonNull(compression, "compression is null");
+        this.bufferSize = toIntExact(DEFAULT_BUFFER_SIZE.toBytes());
+        this.stripeMaxBytes = stripeMaxSize.toBytes();
+        this.stripeMaxRowCount = stripeMaxRowCount;
+        this.rowGroupMaxRowCount = rowGroupMaxRowCount;
+        this.userMetadata = ImmutableMap.copyOf(requireNonNull(userMetadata, "userMetadata is null"));
+
+        // column 0 is the root struct, and the table columns are numbered from 1
+        ImmutableList.Builder<OrcType> orcTypes = ImmutableList.builder();
+        ImmutableList.Builder<Integer> fieldTypeIndexes = ImmutableList.builder();
+        for (int field = 0; field < types.size(); field++) {
+            fieldTypeIndexes.add(field + 1);
+        }
+        orcTypes.add(new OrcType(STRUCT, fieldTypeIndexes.build(), ImmutableList.copyOf(columnNames), Optional.empty(), Optional.empty()));
+
+        ImmutableList.Builder<ColumnWriter> columnWriters = ImmutableList.builder();
+        for (int field = 0; field < types.size(); field++) {
+            Type type = types.get(field);
+            OrcTypeKind kind = columnKinds.get(field);
+            orcTypes.add(createOrcType(type, kind));
+            columnWriters.add(createColumnWriter(field + 1, type, kind, compression, bufferSize, dictionaryMaxMemory, metadataWriter, hiveStorageTimeZone));
+        }
+        this.orcTypes = orcTypes.build();
+        this.columnWriters = columnWriters.build();
+
+        output.writeBytes(MAGIC);
+        fileOffset = MAGIC.length();
+    }
+
+    /**
+     * Returns the number of bytes buffered in memory for the current stripe.
+     */
+    public long getBufferedBytes()
+    {
+        return columnWriters.stream()
+                .mapToLong(ColumnWriter::getBufferedBytes)
+                .sum();
+    }
+
+    public long getRetainedBytes()
+    {
+        return columnWriters.stream()
+                .mapToLong(ColumnWriter::getRetainedBytes)
+                .sum();
+    }
+
+    /**
+     * Returns the number of bytes written to the output so far. This does not
+     * include the data buffered for the current stripe.
+     */
+    public long getWrittenBytes()
+    {
+        return fileOffset;
+    }
+
+    public void write(Page page)
+            throws IOException
+    {
+        checkState(!closed, "writer is closed");
+        requireNonNull(page, "page is null");
+        checkArgument(page.getChannelCount() == columnWriters.size(), "Expected page with %s channels, but got %s", columnWriters.size(), page.getChannelCount());
+
+        // split the page at row group and stripe boundaries
+        while (page.getPositionCount() > 0) {
+            int chunkRows = min(page.getPositionCount(), min(rowGroupMaxRowCount - rowGroupRowCount, stripeMaxRowCount - stripeRowCount));
+            writeChunk(page.getRegion(0, chunkRows));
+            page = page.getRegion(chunkRows, page.getPositionCount() - chunkRows);
+        }
+    }
+
+    /**
+     * Writes the buffered rows as a stripe, releasing the memory they hold.
+     * This only ends the stripe early, so the file remains open for more rows.
+     */
+    public void flush()
+            throws IOException
+    {
+        checkState(!closed, "writer is closed");
+        flushStripe();
+    }
+
+    private void writeChunk(Page chunk)
+            throws IOException
+    {
+        if (rowGroupRowCount == 0) {
+            columnWriters.forEach(ColumnWriter::beginRowGroup);
+        }
+
+        for (int channel = 0; channel < chunk.getChannelCount(); channel++) {
+            columnWriters.get(channel).writeBlock(chunk.getBlock(channel));
+        }
+        rowGroupRowCount += chunk.getPositionCount();
+        stripeRowCount += chunk.getPositionCount();
+
+        if (rowGroupRowCount == rowGroupMaxRowCount) {
+            finishRowGroup();
+        }
+        if (stripeRowCount == stripeMaxRowCount || getBufferedBytes() >= stripeMaxBytes) {
+            flushStripe();
+        }
+    }
+
+    private void finishRowGroup()
+    {
+        columnWriters.forEach(ColumnWriter::finishRowGroup);
+        rowGroupRowCounts.add(rowGroupRowCount);
+        rowGroupRowCount = 0;
+    }
+
+    private void flushStripe()
+            throws IOException
+    {
+        if (rowGroupRowCount > 0) {
+            finishRowGroup();
+        }
+        if (stripeRowCount == 0) {
+            return;
+        }
+
+        columnWriters.forEach(ColumnWriter::close);
+
+        // all index streams precede the data streams in the stripe
+        List<StreamDataOutput> indexStreams = new ArrayList<>();
+        indexStreams.add(createRootRowIndexStream());
+        List<StreamDataOutput> dataStreams = new ArrayList<>();
+        ImmutableList.Builder<ColumnEncoding> columnEncodings = ImmutableList.builder();
+        columnEncodings.add(new ColumnEncoding(DIRECT, 0));
+        ImmutableList.Builder<ColumnStatistics> columnStatistics = ImmutableList.builder();
+        columnStatistics.add(new ColumnStatistics((long) stripeRowCount, null, null, null, null, null, null));
+        for (ColumnWriter columnWriter : columnWriters) {
+            indexStreams.addAll(columnWriter.getIndexStreams());
+            dataStreams.addAll(columnWriter.getDataStreams());
+            columnEncodings.add(columnWriter.getColumnEncoding());
+            columnStatistics.add(columnWriter.getColumnStripeStatistics());
+        }
+
+        long stripeOffset = fileOffset;
+        ImmutableList.Builder<Stream> streams = ImmutableList.builder();
+        long indexLength = 0;
+        for (StreamDataOutput indexStream : indexStreams) {
+            indexStream.writeData(output);
+            streams.add(indexStream.getStream());
+            indexLength += indexStream.size();
+        }
+        long dataLength = 0;
+        for (StreamDataOutput dataStream : dataStreams) {
+            dataStream.writeData(output);
+            streams.add(dataStream.getStream());
+            dataLength += dataStream.size();
+        }
+
+        DynamicSliceOutput footerOutput = new DynamicSliceOutput(1024);
+        metadataWriter.writeStripeFooter(footerOutput, new StripeFooter(streams.build(), columnEncodings.build()));
+        Slice footer = compress(footerOutput.slice());
+        output.writeBytes(footer);
+
+        stripes.add(new StripeInformation(stripeRowCount, stripeOffset, indexLength, dataLength, footer.length()));
+        stripeStatistics.add(new StripeStatistics(columnStatistics.build()));
+        fileOffset += indexLength + dataLength + footer.length();
+        fileRowCount += stripeRowCount;
+
+        columnWriters.forEach(ColumnWriter::reset);
+        rowGroupRowCounts.clear();
+        stripeRowCount = 0;
+    }
+
+    private StreamDataOutput createRootRowIndexStream()
+            throws IOException
+    {
+        ImmutableList.Builder<RowGroupIndex> rowGroupIndexes = ImmutableList.builder();
+        for (int rowCount : rowGroupRowCounts) {
+            rowGroupIndexes.add(new RowGroupIndex(ImmutableList.of(), new ColumnStatistics((long) rowCount, null, null, null, null, null, null)));
+        }
+        DynamicSliceOutput indexOutput = new DynamicSliceOutput(64);
+        metadataWriter.writeRowIndexes(indexOutput, rowGroupIndexes.build());
+        Slice index = compress(indexOutput.slice());
+        return new StreamDataOutput(new Stream(0, ROW_INDEX, index.length(), true), sliceOutput -> sliceOutput.writeBytes(index));
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flushStripe();
+            writeFileTail();
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    private void writeFileTail()
+            throws IOException
+    {
+        DynamicSliceOutput metadataOutput = new DynamicSliceOutput(1024);
+        metadataWriter.writeMetadata(metadataOutput, new Metadata(stripeStatistics));
+        Slice metadata = compress(metadataOutput.slice());
+        output.writeBytes(metadata);
+
+        ImmutableList.Builder<ColumnStatistics> fileStatistics = ImmutableList.builder();
+        fileStatistics.add(new ColumnStatistics(fileRowCount, null, null, null, null, null, null));
+        for (int column = 1; column < orcTypes.size(); column++) {
+            ImmutableList.Builder<ColumnStatistics> columnStatistics = ImmutableList.builder();
+            for (StripeStatistics statistics : stripeStatistics) {
+                columnStatistics.add(statistics.getColumnStatistics().get(column));
+            }
+            fileStatistics.add(mergeColumnStatistics(columnStatistics.build()));
+        }
+
+        DynamicSliceOutput footerOutput = new DynamicSliceOutput(1024);
+        metadataWriter.writeFooter(footerOutput, new Footer(fileRowCount, rowGroupMaxRowCount, stripes, orcTypes, fileStatistics.build(), userMetadata));
+        Slice footer = compress(footerOutput.slice());
+        output.writeBytes(footer);
+
+        // the post script is never compressed, and is followed by its length in a single byte
+        DynamicSliceOutput postScriptOutput = new DynamicSliceOutput(64);
+        int postScriptLength = metadataWriter.writePostScript(postScriptOutput, footer.length(), metadata.length(), compression, bufferSize);
+        checkState(postScriptLength < 256, "post script is too large");
+        output.writeBytes(postScriptOutput.slice());
+        output.writeByte(postScriptLength);
+
+        fileOffset += metadata.length() + footer.length() + postScriptLength + 1;
+    }
+
+    private Slice compress(Slice slice)
+    {
+        OrcOutputBuffer buffer = new OrcOutputBuffer(compression, bufferSize);
+        buffer.writeBytes(slice, 0, slice.length());
+        buffer.close();
+        DynamicSliceOutput compressed = new DynamicSliceOutput(toIntExact(buffer.getOutputDataSize()));
+        buffer.writeDataTo(compressed);
+        return compressed.slice();
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        return getOrcTypeKind(type).isPresent();
+    }
+
+    public static OrcTypeKind getDefaultOrcTypeKind(Type type)
+    {
+        return getOrcTypeKind(type).orElseThrow(() -> new IllegalArgumentException("Unsupported type: " + type));
+    }
+
+    private static Optional<OrcTypeKind> getOrcTypeKind(Type type)
+    {
+        if (BOOLEAN.equals(type)) {
+            return Optional.of(OrcTypeKind.BOOLEAN);
+        }
+        if (TINYINT.equals(type)) {
+            return Optional.of(OrcTypeKind.BYTE);
+        }
+        if (SMALLINT.equals(type)) {
+            return Optional.of(OrcTypeKind.SHORT);
+        }
+        if (INTEGER.equals(type)) {
+            return Optional.of(OrcTypeKind.INT);
+        }
+        if (BIGINT.equals(type)) {
+            return Optional.of(OrcTypeKind.LONG);
+        }
+        if (REAL.equals(type)) {
+            return Optional.of(OrcTypeKind.FLOAT);
+        }
+        if (DOUBLE.equals(type)) {
+            return Optional.of(OrcTypeKind.DOUBLE);
+        }
+        if (type instanceof VarcharType) {
+            return Optional.of(OrcTypeKind.STRING);
+        }
+        if (VARBINARY.equals(type)) {
+            return Optional.of(OrcTypeKind.BINARY);
+        }
+        if (DATE.equals(type)) {
+            return Optional.of(OrcTypeKind.DATE);
+        }
+        if (TIMESTAMP.equals(type)) {
+            return Optional.of(OrcTypeKind.TIMESTAMP);
+        }
+        if (type instanceof DecimalType) {
+            return Optional.of(OrcTypeKind.DECIMAL);
+        }
+        return Optional.empty();
+    }
+
+    private static OrcType createOrcType(Type type, OrcTypeKind kind)
+    {
+        if (kind == OrcTypeKind.DECIMAL) {
+            checkArgument(type instanceof DecimalType, "DECIMAL column must have a decimal type, but has %s", type);
+            DecimalType decimalType = (DecimalType) type;
+            return new OrcType(kind, ImmutableList.of(), ImmutableList.of(), Optional.of(decimalType.getPrecision()), Optional.of(decimalType.getScale()));
+        }
+        return new OrcType(kind, ImmutableList.of(), ImmutableList.of(), Optional.empty(), Optional.empty());
+    }
+
+    private static ColumnWriter createColumnWriter(
+            int column,
+            Type type,
+            OrcTypeKind kind,
+            CompressionKind compression,
+            int bufferSize,
+            DataSize dictionaryMaxMemory,
+            OrcMetadataWriter metadataWriter,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        switch (kind) {
+            case BOOLEAN:
+                return new BooleanColumnWriter(column, type, compression, bufferSize, metadataWriter);
+            case BYTE:
+                return new ByteColumnWriter(column, type, compression, bufferSize, metadataWriter);
+            case SHORT:
+            case INT:
+            case LONG:
+                return new LongColumnWriter(column, type, false, compression, bufferSize, metadataWriter);
+            case DATE:
+                return new LongColumnWriter(column, type, true, compression, bufferSize, metadataWriter);
+            case FLOAT:
+                return new FloatColumnWriter(column, type, compression, bufferSize, metadataWriter);
+            case DOUBLE:
+                return new DoubleColumnWriter(column, type, compression, bufferSize, metadataWriter);
+            case STRING:
+                return new SliceColumnWriter(column, type, true, compression, bufferSize, dictionaryMaxMemory.toBytes(), metadataWriter);
+            case BINARY:
+                return new SliceColumnWriter(column, type, false, compression, bufferSize, dictionaryMaxMemory.toBytes(), metadataWriter);
+            case TIMESTAMP:
+                return new TimestampColumnWriter(column, type, compression, bufferSize, metadataWriter, hiveStorageTimeZone);
+            case DECIMAL:
+                return new DecimalColumnWriter(column, (DecimalType) type, compression, bufferSize, metadataWriter);
+            default:
+                throw new IllegalArgumentException("Unsupported ORC type: " + kind);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.facebook.presto.orc.metadata.ColumnEncoding;
 import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
 import com.facebook.presto.orc.metadata.ColumnStatistics;
 import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.HiveBloomFilter;
 import com.facebook.presto.orc.metadata.MetadataReader;
 import com.facebook.presto.orc.metadata.OrcType;
 import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
@@ -57,6 +58,7 @@ import static com.facebook.presto.orc.checkpoint.Checkpoints.getDictionaryStream
 import static com.facebook.presto.orc.checkpoint.Checkpoints.getStreamCheckpoints;
 import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY;
 import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY_V2;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_COUNT;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_DATA;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.LENGTH;
@@ -74,6 +76,7 @@ public class StripeReader
     private final Set<Integer> includedOrcColumns;
     private final int rowsInRowGroup;
     private final OrcPredicate predicate;
+    private final Set<Integer> bloomFilterOrcColumns;
     private final MetadataReader metadataReader;
 
     public StripeReader(OrcDataSource orcDataSource,
@@ -83,6 +86,8 @@ public class StripeReader
             Set<Integer> includedColumns,
             int rowsInRowGroup,
             OrcPredicate predicate,
+            boolean bloomFiltersEnabled,
+            Set<Integer> predicateColumns,
             MetadataReader metadataReader)
     {
         this.orcDataSource = requireNonNull(orcDataSource, "orcDataSource is null");
@@ -92,6 +97,8 @@ public class StripeReader
         this.includedOrcColumns = getIncludedOrcColumns(types, requireNonNull(includedColumns, "includedColumns is null"));
         this.rowsInRowGroup = rowsInRowGroup;
         this.predicate = requireNonNull(predicate, "predicate is null");
+        requireNonNull(predicateColumns, "predicateColumns is null");
+        this.bloomFilterOrcColumns = bloomFiltersEnabled ? getBloomFilterOrcColumns(types, predicateColumns) : ImmutableSet.of();
         this.metadataReader = requireNonNull(metadataReader, "metadataReader is null");
     }
 
@@ -106,7 +113,7 @@ public class StripeReader
         Map<StreamId, Stream> streams = new HashMap<>();
         boolean hasRowGroupDictionary = false;
         for (Stream stream : stripeFooter.getStreams()) {
-            if (includedOrcColumns.contains(stream.getColumn())) {
+            if (includedOrcColumns.contains(stream.getColumn()) && isStreamRequired(stream)) {
                 streams.put(new StreamId(stream), stream);
 
                 ColumnEncodingKind columnEncoding = columnEncodings.get(stream.getColumn()).getColumnEncodingKind();
@@ -170,7 +177,7 @@ public class StripeReader
         ImmutableMap.Builder<StreamId, DiskRange> diskRangesBuilder = ImmutableMap.builder();
         for (Entry<StreamId, DiskRange> entry : getDiskRanges(stripeFooter.getStreams()).entrySet()) {
             StreamId streamId = entry.getKey();
-            if (streamId.getStreamKind() != ROW_INDEX && streams.keySet().contains(streamId)) {
+            if (streamId.getStreamKind() != ROW_INDEX && streamId.getStreamKind() != BLOOM_FILTER && streams.keySet().contains(streamId)) {
                 diskRangesBuilder.put(entry);
             }
         }
@@ -230,8 +237,8 @@ public class StripeReader
             Stream stream = entry.getValue();
             ColumnEncodingKind columnEncoding = columnEncodings.get(stream.getColumn()).getColumnEncodingKind();
 
-            // skip index and empty streams
-            if (isIndexStream(stream) || stream.getLength() == 0) {
+            // skip index, bloom filter and empty streams
+            if (isIndexStream(stream) || stream.getStreamKind() == BLOOM_FILTER || stream.getLength() == 0) {
                 continue;
             }
 
@@ -329,17 +336,48 @@ public class StripeReader
     private Map<Integer, List<RowGroupIndex>> readColumnIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData)
             throws IOException
     {
+        Map<Integer, List<HiveBloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData);
+
         ImmutableMap.Builder<Integer, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
         for (Entry<StreamId, Stream> entry : streams.entrySet()) {
             Stream stream = entry.getValue();
             if (stream.getStreamKind() == ROW_INDEX) {
                 OrcInputStream inputStream = streamsData.get(entry.getKey());
-                columnIndexes.put(stream.getColumn(), metadataReader.readRowIndexes(inputStream));
+                List<RowGroupIndex> rowGroupIndexes = metadataReader.readRowIndexes(inputStream);
+
+                List<HiveBloomFilter> bloomFilters = bloomFilterIndexes.get(stream.getColumn());
+                if (bloomFilters != null && bloomFilters.size() == rowGroupIndexes.size()) {
+                    rowGroupIndexes = addBloomFilters(rowGroupIndexes, bloomFilters);
+                }
+                columnIndexes.put(stream.getColumn(), rowGroupIndexes);
             }
         }
         return columnIndexes.build();
     }
 
+    private Map<Integer, List<HiveBloomFilter>> readBloomFilterIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData)
+            throws IOException
+    {
+        ImmutableMap.Builder<Integer, List<HiveBloomFilter>> bloomFilters = ImmutableMap.builder();
+        for (Entry<StreamId, Stream> entry : streams.entrySet()) {
+            Stream stream = entry.getValue();
+            if (stream.getStreamKind() == BLOOM_FILTER) {
+                OrcInputStream inputStream = streamsData.get(entry.getKey());
+                bloomFilters.put(stream.getColumn(), metadataReader.readBloomFilterIndexes(inputStream));
+            }
+        }
+        return bloomFilters.build();
+    }
+
+    private static List<RowGroupIndex> addBloomFilters(List<RowGroupIndex> rowGroupIndexes, List<HiveBloomFilter> bloomFilters)
+    {
+        ImmutableList.Builder<RowGroupIndex> result = ImmutableList.builder();
+        for (int rowGroup = 0; rowGroup < rowGroupIndexes.size(); rowGroup++) {
+            result.add(rowGroupIndexes.get(rowGroup).withBloomFilter(bloomFilters.get(rowGroup)));
+        }
+        return result.build();
+    }
+
     private Set<Integer> selectRowGroups(StripeInformation stripe,  Map<Integer, List<RowGroupIndex>> columnIndexes)
             throws IOException
     {
@@ -381,6 +419,12 @@ public class StripeReader
         return stream.getStreamKind() == ROW_INDEX || stream.getStreamKind() == DICTIONARY_COUNT;
     }
 
+    private boolean isStreamRequired(Stream stream)
+    {
+        // bloom filters are only read for the columns a predicate can prune with them
+        return stream.getStreamKind() != BLOOM_FILTER || bloomFilterOrcColumns.contains(stream.getColumn());
+    }
+
     private static boolean isDictionary(Stream stream, ColumnEncodingKind columnEncoding)
     {
         return stream.getStreamKind() == DICTIONARY_DATA || (stream.getStreamKind() == LENGTH && (columnEncoding == DICTIONARY || columnEncoding == DICTIONARY_V2));
@@ -410,6 +454,16 @@ public class StripeReader
         return includes;
     }
 
+    private static Set<Integer> getBloomFilterOrcColumns(List<OrcType> types, Set<Integer> predicateColumns)
+    {
+        OrcType root = types.get(0);
+        ImmutableSet.Builder<Integer> bloomFilterColumns = ImmutableSet.builder();
+        for (int predicateColumn : predicateColumns) {
+            bloomFilterColumns.add(root.getFieldTypeIndex(predicateColumn));
+        }
+        return bloomFilterColumns.build();
+    }
+
     private static void includeOrcColumnsRecursive(List<OrcType> types, Set<Integer> result, int typeId)
     {
         result.add(typeId);
@@ -15,6 +15,7 @@ package com.facebook.presto.orc;
 
 import com.facebook.presto.orc.metadata.BooleanStatistics;
 import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.HiveBloomFilter;
 import com.facebook.presto.orc.metadata.RangeStatistics;
 import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.Range;
@@ -27,18 +28,33 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.slice.Slice;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
 import static com.facebook.presto.spi.type.Decimals.encodeUnscaledValue;
 import static com.facebook.presto.spi.type.Decimals.isLongDecimal;
 import static com.facebook.presto.spi.type.Decimals.isShortDecimal;
 import static com.facebook.presto.spi.type.Decimals.rescale;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.Varchars.isVarcharType;
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
 public class TupleDomainOrcPredicate<C>
@@ -46,16 +62,25 @@ public class TupleDomainOrcPredicate<C>
 {
     private final TupleDomain<C> effectivePredicate;
     private final List<ColumnReference<C>> columnReferences;
+    private final boolean orcBloomFiltersEnabled;
 
-    public TupleDomainOrcPredicate(TupleDomain<C> effectivePredicate, List<ColumnReference<C>> columnReferences)
+    public TupleDomainOrcPredicate(TupleDomain<C> effectivePredicate, List<ColumnReference<C>> columnReferences, boolean orcBloomFiltersEnabled)
     {
         this.effectivePredicate = requireNonNull(effectivePredicate, "effectivePredicate is null");
         this.columnReferences = ImmutableList.copyOf(requireNonNull(columnReferences, "columnReferences is null"));
+        this.orcBloomFiltersEnabled = orcBloomFiltersEnabled;
     }
 
     @Override
     public boolean matches(long numberOfRows, Map<Integer, ColumnStatistics> statisticsByColumnIndex)
     {
+        Optional<Map<C, Domain>> optionalEffectivePredicateDomains = effectivePredicate.getDomains();
+        if (!optionalEffectivePredicateDomains.isPresent()) {
+            // effective predicate is none, so skip this section
+            return false;
+        }
+        Map<C, Domain> effectivePredicateDomains = optionalEffectivePredicateDomains.get();
+
         ImmutableMap.Builder<C, Domain> domains = ImmutableMap.builder();
 
         for (ColumnReference<C> columnReference : columnReferences) {
@@ -68,6 +93,13 @@ public class TupleDomainOrcPredicate<C>
             }
             else {
                 domain = getDomain(columnReference.getType(), numberOfRows, columnStatistics);
+
+                // the min/max statistics can not rule out point lookups on unsorted columns, but the bloom filter can
+                HiveBloomFilter bloomFilter = columnStatistics.getBloomFilter();
+                Domain predicateDomain = effectivePredicateDomains.get(columnReference.getColumn());
+                if (orcBloomFiltersEnabled && bloomFilter != null && predicateDomain != null && !checkInBloomFilter(bloomFilter, predicateDomain, columnReference.getType())) {
+                    return false;
+                }
             }
             domains.put(columnReference.getColumn(), domain);
         }
@@ -76,6 +108,89 @@ public class TupleDomainOrcPredicate<C>
         return effectivePredicate.overlaps(stripeDomain);
     }
 
+    @Override
+    public boolean isBloomFiltersEnabled()
+    {
+        return orcBloomFiltersEnabled;
+    }
+
+    @Override
+    public Set<Integer> getPredicateColumns()
+    {
+        Optional<Map<C, Domain>> domains = effectivePredicate.getDomains();
+        if (!domains.isPresent()) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<Integer> predicateColumns = ImmutableSet.builder();
+        for (ColumnReference<C> columnReference : columnReferences) {
+            if (domains.get().containsKey(columnReference.getColumn())) {
+                predicateColumns.add(columnReference.getOrdinal());
+            }
+        }
+        return predicateColumns.build();
+    }
+
+    /**
+     * Returns false only if the predicate is a set of discrete values and none of them
+     * can be present according to the bloom filter. Nulls are never added to the filter.
+     */
+    @VisibleForTesting
+    public static boolean checkInBloomFilter(HiveBloomFilter bloomFilter, Domain predicateDomain, Type type)
+    {
+        if (predicateDomain.isNullAllowed()) {
+            return true;
+        }
+
+        Optional<Collection<Object>> discreteValues = getDiscreteValues(predicateDomain.getValues());
+        if (!discreteValues.isPresent()) {
+            // values are not discrete, so we can't use the bloom filter
+            return true;
+        }
+
+        for (Object value : discreteValues.get()) {
+            if (checkInBloomFilter(bloomFilter, value, type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Optional<Collection<Object>> getDiscreteValues(ValueSet valueSet)
+    {
+        return valueSet.getValuesProcessor().transform(
+                ranges -> {
+                    ImmutableList.Builder<Object> values = ImmutableList.builder();
+                    for (Range range : ranges.getOrderedRanges()) {
+                        if (!range.isSingleValue()) {
+                            return Optional.empty();
+                        }
+                        values.add(range.getSingleValue());
+                    }
+                    return Optional.of(values.build());
+                },
+                discreteValues -> discreteValues.isWhiteList() ? Optional.of(discreteValues.getValues()) : Optional.empty(),
+                allOrNone -> allOrNone.isAll() ? Optional.empty() : Optional.of(ImmutableList.of()));
+    }
+
+    private static boolean checkInBloomFilter(HiveBloomFilter bloomFilter, Object predicateValue, Type type)
+    {
+        if (type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) || type.equals(DATE)) {
+            return bloomFilter.testLong((long) predicateValue);
+        }
+        if (type.equals(DOUBLE)) {
+            return bloomFilter.testDouble((double) predicateValue);
+        }
+        if (type.equals(REAL)) {
+            // Hive adds floats to the bloom filter as doubles
+            return bloomFilter.testDouble(intBitsToFloat(toIntExact((long) predicateValue)));
+        }
+        if (isVarcharType(type) || type.equals(VARBINARY)) {
+            return bloomFilter.testSlice((Slice) predicateValue);
+        }
+        // the Hive encoding of other types (e.g. timestamps and decimals) depends on the writer, so assume a match
+        return true;
+    }
+
     @VisibleForTesting
     public static Domain getDomain(Type type, long rowCount, ColumnStatistics columnStatistics)
     {
@@ -16,8 +16,12 @@ package com.facebook.presto.orc.checkpoint;
 import com.facebook.presto.orc.checkpoint.Checkpoints.ColumnPositionsList;
 import com.facebook.presto.orc.metadata.CompressionKind;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
 
 import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.createInputStreamCheckpoint;
+import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.createInputStreamPositionList;
 import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.inputStreamCheckpointToString;
 
 public final class ByteStreamCheckpoint
@@ -48,6 +52,15 @@ public final class ByteStreamCheckpoint
         return inputStreamCheckpoint;
     }
 
+    @Override
+    public List<Integer> toPositionList(boolean compressed)
+    {
+        return ImmutableList.<Integer>builder()
+                .addAll(createInputStreamPositionList(compressed, inputStreamCheckpoint))
+                .add(offset)
+                .build();
+    }
+
     @Override
     public String toString()
     {
@@ -17,7 +17,10 @@ import com.facebook.presto.orc.checkpoint.Checkpoints.ColumnPositionsList;
 import com.facebook.presto.orc.metadata.CompressionKind;
 import com.google.common.base.MoreObjects;
 
+import java.util.List;
+
 import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.createInputStreamCheckpoint;
+import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.createInputStreamPositionList;
 import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.inputStreamCheckpointToString;
 
 public final class DecimalStreamCheckpoint
@@ -25,6 +28,11 @@ public final class DecimalStreamCheckpoint
 {
     private final long inputStreamCheckpoint;
 
+    public DecimalStreamCheckpoint(long inputStreamCheckpoint)
+    {
+        this.inputStreamCheckpoint = inputStreamCheckpoint;
+    }
+
     public DecimalStreamCheckpoint(CompressionKind compressionKind, ColumnPositionsList positionsList)
     {
         inputStreamCheckpoint = createInputStreamCheckpoint(compressionKind, positionsList);
@@ -35,6 +43,12 @@ public final class DecimalStreamCheckpoint
         return inputStreamCheckpoint;
     }
 
+    @Override
+    public List<Integer> toPositionList(boolean compressed)
+    {
+        return createInputStreamPositionList(compressed, inputStreamCheckpoint);
+    }
+
     @Override
     public String toString()
     {
@@ -17,7 +17,10 @@ import com.facebook.presto.orc.checkpoint.Checkpoints.ColumnPositionsList;
 import com.facebook.presto.orc.metadata.CompressionKind;
 import com.google.common.base.MoreObjects;
 
+import java.util.List;
+
 import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.createInputStreamCheckpoint;
+import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.createInputStreamPositionList;
 import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.inputStreamCheckpointToString;
 
 public final class DoubleStreamCheckpoint
@@ -40,6 +43,12 @@ public final class DoubleStreamCheckpoint
         return inputStreamCheckpoint;
     }
 
+    @Override
+    public List<Integer> toPositionList(boolean compressed)
+    {
+        return createInputStreamPositionList(compressed, inputStreamCheckpoint);
+    }
+
     @Override
     public String toString()
     {
@@ -13,6 +13,12 @@
  */
 package com.facebook.presto.orc.checkpoint;
 
+import java.util.List;
+
 public interface StreamCheckpoint
 {
+    /**
+     * Encodes this checkpoint as the positions list stored in a row group index entry.
+     */
+    List<Integer> toPositionList(boolean compressed);
 }
@@ -13,6 +13,10 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 public class ColumnStatistics
 {
     private final Long numberOfValues;
@@ -22,6 +26,7 @@ public class ColumnStatistics
     private final StringStatistics stringStatistics;
     private final DateStatistics dateStatistics;
     private final DecimalStatistics decimalStatistics;
+    private final HiveBloomFilter bloomFilter;
 
     public ColumnStatistics(
             Long numberOfValues,
@@ -31,6 +36,19 @@ public class ColumnStatistics
             StringStatistics stringStatistics,
             DateStatistics dateStatistics,
             DecimalStatistics decimalStatistics)
+    {
+        this(numberOfValues, booleanStatistics, integerStatistics, doubleStatistics, stringStatistics, dateStatistics, decimalStatistics, null);
+    }
+
+    public ColumnStatistics(
+            Long numberOfValues,
+            BooleanStatistics booleanStatistics,
+            IntegerStatistics integerStatistics,
+            DoubleStatistics doubleStatistics,
+            StringStatistics stringStatistics,
+            DateStatistics dateStatistics,
+            DecimalStatistics decimalStatistics,
+            HiveBloomFilter bloomFilter)
     {
         this.numberOfValues = numberOfValues;
         this.booleanStatistics = booleanStatistics;
@@ -39,6 +57,7 @@ public class ColumnStatistics
         this.stringStatistics = stringStatistics;
         this.dateStatistics = dateStatistics;
         this.decimalStatistics = decimalStatistics;
+        this.bloomFilter = bloomFilter;
     }
 
     public boolean hasNumberOfValues()
@@ -80,4 +99,95 @@ public class ColumnStatistics
     {
         return decimalStatistics;
     }
+
+    public HiveBloomFilter getBloomFilter()
+    {
+        return bloomFilter;
+    }
+
+    public ColumnStatistics withBloomFilter(HiveBloomFilter bloomFilter)
+    {
+        return new ColumnStatistics(
+                numberOfValues,
+                booleanStatistics,
+                integerStatistics,
+                doubleStatistics,
+                stringStatistics,
+                dateStatistics,
+                decimalStatistics,
+                bloomFilter);
+    }
+
+    /**
+     * Combines the statistics of consecutive parts of a column (e.g. the row groups of a stripe).
+     * Typed statistics are only retained if they are present in every part that contains values.
+     */
+    public static ColumnStatistics mergeColumnStatistics(List<ColumnStatistics> stats)
+    {
+        long numberOfValues = 0;
+        for (ColumnStatistics stat : stats) {
+            numberOfValues += stat.getNumberOfValues();
+        }
+
+        BooleanStatistics booleanStatistics = null;
+        if (stats.stream().allMatch(stat -> stat.getNumberOfValues() == 0 || stat.getBooleanStatistics() != null)
+                && stats.stream().anyMatch(stat -> stat.getBooleanStatistics() != null)) {
+            long trueValueCount = 0;
+            for (ColumnStatistics stat : stats) {
+                if (stat.getBooleanStatistics() != null) {
+                    trueValueCount += stat.getBooleanStatistics().getTrueValueCount();
+                }
+            }
+            booleanStatistics = new BooleanStatistics(trueValueCount);
+        }
+
+        return new ColumnStatistics(
+                numberOfValues,
+                booleanStatistics,
+                mergeRangeStatistics(stats, ColumnStatistics::getIntegerStatistics, IntegerStatistics::new),
+                mergeRangeStatistics(stats, ColumnStatistics::getDoubleStatistics, DoubleStatistics::new),
+                mergeRangeStatistics(stats, ColumnStatistics::getStringStatistics, StringStatistics::new),
+                mergeRangeStatistics(stats, ColumnStatistics::getDateStatistics, DateStatistics::new),
+                mergeRangeStatistics(stats, ColumnStatistics::getDecimalStatistics, DecimalStatistics::new));
+    }
+
+    private static <T extends Comparable<? super T>, S extends RangeStatistics<T>> S mergeRangeStatistics(
+            List<ColumnStatistics> stats,
+            Function<ColumnStatistics, S> getter,
+            BiFunction<T, T, S> constructor)
+    {
+        T minimum = null;
+        T maximum = null;
+        boolean found = false;
+        for (ColumnStatistics stat : stats) {
+            S rangeStatistics = getter.apply(stat);
+            if (rangeStatistics == null) {
+                if (stat.getNumberOfValues() > 0) {
+                    // the range of this part is unknown
+                    return null;
+                }
+                continue;
+            }
+            if (rangeStatistics.getMin() == null || rangeStatistics.getMax() == null) {
+                return null;
+            }
+            if (!found) {
+                minimum = rangeStatistics.getMin();
+                maximum = rangeStatistics.getMax();
+                found = true;
+            }
+            else {
+                if (rangeStatistics.getMin().compareTo(minimum) < 0) {
+                    minimum = rangeStatistics.getMin();
+                }
+                if (rangeStatistics.getMax().compareTo(maximum) > 0) {
+                    maximum = rangeStatistics.getMax();
+                }
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        return constructor.apply(minimum, maximum);
+    }
 }
@@ -0,0 +1,220 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.metadata;
+
+import io.airlift.slice.Slice;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bloom filter stored in the BLOOM_FILTER streams of Hive ORC files.
+ * <p>
+ * The hashing scheme must match the Hive writer exactly: integral values are hashed
+ * with Thomas Wang's 64 bit integer hash, doubles are hashed as their raw long bits,
+ * and binary values are hashed with the 64 bit variant of Murmur3 used by Hive.
+ */
+public class HiveBloomFilter
+{
+    private static final long NULL_HASHCODE = 2862933555777941757L;
+    private static final int DEFAULT_SEED = 104729;
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final int R1 = 31;
+    private static final int R2 = 27;
+    private static final int M = 5;
+    private static final int N1 = 0x52dce729;
+
+    private final long[] bitSet;
+    private final int numBits;
+    private final int numHashFunctions;
+
+    public HiveBloomFilter(List<Long> bitSet, int numHashFunctions)
+    {
+        requireNonNull(bitSet, "bitSet is null");
+        checkArgument(!bitSet.isEmpty(), "bitSet is empty");
+        checkArgument(numHashFunctions > 0, "numHashFunctions must be positive");
+        this.bitSet = new long[bitSet.size()];
+        for (int i = 0; i < this.bitSet.length; i++) {
+            this.bitSet[i] = bitSet.get(i);
+        }
+        this.numBits = this.bitSet.length * Long.SIZE;
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    public HiveBloomFilter(int numBits, int numHashFunctions)
+    {
+        checkArgument(numBits > 0, "numBits must be positive");
+        checkArgument(numHashFunctions > 0, "numHashFunctions must be positive");
+        this.bitSet = new long[(numBits + Long.SIZE - 1) / Long.SIZE];
+        this.numBits = this.bitSet.length * Long.SIZE;
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    public long[] getBitSet()
+    {
+        return Arrays.copyOf(bitSet, bitSet.length);
+    }
+
+    public int getNumBits()
+    {
+        return numBits;
+    }
+
+    public int getNumHashFunctions()
+    {
+        return numHashFunctions;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return bitSet.length * (long) SIZE_OF_LONG;
+    }
+
+    public void addLong(long value)
+    {
+        addHash(getLongHash(value));
+    }
+
+    public void addDouble(double value)
+    {
+        addLong(Double.doubleToLongBits(value));
+    }
+
+    public void addSlice(Slice value)
+    {
+        addHash(value == null ? NULL_HASHCODE : hash64(value));
+    }
+
+    public boolean testLong(long value)
+    {
+        return testHash(getLongHash(value));
+    }
+
+    public boolean testDouble(double value)
+    {
+        return testLong(Double.doubleToLongBits(value));
+    }
+
+    public boolean testSlice(Slice value)
+    {
+        return testHash(value == null ? NULL_HASHCODE : hash64(value));
+    }
+
+    private void addHash(long hash64)
+    {
+        int hash1 = (int) hash64;
+        int hash2 = (int) (hash64 >>> 32);
+
+        for (int i = 1; i <= numHashFunctions; i++) {
+            int position = getBitPosition(hash1, hash2, i);
+            bitSet[position >>> 6] |= (1L << position);
+        }
+    }
+
+    private boolean testHash(long hash64)
+    {
+        int hash1 = (int) hash64;
+        int hash2 = (int) (hash64 >>> 32);
+
+        for (int i = 1; i <= numHashFunctions; i++) {
+            int position = getBitPosition(hash1, hash2, i);
+            if ((bitSet[position >>> 6] & (1L << position)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getBitPosition(int hash1, int hash2, int function)
+    {
+        int combinedHash = hash1 + (function * hash2);
+        // hash values must be positive
+        if (combinedHash < 0) {
+            combinedHash = ~combinedHash;
+        }
+        return combinedHash % numBits;
+    }
+
+    // Thomas Wang's integer hash function
+    private static long getLongHash(long key)
+    {
+        key = (~key) + (key << 21);
+        key = key ^ (key >> 24);
+        key = (key + (key << 3)) + (key << 8);
+        key = key ^ (key >> 14);
+        key = (key + (key << 2)) + (key << 4);
+        key = key ^ (key >> 28);
+        key = key + (key << 31);
+        return key;
+    }
+
+    private static long hash64(Slice data)
+    {
+        int length = data.length();
+        long hash = DEFAULT_SEED;
+
+        int blocks = length >> 3;
+        for (int i = 0; i < blocks; i++) {
+            long k = data.getLong(i << 3);
+
+            k *= C1;
+            k = Long.rotateLeft(k, R1);
+            k *= C2;
+            hash ^= k;
+            hash = Long.rotateLeft(hash, R2) * M + N1;
+        }
+
+        int tailStart = blocks << 3;
+        int tailLength = length - tailStart;
+        if (tailLength > 0) {
+            long k = 0;
+            for (int i = tailLength - 1; i >= 0; i--) {
+                k ^= (data.getByte(tailStart + i) & 0xFFL) << (i * 8);
+            }
+            k *= C1;
+            k = Long.rotateLeft(k, R1);
+            k *= C2;
+            hash ^= k;
+        }
+
+        hash ^= length;
+        return fmix64(hash);
+    }
+
+    private static long fmix64(long hash)
+    {
+        hash ^= (hash >>> 33);
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= (hash >>> 33);
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= (hash >>> 33);
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("numBits", numBits)
+                .add("numHashFunctions", numHashFunctions)
+                .toString();
+    }
+}
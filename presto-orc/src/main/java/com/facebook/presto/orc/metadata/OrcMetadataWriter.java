@@ -0,0 +1,361 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.metadata;
+
+import com.facebook.presto.hive.protobuf.ByteString;
+import com.facebook.presto.hive.protobuf.MessageLite;
+import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.RowIndexEntry;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Writes the ORC protobuf metadata structures. This is the inverse of {@link OrcMetadataReader}.
+ */
+public class OrcMetadataWriter
+{
+    private static final String MAGIC = "ORC";
+
+    public int writePostScript(SliceOutput output, int footerLength, int metadataLength, CompressionKind compression, int compressionBlockSize)
+            throws IOException
+    {
+        OrcProto.PostScript postScript = OrcProto.PostScript.newBuilder()
+                .addVersion(0)
+                .addVersion(12)
+                .setFooterLength(footerLength)
+                .setMetadataLength(metadataLength)
+                .setCompression(toCompression(compression))
+                .setCompressionBlockSize(compressionBlockSize)
+                .setMagic(MAGIC)
+                .build();
+
+        return writeProtobufObject(output, postScript);
+    }
+
+    public int writeMetadata(SliceOutput output, Metadata metadata)
+            throws IOException
+    {
+        OrcProto.Metadata metadataProtobuf = OrcProto.Metadata.newBuilder()
+                .addAllStripeStats(metadata.getStripeStatsList().stream()
+                        .map(OrcMetadataWriter::toStripeStatistics)
+                        .collect(toList()))
+                .build();
+
+        return writeProtobufObject(output, metadataProtobuf);
+    }
+
+    private static OrcProto.StripeStatistics toStripeStatistics(StripeStatistics stripeStatistics)
+    {
+        return OrcProto.StripeStatistics.newBuilder()
+                .addAllColStats(stripeStatistics.getColumnStatistics().stream()
+                        .map(OrcMetadataWriter::toColumnStatistics)
+                        .collect(toList()))
+                .build();
+    }
+
+    public int writeFooter(SliceOutput output, Footer footer)
+            throws IOException
+    {
+        OrcProto.Footer.Builder builder = OrcProto.Footer.newBuilder()
+                .setNumberOfRows(footer.getNumberOfRows())
+                .setRowIndexStride(footer.getRowsInRowGroup())
+                .addAllStripes(footer.getStripes().stream()
+                        .map(OrcMetadataWriter::toStripeInformation)
+                        .collect(toList()))
+                .addAllTypes(footer.getTypes().stream()
+                        .map(OrcMetadataWriter::toType)
+                        .collect(toList()))
+                .addAllStatistics(footer.getFileStats().stream()
+                        .map(OrcMetadataWriter::toColumnStatistics)
+                        .collect(toList()));
+
+        for (Entry<String, Slice> entry : footer.getUserMetadata().entrySet()) {
+            builder.addMetadata(OrcProto.UserMetadataItem.newBuilder()
+                    .setName(entry.getKey())
+                    .setValue(ByteString.copyFrom(entry.getValue().getBytes())));
+        }
+
+        return writeProtobufObject(output, builder.build());
+    }
+
+    private static OrcProto.StripeInformation toStripeInformation(StripeInformation stripe)
+    {
+        return OrcProto.StripeInformation.newBuilder()
+                .setNumberOfRows(stripe.getNumberOfRows())
+                .setOffset(stripe.getOffset())
+                .setIndexLength(stripe.getIndexLength())
+                .setDataLength(stripe.getDataLength())
+                .setFooterLength(stripe.getFooterLength())
+                .build();
+    }
+
+    private static OrcProto.Type toType(OrcType type)
+    {
+        OrcProto.Type.Builder builder = OrcProto.Type.newBuilder()
+                .setKind(toTypeKind(type.getOrcTypeKind()));
+        for (int field = 0; field < type.getFieldCount(); field++) {
+            builder.addSubtypes(type.getFieldTypeIndex(field));
+        }
+        if (type.getFieldNames() != null) {
+            builder.addAllFieldNames(type.getFieldNames());
+        }
+        if (type.getPrecision().isPresent()) {
+            builder.setPrecision(type.getPrecision().get());
+        }
+        if (type.getScale().isPresent()) {
+            builder.setScale(type.getScale().get());
+        }
+        return builder.build();
+    }
+
+    private static OrcProto.Type.Kind toTypeKind(OrcTypeKind orcTypeKind)
+    {
+        switch (orcTypeKind) {
+            case BOOLEAN:
+                return OrcProto.Type.Kind.BOOLEAN;
+            case BYTE:
+                return OrcProto.Type.Kind.BYTE;
+            case SHORT:
+                return OrcProto.Type.Kind.SHORT;
+            case INT:
+                return OrcProto.Type.Kind.INT;
+            case LONG:
+                return OrcProto.Type.Kind.LONG;
+            case DECIMAL:
+                return OrcProto.Type.Kind.DECIMAL;
+            case FLOAT:
+                return OrcProto.Type.Kind.FLOAT;
+            case DOUBLE:
+                return OrcProto.Type.Kind.DOUBLE;
+            case STRING:
+                return OrcProto.Type.Kind.STRING;
+            case VARCHAR:
+                return OrcProto.Type.Kind.VARCHAR;
+            case CHAR:
+                return OrcProto.Type.Kind.CHAR;
+            case BINARY:
+                return OrcProto.Type.Kind.BINARY;
+            case DATE:
+                return OrcProto.Type.Kind.DATE;
+            case TIMESTAMP:
+                return OrcProto.Type.Kind.TIMESTAMP;
+            case LIST:
+                return OrcProto.Type.Kind.LIST;
+            case MAP:
+                return OrcProto.Type.Kind.MAP;
+            case STRUCT:
+                return OrcProto.Type.Kind.STRUCT;
+            case UNION:
+                return OrcProto.Type.Kind.UNION;
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + orcTypeKind);
+        }
+    }
+
+    private static OrcProto.ColumnStatistics toColumnStatistics(ColumnStatistics columnStatistics)
+    {
+        OrcProto.ColumnStatistics.Builder builder = OrcProto.ColumnStatistics.newBuilder();
+
+        if (columnStatistics.hasNumberOfValues()) {
+            builder.setNumberOfValues(columnStatistics.getNumberOfValues());
+        }
+
+        if (columnStatistics.getBooleanStatistics() != null) {
+            builder.setBucketStatistics(OrcProto.BucketStatistics.newBuilder()
+                    .addCount(columnStatistics.getBooleanStatistics().getTrueValueCount())
+                    .build());
+        }
+
+        if (columnStatistics.getIntegerStatistics() != null) {
+            OrcProto.IntegerStatistics.Builder integerStatistics = OrcProto.IntegerStatistics.newBuilder();
+            if (columnStatistics.getIntegerStatistics().getMin() != null) {
+                integerStatistics.setMinimum(columnStatistics.getIntegerStatistics().getMin());
+            }
+            if (columnStatistics.getIntegerStatistics().getMax() != null) {
+                integerStatistics.setMaximum(columnStatistics.getIntegerStatistics().getMax());
+            }
+            builder.setIntStatistics(integerStatistics.build());
+        }
+
+        if (columnStatistics.getDoubleStatistics() != null) {
+            OrcProto.DoubleStatistics.Builder doubleStatistics = OrcProto.DoubleStatistics.newBuilder();
+            if (columnStatistics.getDoubleStatistics().getMin() != null) {
+                doubleStatistics.setMinimum(columnStatistics.getDoubleStatistics().getMin());
+            }
+            if (columnStatistics.getDoubleStatistics().getMax() != null) {
+                doubleStatistics.setMaximum(columnStatistics.getDoubleStatistics().getMax());
+            }
+            builder.setDoubleStatistics(doubleStatistics.build());
+        }
+
+        if (columnStatistics.getStringStatistics() != null) {
+            OrcProto.StringStatistics.Builder stringStatistics = OrcProto.StringStatistics.newBuilder();
+            if (columnStatistics.getStringStatistics().getMin() != null) {
+                stringStatistics.setMinimum(columnStatistics.getStringStatistics().getMin().toStringUtf8());
+            }
+            if (columnStatistics.getStringStatistics().getMax() != null) {
+                stringStatistics.setMaximum(columnStatistics.getStringStatistics().getMax().toStringUtf8());
+            }
+            builder.setStringStatistics(stringStatistics.build());
+        }
+
+        if (columnStatistics.getDateStatistics() != null) {
+            OrcProto.DateStatistics.Builder dateStatistics = OrcProto.DateStatistics.newBuilder();
+            if (columnStatistics.getDateStatistics().getMin() != null) {
+                dateStatistics.setMinimum(columnStatistics.getDateStatistics().getMin());
+            }
+            if (columnStatistics.getDateStatistics().getMax() != null) {
+                dateStatistics.setMaximum(columnStatistics.getDateStatistics().getMax());
+            }
+            builder.setDateStatistics(dateStatistics.build());
+        }
+
+        if (columnStatistics.getDecimalStatistics() != null) {
+            OrcProto.DecimalStatistics.Builder decimalStatistics = OrcProto.DecimalStatistics.newBuilder();
+            if (columnStatistics.getDecimalStatistics().getMin() != null) {
+                decimalStatistics.setMinimum(columnStatistics.getDecimalStatistics().getMin().toString());
+            }
+            if (columnStatistics.getDecimalStatistics().getMax() != null) {
+                decimalStatistics.setMaximum(columnStatistics.getDecimalStatistics().getMax().toString());
+            }
+            builder.setDecimalStatistics(decimalStatistics.build());
+        }
+
+        return builder.build();
+    }
+
+    public int writeStripeFooter(SliceOutput output, StripeFooter footer)
+            throws IOException
+    {
+        OrcProto.StripeFooter footerProtobuf = OrcProto.StripeFooter.newBuilder()
+                .addAllStreams(footer.getStreams().stream()
+                        .map(OrcMetadataWriter::toStream)
+                        .collect(toList()))
+                .addAllColumns(footer.getColumnEncodings().stream()
+                        .map(OrcMetadataWriter::toColumnEncoding)
+                        .collect(toList()))
+                .build();
+
+        return writeProtobufObject(output, footerProtobuf);
+    }
+
+    private static OrcProto.Stream toStream(Stream stream)
+    {
+        return OrcProto.Stream.newBuilder()
+                .setColumn(stream.getColumn())
+                .setKind(toStreamKind(stream.getStreamKind()))
+                .setLength(stream.getLength())
+                .build();
+    }
+
+    private static OrcProto.Stream.Kind toStreamKind(StreamKind streamKind)
+    {
+        switch (streamKind) {
+            case PRESENT:
+                return OrcProto.Stream.Kind.PRESENT;
+            case DATA:
+                return OrcProto.Stream.Kind.DATA;
+            case LENGTH:
+                return OrcProto.Stream.Kind.LENGTH;
+            case DICTIONARY_DATA:
+                return OrcProto.Stream.Kind.DICTIONARY_DATA;
+            case DICTIONARY_COUNT:
+                return OrcProto.Stream.Kind.DICTIONARY_COUNT;
+            case SECONDARY:
+                return OrcProto.Stream.Kind.SECONDARY;
+            case ROW_INDEX:
+                return OrcProto.Stream.Kind.ROW_INDEX;
+            case BLOOM_FILTER:
+                return OrcProto.Stream.Kind.BLOOM_FILTER;
+            default:
+                throw new IllegalArgumentException("Unsupported stream kind: " + streamKind);
+        }
+    }
+
+    private static OrcProto.ColumnEncoding toColumnEncoding(ColumnEncoding columnEncoding)
+    {
+        return OrcProto.ColumnEncoding.newBuilder()
+                .setKind(toColumnEncodingKind(columnEncoding.getColumnEncodingKind()))
+                .setDictionarySize(columnEncoding.getDictionarySize())
+                .build();
+    }
+
+    private static OrcProto.ColumnEncoding.Kind toColumnEncodingKind(ColumnEncodingKind columnEncodingKind)
+    {
+        switch (columnEncodingKind) {
+            case DIRECT:
+                return OrcProto.ColumnEncoding.Kind.DIRECT;
+            case DIRECT_V2:
+                return OrcProto.ColumnEncoding.Kind.DIRECT_V2;
+            case DICTIONARY:
+                return OrcProto.ColumnEncoding.Kind.DICTIONARY;
+            case DICTIONARY_V2:
+                return OrcProto.ColumnEncoding.Kind.DICTIONARY_V2;
+            default:
+                throw new IllegalArgumentException("Unsupported column encoding: " + columnEncodingKind);
+        }
+    }
+
+    public int writeRowIndexes(SliceOutput output, List<RowGroupIndex> rowGroupIndexes)
+            throws IOException
+    {
+        OrcProto.RowIndex rowIndexProtobuf = OrcProto.RowIndex.newBuilder()
+                .addAllEntry(rowGroupIndexes.stream()
+                        .map(OrcMetadataWriter::toRowGroupIndex)
+                        .collect(toList()))
+                .build();
+        return writeProtobufObject(output, rowIndexProtobuf);
+    }
+
+    private static RowIndexEntry toRowGroupIndex(RowGroupIndex rowGroupIndex)
+    {
+        return RowIndexEntry.newBuilder()
+                .addAllPositions(rowGroupIndex.getPositions().stream()
+                        .map(Integer::longValue)
+                        .collect(toList()))
+                .setStatistics(toColumnStatistics(rowGroupIndex.getColumnStatistics()))
+                .build();
+    }
+
+    private static OrcProto.CompressionKind toCompression(CompressionKind compressionKind)
+    {
+        switch (compressionKind) {
+            case UNCOMPRESSED:
+                return OrcProto.CompressionKind.NONE;
+            case ZLIB:
+                return OrcProto.CompressionKind.ZLIB;
+            case SNAPPY:
+                return OrcProto.CompressionKind.SNAPPY;
+            default:
+                throw new IllegalArgumentException("Unsupported compression kind: " + compressionKind);
+        }
+    }
+
+    private static int writeProtobufObject(SliceOutput output, MessageLite object)
+            throws IOException
+    {
+        int size = object.getSerializedSize();
+        object.writeTo(output);
+        return size;
+    }
+}
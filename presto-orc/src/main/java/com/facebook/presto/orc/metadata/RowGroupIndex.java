@@ -39,4 +39,14 @@ public class RowGroupIndex
     {
         return statistics;
     }
+
+    public HiveBloomFilter getBloomFilter()
+    {
+        return statistics.getBloomFilter();
+    }
+
+    public RowGroupIndex withBloomFilter(HiveBloomFilter bloomFilter)
+    {
+        return new RowGroupIndex(positions, statistics.withBloomFilter(bloomFilter));
+    }
 }
@@ -29,6 +29,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
@@ -78,19 +79,7 @@ public class LongDirectStreamReader
             openRowGroup();
         }
 
-        if (readOffset > 0) {
-            if (presentStream != null) {
-                // skip ahead the present bit reader, but count the set bits
-                // and use this as the skip size for the data reader
-                readOffset = presentStream.countBitsSet(readOffset);
-            }
-            if (readOffset > 0) {
-                if (dataStream == null) {
-                    throw new OrcCorruptionException("Value is not null but data stream is not present");
-                }
-                dataStream.skip(readOffset);
-            }
-        }
+        skipToReadOffset();
 
         BlockBuilder builder = type.createBlockBuilder(new BlockBuilderStatus(), nextBatchSize);
         if (presentStream == null) {
@@ -123,6 +112,90 @@ public class LongDirectStreamReader
         return builder.build();
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        if (positionCount == nextBatchSize) {
+            return readBlock(type);
+        }
+
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        skipToReadOffset();
+
+        if (nullVector.length < nextBatchSize) {
+            nullVector = new boolean[nextBatchSize];
+        }
+        if (presentStream == null) {
+            Arrays.fill(nullVector, 0, nextBatchSize, false);
+        }
+        else {
+            presentStream.getUnsetBits(nextBatchSize, nullVector);
+        }
+
+        // only decode the selected values, the values in between are skipped in the data stream
+        BlockBuilder builder = type.createBlockBuilder(new BlockBuilderStatus(), positionCount);
+        int batchPosition = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            skipValues(batchPosition, position);
+            if (nullVector[position]) {
+                builder.appendNull();
+            }
+            else {
+                if (dataStream == null) {
+                    throw new OrcCorruptionException("Value is not null but data stream is not present");
+                }
+                type.writeLong(builder, dataStream.next());
+            }
+            batchPosition = position + 1;
+        }
+        skipValues(batchPosition, nextBatchSize);
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return builder.build();
+    }
+
+    private void skipToReadOffset()
+            throws IOException
+    {
+        if (readOffset > 0) {
+            if (presentStream != null) {
+                // skip ahead the present bit reader, but count the set bits
+                // and use this as the skip size for the data reader
+                readOffset = presentStream.countBitsSet(readOffset);
+            }
+            if (readOffset > 0) {
+                if (dataStream == null) {
+                    throw new OrcCorruptionException("Value is not null but data stream is not present");
+                }
+                dataStream.skip(readOffset);
+            }
+        }
+    }
+
+    private void skipValues(int fromPosition, int toPosition)
+            throws IOException
+    {
+        int skipSize = 0;
+        for (int position = fromPosition; position < toPosition; position++) {
+            if (!nullVector[position]) {
+                skipSize++;
+            }
+        }
+        if (skipSize > 0) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException("Value is not null but data stream is not present");
+            }
+            dataStream.skip(skipSize);
+        }
+    }
+
     private void openRowGroup()
             throws IOException
     {
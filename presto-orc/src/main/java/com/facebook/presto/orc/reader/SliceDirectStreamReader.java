@@ -92,6 +92,105 @@ public class SliceDirectStreamReader
             openRowGroup();
         }
 
+        skipToReadOffset();
+        readLengths();
+
+        int totalLength = 0;
+        for (int i = 0; i < nextBatchSize; i++) {
+            if (!isNullVector[i]) {
+                totalLength += lengthVector[i];
+            }
+        }
+
+        byte[] data = EMPTY_BYTE_ARRAY;
+        if (totalLength > 0) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException("Value is not null but data stream is not present");
+            }
+            data = dataStream.next(totalLength);
+        }
+
+        Slice[] sliceVector = new Slice[nextBatchSize];
+
+        int offset = 0;
+        for (int i = 0; i < nextBatchSize; i++) {
+            if (!isNullVector[i]) {
+                int length = lengthVector[i];
+                Slice value = Slices.wrappedBuffer(data, offset, length);
+                if (isVarcharType(type)) {
+                    value = truncateToLength(value, type);
+                }
+                sliceVector[i] = value;
+                offset += length;
+            }
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return new SliceArrayBlock(sliceVector.length, sliceVector);
+    }
+
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        if (positionCount == nextBatchSize) {
+            return readBlock(type);
+        }
+
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        skipToReadOffset();
+        readLengths();
+
+        int totalLength = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (!isNullVector[position]) {
+                totalLength += lengthVector[position];
+            }
+        }
+
+        // only copy the bytes of the selected values, the values in between are skipped in the data stream
+        byte[] data = totalLength > 0 ? new byte[totalLength] : EMPTY_BYTE_ARRAY;
+        Slice[] sliceVector = new Slice[positionCount];
+
+        int offset = 0;
+        int batchPosition = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            skipValues(batchPosition, position);
+            if (!isNullVector[position]) {
+                int length = lengthVector[position];
+                if (length > 0) {
+                    if (dataStream == null) {
+                        throw new OrcCorruptionException("Value is not null but data stream is not present");
+                    }
+                    dataStream.next(data, offset, length);
+                }
+                Slice value = Slices.wrappedBuffer(data, offset, length);
+                if (isVarcharType(type)) {
+                    value = truncateToLength(value, type);
+                }
+                sliceVector[i] = value;
+                offset += length;
+            }
+            batchPosition = position + 1;
+        }
+        skipValues(batchPosition, nextBatchSize);
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return new SliceArrayBlock(sliceVector.length, sliceVector);
+    }
+
+    private void skipToReadOffset()
+            throws IOException
+    {
         if (readOffset > 0) {
             if (presentStream != null) {
                 // skip ahead the present bit reader, but count the set bits
@@ -111,7 +210,11 @@ public class SliceDirectStreamReader
                 }
             }
         }
+    }
 
+    private void readLengths()
+            throws IOException
+    {
         if (isNullVector.length < nextBatchSize) {
             isNullVector = new boolean[nextBatchSize];
         }
@@ -134,41 +237,23 @@ public class SliceDirectStreamReader
                 lengthStream.nextIntVector(nextBatchSize, lengthVector, isNullVector);
             }
         }
+    }
 
-        int totalLength = 0;
-        for (int i = 0; i < nextBatchSize; i++) {
-            if (!isNullVector[i]) {
-                totalLength += lengthVector[i];
+    private void skipValues(int fromPosition, int toPosition)
+            throws IOException
+    {
+        long skipSize = 0;
+        for (int position = fromPosition; position < toPosition; position++) {
+            if (!isNullVector[position]) {
+                skipSize += lengthVector[position];
             }
         }
-
-        byte[] data = EMPTY_BYTE_ARRAY;
-        if (totalLength > 0) {
+        if (skipSize > 0) {
             if (dataStream == null) {
                 throw new OrcCorruptionException("Value is not null but data stream is not present");
             }
-            data = dataStream.next(totalLength);
+            dataStream.skip(skipSize);
         }
-
-        Slice[] sliceVector = new Slice[nextBatchSize];
-
-        int offset = 0;
-        for (int i = 0; i < nextBatchSize; i++) {
-            if (!isNullVector[i]) {
-                int length = lengthVector[i];
-                Slice value = Slices.wrappedBuffer(data, offset, length);
-                if (isVarcharType(type)) {
-                    value = truncateToLength(value, type);
-                }
-                sliceVector[i] = value;
-                offset += length;
-            }
-        }
-
-        readOffset = 0;
-        nextBatchSize = 0;
-
-        return new SliceArrayBlock(sliceVector.length, sliceVector);
     }
 
     private void openRowGroup()
@@ -19,6 +19,7 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface StreamReader
@@ -26,6 +27,26 @@ public interface StreamReader
     Block readBlock(Type type)
             throws IOException;
 
+    /**
+     * Reads only the values at the specified positions of the next batch.
+     * The positions must be strictly increasing and less than the batch size.
+     * Readers that can skip values in their streams should override this to
+     * avoid materializing the values that are not selected.
+     */
+    default Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        Block block = readBlock(type);
+        if (positionCount == block.getPositionCount()) {
+            return block;
+        }
+        List<Integer> selectedPositions = new ArrayList<>(positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            selectedPositions.add(positions[i]);
+        }
+        return block.copyPositions(selectedPositions);
+    }
+
     void prepareNextRead(int batchSize);
 
     void startStripe(StreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
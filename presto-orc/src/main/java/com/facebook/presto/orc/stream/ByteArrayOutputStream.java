@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.checkpoint.ByteArrayStreamCheckpoint;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Raw bytes of string and binary values. The value lengths are written to a separate stream.
+ */
+public class ByteArrayOutputStream
+        implements ValueOutputStream<ByteArrayStreamCheckpoint>
+{
+    private final OrcOutputBuffer buffer;
+    private final StreamKind streamKind;
+    private final List<ByteArrayStreamCheckpoint> checkpoints = new ArrayList<>();
+
+    private boolean closed;
+
+    public ByteArrayOutputStream(CompressionKind compression, int bufferSize, StreamKind streamKind)
+    {
+        this.buffer = new OrcOutputBuffer(compression, bufferSize);
+        this.streamKind = requireNonNull(streamKind, "streamKind is null");
+    }
+
+    public void writeSlice(Slice value)
+    {
+        checkState(!closed);
+        buffer.writeBytes(value, 0, value.length());
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed);
+        checkpoints.add(new ByteArrayStreamCheckpoint(buffer.getCheckpoint()));
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        buffer.close();
+    }
+
+    @Override
+    public List<ByteArrayStreamCheckpoint> getCheckpoints()
+    {
+        checkState(closed);
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        return new StreamDataOutput(new Stream(column, streamKind, toIntExact(buffer.getOutputDataSize()), true), buffer::writeDataTo);
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return buffer.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return buffer.getRetainedSize();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        buffer.reset();
+        checkpoints.clear();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.checkpoint.ByteStreamCheckpoint;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.stream.OrcStreamUtils.MIN_REPEAT_SIZE;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.toIntExact;
+
+// This is based on the Apache Hive ORC code
+public class ByteOutputStream
+        implements ValueOutputStream<ByteStreamCheckpoint>
+{
+    private static final int MAX_LITERAL_SIZE = 128;
+    private static final int MAX_REPEAT_SIZE = 127 + MIN_REPEAT_SIZE;
+
+    private final OrcOutputBuffer buffer;
+    private final List<ByteStreamCheckpoint> checkpoints = new ArrayList<>();
+
+    private final byte[] sequenceBuffer = new byte[MAX_LITERAL_SIZE];
+    private int size;
+    private boolean repeat;
+    private int tailRunLength;
+
+    private boolean closed;
+
+    public ByteOutputStream(CompressionKind compression, int bufferSize)
+    {
+        this(new OrcOutputBuffer(compression, bufferSize));
+    }
+
+    public ByteOutputStream(OrcOutputBuffer buffer)
+    {
+        this.buffer = buffer;
+    }
+
+    public void writeByte(byte value)
+    {
+        checkState(!closed);
+
+        if (size == 0) {
+            sequenceBuffer[size++] = value;
+            tailRunLength = 1;
+        }
+        else if (repeat) {
+            if (value == sequenceBuffer[0]) {
+                size++;
+                if (size == MAX_REPEAT_SIZE) {
+                    flushSequence();
+                }
+            }
+            else {
+                flushSequence();
+                sequenceBuffer[size++] = value;
+                tailRunLength = 1;
+            }
+        }
+        else {
+            if (value == sequenceBuffer[size - 1]) {
+                tailRunLength++;
+            }
+            else {
+                tailRunLength = 1;
+            }
+
+            if (tailRunLength == MIN_REPEAT_SIZE) {
+                if (size + 1 == MIN_REPEAT_SIZE) {
+                    repeat = true;
+                    size++;
+                }
+                else {
+                    // flush the literals preceding the run
+                    size -= MIN_REPEAT_SIZE - 1;
+                    flushSequence();
+
+                    sequenceBuffer[0] = value;
+                    repeat = true;
+                    size = MIN_REPEAT_SIZE;
+                }
+            }
+            else {
+                sequenceBuffer[size++] = value;
+                if (size == MAX_LITERAL_SIZE) {
+                    flushSequence();
+                }
+            }
+        }
+    }
+
+    private void flushSequence()
+    {
+        if (size == 0) {
+            return;
+        }
+
+        if (repeat) {
+            buffer.writeByte(size - MIN_REPEAT_SIZE);
+            buffer.writeByte(sequenceBuffer[0]);
+        }
+        else {
+            buffer.writeByte(-size);
+            buffer.writeBytes(sequenceBuffer, 0, size);
+        }
+
+        repeat = false;
+        size = 0;
+        tailRunLength = 0;
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed);
+        checkpoints.add(getCurrentCheckpoint());
+    }
+
+    /**
+     * Flushes the current run so the next byte starts at a run boundary, and returns the checkpoint for that position.
+     */
+    ByteStreamCheckpoint getCurrentCheckpoint()
+    {
+        flushSequence();
+        return new ByteStreamCheckpoint(0, buffer.getCheckpoint());
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        flushSequence();
+        buffer.close();
+    }
+
+    @Override
+    public List<ByteStreamCheckpoint> getCheckpoints()
+    {
+        checkState(closed);
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        return new StreamDataOutput(new Stream(column, DATA, toIntExact(buffer.getOutputDataSize()), true), buffer::writeDataTo);
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return buffer.getBufferedBytes() + size;
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return buffer.getRetainedSize() + sequenceBuffer.length;
+    }
+
+    @Override
+    public void reset()
+    {
+        size = 0;
+        repeat = false;
+        tailRunLength = 0;
+        closed = false;
+        buffer.reset();
+        checkpoints.clear();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.checkpoint.DecimalStreamCheckpoint;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream;
+import com.google.common.collect.ImmutableList;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.stream.LongEncode.writeSignedVLong;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Unscaled decimal values stored as unbounded zigzag encoded base 128 varints.
+ */
+public class DecimalOutputStream
+        implements ValueOutputStream<DecimalStreamCheckpoint>
+{
+    private final OrcOutputBuffer buffer;
+    private final List<DecimalStreamCheckpoint> checkpoints = new ArrayList<>();
+
+    private boolean closed;
+
+    public DecimalOutputStream(CompressionKind compression, int bufferSize)
+    {
+        this.buffer = new OrcOutputBuffer(compression, bufferSize);
+    }
+
+    public void writeUnscaledValue(long value)
+    {
+        checkState(!closed);
+        // the zigzag encoding of a long is the same as the unbounded encoding used by long decimals
+        writeSignedVLong(buffer, value);
+    }
+
+    // This comes from the Apache Hive ORC code (see org.apache.hadoop.hive.ql.io.orc.SerializationUtils.java)
+    public void writeUnscaledValue(BigInteger value)
+    {
+        checkState(!closed);
+
+        // zigzag encode
+        value = value.shiftLeft(1);
+        if (value.signum() < 0) {
+            value = value.negate().subtract(BigInteger.ONE);
+        }
+
+        int length = value.bitLength();
+        while (true) {
+            long lowBits = value.longValue() & 0x7FFF_FFFF_FFFF_FFFFL;
+            length -= 63;
+            // write out the next 63 bits worth of data
+            for (int i = 0; i < 9; i++) {
+                // if this is the last byte, leave the high bit off
+                if (length <= 0 && (lowBits & ~0x7F) == 0) {
+                    buffer.writeByte((int) lowBits);
+                    return;
+                }
+                buffer.writeByte((int) (0x80 | (lowBits & 0x7F)));
+                lowBits >>>= 7;
+            }
+            value = value.shiftRight(63);
+        }
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed);
+        checkpoints.add(new DecimalStreamCheckpoint(buffer.getCheckpoint()));
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        buffer.close();
+    }
+
+    @Override
+    public List<DecimalStreamCheckpoint> getCheckpoints()
+    {
+        checkState(closed);
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        return new StreamDataOutput(new Stream(column, DATA, toIntExact(buffer.getOutputDataSize()), true), buffer::writeDataTo);
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return buffer.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return buffer.getRetainedSize();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        buffer.reset();
+        checkpoints.clear();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import static com.facebook.presto.orc.stream.LongDecode.getClosestFixedBits;
+
+// This is based on the Apache Hive ORC code
+public final class LongEncode
+{
+    private LongEncode()
+    {
+    }
+
+    /**
+     * Encodes the actual fixed bit width value to the ordinal stored in the RLEv2 header.
+     * This is the inverse of {@link LongDecode#decodeBitWidth(int)}.
+     */
+    public static int encodeBitWidth(int width)
+    {
+        width = getClosestFixedBits(width);
+        if (width >= 1 && width <= 24) {
+            return width - 1;
+        }
+        switch (width) {
+            case 26:
+                return 24;
+            case 28:
+                return 25;
+            case 30:
+                return 26;
+            case 32:
+                return 27;
+            case 40:
+                return 28;
+            case 48:
+                return 29;
+            case 56:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Number of bits required to store the value, treating it as unsigned.
+     */
+    public static int findBitWidth(long value)
+    {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    public static long zigzagEncode(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    public static void writeVLong(OrcOutputBuffer output, long value, boolean signed)
+    {
+        if (signed) {
+            writeSignedVLong(output, value);
+        }
+        else {
+            writeUnsignedVLong(output, value);
+        }
+    }
+
+    public static void writeSignedVLong(OrcOutputBuffer output, long value)
+    {
+        writeUnsignedVLong(output, zigzagEncode(value));
+    }
+
+    public static void writeUnsignedVLong(OrcOutputBuffer output, long value)
+    {
+        while ((value & ~0b0111_1111L) != 0) {
+            output.writeByte((int) (0b1000_0000 | (value & 0b0111_1111)));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    /**
+     * Bit packs the values most significant bit first, padding the last byte with zeros.
+     */
+    public static void writeBitPacked(OrcOutputBuffer output, long[] values, int offset, int length, int bitSize)
+    {
+        int current = 0;
+        int bitsLeft = 8;
+        for (int i = offset; i < offset + length; i++) {
+            long value = values[i];
+            int bitsToWrite = bitSize;
+            while (bitsToWrite > bitsLeft) {
+                // add the bits to the bottom of the current byte
+                current |= (int) (value >>> (bitsToWrite - bitsLeft));
+                // subtract out the bits we just added
+                bitsToWrite -= bitsLeft;
+                // zero out the bits above bitsToWrite
+                value &= (1L << bitsToWrite) - 1;
+                output.writeByte(current);
+                current = 0;
+                bitsLeft = 8;
+            }
+            bitsLeft -= bitsToWrite;
+            current |= (int) (value << bitsLeft);
+            if (bitsLeft == 0) {
+                output.writeByte(current);
+                current = 0;
+                bitsLeft = 8;
+            }
+        }
+        if (bitsLeft != 8) {
+            output.writeByte(current);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.checkpoint.LongStreamV2Checkpoint;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.stream.LongEncode.encodeBitWidth;
+import static com.facebook.presto.orc.stream.LongEncode.findBitWidth;
+import static com.facebook.presto.orc.stream.LongEncode.writeBitPacked;
+import static com.facebook.presto.orc.stream.LongEncode.writeSignedVLong;
+import static com.facebook.presto.orc.stream.LongEncode.writeVLong;
+import static com.facebook.presto.orc.stream.LongEncode.zigzagEncode;
+import static com.facebook.presto.orc.stream.OrcStreamUtils.MIN_REPEAT_SIZE;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.max;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * RLEv2 encoder. Buffered values are split into runs of a constant delta, which are written
+ * as SHORT_REPEAT or fixed DELTA, and the values between these runs, which are bit packed as
+ * DIRECT. PATCHED_BASE is never produced, but all output can be read by any RLEv2 reader.
+ */
+public class LongOutputStreamV2
+        implements ValueOutputStream<LongStreamV2Checkpoint>
+{
+    private static final int MAX_RUN_LENGTH = 512;
+    private static final int MAX_SHORT_REPEAT_LENGTH = 10;
+    // a delta run must be longer to pay for the extra header compared to direct encoding
+    private static final int MIN_DELTA_RUN_LENGTH = 8;
+
+    private enum EncodingType
+    {
+        SHORT_REPEAT, DIRECT, PATCHED_BASE, DELTA
+    }
+
+    private final OrcOutputBuffer buffer;
+    private final boolean signed;
+    private final StreamKind streamKind;
+    private final List<LongStreamV2Checkpoint> checkpoints = new ArrayList<>();
+
+    private final long[] values = new long[MAX_RUN_LENGTH];
+    private int size;
+
+    private final long[] encodedValues = new long[MAX_RUN_LENGTH];
+
+    private boolean closed;
+
+    public LongOutputStreamV2(CompressionKind compression, int bufferSize, boolean signed, StreamKind streamKind)
+    {
+        this.buffer = new OrcOutputBuffer(compression, bufferSize);
+        this.signed = signed;
+        this.streamKind = requireNonNull(streamKind, "streamKind is null");
+    }
+
+    public void writeLong(long value)
+    {
+        checkState(!closed);
+        values[size] = value;
+        size++;
+        if (size == values.length) {
+            flushValues();
+        }
+    }
+
+    private void flushValues()
+    {
+        int offset = 0;
+        while (offset < size) {
+            int runLength = getFixedDeltaRunLength(offset);
+            long delta = runLength > 1 ? values[offset + 1] - values[offset] : 0;
+            if (delta == 0 && runLength >= MIN_REPEAT_SIZE) {
+                if (runLength <= MAX_SHORT_REPEAT_LENGTH) {
+                    writeShortRepeat(values[offset], runLength);
+                }
+                else {
+                    writeFixedDelta(values[offset], 0, runLength);
+                }
+                offset += runLength;
+            }
+            else if (runLength >= MIN_DELTA_RUN_LENGTH) {
+                writeFixedDelta(values[offset], delta, runLength);
+                offset += runLength;
+            }
+            else {
+                // collect literals until the start of the next run
+                int start = offset;
+                offset++;
+                while (offset < size && !isRunStart(offset)) {
+                    offset++;
+                }
+                writeDirect(start, offset - start);
+            }
+        }
+        size = 0;
+    }
+
+    private boolean isRunStart(int offset)
+    {
+        int runLength = getFixedDeltaRunLength(offset);
+        if (runLength < MIN_REPEAT_SIZE) {
+            return false;
+        }
+        return runLength >= MIN_DELTA_RUN_LENGTH || values[offset + 1] == values[offset];
+    }
+
+    /**
+     * Returns the number of values starting at offset that differ by the same delta.
+     */
+    private int getFixedDeltaRunLength(int offset)
+    {
+        if (offset + 1 >= size) {
+            return size - offset;
+        }
+
+        long delta = values[offset + 1] - values[offset];
+        if (subtractionOverflows(values[offset + 1], values[offset], delta)) {
+            return 1;
+        }
+
+        int end = offset + 2;
+        while (end < size && values[end] - values[end - 1] == delta && !subtractionOverflows(values[end], values[end - 1], delta)) {
+            end++;
+        }
+        return end - offset;
+    }
+
+    private static boolean subtractionOverflows(long left, long right, long result)
+    {
+        return ((left ^ right) & (left ^ result)) < 0;
+    }
+
+    private void writeShortRepeat(long value, int runLength)
+    {
+        long encodedValue = signed ? zigzagEncode(value) : value;
+        int bytes = max(1, (findBitWidth(encodedValue) + 7) / 8);
+
+        buffer.writeByte((EncodingType.SHORT_REPEAT.ordinal() << 6) | ((bytes - 1) << 3) | (runLength - MIN_REPEAT_SIZE));
+        // value is stored big endian
+        for (int i = bytes - 1; i >= 0; i--) {
+            buffer.writeByte((int) (encodedValue >>> (i * 8)));
+        }
+    }
+
+    private void writeFixedDelta(long firstValue, long delta, int runLength)
+    {
+        // a bit width of zero means all values have the same delta
+        int header = (EncodingType.DELTA.ordinal() << 14) | (runLength - 1);
+        buffer.writeByte(header >>> 8);
+        buffer.writeByte(header);
+        writeVLong(buffer, firstValue, signed);
+        writeSignedVLong(buffer, delta);
+    }
+
+    private void writeDirect(int offset, int length)
+    {
+        long mask = 0;
+        for (int i = 0; i < length; i++) {
+            long value = values[offset + i];
+            if (signed) {
+                value = zigzagEncode(value);
+            }
+            encodedValues[i] = value;
+            mask |= value;
+        }
+
+        int encodedBitWidth = encodeBitWidth(findBitWidth(mask));
+        int bitWidth = LongDecode.decodeBitWidth(encodedBitWidth);
+
+        int header = (EncodingType.DIRECT.ordinal() << 14) | (encodedBitWidth << 9) | (length - 1);
+        buffer.writeByte(header >>> 8);
+        buffer.writeByte(header);
+        writeBitPacked(buffer, encodedValues, 0, length, bitWidth);
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed);
+        // flush so the row group starts at a run boundary
+        flushValues();
+        checkpoints.add(new LongStreamV2Checkpoint(0, buffer.getCheckpoint()));
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        flushValues();
+        buffer.close();
+    }
+
+    @Override
+    public List<LongStreamV2Checkpoint> getCheckpoints()
+    {
+        checkState(closed);
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        return new StreamDataOutput(new Stream(column, streamKind, toIntExact(buffer.getOutputDataSize()), true), buffer::writeDataTo);
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return buffer.getBufferedBytes() + (Long.BYTES * size);
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return buffer.getRetainedSize() + (2L * Long.BYTES * MAX_RUN_LENGTH);
+    }
+
+    @Override
+    public void reset()
+    {
+        size = 0;
+        closed = false;
+        buffer.reset();
+        checkpoints.clear();
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import org.iq80.snappy.Snappy;
+
+import java.util.zip.Deflater;
+
+import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.createInputStreamCheckpoint;
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Buffers the bytes of a single ORC stream, splitting them into compression
+ * chunks of at most {@code maxBufferSize} bytes. This is the write side of
+ * {@link OrcInputStream}, and the checkpoints it produces can be used directly
+ * to seek an {@link OrcInputStream} over the written data.
+ */
+public class OrcOutputBuffer
+{
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private final CompressionKind compression;
+    private final int maxBufferSize;
+
+    private final DynamicSliceOutput compressedOutput = new DynamicSliceOutput(INITIAL_BUFFER_SIZE);
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private Slice bufferSlice = Slices.wrappedBuffer(buffer);
+    private int bufferPosition;
+
+    private Deflater deflater;
+    private byte[] compressionBuffer;
+
+    public OrcOutputBuffer(CompressionKind compression, int maxBufferSize)
+    {
+        this.compression = requireNonNull(compression, "compression is null");
+        checkArgument(maxBufferSize > 0, "maxBufferSize must be at least 1");
+        checkArgument(maxBufferSize < (1 << 23), "maxBufferSize must be less than 8MB");
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    /**
+     * Returns a packed input stream checkpoint for the next byte written to this buffer.
+     */
+    public long getCheckpoint()
+    {
+        if (compression == UNCOMPRESSED) {
+            return createInputStreamCheckpoint(0, compressedOutput.size() + bufferPosition);
+        }
+        return createInputStreamCheckpoint(compressedOutput.size(), bufferPosition);
+    }
+
+    public void writeByte(int value)
+    {
+        ensureWritableBytes(1);
+        buffer[bufferPosition] = (byte) value;
+        bufferPosition++;
+    }
+
+    public void writeInt(int value)
+    {
+        ensureWritableBytes(SIZE_OF_INT);
+        bufferSlice.setInt(bufferPosition, value);
+        bufferPosition += SIZE_OF_INT;
+    }
+
+    public void writeLong(long value)
+    {
+        ensureWritableBytes(SIZE_OF_LONG);
+        bufferSlice.setLong(bufferPosition, value);
+        bufferPosition += SIZE_OF_LONG;
+    }
+
+    public void writeBytes(byte[] source, int sourceIndex, int length)
+    {
+        while (length > 0) {
+            int batch = ensureWritableBytes(min(length, maxBufferSize));
+            System.arraycopy(source, sourceIndex, buffer, bufferPosition, batch);
+            bufferPosition += batch;
+            sourceIndex += batch;
+            length -= batch;
+        }
+    }
+
+    public void writeBytes(Slice source, int sourceIndex, int length)
+    {
+        while (length > 0) {
+            int batch = ensureWritableBytes(min(length, maxBufferSize));
+            source.getBytes(sourceIndex, buffer, bufferPosition, batch);
+            bufferPosition += batch;
+            sourceIndex += batch;
+            length -= batch;
+        }
+    }
+
+    /**
+     * Flushes the pending chunk. After this call the output size is final until more data is written.
+     */
+    public void close()
+    {
+        flushBufferToOutputStream();
+    }
+
+    /**
+     * Size of the stream as it will be written to the file.
+     */
+    public long getOutputDataSize()
+    {
+        return compressedOutput.size();
+    }
+
+    /**
+     * Number of bytes retained by this buffer, including data not yet flushed to a chunk.
+     */
+    public long getBufferedBytes()
+    {
+        return compressedOutput.size() + bufferPosition;
+    }
+
+    public long getRetainedSize()
+    {
+        return compressedOutput.getRetainedSize() + buffer.length + (compressionBuffer == null ? 0 : compressionBuffer.length);
+    }
+
+    public void writeDataTo(SliceOutput output)
+    {
+        flushBufferToOutputStream();
+        output.writeBytes(compressedOutput.slice());
+    }
+
+    public void reset()
+    {
+        compressedOutput.reset();
+        bufferPosition = 0;
+    }
+
+    /**
+     * Makes room in the buffer for up to {@code length} bytes, flushing a full
+     * chunk if necessary, and returns the number of bytes that can be written.
+     */
+    private int ensureWritableBytes(int length)
+    {
+        if (bufferPosition + length > buffer.length) {
+            if (buffer.length < maxBufferSize) {
+                // grow the buffer up to the chunk size
+                int newSize = min(maxBufferSize, Math.max(buffer.length * 2, bufferPosition + length));
+                byte[] newBuffer = new byte[newSize];
+                System.arraycopy(buffer, 0, newBuffer, 0, bufferPosition);
+                buffer = newBuffer;
+                bufferSlice = Slices.wrappedBuffer(buffer);
+            }
+            if (bufferPosition + length > buffer.length) {
+                if (length < buffer.length && length <= SIZE_OF_LONG) {
+                    // primitive values are never split across chunks
+                    flushBufferToOutputStream();
+                }
+                else if (bufferPosition == buffer.length) {
+                    flushBufferToOutputStream();
+                }
+            }
+        }
+        return min(length, buffer.length - bufferPosition);
+    }
+
+    private void flushBufferToOutputStream()
+    {
+        if (bufferPosition == 0) {
+            return;
+        }
+
+        if (compression == UNCOMPRESSED) {
+            compressedOutput.writeBytes(buffer, 0, bufferPosition);
+        }
+        else {
+            int compressedLength = compress(buffer, bufferPosition);
+            if (compressedLength < bufferPosition) {
+                writeChunkHeader(compressedLength, false);
+                compressedOutput.writeBytes(compressionBuffer, 0, compressedLength);
+            }
+            else {
+                writeChunkHeader(bufferPosition, true);
+                compressedOutput.writeBytes(buffer, 0, bufferPosition);
+            }
+        }
+        bufferPosition = 0;
+    }
+
+    // NOTE: this must match the 3 byte header read in OrcInputStream.advance()
+    private void writeChunkHeader(int length, boolean isOriginal)
+    {
+        int header = (length << 1) | (isOriginal ? 1 : 0);
+        compressedOutput.writeByte(header & 0xFF);
+        compressedOutput.writeByte((header >>> 8) & 0xFF);
+        compressedOutput.writeByte((header >>> 16) & 0xFF);
+    }
+
+    /**
+     * Compresses the data into {@code compressionBuffer} and returns the compressed length.
+     * If the data does not compress, a value of at least {@code length} is returned.
+     */
+    private int compress(byte[] data, int length)
+    {
+        if (compression == SNAPPY) {
+            int maxCompressedLength = Snappy.maxCompressedLength(length);
+            if (compressionBuffer == null || compressionBuffer.length < maxCompressedLength) {
+                compressionBuffer = new byte[maxCompressedLength];
+            }
+            return Snappy.compress(data, 0, length, compressionBuffer, 0);
+        }
+
+        if (compression == ZLIB) {
+            if (deflater == null) {
+                // ORC uses raw deflate without the zlib header
+                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            }
+            if (compressionBuffer == null || compressionBuffer.length < maxBufferSize) {
+                compressionBuffer = new byte[maxBufferSize];
+            }
+            deflater.reset();
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+
+            int compressedLength = 0;
+            while (!deflater.finished() && compressedLength < length) {
+                compressedLength += deflater.deflate(compressionBuffer, compressedLength, length - compressedLength);
+            }
+            if (!deflater.finished()) {
+                return length;
+            }
+            return compressedLength;
+        }
+
+        throw new IllegalArgumentException("Unsupported compression " + compression);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.Stream;
+import io.airlift.slice.SliceOutput;
+
+import java.util.function.Consumer;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The encoded bytes of one stream of a stripe, along with the stream metadata recorded in the stripe footer.
+ */
+public final class StreamDataOutput
+{
+    private final Stream stream;
+    private final Consumer<SliceOutput> writer;
+
+    public StreamDataOutput(Stream stream, Consumer<SliceOutput> writer)
+    {
+        this.stream = requireNonNull(stream, "stream is null");
+        this.writer = requireNonNull(writer, "writer is null");
+    }
+
+    public Stream getStream()
+    {
+        return stream;
+    }
+
+    public long size()
+    {
+        return stream.getLength();
+    }
+
+    public void writeData(SliceOutput sliceOutput)
+    {
+        writer.accept(sliceOutput);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("stream", stream)
+                .toString();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.BooleanStatistics;
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.OrcMetadataWriter;
+import com.facebook.presto.orc.stream.BooleanOutputStream;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.writer.ColumnWriterUtils.createRowIndexStream;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+public class BooleanColumnWriter
+        implements ColumnWriter
+{
+    private static final ColumnEncoding COLUMN_ENCODING = new ColumnEncoding(DIRECT, 0);
+
+    private final int column;
+    private final Type type;
+    private final CompressionKind compression;
+    private final int bufferSize;
+    private final OrcMetadataWriter metadataWriter;
+
+    private final BooleanOutputStream dataStream;
+    private final PresentOutputStream presentStream;
+
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+
+    private long nonNullValueCount;
+    private long trueValueCount;
+
+    private boolean closed;
+
+    public BooleanColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, OrcMetadataWriter metadataWriter)
+    {
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.type = requireNonNull(type, "type is null");
+        this.compression = requireNonNull(compression, "compression is null");
+        this.bufferSize = bufferSize;
+        this.metadataWriter = requireNonNull(metadataWriter, "metadataWriter is null");
+        this.dataStream = new BooleanOutputStream(compression, bufferSize);
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+    }
+
+    @Override
+    public ColumnEncoding getColumnEncoding()
+    {
+        return COLUMN_ENCODING;
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        dataStream.recordCheckpoint();
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed);
+
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            boolean isNull = block.isNull(position);
+            presentStream.writeBoolean(!isNull);
+            if (!isNull) {
+                boolean value = type.getBoolean(block, position);
+                dataStream.writeBoolean(value);
+                if (value) {
+                    trueValueCount++;
+                }
+                nonNullValueCount++;
+            }
+        }
+    }
+
+    @Override
+    public ColumnStatistics finishRowGroup()
+    {
+        checkState(!closed);
+
+        BooleanStatistics booleanStatistics = null;
+        if (nonNullValueCount > 0) {
+            booleanStatistics = new BooleanStatistics(trueValueCount);
+        }
+        ColumnStatistics statistics = new ColumnStatistics(nonNullValueCount, booleanStatistics, null, null, null, null, null);
+        rowGroupColumnStatistics.add(statistics);
+
+        nonNullValueCount = 0;
+        trueValueCount = 0;
+        return statistics;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        dataStream.close();
+        presentStream.close();
+    }
+
+    @Override
+    public ColumnStatistics getColumnStripeStatistics()
+    {
+        checkState(closed);
+        return mergeColumnStatistics(rowGroupColumnStatistics);
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams()
+            throws IOException
+    {
+        checkState(closed);
+        return ImmutableList.of(createRowIndexStream(
+                column,
+                compression,
+                bufferSize,
+                metadataWriter,
+                rowGroupColumnStatistics,
+                presentStream.getCheckpoints(),
+                dataStream.getCheckpoints()));
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed);
+
+        ImmutableList.Builder<StreamDataOutput> outputDataStreams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(outputDataStreams::add);
+        outputDataStreams.add(dataStream.getStreamDataOutput(column));
+        return outputDataStreams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return dataStream.getBufferedBytes() + presentStream.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return dataStream.getRetainedBytes() + presentStream.getRetainedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        dataStream.reset();
+        presentStream.reset();
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+        trueValueCount = 0;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Encodes the values of a single ORC column. A stripe is written by calling
+ * {@link #beginRowGroup()}, {@link #writeBlock(Block)} and {@link #finishRowGroup()}
+ * for each row group, and then {@link #close()}, after which the streams of the
+ * stripe are available. {@link #reset()} prepares the writer for the next stripe.
+ */
+public interface ColumnWriter
+{
+    void beginRowGroup();
+
+    void writeBlock(Block block);
+
+    ColumnStatistics finishRowGroup();
+
+    void close();
+
+    ColumnEncoding getColumnEncoding();
+
+    ColumnStatistics getColumnStripeStatistics();
+
+    List<StreamDataOutput> getIndexStreams()
+            throws IOException;
+
+    List<StreamDataOutput> getDataStreams();
+
+    long getBufferedBytes();
+
+    long getRetainedBytes();
+
+    void reset();
+}
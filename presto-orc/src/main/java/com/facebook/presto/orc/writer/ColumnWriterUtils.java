@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.checkpoint.BooleanStreamCheckpoint;
+import com.facebook.presto.orc.checkpoint.StreamCheckpoint;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.OrcMetadataWriter;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.facebook.presto.orc.stream.OrcOutputBuffer;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_INDEX;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.toIntExact;
+
+final class ColumnWriterUtils
+{
+    private ColumnWriterUtils()
+    {
+    }
+
+    /**
+     * Creates the ROW_INDEX stream of a column. The positions of each row group are the
+     * checkpoints of the column streams, in the order the reader consumes them.
+     */
+    @SafeVarargs
+    public static StreamDataOutput createRowIndexStream(
+            int column,
+            CompressionKind compression,
+            int bufferSize,
+            OrcMetadataWriter metadataWriter,
+            List<ColumnStatistics> rowGroupStatistics,
+            Optional<List<BooleanStreamCheckpoint>> presentCheckpoints,
+            List<? extends StreamCheckpoint>... dataCheckpoints)
+            throws IOException
+    {
+        boolean compressed = compression != UNCOMPRESSED;
+
+        ImmutableList.Builder<RowGroupIndex> rowGroupIndexes = ImmutableList.builder();
+        for (int rowGroup = 0; rowGroup < rowGroupStatistics.size(); rowGroup++) {
+            ImmutableList.Builder<Integer> positions = ImmutableList.builder();
+            if (presentCheckpoints.isPresent()) {
+                positions.addAll(getCheckpoint(presentCheckpoints.get(), rowGroup).toPositionList(compressed));
+            }
+            for (List<? extends StreamCheckpoint> checkpoints : dataCheckpoints) {
+                positions.addAll(getCheckpoint(checkpoints, rowGroup).toPositionList(compressed));
+            }
+            rowGroupIndexes.add(new RowGroupIndex(positions.build(), rowGroupStatistics.get(rowGroup)));
+        }
+
+        DynamicSliceOutput indexOutput = new DynamicSliceOutput(64);
+        metadataWriter.writeRowIndexes(indexOutput, rowGroupIndexes.build());
+        return createStreamDataOutput(column, ROW_INDEX, compression, bufferSize, indexOutput.slice());
+    }
+
+    private static StreamCheckpoint getCheckpoint(List<? extends StreamCheckpoint> checkpoints, int rowGroup)
+    {
+        checkArgument(rowGroup < checkpoints.size(), "Missing checkpoint for row group %s", rowGroup);
+        return checkpoints.get(rowGroup);
+    }
+
+    public static StreamDataOutput createStreamDataOutput(int column, StreamKind streamKind, CompressionKind compression, int bufferSize, Slice data)
+    {
+        OrcOutputBuffer buffer = new OrcOutputBuffer(compression, bufferSize);
+        buffer.writeBytes(data, 0, data.length());
+        buffer.close();
+        return new StreamDataOutput(new Stream(column, streamKind, toIntExact(buffer.getOutputDataSize()), true), buffer::writeDataTo);
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.DecimalStatistics;
+import com.facebook.presto.orc.metadata.OrcMetadataWriter;
+import com.facebook.presto.orc.stream.DecimalOutputStream;
+import com.facebook.presto.orc.stream.LongOutputStreamV2;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.DecimalType;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT_V2;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.SECONDARY;
+import static com.facebook.presto.orc.writer.ColumnWriterUtils.createRowIndexStream;
+import static com.facebook.presto.spi.type.Decimals.decodeUnscaledValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+public class DecimalColumnWriter
+        implements ColumnWriter
+{
+    private static final ColumnEncoding COLUMN_ENCODING = new ColumnEncoding(DIRECT_V2, 0);
+
+    private final int column;
+    private final DecimalType type;
+    private final CompressionKind compression;
+    private final int bufferSize;
+    private final OrcMetadataWriter metadataWriter;
+
+    private final DecimalOutputStream dataStream;
+    private final LongOutputStreamV2 scaleStream;
+    private final PresentOutputStream presentStream;
+
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+
+    private long nonNullValueCount;
+    // short decimals track the range without allocating
+    private long shortMinimum = Long.MAX_VALUE;
+    private long shortMaximum = Long.MIN_VALUE;
+    private BigInteger longMinimum;
+    private BigInteger longMaximum;
+
+    private boolean closed;
+
+    public DecimalColumnWriter(int column, DecimalType type, CompressionKind compression, int bufferSize, OrcMetadataWriter metadataWriter)
+    {
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.type = requireNonNull(type, "type is null");
+        this.compression = requireNonNull(compression, "compression is null");
+        this.bufferSize = bufferSize;
+        this.metadataWriter = requireNonNull(metadataWriter, "metadataWriter is null");
+        this.dataStream = new DecimalOutputStream(compression, bufferSize);
+        // Hive stores the scale as a signed value (see DecimalStreamReader)
+        this.scaleStream = new LongOutputStreamV2(compression, bufferSize, true, SECONDARY);
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+    }
+
+    @Override
+    public ColumnEncoding getColumnEncoding()
+    {
+        return COLUMN_ENCODING;
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        dataStream.recordCheckpoint();
+        scaleStream.recordCheckpoint();
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed);
+
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            boolean isNull = block.isNull(position);
+            presentStream.writeBoolean(!isNull);
+            if (!isNull) {
+                if (type.isShort()) {
+                    long value = type.getLong(block, position);
+                    dataStream.writeUnscaledValue(value);
+                    shortMinimum = Math.min(shortMinimum, value);
+                    shortMaximum = Math.max(shortMaximum, value);
+                }
+                else {
+                    BigInteger value = decodeUnscaledValue(type.getSlice(block, position));
+                    dataStream.writeUnscaledValue(value);
+                    if (longMinimum == null || value.compareTo(longMinimum) < 0) {
+                        longMinimum = value;
+                    }
+                    if (longMaximum == null || value.compareTo(longMaximum) > 0) {
+                        longMaximum = value;
+                    }
+                }
+                scaleStream.writeLong(type.getScale());
+                nonNullValueCount++;
+            }
+        }
+    }
+
+    @Override
+    public ColumnStatistics finishRowGroup()
+    {
+        checkState(!closed);
+
+        DecimalStatistics decimalStatistics = null;
+        if (nonNullValueCount > 0) {
+            if (type.isShort()) {
+                decimalStatistics = new DecimalStatistics(BigDecimal.valueOf(shortMinimum, type.getScale()), BigDecimal.valueOf(shortMaximum, type.getScale()));
+            }
+            else {
+                decimalStatistics = new DecimalStatistics(new BigDecimal(longMinimum, type.getScale()), new BigDecimal(longMaximum, type.getScale()));
+            }
+        }
+        ColumnStatistics statistics = new ColumnStatistics(nonNullValueCount, null, null, null, null, null, decimalStatistics);
+        rowGroupColumnStatistics.add(statistics);
+
+        nonNullValueCount = 0;
+        shortMinimum = Long.MAX_VALUE;
+        shortMaximum = Long.MIN_VALUE;
+        longMinimum = null;
+        longMaximum = null;
+        return statistics;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        dataStream.close();
+        scaleStream.close();
+        presentStream.close();
+    }
+
+    @Override
+    public ColumnStatistics getColumnStripeStatistics()
+    {
+        checkState(closed);
+        return mergeColumnStatistics(rowGroupColumnStatistics);
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams()
+            throws IOException
+    {
+        checkState(closed);
+        return ImmutableList.of(createRowIndexStream(
+                column,
+                compression,
+                bufferSize,
+                metadataWriter,
+                rowGroupColumnStatistics,
+                presentStream.getCheckpoints(),
+                dataStream.getCheckpoints(),
+                scaleStream.getCheckpoints()));
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed);
+
+        ImmutableList.Builder<StreamDataOutput> outputDataStreams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(outputDataStreams::add);
+        outputDataStreams.add(dataStream.getStreamDataOutput(column));
+        outputDataStreams.add(scaleStream.getStreamDataOutput(column));
+        return outputDataStreams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return dataStream.getBufferedBytes() + scaleStream.getBufferedBytes() + presentStream.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return dataStream.getRetainedBytes() + scaleStream.getRetainedBytes() + presentStream.getRetainedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        dataStream.reset();
+        scaleStream.reset();
+        presentStream.reset();
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+        shortMinimum = Long.MAX_VALUE;
+        shortMaximum = Long.MIN_VALUE;
+        longMinimum = null;
+        longMaximum = null;
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.OrcMetadataWriter;
+import com.facebook.presto.orc.metadata.StringStatistics;
+import com.facebook.presto.orc.stream.ByteArrayOutputStream;
+import com.facebook.presto.orc.stream.LongOutputStreamV2;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY_V2;
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT_V2;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.LENGTH;
+import static com.facebook.presto.orc.writer.ColumnWriterUtils.createRowIndexStream;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writer for STRING, VARCHAR, CHAR and BINARY columns.
+ * <p>
+ * Values are collected into a dictionary while the stripe is written. If the dictionary
+ * grows beyond the memory limit, or the values are mostly distinct, the buffered values
+ * are replayed into DIRECT_V2 streams and the rest of the stripe is written directly.
+ * Otherwise the dictionary is sorted and written as DICTIONARY_V2 when the stripe is closed.
+ */
+public class SliceColumnWriter
+        implements ColumnWriter
+{
+    private static final ColumnEncoding DIRECT_COLUMN_ENCODING = new ColumnEncoding(DIRECT_V2, 0);
+
+    // the dictionary is abandoned when the number of distinct values is above this fraction of all values
+    private static final double DICTIONARY_KEY_SIZE_RATIO = 0.8;
+    // the distinct value ratio is only evaluated after this many values have been written
+    private static final int DICTIONARY_MIN_VALUE_COUNT = 10_000;
+    // approximate overhead of a dictionary entry in the hash table and entry list
+    private static final int DICTIONARY_ENTRY_OVERHEAD = 64;
+
+    private final int column;
+    private final Type type;
+    private final boolean collectStatistics;
+    private final CompressionKind compression;
+    private final int bufferSize;
+    private final long dictionaryMaxMemory;
+    private final OrcMetadataWriter metadataWriter;
+
+    private final PresentOutputStream presentStream;
+
+    // dictionary encoding state
+    private final Object2IntOpenHashMap<Slice> dictionaryIds = new Object2IntOpenHashMap<>();
+    private final List<Slice> dictionary = new ArrayList<>();
+    private final IntList values = new IntArrayList();
+    // number of values written at the start of each row group
+    private final IntList rowGroupValueOffsets = new IntArrayList();
+    private long dictionaryBytes;
+
+    private final LongOutputStreamV2 dictionaryDataStream;
+    private final ByteArrayOutputStream dictionaryValueStream;
+    private final LongOutputStreamV2 dictionaryLengthStream;
+
+    // direct encoding state
+    private final ByteArrayOutputStream directDataStream;
+    private final LongOutputStreamV2 directLengthStream;
+
+    private boolean directEncoded;
+    private ColumnEncoding columnEncoding;
+
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+
+    private long nonNullValueCount;
+    private Slice minimum;
+    private Slice maximum;
+
+    private boolean closed;
+
+    public SliceColumnWriter(
+            int column,
+            Type type,
+            boolean collectStatistics,
+            CompressionKind compression,
+            int bufferSize,
+            long dictionaryMaxMemory,
+            OrcMetadataWriter metadataWriter)
+    {
+        checkArgument(column >= 0, "column is negative");
+        checkArgument(dictionaryMaxMemory >= 0, "dictionaryMaxMemory is negative");
+        this.column = column;
+        this.type = requireNonNull(type, "type is null");
+        this.collectStatistics = collectStatistics;
+        this.compression = requireNonNull(compression, "compression is null");
+        this.bufferSize = bufferSize;
+        this.dictionaryMaxMemory = dictionaryMaxMemory;
+        this.metadataWriter = requireNonNull(metadataWriter, "metadataWriter is null");
+
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+        this.dictionaryDataStream = new LongOutputStreamV2(compression, bufferSize, false, DATA);
+        this.dictionaryValueStream = new ByteArrayOutputStream(compression, bufferSize, DICTIONARY_DATA);
+        this.dictionaryLengthStream = new LongOutputStreamV2(compression, bufferSize, false, LENGTH);
+        this.directDataStream = new ByteArrayOutputStream(compression, bufferSize, DATA);
+        this.directLengthStream = new LongOutputStreamV2(compression, bufferSize, false, LENGTH);
+
+        dictionaryIds.defaultReturnValue(-1);
+    }
+
+    @Override
+    public ColumnEncoding getColumnEncoding()
+    {
+        checkState(closed);
+        return columnEncoding;
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        if (directEncoded) {
+            directDataStream.recordCheckpoint();
+            directLengthStream.recordCheckpoint();
+        }
+        else {
+            rowGroupValueOffsets.add(values.size());
+        }
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed);
+
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            boolean isNull = block.isNull(position);
+            presentStream.writeBoolean(!isNull);
+            if (!isNull) {
+                Slice value = type.getSlice(block, position);
+                if (directEncoded) {
+                    writeDirectValue(value);
+                }
+                else {
+                    values.add(getDictionaryId(value));
+                }
+
+                if (collectStatistics) {
+                    // copy the bounds so the statistics do not retain the input block
+                    if (minimum == null || value.compareTo(minimum) < 0) {
+                        minimum = Slices.copyOf(value);
+                    }
+                    if (maximum == null || value.compareTo(maximum) > 0) {
+                        maximum = Slices.copyOf(value);
+                    }
+                }
+                nonNullValueCount++;
+            }
+        }
+
+        if (!directEncoded && shouldAbandonDictionary()) {
+            convertToDirect();
+        }
+    }
+
+    private int getDictionaryId(Slice value)
+    {
+        int id = dictionaryIds.getInt(value);
+        if (id < 0) {
+            // the block may be backed by a larger buffer, so keep a compact copy
+            Slice entry = Slices.copyOf(value);
+            id = dictionary.size();
+            dictionary.add(entry);
+            dictionaryIds.put(entry, id);
+            dictionaryBytes += entry.length() + DICTIONARY_ENTRY_OVERHEAD;
+        }
+        return id;
+    }
+
+    private boolean shouldAbandonDictionary()
+    {
+        if (dictionaryBytes + values.size() * (long) Integer.BYTES > dictionaryMaxMemory) {
+            return true;
+        }
+        return values.size() >= DICTIONARY_MIN_VALUE_COUNT && isMostlyDistinct();
+    }
+
+    private boolean isMostlyDistinct()
+    {
+        return dictionary.size() > values.size() * DICTIONARY_KEY_SIZE_RATIO;
+    }
+
+    private void writeDirectValue(Slice value)
+    {
+        directDataStream.writeSlice(value);
+        directLengthStream.writeLong(value.length());
+    }
+
+    private void convertToDirect()
+    {
+        checkState(!directEncoded);
+
+        // replay the buffered values, recording the row group checkpoints along the way
+        int valueIndex = 0;
+        for (int rowGroup = 0; rowGroup < rowGroupValueOffsets.size(); rowGroup++) {
+            int rowGroupValueOffset = rowGroupValueOffsets.getInt(rowGroup);
+            for (; valueIndex < rowGroupValueOffset; valueIndex++) {
+                writeDirectValue(dictionary.get(values.getInt(valueIndex)));
+            }
+            directDataStream.recordCheckpoint();
+            directLengthStream.recordCheckpoint();
+        }
+        for (; valueIndex < values.size(); valueIndex++) {
+            writeDirectValue(dictionary.get(values.getInt(valueIndex)));
+        }
+
+        clearDictionary();
+        directEncoded = true;
+    }
+
+    @Override
+    public ColumnStatistics finishRowGroup()
+    {
+        checkState(!closed);
+
+        StringStatistics stringStatistics = null;
+        if (collectStatistics && nonNullValueCount > 0) {
+            stringStatistics = new StringStatistics(Slices.copyOf(minimum), Slices.copyOf(maximum));
+        }
+        ColumnStatistics statistics = new ColumnStatistics(nonNullValueCount, null, null, null, stringStatistics, null, null);
+        rowGroupColumnStatistics.add(statistics);
+
+        nonNullValueCount = 0;
+        minimum = null;
+        maximum = null;
+        return statistics;
+    }
+
+    @Override
+    public void close()
+    {
+        if (!directEncoded && (values.isEmpty() || isMostlyDistinct())) {
+            convertToDirect();
+        }
+
+        if (directEncoded) {
+            directDataStream.close();
+            directLengthStream.close();
+            columnEncoding = DIRECT_COLUMN_ENCODING;
+        }
+        else {
+            writeDictionary();
+            columnEncoding = new ColumnEncoding(DICTIONARY_V2, dictionary.size());
+            clearDictionary();
+        }
+        presentStream.close();
+        closed = true;
+    }
+
+    private void writeDictionary()
+    {
+        // the dictionary is written in sorted order, as the Hive writer does
+        int[] sortedIds = new int[dictionary.size()];
+        for (int i = 0; i < sortedIds.length; i++) {
+            sortedIds[i] = i;
+        }
+        IntArrays.quickSort(sortedIds, new AbstractIntComparator()
+        {
+            @Override
+            public int compare(int left, int right)
+            {
+                return dictionary.get(left).compareTo(dictionary.get(right));
+            }
+        });
+
+        int[] originalIdToSortedId = new int[sortedIds.length];
+        for (int sortedId = 0; sortedId < sortedIds.length; sortedId++) {
+            Slice entry = dictionary.get(sortedIds[sortedId]);
+            dictionaryValueStream.writeSlice(entry);
+            dictionaryLengthStream.writeLong(entry.length());
+            originalIdToSortedId[sortedIds[sortedId]] = sortedId;
+        }
+
+        int valueIndex = 0;
+        for (int rowGroup = 0; rowGroup < rowGroupValueOffsets.size(); rowGroup++) {
+            int rowGroupValueOffset = rowGroupValueOffsets.getInt(rowGroup);
+            for (; valueIndex < rowGroupValueOffset; valueIndex++) {
+                dictionaryDataStream.writeLong(originalIdToSortedId[values.getInt(valueIndex)]);
+            }
+            dictionaryDataStream.recordCheckpoint();
+        }
+        for (; valueIndex < values.size(); valueIndex++) {
+            dictionaryDataStream.writeLong(originalIdToSortedId[values.getInt(valueIndex)]);
+        }
+
+        dictionaryDataStream.close();
+        dictionaryValueStream.close();
+        dictionaryLengthStream.close();
+    }
+
+    private void clearDictionary()
+    {
+        dictionaryIds.clear();
+        dictionary.clear();
+        values.clear();
+        rowGroupValueOffsets.clear();
+        dictionaryBytes = 0;
+    }
+
+    @Override
+    public ColumnStatistics getColumnStripeStatistics()
+    {
+        checkState(closed);
+        return mergeColumnStatistics(rowGroupColumnStatistics);
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams()
+            throws IOException
+    {
+        checkState(closed);
+        if (directEncoded) {
+            return ImmutableList.of(createRowIndexStream(
+                    column,
+                    compression,
+                    bufferSize,
+                    metadataWriter,
+                    rowGroupColumnStatistics,
+                    presentStream.getCheckpoints(),
+                    directDataStream.getCheckpoints(),
+                    directLengthStream.getCheckpoints()));
+        }
+        return ImmutableList.of(createRowIndexStream(
+                column,
+                compression,
+                bufferSize,
+                metadataWriter,
+                rowGroupColumnStatistics,
+                presentStream.getCheckpoints(),
+                dictionaryDataStream.getCheckpoints()));
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed);
+
+        ImmutableList.Builder<StreamDataOutput> outputDataStreams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(outputDataStreams::add);
+        if (directEncoded) {
+            outputDataStreams.add(directDataStream.getStreamDataOutput(column));
+            outputDataStreams.add(directLengthStream.getStreamDataOutput(column));
+        }
+        else {
+            outputDataStreams.add(dictionaryDataStream.getStreamDataOutput(column));
+            outputDataStreams.add(dictionaryValueStream.getStreamDataOutput(column));
+            outputDataStreams.add(dictionaryLengthStream.getStreamDataOutput(column));
+        }
+        return outputDataStreams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return dictionaryBytes +
+                values.size() * (long) Integer.BYTES +
+                presentStream.getBufferedBytes() +
+                directDataStream.getBufferedBytes() +
+                directLengthStream.getBufferedBytes() +
+                dictionaryDataStream.getBufferedBytes() +
+                dictionaryValueStream.getBufferedBytes() +
+                dictionaryLengthStream.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return dictionaryBytes +
+                values.size() * (long) Integer.BYTES +
+                presentStream.getRetainedBytes() +
+                directDataStream.getRetainedBytes() +
+                directLengthStream.getRetainedBytes() +
+                dictionaryDataStream.getRetainedBytes() +
+                dictionaryValueStream.getRetainedBytes() +
+                dictionaryLengthStream.getRetainedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        directEncoded = false;
+        columnEncoding = null;
+        clearDictionary();
+        presentStream.reset();
+        dictionaryDataStream.reset();
+        dictionaryValueStream.reset();
+        dictionaryLengthStream.reset();
+        directDataStream.reset();
+        directLengthStream.reset();
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+        minimum = null;
+        maximum = null;
+    }
+}
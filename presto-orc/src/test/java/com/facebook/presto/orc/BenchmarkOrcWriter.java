@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.io.ByteStreams.nullOutputStream;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.joda.time.DateTimeZone.UTC;
+
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@Fork(2)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OperationsPerInvocation(BenchmarkOrcWriter.ROW_COUNT)
+public class BenchmarkOrcWriter
+{
+    public static final int ROW_COUNT = 100_000;
+    private static final int PAGE_SIZE = 1024;
+
+    @Benchmark
+    public Object writeFile(BenchmarkData data)
+            throws IOException
+    {
+        OrcWriter writer = new OrcWriter(
+                nullOutputStream(),
+                ImmutableList.of("test"),
+                ImmutableList.of(data.type),
+                data.compression,
+                ImmutableMap.of(),
+                UTC);
+        for (Page page : data.pages) {
+            writer.write(page);
+        }
+        writer.close();
+        return writer;
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"bigint_sequence", "bigint_random", "double", "varchar_dictionary", "varchar_direct"})
+        private String dataSet = "bigint_sequence";
+
+        @Param({"UNCOMPRESSED", "SNAPPY", "ZLIB"})
+        private CompressionKind compression = CompressionKind.SNAPPY;
+
+        private Type type;
+        private final List<Page> pages = new ArrayList<>();
+
+        @Setup
+        public void setup()
+        {
+            Random random = new Random(0);
+            type = dataSet.startsWith("bigint") ? BIGINT : dataSet.equals("double") ? DOUBLE : VARCHAR;
+            for (int start = 0; start < ROW_COUNT; start += PAGE_SIZE) {
+                BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+                for (int row = start; row < start + PAGE_SIZE && row < ROW_COUNT; row++) {
+                    switch (dataSet) {
+                        case "bigint_sequence":
+                            type.writeLong(blockBuilder, row);
+                            break;
+                        case "bigint_random":
+                            type.writeLong(blockBuilder, random.nextLong());
+                            break;
+                        case "double":
+                            type.writeDouble(blockBuilder, random.nextDouble());
+                            break;
+                        case "varchar_dictionary":
+                            type.writeSlice(blockBuilder, utf8Slice("value " + random.nextInt(100)));
+                            break;
+                        case "varchar_direct":
+                            type.writeSlice(blockBuilder, utf8Slice("value " + random.nextLong()));
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown data set: " + dataSet);
+                    }
+                }
+                pages.add(new Page(blockBuilder.build()));
+            }
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        // assure the benchmarks are valid before running
+        BenchmarkData data = new BenchmarkData();
+        data.setup();
+        new BenchmarkOrcWriter().writeFile(data);
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkOrcWriter.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.OrcTester.TempFile;
+import com.facebook.presto.orc.memory.AggregatedMemoryContext;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+import io.airlift.units.DataSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.joda.time.DateTimeZone.UTC;
+
+/**
+ * Compares decoding all columns and then filtering with decoding only the
+ * selected positions of the non-filter columns.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@Fork(2)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OperationsPerInvocation(BenchmarkSelectiveOrcReader.ROW_COUNT)
+public class BenchmarkSelectiveOrcReader
+{
+    public static final int ROW_COUNT = 1_000_000;
+    private static final int PAGE_SIZE = 1024;
+
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, BIGINT, VARCHAR);
+
+    @Benchmark
+    public long readAllThenFilter(BenchmarkData data)
+            throws IOException
+    {
+        OrcRecordReader recordReader = data.createRecordReader();
+        long selectedRows = 0;
+        int[] positions = new int[OrcReader.MAX_BATCH_SIZE];
+        List<Integer> positionList = Ints.asList(positions);
+        for (int batchSize = recordReader.nextBatch(); batchSize >= 0; batchSize = recordReader.nextBatch()) {
+            int positionCount = filter(recordReader.readBlock(BIGINT, 0), data.selectivity, positions);
+            for (int column = 1; column < TYPES.size(); column++) {
+                Block block = recordReader.readBlock(TYPES.get(column), column);
+                selectedRows += block.copyPositions(positionList.subList(0, positionCount)).getPositionCount();
+            }
+        }
+        recordReader.close();
+        return selectedRows;
+    }
+
+    @Benchmark
+    public long readSelected(BenchmarkData data)
+            throws IOException
+    {
+        OrcRecordReader recordReader = data.createRecordReader();
+        long selectedRows = 0;
+        int[] positions = new int[OrcReader.MAX_BATCH_SIZE];
+        for (int batchSize = recordReader.nextBatch(); batchSize >= 0; batchSize = recordReader.nextBatch()) {
+            int positionCount = filter(recordReader.readBlock(BIGINT, 0), data.selectivity, positions);
+            if (positionCount == 0) {
+                continue;
+            }
+            for (int column = 1; column < TYPES.size(); column++) {
+                selectedRows += recordReader.readBlock(TYPES.get(column), column, positions, positionCount).getPositionCount();
+            }
+        }
+        recordReader.close();
+        return selectedRows;
+    }
+
+    private static int filter(Block block, int selectivity, int[] positions)
+    {
+        int positionCount = 0;
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (BIGINT.getLong(block, position) % selectivity == 0) {
+                positions[positionCount] = position;
+                positionCount++;
+            }
+        }
+        return positionCount;
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        // one in this many rows is selected
+        @Param({"1000", "100", "10", "2"})
+        private int selectivity = 1000;
+
+        @Param({"UNCOMPRESSED", "SNAPPY"})
+        private CompressionKind compression = CompressionKind.SNAPPY;
+
+        private TempFile tempFile;
+
+        @Setup
+        public void setup()
+                throws IOException
+        {
+            tempFile = new TempFile();
+            Random random = new Random(0);
+            OrcWriter writer = new OrcWriter(
+                    new FileOutputStream(tempFile.getFile()),
+                    ImmutableList.of("filter", "bigint", "varchar"),
+                    TYPES,
+                    compression,
+                    ImmutableMap.of(),
+                    UTC);
+            for (int start = 0; start < ROW_COUNT; start += PAGE_SIZE) {
+                BlockBuilder filterBlockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+                BlockBuilder bigintBlockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+                BlockBuilder varcharBlockBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+                for (int row = start; row < start + PAGE_SIZE && row < ROW_COUNT; row++) {
+                    BIGINT.writeLong(filterBlockBuilder, random.nextInt(Integer.MAX_VALUE));
+                    BIGINT.writeLong(bigintBlockBuilder, random.nextLong());
+                    VARCHAR.writeSlice(varcharBlockBuilder, utf8Slice("value " + random.nextLong()));
+                }
+                writer.write(new Page(filterBlockBuilder.build(), bigintBlockBuilder.build(), varcharBlockBuilder.build()));
+            }
+            writer.close();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            tempFile.close();
+        }
+
+        private OrcRecordReader createRecordReader()
+                throws IOException
+        {
+            OrcDataSource dataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(8, MEGABYTE));
+            OrcReader orcReader = new OrcReader(dataSource, new OrcMetadataReader(), new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE));
+            return orcReader.createRecordReader(ImmutableMap.of(0, BIGINT, 1, BIGINT, 2, VARCHAR), OrcPredicate.TRUE, UTC, new AggregatedMemoryContext());
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        // assure the benchmarks are valid before running
+        BenchmarkData data = new BenchmarkData();
+        data.setup();
+        try {
+            BenchmarkSelectiveOrcReader benchmark = new BenchmarkSelectiveOrcReader();
+            if (benchmark.readSelected(data) != benchmark.readAllThenFilter(data)) {
+                throw new IllegalStateException("Selective read returned different rows");
+            }
+        }
+        finally {
+            data.tearDown();
+        }
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkSelectiveOrcReader.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.OrcTester.TempFile;
+import com.facebook.presto.orc.memory.AggregatedMemoryContext;
+import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.IntegerStatistics;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.stream.OrcInputStream;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY_V2;
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT_V2;
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DecimalType.createDecimalType;
+import static com.facebook.presto.spi.type.Decimals.encodeUnscaledValue;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcWriter
+{
+    private static final DecimalType SHORT_DECIMAL = createDecimalType(10, 2);
+    private static final DecimalType LONG_DECIMAL = createDecimalType(30, 5);
+
+    private static final List<String> COLUMN_NAMES = ImmutableList.of(
+            "boolean", "tinyint", "smallint", "integer", "bigint", "float", "double",
+            "low_cardinality", "high_cardinality", "binary", "date", "timestamp", "short_decimal", "long_decimal");
+    private static final List<Type> TYPES = ImmutableList.of(
+            BOOLEAN, TINYINT, SMALLINT, INTEGER, BIGINT, DOUBLE, DOUBLE,
+            VARCHAR, VARCHAR, VARBINARY, DATE, TIMESTAMP, SHORT_DECIMAL, LONG_DECIMAL);
+    private static final List<OrcTypeKind> KINDS = ImmutableList.of(
+            OrcTypeKind.BOOLEAN, OrcTypeKind.BYTE, OrcTypeKind.SHORT, OrcTypeKind.INT, OrcTypeKind.LONG, OrcTypeKind.FLOAT, OrcTypeKind.DOUBLE,
+            OrcTypeKind.STRING, OrcTypeKind.STRING, OrcTypeKind.BINARY, OrcTypeKind.DATE, OrcTypeKind.TIMESTAMP, OrcTypeKind.DECIMAL, OrcTypeKind.DECIMAL);
+
+    private static final int ROW_COUNT = 25_000;
+    private static final int PAGE_SIZE = 1_234;
+    private static final int ROW_GROUP_ROW_COUNT = 1_000;
+    private static final int STRIPE_ROW_COUNT = 7_000;
+
+    @Test
+    public void testRoundTripUncompressed()
+            throws Exception
+    {
+        testRoundTrip(UNCOMPRESSED);
+    }
+
+    @Test
+    public void testRoundTripZlib()
+            throws Exception
+    {
+        testRoundTrip(ZLIB);
+    }
+
+    @Test
+    public void testRoundTripSnappy()
+            throws Exception
+    {
+        testRoundTrip(SNAPPY);
+    }
+
+    private static void testRoundTrip(CompressionKind compression)
+            throws Exception
+    {
+        List<Page> pages = createPages();
+        try (TempFile tempFile = new TempFile()) {
+            writeFile(tempFile, compression, pages);
+
+            OrcReader orcReader = createOrcReader(tempFile);
+            assertEquals(orcReader.getCompressionKind(), compression);
+            assertEquals(orcReader.getColumnNames(), COLUMN_NAMES);
+
+            Footer footer = orcReader.getFooter();
+            assertEquals(footer.getNumberOfRows(), ROW_COUNT);
+            assertEquals(footer.getStripes().size(), (ROW_COUNT + STRIPE_ROW_COUNT - 1) / STRIPE_ROW_COUNT);
+
+            IntegerStatistics bigintStatistics = footer.getFileStats().get(5).getIntegerStatistics();
+            assertNotNull(bigintStatistics);
+            assertEquals(bigintStatistics.getMin().longValue(), -(ROW_COUNT - 1) * 1_000_000_007L);
+            // row 0 is null
+            assertEquals(bigintStatistics.getMax().longValue(), -1_000_000_007L);
+
+            ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
+            for (int column = 0; column < TYPES.size(); column++) {
+                includedColumns.put(column, TYPES.get(column));
+            }
+            OrcRecordReader recordReader = orcReader.createRecordReader(includedColumns.build(), OrcPredicate.TRUE, HIVE_STORAGE_TIME_ZONE, new AggregatedMemoryContext());
+
+            List<List<Object>> expectedValues = getValues(pages);
+            List<List<Object>> actualValues = new ArrayList<>();
+            for (int column = 0; column < TYPES.size(); column++) {
+                actualValues.add(new ArrayList<>());
+            }
+            for (int batchSize = recordReader.nextBatch(); batchSize >= 0; batchSize = recordReader.nextBatch()) {
+                for (int column = 0; column < TYPES.size(); column++) {
+                    Block block = recordReader.readBlock(TYPES.get(column), column);
+                    assertEquals(block.getPositionCount(), batchSize);
+                    addValues(TYPES.get(column), block, actualValues.get(column));
+                }
+            }
+            recordReader.close();
+
+            for (int column = 0; column < TYPES.size(); column++) {
+                assertEquals(actualValues.get(column), expectedValues.get(column), "column " + COLUMN_NAMES.get(column));
+            }
+        }
+    }
+
+    @Test
+    public void testFlush()
+            throws Exception
+    {
+        List<Page> pages = createPages();
+        try (TempFile tempFile = new TempFile()) {
+            OrcWriter writer = new OrcWriter(
+                    new FileOutputStream(tempFile.getFile()),
+                    COLUMN_NAMES,
+                    TYPES,
+                    KINDS,
+                    UNCOMPRESSED,
+                    new DataSize(64, MEGABYTE),
+                    ROW_COUNT,
+                    ROW_GROUP_ROW_COUNT,
+                    new DataSize(1, MEGABYTE),
+                    ImmutableMap.of(),
+                    HIVE_STORAGE_TIME_ZONE);
+            for (Page page : pages) {
+                writer.write(page);
+                long writtenBytes = writer.getWrittenBytes();
+                writer.flush();
+                assertTrue(writer.getWrittenBytes() > writtenBytes);
+            }
+            // flushing without buffered rows does not write an empty stripe
+            writer.flush();
+            writer.close();
+
+            Footer footer = createOrcReader(tempFile).getFooter();
+            assertEquals(footer.getNumberOfRows(), ROW_COUNT);
+            assertEquals(footer.getStripes().size(), pages.size());
+        }
+    }
+
+    @Test
+    public void testReadSelectedPositions()
+            throws Exception
+    {
+        List<Page> pages = createPages();
+        try (TempFile tempFile = new TempFile()) {
+            writeFile(tempFile, SNAPPY, pages);
+
+            ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
+            for (int column = 0; column < TYPES.size(); column++) {
+                includedColumns.put(column, TYPES.get(column));
+            }
+            OrcRecordReader recordReader = createOrcReader(tempFile).createRecordReader(includedColumns.build(), OrcPredicate.TRUE, HIVE_STORAGE_TIME_ZONE, new AggregatedMemoryContext());
+
+            List<List<Object>> allValues = getValues(pages);
+            List<List<Object>> expectedValues = new ArrayList<>();
+            List<List<Object>> actualValues = new ArrayList<>();
+            for (int column = 0; column < TYPES.size(); column++) {
+                expectedValues.add(new ArrayList<>());
+                actualValues.add(new ArrayList<>());
+            }
+
+            int batch = 0;
+            int rowsRead = 0;
+            for (int batchSize = recordReader.nextBatch(); batchSize >= 0; batchSize = recordReader.nextBatch()) {
+                // select nothing from some batches, everything from others, and a sparse set from the rest
+                int[] positions = new int[batchSize];
+                int positionCount = 0;
+                for (int position = 0; position < batchSize; position++) {
+                    int row = rowsRead + position;
+                    if (batch % 5 == 1 || (batch % 5 != 0 && (row % 7 == 0 || row % 1_000 < 3))) {
+                        positions[positionCount] = position;
+                        positionCount++;
+                    }
+                }
+
+                for (int column = 0; column < TYPES.size(); column++) {
+                    Block block = recordReader.readBlock(TYPES.get(column), column, positions, positionCount);
+                    assertEquals(block.getPositionCount(), positionCount);
+                    addValues(TYPES.get(column), block, actualValues.get(column));
+                    for (int i = 0; i < positionCount; i++) {
+                        expectedValues.get(column).add(allValues.get(column).get(rowsRead + positions[i]));
+                    }
+                }
+
+                rowsRead += batchSize;
+                batch++;
+            }
+            recordReader.close();
+
+            assertEquals(rowsRead, ROW_COUNT);
+            for (int column = 0; column < TYPES.size(); column++) {
+                assertEquals(actualValues.get(column), expectedValues.get(column), "column " + COLUMN_NAMES.get(column));
+            }
+        }
+    }
+
+    @Test
+    public void testStringEncodings()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            writeFile(tempFile, SNAPPY, createPages());
+
+            OrcReader orcReader = createOrcReader(tempFile);
+            OrcDataSource dataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+            for (StripeInformation stripe : orcReader.getFooter().getStripes()) {
+                StripeFooter stripeFooter = readStripeFooter(orcReader, dataSource, stripe);
+                // column 0 is the root struct
+                assertEquals(getEncoding(stripeFooter, 8), DICTIONARY_V2);
+                assertEquals(getEncoding(stripeFooter, 9), DIRECT_V2);
+                assertFalse(stripeFooter.getStreams().isEmpty());
+            }
+        }
+    }
+
+    private static ColumnEncodingKind getEncoding(StripeFooter stripeFooter, int column)
+    {
+        return stripeFooter.getColumnEncodings().get(column).getColumnEncodingKind();
+    }
+
+    private static StripeFooter readStripeFooter(OrcReader orcReader, OrcDataSource dataSource, StripeInformation stripe)
+            throws IOException
+    {
+        long offset = stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength();
+        byte[] buffer = new byte[(int) stripe.getFooterLength()];
+        dataSource.readFully(offset, buffer);
+        try (OrcInputStream inputStream = new OrcInputStream(
+                dataSource.toString(),
+                wrappedBuffer(buffer).getInput(),
+                orcReader.getCompressionKind(),
+                orcReader.getBufferSize(),
+                new AggregatedMemoryContext())) {
+            return new OrcMetadataReader().readStripeFooter(orcReader.getFooter().getTypes(), inputStream);
+        }
+    }
+
+    private static void writeFile(TempFile tempFile, CompressionKind compression, List<Page> pages)
+            throws IOException
+    {
+        OrcWriter writer = new OrcWriter(
+                new FileOutputStream(tempFile.getFile()),
+                COLUMN_NAMES,
+                TYPES,
+                KINDS,
+                compression,
+                new DataSize(64, MEGABYTE),
+                STRIPE_ROW_COUNT,
+                ROW_GROUP_ROW_COUNT,
+                new DataSize(1, MEGABYTE),
+                ImmutableMap.of("key", utf8Slice("value")),
+                HIVE_STORAGE_TIME_ZONE);
+        for (Page page : pages) {
+            writer.write(page);
+        }
+        writer.close();
+    }
+
+    private static OrcReader createOrcReader(TempFile tempFile)
+            throws IOException
+    {
+        OrcDataSource dataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+        return new OrcReader(dataSource, new OrcMetadataReader(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+    }
+
+    private static List<Page> createPages()
+    {
+        List<Page> pages = new ArrayList<>();
+        for (int start = 0; start < ROW_COUNT; start += PAGE_SIZE) {
+            int end = Math.min(start + PAGE_SIZE, ROW_COUNT);
+            Block[] blocks = new Block[TYPES.size()];
+            for (int column = 0; column < TYPES.size(); column++) {
+                Type type = TYPES.get(column);
+                BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), end - start);
+                for (int row = start; row < end; row++) {
+                    // every column has a null in some row groups, but not in all of them
+                    if (row % 4_000 < 1_000 && row % (column + 3) == 0) {
+                        blockBuilder.appendNull();
+                    }
+                    else {
+                        writeValue(column, type, row, blockBuilder);
+                    }
+                }
+                blocks[column] = blockBuilder.build();
+            }
+            pages.add(new Page(blocks));
+        }
+        return pages;
+    }
+
+    private static void writeValue(int column, Type type, int row, BlockBuilder blockBuilder)
+    {
+        switch (COLUMN_NAMES.get(column)) {
+            case "boolean":
+                type.writeBoolean(blockBuilder, row % 3 == 0);
+                break;
+            case "tinyint":
+                type.writeLong(blockBuilder, (byte) row);
+                break;
+            case "smallint":
+                type.writeLong(blockBuilder, (short) (row * 7));
+                break;
+            case "integer":
+                // long runs of repeated values followed by a sequence
+                type.writeLong(blockBuilder, row < 10_000 ? row / 100 : row);
+                break;
+            case "bigint":
+                type.writeLong(blockBuilder, -row * 1_000_000_007L);
+                break;
+            case "float":
+                type.writeDouble(blockBuilder, (float) (row * 0.25));
+                break;
+            case "double":
+                type.writeDouble(blockBuilder, row * 1.1 - 1000);
+                break;
+            case "low_cardinality":
+                type.writeSlice(blockBuilder, utf8Slice("value " + (row % 17)));
+                break;
+            case "high_cardinality":
+                type.writeSlice(blockBuilder, utf8Slice("unique value " + row));
+                break;
+            case "binary":
+                type.writeSlice(blockBuilder, wrappedBuffer(new byte[] {(byte) row, (byte) (row >> 8), 0, 1}));
+                break;
+            case "date":
+                type.writeLong(blockBuilder, row - 10_000);
+                break;
+            case "timestamp":
+                // includes timestamps before the epoch and before the ORC timestamp base
+                type.writeLong(blockBuilder, (row - 12_345) * 123_456_789L + row % 1_000);
+                break;
+            case "short_decimal":
+                type.writeLong(blockBuilder, (row - 12_000) * 12_345L);
+                break;
+            case "long_decimal":
+                type.writeSlice(blockBuilder, encodeUnscaledValue(BigInteger.valueOf(row - 12_000).multiply(BigInteger.TEN.pow(24)).add(BigInteger.valueOf(row))));
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected column " + column);
+        }
+    }
+
+    private static List<List<Object>> getValues(List<Page> pages)
+    {
+        List<List<Object>> values = new ArrayList<>();
+        for (int column = 0; column < TYPES.size(); column++) {
+            List<Object> columnValues = new ArrayList<>();
+            for (Page page : pages) {
+                addValues(TYPES.get(column), page.getBlock(column), columnValues);
+            }
+            values.add(columnValues);
+        }
+        return values;
+    }
+
+    private static void addValues(Type type, Block block, List<Object> values)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            values.add(type.getObjectValue(SESSION, block, position));
+        }
+    }
+}
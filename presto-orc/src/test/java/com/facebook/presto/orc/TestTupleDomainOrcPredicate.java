@@ -13,21 +13,30 @@
  */
 package com.facebook.presto.orc;
 
+import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
 import com.facebook.presto.orc.metadata.BooleanStatistics;
 import com.facebook.presto.orc.metadata.ColumnStatistics;
 import com.facebook.presto.orc.metadata.DateStatistics;
 import com.facebook.presto.orc.metadata.DecimalStatistics;
 import com.facebook.presto.orc.metadata.DoubleStatistics;
+import com.facebook.presto.orc.metadata.HiveBloomFilter;
 import com.facebook.presto.orc.metadata.IntegerStatistics;
 import com.facebook.presto.orc.metadata.StringStatistics;
 import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.predicate.ValueSet;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.slice.Slice;
 import org.testng.annotations.Test;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
+import static com.facebook.presto.orc.TupleDomainOrcPredicate.checkInBloomFilter;
 import static com.facebook.presto.orc.TupleDomainOrcPredicate.getDomain;
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.getMaxSlice;
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.getMinSlice;
@@ -49,6 +58,8 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static io.airlift.slice.Slices.utf8Slice;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestTupleDomainOrcPredicate
 {
@@ -273,4 +284,72 @@ public class TestTupleDomainOrcPredicate
     {
         return encodeScaledValue(new BigDecimal(value));
     }
+
+    @Test
+    public void testBloomFilter()
+            throws Exception
+    {
+        HiveBloomFilter bloomFilter = new HiveBloomFilter(1024 * 8, 3);
+        bloomFilter.addLong(42L);
+        bloomFilter.addDouble(3.5);
+        bloomFilter.addSlice(utf8Slice("apple"));
+        bloomFilter.addSlice(utf8Slice("a string longer than eight bytes"));
+
+        assertTrue(checkInBloomFilter(bloomFilter, singleValue(BIGINT, 42L), BIGINT));
+        assertFalse(checkInBloomFilter(bloomFilter, singleValue(BIGINT, 43L), BIGINT));
+        assertTrue(checkInBloomFilter(bloomFilter, singleValue(DOUBLE, 3.5), DOUBLE));
+        assertFalse(checkInBloomFilter(bloomFilter, singleValue(DOUBLE, 4.5), DOUBLE));
+        assertTrue(checkInBloomFilter(bloomFilter, singleValue(VARCHAR, utf8Slice("apple")), VARCHAR));
+        assertTrue(checkInBloomFilter(bloomFilter, singleValue(VARCHAR, utf8Slice("a string longer than eight bytes")), VARCHAR));
+        assertFalse(checkInBloomFilter(bloomFilter, singleValue(VARCHAR, utf8Slice("banana")), VARCHAR));
+
+        // IN list matches if any value may be present
+        assertTrue(checkInBloomFilter(bloomFilter, create(ValueSet.of(BIGINT, 1L, 42L), false), BIGINT));
+        assertFalse(checkInBloomFilter(bloomFilter, create(ValueSet.of(BIGINT, 1L, 2L), false), BIGINT));
+
+        // nulls and ranges can not be checked
+        assertTrue(checkInBloomFilter(bloomFilter, create(ValueSet.of(BIGINT, 1L), true), BIGINT));
+        assertTrue(checkInBloomFilter(bloomFilter, create(ValueSet.ofRanges(range(BIGINT, 1L, true, 2L, true)), false), BIGINT));
+        assertTrue(checkInBloomFilter(bloomFilter, notNull(BIGINT), BIGINT));
+    }
+
+    @Test
+    public void testMatchesWithBloomFilter()
+            throws Exception
+    {
+        HiveBloomFilter bloomFilter = new HiveBloomFilter(1024 * 8, 3);
+        for (long value = 0; value < 100; value += 2) {
+            bloomFilter.addLong(value);
+        }
+        ColumnStatistics columnStatistics = integerColumnStats(50L, 0L, 98L).withBloomFilter(bloomFilter);
+        Map<Integer, ColumnStatistics> statistics = ImmutableMap.of(0, columnStatistics);
+        List<ColumnReference<String>> columnReferences = ImmutableList.of(new ColumnReference<>("id", 0, BIGINT));
+
+        // value within the min/max range, but not in the bloom filter
+        TupleDomain<String> predicate = TupleDomain.withColumnDomains(ImmutableMap.of("id", singleValue(BIGINT, 51L)));
+        assertFalse(new TupleDomainOrcPredicate<>(predicate, columnReferences, true).matches(50, statistics));
+        assertTrue(new TupleDomainOrcPredicate<>(predicate, columnReferences, false).matches(50, statistics));
+
+        predicate = TupleDomain.withColumnDomains(ImmutableMap.of("id", singleValue(BIGINT, 52L)));
+        assertTrue(new TupleDomainOrcPredicate<>(predicate, columnReferences, true).matches(50, statistics));
+    }
+
+    @Test
+    public void testPredicateColumns()
+            throws Exception
+    {
+        List<ColumnReference<String>> columnReferences = ImmutableList.of(
+                new ColumnReference<>("id", 0, BIGINT),
+                new ColumnReference<>("name", 2, VARCHAR));
+
+        // only columns with a domain in the predicate need their bloom filters
+        TupleDomain<String> predicate = TupleDomain.withColumnDomains(ImmutableMap.of("name", singleValue(VARCHAR, utf8Slice("apple"))));
+        TupleDomainOrcPredicate<String> orcPredicate = new TupleDomainOrcPredicate<>(predicate, columnReferences, true);
+        assertTrue(orcPredicate.isBloomFiltersEnabled());
+        assertEquals(orcPredicate.getPredicateColumns(), ImmutableSet.of(2));
+
+        assertFalse(new TupleDomainOrcPredicate<>(predicate, columnReferences, false).isBloomFiltersEnabled());
+        assertEquals(new TupleDomainOrcPredicate<>(TupleDomain.<String>all(), columnReferences, true).getPredicateColumns(), ImmutableSet.of());
+        assertEquals(new TupleDomainOrcPredicate<>(TupleDomain.<String>none(), columnReferences, true).getPredicateColumns(), ImmutableSet.of());
+    }
 }
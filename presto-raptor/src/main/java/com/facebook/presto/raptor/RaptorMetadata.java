@@ -14,6 +14,7 @@
 package com.facebook.presto.raptor;
 
 import com.facebook.presto.raptor.metadata.ColumnInfo;
+import com.facebook.presto.raptor.metadata.ColumnStats;
 import com.facebook.presto.raptor.metadata.Distribution;
 import com.facebook.presto.raptor.metadata.MetadataDao;
 import com.facebook.presto.raptor.metadata.ShardDelta;
@@ -43,6 +44,9 @@ import com.facebook.presto.spi.ViewNotFoundException;
 import com.facebook.presto.spi.connector.ConnectorMetadata;
 import com.facebook.presto.spi.connector.ConnectorPartitioningHandle;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
@@ -59,6 +63,7 @@ import javax.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -266,6 +271,45 @@ public class RaptorMetadata
         return Multimaps.asMap(columns.build());
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, Constraint<ColumnHandle> constraint)
+    {
+        RaptorTableHandle handle = checkType(tableHandle, RaptorTableHandle.class, "tableHandle");
+
+        // the row count of the table is maintained as shards are committed
+        Long rowCount = dao.getTableRowCount(handle.getTableId());
+        if (rowCount == null) {
+            return TableStatistics.EMPTY_STATISTICS;
+        }
+
+        // the shard index records the range of the values of integral columns, which bounds their
+        // number of distinct values. The shards do not record null counts.
+        Map<Long, TableColumn> columns = new HashMap<>();
+        for (TableColumn column : dao.listTableColumns(handle.getTableId())) {
+            if (isDistinctValuesBoundedByRange(column.getDataType())) {
+                columns.put(column.getColumnId(), column);
+            }
+        }
+        List<ColumnInfo> columnInfos = columns.values().stream()
+                .map(column -> new ColumnInfo(column.getColumnId(), column.getDataType()))
+                .collect(toList());
+
+        ImmutableMap.Builder<ColumnHandle, ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        for (ColumnStats range : shardManager.getColumnRanges(handle.getTableId(), columnInfos)) {
+            double distinctValues = Math.min(rowCount, ((Number) range.getMax()).doubleValue() - ((Number) range.getMin()).doubleValue() + 1);
+            columnStatistics.put(
+                    getRaptorColumnHandle(columns.get(range.getColumnId())),
+                    new ColumnStatistics(Estimate.unknownValue(), Estimate.of(distinctValues)));
+        }
+        return new TableStatistics(Estimate.of(rowCount), columnStatistics.build());
+    }
+
+    private static boolean isDistinctValuesBoundedByRange(Type type)
+    {
+        // timestamps are indexed with millisecond precision, so their range is no useful bound
+        return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(DATE);
+    }
+
     @Override
     public List<ConnectorTableLayoutResult> getTableLayouts(ConnectorSession session, ConnectorTableHandle table, Constraint<ColumnHandle> constraint, Optional<Set<ColumnHandle>> desiredColumns)
     {
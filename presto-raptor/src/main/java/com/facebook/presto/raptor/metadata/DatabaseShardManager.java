@@ -93,6 +93,7 @@ import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
@@ -619,6 +620,43 @@ public class DatabaseShardManager
         }
     }
 
+    @Override
+    public List<ColumnStats> getColumnRanges(long tableId, List<ColumnInfo> columns)
+    {
+        List<ColumnInfo> integralColumns = columns.stream()
+                .filter(column -> jdbcType(column.getType()) == JDBCType.BIGINT || jdbcType(column.getType()) == JDBCType.INTEGER)
+                .collect(toList());
+        if (integralColumns.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        StringJoiner ranges = new StringJoiner(", ");
+        for (ColumnInfo column : integralColumns) {
+            ranges.add(format("min(%s), max(%s)", minColumn(column.getColumnId()), maxColumn(column.getColumnId())));
+        }
+        String sql = format("SELECT %s FROM %s", ranges, shardIndexTable(tableId));
+
+        try (Handle handle = dbi.open();
+                PreparedStatement statement = handle.getConnection().prepareStatement(sql);
+                ResultSet rs = statement.executeQuery()) {
+            ImmutableList.Builder<ColumnStats> stats = ImmutableList.builder();
+            if (rs.next()) {
+                for (int i = 0; i < integralColumns.size(); i++) {
+                    long min = rs.getLong((i * 2) + 1);
+                    boolean minNull = rs.wasNull();
+                    long max = rs.getLong((i * 2) + 2);
+                    if (!minNull && !rs.wasNull()) {
+                        stats.add(new ColumnStats(integralColumns.get(i).getColumnId(), min, max));
+                    }
+                }
+            }
+            return stats.build();
+        }
+        catch (SQLException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
     private Map<Integer, String> loadBucketAssignments(long distributionId)
     {
         Set<String> nodeIds = getNodeIdentifiers();
@@ -209,6 +209,9 @@ public interface MetadataDao
             @Bind("tableId") long tableId,
             @Bind("columnId") long columnId);
 
+    @SqlQuery("SELECT row_count FROM tables WHERE table_id = :tableId")
+    Long getTableRowCount(@Bind("tableId") long tableId);
+
     @SqlQuery("SELECT compaction_enabled FROM tables WHERE table_id = :tableId")
     boolean isCompactionEnabled(@Bind("tableId") long tableId);
 
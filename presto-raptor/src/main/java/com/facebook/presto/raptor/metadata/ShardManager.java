@@ -113,4 +113,10 @@ public interface ShardManager
      * Return the subset of shard uuids that exist
      */
     Set<UUID> getExistingShardUuids(long tableId, Set<UUID> shardUuids);
+
+    /**
+     * Get the smallest and largest values of integral columns over all shards of a table.
+     * Columns without an index or without values in any shard are omitted.
+     */
+    List<ColumnStats> getColumnRanges(long tableId, List<ColumnInfo> columns);
 }
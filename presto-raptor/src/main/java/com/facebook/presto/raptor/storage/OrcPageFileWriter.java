@@ -0,0 +1,300 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.storage;
+
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.raptor.util.SyncingFileOutputStream;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeSignature;
+import com.facebook.presto.spi.type.VarcharType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.json.JsonCodec;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_DICTIONARY_MAX_MEMORY;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_ROW_GROUP_MAX_ROW_COUNT;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_STRIPE_MAX_ROW_COUNT;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_STRIPE_MAX_SIZE;
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
+import static com.facebook.presto.spi.type.Decimals.rescale;
+import static com.facebook.presto.spi.type.Decimals.writeBigDecimal;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.joda.time.DateTimeZone.UTC;
+
+/**
+ * Writes shards with the native ORC writer, without converting the pages to Hive rows.
+ * The file layout is the same as the one produced by {@link OrcFileWriter}.
+ */
+public class OrcPageFileWriter
+        implements FileWriter
+{
+    private static final JsonCodec<OrcFileMetadata> METADATA_CODEC = jsonCodec(OrcFileMetadata.class);
+
+    private final List<Type> columnTypes;
+    private final OrcWriter orcWriter;
+    private final PageBuilder pageBuilder;
+
+    private boolean closed;
+    private long rowCount;
+    private long uncompressedSize;
+
+    public OrcPageFileWriter(List<Long> columnIds, List<Type> columnTypes, File target)
+    {
+        this.columnTypes = ImmutableList.copyOf(requireNonNull(columnTypes, "columnTypes is null"));
+        checkArgument(columnIds.size() == columnTypes.size(), "ids and types mismatch");
+        checkArgument(isSupported(columnTypes), "unsupported column types: %s", columnTypes);
+
+        List<String> columnNames = columnIds.stream()
+                .map(String::valueOf)
+                .collect(toList());
+        List<OrcTypeKind> columnKinds = columnTypes.stream()
+                .map(type -> getOrcTypeKind(type).get())
+                .collect(toList());
+
+        ImmutableMap.Builder<Long, TypeSignature> columnTypesMap = ImmutableMap.builder();
+        for (int i = 0; i < columnIds.size(); i++) {
+            columnTypesMap.put(columnIds.get(i), columnTypes.get(i).getTypeSignature());
+        }
+        Slice metadata = Slices.wrappedBuffer(METADATA_CODEC.toJsonBytes(new OrcFileMetadata(columnTypesMap.build())));
+
+        try {
+            this.orcWriter = new OrcWriter(
+                    new SyncingFileOutputStream(target),
+                    columnNames,
+                    this.columnTypes,
+                    columnKinds,
+                    SNAPPY,
+                    DEFAULT_STRIPE_MAX_SIZE,
+                    DEFAULT_STRIPE_MAX_ROW_COUNT,
+                    DEFAULT_ROW_GROUP_MAX_ROW_COUNT,
+                    DEFAULT_DICTIONARY_MAX_MEMORY,
+                    ImmutableMap.of(OrcFileMetadata.KEY, metadata),
+                    UTC);
+        }
+        catch (IOException e) {
+            throw new PrestoException(RAPTOR_ERROR, "Failed to create writer", e);
+        }
+        this.pageBuilder = new PageBuilder(this.columnTypes);
+    }
+
+    public static boolean isSupported(List<Type> columnTypes)
+    {
+        return columnTypes.stream().allMatch(type -> getOrcTypeKind(type).isPresent());
+    }
+
+    @Override
+    public void appendPages(List<Page> pages)
+    {
+        flushPageBuilder();
+        for (Page page : pages) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                uncompressedSize += getRowSize(page, position);
+            }
+            rowCount += page.getPositionCount();
+            write(page);
+        }
+    }
+
+    @Override
+    public void appendPages(List<Page> inputPages, int[] pageIndexes, int[] positionIndexes)
+    {
+        checkArgument(pageIndexes.length == positionIndexes.length, "pageIndexes and positionIndexes do not match");
+        for (int i = 0; i < pageIndexes.length; i++) {
+            Page page = inputPages.get(pageIndexes[i]);
+            int position = positionIndexes[i];
+            for (int channel = 0; channel < columnTypes.size(); channel++) {
+                columnTypes.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+            pageBuilder.declarePosition();
+            uncompressedSize += getRowSize(page, position);
+            rowCount++;
+            if (pageBuilder.isFull()) {
+                flushPageBuilder();
+            }
+        }
+    }
+
+    @Override
+    public void appendRow(Row row)
+    {
+        List<Object> columns = row.getColumns();
+        checkArgument(columns.size() == columnTypes.size());
+        for (int channel = 0; channel < columns.size(); channel++) {
+            appendOrcValue(columnTypes.get(channel), columns.get(channel), pageBuilder.getBlockBuilder(channel));
+        }
+        pageBuilder.declarePosition();
+        uncompressedSize += row.getSizeInBytes();
+        rowCount++;
+        if (pageBuilder.isFull()) {
+            flushPageBuilder();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flushPageBuilder();
+        }
+        finally {
+            try {
+                orcWriter.close();
+            }
+            catch (IOException e) {
+                throw new PrestoException(RAPTOR_ERROR, "Failed to close writer", e);
+            }
+        }
+    }
+
+    @Override
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
+    @Override
+    public long getUncompressedSize()
+    {
+        return uncompressedSize;
+    }
+
+    private void flushPageBuilder()
+    {
+        if (!pageBuilder.isEmpty()) {
+            write(pageBuilder.build());
+            pageBuilder.reset();
+        }
+    }
+
+    private void write(Page page)
+    {
+        try {
+            orcWriter.write(page);
+        }
+        catch (IOException e) {
+            throw new PrestoException(RAPTOR_ERROR, "Failed to write data", e);
+        }
+    }
+
+    // same accounting as Row.extractRow, so both writers produce shards of similar size
+    private long getRowSize(Page page, int position)
+    {
+        long size = 0;
+        for (int channel = 0; channel < columnTypes.size(); channel++) {
+            Block block = page.getBlock(channel);
+            Class<?> javaType = columnTypes.get(channel).getJavaType();
+            if (block.isNull(position) || javaType == boolean.class) {
+                size += SIZE_OF_BYTE;
+            }
+            else if (javaType == long.class) {
+                size += SIZE_OF_LONG;
+            }
+            else if (javaType == double.class) {
+                size += SIZE_OF_DOUBLE;
+            }
+            else {
+                size += block.getLength(position);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Appends a value in the representation used by {@link Row}.
+     */
+    private static void appendOrcValue(Type type, Object value, BlockBuilder blockBuilder)
+    {
+        if (value == null) {
+            blockBuilder.appendNull();
+        }
+        else if (type instanceof DecimalType) {
+            DecimalType decimalType = (DecimalType) type;
+            BigDecimal decimal = rescale(((HiveDecimal) value).bigDecimalValue(), decimalType);
+            if (decimalType.isShort()) {
+                type.writeLong(blockBuilder, decimal.unscaledValue().longValueExact());
+            }
+            else {
+                writeBigDecimal(decimalType, blockBuilder, decimal);
+            }
+        }
+        else if (type.getJavaType() == boolean.class) {
+            type.writeBoolean(blockBuilder, (Boolean) value);
+        }
+        else if (type.getJavaType() == long.class) {
+            type.writeLong(blockBuilder, (Long) value);
+        }
+        else if (type.getJavaType() == double.class) {
+            type.writeDouble(blockBuilder, (Double) value);
+        }
+        else if (type instanceof VarcharType) {
+            type.writeSlice(blockBuilder, Slices.utf8Slice((String) value));
+        }
+        else {
+            type.writeSlice(blockBuilder, Slices.wrappedBuffer((byte[]) value));
+        }
+    }
+
+    private static Optional<OrcTypeKind> getOrcTypeKind(Type type)
+    {
+        if (type instanceof DecimalType) {
+            return Optional.of(OrcTypeKind.DECIMAL);
+        }
+        Class<?> javaType = type.getJavaType();
+        if (javaType == boolean.class) {
+            return Optional.of(OrcTypeKind.BOOLEAN);
+        }
+        if (javaType == long.class) {
+            return Optional.of(OrcTypeKind.LONG);
+        }
+        if (javaType == double.class) {
+            return Optional.of(OrcTypeKind.DOUBLE);
+        }
+        if (type instanceof VarcharType) {
+            return Optional.of(OrcTypeKind.STRING);
+        }
+        if (type.equals(VARBINARY)) {
+            return Optional.of(OrcTypeKind.BINARY);
+        }
+        return Optional.empty();
+    }
+}
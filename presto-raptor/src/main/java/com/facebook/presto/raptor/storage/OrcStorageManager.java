@@ -132,6 +132,7 @@ public class OrcStorageManager
     private final long maxShardRows;
     private final DataSize maxShardSize;
     private final DataSize minAvailableSpace;
+    private final boolean optimizedWriterEnabled;
     private final TypeManager typeManager;
     private final ExecutorService deletionExecutor;
 
@@ -163,7 +164,8 @@ public class OrcStorageManager
                 config.getShardRecoveryTimeout(),
                 config.getMaxShardRows(),
                 config.getMaxShardSize(),
-                config.getMinAvailableSpace());
+                config.getMinAvailableSpace(),
+                config.isOrcOptimizedWriterEnabled());
     }
 
     public OrcStorageManager(
@@ -181,7 +183,8 @@ public class OrcStorageManager
             Duration shardRecoveryTimeout,
             long maxShardRows,
             DataSize maxShardSize,
-            DataSize minAvailableSpace)
+            DataSize minAvailableSpace,
+            boolean optimizedWriterEnabled)
     {
         this.nodeId = requireNonNull(nodeId, "nodeId is null");
         this.storageService = requireNonNull(storageService, "storageService is null");
@@ -197,6 +200,7 @@ public class OrcStorageManager
         this.maxShardRows = min(maxShardRows, MAX_ROWS);
         this.maxShardSize = requireNonNull(maxShardSize, "maxShardSize is null");
         this.minAvailableSpace = requireNonNull(minAvailableSpace, "minAvailableSpace is null");
+        this.optimizedWriterEnabled = optimizedWriterEnabled;
         this.shardRecorder = requireNonNull(shardRecorder, "shardRecorder is null");
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.deletionExecutor = newFixedThreadPool(deletionThreads, daemonThreadsNamed("raptor-delete-" + connectorId + "-%s"));
@@ -504,7 +508,7 @@ public class OrcStorageManager
                 columns.add(new ColumnReference<>(column, index, column.getColumnType()));
             }
         }
-        return new TupleDomainOrcPredicate<>(effectivePredicate, columns.build());
+        return new TupleDomainOrcPredicate<>(effectivePredicate, columns.build(), false);
     }
 
     private static Map<Long, Integer> columnIdIndex(List<String> columnNames)
@@ -529,7 +533,7 @@ public class OrcStorageManager
         private final List<CompletableFuture<?>> futures = new ArrayList<>();
 
         private boolean committed;
-        private OrcFileWriter writer;
+        private FileWriter writer;
         private UUID shardUuid;
 
         public OrcStoragePageSink(long transactionId, List<Long> columnIds, List<Type> columnTypes, OptionalInt bucketNumber)
@@ -643,11 +647,19 @@ public class OrcStorageManager
                 File stagingFile = storageService.getStagingFile(shardUuid);
                 storageService.createParents(stagingFile);
                 stagingFiles.add(stagingFile);
-                writer = new OrcFileWriter(columnIds, columnTypes, stagingFile);
+                writer = createFileWriter(columnIds, columnTypes, stagingFile);
             }
         }
     }
 
+    private FileWriter createFileWriter(List<Long> columnIds, List<Type> columnTypes, File stagingFile)
+    {
+        if (optimizedWriterEnabled && OrcPageFileWriter.isSupported(columnTypes)) {
+            return new OrcPageFileWriter(columnIds, columnTypes, stagingFile);
+        }
+        return new OrcFileWriter(columnIds, columnTypes, stagingFile);
+    }
+
     private static void closeQuietly(Closeable closeable)
     {
         try {
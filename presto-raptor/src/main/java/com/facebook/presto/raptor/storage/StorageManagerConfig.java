@@ -58,6 +58,7 @@ public class StorageManagerConfig
     private DataSize maxShardSize = new DataSize(256, MEGABYTE);
     private DataSize maxBufferSize = new DataSize(256, MEGABYTE);
     private int oneSplitPerBucketThreshold;
+    private boolean orcOptimizedWriterEnabled;
 
     @NotNull
     public File getDataDirectory()
@@ -320,4 +321,17 @@ public class StorageManagerConfig
         this.oneSplitPerBucketThreshold = oneSplitPerBucketThreshold;
         return this;
     }
+
+    public boolean isOrcOptimizedWriterEnabled()
+    {
+        return orcOptimizedWriterEnabled;
+    }
+
+    @Config("storage.orc.optimized-writer-enabled")
+    @ConfigDescription("Experimental: Write shards with the native ORC writer")
+    public StorageManagerConfig setOrcOptimizedWriterEnabled(boolean orcOptimizedWriterEnabled)
+    {
+        this.orcOptimizedWriterEnabled = orcOptimizedWriterEnabled;
+        return this;
+    }
 }
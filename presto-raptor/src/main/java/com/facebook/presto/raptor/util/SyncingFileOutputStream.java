@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * File output stream that syncs the file to disk when it is closed.
+ */
+public class SyncingFileOutputStream
+        extends OutputStream
+{
+    private final FileOutputStream out;
+    private boolean closed;
+
+    public SyncingFileOutputStream(File file)
+            throws IOException
+    {
+        this.out = new FileOutputStream(file);
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        flush();
+        out.getFD().sync();
+        out.close();
+    }
+
+    @Override
+    public void flush()
+            throws IOException
+    {
+        out.flush();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+            throws IOException
+    {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void write(int b)
+            throws IOException
+    {
+        out.write(b);
+    }
+}
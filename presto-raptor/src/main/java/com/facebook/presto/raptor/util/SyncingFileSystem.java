@@ -20,10 +20,7 @@ import org.apache.hadoop.fs.RawLocalFileSystem;
 import org.apache.hadoop.util.Progressable;
 
 import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 
 public final class SyncingFileSystem
         extends RawLocalFileSystem
@@ -46,55 +43,7 @@ public final class SyncingFileSystem
             throw new IOException("mkdirs failed to create " + parent.toString());
         }
         return new FSDataOutputStream(
-                new BufferedOutputStream(new LocalFileOutputStream(pathToFile(path)), bufferSize),
+                new BufferedOutputStream(new SyncingFileOutputStream(pathToFile(path)), bufferSize),
                 statistics);
     }
-
-    private static class LocalFileOutputStream
-            extends OutputStream
-    {
-        private final FileOutputStream out;
-        private boolean closed;
-
-        private LocalFileOutputStream(File file)
-                throws IOException
-        {
-            this.out = new FileOutputStream(file);
-        }
-
-        @Override
-        public void close()
-                throws IOException
-        {
-            if (closed) {
-                return;
-            }
-            closed = true;
-
-            flush();
-            out.getFD().sync();
-            out.close();
-        }
-
-        @Override
-        public void flush()
-                throws IOException
-        {
-            out.flush();
-        }
-
-        @Override
-        public void write(byte[] b, int off, int len)
-                throws IOException
-        {
-            out.write(b, off, len);
-        }
-
-        @Override
-        public void write(int b)
-                throws IOException
-        {
-            out.write(b);
-        }
-    }
 }
@@ -619,6 +619,44 @@ public class TestDatabaseShardManager
         shardAssertion(tableId).equal(c1, BIGINT, 3L).expected(shards);
     }
 
+    @Test
+    public void testColumnRanges()
+    {
+        ShardInfo shard1 = shardInfo(
+                UUID.randomUUID(),
+                "node1",
+                ImmutableList.of(new ColumnStats(1, 5, 10), new ColumnStats(2, -20.0, 20.0), new ColumnStats(3, date(2013, 5, 11), date(2013, 6, 13))));
+        ShardInfo shard2 = shardInfo(
+                UUID.randomUUID(),
+                "node2",
+                ImmutableList.of(new ColumnStats(1, 2, 8), new ColumnStats(3, date(2012, 1, 1), date(2012, 12, 31))));
+
+        List<ColumnInfo> columns = ImmutableList.of(
+                new ColumnInfo(1, BIGINT),
+                new ColumnInfo(2, DOUBLE),
+                new ColumnInfo(3, DATE),
+                new ColumnInfo(4, BIGINT));
+
+        long tableId = createTable("test");
+        shardManager.createTable(tableId, columns, false);
+        assertEquals(shardManager.getColumnRanges(tableId, columns), ImmutableList.of());
+
+        long transactionId = shardManager.beginTransaction();
+        shardManager.commitShards(transactionId, tableId, columns, ImmutableList.of(shard1, shard2), Optional.empty(), 0);
+
+        // ranges are only reported for integral columns with values
+        List<ColumnStats> ranges = shardManager.getColumnRanges(tableId, columns);
+        assertEquals(ranges.size(), 2);
+
+        assertEquals(ranges.get(0).getColumnId(), 1);
+        assertEquals(ranges.get(0).getMin(), 2L);
+        assertEquals(ranges.get(0).getMax(), 10L);
+
+        assertEquals(ranges.get(1).getColumnId(), 3);
+        assertEquals(ranges.get(1).getMin(), date(2012, 1, 1));
+        assertEquals(ranges.get(1).getMax(), date(2013, 6, 13));
+    }
+
     private Set<ShardNodes> getShardNodes(long tableId, TupleDomain<RaptorColumnHandle> predicate)
     {
         try (ResultIterator<BucketShards> iterator = shardManager.getShardNodes(tableId, predicate)) {
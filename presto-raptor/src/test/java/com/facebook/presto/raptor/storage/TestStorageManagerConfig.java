@@ -62,7 +62,8 @@ public class TestStorageManagerConfig
                 .setMaxShardRows(1_000_000)
                 .setMaxShardSize(new DataSize(256, MEGABYTE))
                 .setMaxBufferSize(new DataSize(256, MEGABYTE))
-                .setOneSplitPerBucketThreshold(0));
+                .setOneSplitPerBucketThreshold(0)
+                .setOrcOptimizedWriterEnabled(false));
     }
 
     @Test
@@ -88,6 +89,7 @@ public class TestStorageManagerConfig
                 .put("storage.max-shard-size", "10MB")
                 .put("storage.max-buffer-size", "512MB")
                 .put("storage.one-split-per-bucket-threshold", "4")
+                .put("storage.orc.optimized-writer-enabled", "true")
                 .build();
 
         StorageManagerConfig expected = new StorageManagerConfig()
@@ -109,7 +111,8 @@ public class TestStorageManagerConfig
                 .setMaxShardRows(10_000)
                 .setMaxShardSize(new DataSize(10, MEGABYTE))
                 .setMaxBufferSize(new DataSize(512, MEGABYTE))
-                .setOneSplitPerBucketThreshold(4);
+                .setOneSplitPerBucketThreshold(4)
+                .setOrcOptimizedWriterEnabled(true);
 
         assertFullMapping(properties, expected);
     }
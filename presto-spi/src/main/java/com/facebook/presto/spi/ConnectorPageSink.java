@@ -23,6 +23,49 @@ public interface ConnectorPageSink
 {
     CompletableFuture<?> NOT_BLOCKED = CompletableFuture.completedFuture(null);
 
+    /**
+     * Gets the number of output bytes written by this page sink so far.
+     * If size is not available, this method should return zero.
+     */
+    default long getCompletedBytes()
+    {
+        return 0;
+    }
+
+    /**
+     * Get the total memory that needs to be reserved in the system pool.
+     * This memory should include any buffers, etc. that are used for writing data.
+     */
+    default long getSystemMemoryUsage()
+    {
+        return 0;
+    }
+
+    /**
+     * Gets the number of files this page sink currently has open for writing.
+     */
+    default int getOpenWriterCount()
+    {
+        return 0;
+    }
+
+    /**
+     * Gets the memory used by the largest of the open writers of this page sink.
+     */
+    default long getMaxWriterMemoryUsage()
+    {
+        return 0;
+    }
+
+    /**
+     * Gets the number of times the buffered data of a writer was written out
+     * early to release memory.
+     */
+    default long getWriterFlushCount()
+    {
+        return 0;
+    }
+
     /**
      * Returns a future that will be completed when the page sink can accept
      * more pages.  If the page sink can accept more pages immediately,
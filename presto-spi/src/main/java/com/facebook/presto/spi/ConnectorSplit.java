@@ -14,6 +14,7 @@
 package com.facebook.presto.spi;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ConnectorSplit
 {
@@ -22,4 +23,13 @@ public interface ConnectorSplit
     List<HostAddress> getAddresses();
 
     Object getInfo();
+
+    /**
+     * Splits of a remotely accessible source that share an affinity key are preferably
+     * scheduled on the same nodes, so that node local caches of the data are reused.
+     */
+    default Optional<String> getAffinityKey()
+    {
+        return Optional.empty();
+    }
 }
@@ -202,6 +202,18 @@ public class LongArrayBlock
         return new LongArrayBlock(length, newValueIsNull, newValues);
     }
 
+    /**
+     * Copies the values of all positions to the start of {@code target}, and their null
+     * flags to the start of {@code targetIsNull} unless it is null.
+     */
+    public void getLongs(long[] target, boolean[] targetIsNull)
+    {
+        System.arraycopy(values, arrayOffset, target, 0, positionCount);
+        if (targetIsNull != null) {
+            System.arraycopy(valueIsNull, arrayOffset, targetIsNull, 0, positionCount);
+        }
+    }
+
     @Override
     public BlockEncoding getEncoding()
     {
@@ -35,6 +35,46 @@ public class ClassLoaderSafeConnectorPageSink
         this.classLoader = requireNonNull(classLoader, "classLoader is null");
     }
 
+    @Override
+    public long getCompletedBytes()
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.getCompletedBytes();
+        }
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.getSystemMemoryUsage();
+        }
+    }
+
+    @Override
+    public int getOpenWriterCount()
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.getOpenWriterCount();
+        }
+    }
+
+    @Override
+    public long getMaxWriterMemoryUsage()
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.getMaxWriterMemoryUsage();
+        }
+    }
+
+    @Override
+    public long getWriterFlushCount()
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.getWriterFlushCount();
+        }
+    }
+
     @Override
     public CompletableFuture<?> appendPage(Page page, Block sampleWeightBlock)
     {
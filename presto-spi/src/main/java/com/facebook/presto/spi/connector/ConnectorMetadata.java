@@ -32,6 +32,7 @@ import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.security.Privilege;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import io.airlift.slice.Slice;
 
 import java.util.Collection;
@@ -90,6 +91,15 @@ public interface ConnectorMetadata
         return Optional.empty();
     }
 
+    /**
+     * Return statistics of the rows of the specified table that match the given constraint.
+     * The statistics are estimates used for planning, and any of them can be unknown.
+     */
+    default TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, Constraint<ColumnHandle> constraint)
+    {
+        return TableStatistics.EMPTY_STATISTICS;
+    }
+
     /**
      * List table names, possibly filtered by schema. An empty list is returned if none match.
      */
@@ -17,10 +17,27 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.predicate.TupleDomain;
 
 import java.util.List;
 
 public interface ConnectorPageSourceProvider
 {
     ConnectorPageSource createPageSource(ConnectorTransactionHandle transactionHandle, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns);
+
+    /**
+     * Creates a page source for the split, like {@link #createPageSource(ConnectorTransactionHandle, ConnectorSession, ConnectorSplit, List)},
+     * with an additional constraint that is only known at execution time, e.g. the join keys of the build side of a join.
+     * Rows that do not satisfy the dynamic filter may be skipped, but are not required to be, since the engine still
+     * evaluates the join. Connectors which can not use the filter should ignore it.
+     */
+    default ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transactionHandle,
+            ConnectorSession session,
+            ConnectorSplit split,
+            List<ColumnHandle> columns,
+            TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        return createPageSource(transactionHandle, session, split, columns);
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.statistics;
+
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+public final class ColumnStatistics
+{
+    public static final ColumnStatistics UNKNOWN_COLUMN_STATISTICS = new ColumnStatistics(Estimate.unknownValue(), Estimate.unknownValue());
+
+    private final Estimate nullsFraction;
+    private final Estimate distinctValuesCount;
+
+    public ColumnStatistics(Estimate nullsFraction, Estimate distinctValuesCount)
+    {
+        this.nullsFraction = requireNonNull(nullsFraction, "nullsFraction is null");
+        this.distinctValuesCount = requireNonNull(distinctValuesCount, "distinctValuesCount is null");
+    }
+
+    /**
+     * Fraction of the rows where the column is null.
+     */
+    public Estimate getNullsFraction()
+    {
+        return nullsFraction;
+    }
+
+    /**
+     * Number of distinct non-null values of the column.
+     */
+    public Estimate getDistinctValuesCount()
+    {
+        return distinctValuesCount;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ColumnStatistics that = (ColumnStatistics) o;
+        return Objects.equals(nullsFraction, that.nullsFraction) &&
+                Objects.equals(distinctValuesCount, that.distinctValuesCount);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(nullsFraction, distinctValuesCount);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ColumnStatistics{nullsFraction=" + nullsFraction + ", distinctValuesCount=" + distinctValuesCount + "}";
+    }
+}
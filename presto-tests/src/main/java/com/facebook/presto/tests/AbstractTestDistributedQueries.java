@@ -18,6 +18,7 @@ import com.facebook.presto.testing.MaterializedResult;
 import com.facebook.presto.testing.MaterializedRow;
 import com.facebook.presto.testing.QueryRunner;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.intellij.lang.annotations.Language;
@@ -211,6 +212,28 @@ public abstract class AbstractTestDistributedQueries
         assertUpdate("DROP TABLE analyze_test");
     }
 
+    @Test
+    public void testDistributedSort()
+            throws Exception
+    {
+        for (String distributedSort : ImmutableList.of("true", "false")) {
+            Session session = getSession().withSystemProperty("distributed_sort", distributedSort);
+
+            assertQueryOrdered(session, "SELECT orderkey, custkey FROM orders ORDER BY orderkey DESC", "SELECT orderkey, custkey FROM orders ORDER BY orderkey DESC");
+            assertQueryOrdered(
+                    session,
+                    "SELECT custkey, orderstatus, totalprice FROM orders ORDER BY custkey, orderstatus DESC, totalprice",
+                    "SELECT custkey, orderstatus, totalprice FROM orders ORDER BY custkey, orderstatus DESC, totalprice");
+            assertQueryOrdered(
+                    session,
+                    "SELECT nullif(custkey % 7, 0) k, orderkey FROM orders ORDER BY k NULLS FIRST, orderkey",
+                    "SELECT nullif(custkey % 7, 0) k, orderkey FROM orders ORDER BY k NULLS FIRST, orderkey");
+
+            // no rows reach the merge
+            assertQueryOrdered(session, "SELECT orderkey FROM orders WHERE orderkey < 0 ORDER BY orderkey", "SELECT orderkey FROM orders WHERE orderkey < 0 ORDER BY orderkey");
+        }
+    }
+
     @Test
     public void testExplainAnalyze()
     {